@@ -59,8 +59,12 @@ CREATE TABLE `alert` (
   `update_time` datetime DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
   `deleted` int DEFAULT '0',
   `alert_category` varchar(50) DEFAULT NULL COMMENT '告警分类：cpu-CPU告警, memory-内存告警, disk-磁盘告警, network-网络告警, service-服务告警, security-安全告警',
+  `last_occurred_time` datetime DEFAULT NULL COMMENT '最近一次发生时间',
+  `occurrence_count` int DEFAULT '1' COMMENT '发生次数',
+  `correlation_key` varchar(100) DEFAULT NULL COMMENT '日志关联键（资产+事件）',
   PRIMARY KEY (`id`),
-  KEY `idx_device_id` (`device_id`)
+  KEY `idx_device_id` (`device_id`),
+  KEY `idx_correlation_key` (`correlation_key`)
 ) ENGINE=InnoDB AUTO_INCREMENT=73 DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
 /*!40101 SET character_set_client = @saved_cs_client */;
 
@@ -70,7 +74,7 @@ CREATE TABLE `alert` (
 
 LOCK TABLES `alert` WRITE;
 /*!40000 ALTER TABLE `alert` DISABLE KEYS */;
-INSERT INTO `alert` VALUES (1,'critical','CPU使用率超过90%阈值',1,'web-server-01','server','resolved','服务器CPU负载过高，可能影响业务运行','cpu_usage','95.5%','90%','2025-11-29 14:35:15',NULL,'2025-11-29 14:47:08',NULL,NULL,'2025-11-29 14:45:15','2025-12-01 15:58:50',0,'cpu'),(2,'critical','内存使用率超过95%阈值',2,'db-server-01','server','active','数据库服务器内存即将耗尽','memory_usage','97.2%','95%','2025-11-29 14:15:15',NULL,NULL,NULL,NULL,'2025-11-29 14:45:15','2025-12-01 15:58:50',0,'memory'),(3,'critical','磁盘空间不足',3,'storage-01','storage','acknowledged','存储设备磁盘空间已使用超过95%','disk_usage','96.8%','90%','2025-11-29 12:45:15',NULL,NULL,NULL,NULL,'2025-11-29 14:45:15','2025-12-01 15:58:50',0,'disk'),(4,'warning','网络延迟超过阈值',4,'router-01','network','active','核心路由器网络延迟增加','latency','150ms','100ms','2025-11-29 14:30:15',NULL,NULL,NULL,NULL,'2025-11-29 14:45:15','2025-12-01 15:58:50',0,'network'),(5,'warning','端口流量异常',5,'switch-01','network','active','交换机端口流量突增','port_traffic','850Mbps','800Mbps','2025-11-29 14:00:15',NULL,NULL,NULL,NULL,'2025-11-29 14:45:15','2025-12-01 15:58:50',0,'network'),(6,'warning','服务响应时间增加',1,'web-server-01','server','acknowledged','Web服务响应时间超过正常值','response_time','2.5s','2s','2025-11-29 13:45:15',NULL,NULL,NULL,NULL,'2025-11-29 14:45:15','2025-12-01 15:58:50',0,'service'),(7,'warning','SSL证书即将过期',6,'nginx-01','web','active','SSL证书将在7天内过期','ssl_expiry','7天','30天','2025-11-29 11:45:15',NULL,NULL,NULL,NULL,'2025-11-29 14:45:15','2025-12-01 15:58:50',0,'security'),(8,'info','系统自动备份完成',3,'storage-01','storage','resolved','每日自动备份任务已完成','backup_status','成功','-','2025-11-29 08:45:15',NULL,NULL,NULL,NULL,'2025-11-29 14:45:15','2025-12-01 15:58:50',0,'disk'),(9,'info','新设备上线',7,'camera-01','camera','resolved','新摄像头设备已成功接入网络','device_status','在线','-','2025-11-29 06:45:15',NULL,NULL,NULL,NULL,'2025-11-29 14:45:15','2025-12-01 15:58:50',0,'other'),(10,'info','系统更新通知',2,'db-server-01','server','active','数据库版本有可用更新','update_available','MySQL 8.0.35','-','2025-11-29 02:45:15',NULL,NULL,NULL,NULL,'2025-11-29 14:45:15','2025-12-01 15:58:50',0,'service'),(11,'critical','服务宕机',8,'app-server-01','server','resolved','应用服务器服务异常停止','service_status','停止','运行中','2025-11-28 14:45:15',NULL,NULL,NULL,NULL,'2025-11-29 14:45:15','2025-12-01 15:58:50',0,'service'),(12,'warning','登录失败次数过多',9,'firewall-01','security','acknowledged','检测到多次SSH登录失败尝试','failed_logins','15次','5次','2025-11-29 10:45:15',NULL,NULL,NULL,NULL,'2025-11-29 14:45:15','2025-12-01 15:58:50',0,'security'),(13,'critical','数据库连接池耗尽',2,'db-server-01','server','acknowledged','数据库连接池已达到最大限制','db_connections','500','500','2025-11-29 14:40:15','2025-11-29 14:46:23',NULL,NULL,NULL,'2025-11-29 14:45:15','2025-12-01 15:58:50',0,'service'),(14,'warning','温度告警',10,'rack-sensor-01','sensor','active','机房温度超过正常范围','temperature','32°C','28°C','2025-11-29 14:25:15',NULL,NULL,NULL,NULL,'2025-11-29 14:45:15','2025-12-01 15:58:50',0,'temperature'),(15,'info','定时任务执行完成',1,'web-server-01','server','resolved','数据同步定时任务已完成','cron_job','成功','-','2025-11-27 14:45:15',NULL,NULL,NULL,NULL,'2025-11-29 14:45:15','2025-12-01 15:58:50',0,'service'),(16,'critical','CPU使用率超过90%阈值',1,'web-server-01','server','active','服务器CPU负载过高','cpu_usage','92.3%','90%','2025-12-12 08:15:00',NULL,NULL,NULL,NULL,'2025-12-12 09:23:12','2025-12-12 09:23:12',0,'cpu'),(17,'warning','内存使用率偏高',2,'db-server-01','server','active','数据库服务器内存使用率上升','memory_usage','85.6%','80%','2025-12-12 10:30:00',NULL,NULL,NULL,NULL,'2025-12-12 09:23:12','2025-12-12 09:23:12',0,'memory'),(18,'info','系统备份完成',3,'storage-01','storage','resolved','每日备份任务已完成','backup_status','完成','完成','2025-12-12 03:00:00',NULL,NULL,NULL,NULL,'2025-12-12 09:23:12','2025-12-12 09:23:12',0,'other'),(19,'warning','网络延迟增加',4,'router-01','network','acknowledged','核心路由器延迟上升','latency','120ms','100ms','2025-12-12 14:20:00',NULL,NULL,NULL,NULL,'2025-12-12 09:23:12','2025-12-12 09:23:12',0,'network'),(20,'critical','磁盘空间告警',3,'storage-01','storage','active','存储空间即将耗尽','disk_usage','93.5%','90%','2025-12-12 16:45:00',NULL,NULL,NULL,NULL,'2025-12-12 09:23:12','2025-12-12 09:23:12',0,'disk'),(21,'warning','服务响应时间增加',1,'web-server-01','server','active','Web服务响应变慢','response_time','2.8s','2s','2025-12-13 09:10:00',NULL,NULL,NULL,NULL,'2025-12-12 09:23:12','2025-12-12 09:23:12',0,'service'),(22,'critical','数据库连接池告警',2,'db-server-01','server','acknowledged','连接池使用率过高','db_connections','480','500','2025-12-13 11:25:00',NULL,NULL,NULL,NULL,'2025-12-12 09:23:12','2025-12-12 09:23:12',0,'service'),(23,'info','安全扫描完成',9,'firewall-01','security','resolved','每周安全扫描已完成','scan_status','完成','完成','2025-12-13 02:00:00',NULL,NULL,NULL,NULL,'2025-12-12 09:23:12','2025-12-12 09:23:12',0,'security'),(24,'warning','端口流量异常',5,'switch-01','network','active','交换机端口流量突增','port_traffic','820Mbps','800Mbps','2025-12-13 15:30:00',NULL,NULL,NULL,NULL,'2025-12-12 09:23:12','2025-12-12 09:23:12',0,'network'),(25,'critical','CPU温度过高',8,'app-server-01','server','active','应用服务器CPU温度告警','cpu_temp','78°C','70°C','2025-12-13 17:00:00',NULL,NULL,NULL,NULL,'2025-12-12 09:23:12','2025-12-12 09:23:12',0,'temperature'),(26,'warning','SSL证书即将过期',6,'nginx-01','web','active','SSL证书将在5天内过期','ssl_expiry','5天','7天','2025-12-14 08:00:00',NULL,NULL,NULL,NULL,'2025-12-12 09:23:12','2025-12-12 09:23:12',0,'security'),(27,'critical','内存使用率超过95%',2,'db-server-01','server','active','数据库服务器内存告警','memory_usage','96.1%','95%','2025-12-14 10:45:00',NULL,NULL,NULL,NULL,'2025-12-12 09:23:12','2025-12-12 09:23:12',0,'memory'),(28,'info','系统更新可用',1,'web-server-01','server','active','检测到新的系统更新','update_status','可用','可用','2025-12-14 06:00:00',NULL,NULL,NULL,NULL,'2025-12-12 09:23:12','2025-12-12 09:23:12',0,'other'),(29,'warning','登录失败次数增加',9,'firewall-01','security','acknowledged','检测到多次登录失败','failed_logins','8次','5次','2025-12-14 13:20:00',NULL,NULL,NULL,NULL,'2025-12-12 09:23:12','2025-12-12 09:23:12',0,'security'),(30,'critical','存储IOPS告警',3,'storage-01','storage','active','存储IOPS超过阈值','iops','15000','12000','2025-12-14 16:30:00',NULL,NULL,NULL,NULL,'2025-12-12 09:23:12','2025-12-12 09:23:12',0,'disk'),(31,'warning','网络丢包率上升',4,'router-01','network','active','核心路由器丢包率增加','packet_loss','2.5%','1%','2025-12-15 07:30:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:01','2025-12-12 09:24:01',0,'network'),(32,'critical','CPU使用率告警',8,'app-server-01','server','acknowledged','应用服务器CPU过载','cpu_usage','94.2%','90%','2025-12-15 09:45:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:01','2025-12-12 09:24:01',0,'cpu'),(33,'info','定时任务执行完成',2,'db-server-01','server','resolved','数据库维护任务完成','task_status','完成','完成','2025-12-15 04:00:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:01','2025-12-12 09:24:01',0,'other'),(34,'warning','机房温度偏高',10,'rack-sensor-01','sensor','active','机房温度超过正常范围','temperature','30°C','28°C','2025-12-15 14:15:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:01','2025-12-12 09:24:01',0,'temperature'),(35,'critical','服务不可用',6,'nginx-01','web','active','Nginx服务异常','service_status','异常','正常','2025-12-15 16:00:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:01','2025-12-12 09:24:01',0,'service'),(36,'warning','磁盘IO延迟',3,'storage-01','storage','active','存储设备IO延迟增加','io_latency','25ms','20ms','2025-12-16 08:20:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:01','2025-12-12 09:24:01',0,'disk'),(37,'critical','内存泄漏检测',1,'web-server-01','server','active','检测到可能的内存泄漏','memory_leak','检测到','无','2025-12-16 10:30:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:01','2025-12-12 09:24:01',0,'memory'),(38,'info','证书更新成功',6,'nginx-01','web','resolved','SSL证书已更新','ssl_status','已更新','已更新','2025-12-16 11:00:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:01','2025-12-12 09:24:01',0,'security'),(39,'warning','带宽使用率高',5,'switch-01','network','acknowledged','交换机带宽使用率偏高','bandwidth','85%','80%','2025-12-16 15:45:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:01','2025-12-12 09:24:01',0,'network'),(40,'critical','数据库死锁',2,'db-server-01','server','active','检测到数据库死锁','deadlock','检测到','无','2025-12-16 17:30:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:01','2025-12-12 09:24:01',0,'service'),(41,'warning','CPU负载波动',8,'app-server-01','server','active','CPU负载出现异常波动','cpu_load','4.5','3.0','2025-12-17 07:00:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:01','2025-12-12 09:24:01',0,'cpu'),(42,'critical','存储空间严重不足',3,'storage-01','storage','active','存储空间使用率超过95%','disk_usage','96.2%','95%','2025-12-17 09:15:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:01','2025-12-12 09:24:01',0,'disk'),(43,'info','系统健康检查完成',1,'web-server-01','server','resolved','每日健康检查已完成','health_check','通过','通过','2025-12-17 06:00:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:01','2025-12-12 09:24:01',0,'other'),(44,'warning','网络抖动',4,'router-01','network','active','网络延迟出现抖动','jitter','15ms','10ms','2025-12-17 13:40:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:01','2025-12-12 09:24:01',0,'network'),(45,'critical','服务响应超时',6,'nginx-01','web','acknowledged','Web服务响应超时','timeout','30s','10s','2025-12-17 16:20:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:01','2025-12-12 09:24:01',0,'service'),(46,'warning','内存使用率上升',8,'app-server-01','server','active','应用服务器内存使用增加','memory_usage','82.5%','80%','2025-12-18 08:30:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:20','2025-12-12 09:24:20',0,'memory'),(47,'critical','网络连接中断',5,'switch-01','network','active','交换机端口连接中断','connection','中断','正常','2025-12-18 10:00:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:20','2025-12-12 09:24:20',0,'network'),(48,'info','日志轮转完成',2,'db-server-01','server','resolved','数据库日志轮转已完成','log_rotate','完成','完成','2025-12-18 03:00:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:20','2025-12-12 09:24:20',0,'other'),(49,'warning','安全事件检测',9,'firewall-01','security','acknowledged','检测到可疑网络活动','security_event','检测到','无','2025-12-18 14:50:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:20','2025-12-12 09:24:20',0,'security'),(50,'critical','CPU使用率持续过高',1,'web-server-01','server','active','CPU使用率持续超过阈值','cpu_usage','93.8%','90%','2025-12-18 17:10:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:20','2025-12-12 09:24:20',0,'cpu'),(51,'warning','磁盘读写速度下降',3,'storage-01','storage','active','存储设备性能下降','disk_speed','150MB/s','200MB/s','2025-12-19 07:45:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:20','2025-12-12 09:24:20',0,'disk'),(52,'critical','服务进程异常',8,'app-server-01','server','active','应用服务进程异常退出','process_status','异常','正常','2025-12-19 09:30:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:20','2025-12-12 09:24:20',0,'service'),(53,'info','备份验证成功',3,'storage-01','storage','resolved','备份数据验证通过','backup_verify','通过','通过','2025-12-19 05:00:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:20','2025-12-12 09:24:20',0,'other'),(54,'warning','机房湿度偏低',10,'rack-sensor-01','sensor','active','机房湿度低于正常范围','humidity','35%','40%','2025-12-19 12:20:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:20','2025-12-12 09:24:20',0,'temperature'),(55,'critical','数据库响应慢',2,'db-server-01','server','acknowledged','数据库查询响应时间过长','query_time','5.2s','2s','2025-12-19 15:40:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:20','2025-12-12 09:24:20',0,'service'),(56,'warning','网络流量异常',4,'router-01','network','active','检测到异常网络流量','traffic','异常','正常','2025-12-20 08:00:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:20','2025-12-12 09:24:20',0,'network'),(57,'critical','内存溢出风险',1,'web-server-01','server','active','内存使用接近上限','memory_usage','94.5%','90%','2025-12-20 10:15:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:20','2025-12-12 09:24:20',0,'memory'),(58,'info','系统补丁已安装',8,'app-server-01','server','resolved','安全补丁安装完成','patch_status','已安装','已安装','2025-12-20 04:00:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:20','2025-12-12 09:24:20',0,'security'),(59,'warning','SSL证书检查',6,'nginx-01','web','active','SSL证书即将到期提醒','ssl_expiry','15天','30天','2025-12-20 13:30:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:20','2025-12-12 09:24:20',0,'security'),(60,'critical','存储阵列告警',3,'storage-01','storage','active','存储阵列检测到硬盘故障','raid_status','降级','正常','2025-12-20 16:45:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:20','2025-12-12 09:24:20',0,'disk'),(61,'warning','CPU温度上升',2,'db-server-01','server','active','数据库服务器CPU温度偏高','cpu_temp','72°C','70°C','2025-12-21 07:20:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:43','2025-12-12 09:24:43',0,'temperature'),(62,'critical','网络带宽饱和',5,'switch-01','network','active','交换机带宽使用率过高','bandwidth','95%','90%','2025-12-21 09:40:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:43','2025-12-12 09:24:43',0,'network'),(63,'info','安全审计完成',9,'firewall-01','security','resolved','每周安全审计已完成','audit_status','完成','完成','2025-12-21 02:00:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:43','2025-12-12 09:24:43',0,'security'),(64,'warning','服务队列积压',8,'app-server-01','server','acknowledged','应用服务消息队列积压','queue_size','5000','3000','2025-12-21 11:30:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:43','2025-12-12 09:24:43',0,'service'),(65,'critical','磁盘故障预警',3,'storage-01','storage','active','检测到磁盘SMART告警','smart_status','告警','正常','2025-12-21 14:00:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:43','2025-12-12 09:24:43',0,'disk'),(66,'warning','内存碎片化',1,'web-server-01','server','active','内存碎片化程度较高','memory_frag','35%','25%','2025-12-21 16:25:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:43','2025-12-12 09:24:43',0,'memory'),(67,'critical','CPU使用率峰值',8,'app-server-01','server','active','应用服务器CPU达到峰值','cpu_usage','98.2%','90%','2025-12-22 08:10:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:43','2025-12-12 09:24:43',0,'cpu'),(68,'warning','网络延迟波动',4,'router-01','network','active','网络延迟出现较大波动','latency','180ms','100ms','2025-12-22 10:25:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:43','2025-12-12 09:24:43',0,'network'),(69,'info','数据库优化完成',2,'db-server-01','server','resolved','数据库索引优化已完成','optimize_status','完成','完成','2025-12-22 05:00:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:43','2025-12-12 09:24:43',0,'other'),(70,'warning','机房温度告警',10,'rack-sensor-01','sensor','active','机房温度超过警戒值','temperature','31°C','28°C','2025-12-22 13:15:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:43','2025-12-12 09:24:43',0,'temperature'),(71,'critical','服务异常重启',6,'nginx-01','web','acknowledged','Nginx服务异常重启','restart_count','3次','1次','2025-12-22 15:30:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:43','2025-12-12 09:24:43',0,'service'),(72,'warning','存储性能下降',3,'storage-01','storage','active','存储设备IOPS下降','iops','8000','10000','2025-12-22 17:45:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:43','2025-12-12 09:24:43',0,'disk');
+INSERT INTO `alert` VALUES (1,'critical','CPU使用率超过90%阈值',1,'web-server-01','server','resolved','服务器CPU负载过高，可能影响业务运行','cpu_usage','95.5%','90%','2025-11-29 14:35:15',NULL,'2025-11-29 14:47:08',NULL,NULL,'2025-11-29 14:45:15','2025-12-01 15:58:50',0,'cpu',NULL,1,NULL),(2,'critical','内存使用率超过95%阈值',2,'db-server-01','server','active','数据库服务器内存即将耗尽','memory_usage','97.2%','95%','2025-11-29 14:15:15',NULL,NULL,NULL,NULL,'2025-11-29 14:45:15','2025-12-01 15:58:50',0,'memory',NULL,1,NULL),(3,'critical','磁盘空间不足',3,'storage-01','storage','acknowledged','存储设备磁盘空间已使用超过95%','disk_usage','96.8%','90%','2025-11-29 12:45:15',NULL,NULL,NULL,NULL,'2025-11-29 14:45:15','2025-12-01 15:58:50',0,'disk',NULL,1,NULL),(4,'warning','网络延迟超过阈值',4,'router-01','network','active','核心路由器网络延迟增加','latency','150ms','100ms','2025-11-29 14:30:15',NULL,NULL,NULL,NULL,'2025-11-29 14:45:15','2025-12-01 15:58:50',0,'network',NULL,1,NULL),(5,'warning','端口流量异常',5,'switch-01','network','active','交换机端口流量突增','port_traffic','850Mbps','800Mbps','2025-11-29 14:00:15',NULL,NULL,NULL,NULL,'2025-11-29 14:45:15','2025-12-01 15:58:50',0,'network',NULL,1,NULL),(6,'warning','服务响应时间增加',1,'web-server-01','server','acknowledged','Web服务响应时间超过正常值','response_time','2.5s','2s','2025-11-29 13:45:15',NULL,NULL,NULL,NULL,'2025-11-29 14:45:15','2025-12-01 15:58:50',0,'service',NULL,1,NULL),(7,'warning','SSL证书即将过期',6,'nginx-01','web','active','SSL证书将在7天内过期','ssl_expiry','7天','30天','2025-11-29 11:45:15',NULL,NULL,NULL,NULL,'2025-11-29 14:45:15','2025-12-01 15:58:50',0,'security',NULL,1,NULL),(8,'info','系统自动备份完成',3,'storage-01','storage','resolved','每日自动备份任务已完成','backup_status','成功','-','2025-11-29 08:45:15',NULL,NULL,NULL,NULL,'2025-11-29 14:45:15','2025-12-01 15:58:50',0,'disk',NULL,1,NULL),(9,'info','新设备上线',7,'camera-01','camera','resolved','新摄像头设备已成功接入网络','device_status','在线','-','2025-11-29 06:45:15',NULL,NULL,NULL,NULL,'2025-11-29 14:45:15','2025-12-01 15:58:50',0,'other',NULL,1,NULL),(10,'info','系统更新通知',2,'db-server-01','server','active','数据库版本有可用更新','update_available','MySQL 8.0.35','-','2025-11-29 02:45:15',NULL,NULL,NULL,NULL,'2025-11-29 14:45:15','2025-12-01 15:58:50',0,'service',NULL,1,NULL),(11,'critical','服务宕机',8,'app-server-01','server','resolved','应用服务器服务异常停止','service_status','停止','运行中','2025-11-28 14:45:15',NULL,NULL,NULL,NULL,'2025-11-29 14:45:15','2025-12-01 15:58:50',0,'service',NULL,1,NULL),(12,'warning','登录失败次数过多',9,'firewall-01','security','acknowledged','检测到多次SSH登录失败尝试','failed_logins','15次','5次','2025-11-29 10:45:15',NULL,NULL,NULL,NULL,'2025-11-29 14:45:15','2025-12-01 15:58:50',0,'security',NULL,1,NULL),(13,'critical','数据库连接池耗尽',2,'db-server-01','server','acknowledged','数据库连接池已达到最大限制','db_connections','500','500','2025-11-29 14:40:15','2025-11-29 14:46:23',NULL,NULL,NULL,'2025-11-29 14:45:15','2025-12-01 15:58:50',0,'service',NULL,1,NULL),(14,'warning','温度告警',10,'rack-sensor-01','sensor','active','机房温度超过正常范围','temperature','32°C','28°C','2025-11-29 14:25:15',NULL,NULL,NULL,NULL,'2025-11-29 14:45:15','2025-12-01 15:58:50',0,'temperature',NULL,1,NULL),(15,'info','定时任务执行完成',1,'web-server-01','server','resolved','数据同步定时任务已完成','cron_job','成功','-','2025-11-27 14:45:15',NULL,NULL,NULL,NULL,'2025-11-29 14:45:15','2025-12-01 15:58:50',0,'service',NULL,1,NULL),(16,'critical','CPU使用率超过90%阈值',1,'web-server-01','server','active','服务器CPU负载过高','cpu_usage','92.3%','90%','2025-12-12 08:15:00',NULL,NULL,NULL,NULL,'2025-12-12 09:23:12','2025-12-12 09:23:12',0,'cpu',NULL,1,NULL),(17,'warning','内存使用率偏高',2,'db-server-01','server','active','数据库服务器内存使用率上升','memory_usage','85.6%','80%','2025-12-12 10:30:00',NULL,NULL,NULL,NULL,'2025-12-12 09:23:12','2025-12-12 09:23:12',0,'memory',NULL,1,NULL),(18,'info','系统备份完成',3,'storage-01','storage','resolved','每日备份任务已完成','backup_status','完成','完成','2025-12-12 03:00:00',NULL,NULL,NULL,NULL,'2025-12-12 09:23:12','2025-12-12 09:23:12',0,'other',NULL,1,NULL),(19,'warning','网络延迟增加',4,'router-01','network','acknowledged','核心路由器延迟上升','latency','120ms','100ms','2025-12-12 14:20:00',NULL,NULL,NULL,NULL,'2025-12-12 09:23:12','2025-12-12 09:23:12',0,'network',NULL,1,NULL),(20,'critical','磁盘空间告警',3,'storage-01','storage','active','存储空间即将耗尽','disk_usage','93.5%','90%','2025-12-12 16:45:00',NULL,NULL,NULL,NULL,'2025-12-12 09:23:12','2025-12-12 09:23:12',0,'disk',NULL,1,NULL),(21,'warning','服务响应时间增加',1,'web-server-01','server','active','Web服务响应变慢','response_time','2.8s','2s','2025-12-13 09:10:00',NULL,NULL,NULL,NULL,'2025-12-12 09:23:12','2025-12-12 09:23:12',0,'service',NULL,1,NULL),(22,'critical','数据库连接池告警',2,'db-server-01','server','acknowledged','连接池使用率过高','db_connections','480','500','2025-12-13 11:25:00',NULL,NULL,NULL,NULL,'2025-12-12 09:23:12','2025-12-12 09:23:12',0,'service',NULL,1,NULL),(23,'info','安全扫描完成',9,'firewall-01','security','resolved','每周安全扫描已完成','scan_status','完成','完成','2025-12-13 02:00:00',NULL,NULL,NULL,NULL,'2025-12-12 09:23:12','2025-12-12 09:23:12',0,'security',NULL,1,NULL),(24,'warning','端口流量异常',5,'switch-01','network','active','交换机端口流量突增','port_traffic','820Mbps','800Mbps','2025-12-13 15:30:00',NULL,NULL,NULL,NULL,'2025-12-12 09:23:12','2025-12-12 09:23:12',0,'network',NULL,1,NULL),(25,'critical','CPU温度过高',8,'app-server-01','server','active','应用服务器CPU温度告警','cpu_temp','78°C','70°C','2025-12-13 17:00:00',NULL,NULL,NULL,NULL,'2025-12-12 09:23:12','2025-12-12 09:23:12',0,'temperature',NULL,1,NULL),(26,'warning','SSL证书即将过期',6,'nginx-01','web','active','SSL证书将在5天内过期','ssl_expiry','5天','7天','2025-12-14 08:00:00',NULL,NULL,NULL,NULL,'2025-12-12 09:23:12','2025-12-12 09:23:12',0,'security',NULL,1,NULL),(27,'critical','内存使用率超过95%',2,'db-server-01','server','active','数据库服务器内存告警','memory_usage','96.1%','95%','2025-12-14 10:45:00',NULL,NULL,NULL,NULL,'2025-12-12 09:23:12','2025-12-12 09:23:12',0,'memory',NULL,1,NULL),(28,'info','系统更新可用',1,'web-server-01','server','active','检测到新的系统更新','update_status','可用','可用','2025-12-14 06:00:00',NULL,NULL,NULL,NULL,'2025-12-12 09:23:12','2025-12-12 09:23:12',0,'other',NULL,1,NULL),(29,'warning','登录失败次数增加',9,'firewall-01','security','acknowledged','检测到多次登录失败','failed_logins','8次','5次','2025-12-14 13:20:00',NULL,NULL,NULL,NULL,'2025-12-12 09:23:12','2025-12-12 09:23:12',0,'security',NULL,1,NULL),(30,'critical','存储IOPS告警',3,'storage-01','storage','active','存储IOPS超过阈值','iops','15000','12000','2025-12-14 16:30:00',NULL,NULL,NULL,NULL,'2025-12-12 09:23:12','2025-12-12 09:23:12',0,'disk',NULL,1,NULL),(31,'warning','网络丢包率上升',4,'router-01','network','active','核心路由器丢包率增加','packet_loss','2.5%','1%','2025-12-15 07:30:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:01','2025-12-12 09:24:01',0,'network',NULL,1,NULL),(32,'critical','CPU使用率告警',8,'app-server-01','server','acknowledged','应用服务器CPU过载','cpu_usage','94.2%','90%','2025-12-15 09:45:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:01','2025-12-12 09:24:01',0,'cpu',NULL,1,NULL),(33,'info','定时任务执行完成',2,'db-server-01','server','resolved','数据库维护任务完成','task_status','完成','完成','2025-12-15 04:00:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:01','2025-12-12 09:24:01',0,'other',NULL,1,NULL),(34,'warning','机房温度偏高',10,'rack-sensor-01','sensor','active','机房温度超过正常范围','temperature','30°C','28°C','2025-12-15 14:15:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:01','2025-12-12 09:24:01',0,'temperature',NULL,1,NULL),(35,'critical','服务不可用',6,'nginx-01','web','active','Nginx服务异常','service_status','异常','正常','2025-12-15 16:00:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:01','2025-12-12 09:24:01',0,'service',NULL,1,NULL),(36,'warning','磁盘IO延迟',3,'storage-01','storage','active','存储设备IO延迟增加','io_latency','25ms','20ms','2025-12-16 08:20:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:01','2025-12-12 09:24:01',0,'disk',NULL,1,NULL),(37,'critical','内存泄漏检测',1,'web-server-01','server','active','检测到可能的内存泄漏','memory_leak','检测到','无','2025-12-16 10:30:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:01','2025-12-12 09:24:01',0,'memory',NULL,1,NULL),(38,'info','证书更新成功',6,'nginx-01','web','resolved','SSL证书已更新','ssl_status','已更新','已更新','2025-12-16 11:00:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:01','2025-12-12 09:24:01',0,'security',NULL,1,NULL),(39,'warning','带宽使用率高',5,'switch-01','network','acknowledged','交换机带宽使用率偏高','bandwidth','85%','80%','2025-12-16 15:45:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:01','2025-12-12 09:24:01',0,'network',NULL,1,NULL),(40,'critical','数据库死锁',2,'db-server-01','server','active','检测到数据库死锁','deadlock','检测到','无','2025-12-16 17:30:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:01','2025-12-12 09:24:01',0,'service',NULL,1,NULL),(41,'warning','CPU负载波动',8,'app-server-01','server','active','CPU负载出现异常波动','cpu_load','4.5','3.0','2025-12-17 07:00:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:01','2025-12-12 09:24:01',0,'cpu',NULL,1,NULL),(42,'critical','存储空间严重不足',3,'storage-01','storage','active','存储空间使用率超过95%','disk_usage','96.2%','95%','2025-12-17 09:15:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:01','2025-12-12 09:24:01',0,'disk',NULL,1,NULL),(43,'info','系统健康检查完成',1,'web-server-01','server','resolved','每日健康检查已完成','health_check','通过','通过','2025-12-17 06:00:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:01','2025-12-12 09:24:01',0,'other',NULL,1,NULL),(44,'warning','网络抖动',4,'router-01','network','active','网络延迟出现抖动','jitter','15ms','10ms','2025-12-17 13:40:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:01','2025-12-12 09:24:01',0,'network',NULL,1,NULL),(45,'critical','服务响应超时',6,'nginx-01','web','acknowledged','Web服务响应超时','timeout','30s','10s','2025-12-17 16:20:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:01','2025-12-12 09:24:01',0,'service',NULL,1,NULL),(46,'warning','内存使用率上升',8,'app-server-01','server','active','应用服务器内存使用增加','memory_usage','82.5%','80%','2025-12-18 08:30:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:20','2025-12-12 09:24:20',0,'memory',NULL,1,NULL),(47,'critical','网络连接中断',5,'switch-01','network','active','交换机端口连接中断','connection','中断','正常','2025-12-18 10:00:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:20','2025-12-12 09:24:20',0,'network',NULL,1,NULL),(48,'info','日志轮转完成',2,'db-server-01','server','resolved','数据库日志轮转已完成','log_rotate','完成','完成','2025-12-18 03:00:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:20','2025-12-12 09:24:20',0,'other',NULL,1,NULL),(49,'warning','安全事件检测',9,'firewall-01','security','acknowledged','检测到可疑网络活动','security_event','检测到','无','2025-12-18 14:50:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:20','2025-12-12 09:24:20',0,'security',NULL,1,NULL),(50,'critical','CPU使用率持续过高',1,'web-server-01','server','active','CPU使用率持续超过阈值','cpu_usage','93.8%','90%','2025-12-18 17:10:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:20','2025-12-12 09:24:20',0,'cpu',NULL,1,NULL),(51,'warning','磁盘读写速度下降',3,'storage-01','storage','active','存储设备性能下降','disk_speed','150MB/s','200MB/s','2025-12-19 07:45:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:20','2025-12-12 09:24:20',0,'disk',NULL,1,NULL),(52,'critical','服务进程异常',8,'app-server-01','server','active','应用服务进程异常退出','process_status','异常','正常','2025-12-19 09:30:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:20','2025-12-12 09:24:20',0,'service',NULL,1,NULL),(53,'info','备份验证成功',3,'storage-01','storage','resolved','备份数据验证通过','backup_verify','通过','通过','2025-12-19 05:00:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:20','2025-12-12 09:24:20',0,'other',NULL,1,NULL),(54,'warning','机房湿度偏低',10,'rack-sensor-01','sensor','active','机房湿度低于正常范围','humidity','35%','40%','2025-12-19 12:20:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:20','2025-12-12 09:24:20',0,'temperature',NULL,1,NULL),(55,'critical','数据库响应慢',2,'db-server-01','server','acknowledged','数据库查询响应时间过长','query_time','5.2s','2s','2025-12-19 15:40:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:20','2025-12-12 09:24:20',0,'service',NULL,1,NULL),(56,'warning','网络流量异常',4,'router-01','network','active','检测到异常网络流量','traffic','异常','正常','2025-12-20 08:00:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:20','2025-12-12 09:24:20',0,'network',NULL,1,NULL),(57,'critical','内存溢出风险',1,'web-server-01','server','active','内存使用接近上限','memory_usage','94.5%','90%','2025-12-20 10:15:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:20','2025-12-12 09:24:20',0,'memory',NULL,1,NULL),(58,'info','系统补丁已安装',8,'app-server-01','server','resolved','安全补丁安装完成','patch_status','已安装','已安装','2025-12-20 04:00:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:20','2025-12-12 09:24:20',0,'security',NULL,1,NULL),(59,'warning','SSL证书检查',6,'nginx-01','web','active','SSL证书即将到期提醒','ssl_expiry','15天','30天','2025-12-20 13:30:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:20','2025-12-12 09:24:20',0,'security',NULL,1,NULL),(60,'critical','存储阵列告警',3,'storage-01','storage','active','存储阵列检测到硬盘故障','raid_status','降级','正常','2025-12-20 16:45:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:20','2025-12-12 09:24:20',0,'disk',NULL,1,NULL),(61,'warning','CPU温度上升',2,'db-server-01','server','active','数据库服务器CPU温度偏高','cpu_temp','72°C','70°C','2025-12-21 07:20:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:43','2025-12-12 09:24:43',0,'temperature',NULL,1,NULL),(62,'critical','网络带宽饱和',5,'switch-01','network','active','交换机带宽使用率过高','bandwidth','95%','90%','2025-12-21 09:40:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:43','2025-12-12 09:24:43',0,'network',NULL,1,NULL),(63,'info','安全审计完成',9,'firewall-01','security','resolved','每周安全审计已完成','audit_status','完成','完成','2025-12-21 02:00:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:43','2025-12-12 09:24:43',0,'security',NULL,1,NULL),(64,'warning','服务队列积压',8,'app-server-01','server','acknowledged','应用服务消息队列积压','queue_size','5000','3000','2025-12-21 11:30:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:43','2025-12-12 09:24:43',0,'service',NULL,1,NULL),(65,'critical','磁盘故障预警',3,'storage-01','storage','active','检测到磁盘SMART告警','smart_status','告警','正常','2025-12-21 14:00:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:43','2025-12-12 09:24:43',0,'disk',NULL,1,NULL),(66,'warning','内存碎片化',1,'web-server-01','server','active','内存碎片化程度较高','memory_frag','35%','25%','2025-12-21 16:25:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:43','2025-12-12 09:24:43',0,'memory',NULL,1,NULL),(67,'critical','CPU使用率峰值',8,'app-server-01','server','active','应用服务器CPU达到峰值','cpu_usage','98.2%','90%','2025-12-22 08:10:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:43','2025-12-12 09:24:43',0,'cpu',NULL,1,NULL),(68,'warning','网络延迟波动',4,'router-01','network','active','网络延迟出现较大波动','latency','180ms','100ms','2025-12-22 10:25:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:43','2025-12-12 09:24:43',0,'network',NULL,1,NULL),(69,'info','数据库优化完成',2,'db-server-01','server','resolved','数据库索引优化已完成','optimize_status','完成','完成','2025-12-22 05:00:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:43','2025-12-12 09:24:43',0,'other',NULL,1,NULL),(70,'warning','机房温度告警',10,'rack-sensor-01','sensor','active','机房温度超过警戒值','temperature','31°C','28°C','2025-12-22 13:15:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:43','2025-12-12 09:24:43',0,'temperature',NULL,1,NULL),(71,'critical','服务异常重启',6,'nginx-01','web','acknowledged','Nginx服务异常重启','restart_count','3次','1次','2025-12-22 15:30:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:43','2025-12-12 09:24:43',0,'service',NULL,1,NULL),(72,'warning','存储性能下降',3,'storage-01','storage','active','存储设备IOPS下降','iops','8000','10000','2025-12-22 17:45:00',NULL,NULL,NULL,NULL,'2025-12-12 09:24:43','2025-12-12 09:24:43',0,'disk',NULL,1,NULL);
 /*!40000 ALTER TABLE `alert` ENABLE KEYS */;
 UNLOCK TABLES;
 
@@ -1891,6 +1895,31 @@ INSERT INTO `t_log_events` VALUES (1,'登录失败','#ff4d4f','用户登录失
 /*!40000 ALTER TABLE `t_log_events` ENABLE KEYS */;
 UNLOCK TABLES;
 
+--
+-- Table structure for table `t_log_rematch_job`
+--
+
+DROP TABLE IF EXISTS `t_log_rematch_job`;
+/*!40101 SET @saved_cs_client     = @@character_set_client */;
+/*!50503 SET character_set_client = utf8mb4 */;
+CREATE TABLE `t_log_rematch_job` (
+  `id` bigint NOT NULL AUTO_INCREMENT,
+  `status` varchar(20) NOT NULL,
+  `start_id` bigint NOT NULL DEFAULT '0',
+  `last_id` bigint NOT NULL DEFAULT '0',
+  `max_id` bigint NOT NULL DEFAULT '0',
+  `scanned_count` bigint NOT NULL DEFAULT '0',
+  `matched_count` bigint NOT NULL DEFAULT '0',
+  `updated_count` bigint NOT NULL DEFAULT '0',
+  `error_message` varchar(500) DEFAULT NULL,
+  `started_at` datetime DEFAULT NULL,
+  `finished_at` datetime DEFAULT NULL,
+  `created_at` datetime DEFAULT CURRENT_TIMESTAMP,
+  `updated_at` datetime DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+  PRIMARY KEY (`id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+/*!40101 SET character_set_client = @saved_cs_client */;
+
 --
 -- Table structure for table `t_log_rule_event_map`
 --
@@ -2034,7 +2063,7 @@ DROP TABLE IF EXISTS `t_log_syslog`;
 /*!50503 SET character_set_client = utf8mb4 */;
 CREATE TABLE `t_log_syslog` (
   `id` bigint NOT NULL AUTO_INCREMENT,
-  `received_at` datetime DEFAULT NULL,
+  `received_at` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP,
   `event_time` datetime DEFAULT NULL,
   `source_ip` varchar(50) DEFAULT NULL,
   `device_type` varchar(50) DEFAULT NULL,
@@ -2047,8 +2076,17 @@ CREATE TABLE `t_log_syslog` (
   `is_alert` tinyint(1) DEFAULT '0',
   `created_at` datetime DEFAULT CURRENT_TIMESTAMP,
   `updated_at` datetime DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
-  PRIMARY KEY (`id`)
-) ENGINE=InnoDB AUTO_INCREMENT=21 DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+  `repeat_count` int NOT NULL DEFAULT '1',
+  `last_seen_at` datetime DEFAULT NULL,
+  `template_id` int DEFAULT NULL,
+  `asset_id` bigint DEFAULT NULL,
+  PRIMARY KEY (`id`,`received_at`),
+  KEY `idx_received_at` (`received_at`)
+) ENGINE=InnoDB AUTO_INCREMENT=21 DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci
+/*!50500 PARTITION BY RANGE  COLUMNS(received_at)
+(PARTITION p_history VALUES LESS THAN ('2025-11-29 00:00:00') ENGINE = InnoDB,
+ PARTITION p20251129 VALUES LESS THAN ('2025-11-30 00:00:00') ENGINE = InnoDB,
+ PARTITION pmax VALUES LESS THAN (MAXVALUE) ENGINE = InnoDB) */;
 /*!40101 SET character_set_client = @saved_cs_client */;
 
 --
@@ -2057,10 +2095,111 @@ CREATE TABLE `t_log_syslog` (
 
 LOCK TABLES `t_log_syslog` WRITE;
 /*!40000 ALTER TABLE `t_log_syslog` DISABLE KEYS */;
-INSERT INTO `t_log_syslog` VALUES (1,'2025-11-29 16:42:11','2025-11-29 16:42:11','192.168.1.1','switch',0,3,'core-switch-01','Interface GigabitEthernet0/1 down, link failure detected',1,NULL,1,'2025-11-29 16:42:11','2025-11-29 16:57:51'),(2,'2025-11-29 16:37:11','2025-11-29 16:37:11','192.168.1.1','switch',0,4,'core-switch-01','Interface GigabitEthernet0/1 up, link restored',1,NULL,0,'2025-11-29 16:42:11','2025-11-29 16:57:51'),(3,'2025-11-29 16:32:11','2025-11-29 16:32:11','192.168.1.2','switch',0,2,'access-switch-01','Critical: Power supply 2 failed',1,NULL,1,'2025-11-29 16:42:11','2025-11-29 16:57:51'),(4,'2025-11-29 16:27:11','2025-11-29 16:27:11','10.0.0.5','server',4,4,'web-server-01','User admin logged in successfully from 192.168.10.100',2,NULL,0,'2025-11-29 16:42:11','2025-11-29 16:57:56'),(5,'2025-11-29 16:22:11','2025-11-29 16:22:11','10.0.0.5','server',4,3,'web-server-01','Failed password for admin from 192.168.10.200 port 22 ssh2',2,NULL,1,'2025-11-29 16:42:11','2025-11-29 16:57:56'),(6,'2025-11-29 16:17:11','2025-11-29 16:17:11','192.168.100.1','firewall',0,5,'firewall-01','Policy rule 101 modified by admin',3,NULL,0,'2025-11-29 16:42:11','2025-11-29 16:58:00'),(7,'2025-11-29 16:12:11','2025-11-29 16:12:11','192.168.1.3','router',0,6,'router-01','Configuration saved to startup-config',1,NULL,0,'2025-11-29 16:42:11','2025-11-29 16:57:51'),(8,'2025-11-29 16:07:11','2025-11-29 16:07:11','10.0.0.10','server',1,2,'db-server-01','Database connection pool exhausted, critical error',2,NULL,1,'2025-11-29 16:42:11','2025-11-29 16:57:56'),(9,'2025-11-29 16:02:11','2025-11-29 16:02:11','192.168.1.1','switch',0,7,'core-switch-01','Debug: STP topology change detected on port Gi0/24',1,NULL,0,'2025-11-29 16:42:11','2025-11-29 16:57:51'),(10,'2025-11-29 15:57:11','2025-11-29 15:57:11','10.0.0.15','server',10,3,'app-server-01','Authentication failed for user testuser',2,NULL,1,'2025-11-29 16:42:11','2025-11-29 16:57:56'),(11,'2025-11-29 15:52:26','2025-11-29 15:52:26','192.168.1.4','switch',0,4,'access-switch-02','Port Gi0/10 connected, MAC address learned',1,NULL,0,'2025-11-29 16:42:26','2025-11-29 16:57:51'),(12,'2025-11-29 15:42:26','2025-11-29 15:42:26','10.0.0.20','server',3,4,'mail-server-01','Email sent successfully to external domain',2,NULL,0,'2025-11-29 16:42:26','2025-11-29 16:57:56'),(13,'2025-11-29 14:42:26','2025-11-29 14:42:26','192.168.1.1','switch',0,3,'core-switch-01','VLAN 100 configuration mismatch detected',1,NULL,1,'2025-11-29 16:42:26','2025-11-29 16:57:51'),(14,'2025-11-29 13:42:26','2025-11-29 13:42:26','192.168.100.1','firewall',0,4,'firewall-01','Blocked 1024 connection attempts from 203.0.113.50',3,NULL,1,'2025-11-29 16:42:26','2025-11-29 16:58:00'),(15,'2025-11-29 12:42:26','2025-11-29 12:42:26','10.0.0.5','server',4,6,'web-server-01','Apache service restarted successfully',2,NULL,0,'2025-11-29 16:42:26','2025-11-29 16:57:56'),(16,'2025-11-29 11:42:26','2025-11-29 11:42:26','192.168.1.5','switch',0,5,'access-switch-03','Spanning tree topology converged',1,NULL,0,'2025-11-29 16:42:26','2025-11-29 16:57:51'),(17,'2025-11-29 10:42:26','2025-11-29 10:42:26','10.0.0.10','server',1,4,'db-server-01','Backup completed successfully, 15GB transferred',2,NULL,0,'2025-11-29 16:42:26','2025-11-29 16:57:56'),(18,'2025-11-29 09:42:26','2025-11-29 09:42:26','192.168.1.2','switch',0,3,'access-switch-01','Temperature warning: 45C threshold exceeded',1,NULL,1,'2025-11-29 16:42:26','2025-11-29 16:57:51'),(19,'2025-11-29 08:42:26','2025-11-29 08:42:26','192.168.1.3','router',0,4,'router-01','BGP peer 192.168.200.1 established',1,NULL,0,'2025-11-29 16:42:26','2025-11-29 16:57:51'),(20,'2025-11-28 16:42:26','2025-11-28 16:42:26','10.0.0.25','server',10,2,'ldap-server-01','Critical: LDAP service unresponsive',2,NULL,1,'2025-11-29 16:42:26','2025-11-29 16:57:56');
+INSERT INTO `t_log_syslog` VALUES (1,'2025-11-29 16:42:11','2025-11-29 16:42:11','192.168.1.1','switch',0,3,'core-switch-01','Interface GigabitEthernet0/1 down, link failure detected',1,NULL,1,'2025-11-29 16:42:11','2025-11-29 16:57:51',1,NULL,NULL,NULL),(2,'2025-11-29 16:37:11','2025-11-29 16:37:11','192.168.1.1','switch',0,4,'core-switch-01','Interface GigabitEthernet0/1 up, link restored',1,NULL,0,'2025-11-29 16:42:11','2025-11-29 16:57:51',1,NULL,NULL,NULL),(3,'2025-11-29 16:32:11','2025-11-29 16:32:11','192.168.1.2','switch',0,2,'access-switch-01','Critical: Power supply 2 failed',1,NULL,1,'2025-11-29 16:42:11','2025-11-29 16:57:51',1,NULL,NULL,NULL),(4,'2025-11-29 16:27:11','2025-11-29 16:27:11','10.0.0.5','server',4,4,'web-server-01','User admin logged in successfully from 192.168.10.100',2,NULL,0,'2025-11-29 16:42:11','2025-11-29 16:57:56',1,NULL,NULL,NULL),(5,'2025-11-29 16:22:11','2025-11-29 16:22:11','10.0.0.5','server',4,3,'web-server-01','Failed password for admin from 192.168.10.200 port 22 ssh2',2,NULL,1,'2025-11-29 16:42:11','2025-11-29 16:57:56',1,NULL,NULL,NULL),(6,'2025-11-29 16:17:11','2025-11-29 16:17:11','192.168.100.1','firewall',0,5,'firewall-01','Policy rule 101 modified by admin',3,NULL,0,'2025-11-29 16:42:11','2025-11-29 16:58:00',1,NULL,NULL,NULL),(7,'2025-11-29 16:12:11','2025-11-29 16:12:11','192.168.1.3','router',0,6,'router-01','Configuration saved to startup-config',1,NULL,0,'2025-11-29 16:42:11','2025-11-29 16:57:51',1,NULL,NULL,NULL),(8,'2025-11-29 16:07:11','2025-11-29 16:07:11','10.0.0.10','server',1,2,'db-server-01','Database connection pool exhausted, critical error',2,NULL,1,'2025-11-29 16:42:11','2025-11-29 16:57:56',1,NULL,NULL,NULL),(9,'2025-11-29 16:02:11','2025-11-29 16:02:11','192.168.1.1','switch',0,7,'core-switch-01','Debug: STP topology change detected on port Gi0/24',1,NULL,0,'2025-11-29 16:42:11','2025-11-29 16:57:51',1,NULL,NULL,NULL),(10,'2025-11-29 15:57:11','2025-11-29 15:57:11','10.0.0.15','server',10,3,'app-server-01','Authentication failed for user testuser',2,NULL,1,'2025-11-29 16:42:11','2025-11-29 16:57:56',1,NULL,NULL,NULL),(11,'2025-11-29 15:52:26','2025-11-29 15:52:26','192.168.1.4','switch',0,4,'access-switch-02','Port Gi0/10 connected, MAC address learned',1,NULL,0,'2025-11-29 16:42:26','2025-11-29 16:57:51',1,NULL,NULL,NULL),(12,'2025-11-29 15:42:26','2025-11-29 15:42:26','10.0.0.20','server',3,4,'mail-server-01','Email sent successfully to external domain',2,NULL,0,'2025-11-29 16:42:26','2025-11-29 16:57:56',1,NULL,NULL,NULL),(13,'2025-11-29 14:42:26','2025-11-29 14:42:26','192.168.1.1','switch',0,3,'core-switch-01','VLAN 100 configuration mismatch detected',1,NULL,1,'2025-11-29 16:42:26','2025-11-29 16:57:51',1,NULL,NULL,NULL),(14,'2025-11-29 13:42:26','2025-11-29 13:42:26','192.168.100.1','firewall',0,4,'firewall-01','Blocked 1024 connection attempts from 203.0.113.50',3,NULL,1,'2025-11-29 16:42:26','2025-11-29 16:58:00',1,NULL,NULL,NULL),(15,'2025-11-29 12:42:26','2025-11-29 12:42:26','10.0.0.5','server',4,6,'web-server-01','Apache service restarted successfully',2,NULL,0,'2025-11-29 16:42:26','2025-11-29 16:57:56',1,NULL,NULL,NULL),(16,'2025-11-29 11:42:26','2025-11-29 11:42:26','192.168.1.5','switch',0,5,'access-switch-03','Spanning tree topology converged',1,NULL,0,'2025-11-29 16:42:26','2025-11-29 16:57:51',1,NULL,NULL,NULL),(17,'2025-11-29 10:42:26','2025-11-29 10:42:26','10.0.0.10','server',1,4,'db-server-01','Backup completed successfully, 15GB transferred',2,NULL,0,'2025-11-29 16:42:26','2025-11-29 16:57:56',1,NULL,NULL,NULL),(18,'2025-11-29 09:42:26','2025-11-29 09:42:26','192.168.1.2','switch',0,3,'access-switch-01','Temperature warning: 45C threshold exceeded',1,NULL,1,'2025-11-29 16:42:26','2025-11-29 16:57:51',1,NULL,NULL,NULL),(19,'2025-11-29 08:42:26','2025-11-29 08:42:26','192.168.1.3','router',0,4,'router-01','BGP peer 192.168.200.1 established',1,NULL,0,'2025-11-29 16:42:26','2025-11-29 16:57:51',1,NULL,NULL,NULL),(20,'2025-11-28 16:42:26','2025-11-28 16:42:26','10.0.0.25','server',10,2,'ldap-server-01','Critical: LDAP service unresponsive',2,NULL,1,'2025-11-29 16:42:26','2025-11-29 16:57:56',1,NULL,NULL,NULL);
 /*!40000 ALTER TABLE `t_log_syslog` ENABLE KEYS */;
 UNLOCK TABLES;
 
+--
+-- Table structure for table `t_log_syslog_backfill`
+--
+
+DROP TABLE IF EXISTS `t_log_syslog_backfill`;
+/*!40101 SET @saved_cs_client     = @@character_set_client */;
+/*!50503 SET character_set_client = utf8mb4 */;
+CREATE TABLE `t_log_syslog_backfill` (
+  `task` varchar(32) NOT NULL COMMENT '回填任务名',
+  `target_value` bigint NOT NULL DEFAULT '0' COMMENT '回填终点',
+  `cursor_value` bigint NOT NULL DEFAULT '0' COMMENT '已完成的位置',
+  `updated_at` datetime DEFAULT NULL,
+  PRIMARY KEY (`task`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+/*!40101 SET character_set_client = @saved_cs_client */;
+
+--
+-- Table structure for table `t_log_syslog_candidate`
+--
+
+DROP TABLE IF EXISTS `t_log_syslog_candidate`;
+/*!40101 SET @saved_cs_client     = @@character_set_client */;
+/*!50503 SET character_set_client = utf8mb4 */;
+CREATE TABLE `t_log_syslog_candidate` (
+  `set_id` bigint NOT NULL,
+  `log_id` bigint NOT NULL,
+  `created_at` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (`set_id`,`log_id`),
+  KEY `idx_created_at` (`created_at`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+/*!40101 SET character_set_client = @saved_cs_client */;
+
+--
+-- Table structure for table `t_log_syslog_hourly`
+--
+
+DROP TABLE IF EXISTS `t_log_syslog_hourly`;
+/*!40101 SET @saved_cs_client     = @@character_set_client */;
+/*!50503 SET character_set_client = utf8mb4 */;
+CREATE TABLE `t_log_syslog_hourly` (
+  `stat_hour` datetime NOT NULL,
+  `source_ip` varchar(50) NOT NULL DEFAULT '',
+  `severity` int NOT NULL DEFAULT '-1',
+  `facility` int NOT NULL DEFAULT '-1',
+  `device_type` varchar(50) NOT NULL DEFAULT '',
+  `rule_id` int NOT NULL DEFAULT '0',
+  `event_id` int NOT NULL DEFAULT '0',
+  `log_count` bigint NOT NULL DEFAULT '0',
+  PRIMARY KEY (`stat_hour`,`source_ip`,`severity`,`facility`,`device_type`,`rule_id`,`event_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+/*!40101 SET character_set_client = @saved_cs_client */;
+
+--
+-- Table structure for table `t_log_syslog_hourly_sketch`
+--
+
+DROP TABLE IF EXISTS `t_log_syslog_hourly_sketch`;
+/*!40101 SET @saved_cs_client     = @@character_set_client */;
+/*!50503 SET character_set_client = utf8mb4 */;
+CREATE TABLE `t_log_syslog_hourly_sketch` (
+  `stat_hour` datetime NOT NULL,
+  `log_count` bigint NOT NULL DEFAULT '0',
+  `source_hll` blob NOT NULL COMMENT '来源IP HyperLogLog',
+  `top_sources` mediumblob NOT NULL COMMENT '来源IP Space-Saving Top N',
+  PRIMARY KEY (`stat_hour`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+/*!40101 SET character_set_client = @saved_cs_client */;
+
+--
+-- Table structure for table `t_log_syslog_template`
+--
+
+DROP TABLE IF EXISTS `t_log_syslog_template`;
+/*!40101 SET @saved_cs_client     = @@character_set_client */;
+/*!50503 SET character_set_client = utf8mb4 */;
+CREATE TABLE `t_log_syslog_template` (
+  `id` int NOT NULL,
+  `template` text NOT NULL COMMENT '日志模板，变化的位置为<*>',
+  `token_count` int NOT NULL DEFAULT '0',
+  `first_seen_at` datetime NOT NULL,
+  `updated_at` datetime DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+  PRIMARY KEY (`id`),
+  KEY `idx_first_seen_at` (`first_seen_at`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+/*!40101 SET character_set_client = @saved_cs_client */;
+
+--
+-- Table structure for table `t_log_syslog_template_hourly`
+--
+
+DROP TABLE IF EXISTS `t_log_syslog_template_hourly`;
+/*!40101 SET @saved_cs_client     = @@character_set_client */;
+/*!50503 SET character_set_client = utf8mb4 */;
+CREATE TABLE `t_log_syslog_template_hourly` (
+  `stat_hour` datetime NOT NULL,
+  `template_id` int NOT NULL,
+  `log_count` bigint NOT NULL DEFAULT '0',
+  PRIMARY KEY (`stat_hour`,`template_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+/*!40101 SET character_set_client = @saved_cs_client */;
+
 --
 -- Table structure for table `ticket_priority`
 --
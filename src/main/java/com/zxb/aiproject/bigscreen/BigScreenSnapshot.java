@@ -0,0 +1,152 @@
+package com.zxb.aiproject.bigscreen;
+
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+/**
+ * 大屏数据快照（不可变）
+ * 每个面板一份已计算好的数据，面板内容变化时整体替换为新快照；版本号只在有面板内容变化时递增。
+ * 面板 ETag 由数据的 JSON 摘要得出，内容不变的重算不改变 ETag，客户端可以继续使用缓存。
+ */
+public final class BigScreenSnapshot {
+
+    public static final BigScreenSnapshot EMPTY = new BigScreenSnapshot(0, null, Collections.emptyMap());
+
+    private final long version;
+
+    private final LocalDateTime generatedAt;
+
+    private final Map<String, Panel> panels;
+
+    private final String etag;
+
+    /**
+     * 一个面板的数据
+     */
+    public static final class Panel {
+        private final String name;
+        private final Object data;
+        private final String etag;
+        private final LocalDateTime generatedAt;
+        private final long generatedAtMillis;
+
+        public Panel(String name, Object data, String etag, LocalDateTime generatedAt, long generatedAtMillis) {
+            this.name = name;
+            this.data = data;
+            this.etag = etag;
+            this.generatedAt = generatedAt;
+            this.generatedAtMillis = generatedAtMillis;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * 多个请求共用，不能修改
+         */
+        public Object getData() {
+            return data;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        /**
+         * 最近一次成功计算的时间（内容不变时也会更新）
+         */
+        public LocalDateTime getGeneratedAt() {
+            return generatedAt;
+        }
+
+        public long getGeneratedAtMillis() {
+            return generatedAtMillis;
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("etag", etag);
+            item.put("generatedAt", generatedAt);
+            item.put("data", data);
+            return item;
+        }
+    }
+
+    private BigScreenSnapshot(long version, LocalDateTime generatedAt, Map<String, Panel> panels) {
+        this.version = version;
+        this.generatedAt = generatedAt;
+        this.panels = panels;
+        StringBuilder tags = new StringBuilder();
+        for (Panel panel : panels.values()) {
+            tags.append(panel.name).append('=').append(panel.etag).append('\n');
+        }
+        this.etag = "\"" + DigestUtils.md5DigestAsHex(tags.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    /**
+     * 替换一个面板后的新快照
+     */
+    public BigScreenSnapshot with(Panel panel) {
+        Panel old = panels.get(panel.name);
+        boolean changed = old == null || !old.etag.equals(panel.etag);
+        Map<String, Panel> copy = new TreeMap<>(panels);
+        copy.put(panel.name, panel);
+        return new BigScreenSnapshot(changed ? version + 1 : version, panel.generatedAt,
+                Collections.unmodifiableMap(copy));
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * 最近一次有面板完成计算的时间，还没有面板时为 null
+     */
+    public LocalDateTime getGeneratedAt() {
+        return generatedAt;
+    }
+
+    /**
+     * 按面板名排序
+     */
+    public Map<String, Panel> getPanels() {
+        return panels;
+    }
+
+    public Panel getPanel(String name) {
+        return panels.get(name);
+    }
+
+    /**
+     * 接口与推送使用的完整数据：version、generatedAt、panels（面板名 -> etag、generatedAt、data）
+     * @param include 要包含的面板
+     */
+    public Map<String, Object> toMap(Predicate<String> include) {
+        Map<String, Object> items = new LinkedHashMap<>();
+        for (Panel panel : panels.values()) {
+            if (include.test(panel.name)) {
+                items.put(panel.name, panel.toMap());
+            }
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("version", version);
+        result.put("generatedAt", generatedAt);
+        result.put("panels", items);
+        return result;
+    }
+
+    /**
+     * 全部面板 ETag 的摘要，任一面板内容变化时改变
+     */
+    public String getEtag() {
+        return etag;
+    }
+}
@@ -0,0 +1,230 @@
+package com.zxb.aiproject.bigscreen;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zxb.aiproject.common.constant.ResultCode;
+import com.zxb.aiproject.common.result.Result;
+import com.zxb.aiproject.config.BigScreenProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.context.request.WebRequest;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * 大屏快照
+ * 各面板注册自己的计算方法与刷新间隔，由后台线程按间隔重算并替换进内存快照，接口直接返回快照中的数据，
+ * 数据库压力与打开的大屏数量无关。请求带 If-None-Match 且面板内容未变时返回 304。
+ * 面板还没算出（启动时、或计算一直失败）时当场计算一次；计算失败时保留上一次的数据。
+ * 面板内容变化时通知 {@link Listener}（大屏推送据此发送增量）。
+ */
+@Slf4j
+@Component
+public class BigScreenSnapshotService {
+
+    @Autowired
+    private BigScreenProperties bigScreenProperties;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final Map<String, Source> sources = new ConcurrentHashMap<>();
+
+    private final AtomicReference<BigScreenSnapshot> current = new AtomicReference<>(BigScreenSnapshot.EMPTY);
+
+    private ScheduledExecutorService executor;
+
+    private final AtomicLong refreshes = new AtomicLong();
+
+    private final AtomicLong refreshFailures = new AtomicLong();
+
+    private final AtomicLong served = new AtomicLong();
+
+    private final AtomicLong notModified = new AtomicLong();
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * 面板内容变化（含首次算出）的通知，在计算线程上调用，实现不能阻塞
+     */
+    public interface Listener {
+
+        /**
+         * @param snapshot 替换后的快照
+         * @param previous 变化前的面板，首次算出时为 null
+         */
+        void onPanelChanged(BigScreenSnapshot snapshot, BigScreenSnapshot.Panel previous, BigScreenSnapshot.Panel panel);
+    }
+
+    private static final class Source {
+        private final String name;
+        private final long refreshMillis;
+        private final Supplier<? extends Result<?>> loader;
+
+        Source(String name, long refreshMillis, Supplier<? extends Result<?>> loader) {
+            this.name = name;
+            this.refreshMillis = refreshMillis;
+            this.loader = loader;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        BigScreenProperties.Snapshot config = bigScreenProperties.getSnapshot();
+        if (!Boolean.TRUE.equals(config.getEnabled())) {
+            return;
+        }
+        AtomicInteger threadIndex = new AtomicInteger();
+        ScheduledThreadPoolExecutor pool = new ScheduledThreadPoolExecutor(Math.max(1, config.getThreads()), r -> {
+            Thread thread = new Thread(r, "bigscreen-snapshot-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        pool.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        executor = pool;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 注册面板，启用快照时立即开始按间隔后台计算
+     * @param name 面板名（取接口路径，如 alert-monitor/severity-stats）
+     * @param refreshMillis 刷新间隔（毫秒）
+     * @param loader 计算面板数据，返回非成功结果视为失败
+     */
+    public void register(String name, long refreshMillis, Supplier<? extends Result<?>> loader) {
+        Source source = new Source(name, Math.max(1000L, refreshMillis), loader);
+        if (sources.putIfAbsent(name, source) != null) {
+            throw new IllegalStateException("大屏面板重复注册: " + name);
+        }
+        if (executor != null) {
+            executor.scheduleWithFixedDelay(() -> refresh(source), 0, source.refreshMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * 是否由后台计算快照（关闭时没有快照，也不会有变化通知）
+     */
+    public boolean isEnabled() {
+        return executor != null;
+    }
+
+    /**
+     * 返回面板数据；与 If-None-Match 匹配时已设置 304 响应，返回 null
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Result<T> serve(String name, WebRequest request) {
+        Source source = sources.get(name);
+        if (source == null) {
+            throw new IllegalArgumentException("未注册的大屏面板: " + name);
+        }
+        if (executor == null) {
+            return (Result<T>) source.loader.get();
+        }
+        BigScreenSnapshot.Panel panel = current.get().getPanel(name);
+        if (panel == null) {
+            panel = refresh(source);
+            if (panel == null) {
+                // 没有可用的快照，直接返回计算结果（含错误信息）
+                return (Result<T>) source.loader.get();
+            }
+        }
+        served.incrementAndGet();
+        if (request != null && request.checkNotModified(panel.getEtag(), panel.getGeneratedAtMillis())) {
+            notModified.incrementAndGet();
+            return null;
+        }
+        return Result.success((T) panel.getData());
+    }
+
+    public BigScreenSnapshot getSnapshot() {
+        return current.get();
+    }
+
+    /**
+     * 重新计算一个面板，同一面板的计算互斥
+     * @return 计算后的面板，失败时返回 null（快照保留原数据）
+     */
+    private BigScreenSnapshot.Panel refresh(Source source) {
+        synchronized (source) {
+            try {
+                Result<?> result = source.loader.get();
+                if (result == null || !ResultCode.SUCCESS.getCode().equals(result.getCode())) {
+                    refreshFailures.incrementAndGet();
+                    log.warn("大屏面板 {} 计算失败: {}", source.name, result == null ? null : result.getMessage());
+                    return null;
+                }
+                Object data = result.getData();
+                String etag = "\"" + DigestUtils.md5DigestAsHex(objectMapper.writeValueAsBytes(data)) + "\"";
+                long nowMillis = System.currentTimeMillis();
+                BigScreenSnapshot.Panel panel = new BigScreenSnapshot.Panel(source.name, data, etag,
+                        LocalDateTime.now(), nowMillis);
+                // 同一面板的计算互斥，这里取到的就是本次替换前的面板
+                BigScreenSnapshot.Panel previous = current.get().getPanel(source.name);
+                BigScreenSnapshot snapshot = current.updateAndGet(item -> item.with(panel));
+                refreshes.incrementAndGet();
+                if (previous == null || !previous.getEtag().equals(etag)) {
+                    notifyChanged(snapshot, previous, panel);
+                }
+                return panel;
+            } catch (Exception e) {
+                refreshFailures.incrementAndGet();
+                log.warn("大屏面板 {} 计算失败: {}", source.name, e.getMessage());
+                return null;
+            }
+        }
+    }
+
+    private void notifyChanged(BigScreenSnapshot snapshot, BigScreenSnapshot.Panel previous,
+                               BigScreenSnapshot.Panel panel) {
+        for (Listener listener : listeners) {
+            try {
+                listener.onPanelChanged(snapshot, previous, panel);
+            } catch (Exception e) {
+                log.warn("大屏面板 {} 变化通知失败: {}", panel.getName(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 监控数据
+     */
+    public Map<String, Object> getStats() {
+        BigScreenSnapshot snapshot = current.get();
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("snapshotEnabled", executor != null);
+        data.put("snapshotVersion", snapshot.getVersion());
+        data.put("snapshotGeneratedAt", snapshot.getGeneratedAt());
+        data.put("panels", sources.size());
+        data.put("panelsReady", snapshot.getPanels().size());
+        data.put("refreshes", refreshes.get());
+        data.put("refreshFailures", refreshFailures.get());
+        data.put("served", served.get());
+        data.put("notModified", notModified.get());
+        return data;
+    }
+}
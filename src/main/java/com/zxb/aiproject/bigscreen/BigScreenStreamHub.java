@@ -0,0 +1,270 @@
+package com.zxb.aiproject.bigscreen;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.zxb.aiproject.config.BigScreenProperties;
+import com.zxb.aiproject.util.SseBroadcaster;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * 大屏推送（SSE）
+ * 每块大屏一个连接：建立后先推送所订阅面板的完整数据（snapshot 事件），之后面板内容变化时只推送
+ * JSON Patch（patch 事件）。增量在快照计算线程上每次变化只生成一次，放入各订阅自己的有界缓冲，
+ * 由 {@link SseBroadcaster} 的推送线程发送。缓冲满或增量接不上时丢弃缓冲，改为重新推送完整数据。
+ */
+@Component
+public class BigScreenStreamHub implements BigScreenSnapshotService.Listener {
+
+    @Autowired
+    private BigScreenProperties bigScreenProperties;
+
+    @Autowired
+    private BigScreenSnapshotService bigScreenSnapshotService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private SseBroadcaster<Subscription> broadcaster;
+
+    private final AtomicLong patchesBuilt = new AtomicLong();
+
+    /**
+     * 一次面板变化的增量，所有订阅共用
+     */
+    private static final class Patch {
+        final String panel;
+        /**
+         * 变化前的面板 ETag，面板首次算出时为 null
+         */
+        final String previousEtag;
+        final String etag;
+        final Map<String, Object> event;
+
+        Patch(String panel, String previousEtag, String etag, Map<String, Object> event) {
+            this.panel = panel;
+            this.previousEtag = previousEtag;
+            this.etag = etag;
+            this.event = event;
+        }
+    }
+
+    /**
+     * 单个订阅，发送相关字段在订阅对象上加锁访问
+     */
+    private static final class Subscription extends SseBroadcaster.Subscription<Patch> {
+        final Predicate<String> panels;
+        final AtomicLong snapshotsSent = new AtomicLong();
+        /**
+         * 客户端当前持有的各面板 ETag
+         */
+        final Map<String, String> sentEtags = new HashMap<>();
+        /**
+         * 下次发送时先推送完整数据
+         */
+        volatile boolean resync = true;
+
+        Subscription(String id, Predicate<String> panels, SseEmitter emitter, int capacity) {
+            super(id, emitter, capacity);
+            this.panels = panels;
+        }
+
+        @Override
+        protected boolean hasPending() {
+            return super.hasPending() || resync;
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        broadcaster = new SseBroadcaster<>("大屏推送", "bigscreen-stream",
+                bigScreenProperties.getStream().getSendThreads(), this::drain);
+        bigScreenSnapshotService.addListener(this);
+    }
+
+    @PreDestroy
+    public void stop() {
+        broadcaster.shutdown();
+    }
+
+    /**
+     * 新建订阅
+     * @param panels 要订阅的面板名或面板分组（如 alert-monitor），为空时订阅全部
+     * @throws IllegalStateException 未启用快照，或订阅数已达上限
+     */
+    public SseEmitter subscribe(List<String> panels) {
+        if (!bigScreenSnapshotService.isEnabled()) {
+            throw new IllegalStateException("大屏快照未启用，无法推送");
+        }
+        BigScreenProperties.Stream config = bigScreenProperties.getStream();
+        if (broadcaster.size() >= config.getMaxSubscribers()) {
+            throw new IllegalStateException("大屏推送订阅数已达上限: " + config.getMaxSubscribers());
+        }
+        // 不超时，断开的连接由心跳发现
+        SseEmitter emitter = new SseEmitter(0L);
+        Subscription subscription = new Subscription(UUID.randomUUID().toString(), panelFilter(panels), emitter,
+                config.getBufferCapacity());
+        broadcaster.register(subscription);
+        broadcaster.scheduleSend(subscription);
+        return emitter;
+    }
+
+    /**
+     * 面板名等于所列名称，或属于所列分组（名称以 "分组/" 开头）
+     */
+    static Predicate<String> panelFilter(List<String> panels) {
+        if (panels == null || panels.isEmpty()) {
+            return name -> true;
+        }
+        List<String> items = new ArrayList<>();
+        for (String panel : panels) {
+            if (panel != null && !panel.trim().isEmpty()) {
+                items.add(panel.trim());
+            }
+        }
+        if (items.isEmpty()) {
+            return name -> true;
+        }
+        return name -> {
+            for (String item : items) {
+                if (name.equals(item) || name.startsWith(item + "/")) {
+                    return true;
+                }
+            }
+            return false;
+        };
+    }
+
+    @Override
+    public void onPanelChanged(BigScreenSnapshot snapshot, BigScreenSnapshot.Panel previous,
+                               BigScreenSnapshot.Panel panel) {
+        if (broadcaster.isEmpty()) {
+            return;
+        }
+        Patch patch = null;
+        for (Subscription subscription : broadcaster.getSubscriptions()) {
+            if (!subscription.panels.test(panel.getName())) {
+                continue;
+            }
+            if (patch == null) {
+                patch = buildPatch(snapshot, previous, panel);
+            }
+            if (!subscription.getBuffer().offer(patch)) {
+                // 缓冲满：积压的增量作废，改为推送完整数据
+                subscription.getBuffer().clear();
+                subscription.resync = true;
+            }
+            broadcaster.scheduleSend(subscription);
+        }
+    }
+
+    private Patch buildPatch(BigScreenSnapshot snapshot, BigScreenSnapshot.Panel previous,
+                             BigScreenSnapshot.Panel panel) {
+        List<Map<String, Object>> ops;
+        if (previous == null) {
+            Map<String, Object> op = new LinkedHashMap<>();
+            op.put("op", "replace");
+            op.put("path", "");
+            op.put("value", panel.getData());
+            ops = Collections.singletonList(op);
+        } else {
+            ops = JsonPatchDiff.diff(tree(previous.getData()), tree(panel.getData()));
+        }
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("panel", panel.getName());
+        event.put("version", snapshot.getVersion());
+        event.put("generatedAt", panel.getGeneratedAt());
+        event.put("etag", panel.getEtag());
+        event.put("ops", ops);
+        patchesBuilt.incrementAndGet();
+        return new Patch(panel.getName(), previous == null ? null : previous.getEtag(), panel.getEtag(), event);
+    }
+
+    private JsonNode tree(Object data) {
+        JsonNode node = objectMapper.valueToTree(data);
+        return node == null ? NullNode.getInstance() : node;
+    }
+
+    @Scheduled(fixedDelayString = "${bigscreen.stream.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        broadcaster.heartbeat();
+    }
+
+    /**
+     * 订阅状态，供监控接口展示
+     */
+    public Map<String, Object> getStats() {
+        long buffered = 0;
+        long snapshotsSent = 0;
+        long sent = 0;
+        for (Subscription subscription : broadcaster.getSubscriptions()) {
+            buffered += subscription.getBuffer().size();
+            snapshotsSent += subscription.snapshotsSent.get();
+            sent += subscription.getSent().get();
+        }
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("streamSubscribers", broadcaster.size());
+        data.put("streamBuffered", buffered);
+        data.put("streamPatchesBuilt", patchesBuilt.get());
+        data.put("streamPatchesSent", sent);
+        data.put("streamSnapshotsSent", snapshotsSent);
+        return data;
+    }
+
+    /**
+     * 按顺序发送缓冲中的增量；客户端已持有的跳过，接不上时先推送完整数据
+     */
+    private void drain(Subscription subscription) throws Exception {
+        while (!subscription.isClosed()) {
+            if (subscription.resync) {
+                subscription.resync = false;
+                sendFull(subscription);
+                continue;
+            }
+            Patch patch = subscription.getBuffer().poll();
+            if (patch == null) {
+                break;
+            }
+            String held = subscription.sentEtags.get(patch.panel);
+            if (patch.etag.equals(held)) {
+                // 完整数据里已包含这次变化
+                continue;
+            }
+            if (!Objects.equals(patch.previousEtag, held)) {
+                subscription.resync = true;
+                continue;
+            }
+            subscription.getEmitter().send(SseEmitter.event().name("patch").data(patch.event));
+            subscription.sentEtags.put(patch.panel, patch.etag);
+            subscription.getSent().incrementAndGet();
+        }
+    }
+
+    private void sendFull(Subscription subscription) throws Exception {
+        BigScreenSnapshot snapshot = bigScreenSnapshotService.getSnapshot();
+        subscription.sentEtags.clear();
+        for (BigScreenSnapshot.Panel panel : snapshot.getPanels().values()) {
+            if (subscription.panels.test(panel.getName())) {
+                subscription.sentEtags.put(panel.getName(), panel.getEtag());
+            }
+        }
+        subscription.getEmitter().send(SseEmitter.event().name("snapshot").data(snapshot.toMap(subscription.panels)));
+        subscription.snapshotsSent.incrementAndGet();
+    }
+}
@@ -0,0 +1,79 @@
+package com.zxb.aiproject.bigscreen;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 生成两份 JSON 之间的 JSON Patch（RFC 6902 的 add、remove、replace）
+ * 对象按字段逐层比较；数组长度不变时按下标逐个比较，长度变化时整体替换，避免生成依赖顺序的插入删除。
+ */
+public final class JsonPatchDiff {
+
+    private JsonPatchDiff() {
+    }
+
+    /**
+     * @return 操作列表，每个操作含 op、path，add/replace 另含 value；两者相同时为空
+     */
+    public static List<Map<String, Object>> diff(JsonNode from, JsonNode to) {
+        List<Map<String, Object>> ops = new ArrayList<>();
+        diff("", from, to, ops);
+        return ops;
+    }
+
+    private static void diff(String path, JsonNode from, JsonNode to, List<Map<String, Object>> ops) {
+        if (from.equals(to)) {
+            return;
+        }
+        if (from.isObject() && to.isObject()) {
+            Iterator<String> names = from.fieldNames();
+            while (names.hasNext()) {
+                String name = names.next();
+                if (!to.has(name)) {
+                    ops.add(op("remove", path + "/" + escape(name), null));
+                }
+            }
+            Iterator<Map.Entry<String, JsonNode>> fields = to.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                JsonNode old = from.get(field.getKey());
+                String child = path + "/" + escape(field.getKey());
+                if (old == null) {
+                    ops.add(op("add", child, field.getValue()));
+                } else {
+                    diff(child, old, field.getValue(), ops);
+                }
+            }
+            return;
+        }
+        if (from.isArray() && to.isArray() && from.size() == to.size()) {
+            for (int i = 0; i < to.size(); i++) {
+                diff(path + "/" + i, from.get(i), to.get(i), ops);
+            }
+            return;
+        }
+        ops.add(op("replace", path, to));
+    }
+
+    /**
+     * JSON Pointer 转义：~ 写作 ~0，/ 写作 ~1
+     */
+    static String escape(String name) {
+        return name.replace("~", "~0").replace("/", "~1");
+    }
+
+    private static Map<String, Object> op(String op, String path, JsonNode value) {
+        Map<String, Object> item = new LinkedHashMap<>();
+        item.put("op", op);
+        item.put("path", path);
+        if (value != null) {
+            item.put("value", value);
+        }
+        return item;
+    }
+}
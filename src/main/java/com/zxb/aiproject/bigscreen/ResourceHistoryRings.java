@@ -0,0 +1,185 @@
+package com.zxb.aiproject.bigscreen;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * 资源使用的24小时环形缓冲
+ * 每台设备一个环：24个小时槽 × 8项指标（{@link #METRICS} 顺序）存放在一个 double[] 中，空值为 NaN；
+ * 每个槽记录所属日期，写入新一天的数据时直接覆盖，读取时只认当天的槽，跨天不需要清理。
+ * 全部设备的平均值按槽累加各行的和与个数（与按行 AVG 一致），随写入增量维护；另按天累加 CPU 用于多日趋势。
+ * 方法加锁，写入与读取都只涉及数组拷贝。
+ */
+public final class ResourceHistoryRings {
+
+    /**
+     * 指标顺序：CPU、内存、网络、存储的实际值，之后是同样顺序的预测值
+     */
+    public static final int METRICS = 8;
+
+    /**
+     * 实际值指标个数，实际值为空时按 0 返回，预测值为空时返回 null
+     */
+    static final int ACTUAL_METRICS = 4;
+
+    static final int HOURS = 24;
+
+    private final Map<String, DeviceRing> devices = new HashMap<>();
+
+    private final FleetRing fleet = new FleetRing();
+
+    /**
+     * 日期 -> {CPU 之和, 个数}
+     */
+    private final Map<LocalDate, double[]> dailyCpu = new HashMap<>();
+
+    private static final class DeviceRing {
+        final long[] days = newDays();
+        final double[] values = new double[HOURS * METRICS];
+    }
+
+    private static final class FleetRing {
+        final long[] days = newDays();
+        final double[] sums = new double[HOURS * METRICS];
+        final int[] counts = new int[HOURS * METRICS];
+    }
+
+    private static long[] newDays() {
+        long[] days = new long[HOURS];
+        Arrays.fill(days, Long.MIN_VALUE);
+        return days;
+    }
+
+    /**
+     * 写入一行小时数据
+     * @param deviceKey 设备标识，见 {@link #deviceKey}
+     * @param hour 小时（0-23），超出范围时只计入当天 CPU 汇总
+     * @param values 按 {@link #METRICS} 顺序的指标值，空值为 NaN
+     */
+    public synchronized void add(String deviceKey, LocalDate date, int hour, double[] values) {
+        if (!Double.isNaN(values[0])) {
+            addDailyCpu(date, values[0], 1);
+        }
+        if (hour < 0 || hour >= HOURS) {
+            return;
+        }
+        long day = date.toEpochDay();
+        int offset = hour * METRICS;
+
+        DeviceRing ring = devices.computeIfAbsent(deviceKey, k -> new DeviceRing());
+        if (day >= ring.days[hour]) {
+            ring.days[hour] = day;
+            System.arraycopy(values, 0, ring.values, offset, METRICS);
+        }
+
+        if (day < fleet.days[hour]) {
+            // 槽里已是更新一天的数据
+            return;
+        }
+        if (day > fleet.days[hour]) {
+            fleet.days[hour] = day;
+            Arrays.fill(fleet.sums, offset, offset + METRICS, 0);
+            Arrays.fill(fleet.counts, offset, offset + METRICS, 0);
+        }
+        for (int m = 0; m < METRICS; m++) {
+            if (!Double.isNaN(values[m])) {
+                fleet.sums[offset + m] += values[m];
+                fleet.counts[offset + m]++;
+            }
+        }
+    }
+
+    /**
+     * 累加某天的 CPU 汇总（启动时由数据库按天汇总得出）
+     */
+    public synchronized void addDailyCpu(LocalDate date, double sum, long count) {
+        double[] total = dailyCpu.computeIfAbsent(date, k -> new double[2]);
+        total[0] += sum;
+        total[1] += count;
+    }
+
+    /**
+     * 丢弃 oldest 之前的按天汇总
+     */
+    public synchronized void prune(LocalDate oldest) {
+        Iterator<LocalDate> dates = dailyCpu.keySet().iterator();
+        while (dates.hasNext()) {
+            if (dates.next().isBefore(oldest)) {
+                dates.remove();
+            }
+        }
+    }
+
+    /**
+     * 某天各小时的数据
+     * @param deviceKey 设备标识，为 null 时返回全部设备的平均值
+     * @return [指标][小时]，没有记录的小时为 null；该设备当天没有任何数据时返回 null
+     */
+    public synchronized Double[][] day(String deviceKey, LocalDate date) {
+        long day = date.toEpochDay();
+        Double[][] result = new Double[METRICS][HOURS];
+        boolean hasData = false;
+        if (deviceKey == null) {
+            for (int h = 0; h < HOURS; h++) {
+                if (fleet.days[h] != day) {
+                    continue;
+                }
+                hasData = true;
+                for (int m = 0; m < METRICS; m++) {
+                    int count = fleet.counts[h * METRICS + m];
+                    result[m][h] = count > 0
+                            ? Double.valueOf(round(fleet.sums[h * METRICS + m] / count)) : emptyValue(m);
+                }
+            }
+        } else {
+            DeviceRing ring = devices.get(deviceKey);
+            if (ring == null) {
+                return null;
+            }
+            for (int h = 0; h < HOURS; h++) {
+                if (ring.days[h] != day) {
+                    continue;
+                }
+                hasData = true;
+                for (int m = 0; m < METRICS; m++) {
+                    double value = ring.values[h * METRICS + m];
+                    result[m][h] = Double.isNaN(value) ? emptyValue(m) : Double.valueOf(value);
+                }
+            }
+        }
+        return hasData ? result : null;
+    }
+
+    /**
+     * 某天全部设备的 CPU 平均使用率，没有数据时返回 null
+     */
+    public synchronized Double dailyCpuAverage(LocalDate date) {
+        double[] total = dailyCpu.get(date);
+        return total == null || total[1] == 0 ? null : round(total[0] / total[1]);
+    }
+
+    public synchronized int deviceCount() {
+        return devices.size();
+    }
+
+    /**
+     * 设备标识：设备类型 + 设备ID
+     */
+    public static String deviceKey(String deviceType, Long deviceId) {
+        return deviceType + ":" + deviceId;
+    }
+
+    private static Double emptyValue(int metric) {
+        return metric < ACTUAL_METRICS ? 0.0 : null;
+    }
+
+    /**
+     * 与数据库 AVG(decimal(5,2)) 的精度一致
+     */
+    private static double round(double value) {
+        return Math.round(value * 1000000.0) / 1000000.0;
+    }
+}
@@ -0,0 +1,203 @@
+package com.zxb.aiproject.bigscreen;
+
+import com.zxb.aiproject.config.BigScreenProperties;
+import com.zxb.aiproject.entity.ResourceHistory;
+import com.zxb.aiproject.mapper.ResourceHistoryMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 资源使用历史（大屏资源监控的24小时曲线与7天趋势）
+ * 启动时载入当天的小时数据与前几天的按天汇总到 {@link ResourceHistoryRings}，之后按 id 增量读取新写入的行；
+ * 接口直接读内存。采集端若会修改已写入的行，由定期全量重载纠正。
+ */
+@Slf4j
+@Component
+public class ResourceHistoryStore {
+
+    /**
+     * 7天趋势中今天之前的天数
+     */
+    static final int TREND_HISTORY_DAYS = 3;
+
+    @Autowired
+    private BigScreenProperties bigScreenProperties;
+
+    @Autowired
+    private ResourceHistoryMapper resourceHistoryMapper;
+
+    private volatile ResourceHistoryRings rings;
+
+    /**
+     * 已读取的最大 id，只在持有本对象锁时访问
+     */
+    private long lastId;
+
+    private volatile long loadedAtMillis;
+
+    private final AtomicLong reloads = new AtomicLong();
+
+    private final AtomicLong rowsApplied = new AtomicLong();
+
+    /**
+     * 今天各小时的数据
+     * @param deviceId 设备ID，host_、vm_ 前缀分别为云主机、虚拟机，asset_ 前缀或无前缀为资产；为空或 all 时为全部设备平均
+     * @return [指标][小时]（指标顺序见 {@link ResourceHistoryRings#METRICS}）；今天还没有数据时返回 null
+     * @throws IllegalArgumentException 设备ID格式不正确
+     */
+    public Double[][] today(String deviceId) {
+        String key = deviceId == null || "all".equals(deviceId) ? null : parseDeviceKey(deviceId);
+        return rings().day(key, LocalDate.now());
+    }
+
+    /**
+     * 某天全部设备的 CPU 平均使用率，只保留最近 {@value #TREND_HISTORY_DAYS} 天与今天；没有数据时返回 null
+     */
+    public Double dailyCpuAverage(LocalDate date) {
+        return rings().dailyCpuAverage(date);
+    }
+
+    static String parseDeviceKey(String deviceId) {
+        String deviceType = "asset";
+        String realId = deviceId;
+        if (deviceId.startsWith("host_")) {
+            deviceType = "cloud_host";
+            realId = deviceId.substring("host_".length());
+        } else if (deviceId.startsWith("vm_")) {
+            deviceType = "cloud_vm";
+            realId = deviceId.substring("vm_".length());
+        } else if (deviceId.startsWith("asset_")) {
+            realId = deviceId.substring("asset_".length());
+        }
+        try {
+            return ResourceHistoryRings.deviceKey(deviceType, Long.valueOf(realId));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("设备ID格式不正确: " + deviceId);
+        }
+    }
+
+    private ResourceHistoryRings rings() {
+        if (!isEnabled()) {
+            // 不缓存，每次从数据库载入
+            return load(resourceHistoryMapper.selectMaxId());
+        }
+        ResourceHistoryRings current = rings;
+        if (current == null) {
+            synchronized (this) {
+                if (rings == null) {
+                    reload();
+                }
+                current = rings;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 增量读取新写入的行，到重载间隔时全量重载
+     */
+    @Scheduled(fixedDelayString = "${bigscreen.resource-history.poll-interval-ms:60000}")
+    public synchronized void poll() {
+        if (!isEnabled()) {
+            return;
+        }
+        try {
+            long reloadInterval = bigScreenProperties.getResourceHistory().getReloadIntervalMs();
+            if (rings == null || System.currentTimeMillis() - loadedAtMillis >= reloadInterval) {
+                reload();
+                return;
+            }
+            int batchSize = Math.max(1, bigScreenProperties.getResourceHistory().getBatchSize());
+            List<ResourceHistory> rows;
+            do {
+                rows = resourceHistoryMapper.selectAfter(lastId, batchSize);
+                for (ResourceHistory row : rows) {
+                    apply(rings, row);
+                    lastId = row.getId();
+                }
+                rowsApplied.addAndGet(rows.size());
+            } while (rows.size() >= batchSize);
+            rings.prune(LocalDate.now().minusDays(TREND_HISTORY_DAYS));
+        } catch (Exception e) {
+            log.warn("资源使用历史增量读取失败: {}", e.getMessage());
+        }
+    }
+
+    private synchronized void reload() {
+        long maxId = resourceHistoryMapper.selectMaxId();
+        ResourceHistoryRings loaded = load(maxId);
+        rings = loaded;
+        lastId = maxId;
+        loadedAtMillis = System.currentTimeMillis();
+        reloads.incrementAndGet();
+        log.info("资源使用历史载入完成: 设备数={}, 最大id={}", loaded.deviceCount(), maxId);
+    }
+
+    private ResourceHistoryRings load(long maxId) {
+        LocalDate today = LocalDate.now();
+        ResourceHistoryRings loaded = new ResourceHistoryRings();
+        for (ResourceHistory row : resourceHistoryMapper.selectByDate(today, maxId)) {
+            apply(loaded, row);
+        }
+        for (Map<String, Object> row : resourceHistoryMapper.sumCpuByDate(today.minusDays(TREND_HISTORY_DAYS),
+                today, maxId)) {
+            Object date = row.get("record_date");
+            Object sum = row.get("cpu_sum");
+            Object count = row.get("cpu_count");
+            if (date != null && sum instanceof Number && count instanceof Number) {
+                loaded.addDailyCpu(toLocalDate(date), ((Number) sum).doubleValue(), ((Number) count).longValue());
+            }
+        }
+        return loaded;
+    }
+
+    private static LocalDate toLocalDate(Object value) {
+        return value instanceof java.sql.Date ? ((java.sql.Date) value).toLocalDate() : (LocalDate) value;
+    }
+
+    private static void apply(ResourceHistoryRings target, ResourceHistory row) {
+        if (row.getRecordDate() == null) {
+            return;
+        }
+        double[] values = {
+                toDouble(row.getCpuUsage()), toDouble(row.getMemoryUsage()),
+                toDouble(row.getNetworkUsage()), toDouble(row.getStorageUsage()),
+                toDouble(row.getCpuPredict()), toDouble(row.getMemoryPredict()),
+                toDouble(row.getNetworkPredict()), toDouble(row.getStoragePredict())
+        };
+        int hour = row.getRecordHour() == null ? -1 : row.getRecordHour();
+        target.add(ResourceHistoryRings.deviceKey(row.getDeviceType(), row.getDeviceId()), row.getRecordDate(),
+                hour, values);
+    }
+
+    private static double toDouble(BigDecimal value) {
+        return value == null ? Double.NaN : value.doubleValue();
+    }
+
+    public boolean isEnabled() {
+        return Boolean.TRUE.equals(bigScreenProperties.getResourceHistory().getEnabled());
+    }
+
+    /**
+     * 监控数据
+     */
+    public Map<String, Object> getStats() {
+        ResourceHistoryRings current = rings;
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("resourceHistoryEnabled", isEnabled());
+        data.put("resourceHistoryDevices", current == null ? 0 : current.deviceCount());
+        data.put("resourceHistoryLoadedAt", loadedAtMillis);
+        data.put("resourceHistoryReloads", reloads.get());
+        data.put("resourceHistoryRowsApplied", rowsApplied.get());
+        return data;
+    }
+}
@@ -0,0 +1,145 @@
+package com.zxb.aiproject.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 大屏展示配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "bigscreen")
+public class BigScreenProperties {
+
+    /**
+     * 后台计算的面板快照
+     */
+    private Snapshot snapshot = new Snapshot();
+
+    /**
+     * 大屏推送（SSE）
+     */
+    private Stream stream = new Stream();
+
+    /**
+     * 核心统计内存计数
+     */
+    private Counters counters = new Counters();
+
+    /**
+     * 资源使用历史（内存中的24小时数据）
+     */
+    private ResourceHistory resourceHistory = new ResourceHistory();
+
+    @Data
+    public static class Snapshot {
+
+        /**
+         * 是否启用（关闭后每次请求都查询数据库）
+         */
+        private Boolean enabled = true;
+
+        /**
+         * 计算面板的线程数
+         */
+        private Integer threads = 2;
+
+        /**
+         * 核心统计刷新间隔（毫秒）
+         */
+        private Long coreRefreshMs = 10000L;
+
+        /**
+         * 资源监控面板刷新间隔（毫秒）
+         */
+        private Long resourceRefreshMs = 30000L;
+
+        /**
+         * 告警监控面板刷新间隔（毫秒）
+         */
+        private Long alertRefreshMs = 10000L;
+
+        /**
+         * 预测分析面板刷新间隔（毫秒）
+         */
+        private Long predictionRefreshMs = 60000L;
+
+        /**
+         * 工单面板刷新间隔（毫秒）
+         */
+        private Long workorderRefreshMs = 30000L;
+
+        /**
+         * 网络运维面板刷新间隔（毫秒）
+         */
+        private Long netopsRefreshMs = 30000L;
+    }
+
+    @Data
+    public static class Stream {
+
+        /**
+         * 最大同时订阅数
+         */
+        private Integer maxSubscribers = 100;
+
+        /**
+         * 每个订阅的待推送增量数，客户端消费慢导致缓冲满时改为推送完整数据
+         */
+        private Integer bufferCapacity = 64;
+
+        /**
+         * 推送线程数，单个慢客户端最多占用一个线程
+         */
+        private Integer sendThreads = 2;
+
+        /**
+         * 心跳间隔（毫秒），用于发现已断开的连接
+         */
+        private Long heartbeatIntervalMs = 15000L;
+    }
+
+    @Data
+    public static class Counters {
+
+        /**
+         * 是否启用（关闭后每次读取都查询数据库）
+         */
+        private Boolean enabled = true;
+
+        /**
+         * 定期对账间隔（毫秒）
+         */
+        private Long reconcileIntervalMs = 60000L;
+
+        /**
+         * 有无法精确累加的写入（更新、删除等）时，最迟多久后对账（毫秒）
+         */
+        private Long dirtyDelayMs = 2000L;
+    }
+
+    @Data
+    public static class ResourceHistory {
+
+        /**
+         * 是否启用（关闭后每次请求都查询数据库）
+         */
+        private Boolean enabled = true;
+
+        /**
+         * 读取新写入数据的间隔（毫秒）
+         */
+        private Long pollIntervalMs = 60000L;
+
+        /**
+         * 全量重载间隔（毫秒），用于纠正已写入数据被修改的情况
+         */
+        private Long reloadIntervalMs = 3600000L;
+
+        /**
+         * 增量读取每批行数
+         */
+        private Integer batchSize = 5000;
+    }
+}
@@ -74,10 +74,7 @@ public class EmptyServiceConfig {
         return createEmptyService(com.zxb.aiproject.service.LogService.class);
     }
 
-    @Bean
-    public com.zxb.aiproject.service.SyslogMatchService syslogMatchService() {
-        return createEmptyService(com.zxb.aiproject.service.SyslogMatchService.class);
-    }
+    // SyslogMatchService 已有实现类 SyslogMatchServiceImpl，不需要空实现
 
     // TicketImportService / TicketTemplateService 已有具体实现类，不再提供空实现
     // TicketPriorityService 已有实现类 TicketPriorityServiceImpl，不需要空实现
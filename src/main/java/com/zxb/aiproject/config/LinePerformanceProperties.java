@@ -0,0 +1,34 @@
+package com.zxb.aiproject.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 专线性能汇总配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "line-performance")
+public class LinePerformanceProperties {
+
+    /**
+     * 读取新探测数据的间隔（毫秒）
+     */
+    private Long pollIntervalMs = 10000L;
+
+    /**
+     * 全量重载间隔（毫秒），用于纠正已写入数据被修改或晚提交的情况
+     */
+    private Long reloadIntervalMs = 3600000L;
+
+    /**
+     * 增量读取每批行数
+     */
+    private Integer batchSize = 5000;
+
+    /**
+     * 分位数（p95）的相对误差
+     */
+    private Double quantileAccuracy = 0.01;
+}
@@ -0,0 +1,592 @@
+package com.zxb.aiproject.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Syslog接收与入库配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "syslog")
+public class SyslogProperties {
+
+    /**
+     * 是否启用内置Syslog接收器
+     */
+    private Boolean enabled = true;
+
+    /**
+     * 监听地址
+     */
+    private String bindAddress = "0.0.0.0";
+
+    /**
+     * UDP监听端口，小于等于0表示不监听
+     */
+    private Integer udpPort = 514;
+
+    /**
+     * TCP监听端口（支持octet-counting与换行分帧），小于等于0表示不监听
+     */
+    private Integer tcpPort = 514;
+
+    /**
+     * 单条消息最大字节数，超出部分截断
+     */
+    private Integer maxMessageSize = 8192;
+
+    /**
+     * UDP socket接收缓冲区大小（字节），用于吸收突发流量
+     */
+    private Integer receiveBufferSize = 4 * 1024 * 1024;
+
+    /**
+     * 入库队列容量（只用于未启用预写缓冲时），队列满时丢弃新消息
+     */
+    private Integer queueCapacity = 100000;
+
+    /**
+     * 每批写入的最大条数
+     */
+    private Integer batchSize = 500;
+
+    /**
+     * 批次未满时的最长等待时间（毫秒）
+     */
+    private Long flushIntervalMs = 1000L;
+
+    /**
+     * 入库线程数（只用于未启用预写缓冲时，启用时由一个线程按顺序读取预写缓冲写库）
+     */
+    private Integer writerThreads = 2;
+
+    /**
+     * 入库前是否进行规则匹配（关闭后只依赖补偿扫描）
+     */
+    private Boolean inlineMatch = true;
+
+    /**
+     * 补偿扫描间隔（毫秒），规则变更后把历史未匹配日志按新规则补匹配
+     */
+    private Long matchSweepIntervalMs = 10000L;
+
+    /**
+     * 补偿扫描每次查询条数
+     */
+    private Integer matchSweepBatchSize = 1000;
+
+    /**
+     * 补偿扫描只覆盖最近N天接收的日志，更早的历史由重新匹配任务处理
+     */
+    private Integer matchSweepDays = 7;
+
+    /**
+     * 重新匹配任务并行线程数
+     */
+    private Integer rematchThreads = 4;
+
+    /**
+     * 重新匹配任务每个分片覆盖的主键跨度
+     */
+    private Integer rematchChunkSize = 5000;
+
+    /**
+     * 重新匹配结果每条 UPDATE ... CASE 语句包含的行数
+     */
+    private Integer rematchUpdateBatchSize = 500;
+
+    /**
+     * 关键字倒排索引配置
+     */
+    private Index index = new Index();
+
+    /**
+     * 小时汇总配置
+     */
+    private Rollup rollup = new Rollup();
+
+    /**
+     * 按天分区配置
+     */
+    private Partition partition = new Partition();
+
+    /**
+     * 日志转发配置（目标地址与开关取日志设置）
+     */
+    private Forward forward = new Forward();
+
+    /**
+     * 实时日志推送（SSE）
+     */
+    private Stream stream = new Stream();
+
+    /**
+     * 日志风暴抑制与重复日志折叠
+     */
+    private Storm storm = new Storm();
+
+    /**
+     * 冷数据归档
+     */
+    private Archive archive = new Archive();
+
+    /**
+     * 来源基数与来源 Top N 概要
+     */
+    private Sketch sketch = new Sketch();
+
+    /**
+     * 日志模板提取
+     */
+    private Template template = new Template();
+
+    /**
+     * 按来源IP关联资产
+     */
+    private Asset asset = new Asset();
+
+    /**
+     * 接收与写库之间的磁盘预写缓冲
+     */
+    private Wal wal = new Wal();
+
+    /**
+     * 指标注册表（/actuator/prometheus）中按规则、按来源展开的指标
+     */
+    private Metrics metrics = new Metrics();
+
+    /**
+     * 告警日志关联为告警
+     */
+    private Alert alert = new Alert();
+
+    /**
+     * 统计接口
+     */
+    private Statistics statistics = new Statistics();
+
+    @Data
+    public static class Index {
+
+        /**
+         * 是否启用倒排索引（关闭后关键字查询回退为LIKE）
+         */
+        private Boolean enabled = true;
+
+        /**
+         * 索引文件目录
+         */
+        private String dir = "./data/syslog-index";
+
+        /**
+         * 内存缓冲刷成段文件的间隔（毫秒）
+         */
+        private Long flushIntervalMs = 10000L;
+
+        /**
+         * 内存缓冲的最大日志条数，超过后立即刷盘
+         */
+        private Integer maxBufferedDocs = 200000;
+
+        /**
+         * 单日分区段文件数上限，超过后合并
+         */
+        private Integer maxSegmentsPerDay = 8;
+
+        /**
+         * 索引保留天数
+         */
+        private Integer retentionDays = 60;
+
+        /**
+         * 候选ID数量上限，超过后回退为LIKE查询
+         */
+        private Integer maxCandidates = 50000;
+
+        /**
+         * 候选ID不超过该数量时直接写入SQL的 IN 条件，超过后分批写入暂存表再关联查询
+         */
+        private Integer inlineCandidates = 1000;
+    }
+
+    @Data
+    public static class Rollup {
+
+        /**
+         * 是否在入库时维护小时汇总（关闭后统计接口结果不再更新）
+         */
+        private Boolean enabled = true;
+
+        /**
+         * 内存增量写入汇总表的间隔（毫秒）
+         */
+        private Long flushIntervalMs = 5000L;
+
+        /**
+         * 每条 INSERT ... ON DUPLICATE KEY UPDATE 语句包含的行数
+         */
+        private Integer upsertBatchSize = 500;
+
+        /**
+         * 汇总表为空时从原始日志回填，每次回填覆盖的主键跨度
+         */
+        private Integer backfillChunkSize = 50000;
+
+        /**
+         * 汇总保留天数
+         */
+        private Integer retentionDays = 400;
+    }
+
+    @Data
+    public static class Partition {
+
+        /**
+         * 是否维护 t_log_syslog 的按天范围分区（关闭后过期日志按批删除）
+         */
+        private Boolean enabled = true;
+
+        /**
+         * 预建未来分区的天数
+         */
+        private Integer preCreateDays = 7;
+
+        /**
+         * 是否允许管理员通过接口把未分区的旧表改造为分区表（需复制整表，期间写入阻塞，只在维护窗口开启）
+         */
+        private Boolean migrateExisting = false;
+
+        /**
+         * 未分区时按批删除过期日志，每批行数
+         */
+        private Integer purgeBatchSize = 5000;
+    }
+
+    @Data
+    public static class Forward {
+
+        /**
+         * 转发协议：udp 或 tcp（tcp 使用 octet-counting 分帧）
+         */
+        private String protocol = "udp";
+
+        /**
+         * 内存转发缓冲容量（条），满时溢写到磁盘
+         */
+        private Integer bufferCapacity = 10000;
+
+        /**
+         * 每次发送的最大条数
+         */
+        private Integer batchSize = 200;
+
+        /**
+         * 溢写目录
+         */
+        private String spillDir = "./data/syslog-forward-spill";
+
+        /**
+         * 溢写文件总大小上限（字节），超过后丢弃
+         */
+        private Long maxSpillBytes = 512L * 1024 * 1024;
+
+        /**
+         * 单个溢写文件大小（字节）
+         */
+        private Long spillSegmentBytes = 16L * 1024 * 1024;
+
+        /**
+         * TCP连接超时（毫秒）
+         */
+        private Integer connectTimeoutMs = 3000;
+
+        /**
+         * 发送失败后重连的最长退避时间（毫秒）
+         */
+        private Long maxReconnectBackoffMs = 30000L;
+    }
+
+    @Data
+    public static class Stream {
+
+        /**
+         * 最大同时订阅数
+         */
+        private Integer maxSubscribers = 100;
+
+        /**
+         * 每个订阅的待推送缓冲（条），客户端消费慢导致缓冲满时丢弃新日志
+         */
+        private Integer bufferCapacity = 2000;
+
+        /**
+         * 每次推送的最大条数
+         */
+        private Integer batchSize = 200;
+
+        /**
+         * 推送线程数，单个慢客户端最多占用一个线程
+         */
+        private Integer sendThreads = 4;
+
+        /**
+         * 心跳间隔（毫秒），用于发现已断开的连接
+         */
+        private Long heartbeatIntervalMs = 15000L;
+    }
+
+    @Data
+    public static class Storm {
+
+        /**
+         * 是否启用
+         */
+        private Boolean enabled = true;
+
+        /**
+         * 去重窗口（毫秒）：距上次出现不足该时长的相同日志只累加重复次数，不再入库（滑动窗口）
+         */
+        private Long dedupWindowMs = 60000L;
+
+        /**
+         * 去重表最多跟踪的键数，超过后新日志不再去重
+         */
+        private Integer maxDedupKeys = 100000;
+
+        /**
+         * 分段锁数量（2的幂）
+         */
+        private Integer lockStripes = 64;
+
+        /**
+         * 重复次数写回数据库的间隔（毫秒）
+         */
+        private Long flushIntervalMs = 5000L;
+
+        /**
+         * 每个来源的令牌桶速率（条/秒）
+         */
+        private Integer sourceRatePerSecond = 200;
+
+        /**
+         * 每个来源的令牌桶容量（允许的突发条数）
+         */
+        private Integer sourceBurst = 1000;
+
+        /**
+         * 令牌耗尽后仍全部保留的严重级别上限（0紧急~3错误）
+         */
+        private Integer protectSeverity = 3;
+
+        /**
+         * 令牌耗尽后低级别日志每个来源每秒大约保留的采样条数
+         */
+        private Integer sampledPerSecond = 10;
+    }
+
+    @Data
+    public static class Archive {
+
+        /**
+         * 是否启用，默认关闭，日志按日志设置中的保留天数留在数据库。
+         * 启用后每晚把超过 hotDays 的日志写入压缩归档文件并从数据库删除，保留天数改为约束归档文件；
+         * 启用前按保留天数评估归档目录容量
+         */
+        private Boolean enabled = false;
+
+        /**
+         * 归档文件目录
+         */
+        private String dir = "./data/syslog-archive";
+
+        /**
+         * 数据库中保留的天数，更早的日志按天归档
+         */
+        private Integer hotDays = 30;
+
+        /**
+         * 每个压缩块的行数
+         */
+        private Integer blockRows = 4096;
+
+        /**
+         * deflate 压缩级别（1~9）
+         */
+        private Integer compressionLevel = 6;
+
+        /**
+         * 归档时每次从数据库读取的行数
+         */
+        private Integer readBatchSize = 5000;
+
+        /**
+         * 同时保持打开（内存映射）的归档文件数
+         */
+        private Integer maxOpenFiles = 64;
+    }
+
+    @Data
+    public static class Sketch {
+
+        /**
+         * 是否启用（关闭后来源数与来源 Top N 使用小时汇总精确统计）
+         */
+        private Boolean enabled = true;
+
+        /**
+         * HyperLogLog 精度（4~16），寄存器数为 2 的该次方，相对标准误差约 1.04/sqrt(寄存器数)
+         */
+        private Integer hllPrecision = 12;
+
+        /**
+         * 每小时跟踪的热点来源数
+         */
+        private Integer topCapacity = 256;
+
+        /**
+         * 内存概要写回数据库的间隔（毫秒）
+         */
+        private Long flushIntervalMs = 60000L;
+    }
+
+    @Data
+    public static class Template {
+
+        /**
+         * 是否启用（关闭后新日志不分配模板ID）
+         */
+        private Boolean enabled = true;
+
+        /**
+         * 模板树深度（含词数层与叶子层），即按前 depth-2 个词分组
+         */
+        private Integer depth = 4;
+
+        /**
+         * 归入已有模板的最低相似度（相同位置相等的词占比）
+         */
+        private Double similarityThreshold = 0.5;
+
+        /**
+         * 模板树每个节点的最多子节点数，超出后新出现的词归入通配节点
+         */
+        private Integer maxChildren = 100;
+
+        /**
+         * 模板总数上限，达到后无法归入已有模板的日志不分配模板ID
+         */
+        private Integer maxTemplates = 20000;
+
+        /**
+         * 模板小时计数写回数据库的间隔（毫秒）
+         */
+        private Long flushIntervalMs = 10000L;
+    }
+
+    @Data
+    public static class Asset {
+
+        /**
+         * 是否启用（关闭后新日志不关联资产，设备类型与主机名取日志自带的值）
+         */
+        private Boolean enabled = true;
+
+        /**
+         * 增量刷新间隔（毫秒），按资产更新时间拉取变更
+         */
+        private Long refreshIntervalMs = 30000L;
+
+        /**
+         * 全量重建间隔（毫秒），用于纠正物理删除等增量刷新发现不了的变更
+         */
+        private Long fullReloadIntervalMs = 3600000L;
+    }
+
+    @Data
+    public static class Wal {
+
+        /**
+         * 是否启用：启用时所有日志先追加到预写缓冲再写库；关闭后使用内存队列，队列满或写库失败的日志直接丢弃
+         */
+        private Boolean enabled = true;
+
+        /**
+         * 分段文件目录
+         */
+        private String dir = "./data/syslog-wal";
+
+        /**
+         * 每个分段文件的大小（字节），创建时预分配并整体映射到内存
+         */
+        private Integer segmentBytes = 64 * 1024 * 1024;
+
+        /**
+         * 缓冲总容量（字节），超出后丢弃
+         */
+        private Long maxBytes = 4L * 1024 * 1024 * 1024;
+
+        /**
+         * 数据库不可达时的写库重试间隔（毫秒）
+         */
+        private Long retryIntervalMs = 5000L;
+
+        /**
+         * 强制落盘间隔（毫秒），防止断电丢失映射区中尚未写回的日志
+         */
+        private Long syncIntervalMs = 1000L;
+    }
+
+    @Data
+    public static class Metrics {
+
+        /**
+         * 导出当前小时日志量最大的来源个数（0 表示不导出）
+         */
+        private Integer topSources = 10;
+
+        /**
+         * 按规则正则耗时与来源热点指标的刷新间隔（毫秒）
+         */
+        private Long refreshIntervalMs = 30000L;
+    }
+
+    @Data
+    public static class Alert {
+
+        /**
+         * 是否启用（关闭后告警日志只在日志页面标记，不产生告警）
+         */
+        private Boolean enabled = true;
+
+        /**
+         * 关联窗口（毫秒）：同一资产同一事件的告警日志与上一条间隔不超过该值时计入同一条告警
+         */
+        private Long windowMs = 600000L;
+
+        /**
+         * 发生次数写库间隔（毫秒）
+         */
+        private Long flushIntervalMs = 5000L;
+
+        /**
+         * 内存中最多跟踪的关联组数，超出后新的组不产生告警
+         */
+        private Integer maxGroups = 50000;
+    }
+
+    @Data
+    public static class Statistics {
+
+        /**
+         * 汇总结果缓存时间（毫秒），相同时间范围的并发请求共用一次统计，0 表示不缓存
+         */
+        private Long summaryCacheMs = 5000L;
+
+        /**
+         * 最多缓存的时间范围个数
+         */
+        private Integer summaryCacheSize = 256;
+    }
+}
@@ -1,29 +1,44 @@
 package com.zxb.aiproject.controller;
 
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.zxb.aiproject.bigscreen.BigScreenSnapshot;
+import com.zxb.aiproject.bigscreen.BigScreenSnapshotService;
+import com.zxb.aiproject.bigscreen.BigScreenStreamHub;
+import com.zxb.aiproject.bigscreen.ResourceHistoryStore;
 import com.zxb.aiproject.common.result.Result;
+import com.zxb.aiproject.config.BigScreenProperties;
 import com.zxb.aiproject.entity.Alert;
 import com.zxb.aiproject.entity.Asset;
 import com.zxb.aiproject.entity.AssetCategory;
 import com.zxb.aiproject.entity.CloudHost;
 import com.zxb.aiproject.entity.CloudVirtualMachine;
+import com.zxb.aiproject.lineperf.LineMetric;
+import com.zxb.aiproject.lineperf.LinePerformanceRollups;
+import com.zxb.aiproject.lineperf.RollupStats;
 import com.zxb.aiproject.mapper.AlertMapper;
 import com.zxb.aiproject.mapper.AssetMapper;
 import com.zxb.aiproject.mapper.AssetCategoryMapper;
 import com.zxb.aiproject.mapper.CloudHostMapper;
 import com.zxb.aiproject.mapper.CloudVirtualMachineMapper;
+import com.zxb.aiproject.stats.CoreStatsCounters;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import org.springframework.jdbc.core.JdbcTemplate;
 
+import javax.annotation.PostConstruct;
+import java.io.IOException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.time.temporal.TemporalAdjusters;
 import java.util.*;
+import java.util.function.Supplier;
 
 /**
  * 大屏展示Controller
@@ -52,52 +67,172 @@ public class BigScreenController {
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
+    @Autowired
+    private BigScreenSnapshotService bigScreenSnapshotService;
+
+    @Autowired
+    private BigScreenProperties bigScreenProperties;
+
+    @Autowired
+    private BigScreenStreamHub bigScreenStreamHub;
+
+    @Autowired
+    private CoreStatsCounters coreStatsCounters;
+
+    @Autowired
+    private ResourceHistoryStore resourceHistoryStore;
+
+    @Autowired
+    private LinePerformanceRollups linePerformanceRollups;
+
+    /**
+     * 注册大屏面板，默认参数的请求由快照返回
+     */
+    @PostConstruct
+    public void registerPanels() {
+        BigScreenProperties.Snapshot config = bigScreenProperties.getSnapshot();
+        register("core-stats", config.getCoreRefreshMs(), this::loadCoreStats);
+        register("resource-monitor/categories", config.getResourceRefreshMs(), this::loadResourceCategories);
+        register("resource-monitor/devices", config.getResourceRefreshMs(), () -> loadDeviceList(null));
+        register("resource-monitor/pool", config.getResourceRefreshMs(), () -> loadResourcePool(null, null));
+        register("resource-monitor/ranking", config.getResourceRefreshMs(), () -> loadResourceRanking(null, null, "cpu"));
+        register("resource-monitor/performance", config.getResourceRefreshMs(), () -> loadPerformance(null));
+        register("resource-monitor/history", config.getResourceRefreshMs(), () -> loadResourceHistory(null));
+        register("resource-monitor/trend-7days", config.getResourceRefreshMs(), this::loadResourceTrend7Days);
+        register("alert-monitor/severity-stats", config.getAlertRefreshMs(), this::loadAlertSeverityStats);
+        register("alert-monitor/monthly-trend", config.getAlertRefreshMs(), this::loadMonthlyAlertStats);
+        register("alert-monitor/handle-stats", config.getAlertRefreshMs(), this::loadAlertHandleStats);
+        register("alert-monitor/30day-trend", config.getAlertRefreshMs(), () -> load30DayAlertTrend("all"));
+        register("alert-monitor/list", config.getAlertRefreshMs(), () -> loadAlertList(20, null));
+        register("alert-monitor/radial-stats", config.getAlertRefreshMs(), this::loadRadialStats);
+        register("alert-monitor/recent", config.getAlertRefreshMs(), () -> loadRecentAlerts(5));
+        register("prediction/history-comparison", config.getPredictionRefreshMs(), () -> loadHistoryComparison("cpu", 7));
+        register("prediction/accuracy-heatmap", config.getPredictionRefreshMs(), () -> loadAccuracyHeatmap("cpu", 7));
+        register("prediction/kpi", config.getPredictionRefreshMs(), () -> loadPredictionKpi("cpu"));
+        register("prediction/error-trend", config.getPredictionRefreshMs(), () -> loadErrorTrend("cpu", 7));
+        register("prediction/alert-distribution", config.getPredictionRefreshMs(), this::loadAlertDistribution);
+        register("prediction/alert-list", config.getPredictionRefreshMs(), () -> loadPredictionAlertList(null));
+        register("prediction/future", config.getPredictionRefreshMs(), () -> loadFuturePrediction("cpu", 7));
+        register("prediction/models", config.getPredictionRefreshMs(), this::loadPredictionModels);
+        register("workorder/kpi", config.getWorkorderRefreshMs(), this::loadWorkorderKpi);
+        register("workorder/status-distribution", config.getWorkorderRefreshMs(), this::loadWorkorderStatusDistribution);
+        register("workorder/trend", config.getWorkorderRefreshMs(), this::loadWorkorderTrend);
+        register("workorder/source-distribution", config.getWorkorderRefreshMs(), this::loadWorkorderSourceDistribution);
+        register("workorder/sla-detail", config.getWorkorderRefreshMs(), this::loadWorkorderSlaDetail);
+        register("workorder/list", config.getWorkorderRefreshMs(), () -> loadWorkorderList(null, null, null));
+        register("workorder/type-keys", config.getWorkorderRefreshMs(), this::loadWorkorderTypeKeys);
+        register("netops/links", config.getNetopsRefreshMs(), this::loadNetworkLinks);
+        register("netops/kpi", config.getNetopsRefreshMs(), () -> loadNetopsKpi(0L));
+        register("netops/traffic-trend", config.getNetopsRefreshMs(), () -> loadNetopsTrafficTrend(0L));
+        register("netops/top-devices", config.getNetopsRefreshMs(), this::loadTopTrafficDevices);
+        register("netops/nodes", config.getNetopsRefreshMs(), this::loadNetworkNodes);
+        register("netops/node-table", config.getNetopsRefreshMs(), this::loadNetworkNodeTable);
+    }
+
+    private void register(String name, long refreshMillis, Supplier<? extends Result<?>> loader) {
+        bigScreenSnapshotService.register(name, refreshMillis, loader);
+    }
+
+    /**
+     * 资源监控的设备、类型参数不传与传 all 含义相同
+     */
+    private static boolean isAll(String value) {
+        return value == null || "all".equals(value);
+    }
+
+    /**
+     * 全部面板的快照，供大屏一次取回；带 If-None-Match 且没有面板变化时返回 304
+     */
+    @GetMapping("/snapshot")
+    @ApiOperation("获取大屏全部面板快照")
+    public Result<Map<String, Object>> getSnapshot(WebRequest request) {
+        try {
+            BigScreenSnapshot snapshot = bigScreenSnapshotService.getSnapshot();
+            if (request.checkNotModified(snapshot.getEtag())) {
+                return null;
+            }
+            return Result.success(snapshot.toMap(name -> true));
+        } catch (Exception e) {
+            log.error("获取大屏快照失败", e);
+            return Result.error("获取大屏快照失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 快照刷新、命中与推送情况
+     */
+    @GetMapping("/snapshot/stats")
+    @ApiOperation("获取大屏快照监控数据")
+    public Result<Map<String, Object>> getSnapshotStats() {
+        Map<String, Object> stats = new LinkedHashMap<>(bigScreenSnapshotService.getStats());
+        stats.putAll(bigScreenStreamHub.getStats());
+        stats.putAll(coreStatsCounters.getStats());
+        stats.putAll(resourceHistoryStore.getStats());
+        stats.putAll(linePerformanceRollups.getStats());
+        return Result.success(stats);
+    }
+
+    /**
+     * 大屏推送（SSE），每块大屏一个连接
+     * panels 为面板名或分组（如 core-stats、alert-monitor），不传订阅全部；
+     * 连接后先推送 snapshot 事件（结构同 /snapshot），之后面板变化时推送 patch 事件：
+     * panel、version、generatedAt、etag 与 ops（相对该面板 data 的 JSON Patch），订阅失败时推送 error 事件后结束。
+     */
+    @GetMapping("/stream")
+    @ApiOperation("大屏增量推送")
+    public SseEmitter streamPanels(@RequestParam(required = false) List<String> panels) {
+        try {
+            return bigScreenStreamHub.subscribe(panels);
+        } catch (IllegalStateException e) {
+            return streamError(e.getMessage());
+        } catch (Exception e) {
+            log.error("订阅大屏推送失败", e);
+            return streamError("订阅大屏推送失败: " + e.getMessage());
+        }
+    }
+
+    private SseEmitter streamError(String message) {
+        SseEmitter emitter = new SseEmitter();
+        try {
+            emitter.send(SseEmitter.event().name("error").data(Result.error(message)));
+            emitter.complete();
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+        }
+        return emitter;
+    }
+
     /**
      * 获取大屏核心统计数据
      * 包括：在线设备数、离线设备数、本月告警数、较上月变化百分比
      */
     @GetMapping("/core-stats")
     @ApiOperation("获取大屏核心统计数据")
-    public Result<Map<String, Object>> getCoreStats() {
+    public Result<Map<String, Object>> getCoreStats(WebRequest request) {
+        return bigScreenSnapshotService.serve("core-stats", request);
+    }
+
+    private Result<Map<String, Object>> loadCoreStats() {
         try {
             Map<String, Object> stats = new HashMap<>();
+            // 全部计数来自内存，不查询数据库
+            Map<String, Long> counts = coreStatsCounters.read();
 
-            // 1. 统计在线设备数量（status = online 或 running）
-            QueryWrapper<Asset> onlineQuery = new QueryWrapper<>();
-            onlineQuery.eq("deleted", 0);
-            onlineQuery.in("asset_status", "online", "running");
-            long onlineCount = assetMapper.selectCount(onlineQuery);
+            // 1. 在线设备数量（status = online 或 running）
+            long onlineCount = counts.get(CoreStatsCounters.ASSET_ONLINE);
             stats.put("onlineDevices", onlineCount);
 
-            // 2. 统计离线设备数量（其他状态）
-            QueryWrapper<Asset> offlineQuery = new QueryWrapper<>();
-            offlineQuery.eq("deleted", 0);
-            offlineQuery.notIn("asset_status", "online", "running");
-            long offlineCount = assetMapper.selectCount(offlineQuery);
+            // 2. 离线设备数量（其他状态）
+            long offlineCount = counts.get(CoreStatsCounters.ASSET_OFFLINE);
             stats.put("offlineDevices", offlineCount);
 
-            // 3. 统计本月告警数量
-            LocalDate now = LocalDate.now();
-            LocalDateTime currentMonthStart = now.with(TemporalAdjusters.firstDayOfMonth()).atStartOfDay();
-            LocalDateTime currentMonthEnd = now.with(TemporalAdjusters.lastDayOfMonth()).atTime(23, 59, 59);
-
-            QueryWrapper<Alert> currentMonthQuery = new QueryWrapper<>();
-            currentMonthQuery.eq("deleted", 0);
-            currentMonthQuery.ge("occurred_time", currentMonthStart);
-            currentMonthQuery.le("occurred_time", currentMonthEnd);
-            long currentMonthAlerts = alertMapper.selectCount(currentMonthQuery);
+            // 3. 本月告警数量
+            YearMonth month = YearMonth.now();
+            long currentMonthAlerts = counts.get(CoreStatsCounters.monthKey(month));
             stats.put("currentMonthAlerts", currentMonthAlerts);
 
-            // 4. 统计上月告警数量
-            LocalDate lastMonth = now.minusMonths(1);
-            LocalDateTime lastMonthStart = lastMonth.with(TemporalAdjusters.firstDayOfMonth()).atStartOfDay();
-            LocalDateTime lastMonthEnd = lastMonth.with(TemporalAdjusters.lastDayOfMonth()).atTime(23, 59, 59);
-
-            QueryWrapper<Alert> lastMonthQuery = new QueryWrapper<>();
-            lastMonthQuery.eq("deleted", 0);
-            lastMonthQuery.ge("occurred_time", lastMonthStart);
-            lastMonthQuery.le("occurred_time", lastMonthEnd);
-            long lastMonthAlerts = alertMapper.selectCount(lastMonthQuery);
+            // 4. 上月告警数量
+            long lastMonthAlerts = counts.get(CoreStatsCounters.monthKey(month.minusMonths(1)));
             stats.put("lastMonthAlerts", lastMonthAlerts);
 
             // 5. 计算较上月变化百分比
@@ -127,7 +262,11 @@ public class BigScreenController {
      */
     @GetMapping("/resource-monitor/categories")
     @ApiOperation("获取资源类型列表")
-    public Result<List<Map<String, Object>>> getResourceCategories() {
+    public Result<List<Map<String, Object>>> getResourceCategories(WebRequest request) {
+        return bigScreenSnapshotService.serve("resource-monitor/categories", request);
+    }
+
+    private Result<List<Map<String, Object>>> loadResourceCategories() {
         try {
             List<Map<String, Object>> categories = new ArrayList<>();
 
@@ -160,7 +299,14 @@ public class BigScreenController {
      */
     @GetMapping("/resource-monitor/devices")
     @ApiOperation("获取设备实例列表")
-    public Result<List<Map<String, Object>>> getDeviceList(@RequestParam(required = false) String categoryId) {
+    public Result<List<Map<String, Object>>> getDeviceList(@RequestParam(required = false) String categoryId, WebRequest request) {
+        if (isAll(categoryId)) {
+            return bigScreenSnapshotService.serve("resource-monitor/devices", request);
+        }
+        return loadDeviceList(categoryId);
+    }
+
+    private Result<List<Map<String, Object>>> loadDeviceList(String categoryId) {
         try {
             List<Map<String, Object>> devices = new ArrayList<>();
 
@@ -243,7 +389,15 @@ public class BigScreenController {
     @ApiOperation("获取资源池概览")
     public Result<Map<String, Object>> getResourcePool(
             @RequestParam(required = false) String categoryId,
-            @RequestParam(required = false) String deviceId) {
+            @RequestParam(required = false) String deviceId,
+            WebRequest request) {
+        if (isAll(categoryId) && isAll(deviceId)) {
+            return bigScreenSnapshotService.serve("resource-monitor/pool", request);
+        }
+        return loadResourcePool(categoryId, deviceId);
+    }
+
+    private Result<Map<String, Object>> loadResourcePool(String categoryId, String deviceId) {
         try {
             Map<String, Object> pool = new HashMap<>();
 
@@ -387,7 +541,15 @@ public class BigScreenController {
     public Result<List<Map<String, Object>>> getResourceRanking(
             @RequestParam(required = false) String deviceId,
             @RequestParam(required = false) String categoryId,
-            @RequestParam(defaultValue = "cpu") String sortBy) {
+            @RequestParam(defaultValue = "cpu") String sortBy,
+            WebRequest request) {
+        if (isAll(deviceId) && isAll(categoryId) && "cpu".equals(sortBy)) {
+            return bigScreenSnapshotService.serve("resource-monitor/ranking", request);
+        }
+        return loadResourceRanking(deviceId, categoryId, sortBy);
+    }
+
+    private Result<List<Map<String, Object>>> loadResourceRanking(String deviceId, String categoryId, String sortBy) {
         try {
             List<Map<String, Object>> ranking = new ArrayList<>();
 
@@ -493,7 +655,14 @@ public class BigScreenController {
      */
     @GetMapping("/resource-monitor/performance")
     @ApiOperation("获取实时性能数据")
-    public Result<Map<String, Object>> getPerformance(@RequestParam(required = false) String deviceId) {
+    public Result<Map<String, Object>> getPerformance(@RequestParam(required = false) String deviceId, WebRequest request) {
+        if (isAll(deviceId)) {
+            return bigScreenSnapshotService.serve("resource-monitor/performance", request);
+        }
+        return loadPerformance(deviceId);
+    }
+
+    private Result<Map<String, Object>> loadPerformance(String deviceId) {
         try {
             Map<String, Object> performance = new HashMap<>();
 
@@ -662,11 +831,18 @@ public class BigScreenController {
     }
 
     /**
-     * 获取资源使用历史数据（从数据库获取24小时数据）
+     * 获取资源使用历史数据（今天24小时数据，来自内存中的资源历史）
      */
     @GetMapping("/resource-monitor/history")
     @ApiOperation("获取资源使用历史")
-    public Result<Map<String, Object>> getResourceHistory(@RequestParam(required = false) String deviceId) {
+    public Result<Map<String, Object>> getResourceHistory(@RequestParam(required = false) String deviceId, WebRequest request) {
+        if (isAll(deviceId)) {
+            return bigScreenSnapshotService.serve("resource-monitor/history", request);
+        }
+        return loadResourceHistory(deviceId);
+    }
+
+    private Result<Map<String, Object>> loadResourceHistory(String deviceId) {
         try {
             Map<String, Object> history = new HashMap<>();
 
@@ -687,68 +863,21 @@ public class BigScreenController {
             Double[] netPredict = new Double[24];
             Double[] storagePredict = new Double[24];
 
-            // 根据设备ID查询历史数据
-            String sql;
-            if (deviceId == null || "all".equals(deviceId)) {
-                // 全部设备 - 查询平均值
-                sql = "SELECT record_hour, " +
-                        "AVG(cpu_usage) as cpu_usage, AVG(memory_usage) as memory_usage, " +
-                        "AVG(network_usage) as network_usage, AVG(storage_usage) as storage_usage, " +
-                        "AVG(cpu_predict) as cpu_predict, AVG(memory_predict) as memory_predict, " +
-                        "AVG(network_predict) as network_predict, AVG(storage_predict) as storage_predict " +
-                        "FROM resource_history WHERE record_date = CURDATE() " +
-                        "GROUP BY record_hour ORDER BY record_hour";
-            } else {
-                // 单个设备
-                String deviceType = "asset";
-                String realId = deviceId;
-                if (deviceId.startsWith("host_")) {
-                    deviceType = "cloud_host";
-                    realId = deviceId.replace("host_", "");
-                } else if (deviceId.startsWith("vm_")) {
-                    deviceType = "cloud_vm";
-                    realId = deviceId.replace("vm_", "");
-                } else if (deviceId.startsWith("asset_")) {
-                    realId = deviceId.replace("asset_", "");
-                }
-                sql = "SELECT record_hour, cpu_usage, memory_usage, network_usage, storage_usage, " +
-                        "cpu_predict, memory_predict, network_predict, storage_predict " +
-                        "FROM resource_history WHERE record_date = CURDATE() " +
-                        "AND device_type = '" + deviceType + "' AND device_id = " + realId + " " +
-                        "ORDER BY record_hour";
-            }
-
-            // 执行查询
-            List<Map<String, Object>> historyData = jdbcTemplate.queryForList(sql);
-
-            for (Map<String, Object> row : historyData) {
-                int hour = ((Number) row.get("record_hour")).intValue();
-                if (hour >= 0 && hour < 24) {
-                    cpuActual[hour] = row.get("cpu_usage") != null ? ((Number) row.get("cpu_usage")).doubleValue() : 0;
-                    memActual[hour] = row.get("memory_usage") != null ? ((Number) row.get("memory_usage")).doubleValue()
-                            : 0;
-                    netActual[hour] = row.get("network_usage") != null
-                            ? ((Number) row.get("network_usage")).doubleValue()
-                            : 0;
-                    storageActual[hour] = row.get("storage_usage") != null
-                            ? ((Number) row.get("storage_usage")).doubleValue()
-                            : 0;
-                    cpuPredict[hour] = row.get("cpu_predict") != null ? ((Number) row.get("cpu_predict")).doubleValue()
-                            : null;
-                    memPredict[hour] = row.get("memory_predict") != null
-                            ? ((Number) row.get("memory_predict")).doubleValue()
-                            : null;
-                    netPredict[hour] = row.get("network_predict") != null
-                            ? ((Number) row.get("network_predict")).doubleValue()
-                            : null;
-                    storagePredict[hour] = row.get("storage_predict") != null
-                            ? ((Number) row.get("storage_predict")).doubleValue()
-                            : null;
-                }
-            }
-
-            // 检查是否有数据，没有则使用默认数据
-            boolean hasData = historyData != null && !historyData.isEmpty();
+            // 今天的数据来自内存中的资源历史，不查询数据库
+            Double[][] today = resourceHistoryStore.today(deviceId);
+            boolean hasData = today != null;
+            if (hasData) {
+                cpuActual = today[0];
+                memActual = today[1];
+                netActual = today[2];
+                storageActual = today[3];
+                cpuPredict = today[4];
+                memPredict = today[5];
+                netPredict = today[6];
+                storagePredict = today[7];
+            }
+
+            // 没有数据时使用默认数据
             if (!hasData) {
                 // 生成模拟的24小时数据
                 java.util.Random rand = new java.util.Random(42);
@@ -824,7 +953,11 @@ public class BigScreenController {
      */
     @GetMapping("/resource-monitor/trend-7days")
     @ApiOperation("获取7天资源使用趋势")
-    public Result<Map<String, Object>> getResourceTrend7Days() {
+    public Result<Map<String, Object>> getResourceTrend7Days(WebRequest request) {
+        return bigScreenSnapshotService.serve("resource-monitor/trend-7days", request);
+    }
+
+    private Result<Map<String, Object>> loadResourceTrend7Days() {
         try {
             Map<String, Object> result = new HashMap<>();
             
@@ -848,17 +981,11 @@ public class BigScreenController {
             
             for (int i = -3; i <= 3; i++) {
                 java.time.LocalDate date = today.plusDays(i);
-                String dateStr = date.toString();
                 int idx = i + 3; // 转换为数组索引 0-6
                 
                 if (i <= 0) {
-                    // 历史数据和今天 - 先查数据库
-                    String sql = "SELECT AVG(cpu_usage) as avg_cpu FROM resource_history WHERE record_date = '" + dateStr + "'";
-                    Double avgCpu = null;
-                    try {
-                        Map<String, Object> row = jdbcTemplate.queryForMap(sql);
-                        avgCpu = row.get("avg_cpu") != null ? ((Number) row.get("avg_cpu")).doubleValue() : null;
-                    } catch (Exception ignored) {}
+                    // 历史数据和今天 - 内存中的按天汇总
+                    Double avgCpu = resourceHistoryStore.dailyCpuAverage(date);
                     
                     if (avgCpu == null) {
                         // 无数据时使用基准值+随机波动
@@ -906,7 +1033,11 @@ public class BigScreenController {
      */
     @GetMapping("/alert-monitor/severity-stats")
     @ApiOperation("获取告警级别统计")
-    public Result<Map<String, Object>> getAlertSeverityStats() {
+    public Result<Map<String, Object>> getAlertSeverityStats(WebRequest request) {
+        return bigScreenSnapshotService.serve("alert-monitor/severity-stats", request);
+    }
+
+    private Result<Map<String, Object>> loadAlertSeverityStats() {
         try {
             Map<String, Object> stats = new HashMap<>();
 
@@ -989,7 +1120,11 @@ public class BigScreenController {
      */
     @GetMapping("/alert-monitor/monthly-trend")
     @ApiOperation("获取本月告警统计")
-    public Result<Map<String, Object>> getMonthlyAlertStats() {
+    public Result<Map<String, Object>> getMonthlyAlertStats(WebRequest request) {
+        return bigScreenSnapshotService.serve("alert-monitor/monthly-trend", request);
+    }
+
+    private Result<Map<String, Object>> loadMonthlyAlertStats() {
         try {
             Map<String, Object> stats = new HashMap<>();
 
@@ -1083,7 +1218,11 @@ public class BigScreenController {
      */
     @GetMapping("/alert-monitor/handle-stats")
     @ApiOperation("获取告警处理情况")
-    public Result<Map<String, Object>> getAlertHandleStats() {
+    public Result<Map<String, Object>> getAlertHandleStats(WebRequest request) {
+        return bigScreenSnapshotService.serve("alert-monitor/handle-stats", request);
+    }
+
+    private Result<Map<String, Object>> loadAlertHandleStats() {
         try {
             Map<String, Object> stats = new HashMap<>();
 
@@ -1143,7 +1282,14 @@ public class BigScreenController {
      */
     @GetMapping("/alert-monitor/30day-trend")
     @ApiOperation("获取30天告警趋势")
-    public Result<Map<String, Object>> get30DayAlertTrend(@RequestParam(defaultValue = "all") String type) {
+    public Result<Map<String, Object>> get30DayAlertTrend(@RequestParam(defaultValue = "all") String type, WebRequest request) {
+        if ("all".equals(type)) {
+            return bigScreenSnapshotService.serve("alert-monitor/30day-trend", request);
+        }
+        return load30DayAlertTrend(type);
+    }
+
+    private Result<Map<String, Object>> load30DayAlertTrend(String type) {
         try {
             Map<String, Object> trend = new HashMap<>();
             LocalDate today = LocalDate.now();
@@ -1215,7 +1361,15 @@ public class BigScreenController {
     @ApiOperation("获取告警列表")
     public Result<List<Map<String, Object>>> getAlertList(
             @RequestParam(defaultValue = "20") Integer limit,
-            @RequestParam(required = false) String severity) {
+            @RequestParam(required = false) String severity,
+            WebRequest request) {
+        if (Integer.valueOf(20).equals(limit) && severity == null) {
+            return bigScreenSnapshotService.serve("alert-monitor/list", request);
+        }
+        return loadAlertList(limit, severity);
+    }
+
+    private Result<List<Map<String, Object>>> loadAlertList(Integer limit, String severity) {
         try {
             QueryWrapper<Alert> query = new QueryWrapper<>();
             query.eq("deleted", 0);
@@ -1260,7 +1414,11 @@ public class BigScreenController {
      */
     @GetMapping("/alert-monitor/radial-stats")
     @ApiOperation("获取告警统计概览数据")
-    public Result<Map<String, Object>> getRadialStats() {
+    public Result<Map<String, Object>> getRadialStats(WebRequest request) {
+        return bigScreenSnapshotService.serve("alert-monitor/radial-stats", request);
+    }
+
+    private Result<Map<String, Object>> loadRadialStats() {
         try {
             Map<String, Object> stats = new HashMap<>();
             LocalDate today = LocalDate.now();
@@ -1328,7 +1486,14 @@ public class BigScreenController {
      */
     @GetMapping("/alert-monitor/recent")
     @ApiOperation("获取最近告警")
-    public Result<List<Map<String, Object>>> getRecentAlerts(@RequestParam(defaultValue = "5") Integer limit) {
+    public Result<List<Map<String, Object>>> getRecentAlerts(@RequestParam(defaultValue = "5") Integer limit, WebRequest request) {
+        if (Integer.valueOf(5).equals(limit)) {
+            return bigScreenSnapshotService.serve("alert-monitor/recent", request);
+        }
+        return loadRecentAlerts(limit);
+    }
+
+    private Result<List<Map<String, Object>>> loadRecentAlerts(Integer limit) {
         try {
             QueryWrapper<Alert> query = new QueryWrapper<>();
             query.eq("deleted", 0);
@@ -1402,7 +1567,15 @@ public class BigScreenController {
     @ApiOperation("获取历史与预测对比数据")
     public Result<Map<String, Object>> getHistoryComparison(
             @RequestParam(defaultValue = "cpu") String metricType,
-            @RequestParam(defaultValue = "7") Integer days) {
+            @RequestParam(defaultValue = "7") Integer days,
+            WebRequest request) {
+        if ("cpu".equals(metricType) && Integer.valueOf(7).equals(days)) {
+            return bigScreenSnapshotService.serve("prediction/history-comparison", request);
+        }
+        return loadHistoryComparison(metricType, days);
+    }
+
+    private Result<Map<String, Object>> loadHistoryComparison(String metricType, Integer days) {
         try {
             String sql = "SELECT DATE(prediction_time) as date, " +
                     "AVG(actual_value) as actual_avg, AVG(predicted_value) as predicted_avg " +
@@ -1442,7 +1615,15 @@ public class BigScreenController {
     @ApiOperation("获取预测准确度热力图数据")
     public Result<Map<String, Object>> getAccuracyHeatmap(
             @RequestParam(defaultValue = "cpu") String metricType,
-            @RequestParam(defaultValue = "7") Integer days) {
+            @RequestParam(defaultValue = "7") Integer days,
+            WebRequest request) {
+        if ("cpu".equals(metricType) && Integer.valueOf(7).equals(days)) {
+            return bigScreenSnapshotService.serve("prediction/accuracy-heatmap", request);
+        }
+        return loadAccuracyHeatmap(metricType, days);
+    }
+
+    private Result<Map<String, Object>> loadAccuracyHeatmap(String metricType, Integer days) {
         try {
             String sql = "SELECT DATE(prediction_time) as date, algorithm_type, " +
                     "AVG(accuracy) as avg_accuracy " +
@@ -1503,7 +1684,15 @@ public class BigScreenController {
     @GetMapping("/prediction/kpi")
     @ApiOperation("获取核心预测指标")
     public Result<Map<String, Object>> getPredictionKpi(
-            @RequestParam(defaultValue = "cpu") String metricType) {
+            @RequestParam(defaultValue = "cpu") String metricType,
+            WebRequest request) {
+        if ("cpu".equals(metricType)) {
+            return bigScreenSnapshotService.serve("prediction/kpi", request);
+        }
+        return loadPredictionKpi(metricType);
+    }
+
+    private Result<Map<String, Object>> loadPredictionKpi(String metricType) {
         try {
             Map<String, Object> result = new HashMap<>();
 
@@ -1576,7 +1765,15 @@ public class BigScreenController {
     @ApiOperation("获取预测误差趋势")
     public Result<Map<String, Object>> getErrorTrend(
             @RequestParam(defaultValue = "cpu") String metricType,
-            @RequestParam(defaultValue = "7") Integer days) {
+            @RequestParam(defaultValue = "7") Integer days,
+            WebRequest request) {
+        if ("cpu".equals(metricType) && Integer.valueOf(7).equals(days)) {
+            return bigScreenSnapshotService.serve("prediction/error-trend", request);
+        }
+        return loadErrorTrend(metricType, days);
+    }
+
+    private Result<Map<String, Object>> loadErrorTrend(String metricType, Integer days) {
         try {
             String sql = "SELECT DATE(prediction_time) as date, algorithm_type, " +
                     "AVG(ABS(predicted_value - actual_value) / actual_value * 100) as avg_error " +
@@ -1633,7 +1830,11 @@ public class BigScreenController {
      */
     @GetMapping("/prediction/alert-distribution")
     @ApiOperation("获取预测性预警分布数据")
-    public Result<List<Map<String, Object>>> getAlertDistribution() {
+    public Result<List<Map<String, Object>>> getAlertDistribution(WebRequest request) {
+        return bigScreenSnapshotService.serve("prediction/alert-distribution", request);
+    }
+
+    private Result<List<Map<String, Object>>> loadAlertDistribution() {
         try {
             String sql = "SELECT alert_level, COUNT(*) as count FROM prediction_alert " +
                     "WHERE deleted = 0 " +
@@ -1675,7 +1876,15 @@ public class BigScreenController {
     @GetMapping("/prediction/alert-list")
     @ApiOperation("获取预测性预警列表")
     public Result<List<Map<String, Object>>> getPredictionAlertList(
-            @RequestParam(required = false) String level) {
+            @RequestParam(required = false) String level,
+            WebRequest request) {
+        if (level == null) {
+            return bigScreenSnapshotService.serve("prediction/alert-list", request);
+        }
+        return loadPredictionAlertList(level);
+    }
+
+    private Result<List<Map<String, Object>>> loadPredictionAlertList(String level) {
         try {
             String sql = "SELECT id, alert_title, alert_message, alert_level, asset_name, " +
                     "metric_name, metric_value, predicted_value, threshold_value, " +
@@ -1730,7 +1939,15 @@ public class BigScreenController {
     @ApiOperation("获取未来预测数据")
     public Result<Map<String, Object>> getFuturePrediction(
             @RequestParam(defaultValue = "cpu") String metricType,
-            @RequestParam(defaultValue = "7") Integer days) {
+            @RequestParam(defaultValue = "7") Integer days,
+            WebRequest request) {
+        if ("cpu".equals(metricType) && Integer.valueOf(7).equals(days)) {
+            return bigScreenSnapshotService.serve("prediction/future", request);
+        }
+        return loadFuturePrediction(metricType, days);
+    }
+
+    private Result<Map<String, Object>> loadFuturePrediction(String metricType, Integer days) {
         try {
             // 获取最近的预测数据用于生成未来预测
             String sql = "SELECT AVG(predicted_value) as avg_pred, AVG(confidence) as avg_conf " +
@@ -1782,7 +1999,11 @@ public class BigScreenController {
      */
     @GetMapping("/prediction/models")
     @ApiOperation("获取预测模型列表")
-    public Result<List<Map<String, Object>>> getPredictionModels() {
+    public Result<List<Map<String, Object>>> getPredictionModels(WebRequest request) {
+        return bigScreenSnapshotService.serve("prediction/models", request);
+    }
+
+    private Result<List<Map<String, Object>>> loadPredictionModels() {
         try {
             String sql = "SELECT id, service_name, algorithm_type, accuracy_rate " +
                     "FROM prediction_model_service WHERE deleted = 0 AND status = 1";
@@ -1801,7 +2022,11 @@ public class BigScreenController {
      */
     @GetMapping("/workorder/kpi")
     @ApiOperation("获取工单监控KPI数据")
-    public Result<Map<String, Object>> getWorkorderKpi() {
+    public Result<Map<String, Object>> getWorkorderKpi(WebRequest request) {
+        return bigScreenSnapshotService.serve("workorder/kpi", request);
+    }
+
+    private Result<Map<String, Object>> loadWorkorderKpi() {
         try {
             Map<String, Object> result = new HashMap<>();
 
@@ -1878,7 +2103,11 @@ public class BigScreenController {
      */
     @GetMapping("/workorder/status-distribution")
     @ApiOperation("获取今日工单状态分布")
-    public Result<Map<String, Object>> getWorkorderStatusDistribution() {
+    public Result<Map<String, Object>> getWorkorderStatusDistribution(WebRequest request) {
+        return bigScreenSnapshotService.serve("workorder/status-distribution", request);
+    }
+
+    private Result<Map<String, Object>> loadWorkorderStatusDistribution() {
         try {
             String sql = "SELECT " +
                     "p.priority_key, p.priority_name, p.priority_level, " +
@@ -1926,7 +2155,11 @@ public class BigScreenController {
      */
     @GetMapping("/workorder/trend")
     @ApiOperation("获取近15天工单趋势")
-    public Result<Map<String, Object>> getWorkorderTrend() {
+    public Result<Map<String, Object>> getWorkorderTrend(WebRequest request) {
+        return bigScreenSnapshotService.serve("workorder/trend", request);
+    }
+
+    private Result<Map<String, Object>> loadWorkorderTrend() {
         try {
             // 获取总体工单数量
             String countSql = "SELECT DATE(created_at) as date, COUNT(*) as count " +
@@ -2012,7 +2245,11 @@ public class BigScreenController {
      */
     @GetMapping("/workorder/source-distribution")
     @ApiOperation("获取工单类型分布")
-    public Result<List<Map<String, Object>>> getWorkorderSourceDistribution() {
+    public Result<List<Map<String, Object>>> getWorkorderSourceDistribution(WebRequest request) {
+        return bigScreenSnapshotService.serve("workorder/source-distribution", request);
+    }
+
+    private Result<List<Map<String, Object>>> loadWorkorderSourceDistribution() {
         try {
             // 改为按工单类型（type_key）分布，与运维管理模块保持一致
             String sql = "SELECT tp.type_name as name, COUNT(t.id) as value " +
@@ -2036,7 +2273,11 @@ public class BigScreenController {
      */
     @GetMapping("/workorder/sla-detail")
     @ApiOperation("获取本月SLA达成率详情")
-    public Result<List<Map<String, Object>>> getWorkorderSlaDetail() {
+    public Result<List<Map<String, Object>>> getWorkorderSlaDetail(WebRequest request) {
+        return bigScreenSnapshotService.serve("workorder/sla-detail", request);
+    }
+
+    private Result<List<Map<String, Object>>> loadWorkorderSlaDetail() {
         try {
             String sql = "SELECT " +
                     "p.priority_key, p.priority_name, p.priority_level, p.sla_target_hours, " +
@@ -2095,7 +2336,15 @@ public class BigScreenController {
     public Result<List<Map<String, Object>>> getWorkorderList(
             @RequestParam(required = false) String priorityKey,
             @RequestParam(required = false) String status,
-            @RequestParam(required = false) String typeKey) {
+            @RequestParam(required = false) String typeKey,
+            WebRequest request) {
+        if (priorityKey == null && status == null && typeKey == null) {
+            return bigScreenSnapshotService.serve("workorder/list", request);
+        }
+        return loadWorkorderList(priorityKey, status, typeKey);
+    }
+
+    private Result<List<Map<String, Object>>> loadWorkorderList(String priorityKey, String status, String typeKey) {
         try {
             StringBuilder sql = new StringBuilder();
             sql.append("SELECT t.id, t.ticket_no, t.title, t.description, ");
@@ -2160,7 +2409,11 @@ public class BigScreenController {
      */
     @GetMapping("/workorder/type-keys")
     @ApiOperation("获取工单类型key映射")
-    public Result<List<Map<String, Object>>> getWorkorderTypeKeys() {
+    public Result<List<Map<String, Object>>> getWorkorderTypeKeys(WebRequest request) {
+        return bigScreenSnapshotService.serve("workorder/type-keys", request);
+    }
+
+    private Result<List<Map<String, Object>>> loadWorkorderTypeKeys() {
         try {
             String sql = "SELECT type_key, type_name FROM ticket_type WHERE deleted = 0 AND is_active = 1";
             List<Map<String, Object>> data = jdbcTemplate.queryForList(sql);
@@ -2190,7 +2443,11 @@ public class BigScreenController {
      */
     @GetMapping("/netops/links")
     @ApiOperation("获取网络链路列表")
-    public Result<List<Map<String, Object>>> getNetworkLinks() {
+    public Result<List<Map<String, Object>>> getNetworkLinks(WebRequest request) {
+        return bigScreenSnapshotService.serve("netops/links", request);
+    }
+
+    private Result<List<Map<String, Object>>> loadNetworkLinks() {
         try {
             String sql = "SELECT id, name, line_type, bandwidth, status FROM network_line WHERE deleted = 0";
             List<Map<String, Object>> data = jdbcTemplate.queryForList(sql);
@@ -2206,39 +2463,25 @@ public class BigScreenController {
      */
     @GetMapping("/netops/kpi")
     @ApiOperation("获取网络状态KPI")
-    public Result<Map<String, Object>> getNetopsKpi(@RequestParam(defaultValue = "0") Long linkId) {
+    public Result<Map<String, Object>> getNetopsKpi(@RequestParam(defaultValue = "0") Long linkId, WebRequest request) {
+        if (Long.valueOf(0).equals(linkId)) {
+            return bigScreenSnapshotService.serve("netops/kpi", request);
+        }
+        return loadNetopsKpi(linkId);
+    }
+
+    private Result<Map<String, Object>> loadNetopsKpi(Long linkId) {
         try {
-            String whereClause = linkId > 0 ? " AND nl.id = " + linkId : "";
-
-            // 获取最新性能数据的平均值（流量单位：TB，放大1000倍以便显示）
-            // 首先尝试获取最近24小时数据，如果没有则获取所有历史数据
-            String baseSql = "SELECT " +
-                    "AVG(lp.latency) as avgLatency, " +
-                    "AVG(lp.packet_loss) as avgLoss, " +
-                    "SUM(lp.bandwidth_in + lp.bandwidth_out) / 1000000000.0 as totalTraffic, " +
-                    "AVG(100 - lp.packet_loss - lp.latency/100) as healthScore, " +
-                    "AVG(lp.bandwidth_usage) as congestion " +
-                    "FROM line_performance lp " +
-                    "JOIN network_line nl ON lp.line_id = nl.id " +
-                    "WHERE nl.deleted = 0 " + whereClause;
-            
-            String sql = baseSql + " AND lp.probe_time >= DATE_SUB(NOW(), INTERVAL 24 HOUR)";
-            Map<String, Object> current = jdbcTemplate.queryForMap(sql);
-            
-            // 如果最近24小时没有数据，使用所有历史数据
-            boolean hasRecentData = current.get("avgLatency") != null;
-            if (!hasRecentData) {
-                current = jdbcTemplate.queryForMap(baseSql);
-            }
+            List<Long> lineIds = activeLineIds(linkId);
 
-            // 获取上一周期数据进行对比
-            String prevSql = baseSql + " AND lp.probe_time < DATE_SUB(NOW(), INTERVAL 24 HOUR)";
-            Map<String, Object> prev;
-            try {
-                prev = jdbcTemplate.queryForMap(prevSql);
-            } catch (Exception e) {
-                prev = new HashMap<>();
-            }
+            // 最近24小时的汇总（流量单位：TB，放大1000倍以便显示），没有数据时使用全部历史
+            RollupStats recent = linePerformanceRollups.lastDay(lineIds);
+            RollupStats lifetime = linePerformanceRollups.lifetime(lineIds);
+            boolean hasRecentData = recent.getCount(LineMetric.LATENCY) > 0;
+            RollupStats current = hasRecentData ? recent : lifetime;
+
+            // 上一周期：24小时之前的全部数据
+            RollupStats prev = lifetime.minus(recent);
 
             Map<String, Object> result = new HashMap<>();
 
@@ -2249,32 +2492,34 @@ public class BigScreenController {
             double defaultHealth = 98.5;
             double defaultCongestion = 45.0;
 
-            double curLatency = current.get("avgLatency") != null ? ((Number) current.get("avgLatency")).doubleValue()
-                    : defaultLatency;
-            double prevLatency = prev.get("avgLatency") != null ? ((Number) prev.get("avgLatency")).doubleValue()
-                    : curLatency * 1.05;
+            Double avgLatency = current.getAvg(LineMetric.LATENCY);
+            Double prevAvgLatency = prev.getAvg(LineMetric.LATENCY);
+            double curLatency = avgLatency != null ? avgLatency : defaultLatency;
+            double prevLatency = prevAvgLatency != null ? prevAvgLatency : curLatency * 1.05;
             result.put("latency", Math.round(curLatency * 10.0) / 10.0);
             result.put("latencyDiff", Math.round((curLatency - prevLatency) * 100.0) / 100.0);
 
-            double curLoss = current.get("avgLoss") != null ? ((Number) current.get("avgLoss")).doubleValue() : defaultLoss;
-            double prevLoss = prev.get("avgLoss") != null ? ((Number) prev.get("avgLoss")).doubleValue() : curLoss * 1.1;
+            Double avgLoss = current.getAvg(LineMetric.PACKET_LOSS);
+            Double prevAvgLoss = prev.getAvg(LineMetric.PACKET_LOSS);
+            double curLoss = avgLoss != null ? avgLoss : defaultLoss;
+            double prevLoss = prevAvgLoss != null ? prevAvgLoss : curLoss * 1.1;
             result.put("loss", Math.round(curLoss * 1000.0) / 1000.0);
             result.put("lossDiff", Math.round((curLoss - prevLoss) * 1000.0) / 1000.0);
 
-            double curTraffic = current.get("totalTraffic") != null
-                    ? ((Number) current.get("totalTraffic")).doubleValue()
-                    : defaultTraffic;
-            double prevTraffic = prev.get("totalTraffic") != null ? ((Number) prev.get("totalTraffic")).doubleValue()
-                    : curTraffic * 0.9;
+            Double totalTraffic = totalTraffic(current);
+            Double prevTotalTraffic = totalTraffic(prev);
+            double curTraffic = totalTraffic != null ? totalTraffic : defaultTraffic;
+            double prevTraffic = prevTotalTraffic != null ? prevTotalTraffic : curTraffic * 0.9;
             result.put("traffic", Math.round(curTraffic * 100.0) / 100.0);
             result.put("trafficDiff", Math.round((curTraffic - prevTraffic) * 100.0) / 100.0);
 
-            double curHealth = current.get("healthScore") != null ? ((Number) current.get("healthScore")).doubleValue()
+            // 健康度：100 - 平均丢包率 - 平均延迟/100
+            double curHealth = avgLatency != null && avgLoss != null ? 100 - avgLoss - avgLatency / 100
                     : defaultHealth;
             result.put("health", Math.min(100, Math.max(0, Math.round(curHealth * 10.0) / 10.0)));
 
-            double congestion = current.get("congestion") != null ? ((Number) current.get("congestion")).doubleValue()
-                    : defaultCongestion;
+            Double avgUsage = current.getAvg(LineMetric.BANDWIDTH_USAGE);
+            double congestion = avgUsage != null ? avgUsage : defaultCongestion;
             result.put("congestion", Math.round(congestion * 100.0) / 100.0);
 
             return Result.success(result);
@@ -2294,52 +2539,63 @@ public class BigScreenController {
         }
     }
 
+    /**
+     * 未删除的专线ID，linkId 大于 0 时只取该专线
+     */
+    private List<Long> activeLineIds(Long linkId) {
+        String sql = "SELECT id FROM network_line WHERE deleted = 0";
+        if (linkId != null && linkId > 0) {
+            return jdbcTemplate.queryForList(sql + " AND id = ?", Long.class, linkId);
+        }
+        return jdbcTemplate.queryForList(sql, Long.class);
+    }
+
+    /**
+     * 总流量（入+出，单位换算同原统计口径），没有数据时返回 null
+     */
+    private static Double totalTraffic(RollupStats stats) {
+        if (stats.getCount(LineMetric.BANDWIDTH_IN) == 0 && stats.getCount(LineMetric.BANDWIDTH_OUT) == 0) {
+            return null;
+        }
+        return (stats.getSum(LineMetric.BANDWIDTH_IN) + stats.getSum(LineMetric.BANDWIDTH_OUT)) / 1000000000.0;
+    }
+
     /**
      * 获取网络流量趋势（24小时）
      */
     @GetMapping("/netops/traffic-trend")
     @ApiOperation("获取网络流量趋势")
-    public Result<Map<String, Object>> getNetopsTrafficTrend(@RequestParam(defaultValue = "0") Long linkId) {
-        try {
-            String whereClause = linkId > 0 ? " AND nl.id = " + linkId : "";
-
-            // 查询流量数据，转换为Gbps（模拟放大到合理范围）
-            String sql = "SELECT " +
-                    "DATE_FORMAT(lp.probe_time, '%H:00') as hour, " +
-                    "AVG(lp.bandwidth_in) / 1000000.0 as inbound, " +
-                    "AVG(lp.bandwidth_out) / 1000000.0 as outbound " +
-                    "FROM line_performance lp " +
-                    "JOIN network_line nl ON lp.line_id = nl.id " +
-                    "WHERE nl.deleted = 0 " + whereClause + " " +
-                    "AND lp.probe_time >= DATE_SUB(NOW(), INTERVAL 24 HOUR) " +
-                    "GROUP BY DATE_FORMAT(lp.probe_time, '%H:00') " +
-                    "ORDER BY hour";
-
-            List<Map<String, Object>> data = jdbcTemplate.queryForList(sql);
+    public Result<Map<String, Object>> getNetopsTrafficTrend(@RequestParam(defaultValue = "0") Long linkId, WebRequest request) {
+        if (Long.valueOf(0).equals(linkId)) {
+            return bigScreenSnapshotService.serve("netops/traffic-trend", request);
+        }
+        return loadNetopsTrafficTrend(linkId);
+    }
 
-            // 计算阈值为数据最大值的120%
-            double maxValue = 0;
-            for (Map<String, Object> row : data) {
-                double in = row.get("inbound") != null ? ((Number) row.get("inbound")).doubleValue() : 0;
-                double out = row.get("outbound") != null ? ((Number) row.get("outbound")).doubleValue() : 0;
-                maxValue = Math.max(maxValue, Math.max(in, out));
-            }
-            double threshold = maxValue > 0 ? Math.round(maxValue * 1.2) : 100;
+    private Result<Map<String, Object>> loadNetopsTrafficTrend(Long linkId) {
+        try {
+            // 最近24小时按小时的流量，转换为Gbps（模拟放大到合理范围）
+            SortedMap<Integer, RollupStats> hourly = linePerformanceRollups.hourOfDay(activeLineIds(linkId));
 
             List<String> hours = new ArrayList<>();
             List<Double> inboundList = new ArrayList<>();
             List<Double> outboundList = new ArrayList<>();
+            double maxValue = 0;
 
-            for (Map<String, Object> row : data) {
-                hours.add((String) row.get("hour"));
-                inboundList.add(row.get("inbound") != null
-                        ? Math.round(((Number) row.get("inbound")).doubleValue() * 10.0) / 10.0
-                        : 0.0);
-                outboundList.add(row.get("outbound") != null
-                        ? Math.round(((Number) row.get("outbound")).doubleValue() * 10.0) / 10.0
-                        : 0.0);
+            for (Map.Entry<Integer, RollupStats> entry : hourly.entrySet()) {
+                Double inAvg = entry.getValue().getAvg(LineMetric.BANDWIDTH_IN);
+                Double outAvg = entry.getValue().getAvg(LineMetric.BANDWIDTH_OUT);
+                double in = inAvg != null ? inAvg / 1000000.0 : 0;
+                double out = outAvg != null ? outAvg / 1000000.0 : 0;
+                maxValue = Math.max(maxValue, Math.max(in, out));
+                hours.add(String.format("%02d:00", entry.getKey()));
+                inboundList.add(Math.round(in * 10.0) / 10.0);
+                outboundList.add(Math.round(out * 10.0) / 10.0);
             }
 
+            // 计算阈值为数据最大值的120%
+            double threshold = maxValue > 0 ? Math.round(maxValue * 1.2) : 100;
+
             Map<String, Object> result = new HashMap<>();
             result.put("hours", hours);
             result.put("inbound", inboundList);
@@ -2358,7 +2614,11 @@ public class BigScreenController {
      */
     @GetMapping("/netops/top-devices")
     @ApiOperation("获取高流量设备Top5")
-    public Result<List<Map<String, Object>>> getTopTrafficDevices() {
+    public Result<List<Map<String, Object>>> getTopTrafficDevices(WebRequest request) {
+        return bigScreenSnapshotService.serve("netops/top-devices", request);
+    }
+
+    private Result<List<Map<String, Object>>> loadTopTrafficDevices() {
         try {
             // 从asset表获取网络设备的流量数据
             String sql = "SELECT a.asset_name as name, " +
@@ -2394,31 +2654,16 @@ public class BigScreenController {
      */
     @GetMapping("/netops/nodes")
     @ApiOperation("获取网络节点状态")
-    public Result<Map<String, Object>> getNetworkNodes() {
-        try {
-            // 从network_line获取所有节点（包括endpoint_a和endpoint_b）
-            String sql = "SELECT endpoint as name, AVG(latency) as latency, AVG(loss) as loss, " +
-                    "AVG(bandwidth) as bandwidth, MAX(status) as status FROM ( " +
-                    "SELECT nl.endpoint_a as endpoint, " +
-                    "(SELECT AVG(latency) FROM line_performance WHERE line_id = nl.id AND probe_time >= DATE_SUB(NOW(), INTERVAL 1 HOUR)) as latency, "
-                    +
-                    "(SELECT AVG(packet_loss) FROM line_performance WHERE line_id = nl.id AND probe_time >= DATE_SUB(NOW(), INTERVAL 1 HOUR)) as loss, "
-                    +
-                    "(SELECT AVG(bandwidth_usage) FROM line_performance WHERE line_id = nl.id AND probe_time >= DATE_SUB(NOW(), INTERVAL 1 HOUR)) as bandwidth, "
-                    +
-                    "nl.status FROM network_line nl WHERE nl.deleted = 0 " +
-                    "UNION ALL " +
-                    "SELECT nl.endpoint_b as endpoint, " +
-                    "(SELECT AVG(latency) FROM line_performance WHERE line_id = nl.id AND probe_time >= DATE_SUB(NOW(), INTERVAL 1 HOUR)) as latency, "
-                    +
-                    "(SELECT AVG(packet_loss) FROM line_performance WHERE line_id = nl.id AND probe_time >= DATE_SUB(NOW(), INTERVAL 1 HOUR)) as loss, "
-                    +
-                    "(SELECT AVG(bandwidth_usage) FROM line_performance WHERE line_id = nl.id AND probe_time >= DATE_SUB(NOW(), INTERVAL 1 HOUR)) as bandwidth, "
-                    +
-                    "nl.status FROM network_line nl WHERE nl.deleted = 0 " +
-                    ") t GROUP BY endpoint";
+    public Result<Map<String, Object>> getNetworkNodes(WebRequest request) {
+        return bigScreenSnapshotService.serve("netops/nodes", request);
+    }
 
-            List<Map<String, Object>> data = jdbcTemplate.queryForList(sql);
+    private Result<Map<String, Object>> loadNetworkNodes() {
+        try {
+            // 从network_line获取所有节点（包括endpoint_a和endpoint_b），性能取各专线最近1小时的汇总
+            String linesSql = "SELECT id, endpoint_a, endpoint_b, status, bandwidth FROM network_line WHERE deleted = 0";
+            List<Map<String, Object>> linesData = jdbcTemplate.queryForList(linesSql);
+            List<Map<String, Object>> data = endpointPerformance(linesData);
 
             // 城市坐标映射
             Map<String, double[]> cityCoords = new HashMap<>();
@@ -2470,12 +2715,9 @@ public class BigScreenController {
                 result.add(node);
             }
 
-            // 获取连接线数据
-            String linksSql = "SELECT endpoint_a, endpoint_b, status, bandwidth FROM network_line WHERE deleted = 0";
-            List<Map<String, Object>> linksData = jdbcTemplate.queryForList(linksSql);
-
+            // 连接线数据
             List<Map<String, Object>> links = new ArrayList<>();
-            for (Map<String, Object> link : linksData) {
+            for (Map<String, Object> link : linesData) {
                 String cityA = extractCity((String) link.get("endpoint_a"));
                 String cityB = extractCity((String) link.get("endpoint_b"));
                 double[] coordsA = cityCoords.getOrDefault(cityA, new double[] { 116.46, 39.92 });
@@ -2503,6 +2745,58 @@ public class BigScreenController {
         }
     }
 
+    /**
+     * 按端点汇总专线最近1小时的平均延迟、丢包率、带宽利用率（没有数据的专线不参与平均），状态取最大值
+     */
+    private List<Map<String, Object>> endpointPerformance(List<Map<String, Object>> lines) {
+        List<RollupStats> lineStats = new ArrayList<>();
+        for (Map<String, Object> line : lines) {
+            Long lineId = ((Number) line.get("id")).longValue();
+            lineStats.add(linePerformanceRollups.lastHour(Collections.singletonList(lineId)));
+        }
+
+        Map<String, List<RollupStats>> endpointStats = new LinkedHashMap<>();
+        Map<String, String> endpointStatus = new HashMap<>();
+        for (String column : new String[] { "endpoint_a", "endpoint_b" }) {
+            for (int i = 0; i < lines.size(); i++) {
+                String endpoint = (String) lines.get(i).get(column);
+                String status = (String) lines.get(i).get("status");
+                endpointStats.computeIfAbsent(endpoint, k -> new ArrayList<>()).add(lineStats.get(i));
+                if (status != null) {
+                    endpointStatus.merge(endpoint, status, (x, y) -> x.compareTo(y) >= 0 ? x : y);
+                }
+            }
+        }
+
+        List<Map<String, Object>> data = new ArrayList<>();
+        for (Map.Entry<String, List<RollupStats>> entry : endpointStats.entrySet()) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("name", entry.getKey());
+            row.put("latency", averageOfAverages(entry.getValue(), LineMetric.LATENCY));
+            row.put("loss", averageOfAverages(entry.getValue(), LineMetric.PACKET_LOSS));
+            row.put("bandwidth", averageOfAverages(entry.getValue(), LineMetric.BANDWIDTH_USAGE));
+            row.put("status", endpointStatus.get(entry.getKey()));
+            data.add(row);
+        }
+        return data;
+    }
+
+    /**
+     * 各汇总平均值的平均，没有数据的汇总跳过，全部没有数据时返回 null
+     */
+    private static Double averageOfAverages(List<RollupStats> statsList, LineMetric metric) {
+        double sum = 0;
+        int count = 0;
+        for (RollupStats stats : statsList) {
+            Double avg = stats.getAvg(metric);
+            if (avg != null) {
+                sum += avg;
+                count++;
+            }
+        }
+        return count == 0 ? null : sum / count;
+    }
+
     /**
      * 从端点名称提取城市
      */
@@ -2522,44 +2816,47 @@ public class BigScreenController {
      */
     @GetMapping("/netops/node-table")
     @ApiOperation("获取网络节点监控表格")
-    public Result<List<Map<String, Object>>> getNetworkNodeTable() {
+    public Result<List<Map<String, Object>>> getNetworkNodeTable(WebRequest request) {
+        return bigScreenSnapshotService.serve("netops/node-table", request);
+    }
+
+    private Result<List<Map<String, Object>>> loadNetworkNodeTable() {
         try {
-            // 首先尝试获取最近1小时数据，如果没有则获取所有历史数据
-            String baseSql = "SELECT " +
-                    "nl.name, nl.endpoint_a, nl.endpoint_b, nl.status as lineStatus, nl.line_type, " +
-                    "AVG(lp.latency) as latency, " +
-                    "AVG(lp.packet_loss) as loss, " +
-                    "AVG(lp.bandwidth_usage) as bandwidth " +
-                    "FROM network_line nl " +
-                    "LEFT JOIN line_performance lp ON nl.id = lp.line_id ";
-            
-            String recentSql = baseSql + "AND lp.probe_time >= DATE_SUB(NOW(), INTERVAL 1 HOUR) " +
-                    "WHERE nl.deleted = 0 " +
-                    "GROUP BY nl.id, nl.name, nl.endpoint_a, nl.endpoint_b, nl.status, nl.line_type";
+            String sql = "SELECT id, name, endpoint_a, endpoint_b, status as lineStatus, line_type " +
+                    "FROM network_line WHERE deleted = 0 ORDER BY id";
+            List<Map<String, Object>> data = jdbcTemplate.queryForList(sql);
 
-            List<Map<String, Object>> data = jdbcTemplate.queryForList(recentSql);
-            
-            // 检查是否有有效数据
-            boolean hasValidData = data.stream().anyMatch(row -> row.get("latency") != null);
+            // 首先取各专线最近1小时的汇总，如果都没有数据则取全部历史
+            List<RollupStats> lineStats = new ArrayList<>();
+            for (Map<String, Object> row : data) {
+                Long lineId = ((Number) row.get("id")).longValue();
+                lineStats.add(linePerformanceRollups.lastHour(Collections.singletonList(lineId)));
+            }
+            boolean hasValidData = lineStats.stream().anyMatch(stats -> stats.getCount(LineMetric.LATENCY) > 0);
             if (!hasValidData) {
-                // 如果最近没有数据，使用所有历史数据
-                String allDataSql = baseSql + 
-                        "WHERE nl.deleted = 0 " +
-                        "GROUP BY nl.id, nl.name, nl.endpoint_a, nl.endpoint_b, nl.status, nl.line_type";
-                data = jdbcTemplate.queryForList(allDataSql);
+                lineStats.clear();
+                for (Map<String, Object> row : data) {
+                    Long lineId = ((Number) row.get("id")).longValue();
+                    lineStats.add(linePerformanceRollups.lifetime(Collections.singletonList(lineId)));
+                }
             }
 
             List<Map<String, Object>> result = new ArrayList<>();
             java.util.Random rand = new java.util.Random();
             
-            for (Map<String, Object> row : data) {
+            for (int i = 0; i < data.size(); i++) {
+                Map<String, Object> row = data.get(i);
+                RollupStats stats = lineStats.get(i);
+                Double avgLatency = stats.getAvg(LineMetric.LATENCY);
+                Double avgLoss = stats.getAvg(LineMetric.PACKET_LOSS);
+                Double avgUsage = stats.getAvg(LineMetric.BANDWIDTH_USAGE);
+                Double latencyMax = stats.getMax(LineMetric.LATENCY);
+                Double latencyP95 = stats.getP95(LineMetric.LATENCY);
+
                 // 如果没有数据，使用合理的默认值
-                double latency = row.get("latency") != null ? ((Number) row.get("latency")).doubleValue() 
-                        : 5 + rand.nextDouble() * 15;
-                double loss = row.get("loss") != null ? ((Number) row.get("loss")).doubleValue() 
-                        : 0.01 + rand.nextDouble() * 0.3;
-                double bandwidth = row.get("bandwidth") != null ? ((Number) row.get("bandwidth")).doubleValue() 
-                        : 20 + rand.nextDouble() * 50;
+                double latency = avgLatency != null ? avgLatency : 5 + rand.nextDouble() * 15;
+                double loss = avgLoss != null ? avgLoss : 0.01 + rand.nextDouble() * 0.3;
+                double bandwidth = avgUsage != null ? avgUsage : 20 + rand.nextDouble() * 50;
                 String dbStatus = (String) row.get("lineStatus");
 
                 String status = "normal";
@@ -2576,6 +2873,8 @@ public class BigScreenController {
                 item.put("lineType", row.get("line_type"));
                 item.put("status", status);
                 item.put("latency", Math.round(latency * 10.0) / 10.0);
+                item.put("latencyMax", latencyMax != null ? Double.valueOf(Math.round(latencyMax * 10.0) / 10.0) : null);
+                item.put("latencyP95", latencyP95 != null ? Double.valueOf(Math.round(latencyP95 * 10.0) / 10.0) : null);
                 item.put("loss", Math.round(loss * 100.0) / 100.0 + "%");
                 item.put("bandwidth", Math.round(bandwidth * 10.0) / 10.0);
                 result.add(item);
@@ -3,6 +3,8 @@ package com.zxb.aiproject.controller;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.zxb.aiproject.common.result.Result;
+import com.zxb.aiproject.config.SyslogProperties;
+import com.zxb.aiproject.dto.LogQueryDTO;
 import com.zxb.aiproject.entity.LogEvent;
 import com.zxb.aiproject.entity.LogRule;
 import com.zxb.aiproject.entity.LogSavedFilter;
@@ -13,9 +15,26 @@ import com.zxb.aiproject.mapper.LogRuleMapper;
 import com.zxb.aiproject.mapper.LogSavedFilterMapper;
 import com.zxb.aiproject.mapper.LogSettingsMapper;
 import com.zxb.aiproject.mapper.SyslogEntryMapper;
+import com.zxb.aiproject.service.SyslogExportService;
+import com.zxb.aiproject.service.SyslogMatchService;
+import com.zxb.aiproject.service.SyslogStatisticsService;
+import com.zxb.aiproject.syslog.SyslogPageCursor;
+import com.zxb.aiproject.syslog.archive.SyslogArchiveStore;
+import com.zxb.aiproject.syslog.export.SyslogExportWriter;
+import com.zxb.aiproject.syslog.forward.SyslogForwarder;
+import com.zxb.aiproject.syslog.index.SyslogCandidateSets;
+import com.zxb.aiproject.syslog.index.SyslogInvertedIndex;
+import com.zxb.aiproject.syslog.stream.SyslogStreamFilter;
+import com.zxb.aiproject.syslog.stream.SyslogStreamHub;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
@@ -23,10 +42,21 @@ import java.util.*;
 /**
  * 日志管理控制器 - 使用真实数据库数据
  */
+@Slf4j
 @RestController
 @RequestMapping("/logs")
 public class LogController {
 
+    /**
+     * 游标分页单页上限
+     */
+    private static final int MAX_KEYSET_PAGE_SIZE = 500;
+
+    /**
+     * 游标分页默认计数上限，超过后只返回“不少于该值”
+     */
+    private static final int KEYSET_COUNT_CAP = 10000;
+
     @Autowired
     private SyslogEntryMapper syslogEntryMapper;
     
@@ -42,6 +72,33 @@ public class LogController {
     @Autowired
     private LogSavedFilterMapper logSavedFilterMapper;
 
+    @Autowired
+    private SyslogMatchService syslogMatchService;
+
+    @Autowired
+    private SyslogInvertedIndex syslogInvertedIndex;
+
+    @Autowired
+    private SyslogCandidateSets syslogCandidateSets;
+
+    @Autowired
+    private SyslogProperties syslogProperties;
+
+    @Autowired
+    private SyslogStatisticsService syslogStatisticsService;
+
+    @Autowired
+    private SyslogForwarder syslogForwarder;
+
+    @Autowired
+    private SyslogExportService syslogExportService;
+
+    @Autowired
+    private SyslogStreamHub syslogStreamHub;
+
+    @Autowired
+    private SyslogArchiveStore syslogArchiveStore;
+
     /**
      * 测试端点
      */
@@ -66,6 +123,11 @@ public class LogController {
 
     /**
      * 分页查询Syslog日志 - 使用真实数据库数据
+     * 传入 cursor 参数（首页传空串）时使用游标分页：按 (received_at, id) 倒序，返回 nextCursor，不做OFFSET；
+     * 总数由 totalMode 控制：capped（默认，最多数到 10000）、estimated（按小时汇总估算，过滤条件超出汇总维度时退回 capped）、
+     * exact（精确COUNT）、none（不计数）。
+     * 不传 cursor 时保持原有 page/pageSize 分页与精确总数。
+     * 早于热数据边界的日志从归档文件读取，排在数据库日志之后，总数为两部分之和。
      */
     @GetMapping("/syslog")
     public Result<Map<String, Object>> getSyslogPage(
@@ -81,131 +143,337 @@ public class LogController {
             @RequestParam(required = false) List<Integer> eventIds,
             @RequestParam(required = false) List<Integer> ruleIds,
             @RequestParam(required = false) String hostname,
-            @RequestParam(required = false) List<String> deviceTypes) {
+            @RequestParam(required = false) List<String> deviceTypes,
+            @RequestParam(required = false) List<Integer> templateIds,
+            @RequestParam(required = false) List<Long> assetIds,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "capped") String totalMode) {
+        LogQueryDTO query = null;
         try {
-            System.out.println("=== 真实数据库查询Syslog ===");
-            System.out.println("Page: " + page + ", PageSize: " + pageSize);
-            System.out.println("StartTime: " + startTime + ", EndTime: " + endTime);
-            System.out.println("Keyword: " + keyword);
-            System.out.println("DeviceTypes: " + deviceTypes);
-            System.out.println("Severities: " + severities);
+            log.debug("查询Syslog: page={}, pageSize={}, cursor={}, startTime={}, endTime={}, keyword={}, " +
+                    "deviceTypes={}, severities={}", page, pageSize, cursor, startTime, endTime, keyword,
+                    deviceTypes, severities);
             
-            // 解析时间参数
-            LocalDateTime startDateTime = null;
-            LocalDateTime endDateTime = null;
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+            query = buildSyslogQuery(startTime, endTime, keyword, sourceIps, facilities, severities,
+                    alertOnly, eventIds, ruleIds, hostname, deviceTypes, templateIds, assetIds);
             
-            if (startTime != null && !startTime.isEmpty()) {
-                startDateTime = LocalDateTime.parse(startTime, formatter);
-            }
-            if (endTime != null && !endTime.isEmpty()) {
-                endDateTime = LocalDateTime.parse(endTime, formatter);
-            }
-            
-            // 转换设备类型筛选参数
-            List<String> dbDeviceTypes = null;
-            if (deviceTypes != null && !deviceTypes.isEmpty()) {
-                dbDeviceTypes = new ArrayList<>();
-                for (String deviceType : deviceTypes) {
-                    // 前端传来的是中文或英文小写，需要转换为数据库中的大写英文
-                    switch (deviceType.toLowerCase()) {
-                        case "server":
-                        case "服务器":
-                            dbDeviceTypes.add("SERVER");
-                            break;
-                        case "network":
-                        case "网络设备":
-                            dbDeviceTypes.add("NETWORK");
-                            break;
-                        case "storage":
-                        case "存储设备":
-                            dbDeviceTypes.add("STORAGE");
-                            break;
-                        case "video":
-                        case "视频设备":
-                            dbDeviceTypes.add("VIDEO");
-                            break;
-                        default:
-                            dbDeviceTypes.add(deviceType.toUpperCase());
-                    }
-                }
+            if (cursor != null) {
+                return Result.success(getSyslogKeysetPage(query, cursor, pageSize, totalMode));
             }
             
             // 创建分页对象
             Page<SyslogEntry> pageObj = new Page<>(page, pageSize);
             
             // 查询数据库
-            IPage<SyslogEntry> result = syslogEntryMapper.selectSyslogPage(
-                pageObj, startDateTime, endDateTime, keyword, sourceIps, 
-                facilities, severities, alertOnly, eventIds, ruleIds, 
-                hostname, dbDeviceTypes
-            );
+            IPage<SyslogEntry> result = syslogEntryMapper.selectSyslogPage(pageObj, query);
             
-            System.out.println("数据库查询结果: 总记录数=" + result.getTotal() + ", 当前页记录数=" + result.getRecords().size());
+            log.debug("Syslog查询结果: 总记录数={}, 当前页记录数={}", result.getTotal(), result.getRecords().size());
             
-            // 处理返回数据，添加严重程度名称
             List<SyslogEntry> records = result.getRecords();
-            for (SyslogEntry entry : records) {
-                entry.setSeverityName(getSeverityName(entry.getSeverity()));
-                // 如果没有规则名称，设置默认值
-                if (entry.getRuleName() == null || entry.getRuleName().isEmpty()) {
-                    entry.setRuleName("规则" + (entry.getMatchedRuleId() != null ? entry.getMatchedRuleId() : "未知"));
+            long total = result.getTotal();
+            if (query.getHotFrom() != null) {
+                // 数据库部分之后接归档部分：本页不满时按越过数据库的偏移量从归档补齐
+                total += syslogArchiveStore.count(query, Long.MAX_VALUE);
+                if (records.size() < pageSize) {
+                    long archiveSkip = Math.max(0, (long) (page - 1) * pageSize - result.getTotal());
+                    records = new ArrayList<>(records);
+                    records.addAll(syslogArchiveStore.search(query, null, null, archiveSkip, pageSize - records.size()));
                 }
             }
+            fillSyslogDisplayFields(records);
             
             // 构建返回结果
             Map<String, Object> resultMap = new HashMap<>();
             resultMap.put("records", records);
-            resultMap.put("total", result.getTotal());
+            resultMap.put("total", total);
             resultMap.put("size", result.getSize());
             resultMap.put("current", result.getCurrent());
-            resultMap.put("pages", result.getPages());
+            resultMap.put("pages", pageSize > 0 ? (total + pageSize - 1) / pageSize : result.getPages());
             
             return Result.success(resultMap);
+        } catch (IllegalArgumentException e) {
+            return Result.error(e.getMessage());
         } catch (Exception e) {
             e.printStackTrace();
             return Result.error("查询日志失败: " + e.getMessage());
+        } finally {
+            syslogCandidateSets.release(query);
+        }
+    }
+
+    /**
+     * 导出Syslog日志，过滤条件同列表查询
+     * 以游标逐行读取并直接写入响应，支持 csv / ndjson / xlsx，csv 与 ndjson 可选 gzip 压缩
+     */
+    @GetMapping("/syslog/export")
+    public void exportSyslog(
+            HttpServletResponse response,
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(defaultValue = "false") Boolean gzip,
+            @RequestParam(required = false) String startTime,
+            @RequestParam(required = false) String endTime,
+            @RequestParam(required = false) String keyword,
+            @RequestParam(required = false) List<String> sourceIps,
+            @RequestParam(required = false) List<Integer> facilities,
+            @RequestParam(required = false) List<Integer> severities,
+            @RequestParam(required = false) Boolean alertOnly,
+            @RequestParam(required = false) List<Integer> eventIds,
+            @RequestParam(required = false) List<Integer> ruleIds,
+            @RequestParam(required = false) String hostname,
+            @RequestParam(required = false) List<String> deviceTypes,
+            @RequestParam(required = false) List<Integer> templateIds,
+            @RequestParam(required = false) List<Long> assetIds) throws IOException {
+        String normalized = SyslogExportWriter.normalizeFormat(format);
+        if (!"csv".equals(normalized) && !"ndjson".equals(normalized) && !"xlsx".equals(normalized)) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "不支持的导出格式: " + format);
+            return;
+        }
+        boolean compress = Boolean.TRUE.equals(gzip) && !"xlsx".equals(normalized);
+        LogQueryDTO query = null;
+        try {
+            query = buildSyslogQuery(startTime, endTime, keyword, sourceIps, facilities, severities,
+                    alertOnly, eventIds, ruleIds, hostname, deviceTypes, templateIds, assetIds);
+            
+            String fileName = "syslog_" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss"))
+                    + "." + normalized + (compress ? ".gz" : "");
+            response.setContentType(compress ? "application/gzip" : SyslogExportWriter.contentType(normalized));
+            response.setHeader("Content-Disposition", "attachment; filename=" +
+                    URLEncoder.encode(fileName, StandardCharsets.UTF_8.name()));
+            
+            syslogExportService.exportSyslog(query, normalized, compress, response.getOutputStream());
+        } catch (IllegalArgumentException e) {
+            if (!response.isCommitted()) {
+                response.reset();
+                response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+            }
+        } catch (Exception e) {
+            log.error("导出日志失败", e);
+            // 已开始写出时无法再返回错误信息，客户端会收到不完整的文件
+            if (!response.isCommitted()) {
+                response.reset();
+                response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "导出日志失败: " + e.getMessage());
+            }
+        } finally {
+            syslogCandidateSets.release(query);
+        }
+    }
+
+    /**
+     * 实时日志推送（SSE）
+     * 传 filterId 使用保存的过滤器，否则按临时条件过滤；新入库的日志以 logs 事件（数组）推送，
+     * 客户端消费过慢被丢弃时推送 dropped 事件（丢弃条数），订阅失败时推送 error 事件后结束。
+     */
+    @GetMapping("/stream")
+    public SseEmitter streamSyslog(
+            @RequestParam(required = false) Integer filterId,
+            @RequestParam(required = false) List<String> sourceIps,
+            @RequestParam(required = false) List<Integer> facilities,
+            @RequestParam(required = false) List<Integer> severities,
+            @RequestParam(required = false) List<String> deviceTypes,
+            @RequestParam(required = false) List<String> includeKeywords,
+            @RequestParam(required = false) List<String> excludeKeywords) {
+        try {
+            SyslogStreamFilter filter;
+            if (filterId != null) {
+                LogSavedFilter savedFilter = logSavedFilterMapper.selectById(filterId);
+                if (savedFilter == null) {
+                    return streamError("过滤器不存在");
+                }
+                filter = SyslogStreamFilter.fromSavedFilter(savedFilter);
+            } else {
+                filter = SyslogStreamFilter.of(sourceIps, facilities, severities, deviceTypes,
+                        includeKeywords, excludeKeywords);
+            }
+            return syslogStreamHub.subscribe(filter);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return streamError(e.getMessage());
+        } catch (Exception e) {
+            log.error("订阅实时日志失败", e);
+            return streamError("订阅实时日志失败: " + e.getMessage());
+        }
+    }
+
+    private SseEmitter streamError(String message) {
+        SseEmitter emitter = new SseEmitter();
+        try {
+            emitter.send(SseEmitter.event().name("error").data(Result.error(message)));
+            emitter.complete();
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+        }
+        return emitter;
+    }
+
+    /**
+     * 游标分页：多取一条判断是否还有下一页
+     */
+    private Map<String, Object> getSyslogKeysetPage(LogQueryDTO query, String cursor, Integer pageSize, String totalMode)
+            throws IOException {
+        int size = pageSize == null || pageSize <= 0 ? 15 : Math.min(pageSize, MAX_KEYSET_PAGE_SIZE);
+        if (!cursor.isEmpty()) {
+            SyslogPageCursor pageCursor = SyslogPageCursor.decode(cursor);
+            query.setCursorTime(pageCursor.getReceivedAt());
+            query.setCursorId(pageCursor.getId());
+        }
+        
+        List<SyslogEntry> records = syslogEntryMapper.selectSyslogKeyset(query, size + 1);
+        if (records.size() <= size && query.getHotFrom() != null) {
+            // 数据库部分已取完，从归档接着取；归档日志都早于热数据边界，游标在数据库部分时对归档不起限制
+            records = new ArrayList<>(records);
+            records.addAll(syslogArchiveStore.search(query, query.getCursorTime(), query.getCursorId(),
+                    0, size + 1 - records.size()));
+        }
+        boolean hasMore = records.size() > size;
+        if (hasMore) {
+            records = new ArrayList<>(records.subList(0, size));
+        }
+        fillSyslogDisplayFields(records);
+        
+        String nextCursor = null;
+        if (hasMore) {
+            SyslogEntry last = records.get(records.size() - 1);
+            nextCursor = new SyslogPageCursor(last.getReceivedAt(), last.getId()).encode();
+        }
+        
+        Map<String, Object> resultMap = new HashMap<>();
+        resultMap.put("records", records);
+        resultMap.put("size", size);
+        resultMap.put("hasMore", hasMore);
+        resultMap.put("nextCursor", nextCursor);
+        
+        // 总数与游标无关，只在首页计算
+        if (cursor.isEmpty()) {
+            query.setCursorTime(null);
+            query.setCursorId(null);
+            Long estimated = "estimated".equalsIgnoreCase(totalMode)
+                    ? syslogStatisticsService.estimateLogCount(query) : null;
+            if (estimated != null) {
+                resultMap.put("total", estimated);
+                resultMap.put("totalExact", false);
+                resultMap.put("totalEstimated", true);
+            } else if ("exact".equalsIgnoreCase(totalMode)) {
+                long total = syslogEntryMapper.countSyslog(query);
+                if (query.getHotFrom() != null) {
+                    total += syslogArchiveStore.count(query, Long.MAX_VALUE);
+                }
+                resultMap.put("total", total);
+                resultMap.put("totalExact", true);
+            } else if (!"none".equalsIgnoreCase(totalMode)) {
+                long total = syslogEntryMapper.countSyslogCapped(query, KEYSET_COUNT_CAP);
+                if (query.getHotFrom() != null && total < KEYSET_COUNT_CAP) {
+                    total += syslogArchiveStore.count(query, KEYSET_COUNT_CAP - total);
+                }
+                resultMap.put("total", total);
+                resultMap.put("totalExact", total < KEYSET_COUNT_CAP);
+            }
         }
+        return resultMap;
     }
 
     /**
-     * 获取统计汇总数据
+     * 组装日志查询条件；关键字先经倒排索引解析为候选ID，无法解析时回退为LIKE全表匹配
+     */
+    private LogQueryDTO buildSyslogQuery(String startTime, String endTime, String keyword, List<String> sourceIps,
+                                         List<Integer> facilities, List<Integer> severities, Boolean alertOnly,
+                                         List<Integer> eventIds, List<Integer> ruleIds, String hostname,
+                                         List<String> deviceTypes, List<Integer> templateIds,
+                                         List<Long> assetIds) {
+        LogQueryDTO query = new LogQueryDTO();
+        
+        // 解析时间参数
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+        if (startTime != null && !startTime.isEmpty()) {
+            query.setStartTime(LocalDateTime.parse(startTime, formatter));
+        }
+        if (endTime != null && !endTime.isEmpty()) {
+            query.setEndTime(LocalDateTime.parse(endTime, formatter));
+        }
+        
+        // 转换设备类型筛选参数
+        List<String> dbDeviceTypes = null;
+        if (deviceTypes != null && !deviceTypes.isEmpty()) {
+            dbDeviceTypes = new ArrayList<>();
+            for (String deviceType : deviceTypes) {
+                // 前端传来的是中文或英文小写，需要转换为数据库中的大写英文
+                switch (deviceType.toLowerCase()) {
+                    case "server":
+                    case "服务器":
+                        dbDeviceTypes.add("SERVER");
+                        break;
+                    case "network":
+                    case "网络设备":
+                        dbDeviceTypes.add("NETWORK");
+                        break;
+                    case "storage":
+                    case "存储设备":
+                        dbDeviceTypes.add("STORAGE");
+                        break;
+                    case "video":
+                    case "视频设备":
+                        dbDeviceTypes.add("VIDEO");
+                        break;
+                    default:
+                        dbDeviceTypes.add(deviceType.toUpperCase());
+                }
+            }
+        }
+        
+        query.setKeyword(keyword);
+        query.setSourceIps(sourceIps);
+        query.setFacilities(facilities);
+        query.setSeverities(severities);
+        query.setAlertOnly(alertOnly);
+        query.setEventIds(eventIds);
+        query.setRuleIds(ruleIds);
+        query.setHostname(hostname);
+        query.setDeviceTypes(dbDeviceTypes);
+        query.setTemplateIds(templateIds);
+        query.setAssetIds(assetIds);
+        query.setHotFrom(syslogArchiveStore.getHotFrom());
+        
+        if (keyword != null && !keyword.isEmpty()) {
+            SyslogInvertedIndex.SearchResult indexResult =
+                    syslogInvertedIndex.search(keyword, query.getStartTime(), query.getEndTime());
+            if (indexResult != null) {
+                query.setCandidateIds(indexResult.getCandidateIds());
+                query.setIndexedFromId(indexResult.getIndexedFromId());
+                query.setIndexedFromTime(indexResult.getIndexedFromTime());
+                syslogCandidateSets.attach(query, syslogProperties.getIndex().getInlineCandidates());
+            }
+        }
+        return query;
+    }
+
+    /**
+     * 处理返回数据，添加严重程度名称
+     */
+    private void fillSyslogDisplayFields(List<SyslogEntry> records) {
+        for (SyslogEntry entry : records) {
+            entry.setSeverityName(getSeverityName(entry.getSeverity()));
+            // 如果没有规则名称，设置默认值
+            if (entry.getRuleName() == null || entry.getRuleName().isEmpty()) {
+                entry.setRuleName("规则" + (entry.getMatchedRuleId() != null ? entry.getMatchedRuleId() : "未知"));
+            }
+        }
+    }
+
+    /**
+     * 获取统计汇总数据，来源数默认为估算值，exact=true 时精确统计；timeField 为 received_at 或 event_time
      */
     @GetMapping("/statistics/summary")
     public Result<Map<String, Object>> getStatisticsSummary(
             @RequestParam String startTime,
             @RequestParam String endTime,
-            @RequestParam(defaultValue = "received_at") String timeField) {
+            @RequestParam(defaultValue = "received_at") String timeField,
+            @RequestParam(defaultValue = "false") Boolean exact) {
         try {
-            Map<String, Object> summary = new HashMap<>();
-            
             // 解析时间
             DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
             LocalDateTime startDateTime = LocalDateTime.parse(startTime, formatter);
             LocalDateTime endDateTime = LocalDateTime.parse(endTime, formatter);
             
-            long totalLogs = syslogEntryMapper.countLogsByTimeRange(startDateTime, endDateTime);
-            long totalDevices = syslogEntryMapper.countDistinctSourcesByTimeRange(startDateTime, endDateTime);
-            List<Map<String, Object>> severityDistribution = syslogEntryMapper.selectSeverityDistribution(startDateTime, endDateTime);
-            long alertCount = severityDistribution.stream()
-                    .filter(item -> {
-                        Integer severity = (Integer) item.get("severity");
-                        return severity != null && severity <= 2; // 紧急、告警、严重
-                    })
-                    .mapToLong(item -> ((Number) item.get("log_count")).longValue())
-                    .sum();
-            long errorCount = severityDistribution.stream()
-                    .filter(item -> {
-                        Integer severity = (Integer) item.get("severity");
-                        return severity != null && severity <= 3; // 包含错误级别
-                    })
-                    .mapToLong(item -> ((Number) item.get("log_count")).longValue())
-                    .sum();
-            
-            summary.put("totalLogs", totalLogs);
-            summary.put("totalDevices", totalDevices);
-            summary.put("alertCount", alertCount);
-            summary.put("errorCount", errorCount);
+            Map<String, Object> summary = syslogStatisticsService.getSummary(startDateTime, endDateTime,
+                    timeField, Boolean.TRUE.equals(exact));
             
             return Result.success(summary);
         } catch (Exception e) {
@@ -226,7 +494,7 @@ public class LogController {
             LocalDateTime startDateTime = LocalDateTime.parse(startTime, formatter);
             LocalDateTime endDateTime = LocalDateTime.parse(endTime, formatter);
             
-            List<Map<String, Object>> trendData = syslogEntryMapper.selectLogTrend(startDateTime, endDateTime);
+            List<Map<String, Object>> trendData = syslogStatisticsService.getHourlyTrend(startDateTime, endDateTime);
             
             Map<String, Object> trend = new HashMap<>();
             trend.put("hourlyData", trendData);
@@ -239,26 +507,35 @@ public class LogController {
     }
 
     /**
-     * 获取来源TOP5
+     * 获取来源TOP5，计数默认为估算值（errors 为每项的最大高估量），exact=true 时精确统计
      */
     @GetMapping("/statistics/sources")
     public Result<Map<String, Object>> getTopSources(@RequestParam String startTime,
                                                      @RequestParam String endTime,
-                                                     @RequestParam(defaultValue = "5") Integer limit) {
+                                                     @RequestParam(defaultValue = "5") Integer limit,
+                                                     @RequestParam(defaultValue = "false") Boolean exact) {
         try {
             DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
             LocalDateTime startDateTime = LocalDateTime.parse(startTime, formatter);
             LocalDateTime endDateTime = LocalDateTime.parse(endTime, formatter);
-            List<Map<String, Object>> rows = syslogEntryMapper.selectTopSources(startDateTime, endDateTime, limit);
+            List<Map<String, Object>> rows = syslogStatisticsService.getTopSources(startDateTime, endDateTime, limit,
+                    Boolean.TRUE.equals(exact));
             List<String> labels = new ArrayList<>();
             List<Long> values = new ArrayList<>();
+            List<Long> errors = new ArrayList<>();
+            long maxError = 0;
             for (Map<String, Object> row : rows) {
                 labels.add((String) row.getOrDefault("source_ip", "未知"));
                 values.add(((Number) row.getOrDefault("log_count", 0)).longValue());
+                long error = ((Number) row.getOrDefault("max_error", 0)).longValue();
+                errors.add(error);
+                maxError = Math.max(maxError, error);
             }
             Map<String, Object> payload = new HashMap<>();
             payload.put("labels", labels);
             payload.put("values", values);
+            payload.put("errors", errors);
+            payload.put("approximate", maxError > 0);
             return Result.success(payload);
         } catch (Exception e) {
             return Result.error("获取来源统计失败: " + e.getMessage());
@@ -275,7 +552,7 @@ public class LogController {
             DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
             LocalDateTime startDateTime = LocalDateTime.parse(startTime, formatter);
             LocalDateTime endDateTime = LocalDateTime.parse(endTime, formatter);
-            List<Map<String, Object>> rows = syslogEntryMapper.selectSeverityDistribution(startDateTime, endDateTime);
+            List<Map<String, Object>> rows = syslogStatisticsService.getSeverityDistribution(startDateTime, endDateTime);
             List<String> labels = new ArrayList<>();
             List<Long> values = new ArrayList<>();
             for (Map<String, Object> row : rows) {
@@ -302,7 +579,7 @@ public class LogController {
             DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
             LocalDateTime startDateTime = LocalDateTime.parse(startTime, formatter);
             LocalDateTime endDateTime = LocalDateTime.parse(endTime, formatter);
-            List<Map<String, Object>> rows = syslogEntryMapper.selectDeviceTypeDistribution(startDateTime, endDateTime);
+            List<Map<String, Object>> rows = syslogStatisticsService.getDeviceTypeDistribution(startDateTime, endDateTime);
             List<String> labels = new ArrayList<>();
             List<Long> values = new ArrayList<>();
             List<String> deviceTypes = new ArrayList<>();
@@ -333,7 +610,7 @@ public class LogController {
             DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
             LocalDateTime startDateTime = LocalDateTime.parse(startTime, formatter);
             LocalDateTime endDateTime = LocalDateTime.parse(endTime, formatter);
-            List<Map<String, Object>> rows = syslogEntryMapper.selectTopMatchedRules(startDateTime, endDateTime, limit);
+            List<Map<String, Object>> rows = syslogStatisticsService.getTopRules(startDateTime, endDateTime, limit);
             List<String> labels = new ArrayList<>();
             List<Long> values = new ArrayList<>();
             List<Integer> ruleIds = new ArrayList<>();
@@ -352,6 +629,63 @@ public class LogController {
         }
     }
 
+    /**
+     * 获取日志模板Top N
+     */
+    @GetMapping("/statistics/templates")
+    public Result<Map<String, Object>> getTopTemplates(@RequestParam String startTime,
+                                                       @RequestParam String endTime,
+                                                       @RequestParam(defaultValue = "10") Integer limit) {
+        try {
+            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+            LocalDateTime startDateTime = LocalDateTime.parse(startTime, formatter);
+            LocalDateTime endDateTime = LocalDateTime.parse(endTime, formatter);
+            List<Map<String, Object>> rows = syslogStatisticsService.getTopTemplates(startDateTime, endDateTime, limit);
+            return Result.success(toTemplatePayload(rows));
+        } catch (Exception e) {
+            return Result.error("获取模板统计失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 获取时间范围内新出现的日志模板，按首次出现时间倒序
+     */
+    @GetMapping("/statistics/templates/new")
+    public Result<Map<String, Object>> getNewTemplates(@RequestParam String startTime,
+                                                       @RequestParam String endTime,
+                                                       @RequestParam(defaultValue = "20") Integer limit) {
+        try {
+            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+            LocalDateTime startDateTime = LocalDateTime.parse(startTime, formatter);
+            LocalDateTime endDateTime = LocalDateTime.parse(endTime, formatter);
+            List<Map<String, Object>> rows = syslogStatisticsService.getNewTemplates(startDateTime, endDateTime, limit);
+            return Result.success(toTemplatePayload(rows));
+        } catch (Exception e) {
+            return Result.error("获取新增模板失败: " + e.getMessage());
+        }
+    }
+
+    private Map<String, Object> toTemplatePayload(List<Map<String, Object>> rows) {
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+        List<String> labels = new ArrayList<>();
+        List<Long> values = new ArrayList<>();
+        List<Integer> templateIds = new ArrayList<>();
+        List<String> firstSeenAt = new ArrayList<>();
+        for (Map<String, Object> row : rows) {
+            labels.add((String) row.get("template"));
+            values.add(((Number) row.getOrDefault("log_count", 0)).longValue());
+            templateIds.add((Integer) row.get("template_id"));
+            LocalDateTime firstSeen = (LocalDateTime) row.get("first_seen_at");
+            firstSeenAt.add(firstSeen == null ? null : firstSeen.format(formatter));
+        }
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("labels", labels);
+        payload.put("values", values);
+        payload.put("templateIds", templateIds);
+        payload.put("firstSeenAt", firstSeenAt);
+        return payload;
+    }
+
     /**
      * 获取保存的过滤器列表
      */
@@ -549,6 +883,7 @@ public class LogController {
                 settings.setCreatedAt(existingSettings.getCreatedAt());
                 logSettingsMapper.updateById(settings);
             }
+            syslogForwarder.reloadSettings();
             
             return Result.success("设置保存成功");
         } catch (Exception e) {
@@ -567,6 +902,7 @@ public class LogController {
             rule.setIsEnabled(true); // 默认启用
             
             logRuleMapper.insert(rule);
+            syslogMatchService.reloadRules();
             return Result.success("规则创建成功");
         } catch (Exception e) {
             return Result.error("创建规则失败: " + e.getMessage());
@@ -605,12 +941,37 @@ public class LogController {
             rule.setCreatedAt(existingRule.getCreatedAt());
             
             logRuleMapper.updateById(rule);
+            syslogMatchService.reloadRules();
             return Result.success("规则更新成功");
         } catch (Exception e) {
             return Result.error("更新规则失败: " + e.getMessage());
         }
     }
     
+    /**
+     * 启用/停用规则
+     */
+    @PutMapping("/rules/{id}/status")
+    public Result<String> toggleRuleStatus(@PathVariable Integer id, @RequestParam Boolean enabled) {
+        try {
+            LogRule existingRule = logRuleMapper.selectById(id);
+            if (existingRule == null) {
+                return Result.error("规则不存在");
+            }
+            
+            LogRule rule = new LogRule();
+            rule.setId(id);
+            rule.setIsEnabled(enabled);
+            rule.setUpdatedAt(LocalDateTime.now());
+            
+            logRuleMapper.updateById(rule);
+            syslogMatchService.reloadRules();
+            return Result.success(Boolean.TRUE.equals(enabled) ? "规则已启用" : "规则已停用");
+        } catch (Exception e) {
+            return Result.error("更新规则状态失败: " + e.getMessage());
+        }
+    }
+    
     /**
      * 删除规则
      */
@@ -623,6 +984,7 @@ public class LogController {
             }
             
             logRuleMapper.deleteById(id);
+            syslogMatchService.reloadRules();
             return Result.success("规则删除成功");
         } catch (Exception e) {
             return Result.error("删除规则失败: " + e.getMessage());
@@ -0,0 +1,125 @@
+package com.zxb.aiproject.controller;
+
+import com.zxb.aiproject.common.result.Result;
+import com.zxb.aiproject.service.SyslogMatchService;
+import com.zxb.aiproject.syslog.SyslogHourlyRollup;
+import com.zxb.aiproject.syslog.SyslogIngestMetrics;
+import com.zxb.aiproject.syslog.SyslogIngestPipeline;
+import com.zxb.aiproject.syslog.SyslogPartitionManager;
+import com.zxb.aiproject.syslog.alert.SyslogAlertCorrelator;
+import com.zxb.aiproject.syslog.archive.SyslogArchiveStore;
+import com.zxb.aiproject.syslog.asset.SyslogAssetIndex;
+import com.zxb.aiproject.syslog.forward.SyslogForwarder;
+import com.zxb.aiproject.syslog.index.SyslogInvertedIndex;
+import com.zxb.aiproject.syslog.sketch.SyslogSourceSketches;
+import com.zxb.aiproject.syslog.storm.SyslogStormGuard;
+import com.zxb.aiproject.syslog.stream.SyslogStreamHub;
+import com.zxb.aiproject.syslog.template.SyslogTemplateMiner;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Syslog接入链路监控控制器
+ */
+@RestController
+@RequestMapping("/logs/ingest")
+public class SyslogIngestController {
+
+    @Autowired
+    private SyslogIngestMetrics syslogIngestMetrics;
+
+    @Autowired
+    private SyslogIngestPipeline syslogIngestPipeline;
+
+    @Autowired
+    private SyslogMatchService syslogMatchService;
+
+    @Autowired
+    private SyslogInvertedIndex syslogInvertedIndex;
+
+    @Autowired
+    private SyslogHourlyRollup syslogHourlyRollup;
+
+    @Autowired
+    private SyslogPartitionManager syslogPartitionManager;
+
+    @Autowired
+    private SyslogForwarder syslogForwarder;
+
+    @Autowired
+    private SyslogStreamHub syslogStreamHub;
+
+    @Autowired
+    private SyslogStormGuard syslogStormGuard;
+
+    @Autowired
+    private SyslogArchiveStore syslogArchiveStore;
+
+    @Autowired
+    private SyslogSourceSketches syslogSourceSketches;
+
+    @Autowired
+    private SyslogTemplateMiner syslogTemplateMiner;
+
+    @Autowired
+    private SyslogAssetIndex syslogAssetIndex;
+
+    @Autowired
+    private SyslogAlertCorrelator syslogAlertCorrelator;
+
+    /**
+     * 获取接收/解析/丢弃/入库/匹配计数、队列状态、补偿扫描进度、倒排索引、小时汇总、来源概要、模板提取、转发、实时推送、风暴抑制与告警关联状态
+     */
+    @GetMapping("/metrics")
+    public Result<Map<String, Object>> getMetrics() {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.putAll(syslogIngestMetrics.snapshot());
+        data.putAll(syslogIngestPipeline.getQueueStatus());
+        data.putAll(syslogMatchService.getSweepStatus());
+        data.putAll(syslogInvertedIndex.getStats());
+        data.putAll(syslogHourlyRollup.getStats());
+        data.putAll(syslogSourceSketches.getStats());
+        data.putAll(syslogTemplateMiner.getStats());
+        data.putAll(syslogAssetIndex.getStats());
+        data.putAll(syslogForwarder.getStats());
+        data.putAll(syslogStreamHub.getStats());
+        data.putAll(syslogStormGuard.getStats());
+        data.putAll(syslogAlertCorrelator.getStats());
+        return Result.success(data);
+    }
+
+    /**
+     * 获取日志表分区状态、最近一次过期清理结果与冷数据归档状态
+     */
+    @GetMapping("/partitions")
+    public Result<Map<String, Object>> getPartitions() {
+        try {
+            Map<String, Object> data = new LinkedHashMap<>(syslogPartitionManager.getStatus());
+            data.putAll(syslogArchiveStore.getStatus());
+            return Result.success(data);
+        } catch (Exception e) {
+            return Result.error("获取分区状态失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 管理员手动把未分区的日志表改造为分区表（后台执行，复制整表、期间写入阻塞，须在维护窗口操作）
+     */
+    @PostMapping("/partitions/migrate")
+    public Result<Map<String, Object>> migratePartitions() {
+        try {
+            boolean started = syslogPartitionManager.startMigration();
+            Map<String, Object> data = new LinkedHashMap<>(syslogPartitionManager.getStatus());
+            data.put("started", started);
+            return Result.success(data);
+        } catch (Exception e) {
+            return Result.error("启动分区改造失败: " + e.getMessage());
+        }
+    }
+}
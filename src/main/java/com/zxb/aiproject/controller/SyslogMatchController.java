@@ -2,9 +2,12 @@ package com.zxb.aiproject.controller;
 
 import com.zxb.aiproject.common.result.Result;
 import com.zxb.aiproject.service.SyslogMatchService;
+import com.zxb.aiproject.syslog.SyslogRematchJob;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Map;
+
 /**
  * Syslog日志匹配控制器
  */
@@ -15,6 +18,9 @@ public class SyslogMatchController {
     @Autowired
     private SyslogMatchService syslogMatchService;
 
+    @Autowired
+    private SyslogRematchJob syslogRematchJob;
+
     /**
      * 批量匹配未匹配的日志
      * @param limit 处理数量限制（可选，默认100）
@@ -32,16 +38,45 @@ public class SyslogMatchController {
     }
 
     /**
-     * 重新匹配所有日志（慎用，会清空所有已有匹配结果）
+     * 启动全量重新匹配后台任务
+     * @param resume 是否从最近一次被取消或失败任务的检查点继续（默认新建任务）
      */
     @PostMapping("/rematch-all")
-    public Result<Integer> rematchAllLogs() {
+    public Result<Map<String, Object>> rematchAllLogs(
+            @RequestParam(required = false, defaultValue = "false") Boolean resume) {
         try {
-            int matchedCount = syslogMatchService.rematchAllLogs();
-            return Result.success("重新匹配完成，成功匹配 " + matchedCount + " 条日志", matchedCount);
+            Map<String, Object> status = syslogRematchJob.start(Boolean.TRUE.equals(resume));
+            return Result.success("重新匹配任务已启动", status);
         } catch (Exception e) {
             e.printStackTrace();
-            return Result.error("重新匹配失败: " + e.getMessage());
+            return Result.error("启动重新匹配任务失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 查询重新匹配任务进度
+     */
+    @GetMapping("/rematch-all/status")
+    public Result<Map<String, Object>> getRematchStatus() {
+        try {
+            return Result.success(syslogRematchJob.getStatus());
+        } catch (Exception e) {
+            return Result.error("查询重新匹配任务失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 取消重新匹配任务（保留检查点，可通过 resume=true 继续）
+     */
+    @PostMapping("/rematch-all/cancel")
+    public Result<Map<String, Object>> cancelRematch() {
+        try {
+            if (!syslogRematchJob.cancel()) {
+                return Result.error("没有正在运行的重新匹配任务");
+            }
+            return Result.success("已请求取消，进行中的分片完成后停止", syslogRematchJob.getStatus());
+        } catch (Exception e) {
+            return Result.error("取消重新匹配任务失败: " + e.getMessage());
         }
     }
 }
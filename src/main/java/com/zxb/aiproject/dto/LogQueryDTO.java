@@ -66,6 +66,16 @@ public class LogQueryDTO {
      */
     private List<String> deviceTypes;
 
+    /**
+     * 日志模板ID列表
+     */
+    private List<Integer> templateIds;
+
+    /**
+     * 资产ID列表（按来源IP关联）
+     */
+    private List<Long> assetIds;
+
     /**
      * 页码
      */
@@ -80,4 +90,39 @@ public class LogQueryDTO {
      * 保存的过滤器ID
      */
     private Integer filterId;
+
+    /**
+     * 倒排索引解析出的关键字候选ID，null 表示不使用索引
+     */
+    private List<Long> candidateIds;
+
+    /**
+     * 倒排索引覆盖的起始ID，小于该ID的日志仍按LIKE条件匹配
+     */
+    private Long indexedFromId;
+
+    /**
+     * 接收时间早于该时间的日志所在索引分区已删除，仍按LIKE条件匹配；null 表示不限
+     */
+    private LocalDateTime indexedFromTime;
+
+    /**
+     * 候选ID较多时写入暂存表，按该候选集ID关联（此时 candidateIds 为 null）
+     */
+    private Long candidateSetId;
+
+    /**
+     * 游标分页：上一页最后一条的接收时间
+     */
+    private LocalDateTime cursorTime;
+
+    /**
+     * 游标分页：上一页最后一条的ID
+     */
+    private Long cursorId;
+
+    /**
+     * 热数据边界：早于该时间的日志已转入归档，数据库查询只取该时间之后的日志，由服务端填充
+     */
+    private LocalDateTime hotFrom;
 }
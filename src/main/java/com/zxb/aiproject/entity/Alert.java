@@ -82,6 +82,25 @@ public class Alert implements Serializable {
      */
     private LocalDateTime occurredTime;
 
+    /**
+     * 最近一次发生时间（日志关联告警在窗口内持续出现时刷新）
+     * 日志关联告警的字段不参与通用查询，未补齐字段的库不影响告警增删改查
+     */
+    @TableField(select = false)
+    private LocalDateTime lastOccurredTime;
+
+    /**
+     * 发生次数
+     */
+    @TableField(select = false)
+    private Integer occurrenceCount;
+
+    /**
+     * 日志关联键（资产+事件），非日志产生的告警为空
+     */
+    @TableField(select = false)
+    private String correlationKey;
+
     /**
      * 确认时间
      */
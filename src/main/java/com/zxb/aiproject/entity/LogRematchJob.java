@@ -0,0 +1,91 @@
+package com.zxb.aiproject.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.time.LocalDateTime;
+
+/**
+ * 日志重新匹配任务实体类（断点续跑检查点）
+ */
+@Data
+@EqualsAndHashCode(callSuper = false)
+@TableName("t_log_rematch_job")
+public class LogRematchJob {
+
+    @TableId(value = "id", type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 任务状态：RUNNING / COMPLETED / CANCELLED / FAILED
+     */
+    @TableField("status")
+    private String status;
+
+    /**
+     * 起始ID（不含）
+     */
+    @TableField("start_id")
+    private Long startId;
+
+    /**
+     * 检查点：该ID及之前的日志均已处理
+     */
+    @TableField("last_id")
+    private Long lastId;
+
+    /**
+     * 任务创建时的最大日志ID，之后入库的日志已在入库时按当前规则匹配
+     */
+    @TableField("max_id")
+    private Long maxId;
+
+    /**
+     * 已扫描条数
+     */
+    @TableField("scanned_count")
+    private Long scannedCount;
+
+    /**
+     * 命中规则条数
+     */
+    @TableField("matched_count")
+    private Long matchedCount;
+
+    /**
+     * 匹配结果发生变化并回写的条数
+     */
+    @TableField("updated_count")
+    private Long updatedCount;
+
+    /**
+     * 失败原因
+     */
+    @TableField("error_message")
+    private String errorMessage;
+
+    /**
+     * 开始时间
+     */
+    @TableField("started_at")
+    private LocalDateTime startedAt;
+
+    /**
+     * 结束时间
+     */
+    @TableField("finished_at")
+    private LocalDateTime finishedAt;
+
+    /**
+     * 创建时间
+     */
+    @TableField(value = "created_at", fill = FieldFill.INSERT)
+    private LocalDateTime createdAt;
+
+    /**
+     * 更新时间
+     */
+    @TableField(value = "updated_at", fill = FieldFill.INSERT_UPDATE)
+    private LocalDateTime updatedAt;
+}
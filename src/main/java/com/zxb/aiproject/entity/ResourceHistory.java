@@ -0,0 +1,51 @@
+package com.zxb.aiproject.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 资源监控历史数据实体类（每台设备每小时一行）
+ */
+@Data
+@TableName("resource_history")
+public class ResourceHistory {
+
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    private Long deviceId;
+
+    /**
+     * 设备类型：asset、cloud_host、cloud_vm
+     */
+    private String deviceType;
+
+    /**
+     * 记录小时（0-23）
+     */
+    private Integer recordHour;
+
+    private BigDecimal cpuUsage;
+
+    private BigDecimal memoryUsage;
+
+    private BigDecimal networkUsage;
+
+    private BigDecimal storageUsage;
+
+    private BigDecimal cpuPredict;
+
+    private BigDecimal memoryPredict;
+
+    private BigDecimal networkPredict;
+
+    private BigDecimal storagePredict;
+
+    private LocalDate recordDate;
+
+    private LocalDateTime createdAt;
+}
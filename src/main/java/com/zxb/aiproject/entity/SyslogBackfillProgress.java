@@ -0,0 +1,37 @@
+package com.zxb.aiproject.entity;
+
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Syslog后台回填进度，重启后据此从中断处继续
+ */
+@Data
+@TableName("t_log_syslog_backfill")
+public class SyslogBackfillProgress {
+
+    /**
+     * 回填任务名
+     */
+    @TableId("task")
+    private String task;
+
+    /**
+     * 回填终点（含义由任务决定）
+     */
+    @TableField("target_value")
+    private Long targetValue;
+
+    /**
+     * 已完成的位置，不小于终点表示回填完成
+     */
+    @TableField("cursor_value")
+    private Long cursorValue;
+
+    @TableField("updated_at")
+    private LocalDateTime updatedAt;
+}
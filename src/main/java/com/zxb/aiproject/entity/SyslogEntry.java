@@ -83,6 +83,30 @@ public class SyslogEntry {
     @TableField("is_alert")
     private Boolean isAlert;
 
+    /**
+     * 去重窗口内收到的相同日志条数（含本条）
+     */
+    @TableField("repeat_count")
+    private Integer repeatCount;
+
+    /**
+     * 最后一次收到重复日志的时间，无重复时为空
+     */
+    @TableField("last_seen_at")
+    private LocalDateTime lastSeenAt;
+
+    /**
+     * 日志模板ID（入库时提取），启用模板提取前入库的日志为空
+     */
+    @TableField("template_id")
+    private Integer templateId;
+
+    /**
+     * 按来源IP关联到的资产ID（入库时关联），未登记的来源为空
+     */
+    @TableField("asset_id")
+    private Long assetId;
+
     /**
      * 创建时间
      */
@@ -110,4 +134,10 @@ public class SyslogEntry {
 
     @TableField(exist = false)
     private String severityName;
+
+    /**
+     * 匹配时所用规则集的版本，入库后据此判断是否需要补偿扫描
+     */
+    @TableField(exist = false)
+    private Long matchGeneration;
 }
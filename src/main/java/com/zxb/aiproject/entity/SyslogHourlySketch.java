@@ -0,0 +1,37 @@
+package com.zxb.aiproject.entity;
+
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Syslog小时来源概要（HyperLogLog + Space-Saving 的序列化数据）
+ */
+@Data
+@TableName("t_log_syslog_hourly_sketch")
+public class SyslogHourlySketch {
+
+    @TableId("stat_hour")
+    private LocalDateTime statHour;
+
+    /**
+     * 该小时计入概要的日志条数
+     */
+    @TableField("log_count")
+    private Long logCount;
+
+    /**
+     * 来源IP基数估计
+     */
+    @TableField("source_hll")
+    private byte[] sourceHll;
+
+    /**
+     * 来源IP热点统计
+     */
+    @TableField("top_sources")
+    private byte[] topSources;
+}
@@ -0,0 +1,41 @@
+package com.zxb.aiproject.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Syslog日志模板（入库时在线提取，变化的位置以 &lt;*&gt; 表示）
+ */
+@Data
+@TableName("t_log_syslog_template")
+public class SyslogTemplate {
+
+    /**
+     * 模板ID，由模板提取器分配
+     */
+    @TableId(value = "id", type = IdType.INPUT)
+    private Integer id;
+
+    /**
+     * 模板内容
+     */
+    @TableField("template")
+    private String template;
+
+    /**
+     * 词数
+     */
+    @TableField("token_count")
+    private Integer tokenCount;
+
+    /**
+     * 首次出现时间
+     */
+    @TableField("first_seen_at")
+    private LocalDateTime firstSeenAt;
+}
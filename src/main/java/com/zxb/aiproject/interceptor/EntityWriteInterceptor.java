@@ -0,0 +1,61 @@
+package com.zxb.aiproject.interceptor;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * MyBatis 写操作拦截器
+ * 经 Mapper 执行的 INSERT/UPDATE/DELETE 成功后通知 {@link Listener}，供内存计数等随写入更新。
+ * 不依赖其他 Bean（SqlSessionFactory 创建时就需要它），使用方在自己初始化时注册。
+ */
+@Slf4j
+@Component
+@Intercepts(@Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class}))
+public class EntityWriteInterceptor implements Interceptor {
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * 写操作成功后的通知，在执行 SQL 的线程上调用，实现不能阻塞；
+     * 此时事务可能尚未提交，回滚造成的偏差由使用方自行对账
+     */
+    public interface Listener {
+
+        /**
+         * @param statement 执行的语句，id 为 Mapper 全限定名加方法名
+         * @param parameter Mapper 方法参数，单个无注解参数时为参数本身
+         * @param rows 影响行数
+         */
+        void afterWrite(MappedStatement statement, Object parameter, int rows);
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        Object result = invocation.proceed();
+        if (!listeners.isEmpty() && result instanceof Integer) {
+            Object[] args = invocation.getArgs();
+            MappedStatement statement = (MappedStatement) args[0];
+            for (Listener listener : listeners) {
+                try {
+                    listener.afterWrite(statement, args[1], (Integer) result);
+                } catch (Exception e) {
+                    log.warn("写操作通知失败 {}: {}", statement.getId(), e.getMessage());
+                }
+            }
+        }
+        return result;
+    }
+}
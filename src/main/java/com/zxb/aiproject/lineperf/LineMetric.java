@@ -0,0 +1,48 @@
+package com.zxb.aiproject.lineperf;
+
+import com.zxb.aiproject.entity.LinePerformance;
+
+import java.math.BigDecimal;
+import java.util.function.Function;
+
+/**
+ * 专线性能汇总的指标
+ */
+public enum LineMetric {
+
+    LATENCY("latency", LinePerformance::getLatency),
+    JITTER("jitter", LinePerformance::getJitter),
+    PACKET_LOSS("packet_loss", LinePerformance::getPacketLoss),
+    BANDWIDTH_IN("bandwidth_in", p -> p.getBandwidthIn() == null ? null : BigDecimal.valueOf(p.getBandwidthIn())),
+    BANDWIDTH_OUT("bandwidth_out", p -> p.getBandwidthOut() == null ? null : BigDecimal.valueOf(p.getBandwidthOut())),
+    BANDWIDTH_USAGE("bandwidth_usage", LinePerformance::getBandwidthUsage);
+
+    private final String column;
+
+    private final Function<LinePerformance, BigDecimal> getter;
+
+    LineMetric(String column, Function<LinePerformance, BigDecimal> getter) {
+        this.column = column;
+        this.getter = getter;
+    }
+
+    /**
+     * line_performance 表中的列名
+     */
+    public String getColumn() {
+        return column;
+    }
+
+    /**
+     * 各指标的值，按枚举顺序，空值为 NaN
+     */
+    static double[] values(LinePerformance probe) {
+        LineMetric[] metrics = values();
+        double[] values = new double[metrics.length];
+        for (int i = 0; i < metrics.length; i++) {
+            BigDecimal value = metrics[i].getter.apply(probe);
+            values[i] = value == null ? Double.NaN : value.doubleValue();
+        }
+        return values;
+    }
+}
@@ -0,0 +1,301 @@
+package com.zxb.aiproject.lineperf;
+
+import com.zxb.aiproject.config.LinePerformanceProperties;
+import com.zxb.aiproject.entity.LinePerformance;
+import com.zxb.aiproject.mapper.LinePerformanceMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * 专线性能汇总
+ * 每条专线按 1 分钟（保留 1 小时）、5 分钟（保留 24 小时）、1 小时（保留 24 小时）三个粒度汇总探测数据，
+ * 每个桶记录各指标的个数、和、最大值与分位数估计；另有全部历史的个数与和、以及最新一次探测。
+ * 启动时载入最近 24 小时的探测与按专线的历史汇总，之后按 id 增量读取新写入的探测；查询只合并内存中的桶。
+ * 窗口按桶对齐，最早的一个桶可能多出不足一个桶宽的数据。
+ */
+@Slf4j
+@Component
+public class LinePerformanceRollups {
+
+    private static final long MINUTE = TimeUnit.MINUTES.toMillis(1);
+
+    private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+
+    @Autowired
+    private LinePerformanceProperties linePerformanceProperties;
+
+    @Autowired
+    private LinePerformanceMapper linePerformanceMapper;
+
+    private volatile Map<Long, LineRollup> lines;
+
+    /**
+     * 已读取的最大 id，只在持有本对象锁时访问
+     */
+    private long lastId;
+
+    private volatile long loadedAtMillis;
+
+    private final AtomicLong reloads = new AtomicLong();
+
+    private final AtomicLong probesApplied = new AtomicLong();
+
+    /**
+     * 一条专线的汇总，方法在对象上加锁
+     */
+    private static final class LineRollup {
+        final RollupTier minute;
+        final RollupTier fiveMinute;
+        final RollupTier hour;
+        final RollupStats lifetime;
+        LinePerformance latest;
+
+        LineRollup(double accuracy) {
+            minute = new RollupTier(MINUTE, HOUR, accuracy);
+            fiveMinute = new RollupTier(5 * MINUTE, DAY, accuracy);
+            hour = new RollupTier(HOUR, DAY, accuracy);
+            lifetime = new RollupStats(accuracy, false);
+        }
+
+        synchronized void add(LinePerformance probe, boolean countLifetime) {
+            double[] values = LineMetric.values(probe);
+            if (countLifetime) {
+                lifetime.add(values);
+            }
+            if (probe.getProbeTime() != null) {
+                long time = toMillis(probe.getProbeTime());
+                minute.add(time, values);
+                fiveMinute.add(time, values);
+                hour.add(time, values);
+            }
+            updateLatest(probe);
+        }
+
+        synchronized void updateLatest(LinePerformance probe) {
+            if (latest == null || isLater(probe, latest)) {
+                latest = probe;
+            }
+        }
+
+        synchronized void mergeWindow(RollupTier tier, long fromMillis, RollupStats target) {
+            tier.forEach(fromMillis, (start, bucket) -> target.merge(bucket));
+        }
+    }
+
+    /**
+     * 探测时间更新，时间相同时 id 更大的为准；没有探测时间的视为最早
+     */
+    private static boolean isLater(LinePerformance probe, LinePerformance current) {
+        if (current.getProbeTime() == null) {
+            return probe.getProbeTime() != null || compareId(probe, current) > 0;
+        }
+        if (probe.getProbeTime() == null) {
+            return false;
+        }
+        int cmp = probe.getProbeTime().compareTo(current.getProbeTime());
+        return cmp > 0 || (cmp == 0 && compareId(probe, current) > 0);
+    }
+
+    private static int compareId(LinePerformance a, LinePerformance b) {
+        return Long.compare(a.getId() == null ? 0 : a.getId(), b.getId() == null ? 0 : b.getId());
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    /**
+     * 最近 1 小时（1 分钟粒度）
+     */
+    public RollupStats lastHour(Collection<Long> lineIds) {
+        return window(lineIds, HOUR, rollup -> rollup.minute);
+    }
+
+    /**
+     * 最近 24 小时（5 分钟粒度）
+     */
+    public RollupStats lastDay(Collection<Long> lineIds) {
+        return window(lineIds, DAY, rollup -> rollup.fiveMinute);
+    }
+
+    /**
+     * 全部历史（没有分布）
+     */
+    public RollupStats lifetime(Collection<Long> lineIds) {
+        RollupStats result = newStats(false);
+        Map<Long, LineRollup> current = lines();
+        for (Long lineId : lineIds) {
+            LineRollup rollup = current.get(lineId);
+            if (rollup != null) {
+                synchronized (rollup) {
+                    result.merge(rollup.lifetime);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 最近 24 小时按小时（0-23）合并：窗口跨天时最早与当前的小时合并在一起；只含有探测的小时
+     */
+    public SortedMap<Integer, RollupStats> hourOfDay(Collection<Long> lineIds) {
+        SortedMap<Integer, RollupStats> result = new TreeMap<>();
+        long from = toMillis(LocalDateTime.now()) - DAY;
+        Map<Long, LineRollup> current = lines();
+        for (Long lineId : lineIds) {
+            LineRollup rollup = current.get(lineId);
+            if (rollup == null) {
+                continue;
+            }
+            synchronized (rollup) {
+                rollup.hour.forEach(from, (start, bucket) -> {
+                    int hour = (int) (Math.floorMod(start, DAY) / HOUR);
+                    result.computeIfAbsent(hour, k -> newStats(true)).merge(bucket);
+                });
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 最新一次探测，没有探测数据时返回 null；返回的对象不能修改
+     */
+    public LinePerformance latest(Long lineId) {
+        LineRollup rollup = lines().get(lineId);
+        if (rollup == null) {
+            return null;
+        }
+        synchronized (rollup) {
+            return rollup.latest;
+        }
+    }
+
+    private RollupStats window(Collection<Long> lineIds, long windowMillis, Function<LineRollup, RollupTier> tier) {
+        RollupStats result = newStats(true);
+        long from = toMillis(LocalDateTime.now()) - windowMillis;
+        Map<Long, LineRollup> current = lines();
+        for (Long lineId : lineIds) {
+            LineRollup rollup = current.get(lineId);
+            if (rollup != null) {
+                rollup.mergeWindow(tier.apply(rollup), from, result);
+            }
+        }
+        return result;
+    }
+
+    private RollupStats newStats(boolean withDistribution) {
+        return new RollupStats(linePerformanceProperties.getQuantileAccuracy(), withDistribution);
+    }
+
+    private Map<Long, LineRollup> lines() {
+        Map<Long, LineRollup> current = lines;
+        if (current == null) {
+            synchronized (this) {
+                if (lines == null) {
+                    reload();
+                }
+                current = lines;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 增量读取新写入的探测，到重载间隔时全量重载
+     */
+    @Scheduled(fixedDelayString = "${line-performance.poll-interval-ms:10000}")
+    public synchronized void poll() {
+        try {
+            long reloadInterval = linePerformanceProperties.getReloadIntervalMs();
+            if (lines == null || System.currentTimeMillis() - loadedAtMillis >= reloadInterval) {
+                reload();
+                return;
+            }
+            int batchSize = Math.max(1, linePerformanceProperties.getBatchSize());
+            List<LinePerformance> probes;
+            do {
+                probes = linePerformanceMapper.selectAfter(lastId, batchSize);
+                for (LinePerformance probe : probes) {
+                    rollup(lines, probe.getLineId()).add(probe, true);
+                    lastId = probe.getId();
+                }
+                probesApplied.addAndGet(probes.size());
+            } while (probes.size() >= batchSize);
+        } catch (Exception e) {
+            log.warn("专线性能增量读取失败: {}", e.getMessage());
+        }
+    }
+
+    private synchronized void reload() {
+        long maxId = linePerformanceMapper.selectMaxId();
+        Map<Long, LineRollup> loaded = new ConcurrentHashMap<>();
+        // 1 小时粒度的最早一个桶可能早于 24 小时，多载入 1 小时
+        LocalDateTime since = LocalDateTime.now().minusHours(25);
+        int recent = 0;
+        for (LinePerformance probe : linePerformanceMapper.selectSince(since, maxId)) {
+            rollup(loaded, probe.getLineId()).add(probe, false);
+            recent++;
+        }
+        for (Map<String, Object> row : linePerformanceMapper.sumByLine(maxId)) {
+            LineRollup rollup = rollup(loaded, toLong(row.get("line_id")));
+            synchronized (rollup) {
+                for (LineMetric metric : LineMetric.values()) {
+                    Object max = row.get(metric.getColumn() + "_max");
+                    rollup.lifetime.add(metric, toLong(row.get(metric.getColumn() + "_count")),
+                            toDouble(row.get(metric.getColumn() + "_sum")),
+                            max instanceof Number ? ((Number) max).doubleValue() : Double.NaN);
+                }
+            }
+        }
+        for (LinePerformance probe : linePerformanceMapper.selectLatestByLine(maxId)) {
+            rollup(loaded, probe.getLineId()).updateLatest(probe);
+        }
+        lines = loaded;
+        lastId = maxId;
+        loadedAtMillis = System.currentTimeMillis();
+        reloads.incrementAndGet();
+        log.info("专线性能汇总载入完成: 专线数={}, 最近探测数={}, 最大id={}", loaded.size(), recent, maxId);
+    }
+
+    private LineRollup rollup(Map<Long, LineRollup> target, Long lineId) {
+        return target.computeIfAbsent(lineId, k -> new LineRollup(linePerformanceProperties.getQuantileAccuracy()));
+    }
+
+    private static long toLong(Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : 0L;
+    }
+
+    private static double toDouble(Object value) {
+        return value instanceof Number ? ((Number) value).doubleValue() : 0;
+    }
+
+    /**
+     * 监控数据
+     */
+    public Map<String, Object> getStats() {
+        Map<Long, LineRollup> current = lines;
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("linePerformanceLines", current == null ? 0 : current.size());
+        data.put("linePerformanceLoadedAt", loadedAtMillis);
+        data.put("linePerformanceReloads", reloads.get());
+        data.put("linePerformanceProbesApplied", probesApplied.get());
+        return data;
+    }
+}
@@ -0,0 +1,119 @@
+package com.zxb.aiproject.lineperf;
+
+import java.util.Arrays;
+
+/**
+ * 分位数估计（对数分桶直方图）
+ * 正数按 log_γ(v) 向上取整落入桶，γ = (1 + α) / (1 - α)，桶内取 2γ^i / (γ + 1) 作为代表值，
+ * 估计值的相对误差不超过 α；0 与负数单独计数。只保存出现过的桶（有序数组），同参数的实例按桶相加即可合并，
+ * 合并结果与把所有值加入同一个实例完全一致，因此分钟、小时汇总都能再合并出任意时间窗口的分位数。
+ * 非线程安全。
+ */
+public final class QuantileSketch {
+
+    private static final int INITIAL_CAPACITY = 4;
+
+    private final double gamma;
+
+    private final double logGamma;
+
+    private long zeroCount;
+
+    private int[] bins = new int[INITIAL_CAPACITY];
+
+    private long[] counts = new long[INITIAL_CAPACITY];
+
+    private int size;
+
+    /**
+     * @param relativeAccuracy 相对误差 α，须在 (0, 1) 之间
+     */
+    public QuantileSketch(double relativeAccuracy) {
+        if (!(relativeAccuracy > 0 && relativeAccuracy < 1)) {
+            throw new IllegalArgumentException("分位数相对误差须在0~1之间: " + relativeAccuracy);
+        }
+        this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.logGamma = Math.log(gamma);
+    }
+
+    private QuantileSketch(double gamma, double logGamma) {
+        this.gamma = gamma;
+        this.logGamma = logGamma;
+    }
+
+    public void add(double value) {
+        if (value <= 0) {
+            zeroCount++;
+            return;
+        }
+        addBin((int) Math.ceil(Math.log(value) / logGamma), 1);
+    }
+
+    private void addBin(int bin, long count) {
+        int index = Arrays.binarySearch(bins, 0, size, bin);
+        if (index >= 0) {
+            counts[index] += count;
+            return;
+        }
+        index = -index - 1;
+        if (size == bins.length) {
+            bins = Arrays.copyOf(bins, size * 2);
+            counts = Arrays.copyOf(counts, size * 2);
+        }
+        System.arraycopy(bins, index, bins, index + 1, size - index);
+        System.arraycopy(counts, index, counts, index + 1, size - index);
+        bins[index] = bin;
+        counts[index] = count;
+        size++;
+    }
+
+    /**
+     * 合并另一个同参数的实例
+     */
+    public void merge(QuantileSketch other) {
+        if (other.gamma != gamma) {
+            throw new IllegalArgumentException("分位数估计参数不一致");
+        }
+        zeroCount += other.zeroCount;
+        for (int i = 0; i < other.size; i++) {
+            addBin(other.bins[i], other.counts[i]);
+        }
+    }
+
+    public long getCount() {
+        long total = zeroCount;
+        for (int i = 0; i < size; i++) {
+            total += counts[i];
+        }
+        return total;
+    }
+
+    /**
+     * 第 q 分位数（最近秩），没有数据时返回 NaN
+     * @param q 0~1
+     */
+    public double quantile(double q) {
+        long total = getCount();
+        if (total == 0) {
+            return Double.NaN;
+        }
+        long rank = Math.max(1, (long) Math.ceil(q * total));
+        if (rank <= zeroCount) {
+            return 0;
+        }
+        long seen = zeroCount;
+        for (int i = 0; i < size; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return 2 * Math.pow(gamma, bins[i]) / (gamma + 1);
+            }
+        }
+        return 2 * Math.pow(gamma, bins[size - 1]) / (gamma + 1);
+    }
+
+    public QuantileSketch copy() {
+        QuantileSketch copy = new QuantileSketch(gamma, logGamma);
+        copy.merge(this);
+        return copy;
+    }
+}
@@ -0,0 +1,157 @@
+package com.zxb.aiproject.lineperf;
+
+import java.util.Arrays;
+
+/**
+ * 一段时间内专线性能的汇总：每项指标（{@link LineMetric}）的个数、和、最大值与分位数估计
+ * 同参数的汇总可以合并；由数据库汇总得出、或相减得出的汇总没有分布，分位数为 null。
+ * 非线程安全，由持有者加锁；查询返回的都是副本。
+ */
+public final class RollupStats {
+
+    private static final int METRICS = LineMetric.values().length;
+
+    private final double quantileAccuracy;
+
+    private final long[] counts = new long[METRICS];
+
+    private final double[] sums = new double[METRICS];
+
+    private final double[] maxes = new double[METRICS];
+
+    /**
+     * 各指标的分布，整体为 null 时表示没有分布
+     */
+    private QuantileSketch[] sketches;
+
+    /**
+     * @param quantileAccuracy 分位数相对误差
+     * @param withDistribution 是否记录分布（用于分位数）
+     */
+    public RollupStats(double quantileAccuracy, boolean withDistribution) {
+        this.quantileAccuracy = quantileAccuracy;
+        Arrays.fill(maxes, Double.NaN);
+        if (withDistribution) {
+            sketches = new QuantileSketch[METRICS];
+        }
+    }
+
+    /**
+     * 加入一次探测的指标值（按 {@link LineMetric} 顺序，空值为 NaN）
+     */
+    void add(double[] values) {
+        for (int i = 0; i < METRICS; i++) {
+            double value = values[i];
+            if (Double.isNaN(value)) {
+                continue;
+            }
+            counts[i]++;
+            sums[i] += value;
+            maxes[i] = Double.isNaN(maxes[i]) ? value : Math.max(maxes[i], value);
+            if (sketches != null) {
+                if (sketches[i] == null) {
+                    sketches[i] = new QuantileSketch(quantileAccuracy);
+                }
+                sketches[i].add(value);
+            }
+        }
+    }
+
+    /**
+     * 直接累加一项指标的汇总（来自数据库汇总），之后不再有分布
+     */
+    void add(LineMetric metric, long count, double sum, double max) {
+        int i = metric.ordinal();
+        counts[i] += count;
+        sums[i] += sum;
+        if (!Double.isNaN(max)) {
+            maxes[i] = Double.isNaN(maxes[i]) ? max : Math.max(maxes[i], max);
+        }
+        sketches = null;
+    }
+
+    /**
+     * 合并另一个汇总，任一方没有分布时结果也没有分布
+     */
+    public void merge(RollupStats other) {
+        for (int i = 0; i < METRICS; i++) {
+            counts[i] += other.counts[i];
+            sums[i] += other.sums[i];
+            if (!Double.isNaN(other.maxes[i])) {
+                maxes[i] = Double.isNaN(maxes[i]) ? other.maxes[i] : Math.max(maxes[i], other.maxes[i]);
+            }
+        }
+        if (sketches == null || other.sketches == null) {
+            sketches = null;
+            return;
+        }
+        for (int i = 0; i < METRICS; i++) {
+            if (other.sketches[i] == null) {
+                continue;
+            }
+            if (sketches[i] == null) {
+                sketches[i] = other.sketches[i].copy();
+            } else {
+                sketches[i].merge(other.sketches[i]);
+            }
+        }
+    }
+
+    /**
+     * 从本汇总中去掉 other 的部分，只保留个数与和（用于平均值）
+     */
+    public RollupStats minus(RollupStats other) {
+        RollupStats result = new RollupStats(quantileAccuracy, false);
+        for (int i = 0; i < METRICS; i++) {
+            result.counts[i] = Math.max(0, counts[i] - other.counts[i]);
+            result.sums[i] = result.counts[i] == 0 ? 0 : sums[i] - other.sums[i];
+        }
+        return result;
+    }
+
+    public RollupStats copy() {
+        RollupStats copy = new RollupStats(quantileAccuracy, sketches != null);
+        copy.merge(this);
+        return copy;
+    }
+
+    public long getCount(LineMetric metric) {
+        return counts[metric.ordinal()];
+    }
+
+    public double getSum(LineMetric metric) {
+        return sums[metric.ordinal()];
+    }
+
+    /**
+     * 平均值，没有数据时返回 null
+     */
+    public Double getAvg(LineMetric metric) {
+        int i = metric.ordinal();
+        return counts[i] == 0 ? null : sums[i] / counts[i];
+    }
+
+    /**
+     * 最大值，没有数据时返回 null
+     */
+    public Double getMax(LineMetric metric) {
+        double max = maxes[metric.ordinal()];
+        return Double.isNaN(max) ? null : max;
+    }
+
+    /**
+     * 分位数估计，没有数据或没有分布时返回 null；结果不超过最大值
+     * @param q 0~1，如 0.95
+     */
+    public Double getQuantile(LineMetric metric, double q) {
+        int i = metric.ordinal();
+        if (sketches == null || sketches[i] == null) {
+            return null;
+        }
+        return Math.min(sketches[i].quantile(q), maxes[i]);
+    }
+
+    public Double getP95(LineMetric metric) {
+        return getQuantile(metric, 0.95);
+    }
+}
@@ -0,0 +1,62 @@
+package com.zxb.aiproject.lineperf;
+
+import java.util.function.BiConsumer;
+
+/**
+ * 一个粒度的汇总桶（环形数组）
+ * 桶按固定宽度对齐，槽位 = 桶序号 % 槽数；写入新桶时覆盖同槽位的旧桶，比槽内桶更早的数据不再计入。
+ * 时间使用本地时间换算的毫秒数（按 UTC 换算 LocalDateTime），保证小时桶与本地整点对齐。
+ * 非线程安全，由持有者加锁。
+ */
+final class RollupTier {
+
+    private final long widthMillis;
+
+    private final long[] starts;
+
+    private final RollupStats[] buckets;
+
+    private final double quantileAccuracy;
+
+    /**
+     * @param widthMillis 桶宽
+     * @param retainMillis 需要保留的时长，槽数多留两个，窗口两端不完整的桶也在
+     */
+    RollupTier(long widthMillis, long retainMillis, double quantileAccuracy) {
+        int slots = (int) (retainMillis / widthMillis) + 2;
+        this.widthMillis = widthMillis;
+        this.starts = new long[slots];
+        this.buckets = new RollupStats[slots];
+        this.quantileAccuracy = quantileAccuracy;
+    }
+
+    void add(long timeMillis, double[] values) {
+        long start = timeMillis - Math.floorMod(timeMillis, widthMillis);
+        int slot = (int) Math.floorMod(start / widthMillis, (long) buckets.length);
+        RollupStats bucket = buckets[slot];
+        if (bucket == null || starts[slot] < start) {
+            bucket = new RollupStats(quantileAccuracy, true);
+            buckets[slot] = bucket;
+            starts[slot] = start;
+        } else if (starts[slot] > start) {
+            // 已过保留时长
+            return;
+        }
+        bucket.add(values);
+    }
+
+    /**
+     * 与 [fromMillis, 当前) 有重叠的桶，按桶起点传入（未排序）
+     */
+    void forEach(long fromMillis, BiConsumer<Long, RollupStats> consumer) {
+        for (int i = 0; i < buckets.length; i++) {
+            if (buckets[i] != null && starts[i] + widthMillis > fromMillis) {
+                consumer.accept(starts[i], buckets[i]);
+            }
+        }
+    }
+
+    long getWidthMillis() {
+        return widthMillis;
+    }
+}
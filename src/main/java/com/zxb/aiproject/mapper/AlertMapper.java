@@ -3,8 +3,12 @@ package com.zxb.aiproject.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.zxb.aiproject.entity.Alert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
 
 @Mapper
@@ -24,4 +28,22 @@ public interface AlertMapper extends BaseMapper<Alert> {
             "FROM alert WHERE deleted = 0")
     Map<String, Object> getAlertStatistics();
 
+    /**
+     * 日志关联告警累加发生次数，级别只升不降；告警已解决或已删除时不更新
+     * @return 更新行数，0 表示需要重新产生告警
+     */
+    @Update("UPDATE alert SET occurrence_count = IFNULL(occurrence_count, 1) + #{count}, " +
+            "last_occurred_time = GREATEST(IFNULL(last_occurred_time, #{lastOccurred}), #{lastOccurred}), " +
+            "severity = CASE WHEN #{severity} = 'critical' THEN 'critical' ELSE severity END " +
+            "WHERE id = #{id} AND deleted = 0 AND (status IS NULL OR status <> 'resolved')")
+    int addOccurrences(@Param("id") Long id, @Param("count") long count,
+                       @Param("lastOccurred") LocalDateTime lastOccurred, @Param("severity") String severity);
+
+    /**
+     * 未解决且最近仍在发生的日志关联告警，重启后恢复关联窗口
+     */
+    @Select("SELECT id, correlation_key, last_occurred_time FROM alert " +
+            "WHERE correlation_key IS NOT NULL AND deleted = 0 AND (status IS NULL OR status <> 'resolved') " +
+            "AND last_occurred_time >= #{since}")
+    List<Alert> selectOpenCorrelated(@Param("since") LocalDateTime since);
 }
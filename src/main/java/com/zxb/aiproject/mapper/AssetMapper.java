@@ -3,8 +3,10 @@ package com.zxb.aiproject.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.zxb.aiproject.entity.Asset;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
@@ -25,4 +27,30 @@ public interface AssetMapper extends BaseMapper<Asset> {
      */
     @Select("SELECT * FROM v_warranty_expiring")
     List<Map<String, Object>> getWarrantyExpiringAssets();
+
+    /**
+     * Syslog资产关联：全部有IP地址的未删除资产
+     */
+    @Select("SELECT id, asset_name, device_name, category_id, ip_address, update_time, deleted FROM asset " +
+            "WHERE deleted = 0 AND ip_address IS NOT NULL AND ip_address <> ''")
+    List<Asset> selectIpIndexRows();
+
+    /**
+     * Syslog资产关联：更新时间不早于 since 的资产，含已逻辑删除的
+     */
+    @Select("SELECT id, asset_name, device_name, category_id, ip_address, update_time, deleted FROM asset " +
+            "WHERE update_time >= #{since}")
+    List<Asset> selectChangedSince(@Param("since") LocalDateTime since);
+
+    /**
+     * Syslog资产关联：按ID读取单个资产，含已逻辑删除的
+     */
+    @Select("SELECT id, asset_name, device_name, category_id, ip_address, update_time, deleted FROM asset WHERE id = #{id}")
+    Asset selectIpIndexRow(@Param("id") Long id);
+
+    /**
+     * 数据库当前时间，作为增量刷新的起点
+     */
+    @Select("SELECT NOW()")
+    LocalDateTime selectNow();
 }
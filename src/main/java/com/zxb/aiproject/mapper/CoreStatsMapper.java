@@ -0,0 +1,56 @@
+package com.zxb.aiproject.mapper;
+
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * 核心统计Mapper
+ * 大屏核心统计与告警页统计用到的全部计数，一条语句按表各扫描一次得出，列名即计数名。
+ * 设备状态的判定与 {@link com.zxb.aiproject.stats.CoreStatsCounters} 中写入时的增量计算保持一致。
+ */
+@Mapper
+public interface CoreStatsMapper {
+
+    @Select("SELECT a.*, h.*, v.*, s.*, al.* FROM " +
+            "(SELECT " +
+            "SUM(CASE WHEN asset_status IN ('online', 'running') THEN 1 ELSE 0 END) AS asset_online, " +
+            "SUM(CASE WHEN asset_status NOT IN ('online', 'running') THEN 1 ELSE 0 END) AS asset_offline, " +
+            "SUM(CASE WHEN category_id IN (5, 6, 7, 8, 9, 10, 11, 12, 13, 14) THEN 1 ELSE 0 END) AS device_total, " +
+            "SUM(CASE WHEN category_id IN (5, 6, 7, 8, 9, 10, 11, 12, 13, 14) " +
+            "AND asset_status IN ('online', 'normal', '运行中', '正常') THEN 1 ELSE 0 END) AS device_online, " +
+            "SUM(CASE WHEN category_id IN (5, 6, 7) THEN 1 ELSE 0 END) AS server_total, " +
+            "SUM(CASE WHEN category_id IN (5, 6, 7) " +
+            "AND asset_status IN ('online', 'normal', '运行中', '正常') THEN 1 ELSE 0 END) AS server_online, " +
+            "SUM(CASE WHEN category_id IN (8, 9, 10, 11, 12) THEN 1 ELSE 0 END) AS network_total, " +
+            "SUM(CASE WHEN category_id IN (8, 9, 10, 11, 12) " +
+            "AND asset_status IN ('online', 'normal', '运行中', '正常') THEN 1 ELSE 0 END) AS network_online, " +
+            "SUM(CASE WHEN category_id IN (13, 14) THEN 1 ELSE 0 END) AS storage_total, " +
+            "SUM(CASE WHEN category_id IN (13, 14) " +
+            "AND asset_status IN ('online', 'normal', '运行中', '正常') THEN 1 ELSE 0 END) AS storage_online " +
+            "FROM asset WHERE deleted = 0) a " +
+            "CROSS JOIN (SELECT COUNT(*) AS cloud_host_total, " +
+            "SUM(CASE WHEN status = 'running' THEN 1 ELSE 0 END) AS cloud_host_online FROM cloud_host) h " +
+            "CROSS JOIN (SELECT COUNT(*) AS vm_total, " +
+            "SUM(CASE WHEN status = 'running' THEN 1 ELSE 0 END) AS vm_online FROM cloud_virtual_machine) v " +
+            "CROSS JOIN (SELECT COUNT(*) AS cloud_storage_total, " +
+            "SUM(CASE WHEN status = 'in-use' THEN 1 ELSE 0 END) AS cloud_storage_online FROM cloud_storage) s " +
+            "CROSS JOIN (SELECT COUNT(*) AS alert_total, " +
+            "SUM(CASE WHEN severity = 'critical' THEN 1 ELSE 0 END) AS alert_critical, " +
+            "SUM(CASE WHEN severity = 'warning' THEN 1 ELSE 0 END) AS alert_warning, " +
+            "SUM(CASE WHEN severity = 'info' THEN 1 ELSE 0 END) AS alert_info, " +
+            "SUM(CASE WHEN status = 'active' THEN 1 ELSE 0 END) AS alert_active, " +
+            "SUM(CASE WHEN status = 'acknowledged' THEN 1 ELSE 0 END) AS alert_acknowledged, " +
+            "SUM(CASE WHEN status = 'resolved' THEN 1 ELSE 0 END) AS alert_resolved, " +
+            "SUM(CASE WHEN occurred_time >= #{currentMonthStart} AND occurred_time < #{nextMonthStart} " +
+            "THEN 1 ELSE 0 END) AS alert_current_month, " +
+            "SUM(CASE WHEN occurred_time >= #{lastMonthStart} AND occurred_time < #{currentMonthStart} " +
+            "THEN 1 ELSE 0 END) AS alert_last_month " +
+            "FROM alert WHERE deleted = 0) al")
+    Map<String, Object> selectCoreStats(@Param("lastMonthStart") LocalDateTime lastMonthStart,
+                                        @Param("currentMonthStart") LocalDateTime currentMonthStart,
+                                        @Param("nextMonthStart") LocalDateTime nextMonthStart);
+}
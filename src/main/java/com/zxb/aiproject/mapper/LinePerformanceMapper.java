@@ -3,10 +3,61 @@ package com.zxb.aiproject.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.zxb.aiproject.entity.LinePerformance;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
 
 /**
  * 专线性能Mapper
+ * 探测数据由采集端追加写入，内存中的性能汇总按 id 递增增量读取。
  */
 @Mapper
 public interface LinePerformanceMapper extends BaseMapper<LinePerformance> {
+
+    @Select("SELECT IFNULL(MAX(id), 0) FROM line_performance")
+    long selectMaxId();
+
+    /**
+     * 探测时间不早于 since 的数据（id 不超过 maxId）
+     */
+    @Select("SELECT id, line_id, latency, jitter, packet_loss, bandwidth_in, bandwidth_out, bandwidth_usage, " +
+            "probe_time FROM line_performance WHERE probe_time >= #{since} AND id <= #{maxId}")
+    List<LinePerformance> selectSince(@Param("since") LocalDateTime since, @Param("maxId") long maxId);
+
+    /**
+     * id 大于 afterId 的数据，按 id 排序
+     */
+    @Select("SELECT id, line_id, latency, jitter, packet_loss, bandwidth_in, bandwidth_out, bandwidth_usage, " +
+            "probe_time FROM line_performance WHERE id > #{afterId} ORDER BY id LIMIT #{limit}")
+    List<LinePerformance> selectAfter(@Param("afterId") long afterId, @Param("limit") int limit);
+
+    /**
+     * 按专线汇总全部历史：line_id，以及各指标的 {列名}_count、{列名}_sum、{列名}_max
+     */
+    @Select("SELECT line_id, " +
+            "COUNT(latency) AS latency_count, SUM(latency) AS latency_sum, MAX(latency) AS latency_max, " +
+            "COUNT(jitter) AS jitter_count, SUM(jitter) AS jitter_sum, MAX(jitter) AS jitter_max, " +
+            "COUNT(packet_loss) AS packet_loss_count, SUM(packet_loss) AS packet_loss_sum, " +
+            "MAX(packet_loss) AS packet_loss_max, " +
+            "COUNT(bandwidth_in) AS bandwidth_in_count, SUM(bandwidth_in) AS bandwidth_in_sum, " +
+            "MAX(bandwidth_in) AS bandwidth_in_max, " +
+            "COUNT(bandwidth_out) AS bandwidth_out_count, SUM(bandwidth_out) AS bandwidth_out_sum, " +
+            "MAX(bandwidth_out) AS bandwidth_out_max, " +
+            "COUNT(bandwidth_usage) AS bandwidth_usage_count, SUM(bandwidth_usage) AS bandwidth_usage_sum, " +
+            "MAX(bandwidth_usage) AS bandwidth_usage_max " +
+            "FROM line_performance WHERE id <= #{maxId} GROUP BY line_id")
+    List<Map<String, Object>> sumByLine(@Param("maxId") long maxId);
+
+    /**
+     * 每条专线探测时间最新的数据（同一时间有多条时都返回）
+     */
+    @Select("SELECT lp.id, lp.line_id, lp.latency, lp.jitter, lp.packet_loss, lp.bandwidth_in, lp.bandwidth_out, " +
+            "lp.bandwidth_usage, lp.probe_time FROM line_performance lp " +
+            "JOIN (SELECT line_id, MAX(probe_time) AS probe_time FROM line_performance " +
+            "WHERE id <= #{maxId} GROUP BY line_id) t ON lp.line_id = t.line_id AND lp.probe_time = t.probe_time " +
+            "WHERE lp.id <= #{maxId}")
+    List<LinePerformance> selectLatestByLine(@Param("maxId") long maxId);
 }
@@ -0,0 +1,41 @@
+package com.zxb.aiproject.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.zxb.aiproject.entity.LogRematchJob;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+/**
+ * 日志重新匹配任务Mapper
+ */
+@Mapper
+public interface LogRematchJobMapper extends BaseMapper<LogRematchJob> {
+
+    /**
+     * 建表（已存在则跳过），兼容未执行升级脚本的库
+     */
+    @Update("CREATE TABLE IF NOT EXISTS t_log_rematch_job (" +
+            "id bigint NOT NULL AUTO_INCREMENT, " +
+            "status varchar(20) NOT NULL, " +
+            "start_id bigint NOT NULL DEFAULT 0, " +
+            "last_id bigint NOT NULL DEFAULT 0, " +
+            "max_id bigint NOT NULL DEFAULT 0, " +
+            "scanned_count bigint NOT NULL DEFAULT 0, " +
+            "matched_count bigint NOT NULL DEFAULT 0, " +
+            "updated_count bigint NOT NULL DEFAULT 0, " +
+            "error_message varchar(500) DEFAULT NULL, " +
+            "started_at datetime DEFAULT NULL, " +
+            "finished_at datetime DEFAULT NULL, " +
+            "created_at datetime DEFAULT CURRENT_TIMESTAMP, " +
+            "updated_at datetime DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP, " +
+            "PRIMARY KEY (id)" +
+            ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4")
+    void createTableIfNotExists();
+
+    /**
+     * 最近一次任务
+     */
+    @Select("SELECT * FROM t_log_rematch_job ORDER BY id DESC LIMIT 1")
+    LogRematchJob selectLatest();
+}
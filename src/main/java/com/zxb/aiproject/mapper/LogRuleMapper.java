@@ -7,6 +7,7 @@ import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * 日志规则Mapper
@@ -36,4 +37,14 @@ public interface LogRuleMapper extends BaseMapper<LogRule> {
             "AND log_type = #{logType} " +
             "ORDER BY id")
     List<LogRule> selectEnabledRules(@Param("logType") String logType);
+
+    /**
+     * 查询规则与启用事件的关联关系
+     */
+    @Select("SELECT m.rule_id, m.event_id " +
+            "FROM t_log_rule_event_map m " +
+            "INNER JOIN t_log_events e ON m.event_id = e.id " +
+            "WHERE e.is_active = 1 " +
+            "ORDER BY m.rule_id, m.event_id")
+    List<Map<String, Object>> selectRuleEventMappings();
 }
@@ -0,0 +1,46 @@
+package com.zxb.aiproject.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.zxb.aiproject.entity.ResourceHistory;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 资源监控历史Mapper
+ * 数据由采集端按小时追加写入，内存中的资源历史按 id 递增增量读取。
+ */
+@Mapper
+public interface ResourceHistoryMapper extends BaseMapper<ResourceHistory> {
+
+    @Select("SELECT IFNULL(MAX(id), 0) FROM resource_history")
+    long selectMaxId();
+
+    /**
+     * 某天的全部数据（id 不超过 maxId）
+     */
+    @Select("SELECT id, device_id, device_type, record_hour, cpu_usage, memory_usage, network_usage, storage_usage, " +
+            "cpu_predict, memory_predict, network_predict, storage_predict, record_date FROM resource_history " +
+            "WHERE record_date = #{date} AND id <= #{maxId}")
+    List<ResourceHistory> selectByDate(@Param("date") LocalDate date, @Param("maxId") long maxId);
+
+    /**
+     * id 大于 afterId 的数据，按 id 排序
+     */
+    @Select("SELECT id, device_id, device_type, record_hour, cpu_usage, memory_usage, network_usage, storage_usage, " +
+            "cpu_predict, memory_predict, network_predict, storage_predict, record_date FROM resource_history " +
+            "WHERE id > #{afterId} ORDER BY id LIMIT #{limit}")
+    List<ResourceHistory> selectAfter(@Param("afterId") long afterId, @Param("limit") int limit);
+
+    /**
+     * 按天汇总 CPU 使用率：record_date、cpu_sum、cpu_count（不含空值），日期范围含 from 不含 to
+     */
+    @Select("SELECT record_date, SUM(cpu_usage) AS cpu_sum, COUNT(cpu_usage) AS cpu_count FROM resource_history " +
+            "WHERE record_date >= #{from} AND record_date < #{to} AND id <= #{maxId} GROUP BY record_date")
+    List<Map<String, Object>> sumCpuByDate(@Param("from") LocalDate from, @Param("to") LocalDate to,
+                                           @Param("maxId") long maxId);
+}
@@ -0,0 +1,39 @@
+package com.zxb.aiproject.mapper;
+
+import com.zxb.aiproject.entity.SyslogBackfillProgress;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+/**
+ * Syslog后台回填进度Mapper
+ */
+@Mapper
+public interface SyslogBackfillMapper {
+
+    /**
+     * 建表（已存在则跳过），兼容未执行升级脚本的库
+     */
+    @Update("CREATE TABLE IF NOT EXISTS t_log_syslog_backfill (" +
+            "task varchar(32) NOT NULL, " +
+            "target_value bigint NOT NULL DEFAULT 0, " +
+            "cursor_value bigint NOT NULL DEFAULT 0, " +
+            "updated_at datetime DEFAULT NULL, " +
+            "PRIMARY KEY (task)" +
+            ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4")
+    void createTableIfNotExists();
+
+    @Select("SELECT task, target_value, cursor_value, updated_at FROM t_log_syslog_backfill WHERE task = #{task}")
+    SyslogBackfillProgress selectByTask(@Param("task") String task);
+
+    /**
+     * 保存进度（不存在则插入）
+     */
+    @Insert("INSERT INTO t_log_syslog_backfill (task, target_value, cursor_value, updated_at) " +
+            "VALUES (#{task}, #{targetValue}, #{cursorValue}, NOW()) " +
+            "ON DUPLICATE KEY UPDATE target_value = VALUES(target_value), cursor_value = VALUES(cursor_value), " +
+            "updated_at = VALUES(updated_at)")
+    int save(@Param("task") String task, @Param("targetValue") long targetValue, @Param("cursorValue") long cursorValue);
+}
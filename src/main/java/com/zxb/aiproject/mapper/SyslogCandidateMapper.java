@@ -0,0 +1,43 @@
+package com.zxb.aiproject.mapper;
+
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 关键字查询候选ID暂存表Mapper
+ * 倒排索引解析出的候选ID较多时分批写入暂存表，日志查询以子查询关联，避免在SQL中拼接超长的 IN 列表。
+ */
+@Mapper
+public interface SyslogCandidateMapper {
+
+    /**
+     * 建表（已存在则跳过），兼容未执行升级脚本的库
+     */
+    @Update("CREATE TABLE IF NOT EXISTS t_log_syslog_candidate (" +
+            "set_id bigint NOT NULL, " +
+            "log_id bigint NOT NULL, " +
+            "created_at datetime NOT NULL DEFAULT CURRENT_TIMESTAMP, " +
+            "PRIMARY KEY (set_id, log_id), " +
+            "KEY idx_created_at (created_at)" +
+            ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4")
+    void createTableIfNotExists();
+
+    @Insert("<script>INSERT INTO t_log_syslog_candidate (set_id, log_id) VALUES " +
+            "<foreach item='id' collection='ids' separator=','>(#{setId}, #{id})</foreach></script>")
+    int insertBatch(@Param("setId") long setId, @Param("ids") List<Long> ids);
+
+    @Delete("DELETE FROM t_log_syslog_candidate WHERE set_id = #{setId}")
+    int deleteSet(@Param("setId") long setId);
+
+    /**
+     * 清理未正常释放的候选集（查询异常中断等）
+     */
+    @Delete("DELETE FROM t_log_syslog_candidate WHERE created_at < #{before} LIMIT #{limit}")
+    int deleteCreatedBefore(@Param("before") LocalDateTime before, @Param("limit") int limit);
+}
@@ -3,10 +3,15 @@ package com.zxb.aiproject.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.zxb.aiproject.dto.LogQueryDTO;
 import com.zxb.aiproject.entity.SyslogEntry;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+import org.apache.ibatis.cursor.Cursor;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -19,179 +24,175 @@ import java.util.Map;
 public interface SyslogEntryMapper extends BaseMapper<SyslogEntry> {
 
     /**
-     * 分页查询Syslog日志（带关联信息）
+     * 批量插入Syslog日志（多行VALUES），回填自增ID
      */
-    @Select("<script>" +
-            "SELECT s.*, " +
-            "r.rule_name, " +
-            "e.event_name, e.event_color " +
-            "FROM t_log_syslog s " +
-            "LEFT JOIN t_log_rules r ON s.matched_rule_id = r.id " +
-            "LEFT JOIN t_log_events e ON s.matched_event_id = e.id " +
-            "WHERE 1=1 " +
-            "<if test='startTime != null'> AND s.received_at >= #{startTime} </if>" +
-            "<if test='endTime != null'> AND s.received_at &lt;= #{endTime} </if>" +
-            "<if test='keyword != null and keyword != \"\"'> " +
-            "AND (s.message LIKE CONCAT('%', #{keyword}, '%') " +
-            "OR s.source_ip LIKE CONCAT('%', #{keyword}, '%') " +
-            "OR s.hostname LIKE CONCAT('%', #{keyword}, '%')) " +
-            "</if>" +
-            "<if test='sourceIps != null and sourceIps.size() > 0'> " +
-            "AND s.source_ip IN " +
-            "<foreach item='ip' collection='sourceIps' open='(' separator=',' close=')'>" +
-            "#{ip}" +
-            "</foreach>" +
-            "</if>" +
-            "<if test='facilities != null and facilities.size() > 0'> " +
-            "AND s.facility IN " +
-            "<foreach item='facility' collection='facilities' open='(' separator=',' close=')'>" +
-            "#{facility}" +
-            "</foreach>" +
-            "</if>" +
-            "<if test='severities != null and severities.size() > 0'> " +
-            "AND s.severity IN " +
-            "<foreach item='severity' collection='severities' open='(' separator=',' close=')'>" +
-            "#{severity}" +
+    @Insert("<script>" +
+            "INSERT INTO t_log_syslog (received_at, event_time, source_ip, device_type, facility, severity, " +
+            "hostname, message, matched_rule_id, matched_event_id, is_alert, template_id, asset_id) VALUES " +
+            "<foreach collection='list' item='item' separator=','>" +
+            "(COALESCE(#{item.receivedAt}, NOW()), #{item.eventTime}, #{item.sourceIp}, #{item.deviceType}, #{item.facility}, " +
+            "#{item.severity}, #{item.hostname}, #{item.message}, #{item.matchedRuleId}, #{item.matchedEventId}, " +
+            "COALESCE(#{item.isAlert}, 0), #{item.templateId}, #{item.assetId})" +
             "</foreach>" +
-            "</if>" +
-            "<if test='alertOnly != null and alertOnly == true'> AND s.is_alert = true </if>" +
-            "<if test='eventIds != null and eventIds.size() > 0'> " +
-            "AND s.matched_event_id IN " +
-            "<foreach item='eventId' collection='eventIds' open='(' separator=',' close=')'>" +
-            "#{eventId}" +
-            "</foreach>" +
-            "</if>" +
-            "<if test='ruleIds != null and ruleIds.size() > 0'> " +
-            "AND s.matched_rule_id IN " +
-            "<foreach item='ruleId' collection='ruleIds' open='(' separator=',' close=')'>" +
-            "#{ruleId}" +
-            "</foreach>" +
-            "</if>" +
-            "<if test='hostname != null and hostname != \"\"'> " +
-            "AND s.hostname LIKE CONCAT('%', #{hostname}, '%') " +
-            "</if>" +
-            "<if test='deviceTypes != null and deviceTypes.size() > 0'> " +
-            "AND s.device_type IN " +
-            "<foreach item='deviceType' collection='deviceTypes' open='(' separator=',' close=')'>" +
-            "#{deviceType}" +
-            "</foreach>" +
-            "</if>" +
-            "ORDER BY s.received_at DESC" +
             "</script>")
-    IPage<SyslogEntry> selectSyslogPage(Page<SyslogEntry> page,
-                                       @Param("startTime") LocalDateTime startTime,
-                                       @Param("endTime") LocalDateTime endTime,
-                                       @Param("keyword") String keyword,
-                                       @Param("sourceIps") List<String> sourceIps,
-                                       @Param("facilities") List<Integer> facilities,
-                                       @Param("severities") List<Integer> severities,
-                                       @Param("alertOnly") Boolean alertOnly,
-                                       @Param("eventIds") List<Integer> eventIds,
-                                       @Param("ruleIds") List<Integer> ruleIds,
-                                       @Param("hostname") String hostname,
-                                       @Param("deviceTypes") List<String> deviceTypes);
-
-    /**
-     * 统计日志趋势（按小时分组）
-     */
-    @Select("SELECT " +
-            "DATE_FORMAT(received_at, '%Y-%m-%d %H:00:00') as time_hour, " +
-            "severity, " +
-            "COUNT(*) as log_count " +
-            "FROM t_log_syslog " +
-            "WHERE received_at >= #{startTime} AND received_at <= #{endTime} " +
-            "GROUP BY DATE_FORMAT(received_at, '%Y-%m-%d %H:00:00'), severity " +
-            "ORDER BY time_hour")
-    List<Map<String, Object>> selectLogTrend(@Param("startTime") LocalDateTime startTime,
-                                           @Param("endTime") LocalDateTime endTime);
+    @Options(useGeneratedKeys = true, keyProperty = "id", keyColumn = "id")
+    int batchInsert(@Param("list") List<SyslogEntry> list);
 
     /**
-     * 统计日志来源Top N
+     * 分页查询Syslog日志（带关联信息，OFFSET分页 + COUNT，兼容旧接口），SQL见 SyslogEntryMapper.xml
      */
-    @Select("SELECT source_ip, COUNT(*) as log_count " +
-            "FROM t_log_syslog " +
-            "WHERE received_at >= #{startTime} AND received_at <= #{endTime} " +
-            "GROUP BY source_ip " +
-            "ORDER BY log_count DESC " +
-            "LIMIT #{limit}")
-    List<Map<String, Object>> selectTopSources(@Param("startTime") LocalDateTime startTime,
-                                             @Param("endTime") LocalDateTime endTime,
-                                             @Param("limit") Integer limit);
+    IPage<SyslogEntry> selectSyslogPage(Page<SyslogEntry> page, @Param("q") LogQueryDTO query);
+
+    /**
+     * 游标分页查询：按 (received_at, id) 倒序返回游标之后的 limit 条
+     */
+    List<SyslogEntry> selectSyslogKeyset(@Param("q") LogQueryDTO query, @Param("limit") int limit);
+
+    /**
+     * 按过滤条件流式读取（导出用），须在事务内遍历，事务结束时游标关闭
+     */
+    Cursor<SyslogEntry> streamSyslogExport(@Param("q") LogQueryDTO query);
+
+    /**
+     * 按过滤条件计数，最多数到 cap
+     */
+    Long countSyslogCapped(@Param("q") LogQueryDTO query, @Param("cap") int cap);
+
+    /**
+     * 按过滤条件精确计数
+     */
+    Long countSyslog(@Param("q") LogQueryDTO query);
 
     /**
-     * 统计严重性分布
+     * 按事件时间一次扫描统计汇总指标（汇总表按接收时间归档，事件时间只能扫描原始日志）
      */
-    @Select("SELECT severity, COUNT(*) as log_count " +
+    @Select("SELECT COALESCE(SUM(repeat_count), 0) as total_logs, COUNT(DISTINCT source_ip) as total_devices, " +
+            "COALESCE(SUM(CASE WHEN severity <= 2 THEN repeat_count ELSE 0 END), 0) as alert_count, " +
+            "COALESCE(SUM(CASE WHEN severity <= 3 THEN repeat_count ELSE 0 END), 0) as error_count " +
             "FROM t_log_syslog " +
-            "WHERE received_at >= #{startTime} AND received_at <= #{endTime} " +
-            "GROUP BY severity " +
-            "ORDER BY severity")
-    List<Map<String, Object>> selectSeverityDistribution(@Param("startTime") LocalDateTime startTime,
-                                                        @Param("endTime") LocalDateTime endTime);
+            "WHERE event_time >= #{startTime} AND event_time <= #{endTime}")
+    Map<String, Object> selectSummaryByEventTime(@Param("startTime") LocalDateTime startTime,
+                                                 @Param("endTime") LocalDateTime endTime);
+
+    /**
+     * 当前最大日志ID，表为空时返回0
+     */
+    @Select("SELECT COALESCE(MAX(id), 0) FROM t_log_syslog")
+    Long selectMaxId();
 
     /**
-     * 统计Facility分布
+     * 按主键顺序查询 (afterId, maxId] 区间内 since 之后接收、尚未匹配的日志（匹配所需字段）
+     * received_at 下限用于分区裁剪，只扫描近期分区
      */
-    @Select("SELECT facility, COUNT(*) as log_count " +
+    @Select("SELECT id, received_at, event_time, source_ip, device_type, facility, severity, hostname, message, " +
+            "matched_rule_id, matched_event_id, is_alert, repeat_count " +
             "FROM t_log_syslog " +
-            "WHERE received_at >= #{startTime} AND received_at <= #{endTime} " +
-            "GROUP BY facility " +
-            "ORDER BY log_count DESC")
-    List<Map<String, Object>> selectFacilityDistribution(@Param("startTime") LocalDateTime startTime,
-                                                        @Param("endTime") LocalDateTime endTime);
+            "WHERE id > #{afterId} AND id <= #{maxId} AND received_at >= #{since} AND matched_rule_id IS NULL " +
+            "ORDER BY id LIMIT #{limit}")
+    List<SyslogEntry> selectUnmatchedAfter(@Param("afterId") Long afterId,
+                                           @Param("maxId") Long maxId,
+                                           @Param("since") LocalDateTime since,
+                                           @Param("limit") Integer limit);
 
     /**
-     * 统计匹配事件Top N
+     * 最早一条日志的接收时间，表为空时返回 null
      */
-    @Select("SELECT s.matched_event_id as event_id, e.event_name, e.event_color, COUNT(*) as match_count " +
-            "FROM t_log_syslog s " +
-            "INNER JOIN t_log_events e ON s.matched_event_id = e.id " +
-            "WHERE s.received_at >= #{startTime} AND s.received_at <= #{endTime} " +
-            "AND s.matched_event_id IS NOT NULL " +
-            "GROUP BY s.matched_event_id, e.event_name, e.event_color " +
-            "ORDER BY match_count DESC " +
-            "LIMIT #{limit}")
-    List<Map<String, Object>> selectTopMatchedEvents(@Param("startTime") LocalDateTime startTime,
-                                                    @Param("endTime") LocalDateTime endTime,
-                                                    @Param("limit") Integer limit);
-    
+    @Select("SELECT MIN(received_at) FROM t_log_syslog")
+    LocalDateTime selectMinReceivedAt();
+
     /**
-     * 统计匹配规则Top N
+     * 归档用：按 (received_at, id) 升序读取 [from, to) 内游标之后的 limit 条
      */
-    @Select("SELECT s.matched_rule_id as rule_id, r.rule_name, COUNT(*) as match_count " +
-            "FROM t_log_syslog s " +
-            "INNER JOIN t_log_rules r ON s.matched_rule_id = r.id " +
-            "WHERE s.received_at >= #{startTime} AND s.received_at <= #{endTime} " +
-            "AND s.matched_rule_id IS NOT NULL " +
-            "GROUP BY s.matched_rule_id, r.rule_name " +
-            "ORDER BY match_count DESC " +
-            "LIMIT #{limit}")
-    List<Map<String, Object>> selectTopMatchedRules(@Param("startTime") LocalDateTime startTime,
-                                                    @Param("endTime") LocalDateTime endTime,
-                                                    @Param("limit") Integer limit);
+    @Select("<script>" +
+            "SELECT id, received_at, event_time, source_ip, device_type, facility, severity, hostname, message, " +
+            "matched_rule_id, matched_event_id, is_alert, repeat_count, last_seen_at, template_id, asset_id " +
+            "FROM t_log_syslog " +
+            "WHERE received_at &gt;= #{from} AND received_at &lt; #{to} " +
+            "<if test='afterTime != null'>" +
+            "AND (received_at &gt; #{afterTime} OR (received_at = #{afterTime} AND id &gt; #{afterId})) " +
+            "</if>" +
+            "ORDER BY received_at, id LIMIT #{limit}" +
+            "</script>")
+    List<SyslogEntry> selectArchiveBatch(@Param("from") LocalDateTime from,
+                                         @Param("to") LocalDateTime to,
+                                         @Param("afterTime") LocalDateTime afterTime,
+                                         @Param("afterId") Long afterId,
+                                         @Param("limit") int limit);
 
     /**
-     * 统计时间范围内的日志数量
+     * [from, to) 内接收的第一条日志ID，不存在返回 null
      */
-    @Select("SELECT COUNT(*) FROM t_log_syslog WHERE received_at >= #{startTime} AND received_at <= #{endTime}")
-    long countLogsByTimeRange(@Param("startTime") LocalDateTime startTime,
-                              @Param("endTime") LocalDateTime endTime);
+    @Select("SELECT id FROM t_log_syslog WHERE received_at >= #{from} AND received_at < #{to} ORDER BY id LIMIT 1")
+    Long selectFirstIdBetween(@Param("from") LocalDateTime from,
+                              @Param("to") LocalDateTime to);
 
     /**
-     * 统计时间范围内不同来源IP数量
+     * [from, to) 内接收的最后一条日志ID，不存在返回 null
      */
-    @Select("SELECT COUNT(DISTINCT source_ip) FROM t_log_syslog WHERE received_at >= #{startTime} AND received_at <= #{endTime}")
-    long countDistinctSourcesByTimeRange(@Param("startTime") LocalDateTime startTime,
-                                         @Param("endTime") LocalDateTime endTime);
+    @Select("SELECT id FROM t_log_syslog WHERE received_at >= #{from} AND received_at < #{to} ORDER BY id DESC LIMIT 1")
+    Long selectLastIdBetween(@Param("from") LocalDateTime from,
+                             @Param("to") LocalDateTime to);
 
     /**
-     * 统计设备类型分布
+     * 按主键区间 (fromId, toId] 查询 [from, to) 内接收的日志（匹配所需字段）
+     * 接收时间范围由调用方按该ID区间实际落入的分区给出，用于分区裁剪
      */
-    @Select("SELECT device_type, COUNT(*) as log_count " +
+    @Select("SELECT id, received_at, event_time, source_ip, device_type, facility, severity, hostname, message, " +
+            "matched_rule_id, matched_event_id, is_alert, repeat_count " +
             "FROM t_log_syslog " +
-            "WHERE received_at >= #{startTime} AND received_at <= #{endTime} " +
-            "GROUP BY device_type " +
-            "ORDER BY log_count DESC")
-    List<Map<String, Object>> selectDeviceTypeDistribution(@Param("startTime") LocalDateTime startTime,
-                                                           @Param("endTime") LocalDateTime endTime);
+            "WHERE id > #{fromId} AND id <= #{toId} AND received_at >= #{from} AND received_at < #{to} " +
+            "ORDER BY id")
+    List<SyslogEntry> selectMatchRange(@Param("fromId") Long fromId,
+                                       @Param("toId") Long toId,
+                                       @Param("from") LocalDateTime from,
+                                       @Param("to") LocalDateTime to);
+
+    /**
+     * 更新单条日志的匹配结果
+     * 带 received_at 范围条件以便分区裁剪；入库时毫秒部分会被舍入，因此前后各放宽一秒
+     */
+    @Update("UPDATE t_log_syslog SET matched_rule_id = #{ruleId}, matched_event_id = #{eventId}, " +
+            "is_alert = #{isAlert} WHERE id = #{id} AND received_at BETWEEN DATE_SUB(#{receivedAt}, INTERVAL 1 SECOND) " +
+            "AND DATE_ADD(#{receivedAt}, INTERVAL 1 SECOND)")
+    int updateMatchResult(@Param("id") Long id,
+                          @Param("receivedAt") LocalDateTime receivedAt,
+                          @Param("ruleId") Integer ruleId,
+                          @Param("eventId") Integer eventId,
+                          @Param("isAlert") Boolean isAlert);
+
+    /**
+     * 批量回写匹配结果（单条 UPDATE ... CASE）
+     * 回写的日志均从库中读出，[from, to] 取本批最早与最晚的接收时间，用于分区裁剪
+     */
+    @Update("<script>" +
+            "UPDATE t_log_syslog SET " +
+            "matched_rule_id = CASE id " +
+            "<foreach collection='list' item='item'>WHEN #{item.id} THEN #{item.matchedRuleId} </foreach>" +
+            "END, " +
+            "matched_event_id = CASE id " +
+            "<foreach collection='list' item='item'>WHEN #{item.id} THEN #{item.matchedEventId} </foreach>" +
+            "END, " +
+            "is_alert = CASE id " +
+            "<foreach collection='list' item='item'>WHEN #{item.id} THEN COALESCE(#{item.isAlert}, 0) </foreach>" +
+            "END " +
+            "WHERE id IN " +
+            "<foreach collection='list' item='item' open='(' separator=',' close=')'>#{item.id}</foreach> " +
+            "AND received_at BETWEEN #{from} AND #{to}" +
+            "</script>")
+    int batchUpdateMatchResult(@Param("list") List<SyslogEntry> list,
+                               @Param("from") LocalDateTime from,
+                               @Param("to") LocalDateTime to);
+
+    /**
+     * 累加去重折叠的重复条数
+     * 带 received_at 范围条件以便分区裁剪；入库时毫秒部分会被舍入，因此前后各放宽一秒
+     */
+    @Update("UPDATE t_log_syslog SET repeat_count = repeat_count + #{count}, " +
+            "last_seen_at = GREATEST(COALESCE(last_seen_at, #{lastSeenAt}), #{lastSeenAt}) " +
+            "WHERE id = #{id} AND received_at BETWEEN DATE_SUB(#{receivedAt}, INTERVAL 1 SECOND) " +
+            "AND DATE_ADD(#{receivedAt}, INTERVAL 1 SECOND)")
+    int addRepeats(@Param("id") Long id,
+                   @Param("receivedAt") LocalDateTime receivedAt,
+                   @Param("count") long count,
+                   @Param("lastSeenAt") LocalDateTime lastSeenAt);
 }
@@ -0,0 +1,197 @@
+package com.zxb.aiproject.mapper;
+
+import com.zxb.aiproject.dto.LogQueryDTO;
+import com.zxb.aiproject.syslog.SyslogHourlyRollup;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Syslog小时汇总Mapper
+ * 维度列不允许为空（参与唯一键），空值分别以 ''、-1、0 存储，查询时还原为 NULL。
+ * 查询参数 fromHour/toHour 为整点，两端都包含。
+ */
+@Mapper
+public interface SyslogHourlyRollupMapper {
+
+    /**
+     * 建表（已存在则跳过），兼容未执行升级脚本的库
+     */
+    @Update("CREATE TABLE IF NOT EXISTS t_log_syslog_hourly (" +
+            "stat_hour datetime NOT NULL, " +
+            "source_ip varchar(50) NOT NULL DEFAULT '', " +
+            "severity int NOT NULL DEFAULT -1, " +
+            "facility int NOT NULL DEFAULT -1, " +
+            "device_type varchar(50) NOT NULL DEFAULT '', " +
+            "rule_id int NOT NULL DEFAULT 0, " +
+            "event_id int NOT NULL DEFAULT 0, " +
+            "log_count bigint NOT NULL DEFAULT 0, " +
+            "PRIMARY KEY (stat_hour, source_ip, severity, facility, device_type, rule_id, event_id)" +
+            ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4")
+    void createTableIfNotExists();
+
+    /**
+     * 汇总表是否有数据
+     */
+    @Select("SELECT COUNT(*) FROM (SELECT 1 FROM t_log_syslog_hourly LIMIT 1) t")
+    int countAny();
+
+    /**
+     * 累加计数（增量可以为负，用于重新匹配后调整规则/事件维度）
+     */
+    @Insert("<script>" +
+            "INSERT INTO t_log_syslog_hourly (stat_hour, source_ip, severity, facility, device_type, rule_id, event_id, log_count) VALUES " +
+            "<foreach collection='list' item='item' separator=','>" +
+            "(#{item.key.statHour}, COALESCE(#{item.key.sourceIp}, ''), COALESCE(#{item.key.severity}, -1), " +
+            "COALESCE(#{item.key.facility}, -1), COALESCE(#{item.key.deviceType}, ''), " +
+            "COALESCE(#{item.key.ruleId}, 0), COALESCE(#{item.key.eventId}, 0), #{item.count})" +
+            "</foreach>" +
+            " ON DUPLICATE KEY UPDATE log_count = log_count + VALUES(log_count)" +
+            "</script>")
+    int upsertCounts(@Param("list") List<SyslogHourlyRollup.Delta> list);
+
+    /**
+     * 从原始日志回填主键区间 (fromId, toId] 的汇总（去重折叠的重复条数计入）
+     */
+    @Insert("INSERT INTO t_log_syslog_hourly (stat_hour, source_ip, severity, facility, device_type, rule_id, event_id, log_count) " +
+            "SELECT DATE_FORMAT(received_at, '%Y-%m-%d %H:00:00'), COALESCE(source_ip, ''), COALESCE(severity, -1), " +
+            "COALESCE(facility, -1), COALESCE(device_type, ''), COALESCE(matched_rule_id, 0), COALESCE(matched_event_id, 0), SUM(repeat_count) " +
+            "FROM t_log_syslog " +
+            "WHERE id > #{fromId} AND id <= #{toId} AND received_at IS NOT NULL " +
+            "GROUP BY 1, 2, 3, 4, 5, 6, 7 " +
+            "ON DUPLICATE KEY UPDATE log_count = log_count + VALUES(log_count)")
+    int backfillRange(@Param("fromId") Long fromId, @Param("toId") Long toId);
+
+    /**
+     * 删除指定小时之前的汇总
+     */
+    @Delete("DELETE FROM t_log_syslog_hourly WHERE stat_hour < #{beforeHour}")
+    int deleteBefore(@Param("beforeHour") LocalDateTime beforeHour);
+
+    /**
+     * 日志总数
+     */
+    @Select("SELECT COALESCE(SUM(log_count), 0) FROM t_log_syslog_hourly " +
+            "WHERE stat_hour >= #{fromHour} AND stat_hour <= #{toHour}")
+    Long sumTotal(@Param("fromHour") LocalDateTime fromHour, @Param("toHour") LocalDateTime toHour);
+
+    /**
+     * 汇总指标一次扫描：日志总数、告警级别（0~2）与错误级别（0~3）日志数
+     */
+    @Select("SELECT COALESCE(SUM(log_count), 0) as total_logs, " +
+            "COALESCE(SUM(CASE WHEN severity >= 0 AND severity <= 2 THEN log_count ELSE 0 END), 0) as alert_count, " +
+            "COALESCE(SUM(CASE WHEN severity >= 0 AND severity <= 3 THEN log_count ELSE 0 END), 0) as error_count " +
+            "FROM t_log_syslog_hourly " +
+            "WHERE stat_hour >= #{fromHour} AND stat_hour <= #{toHour}")
+    Map<String, Object> sumSummary(@Param("fromHour") LocalDateTime fromHour, @Param("toHour") LocalDateTime toHour);
+
+    /**
+     * 出现过的来源IP数，extraSources 为尚未写入汇总表的来源，与表中来源合并去重
+     */
+    @Select("<script>" +
+            "SELECT COUNT(DISTINCT source_ip) FROM (" +
+            "SELECT source_ip FROM t_log_syslog_hourly " +
+            "WHERE stat_hour &gt;= #{fromHour} AND stat_hour &lt;= #{toHour} AND source_ip &lt;&gt; ''" +
+            "<foreach collection='extraSources' item='ip'> UNION ALL SELECT #{ip}</foreach>" +
+            ") t" +
+            "</script>")
+    long countDistinctSources(@Param("fromHour") LocalDateTime fromHour, @Param("toHour") LocalDateTime toHour,
+                              @Param("extraSources") Collection<String> extraSources);
+
+    /**
+     * 按列表查询的维度过滤条件汇总日志数（关键字、主机名、模板、资产、仅告警不在汇总维度内，由调用方排除）
+     */
+    @Select("<script>" +
+            "SELECT COALESCE(SUM(log_count), 0) FROM t_log_syslog_hourly " +
+            "WHERE stat_hour &gt;= #{fromHour} AND stat_hour &lt;= #{toHour}" +
+            "<if test='q.sourceIps != null and q.sourceIps.size() > 0'> AND source_ip IN " +
+            "<foreach item='ip' collection='q.sourceIps' open='(' separator=',' close=')'>#{ip}</foreach></if>" +
+            "<if test='q.facilities != null and q.facilities.size() > 0'> AND facility IN " +
+            "<foreach item='facility' collection='q.facilities' open='(' separator=',' close=')'>#{facility}</foreach></if>" +
+            "<if test='q.severities != null and q.severities.size() > 0'> AND severity IN " +
+            "<foreach item='severity' collection='q.severities' open='(' separator=',' close=')'>#{severity}</foreach></if>" +
+            "<if test='q.eventIds != null and q.eventIds.size() > 0'> AND event_id IN " +
+            "<foreach item='eventId' collection='q.eventIds' open='(' separator=',' close=')'>#{eventId}</foreach></if>" +
+            "<if test='q.ruleIds != null and q.ruleIds.size() > 0'> AND rule_id IN " +
+            "<foreach item='ruleId' collection='q.ruleIds' open='(' separator=',' close=')'>#{ruleId}</foreach></if>" +
+            "<if test='q.deviceTypes != null and q.deviceTypes.size() > 0'> AND device_type IN " +
+            "<foreach item='deviceType' collection='q.deviceTypes' open='(' separator=',' close=')'>#{deviceType}</foreach></if>" +
+            "</script>")
+    Long sumFiltered(@Param("fromHour") LocalDateTime fromHour, @Param("toHour") LocalDateTime toHour,
+                     @Param("q") LogQueryDTO q);
+
+    /**
+     * 最早的汇总小时，表为空时返回 null
+     */
+    @Select("SELECT MIN(stat_hour) FROM t_log_syslog_hourly")
+    LocalDateTime selectMinHour();
+
+    /**
+     * 按小时、来源IP汇总（来源概要回填用）
+     */
+    @Select("SELECT stat_hour, NULLIF(source_ip, '') as source_ip, SUM(log_count) as log_count " +
+            "FROM t_log_syslog_hourly " +
+            "WHERE stat_hour >= #{fromHour} AND stat_hour <= #{toHour} " +
+            "GROUP BY stat_hour, source_ip")
+    List<Map<String, Object>> sumByHourAndSource(@Param("fromHour") LocalDateTime fromHour,
+                                                 @Param("toHour") LocalDateTime toHour);
+
+    /**
+     * 按小时、严重级别汇总
+     */
+    @Select("SELECT DATE_FORMAT(stat_hour, '%Y-%m-%d %H:00:00') as time_hour, NULLIF(severity, -1) as severity, " +
+            "SUM(log_count) as log_count " +
+            "FROM t_log_syslog_hourly " +
+            "WHERE stat_hour >= #{fromHour} AND stat_hour <= #{toHour} " +
+            "GROUP BY stat_hour, severity")
+    List<Map<String, Object>> sumByHourAndSeverity(@Param("fromHour") LocalDateTime fromHour,
+                                                   @Param("toHour") LocalDateTime toHour);
+
+    /**
+     * 按来源IP汇总
+     */
+    @Select("SELECT NULLIF(source_ip, '') as source_ip, SUM(log_count) as log_count " +
+            "FROM t_log_syslog_hourly " +
+            "WHERE stat_hour >= #{fromHour} AND stat_hour <= #{toHour} " +
+            "GROUP BY source_ip")
+    List<Map<String, Object>> sumBySource(@Param("fromHour") LocalDateTime fromHour,
+                                          @Param("toHour") LocalDateTime toHour);
+
+    /**
+     * 按严重级别汇总
+     */
+    @Select("SELECT NULLIF(severity, -1) as severity, SUM(log_count) as log_count " +
+            "FROM t_log_syslog_hourly " +
+            "WHERE stat_hour >= #{fromHour} AND stat_hour <= #{toHour} " +
+            "GROUP BY severity")
+    List<Map<String, Object>> sumBySeverity(@Param("fromHour") LocalDateTime fromHour,
+                                            @Param("toHour") LocalDateTime toHour);
+
+    /**
+     * 按设备类型汇总
+     */
+    @Select("SELECT NULLIF(device_type, '') as device_type, SUM(log_count) as log_count " +
+            "FROM t_log_syslog_hourly " +
+            "WHERE stat_hour >= #{fromHour} AND stat_hour <= #{toHour} " +
+            "GROUP BY device_type")
+    List<Map<String, Object>> sumByDeviceType(@Param("fromHour") LocalDateTime fromHour,
+                                              @Param("toHour") LocalDateTime toHour);
+
+    /**
+     * 按命中规则汇总（不含未匹配）
+     */
+    @Select("SELECT rule_id, SUM(log_count) as log_count " +
+            "FROM t_log_syslog_hourly " +
+            "WHERE stat_hour >= #{fromHour} AND stat_hour <= #{toHour} AND rule_id <> 0 " +
+            "GROUP BY rule_id")
+    List<Map<String, Object>> sumByRule(@Param("fromHour") LocalDateTime fromHour,
+                                        @Param("toHour") LocalDateTime toHour);
+}
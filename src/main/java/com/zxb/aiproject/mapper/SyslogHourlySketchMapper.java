@@ -0,0 +1,62 @@
+package com.zxb.aiproject.mapper;
+
+import com.zxb.aiproject.entity.SyslogHourlySketch;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Syslog小时来源概要Mapper
+ * 查询参数 fromHour/toHour 为整点，两端都包含。
+ */
+@Mapper
+public interface SyslogHourlySketchMapper {
+
+    /**
+     * 建表（已存在则跳过），兼容未执行升级脚本的库
+     */
+    @Update("CREATE TABLE IF NOT EXISTS t_log_syslog_hourly_sketch (" +
+            "stat_hour datetime NOT NULL, " +
+            "log_count bigint NOT NULL DEFAULT 0, " +
+            "source_hll blob NOT NULL, " +
+            "top_sources mediumblob NOT NULL, " +
+            "PRIMARY KEY (stat_hour)" +
+            ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4")
+    void createTableIfNotExists();
+
+    /**
+     * 概要表是否有数据
+     */
+    @Select("SELECT COUNT(*) FROM (SELECT 1 FROM t_log_syslog_hourly_sketch LIMIT 1) t")
+    int countAny();
+
+    @Select("SELECT stat_hour, log_count, source_hll, top_sources FROM t_log_syslog_hourly_sketch " +
+            "WHERE stat_hour = #{statHour}")
+    SyslogHourlySketch selectByHour(@Param("statHour") LocalDateTime statHour);
+
+    @Select("SELECT stat_hour, log_count, source_hll, top_sources FROM t_log_syslog_hourly_sketch " +
+            "WHERE stat_hour >= #{fromHour} AND stat_hour <= #{toHour}")
+    List<SyslogHourlySketch> selectRange(@Param("fromHour") LocalDateTime fromHour,
+                                         @Param("toHour") LocalDateTime toHour);
+
+    /**
+     * 写入合并后的小时概要（整行覆盖）
+     */
+    @Insert("INSERT INTO t_log_syslog_hourly_sketch (stat_hour, log_count, source_hll, top_sources) " +
+            "VALUES (#{statHour}, #{logCount}, #{sourceHll}, #{topSources}) " +
+            "ON DUPLICATE KEY UPDATE log_count = VALUES(log_count), source_hll = VALUES(source_hll), " +
+            "top_sources = VALUES(top_sources)")
+    int upsert(SyslogHourlySketch sketch);
+
+    /**
+     * 删除指定小时之前的概要
+     */
+    @Delete("DELETE FROM t_log_syslog_hourly_sketch WHERE stat_hour < #{beforeHour}")
+    int deleteBefore(@Param("beforeHour") LocalDateTime beforeHour);
+}
@@ -0,0 +1,60 @@
+package com.zxb.aiproject.mapper;
+
+import com.zxb.aiproject.syslog.template.SyslogTemplateMiner;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Syslog模板小时计数Mapper
+ * 查询参数 fromHour/toHour 为整点，两端都包含。
+ */
+@Mapper
+public interface SyslogTemplateHourlyMapper {
+
+    /**
+     * 建表（已存在则跳过），兼容未执行升级脚本的库
+     */
+    @Update("CREATE TABLE IF NOT EXISTS t_log_syslog_template_hourly (" +
+            "stat_hour datetime NOT NULL, " +
+            "template_id int NOT NULL, " +
+            "log_count bigint NOT NULL DEFAULT 0, " +
+            "PRIMARY KEY (stat_hour, template_id)" +
+            ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4")
+    void createTableIfNotExists();
+
+    /**
+     * 累加计数
+     */
+    @Insert("<script>" +
+            "INSERT INTO t_log_syslog_template_hourly (stat_hour, template_id, log_count) VALUES " +
+            "<foreach collection='list' item='item' separator=','>" +
+            "(#{item.statHour}, #{item.templateId}, #{item.count})" +
+            "</foreach>" +
+            " ON DUPLICATE KEY UPDATE log_count = log_count + VALUES(log_count)" +
+            "</script>")
+    int upsertCounts(@Param("list") List<SyslogTemplateMiner.Delta> list);
+
+    /**
+     * 按模板汇总
+     */
+    @Select("SELECT template_id, SUM(log_count) as log_count " +
+            "FROM t_log_syslog_template_hourly " +
+            "WHERE stat_hour >= #{fromHour} AND stat_hour <= #{toHour} " +
+            "GROUP BY template_id")
+    List<Map<String, Object>> sumByTemplate(@Param("fromHour") LocalDateTime fromHour,
+                                            @Param("toHour") LocalDateTime toHour);
+
+    /**
+     * 删除指定小时之前的计数
+     */
+    @Delete("DELETE FROM t_log_syslog_template_hourly WHERE stat_hour < #{beforeHour}")
+    int deleteBefore(@Param("beforeHour") LocalDateTime beforeHour);
+}
@@ -0,0 +1,49 @@
+package com.zxb.aiproject.mapper;
+
+import com.zxb.aiproject.entity.SyslogTemplate;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.List;
+
+/**
+ * Syslog日志模板Mapper
+ */
+@Mapper
+public interface SyslogTemplateMapper {
+
+    /**
+     * 建表（已存在则跳过），兼容未执行升级脚本的库
+     */
+    @Update("CREATE TABLE IF NOT EXISTS t_log_syslog_template (" +
+            "id int NOT NULL, " +
+            "template text NOT NULL, " +
+            "token_count int NOT NULL DEFAULT 0, " +
+            "first_seen_at datetime NOT NULL, " +
+            "updated_at datetime DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP, " +
+            "PRIMARY KEY (id), " +
+            "KEY idx_first_seen_at (first_seen_at)" +
+            ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4")
+    void createTableIfNotExists();
+
+    /**
+     * 全部模板，按ID升序
+     */
+    @Select("SELECT id, template, token_count, first_seen_at FROM t_log_syslog_template ORDER BY id")
+    List<SyslogTemplate> selectAll();
+
+    /**
+     * 写入新模板或更新泛化后的模板内容（首次出现时间不变）
+     */
+    @Insert("<script>" +
+            "INSERT INTO t_log_syslog_template (id, template, token_count, first_seen_at) VALUES " +
+            "<foreach collection='list' item='item' separator=','>" +
+            "(#{item.id}, #{item.template}, #{item.tokenCount}, #{item.firstSeenAt})" +
+            "</foreach>" +
+            " ON DUPLICATE KEY UPDATE template = VALUES(template)" +
+            "</script>")
+    int upsertTemplates(@Param("list") List<SyslogTemplate> list);
+}
@@ -2,16 +2,9 @@ package com.zxb.aiproject.service.Impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.zxb.aiproject.entity.Alert;
-import com.zxb.aiproject.entity.Asset;
-import com.zxb.aiproject.entity.CloudHost;
-import com.zxb.aiproject.entity.CloudVirtualMachine;
-import com.zxb.aiproject.entity.CloudStorage;
 import com.zxb.aiproject.mapper.AlertMapper;
-import com.zxb.aiproject.mapper.AssetMapper;
-import com.zxb.aiproject.mapper.CloudHostMapper;
-import com.zxb.aiproject.mapper.CloudVirtualMachineMapper;
-import com.zxb.aiproject.mapper.CloudStorageMapper;
 import com.zxb.aiproject.service.AlertService;
+import com.zxb.aiproject.stats.CoreStatsCounters;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -29,16 +22,7 @@ public class AlertServiceImpl implements AlertService {
     private AlertMapper alertMapper;
 
     @Autowired
-    private AssetMapper assetMapper;
-
-    @Autowired
-    private CloudHostMapper cloudHostMapper;
-
-    @Autowired
-    private CloudVirtualMachineMapper cloudVirtualMachineMapper;
-
-    @Autowired
-    private CloudStorageMapper cloudStorageMapper;
+    private CoreStatsCounters coreStatsCounters;
 
     @Override
     public List<Alert> filterAlerts(String severity, String status, String deviceType, String keyword, String alertCategory, String startTime, String endTime) {
@@ -135,88 +119,48 @@ public class AlertServiceImpl implements AlertService {
         log.info("获取告警统计信息");
         
         try {
-            // 1. 获取告警统计数据
-            Map<String, Object> alertStats = alertMapper.getAlertStatistics();
-            
-            // 2. 获取设备统计数据（只统计设备管理页面显示的三大类设备）
-            QueryWrapper<Asset> deviceQuery = new QueryWrapper<>();
-            deviceQuery.eq("deleted", 0)
-                      .in("category_id", 5, 6, 7, 8, 9, 10, 11, 12, 13, 14);  // 只统计三大类设备
-            
-            // 总设备数（只包含设备管理页面的三大类）
-            Long totalDevices = assetMapper.selectCount(deviceQuery);
-            
+            // 全部计数来自内存，不查询数据库
+            Map<String, Long> counts = coreStatsCounters.read();
+
+            // 1. 告警统计数据
+            Map<String, Object> alertStats = new HashMap<>();
+            alertStats.put("total", counts.get(CoreStatsCounters.ALERT_TOTAL));
+            alertStats.put("critical", counts.get(CoreStatsCounters.ALERT_CRITICAL));
+            alertStats.put("warning", counts.get(CoreStatsCounters.ALERT_WARNING));
+            alertStats.put("info", counts.get(CoreStatsCounters.ALERT_INFO));
+            alertStats.put("activeCount", counts.get(CoreStatsCounters.ALERT_ACTIVE));
+            alertStats.put("acknowledgedCount", counts.get(CoreStatsCounters.ALERT_ACKNOWLEDGED));
+            alertStats.put("resolvedCount", counts.get(CoreStatsCounters.ALERT_RESOLVED));
+
+            // 2. 设备统计数据（只统计设备管理页面显示的三大类设备，category_id 5-14）
+            Long totalDevices = counts.get(CoreStatsCounters.DEVICE_TOTAL);
+
             // 在线设备数（状态为online或正常的设备，只统计三大类设备）
-            QueryWrapper<Asset> onlineQuery = new QueryWrapper<>();
-            onlineQuery.eq("deleted", 0)
-                      .in("category_id", 5, 6, 7, 8, 9, 10, 11, 12, 13, 14)  // 只统计三大类设备
-                      .in("asset_status", "online", "normal", "运行中", "正常");
-            Long onlineDevices = assetMapper.selectCount(onlineQuery);
+            Long onlineDevices = counts.get(CoreStatsCounters.DEVICE_ONLINE);
             
             // 异常设备数
             Long abnormalDevices = totalDevices - onlineDevices;
             
-            // 3. 按设备类型统计（只统计设备管理页面显示的三大类设备）
+            // 3. 按设备类型统计
             // 服务器类设备 (category_id 5-7: Web服务器、数据库服务器、应用服务器)
-            QueryWrapper<Asset> serverQuery = new QueryWrapper<>();
-            serverQuery.eq("deleted", 0)
-                      .in("category_id", 5, 6, 7);  // Web服务器、数据库服务器、应用服务器
-            Long serverDevices = assetMapper.selectCount(serverQuery);
-            
-            QueryWrapper<Asset> serverOnlineQuery = new QueryWrapper<>();
-            serverOnlineQuery.eq("deleted", 0)
-                            .in("category_id", 5, 6, 7)
-                            .in("asset_status", "online", "normal", "运行中", "正常");
-            Long serverOnlineDevices = assetMapper.selectCount(serverOnlineQuery);
+            Long serverDevices = counts.get(CoreStatsCounters.SERVER_TOTAL);
+            Long serverOnlineDevices = counts.get(CoreStatsCounters.SERVER_ONLINE);
             
             // 网络设备 (category_id 8-12: 交换机、路由器、防火墙、无线AP、网关)
-            QueryWrapper<Asset> networkQuery = new QueryWrapper<>();
-            networkQuery.eq("deleted", 0)
-                       .in("category_id", 8, 9, 10, 11, 12);  // 交换机、路由器、防火墙、无线AP、网关
-            Long networkDevices = assetMapper.selectCount(networkQuery);
-            
-            QueryWrapper<Asset> networkOnlineQuery = new QueryWrapper<>();
-            networkOnlineQuery.eq("deleted", 0)
-                             .in("category_id", 8, 9, 10, 11, 12)
-                             .in("asset_status", "online", "normal", "运行中", "正常");
-            Long networkOnlineDevices = assetMapper.selectCount(networkOnlineQuery);
-            
-            // 存储设备 (parent_id = 3: NAS存储、SAN存储)
-            QueryWrapper<Asset> storageQuery = new QueryWrapper<>();
-            storageQuery.eq("deleted", 0)
-                       .in("category_id", 13, 14);  // NAS存储、SAN存储
-            Long storageDevices = assetMapper.selectCount(storageQuery);
-            
-            QueryWrapper<Asset> storageOnlineQuery = new QueryWrapper<>();
-            storageOnlineQuery.eq("deleted", 0)
-                             .in("category_id", 13, 14)
-                             .in("asset_status", "online", "normal", "运行中", "正常");
-            Long storageOnlineDevices = assetMapper.selectCount(storageOnlineQuery);
-
-            // 云平台设备统计（从独立的云平台表中获取）
-            // 云主机
-            QueryWrapper<CloudHost> cloudHostQuery = new QueryWrapper<>();
-            Long cloudHostTotal = cloudHostMapper.selectCount(cloudHostQuery);
-
-            QueryWrapper<CloudHost> cloudHostOnlineQuery = new QueryWrapper<>();
-            cloudHostOnlineQuery.eq("status", "running");
-            Long cloudHostOnline = cloudHostMapper.selectCount(cloudHostOnlineQuery);
-
-            // 虚拟机
-            QueryWrapper<CloudVirtualMachine> vmQuery = new QueryWrapper<>();
-            Long vmTotal = cloudVirtualMachineMapper.selectCount(vmQuery);
-
-            QueryWrapper<CloudVirtualMachine> vmOnlineQuery = new QueryWrapper<>();
-            vmOnlineQuery.eq("status", "running");
-            Long vmOnline = cloudVirtualMachineMapper.selectCount(vmOnlineQuery);
-
-            // 云存储
-            QueryWrapper<CloudStorage> cloudStorageQuery = new QueryWrapper<>();
-            Long cloudStorageTotal = cloudStorageMapper.selectCount(cloudStorageQuery);
-
-            QueryWrapper<CloudStorage> cloudStorageOnlineQuery = new QueryWrapper<>();
-            cloudStorageOnlineQuery.eq("status", "in-use");
-            Long cloudStorageOnline = cloudStorageMapper.selectCount(cloudStorageOnlineQuery);
+            Long networkDevices = counts.get(CoreStatsCounters.NETWORK_TOTAL);
+            Long networkOnlineDevices = counts.get(CoreStatsCounters.NETWORK_ONLINE);
+            
+            // 存储设备 (category_id 13-14: NAS存储、SAN存储)
+            Long storageDevices = counts.get(CoreStatsCounters.STORAGE_TOTAL);
+            Long storageOnlineDevices = counts.get(CoreStatsCounters.STORAGE_ONLINE);
+
+            // 云平台设备统计（独立的云平台表）
+            Long cloudHostTotal = counts.get(CoreStatsCounters.CLOUD_HOST_TOTAL);
+            Long cloudHostOnline = counts.get(CoreStatsCounters.CLOUD_HOST_ONLINE);
+            Long vmTotal = counts.get(CoreStatsCounters.VM_TOTAL);
+            Long vmOnline = counts.get(CoreStatsCounters.VM_ONLINE);
+            Long cloudStorageTotal = counts.get(CoreStatsCounters.CLOUD_STORAGE_TOTAL);
+            Long cloudStorageOnline = counts.get(CoreStatsCounters.CLOUD_STORAGE_ONLINE);
 
             // 云平台汇总
             Long cloudDevices = cloudHostTotal + vmTotal + cloudStorageTotal;
@@ -6,6 +6,7 @@ import com.zxb.aiproject.entity.AssetCategory;
 import com.zxb.aiproject.mapper.AssetMapper;
 import com.zxb.aiproject.mapper.AssetCategoryMapper;
 import com.zxb.aiproject.service.AssetService;
+import com.zxb.aiproject.syslog.asset.SyslogAssetIndex;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -27,6 +28,9 @@ public class AssetServiceImpl implements AssetService {
     @Autowired
     private AssetCategoryMapper assetCategoryMapper;
 
+    @Autowired
+    private SyslogAssetIndex syslogAssetIndex;
+
     @Override
     public List<Map<String, Object>> getAssetStatisticsByCategory() {
         log.info("获取资产统计数据（按分类）");
@@ -297,6 +301,7 @@ public class AssetServiceImpl implements AssetService {
             // 插入数据库
             int result = assetMapper.insert(asset);
             log.info("资产插入结果: {}, 生成的ID: {}", result, asset.getId());
+            syslogAssetIndex.onAssetChanged(asset.getId());
 
             return result > 0;
 
@@ -328,6 +333,7 @@ public class AssetServiceImpl implements AssetService {
 
             int result = assetMapper.updateById(asset);
             log.info("资产更新结果: {}", result);
+            syslogAssetIndex.onAssetChanged(asset.getId());
 
             return result > 0;
 
@@ -368,6 +374,7 @@ public class AssetServiceImpl implements AssetService {
             log.info("步骤4: 执行逻辑删除");
             int deleteResult = assetMapper.deleteById(id);
             log.info("逻辑删除结果: {}, 影响行数: {}", deleteResult > 0 ? "成功" : "失败", deleteResult);
+            syslogAssetIndex.onAssetChanged(id);
 
             if (deleteResult > 0) {
                 log.info("=== 资产删除成功 ===");
@@ -486,6 +493,7 @@ public class AssetServiceImpl implements AssetService {
                     asset.setDeleted(1);
                     asset.setUpdateTime(LocalDateTime.now());
                     assetMapper.updateById(asset);
+                    syslogAssetIndex.onAssetChanged(id);
                 }
             }
 
@@ -3,7 +3,7 @@ package com.zxb.aiproject.service.Impl;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.zxb.aiproject.entity.LinePerformance;
 import com.zxb.aiproject.entity.NetworkLine;
-import com.zxb.aiproject.mapper.LinePerformanceMapper;
+import com.zxb.aiproject.lineperf.LinePerformanceRollups;
 import com.zxb.aiproject.mapper.NetworkLineMapper;
 import com.zxb.aiproject.service.NetworkLineService;
 import lombok.extern.slf4j.Slf4j;
@@ -27,7 +27,7 @@ public class NetworkLineServiceImpl implements NetworkLineService {
     private NetworkLineMapper networkLineMapper;
     
     @Autowired
-    private LinePerformanceMapper linePerformanceMapper;
+    private LinePerformanceRollups linePerformanceRollups;
 
     @Override
     public Map<String, Object> getLinesList(String provider, String status, String keyword) {
@@ -86,13 +86,8 @@ public class NetworkLineServiceImpl implements NetworkLineService {
                 lineData.put("monthlyCost", line.getMonthlyCost());
                 lineData.put("notes", line.getNotes());
                 
-                // 获取最新性能数据
-                QueryWrapper<LinePerformance> perfQuery = new QueryWrapper<>();
-                perfQuery.eq("line_id", line.getId());
-                perfQuery.orderByDesc("probe_time");
-                perfQuery.last("LIMIT 1");
-                
-                LinePerformance latestPerf = linePerformanceMapper.selectOne(perfQuery);
+                // 获取最新性能数据（来自内存中的专线性能汇总）
+                LinePerformance latestPerf = linePerformanceRollups.latest(line.getId());
                 if (latestPerf != null) {
                     lineData.put("latency", latestPerf.getLatency());
                     lineData.put("jitter", latestPerf.getJitter());
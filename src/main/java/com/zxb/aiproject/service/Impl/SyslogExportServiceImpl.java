@@ -0,0 +1,60 @@
+package com.zxb.aiproject.service.Impl;
+
+import com.zxb.aiproject.dto.LogQueryDTO;
+import com.zxb.aiproject.entity.SyslogEntry;
+import com.zxb.aiproject.mapper.SyslogEntryMapper;
+import com.zxb.aiproject.service.SyslogExportService;
+import com.zxb.aiproject.syslog.archive.SyslogArchiveStore;
+import com.zxb.aiproject.syslog.export.SyslogExportWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Syslog导出服务实现
+ * 通过 MyBatis 游标逐行读取，读一行写一行；游标依赖的 SqlSession 由只读事务保持到遍历结束。
+ * 数据库部分之后接着写出热数据边界之前的归档日志，归档按块解压，同样不在内存中累积结果。
+ */
+@Slf4j
+@Service
+public class SyslogExportServiceImpl implements SyslogExportService {
+
+    @Autowired
+    private SyslogEntryMapper syslogEntryMapper;
+
+    @Autowired
+    private SyslogArchiveStore syslogArchiveStore;
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportSyslog(LogQueryDTO query, String format, boolean gzip, OutputStream out) throws IOException {
+        String normalized = SyslogExportWriter.normalizeFormat(format);
+        GZIPOutputStream gzipOut = gzip && !"xlsx".equals(normalized) ? new GZIPOutputStream(out, 64 * 1024) : null;
+        long count = 0;
+        long start = System.currentTimeMillis();
+        try (SyslogExportWriter writer = SyslogExportWriter.create(normalized, gzipOut != null ? gzipOut : out);
+             Cursor<SyslogEntry> cursor = syslogEntryMapper.streamSyslogExport(query)) {
+            for (SyslogEntry entry : cursor) {
+                writer.write(entry);
+                count++;
+            }
+            if (query.getHotFrom() != null) {
+                count += syslogArchiveStore.scan(query, writer::write);
+            }
+            writer.finish();
+        }
+        if (gzipOut != null) {
+            gzipOut.finish();
+        }
+        out.flush();
+        log.info("Syslog导出完成: 格式={}, gzip={}, 行数={}, 耗时={}ms", normalized, gzipOut != null, count,
+                System.currentTimeMillis() - start);
+        return count;
+    }
+}
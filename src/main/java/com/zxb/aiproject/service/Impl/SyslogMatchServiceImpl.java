@@ -0,0 +1,314 @@
+package com.zxb.aiproject.service.Impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.zxb.aiproject.config.SyslogProperties;
+import com.zxb.aiproject.entity.LogRule;
+import com.zxb.aiproject.entity.SyslogEntry;
+import com.zxb.aiproject.mapper.LogRuleMapper;
+import com.zxb.aiproject.mapper.SyslogEntryMapper;
+import com.zxb.aiproject.service.SyslogMatchService;
+import com.zxb.aiproject.syslog.CompiledLogRuleSet;
+import com.zxb.aiproject.syslog.LogMatchResult;
+import com.zxb.aiproject.syslog.SyslogHourlyRollup;
+import com.zxb.aiproject.syslog.SyslogPersistListener;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Syslog日志匹配服务实现
+ * 启用的规则被编译为 {@link CompiledLogRuleSet}，规则变更时整体重建后原子替换，匹配线程无锁读取。
+ * 新日志在入库管道中匹配后一次写入；规则变更后由补偿扫描把变更前入库、当时未命中的日志按新规则补匹配，
+ * 补偿扫描只回看最近 matchSweepDays 天接收的日志，更早的历史交给重新匹配任务。
+ * 入库后仍未按当前规则匹配过的日志（关闭入库匹配、或按旧规则匹配的批次晚于变更落库）由入库回调推进扫描终点，交给补偿扫描。
+ */
+@Slf4j
+@Service
+public class SyslogMatchServiceImpl implements SyslogMatchService, SyslogPersistListener {
+
+    /**
+     * 命中规则且严重程度不低于该级别（error及以上）的日志标记为告警
+     */
+    private static final int ALERT_SEVERITY_THRESHOLD = 3;
+
+    @Autowired
+    private LogRuleMapper logRuleMapper;
+
+    @Autowired
+    private SyslogEntryMapper syslogEntryMapper;
+
+    @Autowired
+    private SyslogProperties syslogProperties;
+
+    @Autowired
+    private SyslogHourlyRollup syslogHourlyRollup;
+
+    private final AtomicReference<ActiveRules> activeRules =
+            new AtomicReference<>(new ActiveRules(CompiledLogRuleSet.EMPTY, 0, null));
+
+    /**
+     * 未匹配日志扫描游标（已检查过的最大ID），规则变更后归零，按接收时间只重扫最近的分区
+     */
+    private final AtomicLong unmatchedCursor = new AtomicLong();
+
+    /**
+     * 补偿扫描终点ID，只增不减：规则变更时推进到当时的最大ID，
+     * 之后入库的日志若未按当前规则匹配过，由入库回调推进到其ID
+     */
+    private final AtomicLong sweepTarget = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        try {
+            reloadRules();
+        } catch (Exception e) {
+            log.error("加载日志匹配规则失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 兜底：定期重建，覆盖直接改库等未经接口的规则变更
+     */
+    @Scheduled(fixedDelay = 300000, initialDelay = 300000)
+    public void scheduledReload() {
+        try {
+            reloadRules();
+        } catch (Exception e) {
+            log.warn("定期重建日志匹配规则失败: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized void reloadRules() {
+        long start = System.currentTimeMillis();
+        List<LogRule> rules = new ArrayList<>();
+        for (LogRule rule : logRuleMapper.selectList(new QueryWrapper<LogRule>().eq("is_enabled", true))) {
+            // log_type 历史数据大小写不一致，空值按Syslog处理
+            if (rule.getLogType() == null || "Syslog".equalsIgnoreCase(rule.getLogType())) {
+                rules.add(rule);
+            }
+        }
+
+        Map<Integer, List<Integer>> ruleEvents = new HashMap<>();
+        for (Map<String, Object> row : logRuleMapper.selectRuleEventMappings()) {
+            Integer ruleId = toInteger(row.get("rule_id"));
+            Integer eventId = toInteger(row.get("event_id"));
+            if (ruleId != null && eventId != null) {
+                ruleEvents.computeIfAbsent(ruleId, k -> new ArrayList<>()).add(eventId);
+            }
+        }
+
+        String fingerprint = fingerprint(rules, ruleEvents);
+        ActiveRules current = activeRules.get();
+        if (fingerprint.equals(current.fingerprint)) {
+            log.debug("日志匹配规则未变化, 跳过重建");
+            return;
+        }
+
+        CompiledLogRuleSet compiled = CompiledLogRuleSet.compile(rules, ruleEvents);
+        // 先切换规则再取最大ID：取值之前落库的日志由本次扫描覆盖，之后落库的旧规则批次由入库回调推进终点
+        activeRules.set(new ActiveRules(compiled, current.generation + 1, fingerprint));
+        unmatchedCursor.set(0);
+        Long maxId = syslogEntryMapper.selectMaxId();
+        if (maxId != null) {
+            sweepTarget.accumulateAndGet(maxId, Math::max);
+        }
+        log.info("日志匹配规则已重建: 版本={}, 规则数={}, 关键字数={}, 耗时={}ms", current.generation + 1,
+                compiled.size(), compiled.getKeywordCount(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 入库回调：未命中且不是按当前规则匹配的日志（入库匹配关闭、旧规则批次、预写缓冲中旧版本已处理的日志）推进扫描终点
+     */
+    @Override
+    public void onPersisted(List<SyslogEntry> entries) {
+        long generation = activeRules.get().generation;
+        long maxId = 0;
+        for (SyslogEntry entry : entries) {
+            if (entry.getId() != null && entry.getMatchedRuleId() == null
+                    && !Objects.equals(entry.getMatchGeneration(), generation)) {
+                maxId = Math.max(maxId, entry.getId());
+            }
+        }
+        if (maxId > 0) {
+            sweepTarget.accumulateAndGet(maxId, Math::max);
+        }
+    }
+
+    /**
+     * 补偿扫描：追平尚未按当前规则匹配过的未命中日志。
+     * 终点在每轮开始时取定，持续入库时本轮也能结束，之后入库的日志留给下一轮
+     */
+    @Scheduled(fixedDelayString = "${syslog.match-sweep-interval-ms:10000}", initialDelay = 30000)
+    public void catchUpSweep() {
+        int batchSize = Math.max(1, syslogProperties.getMatchSweepBatchSize());
+        long target = sweepTarget.get();
+        try {
+            while (unmatchedCursor.get() < target) {
+                matchUnmatchedLogs(batchSize);
+            }
+        } catch (Exception e) {
+            log.warn("未匹配日志补偿扫描失败: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public Map<String, Object> getSweepStatus() {
+        long cursor = unmatchedCursor.get();
+        long target = sweepTarget.get();
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("ruleGeneration", activeRules.get().generation);
+        data.put("sweepCursor", cursor);
+        data.put("sweepTarget", target);
+        data.put("sweepLag", Math.max(0, target - cursor));
+        return data;
+    }
+
+    @Override
+    public int getRuleCount() {
+        return activeRules.get().rules.size();
+    }
+
+    @Override
+    public Map<Integer, Long> getRuleRegexNanos() {
+        return activeRules.get().rules.getRegexNanos();
+    }
+
+    @Override
+    public LogMatchResult match(SyslogEntry syslogEntry) {
+        return activeRules.get().rules.match(syslogEntry);
+    }
+
+    @Override
+    public boolean applyMatch(SyslogEntry syslogEntry) {
+        ActiveRules active = activeRules.get();
+        LogMatchResult result = active.rules.match(syslogEntry);
+        syslogEntry.setMatchGeneration(active.generation);
+        syslogEntry.setMatchedRuleId(result.getPrimaryRuleId());
+        syslogEntry.setMatchedEventId(result.getPrimaryEventId());
+        syslogEntry.setIsAlert(isAlert(syslogEntry, result));
+        return result.isMatched();
+    }
+
+    @Override
+    public boolean matchSingleLog(SyslogEntry syslogEntry) {
+        boolean matched = applyMatch(syslogEntry);
+        // 按 (id, received_at) 定位，未入库的日志只返回匹配结果
+        if (syslogEntry.getId() != null && syslogEntry.getReceivedAt() != null) {
+            syslogEntryMapper.updateMatchResult(syslogEntry.getId(), syslogEntry.getReceivedAt(),
+                    syslogEntry.getMatchedRuleId(), syslogEntry.getMatchedEventId(), syslogEntry.getIsAlert());
+        }
+        return matched;
+    }
+
+    @Override
+    public synchronized int matchUnmatchedLogs(Integer limit) {
+        int batchLimit = limit == null || limit <= 0 ? 100 : limit;
+        long target = sweepTarget.get();
+        if (unmatchedCursor.get() >= target) {
+            return 0;
+        }
+        LocalDateTime since = LocalDate.now().minusDays(Math.max(1, syslogProperties.getMatchSweepDays())).atStartOfDay();
+        List<SyslogEntry> logs = syslogEntryMapper.selectUnmatchedAfter(unmatchedCursor.get(), target, since, batchLimit);
+        if (logs.isEmpty()) {
+            unmatchedCursor.accumulateAndGet(target, Math::max);
+            return 0;
+        }
+        List<SyslogEntry> matched = new ArrayList<>();
+        LocalDateTime from = null;
+        LocalDateTime to = null;
+        for (SyslogEntry entry : logs) {
+            if (applyMatch(entry)) {
+                matched.add(entry);
+                from = from == null || entry.getReceivedAt().isBefore(from) ? entry.getReceivedAt() : from;
+                to = to == null || entry.getReceivedAt().isAfter(to) ? entry.getReceivedAt() : to;
+            }
+        }
+        // 本批命中的日志用一条 UPDATE ... CASE 回写
+        if (!matched.isEmpty()) {
+            syslogEntryMapper.batchUpdateMatchResult(matched, from, to);
+            for (SyslogEntry entry : matched) {
+                syslogHourlyRollup.onMatchChanged(entry, null, null);
+            }
+        }
+        unmatchedCursor.accumulateAndGet(logs.get(logs.size() - 1).getId(), Math::max);
+        log.info("未匹配日志扫描: 检查 {} 条, 匹配 {} 条, 游标={}/{}", logs.size(), matched.size(), unmatchedCursor.get(), target);
+        return matched.size();
+    }
+
+    @Override
+    public boolean isLogMatchRule(SyslogEntry syslogEntry, LogRule rule) {
+        if (rule == null || Boolean.FALSE.equals(rule.getIsEnabled())) {
+            return false;
+        }
+        return CompiledLogRuleSet.compile(Collections.singletonList(rule), Collections.emptyMap())
+                .match(syslogEntry).isMatched();
+    }
+
+    private boolean isAlert(SyslogEntry entry, LogMatchResult result) {
+        return result.isMatched() && entry.getSeverity() != null && entry.getSeverity() <= ALERT_SEVERITY_THRESHOLD;
+    }
+
+    private Integer toInteger(Object value) {
+        return value instanceof Number ? ((Number) value).intValue() : null;
+    }
+
+    /**
+     * 规则集指纹：按ID排序拼接参与匹配的字段与关联事件，用于判断定期重建时规则是否真的变化
+     */
+    private static String fingerprint(List<LogRule> rules, Map<Integer, List<Integer>> ruleEvents) {
+        List<LogRule> sorted = new ArrayList<>(rules);
+        sorted.sort(Comparator.comparing(LogRule::getId, Comparator.nullsFirst(Comparator.naturalOrder())));
+        StringBuilder sb = new StringBuilder();
+        for (LogRule rule : sorted) {
+            sb.append(rule.getId()).append('\u0001')
+                    .append(rule.getSourceType()).append('\u0001')
+                    .append(rule.getSourceIpStart()).append('\u0001')
+                    .append(rule.getSourceIpEnd()).append('\u0001')
+                    .append(rule.getFilterType()).append('\u0001')
+                    .append(rule.getFilterFacility()).append('\u0001')
+                    .append(rule.getFilterSeverity()).append('\u0001')
+                    .append(rule.getFilterKeywords()).append('\u0001')
+                    .append(rule.getEffectiveTimeType()).append('\u0001')
+                    .append(rule.getEffectiveStartTime()).append('\u0001')
+                    .append(rule.getEffectiveEndTime()).append('\n');
+        }
+        for (Map.Entry<Integer, List<Integer>> e : new TreeMap<>(ruleEvents).entrySet()) {
+            List<Integer> events = new ArrayList<>(e.getValue());
+            Collections.sort(events);
+            sb.append(e.getKey()).append('=').append(events).append('\n');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 当前生效的编译规则及其版本号，二者整体替换，匹配时读取一次即可得到一致的版本
+     */
+    private static final class ActiveRules {
+        private final CompiledLogRuleSet rules;
+        private final long generation;
+        private final String fingerprint;
+
+        private ActiveRules(CompiledLogRuleSet rules, long generation, String fingerprint) {
+            this.rules = rules;
+            this.generation = generation;
+            this.fingerprint = fingerprint;
+        }
+    }
+}
@@ -0,0 +1,395 @@
+package com.zxb.aiproject.service.Impl;
+
+import com.zxb.aiproject.config.SyslogProperties;
+import com.zxb.aiproject.dto.LogQueryDTO;
+import com.zxb.aiproject.entity.LogRule;
+import com.zxb.aiproject.mapper.LogRuleMapper;
+import com.zxb.aiproject.mapper.SyslogEntryMapper;
+import com.zxb.aiproject.mapper.SyslogHourlyRollupMapper;
+import com.zxb.aiproject.service.SyslogStatisticsService;
+import com.zxb.aiproject.syslog.SyslogHourlyRollup;
+import com.zxb.aiproject.syslog.SyslogRollupKey;
+import com.zxb.aiproject.syslog.sketch.SourceSketch;
+import com.zxb.aiproject.syslog.sketch.SpaceSaving;
+import com.zxb.aiproject.syslog.sketch.SyslogSourceSketches;
+import com.zxb.aiproject.syslog.template.LogTemplate;
+import com.zxb.aiproject.syslog.template.SyslogTemplateMiner;
+import com.zxb.aiproject.util.ExpiringCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Syslog统计服务实现
+ * 汇总表按维度 GROUP BY 后与内存增量在应用层合并，不再扫描原始日志表。
+ * 来源数与来源 Top N 的精确统计要读出窗口内全部来源，长时间窗口改为合并小时来源概要。
+ * 汇总指标是日志页面访问最多的接口，各项数字一次扫描得出，结果按整点对齐的时间范围短时缓存供同时打开的看板共用。
+ */
+@Service
+public class SyslogStatisticsServiceImpl implements SyslogStatisticsService {
+
+    private static final DateTimeFormatter HOUR_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:00:00");
+
+    /**
+     * 告警级别上限（紧急、告警、严重）
+     */
+    private static final int ALERT_SEVERITY = 2;
+
+    /**
+     * 错误级别上限（含错误）
+     */
+    private static final int ERROR_SEVERITY = 3;
+
+    private static final String TIME_FIELD_RECEIVED_AT = "received_at";
+
+    private static final String TIME_FIELD_EVENT_TIME = "event_time";
+
+    @Autowired
+    private SyslogProperties syslogProperties;
+
+    @Autowired
+    private SyslogHourlyRollup syslogHourlyRollup;
+
+    @Autowired
+    private SyslogHourlyRollupMapper syslogHourlyRollupMapper;
+
+    @Autowired
+    private LogRuleMapper logRuleMapper;
+
+    @Autowired
+    private SyslogTemplateMiner syslogTemplateMiner;
+
+    @Autowired
+    private SyslogSourceSketches syslogSourceSketches;
+
+    @Autowired
+    private SyslogEntryMapper syslogEntryMapper;
+
+    /**
+     * 汇总结果按 (开始时间, 结束时间, 时间字段, 是否精确) 短时缓存，按接收时间统计时开始、结束时间取整点
+     */
+    private ExpiringCache<List<Object>, Map<String, Object>> summaryCache;
+
+    @PostConstruct
+    public void init() {
+        SyslogProperties.Statistics config = syslogProperties.getStatistics();
+        summaryCache = new ExpiringCache<>(config.getSummaryCacheMs(), Math.max(1, config.getSummaryCacheSize()));
+    }
+
+    @Override
+    public Map<String, Object> getSummary(LocalDateTime startTime, LocalDateTime endTime, String timeField,
+                                          boolean exact) {
+        boolean byEventTime;
+        if (TIME_FIELD_RECEIVED_AT.equals(timeField)) {
+            byEventTime = false;
+        } else if (TIME_FIELD_EVENT_TIME.equals(timeField)) {
+            byEventTime = true;
+        } else {
+            throw new IllegalArgumentException("不支持的时间字段: " + timeField);
+        }
+        // 按事件时间统计本身就是精确值，不区分 exact；按接收时间读取汇总时两端按整点对齐，
+        // 缓存键同样取整点，相隔几秒的请求（前端以当前时间为结束时间）共用一份结果
+        List<Object> key = byEventTime
+                ? Arrays.asList(startTime, endTime, timeField, false)
+                : Arrays.asList(SyslogRollupKey.truncateToHour(startTime), SyslogRollupKey.truncateToHour(endTime),
+                timeField, exact);
+        Map<String, Object> summary = summaryCache.get(key, () -> byEventTime
+                ? summarizeByEventTime(startTime, endTime) : summarize(startTime, endTime, exact));
+        // 缓存中的结果被多个请求共用，返回副本
+        return new HashMap<>(summary);
+    }
+
+    /**
+     * 按接收时间：小时汇总一次扫描得到总数与告警、错误数，来源数取来源概要估算或汇总表精确统计
+     */
+    private Map<String, Object> summarize(LocalDateTime startTime, LocalDateTime endTime, boolean exact) {
+        SourceSketch sketch = exact || !syslogSourceSketches.isAvailable()
+                ? null : syslogSourceSketches.read(startTime, endTime);
+        return syslogHourlyRollup.read(startTime, endTime, (fromHour, toHour, unflushed) -> {
+            Map<String, Object> totals = syslogHourlyRollupMapper.sumSummary(fromHour, toHour);
+            long totalLogs = toLong(totals == null ? null : totals.get("total_logs"));
+            long alertCount = toLong(totals == null ? null : totals.get("alert_count"));
+            long errorCount = toLong(totals == null ? null : totals.get("error_count"));
+            // 未落库增量中的来源交给同一条计数语句去重
+            Set<String> unflushedSources = new HashSet<>();
+            for (SyslogHourlyRollup.Delta delta : unflushed) {
+                SyslogRollupKey deltaKey = delta.getKey();
+                totalLogs += delta.getCount();
+                Integer severity = deltaKey.getSeverity();
+                if (severity != null && severity <= ALERT_SEVERITY) {
+                    alertCount += delta.getCount();
+                }
+                if (severity != null && severity <= ERROR_SEVERITY) {
+                    errorCount += delta.getCount();
+                }
+                if (sketch == null && deltaKey.getSourceIp() != null && delta.getCount() > 0) {
+                    unflushedSources.add(deltaKey.getSourceIp());
+                }
+            }
+            Map<String, Object> summary = new HashMap<>();
+            summary.put("totalLogs", totalLogs);
+            if (sketch != null) {
+                summary.put("totalDevices", sketch.estimateDistinctSources());
+                summary.put("totalDevicesApproximate", true);
+                summary.put("totalDevicesRelativeError", sketch.getDistinctRelativeError());
+            } else {
+                summary.put("totalDevices", syslogHourlyRollupMapper.countDistinctSources(fromHour, toHour, unflushedSources));
+                summary.put("totalDevicesApproximate", false);
+            }
+            summary.put("alertCount", alertCount);
+            summary.put("errorCount", errorCount);
+            return summary;
+        });
+    }
+
+    private Map<String, Object> summarizeByEventTime(LocalDateTime startTime, LocalDateTime endTime) {
+        Map<String, Object> totals = syslogEntryMapper.selectSummaryByEventTime(startTime, endTime);
+        Map<String, Object> summary = new HashMap<>();
+        summary.put("totalLogs", toLong(totals == null ? null : totals.get("total_logs")));
+        summary.put("totalDevices", toLong(totals == null ? null : totals.get("total_devices")));
+        summary.put("totalDevicesApproximate", false);
+        summary.put("alertCount", toLong(totals == null ? null : totals.get("alert_count")));
+        summary.put("errorCount", toLong(totals == null ? null : totals.get("error_count")));
+        return summary;
+    }
+
+    @Override
+    public Long estimateLogCount(LogQueryDTO query) {
+        if (!Boolean.TRUE.equals(syslogProperties.getRollup().getEnabled()) || syslogHourlyRollup.isBackfilling()
+                || (query.getKeyword() != null && !query.getKeyword().isEmpty())
+                || (query.getHostname() != null && !query.getHostname().isEmpty())
+                || Boolean.TRUE.equals(query.getAlertOnly())
+                || !isEmpty(query.getTemplateIds()) || !isEmpty(query.getAssetIds())) {
+            return null;
+        }
+        LocalDateTime endTime = query.getEndTime() != null ? query.getEndTime() : LocalDateTime.now();
+        LocalDateTime startTime = query.getStartTime();
+        if (startTime == null) {
+            LocalDateTime minHour = syslogHourlyRollupMapper.selectMinHour();
+            startTime = minHour != null ? minHour : endTime;
+        }
+        return syslogHourlyRollup.read(startTime, endTime, (fromHour, toHour, unflushed) -> {
+            long total = toLong(syslogHourlyRollupMapper.sumFiltered(fromHour, toHour, query));
+            for (SyslogHourlyRollup.Delta delta : unflushed) {
+                SyslogRollupKey key = delta.getKey();
+                if (accepts(query.getSourceIps(), key.getSourceIp()) && accepts(query.getFacilities(), key.getFacility())
+                        && accepts(query.getSeverities(), key.getSeverity()) && accepts(query.getEventIds(), key.getEventId())
+                        && accepts(query.getRuleIds(), key.getRuleId()) && accepts(query.getDeviceTypes(), key.getDeviceType())) {
+                    total += delta.getCount();
+                }
+            }
+            return Math.max(0, total);
+        });
+    }
+
+    @Override
+    public List<Map<String, Object>> getHourlyTrend(LocalDateTime startTime, LocalDateTime endTime) {
+        Map<Object, Long> counts = sum(startTime, endTime, syslogHourlyRollupMapper::sumByHourAndSeverity,
+                row -> Arrays.asList(row.get("time_hour"), toInteger(row.get("severity"))),
+                key -> Arrays.asList(key.getStatHour().format(HOUR_FORMATTER), key.getSeverity()));
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (Map.Entry<Object, Long> item : counts.entrySet()) {
+            List<?> key = (List<?>) item.getKey();
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("time_hour", key.get(0));
+            row.put("severity", key.get(1));
+            row.put("log_count", item.getValue());
+            rows.add(row);
+        }
+        rows.sort(Comparator.comparing((Map<String, Object> row) -> (String) row.get("time_hour"))
+                .thenComparing(row -> (Integer) row.get("severity"), Comparator.nullsFirst(Comparator.naturalOrder())));
+        return rows;
+    }
+
+    @Override
+    public List<Map<String, Object>> getTopSources(LocalDateTime startTime, LocalDateTime endTime, int limit,
+                                                   boolean exact) {
+        // Top N 超过每小时跟踪的来源数时估算不可靠
+        boolean useSketch = !exact && syslogSourceSketches.isAvailable()
+                && limit <= syslogProperties.getSketch().getTopCapacity();
+        SourceSketch sketch = useSketch ? syslogSourceSketches.read(startTime, endTime) : null;
+        if (sketch != null) {
+            List<Map<String, Object>> rows = new ArrayList<>();
+            for (SpaceSaving.Counter counter : sketch.topSources(limit)) {
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("source_ip", counter.getKey().isEmpty() ? null : counter.getKey());
+                row.put("log_count", counter.getCount());
+                row.put("max_error", counter.getError());
+                rows.add(row);
+            }
+            return rows;
+        }
+        Map<Object, Long> counts = sum(startTime, endTime, syslogHourlyRollupMapper::sumBySource,
+                row -> row.get("source_ip"), SyslogRollupKey::getSourceIp);
+        List<Map<String, Object>> rows = toRows(counts, "source_ip", "log_count");
+        sortByCountDesc(rows, "log_count");
+        rows = rows.subList(0, Math.min(rows.size(), Math.max(0, limit)));
+        for (Map<String, Object> row : rows) {
+            row.put("max_error", 0L);
+        }
+        return rows;
+    }
+
+    @Override
+    public List<Map<String, Object>> getSeverityDistribution(LocalDateTime startTime, LocalDateTime endTime) {
+        Map<Object, Long> counts = sum(startTime, endTime, syslogHourlyRollupMapper::sumBySeverity,
+                row -> toInteger(row.get("severity")), SyslogRollupKey::getSeverity);
+        List<Map<String, Object>> rows = toRows(counts, "severity", "log_count");
+        rows.sort(Comparator.comparing(row -> (Integer) row.get("severity"), Comparator.nullsFirst(Comparator.naturalOrder())));
+        return rows;
+    }
+
+    @Override
+    public List<Map<String, Object>> getDeviceTypeDistribution(LocalDateTime startTime, LocalDateTime endTime) {
+        Map<Object, Long> counts = sum(startTime, endTime, syslogHourlyRollupMapper::sumByDeviceType,
+                row -> row.get("device_type"), SyslogRollupKey::getDeviceType);
+        List<Map<String, Object>> rows = toRows(counts, "device_type", "log_count");
+        sortByCountDesc(rows, "log_count");
+        return rows;
+    }
+
+    @Override
+    public List<Map<String, Object>> getTopRules(LocalDateTime startTime, LocalDateTime endTime, int limit) {
+        Map<Object, Long> counts = sum(startTime, endTime, syslogHourlyRollupMapper::sumByRule,
+                row -> toInteger(row.get("rule_id")), SyslogRollupKey::getRuleId);
+        counts.remove(null);
+        List<Map<String, Object>> rows = toRows(counts, "rule_id", "match_count");
+        if (rows.isEmpty()) {
+            return rows;
+        }
+        List<Integer> ruleIds = new ArrayList<>();
+        for (Object ruleId : counts.keySet()) {
+            ruleIds.add((Integer) ruleId);
+        }
+        Map<Integer, String> ruleNames = new HashMap<>();
+        for (LogRule rule : logRuleMapper.selectBatchIds(ruleIds)) {
+            ruleNames.put(rule.getId(), rule.getRuleName());
+        }
+        // 与原先 INNER JOIN 一致，已删除的规则不计入
+        rows.removeIf(row -> !ruleNames.containsKey(row.get("rule_id")));
+        for (Map<String, Object> row : rows) {
+            row.put("rule_name", ruleNames.get(row.get("rule_id")));
+        }
+        sortByCountDesc(rows, "match_count");
+        return rows.subList(0, Math.min(rows.size(), Math.max(0, limit)));
+    }
+
+    @Override
+    public List<Map<String, Object>> getTopTemplates(LocalDateTime startTime, LocalDateTime endTime, int limit) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (Map.Entry<Integer, Long> item : syslogTemplateMiner.countByTemplate(startTime, endTime).entrySet()) {
+            LogTemplate template = syslogTemplateMiner.getTemplate(item.getKey());
+            if (template != null && item.getValue() > 0) {
+                rows.add(toTemplateRow(template, item.getValue()));
+            }
+        }
+        sortByCountDesc(rows, "log_count");
+        return rows.subList(0, Math.min(rows.size(), Math.max(0, limit)));
+    }
+
+    @Override
+    public List<Map<String, Object>> getNewTemplates(LocalDateTime startTime, LocalDateTime endTime, int limit) {
+        List<LogTemplate> templates = new ArrayList<>();
+        for (LogTemplate template : syslogTemplateMiner.getTemplates()) {
+            LocalDateTime firstSeenAt = template.getFirstSeenAt();
+            if (firstSeenAt != null && !firstSeenAt.isBefore(startTime) && !firstSeenAt.isAfter(endTime)) {
+                templates.add(template);
+            }
+        }
+        templates.sort(Comparator.comparing(LogTemplate::getFirstSeenAt).reversed()
+                .thenComparing(LogTemplate::getId));
+        templates = templates.subList(0, Math.min(templates.size(), Math.max(0, limit)));
+        if (templates.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Integer, Long> counts = syslogTemplateMiner.countByTemplate(startTime, endTime);
+        List<Map<String, Object>> rows = new ArrayList<>(templates.size());
+        for (LogTemplate template : templates) {
+            rows.add(toTemplateRow(template, counts.getOrDefault(template.getId(), 0L)));
+        }
+        return rows;
+    }
+
+    private Map<String, Object> toTemplateRow(LogTemplate template, long count) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("template_id", template.getId());
+        row.put("template", template.getText());
+        row.put("log_count", count);
+        row.put("first_seen_at", template.getFirstSeenAt());
+        return row;
+    }
+
+    /**
+     * 读取汇总表分组结果并合并内存增量
+     */
+    private Map<Object, Long> sum(LocalDateTime startTime, LocalDateTime endTime,
+                                  BiFunction<LocalDateTime, LocalDateTime, List<Map<String, Object>>> query,
+                                  Function<Map<String, Object>, Object> rowKey,
+                                  Function<SyslogRollupKey, Object> deltaKey) {
+        return syslogHourlyRollup.read(startTime, endTime, (fromHour, toHour, unflushed) ->
+                merge(query.apply(fromHour, toHour), rowKey, unflushed, deltaKey));
+    }
+
+    private Map<Object, Long> merge(List<Map<String, Object>> rows, Function<Map<String, Object>, Object> rowKey,
+                                    List<SyslogHourlyRollup.Delta> unflushed, Function<SyslogRollupKey, Object> deltaKey) {
+        Map<Object, Long> counts = new HashMap<>();
+        for (Map<String, Object> row : rows) {
+            counts.merge(rowKey.apply(row), toLong(row.get("log_count")), Long::sum);
+        }
+        for (SyslogHourlyRollup.Delta delta : unflushed) {
+            counts.merge(deltaKey.apply(delta.getKey()), delta.getCount(), Long::sum);
+        }
+        // 重新匹配调整后可能出现计数归零的分组
+        counts.values().removeIf(count -> count <= 0);
+        return counts;
+    }
+
+    private List<Map<String, Object>> toRows(Map<Object, Long> counts, String keyName, String countName) {
+        List<Map<String, Object>> rows = new ArrayList<>(counts.size());
+        for (Map.Entry<Object, Long> item : counts.entrySet()) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put(keyName, item.getKey());
+            row.put(countName, item.getValue());
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private void sortByCountDesc(List<Map<String, Object>> rows, String countName) {
+        rows.sort(Comparator.comparing((Map<String, Object> row) -> (Long) row.get(countName)).reversed());
+    }
+
+    private static boolean isEmpty(Collection<?> values) {
+        return values == null || values.isEmpty();
+    }
+
+    /**
+     * 未设置该维度的过滤条件，或维度值在条件中
+     */
+    private static <T> boolean accepts(Collection<T> allowed, T value) {
+        return isEmpty(allowed) || allowed.contains(value);
+    }
+
+    private long toLong(Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : 0L;
+    }
+
+    private Integer toInteger(Object value) {
+        return value instanceof Number ? ((Number) value).intValue() : null;
+    }
+}
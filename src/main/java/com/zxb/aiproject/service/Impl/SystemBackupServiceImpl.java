@@ -2,6 +2,7 @@ package com.zxb.aiproject.service.Impl;
 
 import com.zxb.aiproject.service.SystemBackupService;
 import com.zxb.aiproject.service.SystemConfigService;
+import com.zxb.aiproject.syslog.SyslogPartitionManager;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -27,6 +28,9 @@ public class SystemBackupServiceImpl implements SystemBackupService {
     @Autowired
     private SystemConfigService systemConfigService;
 
+    @Autowired
+    private SyslogPartitionManager syslogPartitionManager;
+
     @Value("${spring.datasource.url}")
     private String dbUrl;
 
@@ -307,10 +311,8 @@ public class SystemBackupServiceImpl implements SystemBackupService {
                     "DELETE FROM cloud_alert WHERE status = '已处理' AND create_time < DATE_SUB(NOW(), INTERVAL ? DAY)",
                     metricsRetentionDays));
 
-            // 清理日志数据
-            cleanupStats.put("t_log_syslog", safeDelete(
-                    "DELETE FROM t_log_syslog WHERE receive_time < DATE_SUB(NOW(), INTERVAL ? DAY)",
-                    metricsRetentionDays));
+            // 清理日志数据：按日志设置的保留天数删除过期分区
+            cleanupStats.put("t_log_syslog", (int) Math.min(Integer.MAX_VALUE, syslogPartitionManager.purgeExpired()));
 
             // 清理日志事件
             cleanupStats.put("t_log_events", safeDelete(
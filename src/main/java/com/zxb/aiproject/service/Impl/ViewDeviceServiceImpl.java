@@ -7,6 +7,7 @@ import com.zxb.aiproject.entity.ViewDevice;
 import com.zxb.aiproject.mapper.AssetMapper;
 import com.zxb.aiproject.mapper.AssetCategoryMapper;
 import com.zxb.aiproject.service.ViewDeviceService;
+import com.zxb.aiproject.syslog.asset.SyslogAssetIndex;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -28,6 +29,9 @@ public class ViewDeviceServiceImpl implements ViewDeviceService {
     @Autowired
     private AssetCategoryMapper assetCategoryMapper;
 
+    @Autowired
+    private SyslogAssetIndex syslogAssetIndex;
+
     // 视频设备分类ID范围（父分类4及其子分类15-22）
     // 15-摄像头, 16-录像机, 17-显示器, 18-视频交换机, 19-视频服务器, 20-视频存储, 21-视频网关, 22-其他视频设备
     private static final List<Long> VIDEO_CATEGORY_IDS = Arrays.asList(15L, 16L, 17L, 18L, 19L, 20L, 21L, 22L);
@@ -235,7 +239,9 @@ public class ViewDeviceServiceImpl implements ViewDeviceService {
             asset.setCreateTime(LocalDateTime.now());
             asset.setUpdateTime(LocalDateTime.now());
             asset.setDeleted(0);
-            return assetMapper.insert(asset) > 0;
+            boolean inserted = assetMapper.insert(asset) > 0;
+            syslogAssetIndex.onAssetChanged(asset.getId());
+            return inserted;
         } catch (Exception e) {
             log.error("添加设备失败", e);
             return false;
@@ -278,7 +284,9 @@ public class ViewDeviceServiceImpl implements ViewDeviceService {
             }
 
             asset.setUpdateTime(LocalDateTime.now());
-            return assetMapper.updateById(asset) > 0;
+            boolean updated = assetMapper.updateById(asset) > 0;
+            syslogAssetIndex.onAssetChanged(asset.getId());
+            return updated;
         } catch (Exception e) {
             log.error("更新设备失败", e);
             return false;
@@ -292,7 +300,9 @@ public class ViewDeviceServiceImpl implements ViewDeviceService {
             if (asset != null) {
                 asset.setDeleted(1);
                 asset.setUpdateTime(LocalDateTime.now());
-                return assetMapper.updateById(asset) > 0;
+                boolean deleted = assetMapper.updateById(asset) > 0;
+                syslogAssetIndex.onAssetChanged(id);
+                return deleted;
             }
             return false;
         } catch (Exception e) {
@@ -19,7 +19,7 @@ public interface LogService {
     IPage<SyslogEntry> getSyslogPage(LogQueryDTO queryDTO);
 
     /**
-     * 导出Syslog日志
+     * 导出Syslog日志（结果一次性载入内存，大范围导出使用 SyslogExportService 流式导出）
      */
     List<SyslogEntry> exportSyslogData(LogQueryDTO queryDTO);
 
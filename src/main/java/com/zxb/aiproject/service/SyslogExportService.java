@@ -0,0 +1,20 @@
+package com.zxb.aiproject.service;
+
+import com.zxb.aiproject.dto.LogQueryDTO;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Syslog导出服务接口
+ */
+public interface SyslogExportService {
+
+    /**
+     * 按过滤条件流式导出到输出流，内存占用与导出行数无关
+     * @param format csv / ndjson / xlsx
+     * @param gzip 是否 gzip 压缩（xlsx 本身已压缩，忽略该参数）
+     * @return 导出行数
+     */
+    long exportSyslog(LogQueryDTO query, String format, boolean gzip, OutputStream out) throws IOException;
+}
@@ -2,15 +2,50 @@ package com.zxb.aiproject.service;
 
 import com.zxb.aiproject.entity.LogRule;
 import com.zxb.aiproject.entity.SyslogEntry;
-import org.springframework.stereotype.Service;
+import com.zxb.aiproject.syslog.LogMatchResult;
 
-import java.util.List;
+import java.util.Map;
 
 /**
  * Syslog日志匹配服务接口
  */
 public interface SyslogMatchService {
+
+    /**
+     * 重新加载启用的规则并编译，编译完成后原子替换当前匹配器
+     */
+    void reloadRules();
+
+    /**
+     * 计算日志命中的全部规则与事件，不修改日志
+     * @param syslogEntry 日志条目
+     * @return 匹配结果
+     */
+    LogMatchResult match(SyslogEntry syslogEntry);
+
+    /**
+     * 匹配并把结果写入日志实体的 matchedRuleId / matchedEventId / isAlert，不落库
+     * @param syslogEntry 日志条目
+     * @return 是否匹配成功
+     */
+    boolean applyMatch(SyslogEntry syslogEntry);
     
+    /**
+     * 补偿扫描进度：游标、目标ID与剩余差距
+     */
+    Map<String, Object> getSweepStatus();
+
+    /**
+     * 当前启用的规则数
+     */
+    int getRuleCount();
+
+    /**
+     * 各含正则关键字规则自上次重建以来的累计求值耗时
+     * @return 规则ID -> 纳秒
+     */
+    Map<Integer, Long> getRuleRegexNanos();
+
     /**
      * 对单条日志进行规则匹配
      * @param syslogEntry 日志条目
@@ -19,18 +54,12 @@ public interface SyslogMatchService {
     boolean matchSingleLog(SyslogEntry syslogEntry);
     
     /**
-     * 批量匹配未匹配的日志
+     * 批量匹配未匹配的日志（补偿扫描，只覆盖规则变更前已入库、最近 matchSweepDays 天接收的日志）
      * @param limit 每次处理的数量限制
      * @return 匹配成功的数量
      */
     int matchUnmatchedLogs(Integer limit);
     
-    /**
-     * 重新匹配所有日志（清空已有匹配结果）
-     * @return 匹配成功的数量
-     */
-    int rematchAllLogs();
-    
     /**
      * 检查日志是否匹配某个规则
      * @param log 日志条目
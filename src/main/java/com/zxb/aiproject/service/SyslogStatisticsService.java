@@ -0,0 +1,65 @@
+package com.zxb.aiproject.service;
+
+import com.zxb.aiproject.dto.LogQueryDTO;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Syslog统计服务接口
+ * 统计基于小时汇总（t_log_syslog_hourly + 未落库的内存增量），时间范围按整点对齐，两端所在的小时都计入。
+ * 来源数与来源 Top N 默认由小时来源概要合并估算并给出误差范围，exact 为 true 时按小时汇总精确统计（用于核对）。
+ */
+public interface SyslogStatisticsService {
+
+    /**
+     * 汇总：totalLogs、totalDevices、alertCount、errorCount；
+     * totalDevicesApproximate 表示来源数是否为估算值，估算时 totalDevicesRelativeError 为相对标准误差。
+     * timeField 为 received_at 时按小时汇总统计；为 event_time 时按事件时间精确范围扫描原始日志，来源数为精确值。
+     * 结果按参数短时缓存
+     * @throws IllegalArgumentException 不支持的时间字段
+     */
+    Map<String, Object> getSummary(LocalDateTime startTime, LocalDateTime endTime, String timeField, boolean exact);
+
+    /**
+     * 按小时汇总估算列表查询的日志数：时间范围按整点扩展且计入去重折叠的重复条数，通常略大于实际行数；
+     * 过滤条件含汇总维度之外的字段（关键字、主机名、模板、资产、仅告警）或汇总不可用时返回 null
+     */
+    Long estimateLogCount(LogQueryDTO query);
+
+    /**
+     * 按小时、严重级别统计日志数，行字段 time_hour、severity、log_count，按时间升序
+     */
+    List<Map<String, Object>> getHourlyTrend(LocalDateTime startTime, LocalDateTime endTime);
+
+    /**
+     * 来源IP Top N，行字段 source_ip、log_count、max_error（估算时 log_count 的最大高估量，精确统计时为0）
+     */
+    List<Map<String, Object>> getTopSources(LocalDateTime startTime, LocalDateTime endTime, int limit, boolean exact);
+
+    /**
+     * 严重级别分布，行字段 severity、log_count，按严重级别升序
+     */
+    List<Map<String, Object>> getSeverityDistribution(LocalDateTime startTime, LocalDateTime endTime);
+
+    /**
+     * 设备类型分布，行字段 device_type、log_count，按数量降序
+     */
+    List<Map<String, Object>> getDeviceTypeDistribution(LocalDateTime startTime, LocalDateTime endTime);
+
+    /**
+     * 命中规则 Top N（已删除的规则不计入），行字段 rule_id、rule_name、match_count
+     */
+    List<Map<String, Object>> getTopRules(LocalDateTime startTime, LocalDateTime endTime, int limit);
+
+    /**
+     * 日志模板 Top N，行字段 template_id、template、log_count、first_seen_at
+     */
+    List<Map<String, Object>> getTopTemplates(LocalDateTime startTime, LocalDateTime endTime, int limit);
+
+    /**
+     * 时间范围内首次出现的日志模板，按首次出现时间倒序，行字段同 getTopTemplates
+     */
+    List<Map<String, Object>> getNewTemplates(LocalDateTime startTime, LocalDateTime endTime, int limit);
+}
@@ -0,0 +1,409 @@
+package com.zxb.aiproject.stats;
+
+import com.zxb.aiproject.config.BigScreenProperties;
+import com.zxb.aiproject.entity.Alert;
+import com.zxb.aiproject.entity.Asset;
+import com.zxb.aiproject.entity.CloudHost;
+import com.zxb.aiproject.entity.CloudStorage;
+import com.zxb.aiproject.entity.CloudVirtualMachine;
+import com.zxb.aiproject.interceptor.EntityWriteInterceptor;
+import com.zxb.aiproject.mapper.AlertMapper;
+import com.zxb.aiproject.mapper.AssetMapper;
+import com.zxb.aiproject.mapper.CloudHostMapper;
+import com.zxb.aiproject.mapper.CloudStorageMapper;
+import com.zxb.aiproject.mapper.CloudVirtualMachineMapper;
+import com.zxb.aiproject.mapper.CoreStatsMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 核心统计计数（大屏核心统计、告警页统计）
+ * 计数保存在内存：基数来自一条条件聚合查询（{@link CoreStatsMapper#selectCoreStats}），之后经 Mapper 的写入
+ * 累加到 {@link LongAdder} 增量上，读取只做加法。新增告警、设备、云资源时按实体字段精确累加；更新、删除等
+ * 无法从参数得知前后状态的写入只标记待对账，稍后重新查询。此外按间隔定期对账，纠正事务回滚、
+ * 绕过 Mapper 的写入（如 JdbcTemplate）带来的偏差。
+ * 告警按月计数只保留本月与上月，跨月后首次读取时当场对账。
+ */
+@Slf4j
+@Component
+public class CoreStatsCounters implements EntityWriteInterceptor.Listener {
+
+    public static final String ASSET_ONLINE = "asset_online";
+    public static final String ASSET_OFFLINE = "asset_offline";
+    public static final String DEVICE_TOTAL = "device_total";
+    public static final String DEVICE_ONLINE = "device_online";
+    public static final String SERVER_TOTAL = "server_total";
+    public static final String SERVER_ONLINE = "server_online";
+    public static final String NETWORK_TOTAL = "network_total";
+    public static final String NETWORK_ONLINE = "network_online";
+    public static final String STORAGE_TOTAL = "storage_total";
+    public static final String STORAGE_ONLINE = "storage_online";
+    public static final String CLOUD_HOST_TOTAL = "cloud_host_total";
+    public static final String CLOUD_HOST_ONLINE = "cloud_host_online";
+    public static final String VM_TOTAL = "vm_total";
+    public static final String VM_ONLINE = "vm_online";
+    public static final String CLOUD_STORAGE_TOTAL = "cloud_storage_total";
+    public static final String CLOUD_STORAGE_ONLINE = "cloud_storage_online";
+    public static final String ALERT_TOTAL = "alert_total";
+    public static final String ALERT_CRITICAL = "alert_critical";
+    public static final String ALERT_WARNING = "alert_warning";
+    public static final String ALERT_INFO = "alert_info";
+    public static final String ALERT_ACTIVE = "alert_active";
+    public static final String ALERT_ACKNOWLEDGED = "alert_acknowledged";
+    public static final String ALERT_RESOLVED = "alert_resolved";
+
+    private static final List<String> COLUMNS = Arrays.asList(ASSET_ONLINE, ASSET_OFFLINE, DEVICE_TOTAL,
+            DEVICE_ONLINE, SERVER_TOTAL, SERVER_ONLINE, NETWORK_TOTAL, NETWORK_ONLINE, STORAGE_TOTAL, STORAGE_ONLINE,
+            CLOUD_HOST_TOTAL, CLOUD_HOST_ONLINE, VM_TOTAL, VM_ONLINE, CLOUD_STORAGE_TOTAL, CLOUD_STORAGE_ONLINE,
+            ALERT_TOTAL, ALERT_CRITICAL, ALERT_WARNING, ALERT_INFO, ALERT_ACTIVE, ALERT_ACKNOWLEDGED, ALERT_RESOLVED);
+
+    /**
+     * 大屏在线/离线判定的状态
+     */
+    private static final Set<String> ONLINE_STATUSES = new HashSet<>(Arrays.asList("online", "running"));
+
+    /**
+     * 设备管理页在线判定的状态
+     */
+    private static final Set<String> DEVICE_ONLINE_STATUSES =
+            new HashSet<>(Arrays.asList("online", "normal", "运行中", "正常"));
+
+    private static final Set<Long> SERVER_CATEGORIES = new HashSet<>(Arrays.asList(5L, 6L, 7L));
+
+    private static final Set<Long> NETWORK_CATEGORIES = new HashSet<>(Arrays.asList(8L, 9L, 10L, 11L, 12L));
+
+    private static final Set<Long> STORAGE_CATEGORIES = new HashSet<>(Arrays.asList(13L, 14L));
+
+    /**
+     * 写入会影响计数的 Mapper
+     */
+    private static final Set<String> WATCHED_MAPPERS = new HashSet<>(Arrays.asList(AlertMapper.class.getName(),
+            AssetMapper.class.getName(), CloudHostMapper.class.getName(),
+            CloudVirtualMachineMapper.class.getName(), CloudStorageMapper.class.getName()));
+
+    @Autowired
+    private BigScreenProperties bigScreenProperties;
+
+    @Autowired
+    private CoreStatsMapper coreStatsMapper;
+
+    @Autowired
+    private EntityWriteInterceptor entityWriteInterceptor;
+
+    private final AtomicReference<Generation> current = new AtomicReference<>(Generation.EMPTY);
+
+    private final AtomicBoolean dirty = new AtomicBoolean();
+
+    private final AtomicLong reconciles = new AtomicLong();
+
+    private final AtomicLong reconcileFailures = new AtomicLong();
+
+    private final AtomicLong exactWrites = new AtomicLong();
+
+    private final AtomicLong dirtyWrites = new AtomicLong();
+
+    /**
+     * 一代计数：基数加增量。对账时先换上新的增量、把旧增量挂为 retired，查询完成后以查询结果为基数、
+     * 丢弃 retired，整个过程中读取到的值都是连续的
+     */
+    private static final class Generation {
+        static final Generation EMPTY = new Generation(Collections.emptyMap(),
+                new ConcurrentHashMap<>(), Collections.emptyList(), 0L);
+
+        final Map<String, Long> base;
+        final ConcurrentHashMap<String, LongAdder> deltas;
+        final List<Map<String, LongAdder>> retired;
+        final long reconciledAtMillis;
+
+        Generation(Map<String, Long> base, ConcurrentHashMap<String, LongAdder> deltas,
+                   List<Map<String, LongAdder>> retired, long reconciledAtMillis) {
+            this.base = base;
+            this.deltas = deltas;
+            this.retired = retired;
+            this.reconciledAtMillis = reconciledAtMillis;
+        }
+
+        long get(String key) {
+            long value = base.getOrDefault(key, 0L) + sum(deltas, key);
+            for (Map<String, LongAdder> item : retired) {
+                value += sum(item, key);
+            }
+            return value;
+        }
+
+        private static long sum(Map<String, LongAdder> adders, String key) {
+            LongAdder adder = adders.get(key);
+            return adder == null ? 0L : adder.sum();
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        if (isEnabled()) {
+            entityWriteInterceptor.addListener(this);
+        }
+    }
+
+    /**
+     * 告警按月计数的名称
+     */
+    public static String monthKey(YearMonth month) {
+        return "alert_month:" + month;
+    }
+
+    /**
+     * 全部计数的当前值，含本月、上月告警数（{@link #monthKey}）；关闭内存计数时每次查询数据库
+     */
+    public Map<String, Long> read() {
+        YearMonth month = YearMonth.now();
+        if (!isEnabled()) {
+            return query(month);
+        }
+        Generation generation = current.get();
+        if (!generation.base.containsKey(monthKey(month))) {
+            // 启动后首次读取或跨月
+            synchronized (this) {
+                generation = current.get();
+                if (!generation.base.containsKey(monthKey(month))) {
+                    reconcile();
+                    generation = current.get();
+                }
+            }
+        }
+        Map<String, Long> values = new HashMap<>();
+        for (String key : generation.base.keySet()) {
+            values.put(key, generation.get(key));
+        }
+        return values;
+    }
+
+    /**
+     * 有待对账的写入时尽快对账，否则按间隔对账
+     */
+    @Scheduled(fixedDelayString = "${bigscreen.counters.dirty-delay-ms:2000}")
+    public void scheduledReconcile() {
+        if (!isEnabled()) {
+            return;
+        }
+        long interval = bigScreenProperties.getCounters().getReconcileIntervalMs();
+        if (!dirty.get() && System.currentTimeMillis() - current.get().reconciledAtMillis < interval) {
+            return;
+        }
+        try {
+            reconcile();
+        } catch (Exception e) {
+            log.warn("核心统计计数对账失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 重新查询全部计数作为基数，查询期间的写入保留在新的增量中
+     */
+    public synchronized void reconcile() {
+        dirty.set(false);
+        Generation before = current.get();
+        List<Map<String, LongAdder>> retired = new ArrayList<>(before.retired);
+        retired.add(before.deltas);
+        Generation pending = new Generation(before.base, new ConcurrentHashMap<>(), retired,
+                before.reconciledAtMillis);
+        current.set(pending);
+        Map<String, Long> base;
+        try {
+            base = query(YearMonth.now());
+        } catch (RuntimeException e) {
+            reconcileFailures.incrementAndGet();
+            dirty.set(true);
+            throw e;
+        }
+        current.set(new Generation(Collections.unmodifiableMap(base), pending.deltas, Collections.emptyList(),
+                System.currentTimeMillis()));
+        reconciles.incrementAndGet();
+    }
+
+    private Map<String, Long> query(YearMonth month) {
+        LocalDateTime currentMonthStart = month.atDay(1).atStartOfDay();
+        Map<String, Object> row = coreStatsMapper.selectCoreStats(currentMonthStart.minusMonths(1),
+                currentMonthStart, currentMonthStart.plusMonths(1));
+        Map<String, Long> values = new HashMap<>();
+        for (String column : COLUMNS) {
+            values.put(column, toLong(row == null ? null : row.get(column)));
+        }
+        values.put(monthKey(month), toLong(row == null ? null : row.get("alert_current_month")));
+        values.put(monthKey(month.minusMonths(1)), toLong(row == null ? null : row.get("alert_last_month")));
+        return values;
+    }
+
+    private static long toLong(Object value) {
+        // 空表时 SUM 为 NULL
+        return value instanceof Number ? ((Number) value).longValue() : 0L;
+    }
+
+    @Override
+    public void afterWrite(MappedStatement statement, Object parameter, int rows) {
+        String id = statement.getId();
+        int dot = id.lastIndexOf('.');
+        if (dot < 0 || rows == 0 || !WATCHED_MAPPERS.contains(id.substring(0, dot))) {
+            return;
+        }
+        if (rows == 1 && statement.getSqlCommandType() == SqlCommandType.INSERT && countInsert(parameter)) {
+            exactWrites.incrementAndGet();
+            return;
+        }
+        // 更新、删除、批量写入（批量执行器的行数为负）
+        dirtyWrites.incrementAndGet();
+        dirty.set(true);
+    }
+
+    /**
+     * 按新增的实体累加计数
+     * @return false 表示无法确定（如依赖数据库默认值的字段为空），需要对账
+     */
+    boolean countInsert(Object entity) {
+        if (entity instanceof Alert) {
+            return countAlert((Alert) entity);
+        }
+        if (entity instanceof Asset) {
+            return countAsset((Asset) entity);
+        }
+        if (entity instanceof CloudHost) {
+            return countCloud(((CloudHost) entity).getStatus(), "running", CLOUD_HOST_TOTAL, CLOUD_HOST_ONLINE);
+        }
+        if (entity instanceof CloudVirtualMachine) {
+            return countCloud(((CloudVirtualMachine) entity).getStatus(), "running", VM_TOTAL, VM_ONLINE);
+        }
+        if (entity instanceof CloudStorage) {
+            return countCloud(((CloudStorage) entity).getStatus(), "in-use", CLOUD_STORAGE_TOTAL,
+                    CLOUD_STORAGE_ONLINE);
+        }
+        return false;
+    }
+
+    private boolean countAlert(Alert alert) {
+        if (isDeleted(alert.getDeleted())) {
+            return true;
+        }
+        if (alert.getSeverity() == null || alert.getStatus() == null || alert.getOccurredTime() == null) {
+            return false;
+        }
+        add(ALERT_TOTAL);
+        switch (alert.getSeverity()) {
+            case "critical":
+                add(ALERT_CRITICAL);
+                break;
+            case "warning":
+                add(ALERT_WARNING);
+                break;
+            case "info":
+                add(ALERT_INFO);
+                break;
+            default:
+                break;
+        }
+        switch (alert.getStatus()) {
+            case "active":
+                add(ALERT_ACTIVE);
+                break;
+            case "acknowledged":
+                add(ALERT_ACKNOWLEDGED);
+                break;
+            case "resolved":
+                add(ALERT_RESOLVED);
+                break;
+            default:
+                break;
+        }
+        add(monthKey(YearMonth.from(alert.getOccurredTime())));
+        return true;
+    }
+
+    private boolean countAsset(Asset asset) {
+        if (isDeleted(asset.getDeleted())) {
+            return true;
+        }
+        String status = asset.getAssetStatus();
+        if (status == null) {
+            return false;
+        }
+        add(ONLINE_STATUSES.contains(status) ? ASSET_ONLINE : ASSET_OFFLINE);
+        Long category = asset.getCategoryId();
+        boolean online = DEVICE_ONLINE_STATUSES.contains(status);
+        if (SERVER_CATEGORIES.contains(category)) {
+            countDevice(online, SERVER_TOTAL, SERVER_ONLINE);
+        } else if (NETWORK_CATEGORIES.contains(category)) {
+            countDevice(online, NETWORK_TOTAL, NETWORK_ONLINE);
+        } else if (STORAGE_CATEGORIES.contains(category)) {
+            countDevice(online, STORAGE_TOTAL, STORAGE_ONLINE);
+        }
+        return true;
+    }
+
+    private void countDevice(boolean online, String totalKey, String onlineKey) {
+        add(DEVICE_TOTAL);
+        add(totalKey);
+        if (online) {
+            add(DEVICE_ONLINE);
+            add(onlineKey);
+        }
+    }
+
+    private boolean countCloud(String status, String onlineStatus, String totalKey, String onlineKey) {
+        if (status == null) {
+            return false;
+        }
+        add(totalKey);
+        if (onlineStatus.equals(status)) {
+            add(onlineKey);
+        }
+        return true;
+    }
+
+    private static boolean isDeleted(Integer deleted) {
+        return deleted != null && deleted != 0;
+    }
+
+    private void add(String key) {
+        current.get().deltas.computeIfAbsent(key, k -> new LongAdder()).increment();
+    }
+
+    public boolean isEnabled() {
+        return Boolean.TRUE.equals(bigScreenProperties.getCounters().getEnabled());
+    }
+
+    /**
+     * 监控数据
+     */
+    public Map<String, Object> getStats() {
+        Generation generation = current.get();
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("countersEnabled", isEnabled());
+        data.put("countersReconciledAt", generation.reconciledAtMillis);
+        data.put("countersReconciles", reconciles.get());
+        data.put("countersReconcileFailures", reconcileFailures.get());
+        data.put("countersExactWrites", exactWrites.get());
+        data.put("countersDirtyWrites", dirtyWrites.get());
+        data.put("countersDirty", dirty.get());
+        return data;
+    }
+}
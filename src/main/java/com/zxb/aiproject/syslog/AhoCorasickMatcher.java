@@ -0,0 +1,170 @@
+package com.zxb.aiproject.syslog;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.IntConsumer;
+
+/**
+ * Aho-Corasick 多模式匹配自动机（大小写不敏感）
+ * 一次扫描文本即可找出所有出现的关键字，耗时只与文本长度和命中数有关，与关键字数量无关。
+ * 构建完成后只读，可被多个线程共享。
+ */
+public final class AhoCorasickMatcher {
+
+    private static final int ROOT = 0;
+
+    /** 每个节点的子节点字符（升序），用于二分查找 */
+    private final char[][] childChars;
+
+    /** 与 childChars 对应的子节点编号 */
+    private final int[][] childNodes;
+
+    /** 失配指针 */
+    private final int[] fail;
+
+    /** 到达该节点时命中的关键字编号（已合并失配链上的输出） */
+    private final int[][] outputs;
+
+    private final int keywordCount;
+
+    private AhoCorasickMatcher(char[][] childChars, int[][] childNodes, int[] fail, int[][] outputs, int keywordCount) {
+        this.childChars = childChars;
+        this.childNodes = childNodes;
+        this.fail = fail;
+        this.outputs = outputs;
+        this.keywordCount = keywordCount;
+    }
+
+    /**
+     * 构建自动机
+     * @param keywords 关键字列表，下标即关键字编号；空串会被忽略
+     */
+    public static AhoCorasickMatcher build(List<String> keywords) {
+        List<TreeMap<Character, Integer>> trie = new ArrayList<>();
+        List<List<Integer>> nodeOutputs = new ArrayList<>();
+        trie.add(new TreeMap<>());
+        nodeOutputs.add(new ArrayList<>());
+
+        for (int k = 0; k < keywords.size(); k++) {
+            String keyword = keywords.get(k);
+            if (keyword == null || keyword.isEmpty()) {
+                continue;
+            }
+            int node = ROOT;
+            for (int i = 0; i < keyword.length(); i++) {
+                char c = Character.toLowerCase(keyword.charAt(i));
+                Integer next = trie.get(node).get(c);
+                if (next == null) {
+                    next = trie.size();
+                    trie.add(new TreeMap<>());
+                    nodeOutputs.add(new ArrayList<>());
+                    trie.get(node).put(c, next);
+                }
+                node = next;
+            }
+            nodeOutputs.get(node).add(k);
+        }
+
+        int size = trie.size();
+        char[][] childChars = new char[size][];
+        int[][] childNodes = new int[size][];
+        for (int n = 0; n < size; n++) {
+            TreeMap<Character, Integer> children = trie.get(n);
+            childChars[n] = new char[children.size()];
+            childNodes[n] = new int[children.size()];
+            int i = 0;
+            for (Map.Entry<Character, Integer> e : children.entrySet()) {
+                childChars[n][i] = e.getKey();
+                childNodes[n][i] = e.getValue();
+                i++;
+            }
+        }
+
+        // BFS 计算失配指针，并把失配节点的输出合并到当前节点
+        int[] fail = new int[size];
+        int[][] outputs = new int[size][];
+        outputs[ROOT] = toArray(nodeOutputs.get(ROOT));
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int child : childNodes[ROOT]) {
+            fail[child] = ROOT;
+            outputs[child] = toArray(nodeOutputs.get(child));
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            for (int i = 0; i < childChars[node].length; i++) {
+                char c = childChars[node][i];
+                int child = childNodes[node][i];
+                int f = fail[node];
+                int target;
+                while (true) {
+                    target = find(childChars, childNodes, f, c);
+                    if (target >= 0 || f == ROOT) {
+                        break;
+                    }
+                    f = fail[f];
+                }
+                fail[child] = target >= 0 && target != child ? target : ROOT;
+                outputs[child] = merge(toArray(nodeOutputs.get(child)), outputs[fail[child]]);
+                queue.add(child);
+            }
+        }
+        return new AhoCorasickMatcher(childChars, childNodes, fail, outputs, keywords.size());
+    }
+
+    /**
+     * 扫描文本，每命中一次关键字回调一次其编号（同一关键字可能多次回调）
+     */
+    public void search(CharSequence text, IntConsumer onMatch) {
+        if (text == null || childChars[ROOT].length == 0) {
+            return;
+        }
+        int node = ROOT;
+        for (int i = 0, len = text.length(); i < len; i++) {
+            char c = Character.toLowerCase(text.charAt(i));
+            int next;
+            while ((next = find(childChars, childNodes, node, c)) < 0 && node != ROOT) {
+                node = fail[node];
+            }
+            node = next < 0 ? ROOT : next;
+            int[] out = outputs[node];
+            for (int k : out) {
+                onMatch.accept(k);
+            }
+        }
+    }
+
+    public int getKeywordCount() {
+        return keywordCount;
+    }
+
+    private static int find(char[][] childChars, int[][] childNodes, int node, char c) {
+        int idx = Arrays.binarySearch(childChars[node], c);
+        return idx >= 0 ? childNodes[node][idx] : -1;
+    }
+
+    private static int[] toArray(List<Integer> list) {
+        int[] array = new int[list.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = list.get(i);
+        }
+        return array;
+    }
+
+    private static int[] merge(int[] own, int[] inherited) {
+        if (inherited.length == 0) {
+            return own;
+        }
+        if (own.length == 0) {
+            return inherited;
+        }
+        int[] merged = Arrays.copyOf(own, own.length + inherited.length);
+        System.arraycopy(inherited, 0, merged, own.length, inherited.length);
+        return merged;
+    }
+}
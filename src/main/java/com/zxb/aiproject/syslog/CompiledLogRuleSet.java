@@ -0,0 +1,478 @@
+package com.zxb.aiproject.syslog;
+
+import com.zxb.aiproject.entity.LogRule;
+import com.zxb.aiproject.entity.SyslogEntry;
+import com.zxb.aiproject.util.IpAddressUtil;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * 编译后的日志规则集（不可变，线程安全）
+ *
+ * 所有启用规则被编译成一组按规则下标对齐的位图：
+ * <ul>
+ *     <li>facility/severity：按 (facility, severity) 预先计算出满足条件的规则位图，O(1) 查表</li>
+ *     <li>来源IP：规则的 [sourceIpStart, sourceIpEnd] 切分成互不重叠的区间段，二分查找得到位图</li>
+ *     <li>关键字：全部字面关键字构建一个 Aho-Corasick 自动机，单次扫描消息得到命中规则位图；
+ *         含正则元字符的关键字只对已通过其它条件的候选规则求值</li>
+ * </ul>
+ * 单条消息的匹配代价取决于消息长度与候选规则数，而不是规则总数。
+ */
+public final class CompiledLogRuleSet {
+
+    private static final int FACILITY_SLOTS = 25;
+    private static final int SEVERITY_SLOTS = 9;
+    private static final int UNKNOWN_FACILITY = 24;
+    private static final int UNKNOWN_SEVERITY = 8;
+
+    private static final String FILTER_TYPE_EXCLUDE = "exclude";
+    private static final String TIME_TYPE_ALWAYS = "always";
+
+    public static final CompiledLogRuleSet EMPTY = compile(Collections.emptyList(), Collections.emptyMap());
+
+    /** 规则下标 -> 规则ID（升序） */
+    private final int[] ruleIds;
+
+    /** 规则下标 -> 关联事件ID */
+    private final int[][] ruleEvents;
+
+    /** (facility * 9 + severity) -> 规则位图 */
+    private final BitSet[] facilitySeverityRules;
+
+    /** IPv4 区间段起点（升序），与 ipSegmentRules 对齐 */
+    private final long[] ipSegmentStarts;
+    private final BitSet[] ipSegmentRules;
+
+    /** 不限来源的规则 */
+    private final BitSet anySourceRules;
+
+    /** 来源配置无法解析为IPv4时按字符串精确匹配 */
+    private final Map<String, BitSet> exactSourceRules;
+
+    private final AhoCorasickMatcher keywordMatcher;
+
+    /** 关键字编号 -> 规则下标 */
+    private final int[][] keywordRules;
+
+    /** 带字面关键字的规则 */
+    private final BitSet literalKeywordRules;
+
+    /** 没有关键字条件的规则 */
+    private final BitSet noKeywordRules;
+
+    /** 关键字为排除条件的规则 */
+    private final BitSet excludeRules;
+
+    /** 含正则关键字的规则 */
+    private final BitSet regexRules;
+    private final Pattern[][] rulePatterns;
+
+    /** 含正则关键字的规则 -> 累计求值耗时（纳秒），用于找出拖慢匹配的规则 */
+    private final LongAdder[] regexNanos;
+
+    /** 有生效时间窗口的规则 */
+    private final BitSet timeBoundRules;
+    private final LocalDateTime[] effectiveStart;
+    private final LocalDateTime[] effectiveEnd;
+
+    private CompiledLogRuleSet(Builder b) {
+        this.ruleIds = b.ruleIds;
+        this.ruleEvents = b.ruleEvents;
+        this.facilitySeverityRules = b.facilitySeverityRules;
+        this.ipSegmentStarts = b.ipSegmentStarts;
+        this.ipSegmentRules = b.ipSegmentRules;
+        this.anySourceRules = b.anySourceRules;
+        this.exactSourceRules = b.exactSourceRules;
+        this.keywordMatcher = b.keywordMatcher;
+        this.keywordRules = b.keywordRules;
+        this.literalKeywordRules = b.literalKeywordRules;
+        this.noKeywordRules = b.noKeywordRules;
+        this.excludeRules = b.excludeRules;
+        this.regexRules = b.regexRules;
+        this.rulePatterns = b.rulePatterns;
+        this.regexNanos = new LongAdder[ruleIds.length];
+        for (int r = regexRules.nextSetBit(0); r >= 0; r = regexRules.nextSetBit(r + 1)) {
+            regexNanos[r] = new LongAdder();
+        }
+        this.timeBoundRules = b.timeBoundRules;
+        this.effectiveStart = b.effectiveStart;
+        this.effectiveEnd = b.effectiveEnd;
+    }
+
+    /**
+     * 编译规则集
+     * @param rules 启用的规则
+     * @param ruleEventMap 规则ID -> 关联事件ID列表
+     */
+    public static CompiledLogRuleSet compile(List<LogRule> rules, Map<Integer, List<Integer>> ruleEventMap) {
+        List<LogRule> sorted = new ArrayList<>();
+        for (LogRule rule : rules) {
+            if (rule != null && rule.getId() != null) {
+                sorted.add(rule);
+            }
+        }
+        sorted.sort(Comparator.comparing(LogRule::getId));
+        int n = sorted.size();
+
+        Builder b = new Builder();
+        b.ruleIds = new int[n];
+        b.ruleEvents = new int[n][];
+        b.anySourceRules = new BitSet(n);
+        b.exactSourceRules = new HashMap<>();
+        b.literalKeywordRules = new BitSet(n);
+        b.noKeywordRules = new BitSet(n);
+        b.excludeRules = new BitSet(n);
+        b.regexRules = new BitSet(n);
+        b.rulePatterns = new Pattern[n][];
+        b.timeBoundRules = new BitSet(n);
+        b.effectiveStart = new LocalDateTime[n];
+        b.effectiveEnd = new LocalDateTime[n];
+
+        long[][] ipRanges = new long[n][];
+        boolean[][] facilityAllowed = new boolean[n][];
+        boolean[][] severityAllowed = new boolean[n][];
+        List<String> keywords = new ArrayList<>();
+        Map<String, Integer> keywordIndex = new HashMap<>();
+        List<List<Integer>> keywordRuleList = new ArrayList<>();
+
+        for (int r = 0; r < n; r++) {
+            LogRule rule = sorted.get(r);
+            b.ruleIds[r] = rule.getId();
+            List<Integer> events = ruleEventMap.get(rule.getId());
+            b.ruleEvents[r] = events == null ? new int[0] : events.stream().mapToInt(Integer::intValue).toArray();
+
+            // 来源
+            ipRanges[r] = parseSourceRange(rule);
+            if (ipRanges[r] == null) {
+                if (isBlank(rule.getSourceIpStart()) || "any".equalsIgnoreCase(rule.getSourceType())) {
+                    b.anySourceRules.set(r);
+                } else {
+                    b.exactSourceRules.computeIfAbsent(rule.getSourceIpStart().trim(), k -> new BitSet(n)).set(r);
+                }
+            }
+
+            facilityAllowed[r] = parseCodes(rule.getFilterFacility(), UNKNOWN_FACILITY);
+            severityAllowed[r] = parseCodes(rule.getFilterSeverity(), UNKNOWN_SEVERITY);
+
+            // 关键字
+            List<Pattern> patterns = new ArrayList<>();
+            boolean hasKeyword = false;
+            if (!isBlank(rule.getFilterKeywords())) {
+                for (String raw : rule.getFilterKeywords().split(";")) {
+                    String keyword = raw.trim();
+                    if (keyword.isEmpty()) {
+                        continue;
+                    }
+                    hasKeyword = true;
+                    Pattern pattern = isRegex(keyword) ? compilePattern(keyword) : null;
+                    if (pattern != null) {
+                        patterns.add(pattern);
+                    } else {
+                        String lower = keyword.toLowerCase();
+                        Integer k = keywordIndex.get(lower);
+                        if (k == null) {
+                            k = keywords.size();
+                            keywords.add(lower);
+                            keywordIndex.put(lower, k);
+                            keywordRuleList.add(new ArrayList<>());
+                        }
+                        keywordRuleList.get(k).add(r);
+                        b.literalKeywordRules.set(r);
+                    }
+                }
+            }
+            if (!hasKeyword) {
+                b.noKeywordRules.set(r);
+            } else if (FILTER_TYPE_EXCLUDE.equalsIgnoreCase(rule.getFilterType())) {
+                b.excludeRules.set(r);
+            }
+            if (!patterns.isEmpty()) {
+                b.regexRules.set(r);
+                b.rulePatterns[r] = patterns.toArray(new Pattern[0]);
+            }
+
+            // 生效时间
+            boolean timeBound = !TIME_TYPE_ALWAYS.equalsIgnoreCase(rule.getEffectiveTimeType())
+                    && (rule.getEffectiveStartTime() != null || rule.getEffectiveEndTime() != null);
+            if (timeBound) {
+                b.timeBoundRules.set(r);
+                b.effectiveStart[r] = rule.getEffectiveStartTime();
+                b.effectiveEnd[r] = rule.getEffectiveEndTime();
+            }
+        }
+
+        b.facilitySeverityRules = new BitSet[FACILITY_SLOTS * SEVERITY_SLOTS];
+        for (int f = 0; f < FACILITY_SLOTS; f++) {
+            for (int s = 0; s < SEVERITY_SLOTS; s++) {
+                BitSet bits = new BitSet(n);
+                for (int r = 0; r < n; r++) {
+                    if (allowed(facilityAllowed[r], f) && allowed(severityAllowed[r], s)) {
+                        bits.set(r);
+                    }
+                }
+                b.facilitySeverityRules[f * SEVERITY_SLOTS + s] = bits;
+            }
+        }
+
+        buildIpSegments(b, ipRanges, n);
+
+        b.keywordMatcher = AhoCorasickMatcher.build(keywords);
+        b.keywordRules = new int[keywordRuleList.size()][];
+        for (int k = 0; k < keywordRuleList.size(); k++) {
+            b.keywordRules[k] = keywordRuleList.get(k).stream().mapToInt(Integer::intValue).toArray();
+        }
+        return new CompiledLogRuleSet(b);
+    }
+
+    /**
+     * 匹配单条日志
+     */
+    public LogMatchResult match(SyslogEntry entry) {
+        if (ruleIds.length == 0 || entry == null) {
+            return LogMatchResult.NO_MATCH;
+        }
+
+        BitSet candidates = (BitSet) facilitySeverityRules[
+                slot(entry.getFacility(), UNKNOWN_FACILITY) * SEVERITY_SLOTS
+                        + slot(entry.getSeverity(), UNKNOWN_SEVERITY)].clone();
+        candidates.and(sourceRules(entry.getSourceIp()));
+        if (candidates.isEmpty()) {
+            return LogMatchResult.NO_MATCH;
+        }
+
+        String message = entry.getMessage();
+        BitSet keywordHits = new BitSet(ruleIds.length);
+        if (message != null && !message.isEmpty()) {
+            if (candidates.intersects(literalKeywordRules)) {
+                keywordMatcher.search(message, k -> {
+                    for (int r : keywordRules[k]) {
+                        keywordHits.set(r);
+                    }
+                });
+            }
+            if (candidates.intersects(regexRules)) {
+                BitSet regexCandidates = (BitSet) candidates.clone();
+                regexCandidates.and(regexRules);
+                regexCandidates.andNot(keywordHits);
+                for (int r = regexCandidates.nextSetBit(0); r >= 0; r = regexCandidates.nextSetBit(r + 1)) {
+                    long start = System.nanoTime();
+                    for (Pattern pattern : rulePatterns[r]) {
+                        if (pattern.matcher(message).find()) {
+                            keywordHits.set(r);
+                            break;
+                        }
+                    }
+                    regexNanos[r].add(System.nanoTime() - start);
+                }
+            }
+        }
+
+        // 包含型规则需命中关键字，排除型规则需未命中，无关键字规则直接通过
+        keywordHits.xor(excludeRules);
+        keywordHits.or(noKeywordRules);
+        candidates.and(keywordHits);
+
+        if (candidates.intersects(timeBoundRules)) {
+            LocalDateTime time = entry.getReceivedAt() != null ? entry.getReceivedAt() : entry.getEventTime();
+            if (time != null) {
+                for (int r = candidates.nextSetBit(0); r >= 0; r = candidates.nextSetBit(r + 1)) {
+                    if (timeBoundRules.get(r) && !withinEffectiveTime(r, time)) {
+                        candidates.clear(r);
+                    }
+                }
+            }
+        }
+
+        int count = candidates.cardinality();
+        if (count == 0) {
+            return LogMatchResult.NO_MATCH;
+        }
+        int[] matchedRules = new int[count];
+        Set<Integer> matchedEvents = new LinkedHashSet<>();
+        int i = 0;
+        for (int r = candidates.nextSetBit(0); r >= 0; r = candidates.nextSetBit(r + 1)) {
+            matchedRules[i++] = ruleIds[r];
+            for (int eventId : ruleEvents[r]) {
+                matchedEvents.add(eventId);
+            }
+        }
+        return new LogMatchResult(matchedRules, matchedEvents.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    public int size() {
+        return ruleIds.length;
+    }
+
+    public int getKeywordCount() {
+        return keywordMatcher.getKeywordCount();
+    }
+
+    /**
+     * 各含正则关键字规则自本次编译以来的累计求值耗时；字面关键字由自动机一次扫描完成，不按规则计耗时
+     * @return 规则ID -> 纳秒
+     */
+    public Map<Integer, Long> getRegexNanos() {
+        Map<Integer, Long> data = new HashMap<>();
+        for (int r = regexRules.nextSetBit(0); r >= 0; r = regexRules.nextSetBit(r + 1)) {
+            data.put(ruleIds[r], regexNanos[r].sum());
+        }
+        return data;
+    }
+
+    private BitSet sourceRules(String sourceIp) {
+        long ip = IpAddressUtil.toLong(sourceIp);
+        if (ip >= 0) {
+            int idx = Arrays.binarySearch(ipSegmentStarts, ip);
+            if (idx < 0) {
+                idx = -idx - 2;
+            }
+            return ipSegmentRules[idx];
+        }
+        BitSet exact = sourceIp == null ? null : exactSourceRules.get(sourceIp);
+        if (exact == null) {
+            return anySourceRules;
+        }
+        BitSet bits = (BitSet) anySourceRules.clone();
+        bits.or(exact);
+        return bits;
+    }
+
+    private boolean withinEffectiveTime(int r, LocalDateTime time) {
+        return (effectiveStart[r] == null || !time.isBefore(effectiveStart[r]))
+                && (effectiveEnd[r] == null || !time.isAfter(effectiveEnd[r]));
+    }
+
+    /**
+     * 按所有规则的区间端点把IPv4空间切分成若干段，每段对应一个规则位图（含不限来源规则）
+     */
+    private static void buildIpSegments(Builder b, long[][] ipRanges, int n) {
+        TreeSet<Long> bounds = new TreeSet<>();
+        bounds.add(0L);
+        for (long[] range : ipRanges) {
+            if (range != null) {
+                bounds.add(range[0]);
+                if (range[1] + 1 < IpAddressUtil.IPV4_SPACE) {
+                    bounds.add(range[1] + 1);
+                }
+            }
+        }
+        b.ipSegmentStarts = new long[bounds.size()];
+        b.ipSegmentRules = new BitSet[bounds.size()];
+        int i = 0;
+        for (Long start : bounds) {
+            BitSet bits = (BitSet) b.anySourceRules.clone();
+            for (int r = 0; r < n; r++) {
+                long[] range = ipRanges[r];
+                if (range != null && range[0] <= start && start <= range[1]) {
+                    bits.set(r);
+                }
+            }
+            b.ipSegmentStarts[i] = start;
+            b.ipSegmentRules[i] = bits;
+            i++;
+        }
+    }
+
+    private static long[] parseSourceRange(LogRule rule) {
+        if ("any".equalsIgnoreCase(rule.getSourceType()) || isBlank(rule.getSourceIpStart())) {
+            return null;
+        }
+        String start = rule.getSourceIpStart().trim();
+        if (isBlank(rule.getSourceIpEnd()) && start.indexOf('/') > 0) {
+            return IpAddressUtil.parseCidr(start);
+        }
+        long from = IpAddressUtil.toLong(start);
+        long to = isBlank(rule.getSourceIpEnd()) ? from : IpAddressUtil.toLong(rule.getSourceIpEnd().trim());
+        if (from < 0 || to < 0) {
+            return null;
+        }
+        return from <= to ? new long[]{from, to} : new long[]{to, from};
+    }
+
+    /**
+     * 解析逗号分隔的代码列表；为空表示不限，返回 null
+     */
+    private static boolean[] parseCodes(String csv, int unknownSlot) {
+        if (isBlank(csv)) {
+            return null;
+        }
+        boolean[] allowed = new boolean[unknownSlot + 1];
+        boolean any = false;
+        for (String part : csv.split(",")) {
+            try {
+                int code = Integer.parseInt(part.trim());
+                if (code >= 0 && code < unknownSlot) {
+                    allowed[code] = true;
+                    any = true;
+                }
+            } catch (NumberFormatException ignored) {
+                // 忽略非法代码
+            }
+        }
+        return any ? allowed : null;
+    }
+
+    private static boolean allowed(boolean[] codes, int slot) {
+        return codes == null || codes[slot];
+    }
+
+    private static int slot(Integer code, int unknownSlot) {
+        return code == null || code < 0 || code >= unknownSlot ? unknownSlot : code;
+    }
+
+    private static boolean isRegex(String keyword) {
+        for (int i = 0; i < keyword.length(); i++) {
+            if ("\\^$|?*+()[]{}".indexOf(keyword.charAt(i)) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Pattern compilePattern(String keyword) {
+        try {
+            return Pattern.compile(keyword, Pattern.CASE_INSENSITIVE);
+        } catch (PatternSyntaxException e) {
+            // 不是合法正则，按字面关键字处理
+            return null;
+        }
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+
+    private static class Builder {
+        int[] ruleIds;
+        int[][] ruleEvents;
+        BitSet[] facilitySeverityRules;
+        long[] ipSegmentStarts;
+        BitSet[] ipSegmentRules;
+        BitSet anySourceRules;
+        Map<String, BitSet> exactSourceRules;
+        AhoCorasickMatcher keywordMatcher;
+        int[][] keywordRules;
+        BitSet literalKeywordRules;
+        BitSet noKeywordRules;
+        BitSet excludeRules;
+        BitSet regexRules;
+        Pattern[][] rulePatterns;
+        BitSet timeBoundRules;
+        LocalDateTime[] effectiveStart;
+        LocalDateTime[] effectiveEnd;
+    }
+}
@@ -0,0 +1,36 @@
+package com.zxb.aiproject.syslog;
+
+import lombok.Getter;
+
+/**
+ * 单条日志的规则匹配结果
+ * ruleIds 按规则ID升序，第一个作为写入 matched_rule_id 的主规则
+ */
+@Getter
+public final class LogMatchResult {
+
+    public static final LogMatchResult NO_MATCH = new LogMatchResult(new int[0], new int[0]);
+
+    /** 命中的全部规则ID */
+    private final int[] ruleIds;
+
+    /** 命中规则关联的全部事件ID（去重） */
+    private final int[] eventIds;
+
+    public LogMatchResult(int[] ruleIds, int[] eventIds) {
+        this.ruleIds = ruleIds;
+        this.eventIds = eventIds;
+    }
+
+    public boolean isMatched() {
+        return ruleIds.length > 0;
+    }
+
+    public Integer getPrimaryRuleId() {
+        return ruleIds.length > 0 ? ruleIds[0] : null;
+    }
+
+    public Integer getPrimaryEventId() {
+        return eventIds.length > 0 ? eventIds[0] : null;
+    }
+}
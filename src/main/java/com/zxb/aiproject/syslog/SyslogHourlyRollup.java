@@ -0,0 +1,341 @@
+package com.zxb.aiproject.syslog;
+
+import com.zxb.aiproject.config.SyslogProperties;
+import com.zxb.aiproject.entity.SyslogBackfillProgress;
+import com.zxb.aiproject.entity.SyslogEntry;
+import com.zxb.aiproject.mapper.SyslogBackfillMapper;
+import com.zxb.aiproject.mapper.SyslogEntryMapper;
+import com.zxb.aiproject.mapper.SyslogHourlyRollupMapper;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Syslog小时汇总
+ * 入库线程把每批日志按维度累加到内存增量，定期以 INSERT ... ON DUPLICATE KEY UPDATE 累加进 t_log_syslog_hourly。
+ * 统计查询在读锁下同时读取汇总表与尚未落库的内存增量，刷写持写锁，因此两者之间不会重复或遗漏。
+ * 进程异常退出时最多丢失一个刷写间隔内的增量；汇总表为空时启动后从原始日志回填，
+ * 回填进度与每段汇总在同一事务中提交，失败后重试、重启后从中断处继续。
+ */
+@Slf4j
+@Component
+public class SyslogHourlyRollup implements SyslogPersistListener {
+
+    /**
+     * 回填进度任务名
+     */
+    private static final String BACKFILL_TASK = "hourly_rollup";
+
+    private static final long BACKFILL_RETRY_MILLIS = 60000;
+
+    @Autowired
+    private SyslogProperties syslogProperties;
+
+    @Autowired
+    private SyslogHourlyRollupMapper syslogHourlyRollupMapper;
+
+    @Autowired
+    private SyslogEntryMapper syslogEntryMapper;
+
+    @Autowired
+    private SyslogBackfillMapper syslogBackfillMapper;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * 尚未写入汇总表的增量
+     */
+    private final ConcurrentHashMap<SyslogRollupKey, Long> pending = new ConcurrentHashMap<>();
+
+    private final ReentrantReadWriteLock flushLock = new ReentrantReadWriteLock();
+
+    private final AtomicLong flushedRows = new AtomicLong();
+
+    private final AtomicLong flushFailures = new AtomicLong();
+
+    private volatile boolean ready;
+
+    /**
+     * 回填终点ID，0 表示无需回填
+     */
+    private volatile long backfillTargetId;
+
+    private volatile long backfillCursorId;
+
+    private volatile boolean backfillRunning;
+
+    /**
+     * 一行增量
+     */
+    @Getter
+    public static final class Delta {
+        private final SyslogRollupKey key;
+        private final long count;
+
+        public Delta(SyslogRollupKey key, long count) {
+            this.key = key;
+            this.count = count;
+        }
+    }
+
+    /**
+     * 在一致视图下读取汇总
+     */
+    public interface RollupReader<T> {
+
+        /**
+         * @param fromHour 起始整点（含）
+         * @param toHour   结束整点（含）
+         * @param unflushed 区间内尚未写入汇总表的增量
+         */
+        T read(LocalDateTime fromHour, LocalDateTime toHour, List<Delta> unflushed);
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!Boolean.TRUE.equals(syslogProperties.getRollup().getEnabled())) {
+            return;
+        }
+        try {
+            syslogHourlyRollupMapper.createTableIfNotExists();
+            syslogBackfillMapper.createTableIfNotExists();
+            SyslogBackfillProgress progress = syslogBackfillMapper.selectByTask(BACKFILL_TASK);
+            if (progress != null) {
+                // 上次回填未完成时从中断处继续，终点之后的日志当时已经由 onPersisted 计入
+                backfillTargetId = progress.getTargetValue();
+                backfillCursorId = Math.min(progress.getCursorValue(), backfillTargetId);
+            } else if (syslogHourlyRollupMapper.countAny() == 0) {
+                // 入库管道在本组件初始化完成后才启动，此时的最大ID之后的日志都会经过 onPersisted
+                Long maxId = syslogEntryMapper.selectMaxId();
+                backfillTargetId = maxId == null ? 0 : maxId;
+                syslogBackfillMapper.save(BACKFILL_TASK, backfillTargetId, 0);
+            }
+        } catch (Exception e) {
+            log.error("初始化Syslog小时汇总失败: {}", e.getMessage());
+            return;
+        }
+        ready = true;
+        if (backfillCursorId < backfillTargetId) {
+            backfillRunning = true;
+            Thread backfill = new Thread(this::backfill, "syslog-rollup-backfill");
+            backfill.setDaemon(true);
+            backfill.start();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    @Override
+    public void onPersisted(List<SyslogEntry> entries) {
+        if (!ready) {
+            return;
+        }
+        // 先在批内聚合，减少并发Map上的竞争
+        Map<SyslogRollupKey, Long> local = new HashMap<>();
+        for (SyslogEntry entry : entries) {
+            SyslogRollupKey key = SyslogRollupKey.of(entry);
+            if (key != null) {
+                local.merge(key, (long) weight(entry), Long::sum);
+            }
+        }
+        for (Map.Entry<SyslogRollupKey, Long> item : local.entrySet()) {
+            pending.merge(item.getKey(), item.getValue(), Long::sum);
+        }
+    }
+
+    /**
+     * 已入库日志的匹配结果变化后，把计数从旧规则/事件维度移到新维度
+     */
+    public void onMatchChanged(SyslogEntry entry, Integer oldRuleId, Integer oldEventId) {
+        if (!ready || (Objects.equals(oldRuleId, entry.getMatchedRuleId())
+                && Objects.equals(oldEventId, entry.getMatchedEventId()))) {
+            return;
+        }
+        // 回填尚未覆盖的日志，回填时会直接读到新的匹配结果
+        long id = entry.getId() == null ? 0 : entry.getId();
+        if (id > backfillCursorId && id <= backfillTargetId) {
+            return;
+        }
+        SyslogRollupKey oldKey = SyslogRollupKey.of(entry, oldRuleId, oldEventId);
+        if (oldKey == null) {
+            return;
+        }
+        long weight = weight(entry);
+        pending.merge(oldKey, -weight, Long::sum);
+        pending.merge(SyslogRollupKey.of(entry), weight, Long::sum);
+    }
+
+    /**
+     * 去重折叠的重复条数写回原始日志后，计入首条日志所在小时
+     */
+    public void onRepeats(SyslogEntry first, long count) {
+        if (!ready || count <= 0) {
+            return;
+        }
+        long id = first.getId() == null ? 0 : first.getId();
+        if (id > backfillCursorId && id <= backfillTargetId) {
+            return;
+        }
+        SyslogRollupKey key = SyslogRollupKey.of(first);
+        if (key != null) {
+            pending.merge(key, count, Long::sum);
+        }
+    }
+
+    /**
+     * 把内存增量写入汇总表
+     */
+    @Scheduled(fixedDelayString = "${syslog.rollup.flush-interval-ms:5000}", initialDelay = 5000)
+    public void flush() {
+        if (!ready || pending.isEmpty()) {
+            return;
+        }
+        int batchSize = Math.max(1, syslogProperties.getRollup().getUpsertBatchSize());
+        flushLock.writeLock().lock();
+        try {
+            List<Delta> deltas = new ArrayList<>(pending.size());
+            for (SyslogRollupKey key : pending.keySet()) {
+                Long count = pending.remove(key);
+                if (count != null && count != 0) {
+                    deltas.add(new Delta(key, count));
+                }
+            }
+            int written = 0;
+            try {
+                for (; written < deltas.size(); written += batchSize) {
+                    syslogHourlyRollupMapper.upsertCounts(deltas.subList(written, Math.min(deltas.size(), written + batchSize)));
+                }
+                flushedRows.addAndGet(deltas.size());
+            } catch (Exception e) {
+                // 未写入的部分放回，下次重试
+                for (Delta delta : deltas.subList(written, deltas.size())) {
+                    pending.merge(delta.getKey(), delta.getCount(), Long::sum);
+                }
+                flushFailures.incrementAndGet();
+                log.warn("写入Syslog小时汇总失败, {} 行增量留待下次重试: {}", deltas.size() - written, e.getMessage());
+            }
+        } finally {
+            flushLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 在读锁下执行汇总查询：时间范围按整点对齐，两端所在的小时都计入
+     */
+    public <T> T read(LocalDateTime startTime, LocalDateTime endTime, RollupReader<T> reader) {
+        LocalDateTime fromHour = SyslogRollupKey.truncateToHour(startTime);
+        LocalDateTime toHour = SyslogRollupKey.truncateToHour(endTime);
+        flushLock.readLock().lock();
+        try {
+            List<Delta> unflushed = new ArrayList<>();
+            for (Map.Entry<SyslogRollupKey, Long> item : pending.entrySet()) {
+                LocalDateTime hour = item.getKey().getStatHour();
+                if (!hour.isBefore(fromHour) && !hour.isAfter(toHour)) {
+                    unflushed.add(new Delta(item.getKey(), item.getValue()));
+                }
+            }
+            return reader.read(fromHour, toHour, unflushed);
+        } finally {
+            flushLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 清理过期汇总
+     */
+    @Scheduled(cron = "0 40 2 * * ?")
+    public void dropExpired() {
+        if (!ready) {
+            return;
+        }
+        try {
+            LocalDateTime before = SyslogRollupKey.truncateToHour(LocalDateTime.now())
+                    .minusDays(Math.max(1, syslogProperties.getRollup().getRetentionDays()));
+            int deleted = syslogHourlyRollupMapper.deleteBefore(before);
+            if (deleted > 0) {
+                log.info("清理 {} 之前的Syslog小时汇总 {} 行", before, deleted);
+            }
+        } catch (Exception e) {
+            log.warn("清理Syslog小时汇总失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 汇总状态，供监控接口展示
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("rollupEnabled", ready);
+        data.put("rollupPendingKeys", pending.size());
+        data.put("rollupFlushedRows", flushedRows.get());
+        data.put("rollupFlushFailures", flushFailures.get());
+        data.put("rollupBackfillCursor", backfillCursorId);
+        data.put("rollupBackfillTarget", backfillTargetId);
+        return data;
+    }
+
+    /**
+     * 从原始日志回填是否还在进行
+     */
+    public boolean isBackfilling() {
+        return backfillRunning;
+    }
+
+    /**
+     * 一行日志代表的条数（含去重折叠的重复）
+     */
+    public static int weight(SyslogEntry entry) {
+        return entry.getRepeatCount() == null || entry.getRepeatCount() < 1 ? 1 : entry.getRepeatCount();
+    }
+
+    /**
+     * 按主键区间从原始日志回填，每段汇总与进度在同一事务中提交，中断后不会重复累加
+     */
+    private void backfill() {
+        long start = System.currentTimeMillis();
+        int chunkSize = Math.max(1, syslogProperties.getRollup().getBackfillChunkSize());
+        log.info("开始回填Syslog小时汇总: 主键区间 ({}, {}]", backfillCursorId, backfillTargetId);
+        try {
+            while (backfillCursorId < backfillTargetId) {
+                long from = backfillCursorId;
+                long to = Math.min(backfillTargetId, from + chunkSize);
+                try {
+                    transactionTemplate.executeWithoutResult(status -> {
+                        syslogHourlyRollupMapper.backfillRange(from, to);
+                        syslogBackfillMapper.save(BACKFILL_TASK, backfillTargetId, to);
+                    });
+                    backfillCursorId = to;
+                } catch (Exception e) {
+                    log.error("Syslog小时汇总回填中断于ID {}, {}秒后重试: {}",
+                            from, BACKFILL_RETRY_MILLIS / 1000, e.getMessage());
+                    Thread.sleep(BACKFILL_RETRY_MILLIS);
+                }
+            }
+            log.info("Syslog小时汇总回填完成, 耗时={}ms", System.currentTimeMillis() - start);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            backfillRunning = false;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.zxb.aiproject.syslog;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.AccessLevel;
+import lombok.Getter;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Syslog接入链路计数器
+ * 接收线程与入库线程并发写入，统一使用LongAdder避免竞争。
+ * 作为 MeterBinder 由 actuator 绑定到指标注册表：计数器按函数计数注册，抓取时读取，不在热路径上重复累加；
+ * 批量写库耗时与单条匹配耗时另记为直方图，规则命中数按规则ID分别计数。
+ */
+@Getter
+@Component
+public class SyslogIngestMetrics implements MeterBinder {
+
+    /** 收到的原始报文数 */
+    private final LongAdder received = new LongAdder();
+
+    /** 解析成功数 */
+    private final LongAdder parsed = new LongAdder();
+
+    /** 解析失败/空报文数 */
+    private final LongAdder parseErrors = new LongAdder();
+
+    /** 入库队列已满被丢弃数 */
+    private final LongAdder dropped = new LongAdder();
+
+    /** 成功写入数据库条数 */
+    private final LongAdder persisted = new LongAdder();
+
+    /** 写库失败条数 */
+    private final LongAdder insertFailed = new LongAdder();
+
+    /** 入库前命中规则条数 */
+    private final LongAdder matched = new LongAdder();
+
+    /** 入库前规则匹配累计耗时（纳秒） */
+    private final LongAdder matchNanos = new LongAdder();
+
+    /** 已执行的批次数 */
+    private final LongAdder batches = new LongAdder();
+
+    /** 批量写入累计耗时（纳秒） */
+    private final LongAdder batchNanos = new LongAdder();
+
+    /** 成功转发条数 */
+    private final LongAdder forwarded = new LongAdder();
+
+    /** 转发缓冲已满溢写到磁盘条数 */
+    private final LongAdder forwardSpilled = new LongAdder();
+
+    /** 转发缓冲与溢写文件都已满被丢弃条数 */
+    private final LongAdder forwardDropped = new LongAdder();
+
+    /** 转发发送失败次数 */
+    private final LongAdder forwardErrors = new LongAdder();
+
+    /** 去重窗口内被折叠为重复次数的条数 */
+    private final LongAdder dedupCollapsed = new LongAdder();
+
+    /** 日志风暴中被采样丢弃的低级别日志条数 */
+    private final LongAdder stormSampled = new LongAdder();
+
+    /** 写入磁盘预写缓冲条数 */
+    private final LongAdder walSpilled = new LongAdder();
+
+    /** 从预写缓冲读出写库条数 */
+    private final LongAdder walReplayed = new LongAdder();
+
+    /** 记录损坏或无法写库被丢弃条数 */
+    private final LongAdder walDropped = new LongAdder();
+
+    /** 最近一次批量写入耗时（毫秒） */
+    private final AtomicLong lastBatchMillis = new AtomicLong();
+
+    /** 最近一次批量写入条数 */
+    private final AtomicLong lastBatchSize = new AtomicLong();
+
+    @Getter(AccessLevel.NONE)
+    private volatile MeterRegistry registry;
+
+    @Getter(AccessLevel.NONE)
+    private volatile Timer batchTimer;
+
+    @Getter(AccessLevel.NONE)
+    private volatile Timer matchTimer;
+
+    /** 规则ID -> 命中计数 */
+    @Getter(AccessLevel.NONE)
+    private final ConcurrentHashMap<Integer, Counter> ruleHits = new ConcurrentHashMap<>();
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        counter(registry, "syslog.received", "收到的原始报文数", received);
+        counter(registry, "syslog.parsed", "解析成功数", parsed);
+        counter(registry, "syslog.parse.errors", "解析失败或空报文数", parseErrors);
+        counter(registry, "syslog.dropped", "入库队列或预写缓冲已满被丢弃数", dropped);
+        counter(registry, "syslog.persisted", "成功写入数据库条数", persisted);
+        counter(registry, "syslog.insert.failed", "写库失败条数", insertFailed);
+        counter(registry, "syslog.matched", "入库前命中规则条数", matched);
+        counter(registry, "syslog.forwarded", "成功转发条数", forwarded);
+        counter(registry, "syslog.forward.spilled", "转发缓冲已满溢写到磁盘条数", forwardSpilled);
+        counter(registry, "syslog.forward.dropped", "转发丢弃条数", forwardDropped);
+        counter(registry, "syslog.forward.errors", "转发发送失败次数", forwardErrors);
+        counter(registry, "syslog.dedup.collapsed", "去重折叠条数", dedupCollapsed);
+        counter(registry, "syslog.storm.sampled", "日志风暴中被采样丢弃条数", stormSampled);
+        counter(registry, "syslog.wal.spilled", "写入预写缓冲条数", walSpilled);
+        counter(registry, "syslog.wal.replayed", "从预写缓冲读出写库条数", walReplayed);
+        counter(registry, "syslog.wal.dropped", "预写缓冲丢弃条数", walDropped);
+        batchTimer = histogram(registry, "syslog.batch.insert", "批量写库耗时",
+                Duration.ofMillis(5), Duration.ofMillis(10), Duration.ofMillis(25), Duration.ofMillis(50),
+                Duration.ofMillis(100), Duration.ofMillis(250), Duration.ofMillis(500), Duration.ofSeconds(1),
+                Duration.ofMillis(2500), Duration.ofSeconds(5), Duration.ofSeconds(10));
+        matchTimer = histogram(registry, "syslog.match", "单条日志规则匹配耗时",
+                Duration.ofNanos(1000), Duration.ofNanos(5000), Duration.ofNanos(10000), Duration.ofNanos(25000),
+                Duration.ofNanos(50000), Duration.ofNanos(100000), Duration.ofNanos(250000),
+                Duration.ofNanos(500000), Duration.ofMillis(1), Duration.ofMillis(5), Duration.ofMillis(10));
+        this.registry = registry;
+    }
+
+    public void recordBatch(int size, long elapsedNanos) {
+        batches.increment();
+        batchNanos.add(elapsedNanos);
+        lastBatchSize.set(size);
+        lastBatchMillis.set(elapsedNanos / 1_000_000L);
+        Timer timer = batchTimer;
+        if (timer != null) {
+            timer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * 记录单条日志的匹配耗时与命中的规则
+     * @param ruleId 命中的主规则，未命中为 null
+     */
+    public void recordMatch(long elapsedNanos, Integer ruleId) {
+        matchNanos.add(elapsedNanos);
+        Timer timer = matchTimer;
+        if (timer != null) {
+            timer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        }
+        if (ruleId == null) {
+            return;
+        }
+        matched.increment();
+        MeterRegistry current = registry;
+        if (current != null) {
+            ruleHits.computeIfAbsent(ruleId, id -> Counter.builder("syslog.rule.hits")
+                    .description("规则命中条数（按主规则）")
+                    .tag("rule_id", String.valueOf(id))
+                    .register(current)).increment();
+        }
+    }
+
+    private static void counter(MeterRegistry registry, String name, String description, LongAdder adder) {
+        FunctionCounter.builder(name, adder, LongAdder::sum).description(description).register(registry);
+    }
+
+    /**
+     * 固定桶直方图；桶计数自启动起累计，不按时间窗口滚动，与Prometheus直方图的语义一致
+     */
+    private static Timer histogram(MeterRegistry registry, String name, String description, Duration... buckets) {
+        return Timer.builder(name)
+                .description(description)
+                .serviceLevelObjectives(buckets)
+                .distributionStatisticExpiry(Duration.ofDays(3650))
+                .distributionStatisticBufferLength(1)
+                .register(registry);
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("received", received.sum());
+        data.put("parsed", parsed.sum());
+        data.put("parseErrors", parseErrors.sum());
+        data.put("dropped", dropped.sum());
+        data.put("persisted", persisted.sum());
+        data.put("insertFailed", insertFailed.sum());
+        data.put("matched", matched.sum());
+        long persistedCount = persisted.sum();
+        data.put("avgMatchMicros", persistedCount == 0 ? 0 : matchNanos.sum() / persistedCount / 1000.0);
+        long batchCount = batches.sum();
+        data.put("batches", batchCount);
+        data.put("avgBatchMillis", batchCount == 0 ? 0 : batchNanos.sum() / batchCount / 1_000_000.0);
+        data.put("lastBatchMillis", lastBatchMillis.get());
+        data.put("lastBatchSize", lastBatchSize.get());
+        data.put("forwarded", forwarded.sum());
+        data.put("forwardSpilled", forwardSpilled.sum());
+        data.put("forwardDropped", forwardDropped.sum());
+        data.put("forwardErrors", forwardErrors.sum());
+        data.put("dedupCollapsed", dedupCollapsed.sum());
+        data.put("stormSampled", stormSampled.sum());
+        data.put("walSpilled", walSpilled.sum());
+        data.put("walReplayed", walReplayed.sum());
+        data.put("walDropped", walDropped.sum());
+        return data;
+    }
+}
@@ -0,0 +1,464 @@
+package com.zxb.aiproject.syslog;
+
+import com.zxb.aiproject.config.SyslogProperties;
+import com.zxb.aiproject.entity.SyslogEntry;
+import com.zxb.aiproject.mapper.SyslogEntryMapper;
+import com.zxb.aiproject.service.SyslogMatchService;
+import com.zxb.aiproject.syslog.asset.SyslogAssetIndex;
+import com.zxb.aiproject.syslog.forward.SyslogForwarder;
+import com.zxb.aiproject.syslog.storm.SyslogStormGuard;
+import com.zxb.aiproject.syslog.template.SyslogTemplateMiner;
+import com.zxb.aiproject.syslog.wal.IngestWal;
+import com.zxb.aiproject.syslog.wal.SyslogWalCodec;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Syslog入库管道
+ * 启用预写缓冲（{@link IngestWal}）时，接收线程经风暴抑制（重复折叠、按来源限流）后把日志追加到内存映射的分段文件，
+ * 由单个写库线程按 batchSize / flushIntervalMs 从读取位置读出一批，完成资产关联、规则匹配与模板提取
+ * （asset_id / device_type / matched_rule_id / matched_event_id / is_alert / template_id 随INSERT一次写入）并交给转发缓冲，
+ * 多行INSERT写入 t_log_syslog，写库成功后才推进读取位置。数据库停顿（备份、DDL、主从切换）时写库线程阻塞或按间隔重试，
+ * 接收线程照常追加到磁盘，既不丢日志也不占用堆内存；进程崩溃后从读取位置继续。
+ * 未启用或打开失败时退回内存队列：接收线程非阻塞入队，多个写库线程攒批写库，队列满或写库失败的日志丢弃。
+ */
+@Slf4j
+@Component
+public class SyslogIngestPipeline {
+
+    /**
+     * 预写缓冲中不足一批时的检查间隔上限
+     */
+    private static final long WAL_POLL_MILLIS = 10;
+
+    @Autowired
+    private SyslogProperties syslogProperties;
+
+    @Autowired
+    private SyslogEntryMapper syslogEntryMapper;
+
+    @Autowired
+    private SyslogMatchService syslogMatchService;
+
+    @Autowired
+    private SyslogIngestMetrics metrics;
+
+    @Autowired
+    private SyslogForwarder syslogForwarder;
+
+    @Autowired
+    private SyslogStormGuard syslogStormGuard;
+
+    @Autowired
+    private SyslogTemplateMiner syslogTemplateMiner;
+
+    @Autowired
+    private SyslogAssetIndex syslogAssetIndex;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired(required = false)
+    private List<SyslogPersistListener> persistListeners = Collections.emptyList();
+
+    private BlockingQueue<SyslogEntry> queue;
+
+    private final List<Thread> writers = new ArrayList<>();
+
+    private volatile boolean running;
+
+    /**
+     * 磁盘预写缓冲，未启用或打开失败时为空
+     */
+    private IngestWal wal;
+
+    /**
+     * 最近一次写库是否成功
+     */
+    private volatile boolean databaseAvailable = true;
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(Math.max(1, syslogProperties.getQueueCapacity()));
+        running = true;
+        openWal();
+        if (wal != null) {
+            // 预写缓冲按顺序读取，只有一个写库线程
+            Thread writer = new Thread(this::walWriteLoop, "syslog-writer-wal");
+            writer.setDaemon(true);
+            writer.start();
+            writers.add(writer);
+            log.info("Syslog入库管道已启动(预写缓冲): batchSize={}, flushIntervalMs={}, 待写库 {} 条",
+                    syslogProperties.getBatchSize(), syslogProperties.getFlushIntervalMs(), wal.getPendingRecords());
+            return;
+        }
+        int threads = Math.max(1, syslogProperties.getWriterThreads());
+        for (int i = 0; i < threads; i++) {
+            Thread writer = new Thread(this::writeLoop, "syslog-writer-" + i);
+            writer.setDaemon(true);
+            writer.start();
+            writers.add(writer);
+        }
+        log.info("Syslog入库管道已启动(内存队列): queueCapacity={}, batchSize={}, flushIntervalMs={}, writerThreads={}",
+                syslogProperties.getQueueCapacity(), syslogProperties.getBatchSize(),
+                syslogProperties.getFlushIntervalMs(), threads);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        for (Thread writer : writers) {
+            try {
+                writer.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        if (wal != null) {
+            // 未写库的日志留在预写缓冲，重启后从读取位置继续
+            long pending = wal.getPendingRecords();
+            wal.close();
+            log.info("Syslog入库管道已停止, 预写缓冲中待写库: {}", pending);
+            return;
+        }
+        int remaining = queue.size();
+        queue.clear();
+        log.info("Syslog入库管道已停止, 丢弃未写入: {}", remaining);
+    }
+
+    /**
+     * 提交一条日志，不阻塞接收线程：启用预写缓冲时追加到磁盘，否则放入内存队列；缓冲或队列已满时丢弃
+     * @return 是否接收成功（折叠为重复次数或被风暴采样丢弃的也返回 true）
+     */
+    public boolean submit(SyslogEntry entry) {
+        if (!syslogStormGuard.admit(entry)) {
+            return true;
+        }
+        if (wal != null ? append(entry) : queue.offer(entry)) {
+            return true;
+        }
+        metrics.getDropped().increment();
+        return false;
+    }
+
+    public int getQueueDepth() {
+        return queue == null ? 0 : queue.size();
+    }
+
+    /**
+     * 队列与批量参数，供监控接口展示
+     */
+    public Map<String, Object> getQueueStatus() {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("queueDepth", getQueueDepth());
+        data.put("queueCapacity", syslogProperties.getQueueCapacity());
+        data.put("batchSize", syslogProperties.getBatchSize());
+        data.put("flushIntervalMs", syslogProperties.getFlushIntervalMs());
+        data.put("writerThreads", writers.size());
+        data.put("databaseAvailable", databaseAvailable);
+        data.put("walEnabled", wal != null);
+        if (wal != null) {
+            data.put("walPendingRecords", wal.getPendingRecords());
+            data.put("walPendingBytes", wal.getPendingBytes());
+            data.put("walSegments", wal.getSegmentCount());
+            data.put("walLagMillis", getWalLagMillis());
+        }
+        return data;
+    }
+
+    /**
+     * 预写缓冲中待写库的条数，未启用为 0
+     */
+    public long getWalPendingRecords() {
+        return wal == null ? 0 : wal.getPendingRecords();
+    }
+
+    public long getWalPendingBytes() {
+        return wal == null ? 0 : wal.getPendingBytes();
+    }
+
+    /**
+     * 最早一条待写库日志写入预写缓冲至今的毫秒数，缓冲为空为 0
+     */
+    public long getWalLagMillis() {
+        long oldest = wal == null ? 0 : wal.getOldestAppendedAt();
+        return oldest == 0 ? 0 : Math.max(0, System.currentTimeMillis() - oldest);
+    }
+
+    private void writeLoop() {
+        int batchSize = Math.max(1, syslogProperties.getBatchSize());
+        long flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1L, syslogProperties.getFlushIntervalMs()));
+        List<SyslogEntry> batch = new ArrayList<>(batchSize);
+
+        boolean interrupted = false;
+        while (!interrupted && (running || !queue.isEmpty())) {
+            try {
+                SyslogEntry first = queue.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                while (batch.size() < batchSize) {
+                    if (queue.drainTo(batch, batchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0 || !running) {
+                        break;
+                    }
+                    SyslogEntry next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                interrupted = true;
+            }
+            if (!batch.isEmpty()) {
+                prepare(batch);
+                databaseAvailable = persist(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 预写缓冲写库循环：不足一批时最多等待 flushIntervalMs 攒批，读出后补做写库前处理再写库，写库成功才推进读取位置。
+     * 写库失败且数据库不可达时按间隔重试同一批（已处理的结果保留，不重复处理）；数据库可达仍失败说明是个别日志本身
+     * 无法写入（如字段超长），逐条写入并丢弃仍失败的，避免一批坏数据阻塞后面的日志
+     */
+    private void walWriteLoop() {
+        SyslogProperties.Wal config = syslogProperties.getWal();
+        int batchSize = Math.max(1, syslogProperties.getBatchSize());
+        long flushIntervalMillis = Math.max(1L, syslogProperties.getFlushIntervalMs());
+        long pollMillis = Math.min(flushIntervalMillis, WAL_POLL_MILLIS);
+        long retryMillis = Math.max(100L, config.getRetryIntervalMs());
+        long syncMillis = Math.max(1L, config.getSyncIntervalMs());
+        long lastSync = System.currentTimeMillis();
+        long waitingSince = 0;
+        // 已读出并处理、尚未写库的一批
+        List<SyslogEntry> pending = null;
+        while (running) {
+            try {
+                long now = System.currentTimeMillis();
+                if (now - lastSync >= syncMillis) {
+                    // 映射区在进程崩溃后由操作系统写回，定时强制落盘以防断电
+                    wal.sync();
+                    lastSync = now;
+                }
+                if (pending == null) {
+                    long available = wal.getPendingRecords();
+                    if (available == 0) {
+                        waitingSince = 0;
+                        Thread.sleep(pollMillis);
+                        continue;
+                    }
+                    if (available < batchSize) {
+                        if (waitingSince == 0) {
+                            waitingSince = now;
+                        }
+                        if (now - waitingSince < flushIntervalMillis) {
+                            Thread.sleep(pollMillis);
+                            continue;
+                        }
+                    }
+                    waitingSince = 0;
+                    pending = decode(wal.peek(batchSize));
+                    if (pending.isEmpty()) {
+                        wal.commit();
+                        pending = null;
+                        continue;
+                    }
+                }
+                if (persist(pending)) {
+                    databaseAvailable = true;
+                } else if (isDatabaseReachable()) {
+                    databaseAvailable = true;
+                    persistEach(pending);
+                } else {
+                    databaseAvailable = false;
+                    Thread.sleep(retryMillis);
+                    continue;
+                }
+                wal.commit();
+                metrics.getWalReplayed().add(pending.size());
+                pending = null;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                log.warn("读取Syslog预写缓冲写库失败: {}", e.getMessage());
+                try {
+                    Thread.sleep(retryMillis);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * 写库前处理：资产关联、规则匹配、模板提取与转发
+     */
+    private void prepare(List<SyslogEntry> batch) {
+        try {
+            syslogAssetIndex.enrich(batch);
+        } catch (Exception e) {
+            // 关联失败不影响入库，本批保留日志自带的设备类型与主机名
+            log.warn("Syslog资产关联失败: {}", e.getMessage());
+        }
+        if (Boolean.TRUE.equals(syslogProperties.getInlineMatch())) {
+            matchBatch(batch);
+        }
+        try {
+            syslogTemplateMiner.assign(batch);
+        } catch (Exception e) {
+            // 提取失败不影响入库，本批不带模板ID
+            log.warn("Syslog模板提取失败: {}", e.getMessage());
+        }
+        // 转发与写库互不影响：只做非阻塞入队
+        try {
+            syslogForwarder.enqueue(batch);
+        } catch (Exception e) {
+            log.warn("Syslog转发入队失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 多行INSERT写库并通知入库监听器
+     * @return 是否写库成功
+     */
+    private boolean persist(List<SyslogEntry> batch) {
+        long start = System.nanoTime();
+        try {
+            syslogEntryMapper.batchInsert(batch);
+            metrics.getPersisted().add(batch.size());
+            metrics.recordBatch(batch.size(), System.nanoTime() - start);
+        } catch (Exception e) {
+            metrics.getInsertFailed().add(batch.size());
+            if (wal == null) {
+                log.error("Syslog批量写入失败, 丢弃 {} 条: {}", batch.size(), e.getMessage());
+            } else {
+                log.warn("Syslog批量写入失败, {} 条保留在预写缓冲中重试: {}", batch.size(), e.getMessage());
+            }
+            return false;
+        }
+        List<SyslogEntry> persisted = Collections.unmodifiableList(batch);
+        for (SyslogPersistListener listener : persistListeners) {
+            try {
+                listener.onPersisted(persisted);
+            } catch (Exception e) {
+                log.warn("Syslog入库监听器 {} 处理失败: {}", listener.getClass().getSimpleName(), e.getMessage());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 追加到预写缓冲，不强制落盘
+     * @return 缓冲已满或写入失败时返回 false
+     */
+    private boolean append(SyslogEntry entry) {
+        try {
+            if (wal.append(SyslogWalCodec.encode(entry, SyslogWalCodec.KIND_RAW))) {
+                metrics.getWalSpilled().increment();
+                return true;
+            }
+        } catch (Exception e) {
+            log.warn("写入Syslog预写缓冲失败: {}", e.getMessage());
+        }
+        return false;
+    }
+
+    private void openWal() {
+        SyslogProperties.Wal config = syslogProperties.getWal();
+        if (!Boolean.TRUE.equals(config.getEnabled())) {
+            return;
+        }
+        IngestWal opened = new IngestWal(Paths.get(config.getDir()).toAbsolutePath(),
+                config.getSegmentBytes(), config.getMaxBytes());
+        try {
+            opened.open();
+        } catch (Exception e) {
+            log.error("打开Syslog预写缓冲失败, 退回内存队列: {}", e.getMessage());
+            return;
+        }
+        wal = opened;
+    }
+
+    private List<SyslogEntry> decode(List<IngestWal.Record> records) {
+        List<SyslogEntry> entries = new ArrayList<>(records.size());
+        List<SyslogEntry> raw = new ArrayList<>();
+        for (IngestWal.Record record : records) {
+            try {
+                SyslogEntry entry = SyslogWalCodec.decode(record.getData());
+                // 旧版本写库失败时落盘的已处理日志只需写库
+                if (SyslogWalCodec.kindOf(record.getData()) == SyslogWalCodec.KIND_RAW) {
+                    raw.add(entry);
+                }
+                entries.add(entry);
+            } catch (IllegalArgumentException e) {
+                metrics.getWalDropped().increment();
+                log.warn("跳过损坏的Syslog预写记录: {}", e.getMessage());
+            }
+        }
+        if (!raw.isEmpty()) {
+            prepare(raw);
+        }
+        return entries;
+    }
+
+    private void persistEach(List<SyslogEntry> entries) {
+        int dropped = 0;
+        for (SyslogEntry entry : entries) {
+            if (!persist(Collections.singletonList(entry))) {
+                dropped++;
+            }
+        }
+        if (dropped > 0) {
+            metrics.getWalDropped().add(dropped);
+            log.error("Syslog预写缓冲中 {} 条日志无法写库, 已丢弃", dropped);
+        }
+    }
+
+    private boolean isDatabaseReachable() {
+        try {
+            jdbcTemplate.queryForObject("SELECT 1", Integer.class);
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private void matchBatch(List<SyslogEntry> batch) {
+        for (SyslogEntry entry : batch) {
+            long start = System.nanoTime();
+            try {
+                syslogMatchService.applyMatch(entry);
+            } catch (Exception e) {
+                // 匹配异常不影响入库，保持未匹配状态
+                log.warn("Syslog规则匹配失败: {}", e.getMessage());
+            }
+            metrics.recordMatch(System.nanoTime() - start, entry.getMatchedRuleId());
+        }
+    }
+}
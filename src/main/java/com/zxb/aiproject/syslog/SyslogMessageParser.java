@@ -0,0 +1,323 @@
+package com.zxb.aiproject.syslog;
+
+import com.zxb.aiproject.entity.SyslogEntry;
+
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Syslog报文解析器
+ * 支持 RFC5424 与 RFC3164（BSD）两种格式，解析失败的字段回退为默认值，不抛异常
+ */
+public final class SyslogMessageParser {
+
+    /**
+     * 无PRI时的默认值：user.notice（RFC3164 4.3.3）
+     */
+    private static final int DEFAULT_FACILITY = 1;
+    private static final int DEFAULT_SEVERITY = 5;
+
+    private static final String NIL = "-";
+
+    private static final String[] MONTHS = {
+            "Jan", "Feb", "Mar", "Apr", "May", "Jun", "Jul", "Aug", "Sep", "Oct", "Nov", "Dec"
+    };
+
+    private SyslogMessageParser() {
+    }
+
+    /**
+     * 解析一条Syslog报文
+     * @param raw 原始报文
+     * @param sourceIp 发送方IP
+     * @param receivedAt 接收时间
+     * @return 日志实体，报文为空时返回null
+     */
+    public static SyslogEntry parse(String raw, String sourceIp, LocalDateTime receivedAt) {
+        if (raw == null) {
+            return null;
+        }
+        String s = trim(raw);
+        if (s.isEmpty()) {
+            return null;
+        }
+
+        SyslogEntry entry = new SyslogEntry();
+        entry.setSourceIp(sourceIp);
+        entry.setReceivedAt(receivedAt);
+        entry.setFacility(DEFAULT_FACILITY);
+        entry.setSeverity(DEFAULT_SEVERITY);
+        entry.setIsAlert(false);
+
+        int pos = 0;
+        if (s.charAt(0) == '<') {
+            int end = s.indexOf('>');
+            if (end > 1 && end <= 4) {
+                int pri = parseIntOrNegative(s, 1, end);
+                if (pri >= 0 && pri <= 191) {
+                    entry.setFacility(pri >> 3);
+                    entry.setSeverity(pri & 7);
+                    pos = end + 1;
+                }
+            }
+        }
+
+        if (isRfc5424(s, pos)) {
+            parseRfc5424(s, pos, entry);
+        } else {
+            parseRfc3164(s, pos, entry);
+        }
+
+        if (entry.getEventTime() == null) {
+            entry.setEventTime(receivedAt);
+        }
+        return entry;
+    }
+
+    /**
+     * RFC5424: VERSION SP TIMESTAMP SP HOSTNAME SP APP-NAME SP PROCID SP MSGID SP STRUCTURED-DATA [SP MSG]
+     */
+    private static boolean isRfc5424(String s, int pos) {
+        int i = pos;
+        while (i < s.length() && i - pos < 3 && Character.isDigit(s.charAt(i))) {
+            i++;
+        }
+        if (i == pos || i >= s.length() - 1 || s.charAt(i) != ' ') {
+            return false;
+        }
+        char next = s.charAt(i + 1);
+        // 版本号后紧跟ISO时间戳或NILVALUE
+        return next == '-' || (Character.isDigit(next) && s.indexOf('T', i + 1) > i + 1);
+    }
+
+    private static void parseRfc5424(String s, int pos, SyslogEntry entry) {
+        int[] cursor = {pos};
+        nextToken(s, cursor); // VERSION
+        String timestamp = nextToken(s, cursor);
+        String hostname = nextToken(s, cursor);
+        String appName = nextToken(s, cursor);
+        String procId = nextToken(s, cursor);
+        nextToken(s, cursor); // MSGID
+        skipStructuredData(s, cursor);
+
+        if (timestamp != null && !NIL.equals(timestamp)) {
+            entry.setEventTime(parseIsoTimestamp(timestamp));
+        }
+        if (hostname != null && !NIL.equals(hostname)) {
+            entry.setHostname(hostname);
+        }
+
+        String msg = cursor[0] < s.length() ? s.substring(cursor[0]) : "";
+        if (!msg.isEmpty() && msg.charAt(0) == '\uFEFF') {
+            msg = msg.substring(1);
+        }
+        // 与RFC3164保持一致，把APP-NAME[PROCID]作为TAG前缀保存在消息中
+        if (appName != null && !NIL.equals(appName)) {
+            StringBuilder tag = new StringBuilder(appName);
+            if (procId != null && !NIL.equals(procId)) {
+                tag.append('[').append(procId).append(']');
+            }
+            msg = msg.isEmpty() ? tag.toString() : tag.append(": ").append(msg).toString();
+        }
+        entry.setMessage(msg);
+    }
+
+    private static void skipStructuredData(String s, int[] cursor) {
+        int i = cursor[0];
+        if (i >= s.length()) {
+            return;
+        }
+        if (s.charAt(i) == '-') {
+            i++;
+        } else {
+            while (i < s.length() && s.charAt(i) == '[') {
+                boolean inQuote = false;
+                i++;
+                while (i < s.length()) {
+                    char c = s.charAt(i);
+                    if (c == '\\' && inQuote) {
+                        i += 2;
+                        continue;
+                    }
+                    if (c == '"') {
+                        inQuote = !inQuote;
+                    } else if (c == ']' && !inQuote) {
+                        i++;
+                        break;
+                    }
+                    i++;
+                }
+            }
+        }
+        if (i < s.length() && s.charAt(i) == ' ') {
+            i++;
+        }
+        cursor[0] = Math.min(i, s.length());
+    }
+
+    /**
+     * RFC3164: TIMESTAMP SP HOSTNAME SP MSG，时间戳与主机名均可缺失
+     */
+    private static void parseRfc3164(String s, int pos, SyslogEntry entry) {
+        int[] cursor = {pos};
+        while (cursor[0] < s.length() && (s.charAt(cursor[0]) == ' ' || s.charAt(cursor[0]) == '*')) {
+            cursor[0]++;
+        }
+
+        LocalDateTime eventTime = parseBsdTimestamp(s, cursor, entry.getReceivedAt());
+        if (eventTime == null) {
+            eventTime = parseLeadingIsoTimestamp(s, cursor);
+        }
+        if (eventTime != null) {
+            entry.setEventTime(eventTime);
+            // 时间戳后的第一个token为HOSTNAME；以':'结尾或含'['的视为TAG（发送方省略了主机名）
+            int save = cursor[0];
+            String token = nextToken(s, cursor);
+            if (token != null && !token.endsWith(":") && token.indexOf('[') < 0) {
+                entry.setHostname(token);
+            } else {
+                cursor[0] = save;
+            }
+        }
+        entry.setMessage(cursor[0] < s.length() ? s.substring(cursor[0]) : "");
+    }
+
+    /**
+     * 解析 "Mmm dd hh:mm:ss[.SSS][:]"，报文不带年份，取接收时间所在年份并处理跨年
+     */
+    private static LocalDateTime parseBsdTimestamp(String s, int[] cursor, LocalDateTime receivedAt) {
+        int i = cursor[0];
+        if (s.length() - i < 15) {
+            return null;
+        }
+        int month = -1;
+        for (int m = 0; m < MONTHS.length; m++) {
+            if (s.regionMatches(true, i, MONTHS[m], 0, 3)) {
+                month = m + 1;
+                break;
+            }
+        }
+        if (month < 0 || s.charAt(i + 3) != ' ') {
+            return null;
+        }
+        int dayStart = s.charAt(i + 4) == ' ' ? i + 5 : i + 4;
+        int day = parseIntOrNegative(s, dayStart, i + 6);
+        if (day < 1 || day > 31 || s.charAt(i + 6) != ' '
+                || s.charAt(i + 9) != ':' || s.charAt(i + 12) != ':') {
+            return null;
+        }
+        int hour = parseIntOrNegative(s, i + 7, i + 9);
+        int minute = parseIntOrNegative(s, i + 10, i + 12);
+        int second = parseIntOrNegative(s, i + 13, i + 15);
+        if (hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 60) {
+            return null;
+        }
+        int end = i + 15;
+        int nanos = 0;
+        if (end < s.length() && s.charAt(end) == '.') {
+            int fracStart = ++end;
+            while (end < s.length() && Character.isDigit(s.charAt(end))) {
+                end++;
+            }
+            int digits = Math.min(end - fracStart, 9);
+            if (digits > 0) {
+                nanos = parseIntOrNegative(s, fracStart, fracStart + digits);
+                for (int k = digits; k < 9; k++) {
+                    nanos *= 10;
+                }
+            }
+        }
+        if (end < s.length() && s.charAt(end) == ':') {
+            end++;
+        }
+        if (end < s.length() && s.charAt(end) != ' ') {
+            return null;
+        }
+        cursor[0] = end < s.length() ? end + 1 : end;
+
+        LocalDateTime reference = receivedAt != null ? receivedAt : LocalDateTime.now();
+        try {
+            LocalDateTime time = LocalDateTime.of(reference.getYear(), month, day, hour, minute,
+                    Math.min(second, 59), nanos);
+            // 年末收到年初时间戳之类的跨年情况：超前一天以上视为上一年
+            if (time.isAfter(reference.plusDays(1))) {
+                time = time.minusYears(1);
+            }
+            return time;
+        } catch (java.time.DateTimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 部分设备在RFC3164报文中使用ISO时间戳（如rsyslog高精度模板）
+     */
+    private static LocalDateTime parseLeadingIsoTimestamp(String s, int[] cursor) {
+        int i = cursor[0];
+        if (i + 19 > s.length() || !Character.isDigit(s.charAt(i)) || s.charAt(i + 4) != '-'
+                || s.charAt(i + 10) != 'T') {
+            return null;
+        }
+        int save = cursor[0];
+        String token = nextToken(s, cursor);
+        LocalDateTime time = token != null ? parseIsoTimestamp(token) : null;
+        if (time == null) {
+            cursor[0] = save;
+        }
+        return time;
+    }
+
+    private static LocalDateTime parseIsoTimestamp(String value) {
+        try {
+            return OffsetDateTime.parse(value).atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+        } catch (DateTimeParseException e) {
+            try {
+                return LocalDateTime.parse(value);
+            } catch (DateTimeParseException ignored) {
+                return null;
+            }
+        }
+    }
+
+    private static String nextToken(String s, int[] cursor) {
+        int start = cursor[0];
+        if (start >= s.length()) {
+            return null;
+        }
+        int end = s.indexOf(' ', start);
+        if (end < 0) {
+            end = s.length();
+        }
+        cursor[0] = Math.min(end + 1, s.length());
+        return s.substring(start, end);
+    }
+
+    private static int parseIntOrNegative(String s, int start, int end) {
+        if (start >= end || end > s.length()) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static String trim(String raw) {
+        int start = 0;
+        int end = raw.length();
+        while (start < end && (raw.charAt(start) <= ' ' || raw.charAt(start) == '\uFEFF')) {
+            start++;
+        }
+        while (end > start && (raw.charAt(end - 1) <= ' ')) {
+            end--;
+        }
+        return raw.substring(start, end);
+    }
+}
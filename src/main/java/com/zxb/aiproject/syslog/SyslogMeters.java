@@ -0,0 +1,130 @@
+package com.zxb.aiproject.syslog;
+
+import com.zxb.aiproject.config.SyslogProperties;
+import com.zxb.aiproject.service.SyslogMatchService;
+import com.zxb.aiproject.syslog.forward.SyslogForwarder;
+import com.zxb.aiproject.syslog.sketch.SourceSketch;
+import com.zxb.aiproject.syslog.sketch.SpaceSaving;
+import com.zxb.aiproject.syslog.sketch.SyslogSourceSketches;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.TimeGauge;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Syslog链路的状态类指标：队列深度、预写缓冲积压、各规则正则耗时与当前小时的来源热点
+ * 计数与耗时直方图由 {@link SyslogIngestMetrics} 注册；这里的指标依赖入库管道等组件，
+ * 不作为 MeterBinder 交给注册表初始化时绑定，避免注册表创建时提前拉起整条链路。
+ * 按规则、按来源展开的两组指标定期整体刷新，已删除的规则与掉出热点的来源随之消失。
+ */
+@Slf4j
+@Component
+public class SyslogMeters {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private SyslogProperties syslogProperties;
+
+    @Autowired
+    private SyslogIngestPipeline syslogIngestPipeline;
+
+    @Autowired
+    private SyslogForwarder syslogForwarder;
+
+    @Autowired
+    private SyslogMatchService syslogMatchService;
+
+    @Autowired
+    private SyslogSourceSketches syslogSourceSketches;
+
+    private MultiGauge ruleRegexTime;
+
+    private MultiGauge topSources;
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("syslog.queue.depth", syslogIngestPipeline, SyslogIngestPipeline::getQueueDepth)
+                .description("入库队列中待写库条数")
+                .register(meterRegistry);
+        Gauge.builder("syslog.queue.capacity", syslogProperties, p -> p.getQueueCapacity())
+                .description("入库队列容量")
+                .register(meterRegistry);
+        Gauge.builder("syslog.forward.buffer.depth", syslogForwarder, SyslogForwarder::getBufferDepth)
+                .description("转发缓冲中待发送条数")
+                .register(meterRegistry);
+        Gauge.builder("syslog.wal.pending.records", syslogIngestPipeline, SyslogIngestPipeline::getWalPendingRecords)
+                .description("预写缓冲中待写库条数")
+                .register(meterRegistry);
+        Gauge.builder("syslog.wal.pending", syslogIngestPipeline, SyslogIngestPipeline::getWalPendingBytes)
+                .description("预写缓冲中待写库字节数")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        TimeGauge.builder("syslog.wal.lag", syslogIngestPipeline, TimeUnit.MILLISECONDS,
+                        SyslogIngestPipeline::getWalLagMillis)
+                .description("最早一条待写库日志的积压时长")
+                .register(meterRegistry);
+        Gauge.builder("syslog.rules", syslogMatchService, SyslogMatchService::getRuleCount)
+                .description("启用的匹配规则数")
+                .register(meterRegistry);
+        ruleRegexTime = MultiGauge.builder("syslog.rule.regex.time")
+                .description("各含正则关键字规则自上次规则重建以来的累计求值耗时")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        topSources = MultiGauge.builder("syslog.source.top.messages")
+                .description("当前小时日志量最大的来源（近似计数）")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${syslog.metrics.refresh-interval-ms:30000}", initialDelay = 30000)
+    public void refresh() {
+        try {
+            refreshRuleRegexTime();
+        } catch (Exception e) {
+            log.warn("刷新规则正则耗时指标失败: {}", e.getMessage());
+        }
+        try {
+            refreshTopSources();
+        } catch (Exception e) {
+            log.warn("刷新来源热点指标失败: {}", e.getMessage());
+        }
+    }
+
+    private void refreshRuleRegexTime() {
+        List<MultiGauge.Row<?>> rows = new ArrayList<>();
+        for (Map.Entry<Integer, Long> item : syslogMatchService.getRuleRegexNanos().entrySet()) {
+            rows.add(MultiGauge.Row.of(Tags.of("rule_id", String.valueOf(item.getKey())),
+                    item.getValue() / 1_000_000_000.0));
+        }
+        ruleRegexTime.register(rows, true);
+    }
+
+    private void refreshTopSources() {
+        int limit = syslogProperties.getMetrics().getTopSources() == null
+                ? 0 : syslogProperties.getMetrics().getTopSources();
+        List<MultiGauge.Row<?>> rows = new ArrayList<>();
+        if (limit > 0 && syslogSourceSketches.isAvailable()) {
+            LocalDateTime now = LocalDateTime.now();
+            SourceSketch sketch = syslogSourceSketches.read(now, now);
+            if (sketch != null) {
+                for (SpaceSaving.Counter counter : sketch.topSources(limit)) {
+                    rows.add(MultiGauge.Row.of(Tags.of("source_ip", counter.getKey()), counter.getCount()));
+                }
+            }
+        }
+        topSources.register(rows, true);
+    }
+}
@@ -0,0 +1,42 @@
+package com.zxb.aiproject.syslog;
+
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * 日志列表游标
+ * 由上一页最后一条的 (received_at, id) 组成，对外以URL安全的Base64字符串传递，客户端不应解析其内容
+ */
+@Getter
+public final class SyslogPageCursor {
+
+    private final LocalDateTime receivedAt;
+
+    private final long id;
+
+    public SyslogPageCursor(LocalDateTime receivedAt, long id) {
+        this.receivedAt = receivedAt;
+        this.id = id;
+    }
+
+    public String encode() {
+        String raw = receivedAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException 游标格式不正确
+     */
+    public static SyslogPageCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = raw.lastIndexOf('|');
+            return new SyslogPageCursor(LocalDateTime.parse(raw.substring(0, sep)), Long.parseLong(raw.substring(sep + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("游标无效: " + cursor);
+        }
+    }
+}
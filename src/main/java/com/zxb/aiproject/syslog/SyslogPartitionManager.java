@@ -0,0 +1,361 @@
+package com.zxb.aiproject.syslog;
+
+import com.zxb.aiproject.config.SyslogProperties;
+import com.zxb.aiproject.entity.LogSettings;
+import com.zxb.aiproject.mapper.LogSettingsMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Syslog按天分区管理
+ * t_log_syslog 按 received_at 做 RANGE COLUMNS 分区：p_history 存放改造前的早期日志，pYYYYMMDD 存放当天日志，
+ * pmax 兜底。每天预建未来分区（拆分空的 pmax，代价很小），按日志设置的保留天数整体删除过期分区，
+ * 代替逐行 DELETE；带 received_at 条件的查询只访问相关分区。
+ * 未分区的旧表不会在启动或定时任务中自动改造（需复制整表并阻塞写入），只能由管理员在开启
+ * syslog.partition.migrate-existing 后通过接口手动触发。
+ */
+@Slf4j
+@Component
+public class SyslogPartitionManager {
+
+    private static final String TABLE = "t_log_syslog";
+
+    private static final String HISTORY_PARTITION = "p_history";
+
+    private static final String MAX_PARTITION = "pmax";
+
+    private static final DateTimeFormatter NAME_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    private static final DateTimeFormatter BOUND_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    /**
+     * 日志设置缺失时的默认保留天数（与日志设置接口的默认值一致）
+     */
+    private static final int DEFAULT_RETENTION_DAYS = 180;
+
+    @Autowired
+    private SyslogProperties syslogProperties;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private LogSettingsMapper logSettingsMapper;
+
+    private volatile LocalDateTime lastPurgeTime;
+
+    private volatile long lastPurgedRows;
+
+    private volatile Thread migration;
+
+    private volatile String migrationError;
+
+    private volatile LocalDateTime migratedAt;
+
+    @PostConstruct
+    public void init() {
+        if (!Boolean.TRUE.equals(syslogProperties.getPartition().getEnabled())) {
+            return;
+        }
+        // 补建缺失的每日分区可能较多，放到后台执行，不阻塞启动
+        Thread thread = new Thread(this::maintain, "syslog-partition-init");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * 预建到 今天 + preCreateDays 的分区（过期分区由系统维护任务的历史数据清理删除）；未分区时不做任何改动
+     */
+    @Scheduled(cron = "0 10 0 * * ?")
+    public synchronized void maintain() {
+        if (!Boolean.TRUE.equals(syslogProperties.getPartition().getEnabled())) {
+            return;
+        }
+        try {
+            List<PartitionInfo> partitions = listPartitions();
+            if (partitions.isEmpty()) {
+                log.warn("{} 尚未分区，过期日志将按批删除；改造为分区表需由管理员手动触发", TABLE);
+                return;
+            }
+            createFuturePartitions(partitions);
+        } catch (Exception e) {
+            log.error("维护 {} 分区失败: {}", TABLE, e.getMessage());
+        }
+    }
+
+    /**
+     * 管理员手动触发：在后台把未分区的旧表改造为分区表
+     * 改造期间整表复制、写入阻塞，须在维护窗口执行，且需开启 syslog.partition.migrate-existing
+     * @return 是否已启动；改造进行中时返回 false
+     */
+    public synchronized boolean startMigration() {
+        if (!Boolean.TRUE.equals(syslogProperties.getPartition().getEnabled())) {
+            throw new IllegalStateException("未开启日志表分区");
+        }
+        if (!Boolean.TRUE.equals(syslogProperties.getPartition().getMigrateExisting())) {
+            throw new IllegalStateException("未开启 syslog.partition.migrate-existing，不允许改造旧表");
+        }
+        if (migration != null && migration.isAlive()) {
+            return false;
+        }
+        if (!listPartitions().isEmpty()) {
+            throw new IllegalStateException(TABLE + " 已是分区表");
+        }
+        migrationError = null;
+        Thread thread = new Thread(() -> {
+            try {
+                synchronized (this) {
+                    migrate();
+                    createFuturePartitions(listPartitions());
+                }
+                migratedAt = LocalDateTime.now();
+            } catch (Exception e) {
+                migrationError = e.getMessage();
+                log.error("{} 分区改造失败: {}", TABLE, e.getMessage());
+            }
+        }, "syslog-partition-migrate");
+        thread.setDaemon(true);
+        migration = thread;
+        thread.start();
+        return true;
+    }
+
+    /**
+     * 按日志设置的保留天数清理过期日志：已分区时删除整个分区，否则按批删除
+     * @return 删除的日志行数（按分区删除时为统计信息中的估算值）
+     */
+    public synchronized long purgeExpired() {
+        int retentionDays = getRetentionDays();
+        LocalDateTime cutoff = LocalDate.now().minusDays(retentionDays).atStartOfDay();
+        long removed;
+        try {
+            removed = purgeBefore(cutoff);
+        } catch (Exception e) {
+            log.error("清理过期Syslog日志失败: {}", e.getMessage());
+            return 0;
+        }
+        log.info("清理 {} 之前的Syslog日志完成(保留{}天): {} 行", cutoff, retentionDays, removed);
+        return removed;
+    }
+
+    /**
+     * 删除 cutoff（须为零点）之前的日志：已分区时删除整个分区，未分区或有日志落在更早的分区以外时按批删除
+     * @return 删除的日志行数（按分区删除部分为统计信息中的估算值）
+     */
+    public synchronized long purgeBefore(LocalDateTime cutoff) {
+        List<PartitionInfo> partitions = listPartitions();
+        long removed = partitions.isEmpty() ? deleteInBatches(cutoff) : dropPartitionsBefore(partitions, cutoff);
+        if (!partitions.isEmpty()) {
+            // 长时间停机后补建分区时，早于 cutoff 的日志可能落在上界晚于 cutoff 的分区里
+            removed += deleteInBatches(cutoff);
+        }
+        lastPurgeTime = LocalDateTime.now();
+        lastPurgedRows = removed;
+        return removed;
+    }
+
+    /**
+     * 分区状态，供监控接口展示
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> data = new LinkedHashMap<>();
+        try {
+            List<PartitionInfo> partitions = listPartitions();
+            data.put("partitioned", !partitions.isEmpty());
+            data.put("partitionCount", partitions.size());
+            List<String> names = new ArrayList<>();
+            for (PartitionInfo partition : partitions) {
+                names.add(partition.name);
+            }
+            data.put("partitions", names);
+        } catch (Exception e) {
+            data.put("partitioned", null);
+            data.put("error", e.getMessage());
+        }
+        data.put("retentionDays", getRetentionDays());
+        data.put("lastPurgeTime", lastPurgeTime);
+        data.put("lastPurgedRows", lastPurgedRows);
+        Thread thread = migration;
+        data.put("migrationRunning", thread != null && thread.isAlive());
+        data.put("migrationError", migrationError);
+        data.put("migratedAt", migratedAt);
+        return data;
+    }
+
+    /**
+     * 把未分区的旧表改造为分区表：主键加入分区列，按保留天数建出每日分区
+     */
+    private void migrate() {
+        long start = System.currentTimeMillis();
+        LocalDate today = LocalDate.now();
+        LocalDate firstDay = today.minusDays(getRetentionDays());
+        log.info("开始把 {} 改造为按天分区表, 首个每日分区 {}", TABLE, firstDay);
+
+        // 分区列必须非空且包含在主键中
+        jdbcTemplate.update("UPDATE " + TABLE + " SET received_at = COALESCE(created_at, NOW()) WHERE received_at IS NULL");
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " MODIFY received_at datetime NOT NULL DEFAULT CURRENT_TIMESTAMP, "
+                + "DROP PRIMARY KEY, ADD PRIMARY KEY (id, received_at)");
+
+        StringBuilder sql = new StringBuilder("ALTER TABLE ").append(TABLE)
+                .append(" PARTITION BY RANGE COLUMNS(received_at) (")
+                .append(partitionClause(HISTORY_PARTITION, firstDay.atStartOfDay())).append(", ");
+        for (LocalDate day = firstDay; !day.isAfter(today.plusDays(getPreCreateDays())); day = day.plusDays(1)) {
+            sql.append(dayPartitionClause(day)).append(", ");
+        }
+        sql.append(maxPartitionClause()).append(")");
+        jdbcTemplate.execute(sql.toString());
+        log.info("{} 分区改造完成, 耗时={}ms", TABLE, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 拆分 pmax 预建未来的每日分区
+     */
+    private void createFuturePartitions(List<PartitionInfo> partitions) {
+        LocalDate lastDay = null;
+        for (PartitionInfo partition : partitions) {
+            if (partition.upperBound != null) {
+                // 上界为次日零点
+                lastDay = partition.upperBound.toLocalDate().minusDays(1);
+            }
+        }
+        LocalDate today = LocalDate.now();
+        // 长时间停机后缺失的日子也补建，落入 pmax 的日志随拆分重新分布，之后才能按天过期；
+        // 已超出保留期的日子不再单独建分区，这部分日志落入第一个新分区，随它一起过期
+        LocalDate from = today.minusDays(getRetentionDays());
+        if (lastDay != null && lastDay.plusDays(1).isAfter(from)) {
+            from = lastDay.plusDays(1);
+        }
+        LocalDate to = today.plusDays(getPreCreateDays());
+        if (from.isAfter(to)) {
+            return;
+        }
+        StringBuilder sql = new StringBuilder("ALTER TABLE ").append(TABLE)
+                .append(" REORGANIZE PARTITION ").append(MAX_PARTITION).append(" INTO (");
+        int created = 0;
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            sql.append(dayPartitionClause(day)).append(", ");
+            created++;
+        }
+        sql.append(maxPartitionClause()).append(")");
+        jdbcTemplate.execute(sql.toString());
+        log.info("{} 预建分区 {} 个: {} ~ {}", TABLE, created, from, to);
+    }
+
+    /**
+     * 删除上界不晚于 cutoff 的分区（pmax 始终保留）
+     */
+    private long dropPartitionsBefore(List<PartitionInfo> partitions, LocalDateTime cutoff) {
+        List<String> expired = new ArrayList<>();
+        long rows = 0;
+        for (PartitionInfo partition : partitions) {
+            if (partition.upperBound != null && !partition.upperBound.isAfter(cutoff)) {
+                expired.add(partition.name);
+                rows += partition.rows;
+            }
+        }
+        if (expired.isEmpty()) {
+            return 0;
+        }
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " DROP PARTITION " + String.join(", ", expired));
+        log.info("{} 删除过期分区: {}", TABLE, expired);
+        return rows;
+    }
+
+    /**
+     * 未分区时的兜底：按 received_at 索引分批删除，避免单条大事务长时间锁表
+     */
+    private long deleteInBatches(LocalDateTime cutoff) {
+        int batchSize = Math.max(1, syslogProperties.getPartition().getPurgeBatchSize());
+        long total = 0;
+        int deleted;
+        do {
+            deleted = jdbcTemplate.update("DELETE FROM " + TABLE + " WHERE received_at < ? LIMIT ?", cutoff, batchSize);
+            total += deleted;
+        } while (deleted >= batchSize);
+        return total;
+    }
+
+    private List<PartitionInfo> listPartitions() {
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                "SELECT PARTITION_NAME, PARTITION_DESCRIPTION, TABLE_ROWS FROM information_schema.PARTITIONS "
+                        + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND PARTITION_NAME IS NOT NULL "
+                        + "ORDER BY PARTITION_ORDINAL_POSITION", TABLE);
+        List<PartitionInfo> partitions = new ArrayList<>();
+        for (Map<String, Object> row : rows) {
+            Object tableRows = row.get("TABLE_ROWS");
+            partitions.add(new PartitionInfo((String) row.get("PARTITION_NAME"),
+                    parseBound((String) row.get("PARTITION_DESCRIPTION")),
+                    tableRows instanceof Number ? ((Number) tableRows).longValue() : 0L));
+        }
+        return partitions;
+    }
+
+    /**
+     * 日志设置中的保留天数
+     */
+    public int getRetentionDays() {
+        try {
+            LogSettings settings = logSettingsMapper.selectById(1);
+            if (settings != null && settings.getRetentionDays() != null && settings.getRetentionDays() > 0) {
+                return settings.getRetentionDays();
+            }
+        } catch (Exception e) {
+            log.warn("读取日志保留天数失败, 使用默认值{}: {}", DEFAULT_RETENTION_DAYS, e.getMessage());
+        }
+        return DEFAULT_RETENTION_DAYS;
+    }
+
+    private int getPreCreateDays() {
+        return Math.max(1, syslogProperties.getPartition().getPreCreateDays());
+    }
+
+    private static String dayPartitionClause(LocalDate day) {
+        return partitionClause("p" + day.format(NAME_FORMATTER), day.plusDays(1).atStartOfDay());
+    }
+
+    private static String partitionClause(String name, LocalDateTime upperBound) {
+        return "PARTITION " + name + " VALUES LESS THAN ('" + upperBound.format(BOUND_FORMATTER) + "')";
+    }
+
+    private static String maxPartitionClause() {
+        return "PARTITION " + MAX_PARTITION + " VALUES LESS THAN (MAXVALUE)";
+    }
+
+    /**
+     * 解析分区上界，如 '2025-11-30 00:00:00'；MAXVALUE 返回 null
+     */
+    private static LocalDateTime parseBound(String description) {
+        if (description == null || "MAXVALUE".equalsIgnoreCase(description)) {
+            return null;
+        }
+        String value = description.replace("'", "").trim();
+        if (value.length() == 10) {
+            return LocalDate.parse(value).atStartOfDay();
+        }
+        return LocalDateTime.parse(value, BOUND_FORMATTER);
+    }
+
+    private static final class PartitionInfo {
+        final String name;
+        final LocalDateTime upperBound;
+        final long rows;
+
+        PartitionInfo(String name, LocalDateTime upperBound, long rows) {
+            this.name = name;
+            this.upperBound = upperBound;
+            this.rows = rows;
+        }
+    }
+}
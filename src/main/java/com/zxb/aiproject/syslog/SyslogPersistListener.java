@@ -0,0 +1,18 @@
+package com.zxb.aiproject.syslog;
+
+import com.zxb.aiproject.entity.SyslogEntry;
+
+import java.util.List;
+
+/**
+ * Syslog入库监听器
+ * 批量写库成功后由入库线程回调，此时日志已回填自增ID。
+ * 回调在入库线程上同步执行，实现方只做内存操作或自行异步，异常不影响入库。
+ */
+public interface SyslogPersistListener {
+
+    /**
+     * @param entries 本批已入库的日志（只读，回调返回后列表会被入库线程复用，需要保留时自行复制）
+     */
+    void onPersisted(List<SyslogEntry> entries);
+}
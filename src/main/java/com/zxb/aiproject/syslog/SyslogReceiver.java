@@ -0,0 +1,317 @@
+package com.zxb.aiproject.syslog;
+
+import com.zxb.aiproject.config.SyslogProperties;
+import com.zxb.aiproject.entity.SyslogEntry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+
+/**
+ * 内置Syslog接收器
+ * 单个NIO Selector线程同时处理UDP报文与TCP连接（RFC6587 octet-counting / 换行分帧），
+ * 解析后投递到 {@link SyslogIngestPipeline}，不在接收线程上访问数据库
+ */
+@Slf4j
+@Component
+public class SyslogReceiver {
+
+    /**
+     * 单次唤醒最多连续读取的UDP报文数，避免TCP连接饿死
+     */
+    private static final int MAX_DATAGRAMS_PER_WAKEUP = 1024;
+
+    private static final int MAX_UDP_DATAGRAM = 65535;
+
+    @Autowired
+    private SyslogProperties syslogProperties;
+
+    @Autowired
+    private SyslogIngestPipeline ingestPipeline;
+
+    @Autowired
+    private SyslogIngestMetrics metrics;
+
+    private Selector selector;
+
+    private DatagramChannel udpChannel;
+
+    private ServerSocketChannel tcpChannel;
+
+    private Thread selectorThread;
+
+    private volatile boolean running;
+
+    private ByteBuffer udpBuffer;
+
+    @PostConstruct
+    public void start() {
+        if (!Boolean.TRUE.equals(syslogProperties.getEnabled())) {
+            log.info("Syslog接收器未启用");
+            return;
+        }
+        try {
+            selector = Selector.open();
+            String bindAddress = syslogProperties.getBindAddress();
+            if (syslogProperties.getUdpPort() != null && syslogProperties.getUdpPort() > 0) {
+                udpChannel = DatagramChannel.open();
+                udpChannel.setOption(StandardSocketOptions.SO_RCVBUF, syslogProperties.getReceiveBufferSize());
+                udpChannel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+                udpChannel.bind(new InetSocketAddress(bindAddress, syslogProperties.getUdpPort()));
+                udpChannel.configureBlocking(false);
+                udpChannel.register(selector, SelectionKey.OP_READ);
+                udpBuffer = ByteBuffer.allocateDirect(MAX_UDP_DATAGRAM);
+                log.info("Syslog UDP监听: {}:{}", bindAddress, syslogProperties.getUdpPort());
+            }
+            if (syslogProperties.getTcpPort() != null && syslogProperties.getTcpPort() > 0) {
+                tcpChannel = ServerSocketChannel.open();
+                tcpChannel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+                tcpChannel.bind(new InetSocketAddress(bindAddress, syslogProperties.getTcpPort()), 256);
+                tcpChannel.configureBlocking(false);
+                tcpChannel.register(selector, SelectionKey.OP_ACCEPT);
+                log.info("Syslog TCP监听: {}:{}", bindAddress, syslogProperties.getTcpPort());
+            }
+        } catch (IOException e) {
+            // 端口被占用或无权限绑定低端口时不影响应用启动
+            log.error("Syslog接收器启动失败: {}", e.getMessage());
+            closeQuietly();
+            return;
+        }
+
+        running = true;
+        selectorThread = new Thread(this::selectLoop, "syslog-receiver");
+        selectorThread.setDaemon(true);
+        selectorThread.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (selector != null) {
+            selector.wakeup();
+        }
+        if (selectorThread != null) {
+            try {
+                selectorThread.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        closeQuietly();
+    }
+
+    private void selectLoop() {
+        while (running) {
+            try {
+                selector.select(500);
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else if (key.isReadable()) {
+                        if (key.channel() instanceof DatagramChannel) {
+                            readDatagrams();
+                        } else {
+                            readTcp(key);
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                log.warn("Syslog接收循环异常: {}", e.getMessage());
+            } catch (RuntimeException e) {
+                log.error("Syslog接收循环未知异常", e);
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel client = tcpChannel.accept();
+        if (client == null) {
+            return;
+        }
+        client.configureBlocking(false);
+        client.setOption(StandardSocketOptions.SO_KEEPALIVE, true);
+        String remoteIp = ((InetSocketAddress) client.getRemoteAddress()).getAddress().getHostAddress();
+        client.register(selector, SelectionKey.OP_READ, new TcpFrameDecoder(remoteIp, syslogProperties.getMaxMessageSize()));
+        log.debug("Syslog TCP连接建立: {}", remoteIp);
+    }
+
+    private void readDatagrams() throws IOException {
+        int maxSize = syslogProperties.getMaxMessageSize();
+        for (int i = 0; i < MAX_DATAGRAMS_PER_WAKEUP; i++) {
+            udpBuffer.clear();
+            SocketAddress sender = udpChannel.receive(udpBuffer);
+            if (sender == null) {
+                return;
+            }
+            udpBuffer.flip();
+            int length = Math.min(udpBuffer.remaining(), maxSize);
+            byte[] bytes = new byte[length];
+            udpBuffer.get(bytes);
+            handle(new String(bytes, StandardCharsets.UTF_8),
+                    ((InetSocketAddress) sender).getAddress().getHostAddress());
+        }
+    }
+
+    private void readTcp(SelectionKey key) {
+        SocketChannel client = (SocketChannel) key.channel();
+        TcpFrameDecoder decoder = (TcpFrameDecoder) key.attachment();
+        try {
+            int n;
+            while ((n = client.read(decoder.buffer)) > 0) {
+                decoder.decode(this::handle);
+            }
+            if (n < 0) {
+                decoder.flushRemaining(this::handle);
+                closeClient(key);
+            }
+        } catch (IOException e) {
+            log.debug("Syslog TCP连接异常断开: {}, {}", decoder.remoteIp, e.getMessage());
+            closeClient(key);
+        }
+    }
+
+    private void handle(String raw, String sourceIp) {
+        metrics.getReceived().increment();
+        SyslogEntry entry = SyslogMessageParser.parse(raw, sourceIp, LocalDateTime.now());
+        if (entry == null) {
+            metrics.getParseErrors().increment();
+            return;
+        }
+        metrics.getParsed().increment();
+        ingestPipeline.submit(entry);
+    }
+
+    private void closeClient(SelectionKey key) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException ignored) {
+            // 连接已断开
+        }
+    }
+
+    private void closeQuietly() {
+        try {
+            if (selector != null) {
+                for (SelectionKey key : selector.keys()) {
+                    key.channel().close();
+                }
+                selector.close();
+            }
+            if (udpChannel != null) {
+                udpChannel.close();
+            }
+            if (tcpChannel != null) {
+                tcpChannel.close();
+            }
+        } catch (IOException e) {
+            log.debug("关闭Syslog接收器资源失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 报文回调
+     */
+    interface FrameHandler {
+        void onFrame(String raw, String sourceIp);
+    }
+
+    /**
+     * TCP分帧器：以数字开头按 "LEN SP MSG" 解析（octet-counting），否则按 LF/NUL 分隔；
+     * 缓冲区满仍无完整帧时整体作为一条消息输出（截断）
+     */
+    static class TcpFrameDecoder {
+
+        final String remoteIp;
+
+        final ByteBuffer buffer;
+
+        private final int maxMessageSize;
+
+        TcpFrameDecoder(String remoteIp, int maxMessageSize) {
+            this.remoteIp = remoteIp;
+            this.maxMessageSize = maxMessageSize;
+            this.buffer = ByteBuffer.allocate(maxMessageSize + 16);
+        }
+
+        void decode(FrameHandler handler) {
+            buffer.flip();
+            byte[] data = buffer.array();
+            int limit = buffer.limit();
+            int pos = buffer.position();
+
+            while (pos < limit) {
+                byte first = data[pos];
+                if (first == '\n' || first == '\r' || first == 0) {
+                    pos++;
+                    continue;
+                }
+                if (first >= '0' && first <= '9') {
+                    int i = pos;
+                    int length = 0;
+                    while (i < limit && data[i] >= '0' && data[i] <= '9' && length <= maxMessageSize) {
+                        length = length * 10 + (data[i] - '0');
+                        i++;
+                    }
+                    if (i >= limit) {
+                        break;
+                    }
+                    if (data[i] == ' ' && length <= maxMessageSize) {
+                        if (limit - i - 1 < length) {
+                            break;
+                        }
+                        handler.onFrame(new String(data, i + 1, length, StandardCharsets.UTF_8), remoteIp);
+                        pos = i + 1 + length;
+                        continue;
+                    }
+                }
+                int end = pos;
+                while (end < limit && data[end] != '\n' && data[end] != 0) {
+                    end++;
+                }
+                if (end >= limit) {
+                    break;
+                }
+                handler.onFrame(new String(data, pos, end - pos, StandardCharsets.UTF_8), remoteIp);
+                pos = end + 1;
+            }
+
+            buffer.position(pos);
+            buffer.compact();
+            if (!buffer.hasRemaining()) {
+                buffer.flip();
+                handler.onFrame(new String(data, 0, buffer.limit(), StandardCharsets.UTF_8), remoteIp);
+                buffer.clear();
+            }
+        }
+
+        void flushRemaining(FrameHandler handler) {
+            buffer.flip();
+            if (buffer.hasRemaining()) {
+                handler.onFrame(new String(buffer.array(), 0, buffer.limit(), StandardCharsets.UTF_8), remoteIp);
+            }
+            buffer.clear();
+        }
+    }
+}
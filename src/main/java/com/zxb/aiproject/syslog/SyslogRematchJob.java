@@ -0,0 +1,480 @@
+package com.zxb.aiproject.syslog;
+
+import com.zxb.aiproject.config.SyslogProperties;
+import com.zxb.aiproject.entity.LogRematchJob;
+import com.zxb.aiproject.entity.SyslogEntry;
+import com.zxb.aiproject.mapper.LogRematchJobMapper;
+import com.zxb.aiproject.mapper.SyslogEntryMapper;
+import com.zxb.aiproject.service.SyslogMatchService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 全量重新匹配后台任务
+ * 按主键区间 (lo, hi] 切分 t_log_syslog（不使用OFFSET），分片在有界线程池中并行匹配，
+ * 结果变化的行用 UPDATE ... CASE 批量回写。开始前逐天取首末ID，分片的查询与回写带上与其ID区间相交的天的接收时间范围，
+ * 只触及这些分区。已连续完成的分片边界作为检查点持久化到 t_log_rematch_job，
+ * 取消、失败或进程重启后可从检查点继续。扫描数与命中数随水位一起计入检查点，检查点之后已完成的分片续跑时会重做，
+ * 其计数不保存；回写数按实际写库计，重做时结果未变化不会重复回写。
+ */
+@Slf4j
+@Component
+public class SyslogRematchJob {
+
+    public static final String STATUS_RUNNING = "RUNNING";
+    public static final String STATUS_COMPLETED = "COMPLETED";
+    public static final String STATUS_CANCELLED = "CANCELLED";
+    public static final String STATUS_FAILED = "FAILED";
+
+    /**
+     * 检查点最短持久化间隔
+     */
+    private static final long CHECKPOINT_INTERVAL_MS = 1000;
+
+    @Autowired
+    private SyslogProperties syslogProperties;
+
+    @Autowired
+    private SyslogEntryMapper syslogEntryMapper;
+
+    @Autowired
+    private LogRematchJobMapper logRematchJobMapper;
+
+    @Autowired
+    private SyslogMatchService syslogMatchService;
+
+    @Autowired
+    private SyslogHourlyRollup syslogHourlyRollup;
+
+    private volatile LogRematchJob currentJob;
+
+    private volatile Thread runner;
+
+    private volatile boolean cancelRequested;
+
+    private volatile String failure;
+
+    private volatile boolean shuttingDown;
+
+    private final LongAdder scanned = new LongAdder();
+
+    private final LongAdder matched = new LongAdder();
+
+    private final LongAdder updated = new LongAdder();
+
+    /**
+     * 已完成但前面仍有未完成分片的区间：起点 -> 结果
+     */
+    private final Map<Long, RangeResult> completedRanges = new HashMap<>();
+
+    /**
+     * 连续完成的最大ID（检查点）
+     */
+    private long watermark;
+
+    /**
+     * 水位之前的扫描数与命中数，与水位一起保存
+     */
+    private long watermarkScanned;
+
+    private long watermarkMatched;
+
+    /**
+     * 一个分片的处理结果
+     */
+    private static final class RangeResult {
+        final long hi;
+        final long scanned;
+        final long matched;
+
+        RangeResult(long hi, long scanned, long matched) {
+            this.hi = hi;
+            this.scanned = scanned;
+            this.matched = matched;
+        }
+    }
+
+    /**
+     * 某一天接收的日志的首末ID；预写缓冲积压时ID与接收时间不完全同序，相邻天的ID区间可能交叠
+     */
+    private static final class DayIds {
+        final LocalDateTime from;
+        final LocalDateTime to;
+        final long firstId;
+        final long lastId;
+
+        DayIds(LocalDateTime from, LocalDateTime to, long firstId, long lastId) {
+            this.from = from;
+            this.to = to;
+            this.firstId = firstId;
+            this.lastId = lastId;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        try {
+            logRematchJobMapper.createTableIfNotExists();
+            LogRematchJob latest = logRematchJobMapper.selectLatest();
+            // 进程退出时仍在运行的任务，启动后自动从检查点继续
+            if (latest != null && STATUS_RUNNING.equals(latest.getStatus())) {
+                log.info("检测到未完成的重新匹配任务 {}，从ID {} 继续", latest.getId(), latest.getLastId());
+                launch(latest);
+            }
+        } catch (Exception e) {
+            log.error("初始化重新匹配任务失败: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        Thread thread = runner;
+        if (thread != null) {
+            // 只停止派发并保存检查点，状态保持RUNNING，重启后自动续跑
+            shuttingDown = true;
+            cancelRequested = true;
+            try {
+                thread.join(10000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * 启动任务；已有任务运行时直接返回其状态
+     * @param resume true 时从最近一次被取消或失败的任务检查点继续，否则新建任务
+     */
+    public synchronized Map<String, Object> start(boolean resume) {
+        if (isRunning()) {
+            return getStatus();
+        }
+        LogRematchJob job = null;
+        if (resume) {
+            LogRematchJob latest = logRematchJobMapper.selectLatest();
+            if (latest != null && !STATUS_COMPLETED.equals(latest.getStatus())) {
+                job = latest;
+                job.setStatus(STATUS_RUNNING);
+                job.setErrorMessage(null);
+                job.setFinishedAt(null);
+                logRematchJobMapper.updateById(job);
+            }
+        }
+        if (job == null) {
+            // 起始ID在任务线程取得各天ID范围后定位到第一条日志之前
+            job = new LogRematchJob();
+            job.setStatus(STATUS_RUNNING);
+            job.setStartId(0L);
+            job.setLastId(0L);
+            job.setMaxId(syslogEntryMapper.selectMaxId());
+            job.setScannedCount(0L);
+            job.setMatchedCount(0L);
+            job.setUpdatedCount(0L);
+            job.setStartedAt(LocalDateTime.now());
+            logRematchJobMapper.insert(job);
+        }
+        launch(job);
+        return getStatus();
+    }
+
+    /**
+     * 请求取消：停止派发新分片，等待进行中的分片完成后保存检查点
+     */
+    public synchronized boolean cancel() {
+        if (!isRunning()) {
+            return false;
+        }
+        cancelRequested = true;
+        return true;
+    }
+
+    public boolean isRunning() {
+        Thread thread = runner;
+        return thread != null && thread.isAlive();
+    }
+
+    /**
+     * 当前（或最近一次）任务进度
+     */
+    public Map<String, Object> getStatus() {
+        LogRematchJob job = isRunning() ? currentJob : logRematchJobMapper.selectLatest();
+        Map<String, Object> data = new LinkedHashMap<>();
+        if (job == null) {
+            data.put("status", "NONE");
+            return data;
+        }
+        boolean running = isRunning() && job == currentJob;
+        long lastId = running ? currentWatermark() : nvl(job.getLastId());
+        long startId = nvl(job.getStartId());
+        long maxId = nvl(job.getMaxId());
+        data.put("jobId", job.getId());
+        data.put("status", running && cancelRequested ? "CANCELLING" : job.getStatus());
+        data.put("startId", startId);
+        data.put("lastId", lastId);
+        data.put("maxId", maxId);
+        data.put("progress", maxId <= startId ? 100.0
+                : Math.min(100.0, Math.round((lastId - startId) * 10000.0 / (maxId - startId)) / 100.0));
+        data.put("scannedCount", running ? scanned.sum() : nvl(job.getScannedCount()));
+        data.put("matchedCount", running ? matched.sum() : nvl(job.getMatchedCount()));
+        data.put("updatedCount", running ? updated.sum() : nvl(job.getUpdatedCount()));
+        data.put("errorMessage", job.getErrorMessage());
+        data.put("startedAt", job.getStartedAt());
+        data.put("finishedAt", job.getFinishedAt());
+        return data;
+    }
+
+    private void launch(LogRematchJob job) {
+        currentJob = job;
+        cancelRequested = false;
+        failure = null;
+        scanned.reset();
+        matched.reset();
+        updated.reset();
+        scanned.add(nvl(job.getScannedCount()));
+        matched.add(nvl(job.getMatchedCount()));
+        updated.add(nvl(job.getUpdatedCount()));
+        synchronized (completedRanges) {
+            completedRanges.clear();
+            watermark = nvl(job.getLastId());
+            watermarkScanned = nvl(job.getScannedCount());
+            watermarkMatched = nvl(job.getMatchedCount());
+        }
+        Thread thread = new Thread(() -> run(job), "syslog-rematch");
+        thread.setDaemon(true);
+        runner = thread;
+        thread.start();
+    }
+
+    private void run(LogRematchJob job) {
+        int threads = Math.max(1, syslogProperties.getRematchThreads());
+        int chunkSize = Math.max(1, syslogProperties.getRematchChunkSize());
+        long maxId = nvl(job.getMaxId());
+        AtomicInteger workerSeq = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "syslog-rematch-" + workerSeq.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        });
+        // 限制在途分片数，避免派发线程把整张表的分片堆进队列
+        Semaphore inFlight = new Semaphore(threads * 2);
+        long start = System.currentTimeMillis();
+        long lastCheckpoint = start;
+        try {
+            List<DayIds> days = loadDayIds();
+            locateStart(job, days);
+            log.info("重新匹配任务 {} 开始: ID ({}, {}], 天数={}, 线程数={}, 分片跨度={}", job.getId(), job.getLastId(), maxId,
+                    days.size(), threads, chunkSize);
+            long cursor = nvl(job.getLastId());
+            while (cursor < maxId && !cancelRequested && failure == null) {
+                Long nextId = nextIdAfter(days, cursor);
+                long hi = nextId == null ? maxId : Math.min(maxId, nextId - 1 + chunkSize);
+                long lo = cursor;
+                inFlight.acquire();
+                pool.execute(() -> {
+                    try {
+                        markCompleted(lo, processRange(lo, hi, days));
+                    } catch (Exception e) {
+                        failure = "分片 (" + lo + ", " + hi + "] 处理失败: " + e.getMessage();
+                        log.error("重新匹配{}", failure);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+                cursor = hi;
+                long now = System.currentTimeMillis();
+                if (now - lastCheckpoint >= CHECKPOINT_INTERVAL_MS) {
+                    saveCheckpoint(job, STATUS_RUNNING);
+                    lastCheckpoint = now;
+                }
+            }
+            inFlight.acquire(threads * 2);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure = "任务线程被中断";
+        } catch (Exception e) {
+            failure = "读取日志ID范围失败: " + e.getMessage();
+            log.error("重新匹配{}", failure);
+        } finally {
+            pool.shutdown();
+        }
+
+        String status;
+        if (failure != null) {
+            status = STATUS_FAILED;
+            job.setErrorMessage(failure.length() > 500 ? failure.substring(0, 500) : failure);
+        } else if (currentWatermark() >= maxId) {
+            status = STATUS_COMPLETED;
+        } else if (shuttingDown) {
+            status = STATUS_RUNNING;
+        } else {
+            status = STATUS_CANCELLED;
+        }
+        if (!STATUS_RUNNING.equals(status)) {
+            job.setFinishedAt(LocalDateTime.now());
+        }
+        saveCheckpoint(job, status);
+        log.info("重新匹配任务 {} 结束: 状态={}, 检查点={}, 扫描={}, 命中={}, 回写={}, 耗时={}ms", job.getId(), status,
+                job.getLastId(), job.getScannedCount(), job.getMatchedCount(), job.getUpdatedCount(),
+                System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 逐天取接收时间落在当天的首末ID，每次查询只落在一个分区
+     */
+    private List<DayIds> loadDayIds() {
+        List<DayIds> days = new ArrayList<>();
+        LocalDateTime minReceivedAt = syslogEntryMapper.selectMinReceivedAt();
+        if (minReceivedAt == null) {
+            return days;
+        }
+        LocalDate today = LocalDate.now();
+        for (LocalDate day = minReceivedAt.toLocalDate(); !day.isAfter(today); day = day.plusDays(1)) {
+            LocalDateTime from = day.atStartOfDay();
+            LocalDateTime to = day.plusDays(1).atStartOfDay();
+            Long firstId = syslogEntryMapper.selectFirstIdBetween(from, to);
+            if (firstId != null) {
+                days.add(new DayIds(from, to, firstId, syslogEntryMapper.selectLastIdBetween(from, to)));
+            }
+        }
+        return days;
+    }
+
+    /**
+     * 尚未推进的任务把起点移到第一条日志之前，进度按实际ID跨度计算
+     */
+    private void locateStart(LogRematchJob job, List<DayIds> days) {
+        Long firstId = nextIdAfter(days, 0);
+        synchronized (completedRanges) {
+            if (firstId != null && watermark == nvl(job.getStartId()) && firstId - 1 > watermark) {
+                watermark = firstId - 1;
+                job.setStartId(watermark);
+                job.setLastId(watermark);
+            }
+        }
+    }
+
+    /**
+     * cursor 之后可能存在的第一个ID（用于跳过ID空洞），之后没有日志返回 null
+     */
+    private static Long nextIdAfter(List<DayIds> days, long cursor) {
+        Long next = null;
+        for (DayIds day : days) {
+            if (day.lastId > cursor) {
+                long candidate = Math.max(day.firstId, cursor + 1);
+                next = next == null ? candidate : Math.min(next, candidate);
+            }
+        }
+        return next;
+    }
+
+    private RangeResult processRange(long lo, long hi, List<DayIds> days) {
+        // 接收时间范围取与 (lo, hi] 相交的天，区间内没有日志时不查库
+        LocalDateTime from = null;
+        LocalDateTime to = null;
+        for (DayIds day : days) {
+            if (day.firstId <= hi && day.lastId > lo) {
+                from = from == null || day.from.isBefore(from) ? day.from : from;
+                to = to == null || day.to.isAfter(to) ? day.to : to;
+            }
+        }
+        if (from == null) {
+            return new RangeResult(hi, 0, 0);
+        }
+        List<SyslogEntry> rows = syslogEntryMapper.selectMatchRange(lo, hi, from, to);
+        int updateBatchSize = Math.max(1, syslogProperties.getRematchUpdateBatchSize());
+        List<SyslogEntry> changed = new ArrayList<>();
+        List<Integer[]> previous = new ArrayList<>();
+        int matchedCount = 0;
+        for (SyslogEntry entry : rows) {
+            Integer oldRuleId = entry.getMatchedRuleId();
+            Integer oldEventId = entry.getMatchedEventId();
+            boolean oldAlert = Boolean.TRUE.equals(entry.getIsAlert());
+            if (syslogMatchService.applyMatch(entry)) {
+                matchedCount++;
+            }
+            // 结果未变化的行不回写
+            if (!Objects.equals(oldRuleId, entry.getMatchedRuleId())
+                    || !Objects.equals(oldEventId, entry.getMatchedEventId())
+                    || oldAlert != Boolean.TRUE.equals(entry.getIsAlert())) {
+                changed.add(entry);
+                previous.add(new Integer[]{oldRuleId, oldEventId});
+            }
+        }
+        for (int i = 0; i < changed.size(); i += updateBatchSize) {
+            int end = Math.min(changed.size(), i + updateBatchSize);
+            LocalDateTime first = changed.get(i).getReceivedAt();
+            LocalDateTime last = first;
+            for (int j = i + 1; j < end; j++) {
+                LocalDateTime receivedAt = changed.get(j).getReceivedAt();
+                first = receivedAt.isBefore(first) ? receivedAt : first;
+                last = receivedAt.isAfter(last) ? receivedAt : last;
+            }
+            syslogEntryMapper.batchUpdateMatchResult(changed.subList(i, end), first, last);
+            updated.add(end - i);
+            // 回写成功后同步调整小时汇总的规则/事件维度
+            for (int j = i; j < end; j++) {
+                syslogHourlyRollup.onMatchChanged(changed.get(j), previous.get(j)[0], previous.get(j)[1]);
+            }
+        }
+        scanned.add(rows.size());
+        matched.add(matchedCount);
+        return new RangeResult(hi, rows.size(), matchedCount);
+    }
+
+    /**
+     * 分片完成后推进检查点：只有前面所有分片都完成，水位才会越过该分片
+     */
+    private void markCompleted(long lo, RangeResult result) {
+        synchronized (completedRanges) {
+            completedRanges.put(lo, result);
+            RangeResult next;
+            while ((next = completedRanges.remove(watermark)) != null) {
+                watermark = next.hi;
+                watermarkScanned += next.scanned;
+                watermarkMatched += next.matched;
+            }
+        }
+    }
+
+    private long currentWatermark() {
+        synchronized (completedRanges) {
+            return watermark;
+        }
+    }
+
+    private void saveCheckpoint(LogRematchJob job, String status) {
+        job.setStatus(status);
+        synchronized (completedRanges) {
+            job.setLastId(watermark);
+            job.setScannedCount(watermarkScanned);
+            job.setMatchedCount(watermarkMatched);
+        }
+        job.setUpdatedCount(updated.sum());
+        try {
+            logRematchJobMapper.updateById(job);
+        } catch (Exception e) {
+            log.warn("保存重新匹配检查点失败: {}", e.getMessage());
+        }
+    }
+
+    private static long nvl(Long value) {
+        return value == null ? 0 : value;
+    }
+}
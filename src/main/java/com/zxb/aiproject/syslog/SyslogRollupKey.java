@@ -0,0 +1,67 @@
+package com.zxb.aiproject.syslog;
+
+import com.zxb.aiproject.entity.SyslogEntry;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * 小时汇总维度：(小时, 来源IP, 严重级别, Facility, 设备类型, 规则, 事件)
+ * 空值原样保留，写库时由SQL转换为表中的默认值
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+public final class SyslogRollupKey {
+
+    private final LocalDateTime statHour;
+
+    private final String sourceIp;
+
+    private final Integer severity;
+
+    private final Integer facility;
+
+    private final String deviceType;
+
+    private final Integer ruleId;
+
+    private final Integer eventId;
+
+    public SyslogRollupKey(LocalDateTime statHour, String sourceIp, Integer severity, Integer facility,
+                           String deviceType, Integer ruleId, Integer eventId) {
+        this.statHour = statHour;
+        this.sourceIp = sourceIp;
+        this.severity = severity;
+        this.facility = facility;
+        this.deviceType = deviceType;
+        this.ruleId = ruleId;
+        this.eventId = eventId;
+    }
+
+    /**
+     * 按日志当前的匹配结果生成维度，接收时间为空时返回 null
+     */
+    public static SyslogRollupKey of(SyslogEntry entry) {
+        return of(entry, entry.getMatchedRuleId(), entry.getMatchedEventId());
+    }
+
+    public static SyslogRollupKey of(SyslogEntry entry, Integer ruleId, Integer eventId) {
+        if (entry.getReceivedAt() == null) {
+            return null;
+        }
+        return new SyslogRollupKey(truncateToHour(entry.getReceivedAt()), emptyToNull(entry.getSourceIp()),
+                entry.getSeverity(), entry.getFacility(), emptyToNull(entry.getDeviceType()), ruleId, eventId);
+    }
+
+    public static LocalDateTime truncateToHour(LocalDateTime time) {
+        return time.truncatedTo(ChronoUnit.HOURS);
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+}
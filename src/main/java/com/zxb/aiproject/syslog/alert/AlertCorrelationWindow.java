@@ -0,0 +1,268 @@
+package com.zxb.aiproject.syslog.alert;
+
+import com.zxb.aiproject.entity.SyslogEntry;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * 告警日志的关联窗口
+ * 告警日志按关联键归组：资产 + 事件，未关联资产时用来源IP代替资产，未关联事件时用规则代替事件。
+ * 同组日志与该组上一条的间隔不超过窗口时计入同一条告警，超过窗口视为新一轮，重新产生告警。
+ * 出现次数只在内存中累加，由写库线程定期取出增量；组在窗口过期且增量已写库后回收。
+ */
+public final class AlertCorrelationWindow {
+
+    private final long windowMillis;
+
+    private final int maxGroups;
+
+    private final ConcurrentHashMap<String, Group> groups = new ConcurrentHashMap<>();
+
+    /**
+     * 已被新一轮替换、但还有增量未写库的组
+     */
+    private final ConcurrentLinkedQueue<Group> retired = new ConcurrentLinkedQueue<>();
+
+    /**
+     * 一个关联组，字段在组对象上加锁访问
+     */
+    public static final class Group {
+        private final String key;
+        /**
+         * 已写库的告警ID，为空表示尚未产生告警
+         */
+        private Long alertId;
+        /**
+         * 该组第一条日志，产生告警时取设备、事件与消息
+         */
+        private SyslogEntry sample;
+        private long lastSeenMillis;
+        private long pendingCount;
+        private LocalDateTime pendingFirst;
+        private LocalDateTime pendingLast;
+        /**
+         * 增量中最严重的Syslog级别（数值越小越严重）
+         */
+        private int pendingSeverity = Integer.MAX_VALUE;
+
+        Group(String key) {
+            this.key = key;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public synchronized Long getAlertId() {
+            return alertId;
+        }
+
+        public synchronized void setAlertId(Long alertId) {
+            this.alertId = alertId;
+        }
+
+        public synchronized SyslogEntry getSample() {
+            return sample;
+        }
+
+        synchronized void add(SyslogEntry entry, long count, long atMillis, LocalDateTime at) {
+            if (sample == null) {
+                sample = entry;
+            }
+            lastSeenMillis = Math.max(lastSeenMillis, atMillis);
+            pendingCount += count;
+            if (pendingFirst == null || at.isBefore(pendingFirst)) {
+                pendingFirst = at;
+            }
+            if (pendingLast == null || at.isAfter(pendingLast)) {
+                pendingLast = at;
+            }
+            if (entry.getSeverity() != null) {
+                pendingSeverity = Math.min(pendingSeverity, entry.getSeverity());
+            }
+        }
+
+        synchronized Pending take() {
+            if (pendingCount == 0) {
+                return null;
+            }
+            Pending pending = new Pending(this, pendingCount, pendingFirst, pendingLast, pendingSeverity);
+            pendingCount = 0;
+            pendingFirst = null;
+            pendingLast = null;
+            pendingSeverity = Integer.MAX_VALUE;
+            return pending;
+        }
+
+        synchronized void giveBack(Pending pending) {
+            pendingCount += pending.count;
+            if (pendingFirst == null || pending.firstOccurred.isBefore(pendingFirst)) {
+                pendingFirst = pending.firstOccurred;
+            }
+            if (pendingLast == null || pending.lastOccurred.isAfter(pendingLast)) {
+                pendingLast = pending.lastOccurred;
+            }
+            pendingSeverity = Math.min(pendingSeverity, pending.severity);
+        }
+
+        synchronized boolean isIdle(long nowMillis, long windowMillis) {
+            return pendingCount == 0 && nowMillis - lastSeenMillis > windowMillis;
+        }
+
+        synchronized boolean isExpired(long atMillis, long windowMillis) {
+            return atMillis - lastSeenMillis > windowMillis;
+        }
+    }
+
+    /**
+     * 一个组待写库的增量
+     */
+    public static final class Pending {
+        private final Group group;
+        private final long count;
+        private final LocalDateTime firstOccurred;
+        private final LocalDateTime lastOccurred;
+        private final int severity;
+
+        Pending(Group group, long count, LocalDateTime firstOccurred, LocalDateTime lastOccurred, int severity) {
+            this.group = group;
+            this.count = count;
+            this.firstOccurred = firstOccurred;
+            this.lastOccurred = lastOccurred;
+            this.severity = severity;
+        }
+
+        public Group getGroup() {
+            return group;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public LocalDateTime getFirstOccurred() {
+            return firstOccurred;
+        }
+
+        public LocalDateTime getLastOccurred() {
+            return lastOccurred;
+        }
+
+        /**
+         * @return 最严重的Syslog级别，日志都没有级别时为 Integer.MAX_VALUE
+         */
+        public int getSeverity() {
+            return severity;
+        }
+    }
+
+    public AlertCorrelationWindow(long windowMillis, int maxGroups) {
+        this.windowMillis = windowMillis;
+        this.maxGroups = maxGroups;
+    }
+
+    /**
+     * 关联键：a{资产ID} 或 ip{来源IP}，加上 e{事件ID} 或 r{规则ID}
+     */
+    public static String keyOf(SyslogEntry entry) {
+        String device = entry.getAssetId() != null ? "a" + entry.getAssetId()
+                : "ip" + (entry.getSourceIp() == null ? "" : entry.getSourceIp());
+        String event = entry.getMatchedEventId() != null ? "e" + entry.getMatchedEventId()
+                : "r" + entry.getMatchedRuleId();
+        return device + "|" + event;
+    }
+
+    /**
+     * 累加一次（或折叠后的多次）出现
+     * @param atMillis 出现时间（毫秒时间戳），用于判断是否超出窗口
+     * @return 计入的组；组数已达上限且该键不在窗口内时返回 null
+     */
+    public Group record(SyslogEntry entry, long count, long atMillis, LocalDateTime at) {
+        String key = keyOf(entry);
+        Group[] holder = new Group[1];
+        groups.compute(key, (k, group) -> {
+            if (group == null) {
+                if (groups.size() >= maxGroups) {
+                    return null;
+                }
+                group = new Group(k);
+            } else if (group.isExpired(atMillis, windowMillis)) {
+                // 新一轮：旧组未写库的增量仍归旧告警
+                retired.add(group);
+                group = new Group(k);
+            }
+            group.add(entry, count, atMillis, at);
+            holder[0] = group;
+            return group;
+        });
+        return holder[0];
+    }
+
+    /**
+     * 恢复重启前仍在窗口内的告警，之后同组日志继续计入该告警
+     */
+    public void restore(String key, long alertId, long lastSeenMillis) {
+        groups.computeIfAbsent(key, k -> {
+            Group group = new Group(k);
+            group.alertId = alertId;
+            group.lastSeenMillis = lastSeenMillis;
+            return group;
+        });
+    }
+
+    /**
+     * 取出全部增量，写库失败的通过 {@link #giveBack} 放回
+     */
+    public List<Pending> drain() {
+        List<Pending> result = new ArrayList<>();
+        Group group;
+        while ((group = retired.poll()) != null) {
+            Pending pending = group.take();
+            if (pending != null) {
+                result.add(pending);
+            }
+        }
+        for (Group active : groups.values()) {
+            Pending pending = active.take();
+            if (pending != null) {
+                result.add(pending);
+            }
+        }
+        return result;
+    }
+
+    public void giveBack(Pending pending) {
+        Group group = pending.group;
+        group.giveBack(pending);
+        if (groups.get(group.key) != group) {
+            retired.add(group);
+        }
+    }
+
+    /**
+     * 回收窗口已过且增量已写库的组
+     * @return 回收个数
+     */
+    public int evict(long nowMillis) {
+        int[] evicted = new int[1];
+        for (String key : groups.keySet()) {
+            // 与 record 在同一个键上互斥，判断与删除之间不会有新的出现计入
+            groups.computeIfPresent(key, (k, group) -> {
+                if (!group.isIdle(nowMillis, windowMillis)) {
+                    return group;
+                }
+                evicted[0]++;
+                return null;
+            });
+        }
+        return evicted[0];
+    }
+
+    public int size() {
+        return groups.size();
+    }
+}
@@ -0,0 +1,279 @@
+package com.zxb.aiproject.syslog.alert;
+
+import com.zxb.aiproject.config.SyslogProperties;
+import com.zxb.aiproject.entity.Alert;
+import com.zxb.aiproject.entity.LogEvent;
+import com.zxb.aiproject.entity.LogRule;
+import com.zxb.aiproject.entity.SyslogEntry;
+import com.zxb.aiproject.mapper.AlertMapper;
+import com.zxb.aiproject.mapper.LogEventMapper;
+import com.zxb.aiproject.mapper.LogRuleMapper;
+import com.zxb.aiproject.syslog.SyslogHourlyRollup;
+import com.zxb.aiproject.syslog.SyslogPersistListener;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 日志告警关联
+ * 入库后标记为告警的日志按 (资产, 事件) 在滑动窗口内归组，每组只产生一条告警并累加发生次数，
+ * 使告警列表与日志页面一致，而不是每行日志一条告警。入库线程上只做内存累加，
+ * 新告警的写入与已有告警发生次数的累加都由定时任务批量完成；窗口内持续出现的日志不产生额外的写库。
+ * 告警被解决或删除后，同组日志再次出现时产生新告警。
+ */
+@Slf4j
+@Component
+public class SyslogAlertCorrelator implements SyslogPersistListener {
+
+    private static final int CRITICAL_SEVERITY_THRESHOLD = 2;
+
+    private static final int WARNING_SEVERITY_THRESHOLD = 3;
+
+    private static final int MESSAGE_MAX_LENGTH = 500;
+
+    @Autowired
+    private SyslogProperties syslogProperties;
+
+    @Autowired
+    private AlertMapper alertMapper;
+
+    @Autowired
+    private LogRuleMapper logRuleMapper;
+
+    @Autowired
+    private LogEventMapper logEventMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private AlertCorrelationWindow window;
+
+    private volatile boolean ready;
+
+    private final AtomicLong alertsCreated = new AtomicLong();
+
+    private final AtomicLong occurrencesFlushed = new AtomicLong();
+
+    private final AtomicLong untracked = new AtomicLong();
+
+    private final AtomicLong flushFailures = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        SyslogProperties.Alert config = syslogProperties.getAlert();
+        if (!Boolean.TRUE.equals(config.getEnabled())) {
+            return;
+        }
+        // 不在运行时改表，缺少字段时只关闭日志关联告警
+        try {
+            if (!hasCorrelationColumns()) {
+                log.error("alert 缺少 last_occurred_time / occurrence_count / correlation_key 字段, 日志关联告警不生效; "
+                        + "请在维护窗口按 aiops_db.sql 补齐字段");
+                return;
+            }
+        } catch (Exception e) {
+            log.error("告警关联字段检查失败, 日志关联告警不生效: {}", e.getMessage());
+            return;
+        }
+        window = new AlertCorrelationWindow(config.getWindowMs(), Math.max(1, config.getMaxGroups()));
+        try {
+            int restored = 0;
+            for (Alert alert : alertMapper.selectOpenCorrelated(
+                    LocalDateTime.now().minus(Duration.ofMillis(config.getWindowMs())))) {
+                window.restore(alert.getCorrelationKey(), alert.getId(), toMillis(alert.getLastOccurredTime()));
+                restored++;
+            }
+            if (restored > 0) {
+                log.info("恢复窗口内未解决的日志关联告警 {} 条", restored);
+            }
+        } catch (Exception e) {
+            log.warn("恢复日志关联告警失败, 窗口内再次出现的日志将产生新告警: {}", e.getMessage());
+        }
+        ready = true;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    @Override
+    public void onPersisted(List<SyslogEntry> entries) {
+        if (!ready) {
+            return;
+        }
+        for (SyslogEntry entry : entries) {
+            if (Boolean.TRUE.equals(entry.getIsAlert())) {
+                LocalDateTime at = entry.getReceivedAt() != null ? entry.getReceivedAt() : LocalDateTime.now();
+                record(entry, SyslogHourlyRollup.weight(entry), at);
+            }
+        }
+    }
+
+    /**
+     * 去重折叠的重复次数写回后，计入首条日志所在的告警
+     */
+    public void onRepeats(SyslogEntry first, long count, LocalDateTime lastSeenAt) {
+        if (!ready || count <= 0 || !Boolean.TRUE.equals(first.getIsAlert())) {
+            return;
+        }
+        record(first, count, lastSeenAt != null ? lastSeenAt : LocalDateTime.now());
+    }
+
+    private void record(SyslogEntry entry, long count, LocalDateTime at) {
+        if (window.record(entry, count, toMillis(at), at) == null) {
+            untracked.addAndGet(count);
+        }
+    }
+
+    /**
+     * 新告警写库，已有告警累加发生次数，回收窗口已过的组
+     */
+    @Scheduled(fixedDelayString = "${syslog.alert.flush-interval-ms:5000}", initialDelay = 5000)
+    public synchronized void flush() {
+        if (!ready) {
+            return;
+        }
+        Map<String, String> names = new HashMap<>();
+        for (AlertCorrelationWindow.Pending pending : window.drain()) {
+            try {
+                apply(pending, names);
+            } catch (Exception e) {
+                flushFailures.incrementAndGet();
+                window.giveBack(pending);
+                log.warn("写入日志关联告警失败, 下次重试: {}", e.getMessage());
+            }
+        }
+        window.evict(System.currentTimeMillis());
+    }
+
+    private void apply(AlertCorrelationWindow.Pending pending, Map<String, String> names) {
+        AlertCorrelationWindow.Group group = pending.getGroup();
+        String severity = severityName(pending.getSeverity());
+        Long alertId = group.getAlertId();
+        if (alertId != null && alertMapper.addOccurrences(alertId, pending.getCount(),
+                pending.getLastOccurred(), severity) > 0) {
+            occurrencesFlushed.addAndGet(pending.getCount());
+            return;
+        }
+        // 首次出现，或原告警已被解决、删除
+        Alert alert = newAlert(group, pending, severity, names);
+        alertMapper.insert(alert);
+        group.setAlertId(alert.getId());
+        alertsCreated.incrementAndGet();
+        occurrencesFlushed.addAndGet(pending.getCount());
+    }
+
+    private Alert newAlert(AlertCorrelationWindow.Group group, AlertCorrelationWindow.Pending pending,
+                           String severity, Map<String, String> names) {
+        SyslogEntry sample = group.getSample();
+        String device = sample.getHostname() != null && !sample.getHostname().isEmpty()
+                ? sample.getHostname() : sample.getSourceIp();
+        String title = titleOf(sample, names);
+
+        Alert alert = new Alert();
+        alert.setSeverity(severity);
+        alert.setMessage(truncate(title + " - " + device));
+        alert.setDeviceId(sample.getAssetId());
+        alert.setDeviceName(device);
+        alert.setDeviceType(sample.getDeviceType() == null ? null : sample.getDeviceType().toLowerCase());
+        alert.setAlertCategory(categoryOf(sample));
+        alert.setStatus("active");
+        alert.setDescription("来源: " + sample.getSourceIp() + "\n" + sample.getMessage());
+        alert.setMetricName("syslog");
+        alert.setOccurredTime(pending.getFirstOccurred());
+        alert.setLastOccurredTime(pending.getLastOccurred());
+        alert.setOccurrenceCount((int) Math.min(Integer.MAX_VALUE, pending.getCount()));
+        alert.setCorrelationKey(group.getKey());
+        return alert;
+    }
+
+    /**
+     * 告警标题取事件名称，未关联事件时取规则名称；同一次写库内按ID缓存
+     */
+    private String titleOf(SyslogEntry sample, Map<String, String> names) {
+        if (sample.getMatchedEventId() != null) {
+            String name = names.computeIfAbsent("e" + sample.getMatchedEventId(), k -> {
+                LogEvent event = logEventMapper.selectById(sample.getMatchedEventId());
+                return event == null ? null : event.getEventName();
+            });
+            if (name != null) {
+                return name;
+            }
+        }
+        if (sample.getMatchedRuleId() != null) {
+            String name = names.computeIfAbsent("r" + sample.getMatchedRuleId(), k -> {
+                LogRule rule = logRuleMapper.selectById(sample.getMatchedRuleId());
+                return rule == null ? null : rule.getRuleName();
+            });
+            if (name != null) {
+                return name;
+            }
+        }
+        return "Syslog告警";
+    }
+
+    /**
+     * 认证类 Facility 归为安全告警，网络设备归为网络告警，其余归为其他
+     */
+    private static String categoryOf(SyslogEntry sample) {
+        Integer facility = sample.getFacility();
+        if (facility != null && (facility == 4 || facility == 10 || facility == 13 || facility == 14)) {
+            return "security";
+        }
+        if ("NETWORK".equalsIgnoreCase(sample.getDeviceType())) {
+            return "network";
+        }
+        return "other";
+    }
+
+    static String severityName(int syslogSeverity) {
+        if (syslogSeverity <= CRITICAL_SEVERITY_THRESHOLD) {
+            return "critical";
+        }
+        return syslogSeverity <= WARNING_SEVERITY_THRESHOLD ? "warning" : "info";
+    }
+
+    private static String truncate(String text) {
+        return text.length() <= MESSAGE_MAX_LENGTH ? text : text.substring(0, MESSAGE_MAX_LENGTH);
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time == null ? System.currentTimeMillis() : time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * 监控数据
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("alertCorrelationEnabled", ready);
+        data.put("alertGroups", window == null ? 0 : window.size());
+        data.put("alertsCreated", alertsCreated.get());
+        data.put("alertOccurrencesFlushed", occurrencesFlushed.get());
+        data.put("alertOccurrencesUntracked", untracked.get());
+        data.put("alertFlushFailures", flushFailures.get());
+        return data;
+    }
+
+    private boolean hasCorrelationColumns() {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.COLUMNS WHERE TABLE_SCHEMA = DATABASE() "
+                        + "AND TABLE_NAME = 'alert' AND COLUMN_NAME IN ('last_occurred_time', 'occurrence_count', 'correlation_key')",
+                Integer.class);
+        return count != null && count == 3;
+    }
+}
@@ -0,0 +1,62 @@
+package com.zxb.aiproject.syslog.archive;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 归档块索引项：块位置与用于跳过整块的统计信息
+ */
+final class SyslogArchiveBlock {
+
+    long offset;
+
+    int length;
+
+    int rows;
+
+    long minTime;
+
+    long maxTime;
+
+    long minId;
+
+    long maxId;
+
+    int severityMask;
+
+    /**
+     * 严重级别为空的日志记在第 31 位
+     */
+    static final int NULL_SEVERITY_BIT = 31;
+
+    final long[] sourceBloom = new long[SyslogArchiveFormat.BLOOM_WORDS];
+
+    void writeTo(ByteBuffer buffer) {
+        buffer.putLong(offset);
+        buffer.putInt(length);
+        buffer.putInt(rows);
+        buffer.putLong(minTime);
+        buffer.putLong(maxTime);
+        buffer.putLong(minId);
+        buffer.putLong(maxId);
+        buffer.putInt(severityMask);
+        for (long word : sourceBloom) {
+            buffer.putLong(word);
+        }
+    }
+
+    static SyslogArchiveBlock readFrom(ByteBuffer buffer) {
+        SyslogArchiveBlock block = new SyslogArchiveBlock();
+        block.offset = buffer.getLong();
+        block.length = buffer.getInt();
+        block.rows = buffer.getInt();
+        block.minTime = buffer.getLong();
+        block.maxTime = buffer.getLong();
+        block.minId = buffer.getLong();
+        block.maxId = buffer.getLong();
+        block.severityMask = buffer.getInt();
+        for (int i = 0; i < block.sourceBloom.length; i++) {
+            block.sourceBloom[i] = buffer.getLong();
+        }
+        return block;
+    }
+}
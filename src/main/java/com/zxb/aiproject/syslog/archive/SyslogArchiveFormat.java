@@ -0,0 +1,223 @@
+package com.zxb.aiproject.syslog.archive;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+/**
+ * 归档文件格式
+ * <pre>
+ * 文件：[MAGIC][VERSION] [块]... [块索引] [块索引偏移 long][MAGIC]
+ * 块：  [行数 int] [每列 原始长度 int、压缩后长度 int]... [每列 deflate 压缩数据]...
+ * 块索引：[块数 int]，每块 [偏移 long][长度 int][行数 int][最小/最大接收时间 long][最小/最大ID long]
+ *        [严重级别位掩码 int][来源IP布隆过滤器 long * BLOOM_WORDS]
+ * </pre>
+ * 块内按列存储：ID与接收时间为相邻差值的 zigzag 变长整数，来源IP/设备类型/主机名为块内字典编码，
+ * 可空的整数与时间统一编码为“值+1，0 表示空”。时间为 DATETIME 的秒数（按 UTC 换算，不涉及时区）。
+ * 版本 1 的文件没有模板ID列，版本 2 及以前的文件没有资产ID列，读取时相应字段为空。
+ */
+final class SyslogArchiveFormat {
+
+    static final int MAGIC = 0x534C4131;
+
+    static final int VERSION = 3;
+
+    static final int COL_ID = 0;
+    static final int COL_RECEIVED_AT = 1;
+    static final int COL_EVENT_TIME = 2;
+    static final int COL_SOURCE_IP = 3;
+    static final int COL_DEVICE_TYPE = 4;
+    static final int COL_FACILITY = 5;
+    static final int COL_SEVERITY = 6;
+    static final int COL_HOSTNAME = 7;
+    static final int COL_MESSAGE = 8;
+    static final int COL_RULE_ID = 9;
+    static final int COL_EVENT_ID = 10;
+    static final int COL_IS_ALERT = 11;
+    static final int COL_REPEAT_COUNT = 12;
+    static final int COL_LAST_SEEN_AT = 13;
+    static final int COL_TEMPLATE_ID = 14;
+    static final int COL_ASSET_ID = 15;
+    static final int COLUMN_COUNT = 16;
+
+    /**
+     * 布隆过滤器 1024 位，3 个哈希
+     */
+    static final int BLOOM_WORDS = 16;
+
+    private static final int BLOOM_BITS = BLOOM_WORDS * 64;
+
+    private static final int BLOOM_HASHES = 3;
+
+    /**
+     * 块索引单项字节数
+     */
+    static final int BLOCK_META_BYTES = 8 + 4 + 4 + 8 * 4 + 4 + 8 * BLOOM_WORDS;
+
+    private SyslogArchiveFormat() {
+    }
+
+    /**
+     * 指定版本的列数，不支持的版本返回 -1
+     */
+    static int columnCount(int version) {
+        switch (version) {
+            case 1:
+                return COL_TEMPLATE_ID;
+            case 2:
+                return COL_ASSET_ID;
+            case VERSION:
+                return COLUMN_COUNT;
+            default:
+                return -1;
+        }
+    }
+
+    static long toEpochSecond(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    static LocalDateTime fromEpochSecond(long seconds) {
+        return LocalDateTime.ofEpochSecond(seconds, 0, ZoneOffset.UTC);
+    }
+
+    static void bloomAdd(long[] bloom, String value) {
+        long hash = hash64(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < BLOOM_HASHES; i++) {
+            int bit = Math.floorMod(h1 + i * h2, BLOOM_BITS);
+            bloom[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    static boolean bloomMightContain(long[] bloom, String value) {
+        long hash = hash64(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < BLOOM_HASHES; i++) {
+            int bit = Math.floorMod(h1 + i * h2, BLOOM_BITS);
+            if ((bloom[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long hash64(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * 0x100000001b3L;
+        }
+        // 混合高低位，保证两个32位哈希相互独立
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * 可增长的列缓冲
+     */
+    static final class ColumnBuffer {
+        private byte[] data = new byte[1024];
+        private int size;
+
+        void writeByte(int b) {
+            ensure(1);
+            data[size++] = (byte) b;
+        }
+
+        void writeVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                data[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            data[size++] = (byte) value;
+        }
+
+        void writeZigZag(long value) {
+            writeVarLong((value << 1) ^ (value >> 63));
+        }
+
+        /**
+         * 可空字符串：长度+1，0 表示空
+         */
+        void writeString(String value) {
+            if (value == null) {
+                writeVarLong(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(bytes.length + 1L);
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, data, size, bytes.length);
+            size += bytes.length;
+        }
+
+        void writeBuffer(ColumnBuffer other) {
+            ensure(other.size);
+            System.arraycopy(other.data, 0, data, size, other.size);
+            size += other.size;
+        }
+
+        byte[] array() {
+            return data;
+        }
+
+        int size() {
+            return size;
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, size + extra));
+            }
+        }
+    }
+
+    /**
+     * 列读取
+     */
+    static final class ColumnReader {
+        private final byte[] data;
+        private int pos;
+
+        ColumnReader(byte[] data) {
+            this.data = data;
+        }
+
+        int readByte() {
+            return data[pos++];
+        }
+
+        long readVarLong() {
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[pos++];
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+
+        long readZigZag() {
+            long value = readVarLong();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        String readString() {
+            long length = readVarLong();
+            if (length == 0) {
+                return null;
+            }
+            String value = new String(data, pos, (int) length - 1, StandardCharsets.UTF_8);
+            pos += (int) length - 1;
+            return value;
+        }
+    }
+}
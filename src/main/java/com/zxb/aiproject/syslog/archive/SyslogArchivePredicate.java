@@ -0,0 +1,174 @@
+package com.zxb.aiproject.syslog.archive;
+
+import com.zxb.aiproject.dto.LogQueryDTO;
+import com.zxb.aiproject.entity.SyslogEntry;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 在归档数据上执行与 syslogFilter 相同语义的过滤条件
+ * 块级先用时间范围、严重级别位掩码和来源IP布隆过滤器整块跳过，行级再逐条判断。
+ * 关键字与主机名按不区分大小写的包含匹配，与 MySQL 默认排序规则下的 LIKE '%x%' 一致。
+ */
+final class SyslogArchivePredicate {
+
+    private final Long startTime;
+
+    private final Long endTime;
+
+    private final String keyword;
+
+    private final String hostname;
+
+    private final Set<String> sourceIps;
+
+    private final Set<Integer> facilities;
+
+    private final Set<Integer> severities;
+
+    private final int severityMask;
+
+    private final boolean alertOnly;
+
+    private final Set<Integer> eventIds;
+
+    private final Set<Integer> ruleIds;
+
+    private final Set<String> deviceTypes;
+
+    private final Set<Integer> templateIds;
+
+    private final Set<Long> assetIds;
+
+    private SyslogArchivePredicate(LogQueryDTO query) {
+        this.startTime = query.getStartTime() == null ? null : SyslogArchiveFormat.toEpochSecond(query.getStartTime());
+        this.endTime = query.getEndTime() == null ? null : SyslogArchiveFormat.toEpochSecond(query.getEndTime());
+        this.keyword = lower(query.getKeyword());
+        this.hostname = lower(query.getHostname());
+        this.sourceIps = toSet(query.getSourceIps());
+        this.facilities = toSet(query.getFacilities());
+        this.severities = toSet(query.getSeverities());
+        this.alertOnly = Boolean.TRUE.equals(query.getAlertOnly());
+        this.eventIds = toSet(query.getEventIds());
+        this.ruleIds = toSet(query.getRuleIds());
+        this.deviceTypes = toSet(query.getDeviceTypes());
+        this.templateIds = toSet(query.getTemplateIds());
+        this.assetIds = toSet(query.getAssetIds());
+        int mask = 0;
+        if (severities != null) {
+            for (Integer severity : severities) {
+                if (severity != null && severity >= 0 && severity < SyslogArchiveBlock.NULL_SEVERITY_BIT) {
+                    mask |= 1 << severity;
+                }
+            }
+        }
+        this.severityMask = mask;
+    }
+
+    static SyslogArchivePredicate of(LogQueryDTO query) {
+        return new SyslogArchivePredicate(query);
+    }
+
+    /**
+     * 查询时间范围是否与某天的归档文件相交
+     */
+    boolean overlapsDay(LocalDateTime dayStart) {
+        long from = SyslogArchiveFormat.toEpochSecond(dayStart);
+        long to = from + 24 * 3600 - 1;
+        return overlaps(from, to);
+    }
+
+    /**
+     * 块内是否可能有满足条件的日志
+     */
+    boolean mayMatch(SyslogArchiveBlock block) {
+        if (!overlaps(block.minTime, block.maxTime)) {
+            return false;
+        }
+        if (severities != null && (block.severityMask & severityMask) == 0) {
+            return false;
+        }
+        if (sourceIps != null) {
+            for (String ip : sourceIps) {
+                if (SyslogArchiveFormat.bloomMightContain(block.sourceBloom, ip)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 块内日志是否全部满足条件（无行级条件且时间范围覆盖整块），计数和跳过时无需解压
+     */
+    boolean coversAll(SyslogArchiveBlock block) {
+        return keyword == null && hostname == null && sourceIps == null && facilities == null && severities == null
+                && !alertOnly && eventIds == null && ruleIds == null && deviceTypes == null && templateIds == null
+                && assetIds == null
+                && (startTime == null || block.minTime >= startTime) && (endTime == null || block.maxTime <= endTime);
+    }
+
+    boolean matches(SyslogEntry entry) {
+        long time = SyslogArchiveFormat.toEpochSecond(entry.getReceivedAt());
+        if ((startTime != null && time < startTime) || (endTime != null && time > endTime)) {
+            return false;
+        }
+        if (sourceIps != null && !sourceIps.contains(entry.getSourceIp())) {
+            return false;
+        }
+        if (facilities != null && !facilities.contains(entry.getFacility())) {
+            return false;
+        }
+        if (severities != null && !severities.contains(entry.getSeverity())) {
+            return false;
+        }
+        if (alertOnly && !Boolean.TRUE.equals(entry.getIsAlert())) {
+            return false;
+        }
+        if (eventIds != null && !eventIds.contains(entry.getMatchedEventId())) {
+            return false;
+        }
+        if (ruleIds != null && !ruleIds.contains(entry.getMatchedRuleId())) {
+            return false;
+        }
+        if (deviceTypes != null && !deviceTypes.contains(entry.getDeviceType())) {
+            return false;
+        }
+        if (templateIds != null && !templateIds.contains(entry.getTemplateId())) {
+            return false;
+        }
+        if (assetIds != null && !assetIds.contains(entry.getAssetId())) {
+            return false;
+        }
+        if (hostname != null && !containsIgnoreCase(entry.getHostname(), hostname)) {
+            return false;
+        }
+        if (keyword != null && !containsIgnoreCase(entry.getMessage(), keyword)
+                && !containsIgnoreCase(entry.getSourceIp(), keyword)
+                && !containsIgnoreCase(entry.getHostname(), keyword)) {
+            return false;
+        }
+        return true;
+    }
+
+    private boolean overlaps(long from, long to) {
+        return (startTime == null || to >= startTime) && (endTime == null || from <= endTime);
+    }
+
+    private static boolean containsIgnoreCase(String value, String lowerNeedle) {
+        return value != null && value.toLowerCase(Locale.ROOT).contains(lowerNeedle);
+    }
+
+    private static String lower(String value) {
+        return value == null || value.isEmpty() ? null : value.toLowerCase(Locale.ROOT);
+    }
+
+    private static <T> Set<T> toSet(List<T> values) {
+        return values == null || values.isEmpty() ? null : new HashSet<>(values);
+    }
+}
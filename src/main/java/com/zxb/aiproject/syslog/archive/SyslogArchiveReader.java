@@ -0,0 +1,208 @@
+package com.zxb.aiproject.syslog.archive;
+
+import com.zxb.aiproject.entity.SyslogEntry;
+import com.zxb.aiproject.syslog.archive.SyslogArchiveFormat.ColumnReader;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * 归档文件读取：整个文件只读映射到内存，打开时只解析块索引，按需解压单个块。
+ * 映射缓冲区只通过 duplicate() 读取，同一个读取器可以被多个查询线程共享。
+ */
+final class SyslogArchiveReader implements Closeable {
+
+    private final Path file;
+
+    private final MappedByteBuffer mapped;
+
+    private final int columnCount;
+
+    private final List<SyslogArchiveBlock> blocks;
+
+    private final long rowCount;
+
+    SyslogArchiveReader(Path file) throws IOException {
+        this.file = file;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("归档文件过大: " + file);
+            }
+            this.mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        ByteBuffer buffer = mapped.duplicate();
+        int size = buffer.limit();
+        if (size < 8 + 4 + 8 + 4 || buffer.getInt(0) != SyslogArchiveFormat.MAGIC
+                || buffer.getInt(size - 4) != SyslogArchiveFormat.MAGIC) {
+            throw new IOException("归档文件格式错误: " + file);
+        }
+        this.columnCount = SyslogArchiveFormat.columnCount(buffer.getInt(4));
+        if (columnCount < 0) {
+            throw new IOException("不支持的归档文件版本: " + file);
+        }
+        long indexOffset = buffer.getLong(size - 12);
+        if (indexOffset < 8 || indexOffset > size - 16) {
+            throw new IOException("归档文件块索引损坏: " + file);
+        }
+        buffer.position((int) indexOffset);
+        int blockCount = buffer.getInt();
+        List<SyslogArchiveBlock> list = new ArrayList<>(blockCount);
+        long rows = 0;
+        for (int i = 0; i < blockCount; i++) {
+            SyslogArchiveBlock block = SyslogArchiveBlock.readFrom(buffer);
+            list.add(block);
+            rows += block.rows;
+        }
+        this.blocks = Collections.unmodifiableList(list);
+        this.rowCount = rows;
+    }
+
+    Path getFile() {
+        return file;
+    }
+
+    List<SyslogArchiveBlock> getBlocks() {
+        return blocks;
+    }
+
+    long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * 解压并解码一个块，返回按写入顺序（接收时间升序）排列的日志
+     */
+    List<SyslogEntry> readBlock(SyslogArchiveBlock block) throws IOException {
+        ByteBuffer buffer = mapped.duplicate();
+        buffer.position((int) block.offset);
+        int rows = buffer.getInt();
+        int[] rawLength = new int[columnCount];
+        int[] compressedLength = new int[columnCount];
+        for (int c = 0; c < columnCount; c++) {
+            rawLength[c] = buffer.getInt();
+            compressedLength[c] = buffer.getInt();
+        }
+        ColumnReader[] columns = new ColumnReader[columnCount];
+        Inflater inflater = new Inflater();
+        try {
+            for (int c = 0; c < columnCount; c++) {
+                // Java 8 的 Inflater 只接受字节数组，先从映射区拷出压缩数据
+                byte[] compressed = new byte[compressedLength[c]];
+                buffer.get(compressed);
+                byte[] raw = new byte[rawLength[c]];
+                inflater.reset();
+                inflater.setInput(compressed);
+                int length = 0;
+                while (length < raw.length) {
+                    int n = inflater.inflate(raw, length, raw.length - length);
+                    if (n == 0 && (inflater.finished() || inflater.needsInput())) {
+                        break;
+                    }
+                    length += n;
+                }
+                if (length != raw.length) {
+                    throw new IOException("归档块数据不完整: " + file + "@" + block.offset);
+                }
+                columns[c] = new ColumnReader(raw);
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("归档块解压失败: " + file + "@" + block.offset, e);
+        } finally {
+            inflater.end();
+        }
+        return decode(rows, columns);
+    }
+
+    private static List<SyslogEntry> decode(int rows, ColumnReader[] columns) {
+        String[] sourceIps = readDictionary(columns[SyslogArchiveFormat.COL_SOURCE_IP]);
+        String[] deviceTypes = readDictionary(columns[SyslogArchiveFormat.COL_DEVICE_TYPE]);
+        String[] hostnames = readDictionary(columns[SyslogArchiveFormat.COL_HOSTNAME]);
+        List<SyslogEntry> entries = new ArrayList<>(rows);
+        long id = 0;
+        long time = 0;
+        for (int i = 0; i < rows; i++) {
+            id += columns[SyslogArchiveFormat.COL_ID].readZigZag();
+            time += columns[SyslogArchiveFormat.COL_RECEIVED_AT].readZigZag();
+            SyslogEntry entry = new SyslogEntry();
+            entry.setId(id);
+            entry.setReceivedAt(SyslogArchiveFormat.fromEpochSecond(time));
+            Long eventTime = readNullableTime(columns[SyslogArchiveFormat.COL_EVENT_TIME], time);
+            entry.setEventTime(eventTime == null ? null : SyslogArchiveFormat.fromEpochSecond(eventTime));
+            entry.setSourceIp(lookup(sourceIps, columns[SyslogArchiveFormat.COL_SOURCE_IP]));
+            entry.setDeviceType(lookup(deviceTypes, columns[SyslogArchiveFormat.COL_DEVICE_TYPE]));
+            entry.setFacility(readNullableInt(columns[SyslogArchiveFormat.COL_FACILITY]));
+            entry.setSeverity(readNullableInt(columns[SyslogArchiveFormat.COL_SEVERITY]));
+            entry.setHostname(lookup(hostnames, columns[SyslogArchiveFormat.COL_HOSTNAME]));
+            entry.setMessage(columns[SyslogArchiveFormat.COL_MESSAGE].readString());
+            entry.setMatchedRuleId(readNullableInt(columns[SyslogArchiveFormat.COL_RULE_ID]));
+            entry.setMatchedEventId(readNullableInt(columns[SyslogArchiveFormat.COL_EVENT_ID]));
+            entry.setIsAlert(columns[SyslogArchiveFormat.COL_IS_ALERT].readByte() != 0);
+            entry.setRepeatCount((int) columns[SyslogArchiveFormat.COL_REPEAT_COUNT].readVarLong());
+            Long lastSeenAt = readNullableTime(columns[SyslogArchiveFormat.COL_LAST_SEEN_AT], time);
+            entry.setLastSeenAt(lastSeenAt == null ? null : SyslogArchiveFormat.fromEpochSecond(lastSeenAt));
+            if (columns.length > SyslogArchiveFormat.COL_TEMPLATE_ID) {
+                entry.setTemplateId(readNullableInt(columns[SyslogArchiveFormat.COL_TEMPLATE_ID]));
+            }
+            if (columns.length > SyslogArchiveFormat.COL_ASSET_ID) {
+                entry.setAssetId(readNullableLong(columns[SyslogArchiveFormat.COL_ASSET_ID]));
+            }
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    private static String[] readDictionary(ColumnReader column) {
+        String[] dictionary = new String[(int) column.readVarLong()];
+        for (int i = 0; i < dictionary.length; i++) {
+            dictionary[i] = column.readString();
+        }
+        return dictionary;
+    }
+
+    private static String lookup(String[] dictionary, ColumnReader column) {
+        long code = column.readVarLong();
+        return code == 0 ? null : dictionary[(int) code - 1];
+    }
+
+    private static Integer readNullableInt(ColumnReader column) {
+        long value = column.readZigZag();
+        if (value == 0) {
+            return null;
+        }
+        return (int) (value > 0 ? value - 1 : value);
+    }
+
+    private static Long readNullableLong(ColumnReader column) {
+        long value = column.readZigZag();
+        if (value == 0) {
+            return null;
+        }
+        return value > 0 ? value - 1 : value;
+    }
+
+    private static Long readNullableTime(ColumnReader column, long base) {
+        long value = column.readVarLong();
+        if (value == 0) {
+            return null;
+        }
+        value -= 1;
+        return base + ((value >>> 1) ^ -(value & 1));
+    }
+
+    /**
+     * 映射区随缓冲区对象被回收时释放，这里不主动解除映射，避免仍在读取的线程访问已释放的内存
+     */
+    @Override
+    public void close() {
+    }
+}
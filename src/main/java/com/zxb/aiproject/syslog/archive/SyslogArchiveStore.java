@@ -0,0 +1,526 @@
+package com.zxb.aiproject.syslog.archive;
+
+import com.zxb.aiproject.config.SyslogProperties;
+import com.zxb.aiproject.dto.LogQueryDTO;
+import com.zxb.aiproject.entity.LogEvent;
+import com.zxb.aiproject.entity.LogRule;
+import com.zxb.aiproject.entity.SyslogEntry;
+import com.zxb.aiproject.mapper.LogEventMapper;
+import com.zxb.aiproject.mapper.LogRuleMapper;
+import com.zxb.aiproject.mapper.SyslogEntryMapper;
+import com.zxb.aiproject.syslog.SyslogPartitionManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Syslog冷数据归档
+ * 数据库只保留最近 hotDays 天的日志。每天把更早的日志按天写入压缩列存文件 syslog-YYYYMMDD.sla，
+ * 写完并同步到磁盘后推进热数据边界（hotFrom），再删除数据库中边界之前的分区。
+ * 查询时数据库只取边界之后的日志，边界之前的由归档文件按块索引裁剪后解压过滤，两部分按 (接收时间, ID) 倒序衔接。
+ * 统计类接口读取小时汇总表，不受原始日志转入归档影响。
+ */
+@Slf4j
+@Component
+public class SyslogArchiveStore {
+
+    private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private static final String FILE_PREFIX = "syslog-";
+
+    private static final String FILE_SUFFIX = ".sla";
+
+    private static final String META_FILE = "archive.meta";
+
+    @Autowired
+    private SyslogProperties syslogProperties;
+
+    @Autowired
+    private SyslogEntryMapper syslogEntryMapper;
+
+    @Autowired
+    private LogRuleMapper logRuleMapper;
+
+    @Autowired
+    private LogEventMapper logEventMapper;
+
+    @Autowired
+    private SyslogPartitionManager syslogPartitionManager;
+
+    private final ConcurrentSkipListMap<LocalDate, Path> days = new ConcurrentSkipListMap<>();
+
+    /**
+     * 最近使用的归档文件读取器（访问顺序），超过 maxOpenFiles 时淘汰最久未用的
+     */
+    private final LinkedHashMap<LocalDate, SyslogArchiveReader> readers = new LinkedHashMap<>(16, 0.75f, true);
+
+    private Path rootDir;
+
+    /**
+     * 热数据边界：早于该时间的日志都在归档文件中，null 表示还没有归档
+     */
+    private volatile LocalDateTime hotFrom;
+
+    private volatile LocalDateTime lastArchiveTime;
+
+    private volatile long lastArchivedRows;
+
+    private volatile String lastError;
+
+    /**
+     * 归档日志的逐条处理（导出用）
+     */
+    public interface Visitor {
+        void accept(SyslogEntry entry) throws IOException;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!isEnabled()) {
+            return;
+        }
+        try {
+            rootDir = Paths.get(syslogProperties.getArchive().getDir()).toAbsolutePath();
+            Files.createDirectories(rootDir);
+            loadMeta();
+            loadDays();
+            log.info("Syslog归档加载完成: 目录={}, 归档天数={}, 热数据边界={}", rootDir, days.size(), hotFrom);
+        } catch (Exception e) {
+            rootDir = null;
+            log.error("Syslog归档初始化失败, 不转入归档: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 每天把超出热数据天数的日志写入归档、推进热数据边界并删除数据库中已归档的分区，最后清理超出保留期的归档文件
+     * 安排在分区维护（00:10）之后执行
+     */
+    @Scheduled(cron = "0 30 0 * * ?")
+    public synchronized void archive() {
+        if (!isEnabled() || rootDir == null) {
+            return;
+        }
+        int retentionDays = syslogPartitionManager.getRetentionDays();
+        LocalDate hotStart = LocalDate.now().minusDays(Math.max(1, syslogProperties.getArchive().getHotDays()));
+        LocalDate retentionStart = LocalDate.now().minusDays(retentionDays);
+        long archivedRows = 0;
+        try {
+            LocalDateTime minReceivedAt = syslogEntryMapper.selectMinReceivedAt();
+            if (minReceivedAt != null) {
+                LocalDate day = minReceivedAt.toLocalDate();
+                if (day.isBefore(retentionStart)) {
+                    // 超出保留期的日志由过期清理直接删除，不再归档
+                    day = retentionStart;
+                }
+                LocalDate archivedUpTo = null;
+                for (; day.isBefore(hotStart); day = day.plusDays(1)) {
+                    if (!days.containsKey(day)) {
+                        archivedRows += archiveDay(day);
+                    }
+                    archivedUpTo = day.plusDays(1);
+                }
+                if (archivedUpTo != null && (hotFrom == null || archivedUpTo.atStartOfDay().isAfter(hotFrom))) {
+                    // 边界先落盘再删库，重启后不会出现既不在库中也不在边界之前的日志
+                    saveMeta(archivedUpTo.atStartOfDay());
+                    hotFrom = archivedUpTo.atStartOfDay();
+                }
+            }
+            if (hotFrom != null) {
+                long purged = syslogPartitionManager.purgeBefore(hotFrom);
+                log.info("Syslog归档完成: 新归档 {} 行, 热数据边界 {}, 数据库删除 {} 行", archivedRows, hotFrom, purged);
+            }
+            lastError = null;
+        } catch (Exception e) {
+            lastError = e.getMessage();
+            log.error("Syslog归档失败, 已归档 {} 行, 热数据边界保持 {}: {}", archivedRows, hotFrom, e.getMessage());
+        }
+        lastArchiveTime = LocalDateTime.now();
+        lastArchivedRows = archivedRows;
+        deleteExpired(retentionStart);
+    }
+
+    /**
+     * 数据库查询使用的热数据边界；未启用归档时返回 null
+     */
+    public LocalDateTime getHotFrom() {
+        return isEnabled() && rootDir != null ? hotFrom : null;
+    }
+
+    /**
+     * 按 (接收时间, ID) 倒序查询归档日志
+     * @param cursorTime 游标时间，非空时只返回游标之前的日志
+     * @param cursorId   游标ID
+     * @param skip       跳过的条数（OFFSET 分页越过数据库部分时使用）
+     * @param limit      最多返回条数
+     */
+    public List<SyslogEntry> search(LogQueryDTO query, LocalDateTime cursorTime, Long cursorId,
+                                    long skip, int limit) throws IOException {
+        List<SyslogEntry> result = new ArrayList<>();
+        if (getHotFrom() == null || limit <= 0) {
+            return result;
+        }
+        SyslogArchivePredicate predicate = SyslogArchivePredicate.of(query);
+        long cursorSecond = cursorTime == null ? Long.MAX_VALUE : SyslogArchiveFormat.toEpochSecond(cursorTime);
+        long cursorIdValue = cursorId == null ? Long.MAX_VALUE : cursorId;
+        long remainingSkip = skip;
+        for (LocalDate day : days.descendingKeySet()) {
+            if (cursorTime != null && day.atStartOfDay().isAfter(cursorTime)) {
+                continue;
+            }
+            if (!predicate.overlapsDay(day.atStartOfDay())) {
+                continue;
+            }
+            SyslogArchiveReader reader = open(day);
+            if (reader == null) {
+                continue;
+            }
+            List<SyslogArchiveBlock> blocks = reader.getBlocks();
+            for (int i = blocks.size() - 1; i >= 0; i--) {
+                SyslogArchiveBlock block = blocks.get(i);
+                if (block.minTime > cursorSecond || !predicate.mayMatch(block)) {
+                    continue;
+                }
+                if (block.maxTime < cursorSecond && remainingSkip >= block.rows && predicate.coversAll(block)) {
+                    remainingSkip -= block.rows;
+                    continue;
+                }
+                List<SyslogEntry> rows = reader.readBlock(block);
+                for (int j = rows.size() - 1; j >= 0; j--) {
+                    SyslogEntry entry = rows.get(j);
+                    if (!isBefore(entry, cursorSecond, cursorIdValue) || !predicate.matches(entry)) {
+                        continue;
+                    }
+                    if (remainingSkip > 0) {
+                        remainingSkip--;
+                        continue;
+                    }
+                    result.add(entry);
+                    if (result.size() >= limit) {
+                        fillNames(result);
+                        return result;
+                    }
+                }
+            }
+        }
+        fillNames(result);
+        return result;
+    }
+
+    /**
+     * 归档中满足条件的日志条数，最多数到 cap
+     */
+    public long count(LogQueryDTO query, long cap) throws IOException {
+        if (getHotFrom() == null) {
+            return 0;
+        }
+        SyslogArchivePredicate predicate = SyslogArchivePredicate.of(query);
+        long count = 0;
+        for (LocalDate day : days.descendingKeySet()) {
+            if (!predicate.overlapsDay(day.atStartOfDay())) {
+                continue;
+            }
+            SyslogArchiveReader reader = open(day);
+            if (reader == null) {
+                continue;
+            }
+            for (SyslogArchiveBlock block : reader.getBlocks()) {
+                if (!predicate.mayMatch(block)) {
+                    continue;
+                }
+                if (predicate.coversAll(block)) {
+                    count += block.rows;
+                } else {
+                    for (SyslogEntry entry : reader.readBlock(block)) {
+                        if (predicate.matches(entry)) {
+                            count++;
+                        }
+                    }
+                }
+                if (count >= cap) {
+                    return cap;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 按 (接收时间, ID) 倒序遍历满足条件的归档日志，一次只解压一个块
+     * @return 遍历的条数
+     */
+    public long scan(LogQueryDTO query, Visitor visitor) throws IOException {
+        if (getHotFrom() == null) {
+            return 0;
+        }
+        SyslogArchivePredicate predicate = SyslogArchivePredicate.of(query);
+        long count = 0;
+        for (LocalDate day : days.descendingKeySet()) {
+            if (!predicate.overlapsDay(day.atStartOfDay())) {
+                continue;
+            }
+            SyslogArchiveReader reader = open(day);
+            if (reader == null) {
+                continue;
+            }
+            List<SyslogArchiveBlock> blocks = reader.getBlocks();
+            for (int i = blocks.size() - 1; i >= 0; i--) {
+                SyslogArchiveBlock block = blocks.get(i);
+                if (!predicate.mayMatch(block)) {
+                    continue;
+                }
+                List<SyslogEntry> rows = reader.readBlock(block);
+                List<SyslogEntry> matched = new ArrayList<>();
+                for (int j = rows.size() - 1; j >= 0; j--) {
+                    if (predicate.matches(rows.get(j))) {
+                        matched.add(rows.get(j));
+                    }
+                }
+                fillNames(matched);
+                for (SyslogEntry entry : matched) {
+                    visitor.accept(entry);
+                }
+                count += matched.size();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 归档状态，供监控接口展示
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("archiveEnabled", isEnabled() && rootDir != null);
+        data.put("archiveDir", rootDir == null ? null : rootDir.toString());
+        data.put("hotDays", syslogProperties.getArchive().getHotDays());
+        data.put("hotFrom", hotFrom);
+        data.put("archivedDays", days.size());
+        data.put("archiveFirstDay", days.isEmpty() ? null : days.firstKey());
+        data.put("archiveLastDay", days.isEmpty() ? null : days.lastKey());
+        long bytes = 0;
+        for (Path file : days.values()) {
+            try {
+                bytes += Files.size(file);
+            } catch (IOException ignored) {
+                // 文件刚被清理
+            }
+        }
+        data.put("archiveBytes", bytes);
+        synchronized (readers) {
+            data.put("archiveOpenFiles", readers.size());
+        }
+        data.put("lastArchiveTime", lastArchiveTime);
+        data.put("lastArchivedRows", lastArchivedRows);
+        data.put("lastArchiveError", lastError);
+        return data;
+    }
+
+    /**
+     * 把某一天的日志写入归档文件：先写临时文件并同步到磁盘，再原子改名
+     * @return 归档的行数，当天没有日志时不生成文件
+     */
+    private long archiveDay(LocalDate day) throws IOException {
+        SyslogProperties.Archive config = syslogProperties.getArchive();
+        int batchSize = Math.max(1, config.getReadBatchSize());
+        LocalDateTime from = day.atStartOfDay();
+        LocalDateTime to = day.plusDays(1).atStartOfDay();
+        Path target = rootDir.resolve(fileName(day));
+        Path tmp = rootDir.resolve(fileName(day) + ".tmp");
+        long start = System.currentTimeMillis();
+        long rows;
+        try {
+            try (SyslogArchiveWriter writer = new SyslogArchiveWriter(tmp, config.getBlockRows(), config.getCompressionLevel())) {
+                LocalDateTime afterTime = null;
+                Long afterId = null;
+                List<SyslogEntry> batch;
+                do {
+                    batch = syslogEntryMapper.selectArchiveBatch(from, to, afterTime, afterId, batchSize);
+                    for (SyslogEntry entry : batch) {
+                        writer.add(entry);
+                    }
+                    if (!batch.isEmpty()) {
+                        SyslogEntry last = batch.get(batch.size() - 1);
+                        afterTime = last.getReceivedAt();
+                        afterId = last.getId();
+                    }
+                } while (batch.size() >= batchSize);
+                rows = writer.finish();
+            }
+            if (rows == 0) {
+                Files.deleteIfExists(tmp);
+                return 0;
+            }
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        days.put(day, target);
+        log.info("Syslog归档 {}: {} 行, {} 字节, 耗时={}ms", day, rows, Files.size(target), System.currentTimeMillis() - start);
+        return rows;
+    }
+
+    /**
+     * 删除超出保留期的归档文件
+     */
+    private void deleteExpired(LocalDate retentionStart) {
+        for (LocalDate day : new ArrayList<>(days.headMap(retentionStart).keySet())) {
+            Path file = days.remove(day);
+            synchronized (readers) {
+                readers.remove(day);
+            }
+            try {
+                Files.deleteIfExists(file);
+                log.info("删除过期Syslog归档: {}", file.getFileName());
+            } catch (IOException e) {
+                log.warn("删除过期Syslog归档 {} 失败: {}", file.getFileName(), e.getMessage());
+            }
+        }
+    }
+
+    private SyslogArchiveReader open(LocalDate day) throws IOException {
+        synchronized (readers) {
+            SyslogArchiveReader reader = readers.get(day);
+            if (reader != null) {
+                return reader;
+            }
+            Path file = days.get(day);
+            if (file == null) {
+                return null;
+            }
+            reader = new SyslogArchiveReader(file);
+            readers.put(day, reader);
+            int maxOpen = Math.max(1, syslogProperties.getArchive().getMaxOpenFiles());
+            while (readers.size() > maxOpen) {
+                LocalDate eldest = readers.keySet().iterator().next();
+                readers.remove(eldest).close();
+            }
+            return reader;
+        }
+    }
+
+    /**
+     * 归档中只保存规则/事件ID，名称按当前配置补齐
+     */
+    private void fillNames(List<SyslogEntry> entries) {
+        Set<Integer> ruleIds = new HashSet<>();
+        Set<Integer> eventIds = new HashSet<>();
+        for (SyslogEntry entry : entries) {
+            if (entry.getMatchedRuleId() != null) {
+                ruleIds.add(entry.getMatchedRuleId());
+            }
+            if (entry.getMatchedEventId() != null) {
+                eventIds.add(entry.getMatchedEventId());
+            }
+        }
+        Map<Integer, LogRule> rules = new HashMap<>();
+        if (!ruleIds.isEmpty()) {
+            for (LogRule rule : logRuleMapper.selectBatchIds(ruleIds)) {
+                rules.put(rule.getId(), rule);
+            }
+        }
+        Map<Integer, LogEvent> events = new HashMap<>();
+        if (!eventIds.isEmpty()) {
+            for (LogEvent event : logEventMapper.selectBatchIds(eventIds)) {
+                events.put(event.getId(), event);
+            }
+        }
+        for (SyslogEntry entry : entries) {
+            LogRule rule = rules.get(entry.getMatchedRuleId());
+            if (rule != null) {
+                entry.setRuleName(rule.getRuleName());
+            }
+            LogEvent event = events.get(entry.getMatchedEventId());
+            if (event != null) {
+                entry.setEventName(event.getEventName());
+                entry.setEventColor(event.getEventColor());
+            }
+        }
+    }
+
+    private void loadDays() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(rootDir)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(FILE_SUFFIX + ".tmp")) {
+                    // 上次归档中途退出留下的临时文件
+                    Files.deleteIfExists(file);
+                    continue;
+                }
+                if (!name.startsWith(FILE_PREFIX) || !name.endsWith(FILE_SUFFIX)) {
+                    continue;
+                }
+                try {
+                    LocalDate day = LocalDate.parse(name.substring(FILE_PREFIX.length(),
+                            name.length() - FILE_SUFFIX.length()), DAY_FORMAT);
+                    days.put(day, file);
+                } catch (DateTimeParseException e) {
+                    log.warn("忽略无法识别的归档文件: {}", name);
+                }
+            }
+        }
+    }
+
+    private void loadMeta() throws IOException {
+        Path meta = rootDir.resolve(META_FILE);
+        if (!Files.exists(meta)) {
+            return;
+        }
+        Properties props = new Properties();
+        try (InputStream in = Files.newInputStream(meta)) {
+            props.load(in);
+        }
+        String value = props.getProperty("hotFrom");
+        if (value != null && !value.isEmpty()) {
+            hotFrom = LocalDate.parse(value, DAY_FORMAT).atStartOfDay();
+        }
+    }
+
+    private void saveMeta(LocalDateTime boundary) throws IOException {
+        Path meta = rootDir.resolve(META_FILE);
+        Path tmp = rootDir.resolve(META_FILE + ".tmp");
+        Properties props = new Properties();
+        props.setProperty("hotFrom", boundary.toLocalDate().format(DAY_FORMAT));
+        try (OutputStream out = Files.newOutputStream(tmp)) {
+            props.store(out, "syslog archive");
+        }
+        Files.move(tmp, meta, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private boolean isEnabled() {
+        return Boolean.TRUE.equals(syslogProperties.getArchive().getEnabled());
+    }
+
+    private static boolean isBefore(SyslogEntry entry, long cursorSecond, long cursorId) {
+        long time = SyslogArchiveFormat.toEpochSecond(entry.getReceivedAt());
+        return time < cursorSecond || (time == cursorSecond && entry.getId() < cursorId);
+    }
+
+    private static String fileName(LocalDate day) {
+        return FILE_PREFIX + day.format(DAY_FORMAT) + FILE_SUFFIX;
+    }
+}
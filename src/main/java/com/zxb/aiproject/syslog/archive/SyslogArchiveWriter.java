@@ -0,0 +1,234 @@
+package com.zxb.aiproject.syslog.archive;
+
+import com.zxb.aiproject.entity.SyslogEntry;
+import com.zxb.aiproject.syslog.archive.SyslogArchiveFormat.ColumnBuffer;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+/**
+ * 归档文件写出：日志须按 (接收时间, ID) 升序写入，攒满 blockRows 行编码为一个块，finish 时写块索引并落盘。
+ */
+final class SyslogArchiveWriter implements Closeable {
+
+    private final FileOutputStream fileOut;
+
+    private final DataOutputStream out;
+
+    private final int blockRows;
+
+    private final Deflater deflater;
+
+    private final List<SyslogEntry> pending;
+
+    private final List<SyslogArchiveBlock> blocks = new ArrayList<>();
+
+    private long position;
+
+    private long rowCount;
+
+    SyslogArchiveWriter(Path file, int blockRows, int compressionLevel) throws IOException {
+        this.fileOut = new FileOutputStream(file.toFile());
+        this.out = new DataOutputStream(new BufferedOutputStream(fileOut, 256 * 1024));
+        this.blockRows = Math.max(1, blockRows);
+        this.deflater = new Deflater(compressionLevel);
+        this.pending = new ArrayList<>(this.blockRows);
+        out.writeInt(SyslogArchiveFormat.MAGIC);
+        out.writeInt(SyslogArchiveFormat.VERSION);
+        position = 8;
+    }
+
+    void add(SyslogEntry entry) throws IOException {
+        pending.add(entry);
+        rowCount++;
+        if (pending.size() >= blockRows) {
+            writeBlock();
+        }
+    }
+
+    /**
+     * 写出剩余行与块索引并同步到磁盘
+     * @return 总行数
+     */
+    long finish() throws IOException {
+        if (!pending.isEmpty()) {
+            writeBlock();
+        }
+        ByteBuffer index = ByteBuffer.allocate(4 + blocks.size() * SyslogArchiveFormat.BLOCK_META_BYTES + 8 + 4);
+        index.putInt(blocks.size());
+        for (SyslogArchiveBlock block : blocks) {
+            block.writeTo(index);
+        }
+        index.putLong(position);
+        index.putInt(SyslogArchiveFormat.MAGIC);
+        out.write(index.array(), 0, index.position());
+        out.flush();
+        fileOut.getFD().sync();
+        return rowCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        deflater.end();
+        out.close();
+    }
+
+    private void writeBlock() throws IOException {
+        ColumnBuffer[] columns = encode(pending);
+        SyslogArchiveBlock block = describe(pending);
+        block.offset = position;
+
+        byte[][] compressed = new byte[SyslogArchiveFormat.COLUMN_COUNT][];
+        int length = 4 + SyslogArchiveFormat.COLUMN_COUNT * 8;
+        for (int c = 0; c < columns.length; c++) {
+            compressed[c] = compress(columns[c]);
+            length += compressed[c].length;
+        }
+        out.writeInt(pending.size());
+        for (int c = 0; c < columns.length; c++) {
+            out.writeInt(columns[c].size());
+            out.writeInt(compressed[c].length);
+        }
+        for (byte[] data : compressed) {
+            out.write(data);
+        }
+        block.length = length;
+        position += length;
+        blocks.add(block);
+        pending.clear();
+    }
+
+    private byte[] compress(ColumnBuffer column) {
+        deflater.reset();
+        deflater.setInput(column.array(), 0, column.size());
+        deflater.finish();
+        byte[] result = new byte[Math.max(64, column.size() / 2)];
+        int length = 0;
+        while (!deflater.finished()) {
+            if (length == result.length) {
+                result = Arrays.copyOf(result, result.length * 2);
+            }
+            length += deflater.deflate(result, length, result.length - length);
+        }
+        return Arrays.copyOf(result, length);
+    }
+
+    private static SyslogArchiveBlock describe(List<SyslogEntry> rows) {
+        SyslogArchiveBlock block = new SyslogArchiveBlock();
+        block.rows = rows.size();
+        block.minTime = Long.MAX_VALUE;
+        block.maxTime = Long.MIN_VALUE;
+        block.minId = Long.MAX_VALUE;
+        block.maxId = Long.MIN_VALUE;
+        for (SyslogEntry entry : rows) {
+            long time = SyslogArchiveFormat.toEpochSecond(entry.getReceivedAt());
+            block.minTime = Math.min(block.minTime, time);
+            block.maxTime = Math.max(block.maxTime, time);
+            block.minId = Math.min(block.minId, entry.getId());
+            block.maxId = Math.max(block.maxId, entry.getId());
+            Integer severity = entry.getSeverity();
+            block.severityMask |= 1 << (severity != null && severity >= 0 && severity < SyslogArchiveBlock.NULL_SEVERITY_BIT
+                    ? severity : SyslogArchiveBlock.NULL_SEVERITY_BIT);
+            if (entry.getSourceIp() != null) {
+                SyslogArchiveFormat.bloomAdd(block.sourceBloom, entry.getSourceIp());
+            }
+        }
+        return block;
+    }
+
+    private static ColumnBuffer[] encode(List<SyslogEntry> rows) {
+        ColumnBuffer[] columns = new ColumnBuffer[SyslogArchiveFormat.COLUMN_COUNT];
+        for (int c = 0; c < columns.length; c++) {
+            columns[c] = new ColumnBuffer();
+        }
+        long previousId = 0;
+        long previousTime = 0;
+        List<String> sourceIps = new ArrayList<>(rows.size());
+        List<String> deviceTypes = new ArrayList<>(rows.size());
+        List<String> hostnames = new ArrayList<>(rows.size());
+        for (SyslogEntry entry : rows) {
+            long id = entry.getId();
+            long time = SyslogArchiveFormat.toEpochSecond(entry.getReceivedAt());
+            columns[SyslogArchiveFormat.COL_ID].writeZigZag(id - previousId);
+            columns[SyslogArchiveFormat.COL_RECEIVED_AT].writeZigZag(time - previousTime);
+            previousId = id;
+            previousTime = time;
+            writeNullableTime(columns[SyslogArchiveFormat.COL_EVENT_TIME], entry.getEventTime() == null
+                    ? null : SyslogArchiveFormat.toEpochSecond(entry.getEventTime()), time);
+            sourceIps.add(entry.getSourceIp());
+            deviceTypes.add(entry.getDeviceType());
+            hostnames.add(entry.getHostname());
+            writeNullableInt(columns[SyslogArchiveFormat.COL_FACILITY], entry.getFacility());
+            writeNullableInt(columns[SyslogArchiveFormat.COL_SEVERITY], entry.getSeverity());
+            columns[SyslogArchiveFormat.COL_MESSAGE].writeString(entry.getMessage());
+            writeNullableInt(columns[SyslogArchiveFormat.COL_RULE_ID], entry.getMatchedRuleId());
+            writeNullableInt(columns[SyslogArchiveFormat.COL_EVENT_ID], entry.getMatchedEventId());
+            columns[SyslogArchiveFormat.COL_IS_ALERT].writeByte(Boolean.TRUE.equals(entry.getIsAlert()) ? 1 : 0);
+            columns[SyslogArchiveFormat.COL_REPEAT_COUNT].writeVarLong(
+                    entry.getRepeatCount() == null ? 1 : entry.getRepeatCount());
+            writeNullableTime(columns[SyslogArchiveFormat.COL_LAST_SEEN_AT], entry.getLastSeenAt() == null
+                    ? null : SyslogArchiveFormat.toEpochSecond(entry.getLastSeenAt()), time);
+            writeNullableInt(columns[SyslogArchiveFormat.COL_TEMPLATE_ID], entry.getTemplateId());
+            writeNullableLong(columns[SyslogArchiveFormat.COL_ASSET_ID], entry.getAssetId());
+        }
+        writeDictionary(columns[SyslogArchiveFormat.COL_SOURCE_IP], sourceIps);
+        writeDictionary(columns[SyslogArchiveFormat.COL_DEVICE_TYPE], deviceTypes);
+        writeDictionary(columns[SyslogArchiveFormat.COL_HOSTNAME], hostnames);
+        return columns;
+    }
+
+    /**
+     * 字典编码：[字典大小][字典项]...[每行编号+1，0 表示空]...
+     */
+    private static void writeDictionary(ColumnBuffer column, List<String> values) {
+        Map<String, Integer> dictionary = new HashMap<>();
+        List<String> entries = new ArrayList<>();
+        ColumnBuffer codes = new ColumnBuffer();
+        for (String value : values) {
+            if (value == null) {
+                codes.writeVarLong(0);
+                continue;
+            }
+            Integer code = dictionary.get(value);
+            if (code == null) {
+                code = entries.size();
+                dictionary.put(value, code);
+                entries.add(value);
+            }
+            codes.writeVarLong(code + 1L);
+        }
+        column.writeVarLong(entries.size());
+        for (String entry : entries) {
+            column.writeString(entry);
+        }
+        column.writeBuffer(codes);
+    }
+
+    private static void writeNullableInt(ColumnBuffer column, Integer value) {
+        column.writeZigZag(value == null ? 0 : (value >= 0 ? value + 1L : value));
+    }
+
+    private static void writeNullableLong(ColumnBuffer column, Long value) {
+        column.writeZigZag(value == null ? 0 : (value >= 0 ? value + 1 : value));
+    }
+
+    private static void writeNullableTime(ColumnBuffer column, Long value, long base) {
+        if (value == null) {
+            column.writeVarLong(0);
+        } else {
+            long delta = value - base;
+            column.writeVarLong(((delta << 1) ^ (delta >> 63)) + 1);
+        }
+    }
+}
@@ -0,0 +1,305 @@
+package com.zxb.aiproject.syslog.asset;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * 按最长前缀匹配的IP地址索引（路径压缩的二叉基数树，IPv4 与 IPv6 各一棵）
+ * 前缀写作 "192.168.1.10"（单个地址）或 "10.0.0.0/8"，查找返回包含该地址的最长前缀对应的值。
+ * 实例不可变：put / remove 只复制从根到目标节点的路径并返回新实例，其余节点与原实例共享，
+ * 因此读线程持有任意一个实例都可以无锁查找，写线程逐条变更后整体替换引用即可。
+ */
+public final class IpPrefixTrie<V> {
+
+    private static final IpPrefixTrie<Object> EMPTY = new IpPrefixTrie<>(null, null, 0);
+
+    private final Node<V> v4;
+
+    private final Node<V> v6;
+
+    private final int size;
+
+    private static final class Node<V> {
+        /**
+         * 只有前 length 位有意义
+         */
+        final byte[] key;
+        final int length;
+        /**
+         * 为空表示仅用于分叉的中间节点
+         */
+        final V value;
+        final Node<V> zero;
+        final Node<V> one;
+
+        Node(byte[] key, int length, V value, Node<V> zero, Node<V> one) {
+            this.key = key;
+            this.length = length;
+            this.value = value;
+            this.zero = zero;
+            this.one = one;
+        }
+    }
+
+    private IpPrefixTrie(Node<V> v4, Node<V> v6, int size) {
+        this.v4 = v4;
+        this.v6 = v6;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <V> IpPrefixTrie<V> empty() {
+        return (IpPrefixTrie<V>) EMPTY;
+    }
+
+    /**
+     * 前缀个数
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 添加或替换前缀对应的值
+     * @throws IllegalArgumentException 前缀格式错误
+     */
+    public IpPrefixTrie<V> put(String prefix, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("值不能为空");
+        }
+        byte[] key = parseAddress(addressPart(prefix));
+        int length = prefixLength(prefix, key);
+        boolean[] added = new boolean[1];
+        if (key.length == 4) {
+            return new IpPrefixTrie<>(put(v4, key, length, value, added), v6, size + (added[0] ? 1 : 0));
+        }
+        return new IpPrefixTrie<>(v4, put(v6, key, length, value, added), size + (added[0] ? 1 : 0));
+    }
+
+    /**
+     * 删除前缀，不存在时返回原实例
+     * @throws IllegalArgumentException 前缀格式错误
+     */
+    public IpPrefixTrie<V> remove(String prefix) {
+        byte[] key = parseAddress(addressPart(prefix));
+        int length = prefixLength(prefix, key);
+        boolean[] removed = new boolean[1];
+        if (key.length == 4) {
+            Node<V> root = remove(v4, key, length, removed);
+            return removed[0] ? new IpPrefixTrie<>(root, v6, size - 1) : this;
+        }
+        Node<V> root = remove(v6, key, length, removed);
+        return removed[0] ? new IpPrefixTrie<>(v4, root, size - 1) : this;
+    }
+
+    /**
+     * 最长前缀匹配
+     * @return 包含该地址的最长前缀对应的值；地址无法解析或没有匹配时返回 null
+     */
+    public V lookup(String ip) {
+        byte[] address = ip == null ? null : tryParseAddress(ip.trim());
+        if (address == null) {
+            return null;
+        }
+        int bits = address.length * 8;
+        Node<V> node = address.length == 4 ? v4 : v6;
+        V best = null;
+        while (node != null && node.length <= bits && commonPrefix(node.key, address, node.length) == node.length) {
+            if (node.value != null) {
+                best = node.value;
+            }
+            if (node.length == bits) {
+                break;
+            }
+            node = bit(address, node.length) == 0 ? node.zero : node.one;
+        }
+        return best;
+    }
+
+    /**
+     * 规范化前缀写法：主机位清零，单个地址不带前缀长度，例如 "10.1.2.3/8" 为 "10.0.0.0/8"
+     * @return 格式错误时返回 null
+     */
+    public static String canonical(String prefix) {
+        if (prefix == null) {
+            return null;
+        }
+        try {
+            byte[] key = parseAddress(addressPart(prefix));
+            int length = prefixLength(prefix, key);
+            for (int i = length; i < key.length * 8; i++) {
+                key[i >>> 3] &= (byte) ~(0x80 >>> (i & 7));
+            }
+            String address = InetAddress.getByAddress(key).getHostAddress();
+            return length == key.length * 8 ? address : address + "/" + length;
+        } catch (IllegalArgumentException | UnknownHostException e) {
+            return null;
+        }
+    }
+
+    private static <V> Node<V> put(Node<V> node, byte[] key, int length, V value, boolean[] added) {
+        if (node == null) {
+            added[0] = true;
+            return new Node<>(key, length, value, null, null);
+        }
+        int common = commonPrefix(node.key, key, Math.min(node.length, length));
+        if (common == node.length) {
+            if (length == node.length) {
+                added[0] = node.value == null;
+                return new Node<>(node.key, node.length, value, node.zero, node.one);
+            }
+            if (bit(key, node.length) == 0) {
+                return new Node<>(node.key, node.length, node.value, put(node.zero, key, length, value, added), node.one);
+            }
+            return new Node<>(node.key, node.length, node.value, node.zero, put(node.one, key, length, value, added));
+        }
+        added[0] = true;
+        if (common == length) {
+            // 新前缀是当前节点的上级
+            return bit(node.key, length) == 0
+                    ? new Node<>(key, length, value, node, null)
+                    : new Node<>(key, length, value, null, node);
+        }
+        // 在分歧位拆出中间节点
+        Node<V> leaf = new Node<>(key, length, value, null, null);
+        return bit(key, common) == 0
+                ? new Node<>(key, common, null, leaf, node)
+                : new Node<>(key, common, null, node, leaf);
+    }
+
+    private static <V> Node<V> remove(Node<V> node, byte[] key, int length, boolean[] removed) {
+        if (node == null || length < node.length
+                || commonPrefix(node.key, key, node.length) < node.length) {
+            return node;
+        }
+        if (length == node.length) {
+            if (node.value == null) {
+                return node;
+            }
+            removed[0] = true;
+            return compact(node.key, node.length, null, node.zero, node.one);
+        }
+        boolean zero = bit(key, node.length) == 0;
+        Node<V> child = zero ? node.zero : node.one;
+        Node<V> updated = remove(child, key, length, removed);
+        if (updated == child) {
+            return node;
+        }
+        return zero
+                ? compact(node.key, node.length, node.value, updated, node.one)
+                : compact(node.key, node.length, node.value, node.zero, updated);
+    }
+
+    /**
+     * 没有值且不足两个子节点的中间节点不保留
+     */
+    private static <V> Node<V> compact(byte[] key, int length, V value, Node<V> zero, Node<V> one) {
+        if (value == null) {
+            if (zero == null) {
+                return one;
+            }
+            if (one == null) {
+                return zero;
+            }
+        }
+        return new Node<>(key, length, value, zero, one);
+    }
+
+    private static int bit(byte[] key, int index) {
+        return (key[index >>> 3] >>> (7 - (index & 7))) & 1;
+    }
+
+    /**
+     * 两个地址前 max 位中相同前缀的位数
+     */
+    private static int commonPrefix(byte[] a, byte[] b, int max) {
+        int common = 0;
+        for (int i = 0; common < max; i++) {
+            int diff = (a[i] ^ b[i]) & 0xFF;
+            if (diff != 0) {
+                common += Integer.numberOfLeadingZeros(diff) - 24;
+                break;
+            }
+            common += 8;
+        }
+        return Math.min(common, max);
+    }
+
+    private static String addressPart(String prefix) {
+        if (prefix == null) {
+            throw new IllegalArgumentException("IP前缀不能为空");
+        }
+        String text = prefix.trim();
+        int slash = text.indexOf('/');
+        return slash < 0 ? text : text.substring(0, slash);
+    }
+
+    private static int prefixLength(String prefix, byte[] key) {
+        int max = key.length * 8;
+        int slash = prefix.indexOf('/');
+        if (slash < 0) {
+            return max;
+        }
+        try {
+            int length = Integer.parseInt(prefix.substring(slash + 1).trim());
+            if (length < 0 || length > max) {
+                throw new IllegalArgumentException("IP前缀长度超出范围: " + prefix);
+            }
+            return length;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("IP前缀长度格式错误: " + prefix);
+        }
+    }
+
+    private static byte[] parseAddress(String ip) {
+        byte[] address = tryParseAddress(ip);
+        if (address == null) {
+            throw new IllegalArgumentException("IP地址格式错误: " + ip);
+        }
+        return address;
+    }
+
+    /**
+     * 解析IP字面量，IPv4 映射的 IPv6 地址按 IPv4 处理；不做域名解析
+     * @return 4 或 16 字节，格式错误时返回 null
+     */
+    static byte[] tryParseAddress(String ip) {
+        if (ip.isEmpty()) {
+            return null;
+        }
+        if (ip.indexOf(':') < 0) {
+            return parseIpv4(ip);
+        }
+        try {
+            // 含冒号的字面量不会触发域名解析
+            return InetAddress.getByName(ip).getAddress();
+        } catch (UnknownHostException | SecurityException e) {
+            return null;
+        }
+    }
+
+    private static byte[] parseIpv4(String ip) {
+        byte[] address = new byte[4];
+        int part = 0;
+        int value = -1;
+        for (int i = 0; i < ip.length(); i++) {
+            char c = ip.charAt(i);
+            if (c >= '0' && c <= '9') {
+                value = value < 0 ? c - '0' : value * 10 + (c - '0');
+                if (value > 255) {
+                    return null;
+                }
+            } else if (c == '.' && value >= 0 && part < 3) {
+                address[part++] = (byte) value;
+                value = -1;
+            } else {
+                return null;
+            }
+        }
+        if (part != 3 || value < 0) {
+            return null;
+        }
+        address[3] = (byte) value;
+        return address;
+    }
+}
@@ -0,0 +1,375 @@
+package com.zxb.aiproject.syslog.asset;
+
+import com.zxb.aiproject.config.SyslogProperties;
+import com.zxb.aiproject.entity.Asset;
+import com.zxb.aiproject.entity.AssetCategory;
+import com.zxb.aiproject.entity.SyslogEntry;
+import com.zxb.aiproject.mapper.AssetCategoryMapper;
+import com.zxb.aiproject.mapper.AssetMapper;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Syslog来源IP到资产的关联索引
+ * 资产的 ip_address（单个地址、CIDR 前缀，或以逗号/空白分隔的多个）建成最长前缀匹配索引，
+ * 入库线程在写库前按来源IP查找，为日志写入 asset_id、规范设备类型（资产分类所属一级分类的编码，
+ * 如 SERVER / NETWORK）并在日志未带主机名时补上设备名称。同一地址登记在多个资产上时取ID最小的资产。
+ * 启动时全量加载，之后按资产更新时间增量拉取变更（逻辑删除同样会更新 update_time），
+ * 资产管理增删改后通过 {@link #onAssetChanged(Long)} 立即生效；物理删除等情况由定期全量重建纠正。
+ * 查找只读取不可变的索引快照，不加锁。
+ */
+@Slf4j
+@Component
+public class SyslogAssetIndex {
+
+    /**
+     * 增量刷新向前重叠的秒数
+     */
+    private static final long REFRESH_OVERLAP_SECONDS = 120;
+
+    @Autowired
+    private SyslogProperties syslogProperties;
+
+    @Autowired
+    private AssetMapper assetMapper;
+
+    @Autowired
+    private AssetCategoryMapper assetCategoryMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private volatile IpPrefixTrie<AssetRef> trie = IpPrefixTrie.empty();
+
+    /**
+     * 以下状态只在持有本对象锁时读写
+     * 规范前缀 -> 登记该前缀的资产（按ID排序）
+     */
+    private final Map<String, TreeMap<Long, AssetRef>> assetsByPrefix = new HashMap<>();
+
+    private final Map<Long, List<String>> prefixesByAsset = new HashMap<>();
+
+    /**
+     * 分类ID -> 规范设备类型
+     */
+    private Map<Long, String> deviceTypes = Collections.emptyMap();
+
+    /**
+     * 已拉取到的最大资产更新时间，初始为全量加载时的数据库时间
+     */
+    private LocalDateTime lastSeen;
+
+    private final LongAdder enriched = new LongAdder();
+
+    private final LongAdder unmatched = new LongAdder();
+
+    private final AtomicLong refreshFailures = new AtomicLong();
+
+    private volatile LocalDateTime lastRefreshAt;
+
+    private volatile boolean ready;
+
+    /**
+     * 关联到的资产
+     */
+    @Getter
+    public static final class AssetRef {
+        private final long assetId;
+        private final String deviceName;
+        private final String deviceType;
+
+        AssetRef(long assetId, String deviceName, String deviceType) {
+            this.assetId = assetId;
+            this.deviceName = deviceName;
+            this.deviceType = deviceType;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        // 批量写入总是带 asset_id 列，缺少字段时日志无法入库，直接拒绝启动；不在运行时改表
+        boolean hasColumn;
+        try {
+            hasColumn = hasAssetColumn();
+        } catch (Exception e) {
+            log.error("Syslog资产字段检查失败: {}", e.getMessage());
+            return;
+        }
+        if (!hasColumn) {
+            throw new IllegalStateException("t_log_syslog 缺少 asset_id 字段, 日志无法入库; 请在维护窗口按 aiops_db.sql 补齐字段后再启动");
+        }
+        if (!Boolean.TRUE.equals(syslogProperties.getAsset().getEnabled())) {
+            return;
+        }
+        try {
+            reload();
+        } catch (Exception e) {
+            log.error("初始化Syslog资产关联失败: {}", e.getMessage());
+            return;
+        }
+        ready = true;
+        log.info("Syslog资产关联已启动: 资产 {} 个, IP前缀 {} 个", prefixesSize(), trie.size());
+    }
+
+    /**
+     * 写库前为本批日志关联资产
+     */
+    public void enrich(List<SyslogEntry> batch) {
+        if (!ready) {
+            return;
+        }
+        IpPrefixTrie<AssetRef> snapshot = trie;
+        int hits = 0;
+        for (SyslogEntry entry : batch) {
+            AssetRef asset = snapshot.lookup(entry.getSourceIp());
+            if (asset == null) {
+                continue;
+            }
+            hits++;
+            entry.setAssetId(asset.getAssetId());
+            if (asset.getDeviceType() != null) {
+                entry.setDeviceType(asset.getDeviceType());
+            }
+            if ((entry.getHostname() == null || entry.getHostname().isEmpty()) && asset.getDeviceName() != null) {
+                entry.setHostname(asset.getDeviceName());
+            }
+        }
+        enriched.add(hits);
+        unmatched.add(batch.size() - hits);
+    }
+
+    /**
+     * 按来源IP查找资产，未启用或没有匹配时返回 null
+     */
+    public AssetRef lookup(String sourceIp) {
+        return ready ? trie.lookup(sourceIp) : null;
+    }
+
+    /**
+     * 资产新增、修改或删除后立即更新该资产的关联，不等待增量刷新
+     */
+    public void onAssetChanged(Long assetId) {
+        if (!ready || assetId == null) {
+            return;
+        }
+        try {
+            synchronized (this) {
+                Asset asset = assetMapper.selectIpIndexRow(assetId);
+                if (asset == null) {
+                    // 已物理删除
+                    asset = new Asset();
+                    asset.setId(assetId);
+                    asset.setDeleted(1);
+                }
+                refreshDeviceTypes(Collections.singletonList(asset));
+                trie = apply(trie, asset);
+            }
+        } catch (Exception e) {
+            refreshFailures.incrementAndGet();
+            log.warn("Syslog资产关联更新失败, 资产ID {}: {}", assetId, e.getMessage());
+        }
+    }
+
+    /**
+     * 增量刷新：拉取上次刷新以来更新过的资产（含逻辑删除的）。
+     * 更新时间多由应用写入，与数据库时钟可能有偏差，每次向前多取一段重叠时间，重复应用同一资产没有副作用。
+     */
+    @Scheduled(fixedDelayString = "${syslog.asset.refresh-interval-ms:30000}", initialDelay = 30000)
+    public void refresh() {
+        if (!ready) {
+            return;
+        }
+        try {
+            synchronized (this) {
+                List<Asset> changed = assetMapper.selectChangedSince(lastSeen.minusSeconds(REFRESH_OVERLAP_SECONDS));
+                if (!changed.isEmpty()) {
+                    refreshDeviceTypes(changed);
+                    IpPrefixTrie<AssetRef> updated = trie;
+                    LocalDateTime latest = lastSeen;
+                    for (Asset asset : changed) {
+                        updated = apply(updated, asset);
+                        if (asset.getUpdateTime() != null && asset.getUpdateTime().isAfter(latest)) {
+                            latest = asset.getUpdateTime();
+                        }
+                    }
+                    trie = updated;
+                    lastSeen = latest;
+                }
+            }
+            lastRefreshAt = LocalDateTime.now();
+        } catch (Exception e) {
+            refreshFailures.incrementAndGet();
+            log.warn("Syslog资产关联增量刷新失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 定期全量重建，同时刷新分类到设备类型的映射
+     */
+    @Scheduled(fixedDelayString = "${syslog.asset.full-reload-interval-ms:3600000}", initialDelay = 3600000)
+    public void scheduledReload() {
+        if (!ready) {
+            return;
+        }
+        try {
+            reload();
+        } catch (Exception e) {
+            refreshFailures.incrementAndGet();
+            log.warn("Syslog资产关联全量重建失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 资产关联状态，供监控接口展示
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("assetEnabled", ready);
+        data.put("assetPrefixes", trie.size());
+        data.put("assetEnriched", enriched.sum());
+        data.put("assetUnmatched", unmatched.sum());
+        data.put("assetRefreshFailures", refreshFailures.get());
+        data.put("assetLastRefreshAt", lastRefreshAt);
+        return data;
+    }
+
+    private synchronized void reload() {
+        // 先取数据库时间，加载期间更新的资产留给下次增量刷新
+        LocalDateTime now = assetMapper.selectNow();
+        deviceTypes = loadDeviceTypes();
+        assetsByPrefix.clear();
+        prefixesByAsset.clear();
+        IpPrefixTrie<AssetRef> rebuilt = IpPrefixTrie.empty();
+        for (Asset asset : assetMapper.selectIpIndexRows()) {
+            rebuilt = apply(rebuilt, asset);
+        }
+        trie = rebuilt;
+        lastSeen = now;
+        lastRefreshAt = LocalDateTime.now();
+    }
+
+    /**
+     * 变更的资产引用了未知分类（新建的分类）时重新加载分类映射
+     */
+    private void refreshDeviceTypes(List<Asset> changed) {
+        for (Asset asset : changed) {
+            if (asset.getCategoryId() != null && !deviceTypes.containsKey(asset.getCategoryId())) {
+                deviceTypes = loadDeviceTypes();
+                return;
+            }
+        }
+    }
+
+    private synchronized int prefixesSize() {
+        return prefixesByAsset.size();
+    }
+
+    /**
+     * 应用一个资产的当前状态：先撤下旧的前缀登记，未删除时按新的IP地址重新登记，
+     * 受影响的前缀重新选出ID最小的资产写入索引
+     */
+    private IpPrefixTrie<AssetRef> apply(IpPrefixTrie<AssetRef> current, Asset asset) {
+        Long id = asset.getId();
+        if (id == null) {
+            return current;
+        }
+        Set<String> touched = new HashSet<>();
+        List<String> previous = prefixesByAsset.remove(id);
+        if (previous != null) {
+            for (String prefix : previous) {
+                TreeMap<Long, AssetRef> owners = assetsByPrefix.get(prefix);
+                if (owners != null) {
+                    owners.remove(id);
+                    if (owners.isEmpty()) {
+                        assetsByPrefix.remove(prefix);
+                    }
+                }
+                touched.add(prefix);
+            }
+        }
+        if (asset.getDeleted() == null || asset.getDeleted() == 0) {
+            List<String> prefixes = parsePrefixes(asset.getIpAddress());
+            if (!prefixes.isEmpty()) {
+                String name = asset.getDeviceName() != null && !asset.getDeviceName().isEmpty()
+                        ? asset.getDeviceName() : asset.getAssetName();
+                AssetRef ref = new AssetRef(id, name, deviceTypes.get(asset.getCategoryId()));
+                for (String prefix : prefixes) {
+                    assetsByPrefix.computeIfAbsent(prefix, key -> new TreeMap<>()).put(id, ref);
+                    touched.add(prefix);
+                }
+                prefixesByAsset.put(id, prefixes);
+            }
+        }
+        IpPrefixTrie<AssetRef> updated = current;
+        for (String prefix : touched) {
+            TreeMap<Long, AssetRef> owners = assetsByPrefix.get(prefix);
+            updated = owners == null ? updated.remove(prefix) : updated.put(prefix, owners.firstEntry().getValue());
+        }
+        return updated;
+    }
+
+    /**
+     * 解析资产IP字段，忽略无法识别的部分
+     */
+    private static List<String> parsePrefixes(String ipAddress) {
+        if (ipAddress == null || ipAddress.trim().isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> prefixes = new ArrayList<>(1);
+        for (String part : ipAddress.trim().split("[,;，；\\s]+")) {
+            String prefix = IpPrefixTrie.canonical(part);
+            if (prefix != null && !prefixes.contains(prefix)) {
+                prefixes.add(prefix);
+            }
+        }
+        return prefixes;
+    }
+
+    /**
+     * 分类ID到规范设备类型：沿父分类上溯到一级分类，取其分类编码（大写）
+     */
+    private Map<Long, String> loadDeviceTypes() {
+        Map<Long, AssetCategory> categories = new HashMap<>();
+        for (AssetCategory category : assetCategoryMapper.selectList(null)) {
+            categories.put(category.getId(), category);
+        }
+        Map<Long, String> types = new HashMap<>();
+        for (AssetCategory category : categories.values()) {
+            AssetCategory top = category;
+            // 分类层级不深，限制上溯次数以防父子关系成环
+            for (int i = 0; i < 8 && top.getParentId() != null && top.getParentId() != 0
+                    && categories.containsKey(top.getParentId()); i++) {
+                top = categories.get(top.getParentId());
+            }
+            if (top.getCategoryCode() != null && !top.getCategoryCode().isEmpty()) {
+                types.put(category.getId(), top.getCategoryCode().toUpperCase());
+            }
+        }
+        return types;
+    }
+
+    private boolean hasAssetColumn() {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.COLUMNS WHERE TABLE_SCHEMA = DATABASE() "
+                        + "AND TABLE_NAME = 't_log_syslog' AND COLUMN_NAME = 'asset_id'", Integer.class);
+        return count != null && count > 0;
+    }
+}
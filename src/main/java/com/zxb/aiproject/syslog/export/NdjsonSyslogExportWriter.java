@@ -0,0 +1,69 @@
+package com.zxb.aiproject.syslog.export;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.zxb.aiproject.entity.SyslogEntry;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * NDJSON导出：每行一个JSON对象，用流式 JsonGenerator 逐字段写出
+ */
+final class NdjsonSyslogExportWriter extends SyslogExportWriter {
+
+    private final JsonGenerator generator;
+
+    NdjsonSyslogExportWriter(OutputStream out) throws IOException {
+        JsonFactory factory = new JsonFactory();
+        this.generator = factory.createGenerator(out, JsonEncoding.UTF8);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        // 行分隔由 write 自行写出
+        generator.setRootValueSeparator(null);
+    }
+
+    @Override
+    public void write(SyslogEntry entry) throws IOException {
+        generator.writeStartObject();
+        writeNumber("id", entry.getId());
+        writeString("receivedAt", entry.getReceivedAt() == null ? null : formatTime(entry.getReceivedAt()));
+        writeString("eventTime", entry.getEventTime() == null ? null : formatTime(entry.getEventTime()));
+        writeString("sourceIp", entry.getSourceIp());
+        writeString("hostname", entry.getHostname());
+        writeString("deviceType", entry.getDeviceType());
+        writeNumber("facility", entry.getFacility());
+        writeNumber("severity", entry.getSeverity());
+        writeString("message", entry.getMessage());
+        writeNumber("matchedRuleId", entry.getMatchedRuleId());
+        writeString("ruleName", entry.getRuleName());
+        writeNumber("matchedEventId", entry.getMatchedEventId());
+        writeString("eventName", entry.getEventName());
+        generator.writeBooleanField("isAlert", Boolean.TRUE.equals(entry.getIsAlert()));
+        generator.writeNumberField("repeatCount", entry.getRepeatCount() == null ? 1 : entry.getRepeatCount());
+        writeString("lastSeenAt", entry.getLastSeenAt() == null ? null : formatTime(entry.getLastSeenAt()));
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
+    @Override
+    public void finish() throws IOException {
+        generator.close();
+    }
+
+    private void writeString(String name, String value) throws IOException {
+        if (value == null) {
+            generator.writeNullField(name);
+        } else {
+            generator.writeStringField(name, value);
+        }
+    }
+
+    private void writeNumber(String name, Number value) throws IOException {
+        if (value == null) {
+            generator.writeNullField(name);
+        } else {
+            generator.writeNumberField(name, value.longValue());
+        }
+    }
+}
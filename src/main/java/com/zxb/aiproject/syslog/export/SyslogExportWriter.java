@@ -0,0 +1,118 @@
+package com.zxb.aiproject.syslog.export;
+
+import com.zxb.aiproject.entity.SyslogEntry;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Syslog导出写出器
+ * 逐行写入输出流，不在内存中保留已写出的行；finish 写出尾部但不关闭底层输出流，close 释放临时资源。
+ */
+public abstract class SyslogExportWriter implements Closeable {
+
+    static final String[] HEADERS = {"ID", "接收时间", "事件时间", "来源IP", "主机名", "设备类型",
+            "Facility", "严重级别", "日志内容", "匹配规则", "匹配事件", "是否告警",
+            "重复次数", "最后出现时间"};
+
+    static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    /**
+     * 按格式创建写出器
+     * @param format csv / ndjson / xlsx
+     */
+    public static SyslogExportWriter create(String format, OutputStream out) throws IOException {
+        switch (normalizeFormat(format)) {
+            case "csv":
+                return new CsvSyslogExportWriter(out);
+            case "ndjson":
+                return new NdjsonSyslogExportWriter(out);
+            case "xlsx":
+                return new XlsxSyslogExportWriter(out);
+            default:
+                throw new IllegalArgumentException("不支持的导出格式: " + format);
+        }
+    }
+
+    /**
+     * 格式名统一为小写，空值默认 csv
+     */
+    public static String normalizeFormat(String format) {
+        return format == null || format.trim().isEmpty() ? "csv" : format.trim().toLowerCase();
+    }
+
+    public static String contentType(String format) {
+        switch (normalizeFormat(format)) {
+            case "ndjson":
+                return "application/x-ndjson;charset=UTF-8";
+            case "xlsx":
+                return "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+            default:
+                return "text/csv;charset=UTF-8";
+        }
+    }
+
+    /**
+     * 写出一行
+     */
+    public abstract void write(SyslogEntry entry) throws IOException;
+
+    /**
+     * 写出尾部并刷新缓冲
+     */
+    public abstract void finish() throws IOException;
+
+    @Override
+    public void close() throws IOException {
+    }
+
+    static String formatTime(LocalDateTime time) {
+        return time == null ? "" : time.format(TIME_FORMAT);
+    }
+
+    static String severityName(Integer severity) {
+        if (severity == null) {
+            return "";
+        }
+        switch (severity) {
+            case 0: return "紧急";
+            case 1: return "告警";
+            case 2: return "严重";
+            case 3: return "错误";
+            case 4: return "警告";
+            case 5: return "通知";
+            case 6: return "信息";
+            case 7: return "调试";
+            default: return String.valueOf(severity);
+        }
+    }
+
+    /**
+     * 按表头顺序取出一行的文本值
+     */
+    static String[] toRow(SyslogEntry entry) {
+        return new String[]{
+                entry.getId() == null ? "" : String.valueOf(entry.getId()),
+                formatTime(entry.getReceivedAt()),
+                formatTime(entry.getEventTime()),
+                nullToEmpty(entry.getSourceIp()),
+                nullToEmpty(entry.getHostname()),
+                nullToEmpty(entry.getDeviceType()),
+                entry.getFacility() == null ? "" : String.valueOf(entry.getFacility()),
+                severityName(entry.getSeverity()),
+                nullToEmpty(entry.getMessage()),
+                nullToEmpty(entry.getRuleName()),
+                nullToEmpty(entry.getEventName()),
+                Boolean.TRUE.equals(entry.getIsAlert()) ? "是" : "否",
+                entry.getRepeatCount() == null ? "1" : String.valueOf(entry.getRepeatCount()),
+                formatTime(entry.getLastSeenAt())
+        };
+    }
+
+    static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+}
@@ -0,0 +1,79 @@
+package com.zxb.aiproject.syslog.export;
+
+import com.zxb.aiproject.entity.SyslogEntry;
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * XLSX导出：SXSSF 只在内存中保留最近 ROW_WINDOW 行，其余行写入压缩临时文件，finish 时整体写出。
+ * 单个工作表写满 Excel 行数上限后自动换到下一个工作表。
+ */
+final class XlsxSyslogExportWriter extends SyslogExportWriter {
+
+    private static final int ROW_WINDOW = 100;
+
+    private static final int MAX_ROWS_PER_SHEET = SpreadsheetVersion.EXCEL2007.getMaxRows();
+
+    private static final int MAX_CELL_LENGTH = SpreadsheetVersion.EXCEL2007.getMaxTextLength();
+
+    private final OutputStream out;
+
+    private final SXSSFWorkbook workbook;
+
+    private SXSSFSheet sheet;
+
+    private int sheetCount;
+
+    private int rowIndex;
+
+    XlsxSyslogExportWriter(OutputStream out) {
+        this.out = out;
+        this.workbook = new SXSSFWorkbook(ROW_WINDOW);
+        workbook.setCompressTempFiles(true);
+        nextSheet();
+    }
+
+    @Override
+    public void write(SyslogEntry entry) throws IOException {
+        if (rowIndex >= MAX_ROWS_PER_SHEET) {
+            nextSheet();
+        }
+        writeRow(toRow(entry));
+    }
+
+    @Override
+    public void finish() throws IOException {
+        workbook.write(out);
+        out.flush();
+    }
+
+    /**
+     * 删除临时文件；导出中途失败时同样需要调用
+     */
+    @Override
+    public void close() throws IOException {
+        workbook.dispose();
+        workbook.close();
+    }
+
+    private void nextSheet() {
+        sheetCount++;
+        sheet = workbook.createSheet(sheetCount == 1 ? "Syslog日志" : "Syslog日志" + sheetCount);
+        rowIndex = 0;
+        writeRow(HEADERS);
+    }
+
+    private void writeRow(String[] values) {
+        Row row = sheet.createRow(rowIndex++);
+        for (int i = 0; i < values.length; i++) {
+            String value = values[i];
+            // 超过单元格长度上限的内容截断，否则 POI 直接抛异常
+            row.createCell(i).setCellValue(value.length() > MAX_CELL_LENGTH ? value.substring(0, MAX_CELL_LENGTH) : value);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.zxb.aiproject.syslog.forward;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * 转发溢写队列
+ * 报文按 [长度][内容] 追加到分段文件 spill-序号.dat，按序号先进先出读取，读完的分段删除。
+ * 读到正在写的分段时先切换到新分段，保证只读取已关闭的文件。
+ * 进程重启后从头重读未删除的分段，可能重复发送部分报文。
+ */
+final class ForwardSpillQueue {
+
+    private final Path dir;
+
+    private final long maxBytes;
+
+    private final long segmentBytes;
+
+    private final Deque<Path> segments = new ArrayDeque<>();
+
+    private long totalBytes;
+
+    private long nextSeq;
+
+    private DataOutputStream writer;
+
+    private Path writeSegment;
+
+    private long writeSegmentBytes;
+
+    private DataInputStream reader;
+
+    private Path readSegment;
+
+    ForwardSpillQueue(Path dir, long maxBytes, long segmentBytes) {
+        this.dir = dir;
+        this.maxBytes = maxBytes;
+        this.segmentBytes = segmentBytes;
+    }
+
+    /**
+     * 加载目录中上次未发送完的分段
+     */
+    synchronized void open() throws IOException {
+        Files.createDirectories(dir);
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "spill-*.dat")) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        }
+        Collections.sort(files);
+        for (Path file : files) {
+            segments.addLast(file);
+            totalBytes += Files.size(file);
+            nextSeq = Math.max(nextSeq, parseSeq(file) + 1);
+        }
+    }
+
+    /**
+     * 追加一条报文
+     * @return 超过容量上限时返回 false
+     */
+    synchronized boolean append(byte[] message) throws IOException {
+        long size = 4L + message.length;
+        if (totalBytes + size > maxBytes) {
+            return false;
+        }
+        if (writer == null || writeSegmentBytes >= segmentBytes) {
+            rollWriter();
+        }
+        writer.writeInt(message.length);
+        writer.write(message);
+        writeSegmentBytes += size;
+        totalBytes += size;
+        return true;
+    }
+
+    /**
+     * 把写缓冲刷到文件
+     */
+    synchronized void flush() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
+    }
+
+    /**
+     * 按写入顺序取出最多 max 条
+     */
+    synchronized List<byte[]> poll(int max) throws IOException {
+        List<byte[]> messages = new ArrayList<>();
+        while (messages.size() < max && !segments.isEmpty()) {
+            if (reader == null) {
+                if (segments.peekFirst().equals(writeSegment)) {
+                    closeWriter();
+                }
+                readSegment = segments.peekFirst();
+                reader = new DataInputStream(new BufferedInputStream(Files.newInputStream(readSegment), 64 * 1024));
+            }
+            byte[] message = readNext();
+            if (message != null) {
+                messages.add(message);
+                continue;
+            }
+            // 当前分段读完，删除后继续下一个
+            reader.close();
+            reader = null;
+            totalBytes -= Files.size(readSegment);
+            Files.deleteIfExists(readSegment);
+            segments.removeFirst();
+            readSegment = null;
+        }
+        return messages;
+    }
+
+    synchronized boolean isEmpty() {
+        return segments.isEmpty();
+    }
+
+    synchronized long getBytes() {
+        return totalBytes;
+    }
+
+    synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    synchronized void close() throws IOException {
+        closeWriter();
+        if (reader != null) {
+            reader.close();
+            reader = null;
+        }
+    }
+
+    /**
+     * 读取下一条，文件结束或末尾残缺（写入中途崩溃）时返回 null
+     */
+    private byte[] readNext() throws IOException {
+        try {
+            int length = reader.readInt();
+            if (length < 0) {
+                return null;
+            }
+            byte[] message = new byte[length];
+            reader.readFully(message);
+            return message;
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    private void rollWriter() throws IOException {
+        closeWriter();
+        writeSegment = dir.resolve(String.format("spill-%016d.dat", nextSeq++));
+        writer = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(writeSegment), 64 * 1024));
+        writeSegmentBytes = 0;
+        segments.addLast(writeSegment);
+    }
+
+    private void closeWriter() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+            writeSegment = null;
+        }
+    }
+
+    private static long parseSeq(Path file) {
+        String name = file.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(6, name.length() - 4));
+        } catch (RuntimeException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.zxb.aiproject.syslog.forward;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.List;
+
+/**
+ * 转发连接：UDP 每条报文一个数据报（RFC5426），TCP 按 octet-counting 分帧后整批写出再 flush。
+ * 首次发送时建立连接，发送异常后由调用方关闭并重建。
+ */
+final class ForwardTransport implements Closeable {
+
+    static final String PROTOCOL_TCP = "tcp";
+
+    /**
+     * UDP 数据报负载上限
+     */
+    private static final int MAX_DATAGRAM_SIZE = 65507;
+
+    private final boolean tcp;
+
+    private final InetSocketAddress address;
+
+    private final int connectTimeoutMs;
+
+    private DatagramSocket datagramSocket;
+
+    private Socket socket;
+
+    private OutputStream out;
+
+    ForwardTransport(String protocol, String host, int port, int connectTimeoutMs) {
+        this.tcp = PROTOCOL_TCP.equalsIgnoreCase(protocol);
+        this.address = new InetSocketAddress(host, port);
+        this.connectTimeoutMs = connectTimeoutMs;
+    }
+
+    /**
+     * 发送一批报文，任一条失败即抛出异常（整批由调用方重试，TCP下可能重复）
+     */
+    void send(List<byte[]> messages) throws IOException {
+        if (address.isUnresolved()) {
+            throw new IOException("无法解析转发地址: " + address.getHostString());
+        }
+        if (tcp) {
+            sendTcp(messages);
+        } else {
+            sendUdp(messages);
+        }
+    }
+
+    private void sendTcp(List<byte[]> messages) throws IOException {
+        if (socket == null) {
+            Socket s = new Socket();
+            try {
+                s.setTcpNoDelay(true);
+                s.setKeepAlive(true);
+                s.connect(address, connectTimeoutMs);
+            } catch (IOException e) {
+                s.close();
+                throw e;
+            }
+            socket = s;
+            out = new BufferedOutputStream(s.getOutputStream(), 64 * 1024);
+        }
+        for (byte[] message : messages) {
+            out.write(Rfc5424Encoder.frameOctetCounting(message));
+        }
+        out.flush();
+    }
+
+    private void sendUdp(List<byte[]> messages) throws IOException {
+        if (datagramSocket == null) {
+            datagramSocket = new DatagramSocket();
+            datagramSocket.connect(address);
+        }
+        for (byte[] message : messages) {
+            datagramSocket.send(new DatagramPacket(message, Math.min(message.length, MAX_DATAGRAM_SIZE)));
+        }
+    }
+
+    @Override
+    public void close() {
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // 关闭失败无需处理
+            }
+            socket = null;
+            out = null;
+        }
+        if (datagramSocket != null) {
+            datagramSocket.close();
+            datagramSocket = null;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.zxb.aiproject.syslog.forward;
+
+import com.zxb.aiproject.entity.SyslogEntry;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * RFC5424 报文编码
+ * 格式：&lt;PRI&gt;1 TIMESTAMP HOSTNAME APP-NAME PROCID MSGID [origin ip="来源IP"] MSG，
+ * 原始报文的应用名、进程号等在解析时未保留，统一写 NILVALUE。
+ */
+public final class Rfc5424Encoder {
+
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSXXX");
+
+    private static final String NIL = "-";
+
+    private static final int MAX_HOSTNAME_LENGTH = 255;
+
+    /**
+     * 缺失时使用 user.info
+     */
+    private static final int DEFAULT_FACILITY = 1;
+
+    private static final int DEFAULT_SEVERITY = 6;
+
+    private Rfc5424Encoder() {
+    }
+
+    /**
+     * 编码为一条 RFC5424 报文（不含传输层分帧）
+     */
+    public static byte[] encode(SyslogEntry entry) {
+        int facility = entry.getFacility() == null || entry.getFacility() < 0 || entry.getFacility() > 23
+                ? DEFAULT_FACILITY : entry.getFacility();
+        int severity = entry.getSeverity() == null || entry.getSeverity() < 0 || entry.getSeverity() > 7
+                ? DEFAULT_SEVERITY : entry.getSeverity();
+        LocalDateTime time = entry.getEventTime() != null ? entry.getEventTime() : entry.getReceivedAt();
+        String hostname = entry.getHostname() != null && !entry.getHostname().isEmpty()
+                ? entry.getHostname() : entry.getSourceIp();
+
+        StringBuilder sb = new StringBuilder(64 + (entry.getMessage() == null ? 0 : entry.getMessage().length()));
+        sb.append('<').append(facility * 8 + severity).append(">1 ");
+        sb.append(time == null ? NIL : time.atZone(ZoneId.systemDefault()).format(TIMESTAMP)).append(' ');
+        sb.append(headerField(hostname, MAX_HOSTNAME_LENGTH)).append(' ');
+        sb.append(NIL).append(' ').append(NIL).append(' ').append(NIL).append(' ');
+        if (entry.getSourceIp() != null && !entry.getSourceIp().isEmpty()) {
+            sb.append("[origin ip=\"").append(escapeParamValue(entry.getSourceIp())).append("\"]");
+        } else {
+            sb.append(NIL);
+        }
+        if (entry.getMessage() != null && !entry.getMessage().isEmpty()) {
+            sb.append(' ').append(entry.getMessage());
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * TCP octet-counting 分帧（RFC6587）：长度 + 空格 + 报文
+     */
+    public static byte[] frameOctetCounting(byte[] message) {
+        byte[] prefix = (message.length + " ").getBytes(StandardCharsets.US_ASCII);
+        byte[] frame = new byte[prefix.length + message.length];
+        System.arraycopy(prefix, 0, frame, 0, prefix.length);
+        System.arraycopy(message, 0, frame, prefix.length, message.length);
+        return frame;
+    }
+
+    /**
+     * 头部字段只允许可打印ASCII（33~126），空值写 NILVALUE
+     */
+    private static String headerField(String value, int maxLength) {
+        if (value == null || value.isEmpty()) {
+            return NIL;
+        }
+        int length = Math.min(value.length(), maxLength);
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            sb.append(c >= 33 && c <= 126 ? c : '_');
+        }
+        return sb.toString();
+    }
+
+    private static String escapeParamValue(String value) {
+        StringBuilder sb = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\' || c == ']') {
+                sb.append('\\');
+            }
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+}
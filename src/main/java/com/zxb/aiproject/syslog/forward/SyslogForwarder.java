@@ -0,0 +1,348 @@
+package com.zxb.aiproject.syslog.forward;
+
+import com.zxb.aiproject.config.SyslogProperties;
+import com.zxb.aiproject.entity.LogSettings;
+import com.zxb.aiproject.entity.SyslogEntry;
+import com.zxb.aiproject.mapper.LogSettingsMapper;
+import com.zxb.aiproject.syslog.SyslogIngestMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Syslog转发
+ * 入库线程把每批日志编码为 RFC5424 报文后非阻塞放入有界缓冲；缓冲满或磁盘上仍有积压时放入同样大小的溢出交接队列，
+ * 由发送线程写入磁盘，交接队列或溢写也满时丢弃。入库线程不做任何磁盘IO，也不等待溢写文件的锁。
+ * 发送线程按批取出（先缓冲后溢写，保持先后顺序）发往日志设置中的转发目标，失败时断开重连并按指数退避重试同一批。
+ */
+@Slf4j
+@Component
+public class SyslogForwarder {
+
+    @Autowired
+    private SyslogProperties syslogProperties;
+
+    @Autowired
+    private LogSettingsMapper logSettingsMapper;
+
+    @Autowired
+    private SyslogIngestMetrics metrics;
+
+    private BlockingQueue<byte[]> buffer;
+
+    private ForwardSpillQueue spill;
+
+    /**
+     * 缓冲满时交给发送线程溢写的报文
+     */
+    private BlockingQueue<byte[]> overflow;
+
+    /**
+     * 已放入交接队列、尚未写入磁盘的条数
+     */
+    private final AtomicInteger overflowPending = new AtomicInteger();
+
+    /**
+     * 磁盘上是否有积压，只由发送线程更新，入库线程据此判断新报文是否要排在积压之后
+     */
+    private volatile boolean spillBacklog;
+
+    private volatile Target target = Target.DISABLED;
+
+    private volatile boolean running;
+
+    private Thread sender;
+
+    private volatile String lastError;
+
+    /**
+     * 转发目标，取自日志设置
+     */
+    private static final class Target {
+        static final Target DISABLED = new Target(false, null, 0);
+
+        final boolean enabled;
+        final String host;
+        final int port;
+
+        Target(boolean enabled, String host, int port) {
+            this.enabled = enabled;
+            this.host = host;
+            this.port = port;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Target)) {
+                return false;
+            }
+            Target other = (Target) o;
+            return enabled == other.enabled && port == other.port && Objects.equals(host, other.host);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(enabled, host, port);
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        SyslogProperties.Forward config = syslogProperties.getForward();
+        buffer = new ArrayBlockingQueue<>(Math.max(1, config.getBufferCapacity()));
+        overflow = new ArrayBlockingQueue<>(Math.max(1, config.getBufferCapacity()));
+        ForwardSpillQueue queue = new ForwardSpillQueue(Paths.get(config.getSpillDir()).toAbsolutePath(),
+                config.getMaxSpillBytes(), config.getSpillSegmentBytes());
+        try {
+            queue.open();
+            spill = queue;
+            spillBacklog = !queue.isEmpty();
+        } catch (IOException e) {
+            log.error("打开Syslog转发溢写目录失败, 缓冲满时将直接丢弃: {}", e.getMessage());
+        }
+        reloadSettings();
+        running = true;
+        sender = new Thread(this::sendLoop, "syslog-forwarder");
+        sender.setDaemon(true);
+        sender.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (sender != null) {
+            sender.interrupt();
+            try {
+                sender.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // 未发送的缓冲落盘，重启后继续发送
+        List<byte[]> remaining = new ArrayList<>();
+        buffer.drainTo(remaining);
+        overflow.drainTo(remaining);
+        spillAll(remaining);
+        if (spill != null) {
+            try {
+                spill.close();
+            } catch (IOException e) {
+                log.warn("关闭Syslog转发溢写文件失败: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 重新读取日志设置中的转发目标（保存设置后立即调用，另有定时兜底）
+     */
+    @Scheduled(fixedDelay = 30000, initialDelay = 30000)
+    public void reloadSettings() {
+        try {
+            LogSettings settings = logSettingsMapper.selectById(1);
+            Target next = Target.DISABLED;
+            if (settings != null && Boolean.TRUE.equals(settings.getIsForwardEnabled())
+                    && settings.getForwardServerIp() != null && !settings.getForwardServerIp().trim().isEmpty()
+                    && settings.getForwardServerPort() != null && settings.getForwardServerPort() > 0) {
+                next = new Target(true, settings.getForwardServerIp().trim(), settings.getForwardServerPort());
+            }
+            if (!next.equals(target)) {
+                log.info("Syslog转发目标变更: {}", next.enabled ? next.host + ":" + next.port : "关闭");
+                target = next;
+            }
+        } catch (Exception e) {
+            log.warn("读取Syslog转发设置失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 入库线程调用：编码并放入转发缓冲，不阻塞
+     */
+    public void enqueue(List<SyslogEntry> entries) {
+        if (!target.enabled) {
+            return;
+        }
+        long dropped = 0;
+        for (SyslogEntry entry : entries) {
+            byte[] message = Rfc5424Encoder.encode(entry);
+            // 交接队列或磁盘上仍有积压时新报文也排在后面，保持发送顺序
+            if (overflowPending.get() == 0 && !spillBacklog && buffer.offer(message)) {
+                continue;
+            }
+            overflowPending.incrementAndGet();
+            if (!overflow.offer(message)) {
+                overflowPending.decrementAndGet();
+                dropped++;
+            }
+        }
+        if (dropped > 0) {
+            metrics.getForwardDropped().add(dropped);
+        }
+    }
+
+    /**
+     * 内存转发缓冲中待发送条数
+     */
+    public int getBufferDepth() {
+        return buffer == null ? 0 : buffer.size();
+    }
+
+    /**
+     * 转发状态，供监控接口展示
+     */
+    public Map<String, Object> getStats() {
+        Target current = target;
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("forwardEnabled", current.enabled);
+        data.put("forwardTarget", current.enabled ? current.host + ":" + current.port : null);
+        data.put("forwardProtocol", syslogProperties.getForward().getProtocol());
+        data.put("forwardBufferDepth", getBufferDepth());
+        data.put("forwardOverflowDepth", overflow == null ? 0 : overflow.size());
+        data.put("forwardSpillBytes", spill == null ? 0 : spill.getBytes());
+        data.put("forwardSpillSegments", spill == null ? 0 : spill.getSegmentCount());
+        data.put("forwardLastError", lastError);
+        return data;
+    }
+
+    private void spillAll(List<byte[]> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        int spilled = 0;
+        if (spill != null) {
+            try {
+                for (byte[] message : messages) {
+                    if (!spill.append(message)) {
+                        break;
+                    }
+                    spilled++;
+                }
+                spill.flush();
+            } catch (IOException e) {
+                log.warn("Syslog转发溢写失败: {}", e.getMessage());
+            }
+        }
+        metrics.getForwardSpilled().add(spilled);
+        metrics.getForwardDropped().add(messages.size() - spilled);
+    }
+
+    /**
+     * 发送线程把交接队列中的报文写入磁盘
+     */
+    private void spillOverflow() {
+        List<byte[]> messages = new ArrayList<>();
+        overflow.drainTo(messages);
+        if (messages.isEmpty()) {
+            return;
+        }
+        spillAll(messages);
+        // 先标记磁盘积压再减少待溢写条数，入库线程不会在两者之间把新报文放进缓冲
+        spillBacklog = spill != null && !spill.isEmpty();
+        overflowPending.addAndGet(-messages.size());
+    }
+
+    private void sendLoop() {
+        SyslogProperties.Forward config = syslogProperties.getForward();
+        int batchSize = Math.max(1, config.getBatchSize());
+        long maxBackoff = Math.max(100L, config.getMaxReconnectBackoffMs());
+        long backoff = 100L;
+        ForwardTransport transport = null;
+        Target connected = null;
+        List<byte[]> inflight = new ArrayList<>(batchSize);
+
+        while (running) {
+            try {
+                spillOverflow();
+                Target current = target;
+                if (!current.enabled) {
+                    if (transport != null) {
+                        transport.close();
+                        transport = null;
+                    }
+                    TimeUnit.SECONDS.sleep(1);
+                    continue;
+                }
+                if (transport == null || !current.equals(connected)) {
+                    if (transport != null) {
+                        transport.close();
+                    }
+                    transport = new ForwardTransport(config.getProtocol(), current.host, current.port,
+                            config.getConnectTimeoutMs());
+                    connected = current;
+                }
+                if (inflight.isEmpty() && !fill(inflight, batchSize)) {
+                    continue;
+                }
+                try {
+                    transport.send(inflight);
+                    metrics.getForwarded().add(inflight.size());
+                    inflight.clear();
+                    backoff = 100L;
+                } catch (IOException e) {
+                    metrics.getForwardErrors().increment();
+                    lastError = e.getMessage();
+                    log.warn("Syslog转发到 {}:{} 失败, {}ms 后重试: {}", current.host, current.port, backoff, e.getMessage());
+                    transport.close();
+                    transport = null;
+                    backoffWhileSpilling(backoff);
+                    backoff = Math.min(maxBackoff, backoff * 2);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                log.warn("Syslog转发线程异常: {}", e.getMessage());
+            }
+        }
+        if (transport != null) {
+            transport.close();
+        }
+        // 退出时未发出的一批放回磁盘
+        spillAll(inflight);
+    }
+
+    /**
+     * 退避等待期间仍定时溢写交接队列，避免目标长时间不可用时交接队列满而丢弃
+     */
+    private void backoffWhileSpilling(long millis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + millis;
+        for (long remaining = millis; remaining > 0; remaining = deadline - System.currentTimeMillis()) {
+            TimeUnit.MILLISECONDS.sleep(Math.min(remaining, 200L));
+            spillOverflow();
+        }
+    }
+
+    /**
+     * 取下一批：缓冲中的报文早于磁盘积压，先取缓冲
+     * @return 是否取到报文
+     */
+    private boolean fill(List<byte[]> batch, int batchSize) throws InterruptedException, IOException {
+        buffer.drainTo(batch, batchSize);
+        if (batch.isEmpty() && spill != null && !spill.isEmpty()) {
+            batch.addAll(spill.poll(batchSize));
+            spillBacklog = !spill.isEmpty();
+        }
+        if (batch.isEmpty()) {
+            byte[] next = buffer.poll(200, TimeUnit.MILLISECONDS);
+            if (next != null) {
+                batch.add(next);
+                buffer.drainTo(batch, batchSize - 1);
+            }
+        }
+        return !batch.isEmpty();
+    }
+}
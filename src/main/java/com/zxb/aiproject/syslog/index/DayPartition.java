@@ -0,0 +1,462 @@
+package com.zxb.aiproject.syslog.index;
+
+import com.zxb.aiproject.entity.SyslogEntry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 单日索引分区
+ * 新日志先写入内存缓冲，定期刷成不可变段文件；段数过多时合并为一个段。
+ * 查询时合并内存缓冲与所有段的结果。
+ */
+@Slf4j
+final class DayPartition {
+
+    private final LocalDate day;
+
+    private final Path dir;
+
+    /**
+     * 保护段列表：查询读段时持读锁，刷盘/合并替换段列表时持写锁
+     */
+    private final ReentrantReadWriteLock segmentLock = new ReentrantReadWriteLock();
+
+    private final List<IndexSegment> segments = new ArrayList<>();
+
+    private Map<String, IdBuffer> buffer = new HashMap<>();
+
+    /**
+     * 正在刷盘的缓冲，刷盘完成前仍参与查询
+     */
+    private Map<String, IdBuffer> flushing = Collections.emptyMap();
+
+    private int bufferedDocs;
+
+    private int nextSegmentSeq;
+
+    DayPartition(LocalDate day, Path dir) {
+        this.day = day;
+        this.dir = dir;
+    }
+
+    /**
+     * 加载目录中已有的段文件，清理未完成的临时文件
+     */
+    void load() throws IOException {
+        Files.createDirectories(dir);
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+            for (Path file : stream) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(".idx")) {
+                    files.add(file);
+                } else if (name.endsWith(".tmp") || name.endsWith(".blob")) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+        Collections.sort(files);
+        for (Path file : files) {
+            segments.add(IndexSegment.open(file));
+            nextSegmentSeq = Math.max(nextSegmentSeq, parseSeq(file) + 1);
+        }
+    }
+
+    LocalDate getDay() {
+        return day;
+    }
+
+    Path getDir() {
+        return dir;
+    }
+
+    synchronized void add(SyslogEntry entry) {
+        long id = entry.getId();
+        SyslogTokenizer.tokenizeMessage(entry.getMessage(), term -> append(term, id));
+        SyslogTokenizer.tokenizeGrams(entry.getSourceIp(), term -> append(term, id));
+        SyslogTokenizer.tokenizeGrams(entry.getHostname(), term -> append(term, id));
+        bufferedDocs++;
+    }
+
+    synchronized int getBufferedDocs() {
+        return bufferedDocs;
+    }
+
+    /**
+     * 把内存缓冲写成一个新段
+     */
+    void flush() throws IOException {
+        Map<String, IdBuffer> toFlush;
+        int docs;
+        int seq;
+        synchronized (this) {
+            if (bufferedDocs == 0) {
+                return;
+            }
+            toFlush = buffer;
+            docs = bufferedDocs;
+            flushing = toFlush;
+            buffer = new HashMap<>();
+            bufferedDocs = 0;
+            seq = nextSegmentSeq++;
+        }
+        try {
+            List<String> terms = new ArrayList<>(toFlush.keySet());
+            Collections.sort(terms);
+            Iterator<String> it = terms.iterator();
+            Path file = dir.resolve(String.format("seg-%06d.idx", seq));
+            IndexSegment.write(file, new Iterator<IndexSegment.TermPostings>() {
+                @Override
+                public boolean hasNext() {
+                    return it.hasNext();
+                }
+
+                @Override
+                public IndexSegment.TermPostings next() {
+                    String term = it.next();
+                    return new IndexSegment.TermPostings(term, toFlush.get(term).toSortedArray());
+                }
+            }, docs);
+            IndexSegment segment = IndexSegment.open(file);
+            segmentLock.writeLock().lock();
+            try {
+                segments.add(segment);
+            } finally {
+                segmentLock.writeLock().unlock();
+            }
+        } catch (IOException e) {
+            // 写段失败时把缓冲放回，下次刷盘重试
+            synchronized (this) {
+                for (Map.Entry<String, IdBuffer> item : toFlush.entrySet()) {
+                    buffer.computeIfAbsent(item.getKey(), k -> new IdBuffer()).addAll(item.getValue());
+                }
+                bufferedDocs += docs;
+            }
+            throw e;
+        } finally {
+            synchronized (this) {
+                flushing = Collections.emptyMap();
+            }
+        }
+    }
+
+    int getSegmentCount() {
+        segmentLock.readLock().lock();
+        try {
+            return segments.size();
+        } finally {
+            segmentLock.readLock().unlock();
+        }
+    }
+
+    long getSizeInBytes() {
+        segmentLock.readLock().lock();
+        try {
+            long size = 0;
+            for (IndexSegment segment : segments) {
+                size += segment.getSizeInBytes();
+            }
+            return size;
+        } catch (IOException e) {
+            return -1;
+        } finally {
+            segmentLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 把所有段合并为一个段（多路归并词典，逐词项合并倒排表）
+     */
+    void compact() throws IOException {
+        List<IndexSegment> sources;
+        int seq;
+        segmentLock.readLock().lock();
+        try {
+            if (segments.size() < 2) {
+                return;
+            }
+            sources = new ArrayList<>(segments);
+        } finally {
+            segmentLock.readLock().unlock();
+        }
+        synchronized (this) {
+            seq = nextSegmentSeq++;
+        }
+        int docs = 0;
+        for (IndexSegment segment : sources) {
+            docs += segment.getDocCount();
+        }
+        Path file = dir.resolve(String.format("seg-%06d.idx", seq));
+        IndexSegment.write(file, new MergeIterator(sources), docs);
+        IndexSegment merged = IndexSegment.open(file);
+
+        segmentLock.writeLock().lock();
+        try {
+            segments.removeAll(sources);
+            segments.add(merged);
+            for (IndexSegment source : sources) {
+                source.close();
+                Files.deleteIfExists(source.getPath());
+            }
+        } finally {
+            segmentLock.writeLock().unlock();
+        }
+        log.info("索引分区 {} 合并完成: {} 个段 -> 1 个段, {} 条日志", day, sources.size(), docs);
+    }
+
+    /**
+     * 精确词项的ID集合
+     */
+    long[] lookup(String term) throws IOException {
+        long[] result = bufferedIds(Collections.singletonList(term));
+        segmentLock.readLock().lock();
+        try {
+            for (IndexSegment segment : segments) {
+                result = PostingCodec.union(result, segment.postings(term));
+            }
+        } finally {
+            segmentLock.readLock().unlock();
+        }
+        return result;
+    }
+
+    /**
+     * 按查询词项的匹配方式展开后的ID集合；按前缀、后缀或包含匹配时，含超长词（未进词典）的日志也作为候选
+     * @return 展开的词项数超过 maxTerms 时返回 null
+     */
+    long[] lookup(SyslogTokenizer.QueryTerm term, int maxTerms) throws IOException {
+        long[] ids;
+        switch (term.getMatch()) {
+            case EXACT:
+                return lookup(term.getToken());
+            case PREFIX:
+                ids = lookupPrefix(term.getToken(), maxTerms);
+                break;
+            default:
+                ids = lookupScan(term.getMatch(), term.getToken(), maxTerms);
+                break;
+        }
+        return ids == null ? null : PostingCodec.union(ids, lookup(SyslogTokenizer.LONG_TOKEN_TERM));
+    }
+
+    /**
+     * 前缀展开后的ID集合
+     * @return 展开的词项数超过 maxTerms 时返回 null
+     */
+    long[] lookupPrefix(String prefix, int maxTerms) throws IOException {
+        List<String> bufferTerms = collectBufferTerms(SyslogTokenizer.TermMatch.PREFIX, prefix, maxTerms);
+        if (bufferTerms == null) {
+            return null;
+        }
+        long[] result = bufferedIds(bufferTerms);
+        segmentLock.readLock().lock();
+        try {
+            for (IndexSegment segment : segments) {
+                int[] range = segment.prefixRange(prefix);
+                if (range[1] - range[0] > maxTerms) {
+                    return null;
+                }
+                for (int i = range[0]; i < range[1]; i++) {
+                    result = PostingCodec.union(result, segment.read(i));
+                }
+            }
+        } finally {
+            segmentLock.readLock().unlock();
+        }
+        return result;
+    }
+
+    /**
+     * 逐个检查词典中的消息词项（后缀、包含匹配无法利用词典顺序）
+     * @return 展开的词项数超过 maxTerms 时返回 null
+     */
+    private long[] lookupScan(SyslogTokenizer.TermMatch match, String token, int maxTerms) throws IOException {
+        List<String> bufferTerms = collectBufferTerms(match, token, maxTerms);
+        if (bufferTerms == null) {
+            return null;
+        }
+        long[] result = bufferedIds(bufferTerms);
+        segmentLock.readLock().lock();
+        try {
+            for (IndexSegment segment : segments) {
+                int matched = 0;
+                for (int i = 0; i < segment.getTermCount(); i++) {
+                    String term = segment.termAt(i);
+                    if (isMessageTerm(term) && match.matches(term, token)) {
+                        if (++matched > maxTerms) {
+                            return null;
+                        }
+                        result = PostingCodec.union(result, segment.read(i));
+                    }
+                }
+            }
+        } finally {
+            segmentLock.readLock().unlock();
+        }
+        return result;
+    }
+
+    /**
+     * 内存缓冲中匹配的消息词项
+     * @return 超过 maxTerms 时返回 null
+     */
+    private synchronized List<String> collectBufferTerms(SyslogTokenizer.TermMatch match, String token,
+                                                         int maxTerms) {
+        Set<String> terms = new HashSet<>();
+        for (Map<String, IdBuffer> map : Arrays.asList(buffer, flushing)) {
+            for (String term : map.keySet()) {
+                if (isMessageTerm(term) && match.matches(term, token) && terms.add(term) && terms.size() > maxTerms) {
+                    return null;
+                }
+            }
+        }
+        return new ArrayList<>(terms);
+    }
+
+    /**
+     * IP/主机名三元组与超长词标记以控制字符开头，不参与消息词展开
+     */
+    private static boolean isMessageTerm(String term) {
+        return term.isEmpty() || term.charAt(0) > SyslogTokenizer.LONG_TOKEN_TERM.charAt(0);
+    }
+
+    void close() {
+        segmentLock.writeLock().lock();
+        try {
+            for (IndexSegment segment : segments) {
+                try {
+                    segment.close();
+                } catch (IOException e) {
+                    log.warn("关闭索引段失败: {}", segment.getPath());
+                }
+            }
+            segments.clear();
+        } finally {
+            segmentLock.writeLock().unlock();
+        }
+    }
+
+    private void append(String term, long id) {
+        buffer.computeIfAbsent(term, k -> new IdBuffer()).add(id);
+    }
+
+    private synchronized long[] bufferedIds(List<String> terms) {
+        IdBuffer merged = new IdBuffer();
+        for (String term : terms) {
+            IdBuffer ids = buffer.get(term);
+            if (ids != null) {
+                merged.addAll(ids);
+            }
+            ids = flushing.get(term);
+            if (ids != null) {
+                merged.addAll(ids);
+            }
+        }
+        return merged.toSortedArray();
+    }
+
+    private static int parseSeq(Path file) {
+        String name = file.getFileName().toString();
+        try {
+            return Integer.parseInt(name.substring(4, name.length() - 4));
+        } catch (RuntimeException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * 可增长的ID数组
+     */
+    static final class IdBuffer {
+        private long[] ids = new long[4];
+        private int size;
+
+        void add(long id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+
+        void addAll(IdBuffer other) {
+            if (size + other.size > ids.length) {
+                ids = Arrays.copyOf(ids, Math.max(ids.length * 2, size + other.size));
+            }
+            System.arraycopy(other.ids, 0, ids, size, other.size);
+            size += other.size;
+        }
+
+        long[] toSortedArray() {
+            long[] copy = Arrays.copyOf(ids, size);
+            return Arrays.copyOf(copy, PostingCodec.sortUnique(copy, size));
+        }
+    }
+
+    /**
+     * 多个段按词项升序归并
+     */
+    private static final class MergeIterator implements Iterator<IndexSegment.TermPostings> {
+        private final List<IndexSegment> sources;
+        private final int[] positions;
+
+        MergeIterator(List<IndexSegment> sources) {
+            this.sources = sources;
+            this.positions = new int[sources.size()];
+        }
+
+        @Override
+        public boolean hasNext() {
+            for (int i = 0; i < sources.size(); i++) {
+                if (positions[i] < sources.get(i).getTermCount()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public IndexSegment.TermPostings next() {
+            String smallest = null;
+            for (int i = 0; i < sources.size(); i++) {
+                if (positions[i] < sources.get(i).getTermCount()) {
+                    String term = sources.get(i).termAt(positions[i]);
+                    if (smallest == null || term.compareTo(smallest) < 0) {
+                        smallest = term;
+                    }
+                }
+            }
+            if (smallest == null) {
+                throw new NoSuchElementException();
+            }
+            long[] ids = null;
+            try {
+                for (int i = 0; i < sources.size(); i++) {
+                    IndexSegment segment = sources.get(i);
+                    if (positions[i] < segment.getTermCount() && segment.termAt(positions[i]).equals(smallest)) {
+                        ids = PostingCodec.union(ids, segment.read(positions[i]));
+                        positions[i]++;
+                    }
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("读取索引段失败: " + e.getMessage(), e);
+            }
+            return new IndexSegment.TermPostings(smallest, ids);
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package com.zxb.aiproject.syslog.index;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * 不可变索引段文件
+ * 文件布局：头部 | 词典（按词项升序：词项、ID数、倒排表偏移、倒排表长度）| 倒排表数据。
+ * 打开后词典常驻内存，倒排表按需从磁盘定位读取。
+ */
+public final class IndexSegment implements Closeable {
+
+    private static final int MAGIC = 0x534C4958;
+
+    private static final int VERSION = 1;
+
+    private final Path path;
+
+    private final FileChannel channel;
+
+    private final long blobStart;
+
+    private final String[] terms;
+
+    private final int[] counts;
+
+    private final long[] offsets;
+
+    private final int[] lengths;
+
+    private final int docCount;
+
+    private final long minId;
+
+    private final long maxId;
+
+    private IndexSegment(Path path, FileChannel channel, long blobStart, String[] terms, int[] counts,
+                         long[] offsets, int[] lengths, int docCount, long minId, long maxId) {
+        this.path = path;
+        this.channel = channel;
+        this.blobStart = blobStart;
+        this.terms = terms;
+        this.counts = counts;
+        this.offsets = offsets;
+        this.lengths = lengths;
+        this.docCount = docCount;
+        this.minId = minId;
+        this.maxId = maxId;
+    }
+
+    /**
+     * 一个词项及其升序去重后的ID
+     */
+    public static final class TermPostings {
+        final String term;
+        final long[] ids;
+
+        public TermPostings(String term, long[] ids) {
+            this.term = term;
+            this.ids = ids;
+        }
+    }
+
+    /**
+     * 写入段文件：倒排表先写临时文件，词典确定后再拼接，最后原子改名
+     * @param postings 按词项升序迭代
+     */
+    public static void write(Path target, Iterator<TermPostings> postings, int docCount) throws IOException {
+        Path blobFile = target.resolveSibling(target.getFileName() + ".blob");
+        Path tmpFile = target.resolveSibling(target.getFileName() + ".tmp");
+        List<String> terms = new ArrayList<>();
+        List<int[]> meta = new ArrayList<>();
+        List<Long> offsets = new ArrayList<>();
+        long blobLength = 0;
+        long minId = Long.MAX_VALUE;
+        long maxId = 0;
+        try (OutputStream blob = new BufferedOutputStream(Files.newOutputStream(blobFile))) {
+            while (postings.hasNext()) {
+                TermPostings tp = postings.next();
+                if (tp.ids.length == 0) {
+                    continue;
+                }
+                byte[] encoded = PostingCodec.encode(tp.ids, tp.ids.length);
+                blob.write(encoded);
+                terms.add(tp.term);
+                meta.add(new int[]{tp.ids.length, encoded.length});
+                offsets.add(blobLength);
+                blobLength += encoded.length;
+                minId = Math.min(minId, tp.ids[0]);
+                maxId = Math.max(maxId, tp.ids[tp.ids.length - 1]);
+            }
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(docCount);
+            out.writeLong(terms.isEmpty() ? 0 : minId);
+            out.writeLong(maxId);
+            out.writeInt(terms.size());
+            out.writeLong(blobLength);
+            for (int i = 0; i < terms.size(); i++) {
+                out.writeUTF(terms.get(i));
+                out.writeInt(meta.get(i)[0]);
+                out.writeLong(offsets.get(i));
+                out.writeInt(meta.get(i)[1]);
+            }
+            Files.copy(blobFile, out);
+        } finally {
+            Files.deleteIfExists(blobFile);
+        }
+        Files.move(tmpFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static IndexSegment open(Path path) throws IOException {
+        String[] terms;
+        int[] counts;
+        long[] offsets;
+        int[] lengths;
+        int docCount;
+        long minId;
+        long maxId;
+        long blobLength;
+        try (InputStream in = Files.newInputStream(path);
+             DataInputStream data = new DataInputStream(new BufferedInputStream(in))) {
+            if (data.readInt() != MAGIC || data.readInt() != VERSION) {
+                throw new IOException("索引段格式不正确: " + path);
+            }
+            docCount = data.readInt();
+            minId = data.readLong();
+            maxId = data.readLong();
+            int termCount = data.readInt();
+            blobLength = data.readLong();
+            terms = new String[termCount];
+            counts = new int[termCount];
+            offsets = new long[termCount];
+            lengths = new int[termCount];
+            for (int i = 0; i < termCount; i++) {
+                terms[i] = data.readUTF();
+                counts[i] = data.readInt();
+                offsets[i] = data.readLong();
+                lengths[i] = data.readInt();
+            }
+        }
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        long blobStart = channel.size() - blobLength;
+        return new IndexSegment(path, channel, blobStart, terms, counts, offsets, lengths, docCount, minId, maxId);
+    }
+
+    /**
+     * 精确词项的倒排表
+     */
+    public long[] postings(String term) throws IOException {
+        int idx = Arrays.binarySearch(terms, term);
+        return idx >= 0 ? read(idx) : null;
+    }
+
+    /**
+     * 以 prefix 开头的词项在词典中的下标区间 [from, to)
+     */
+    public int[] prefixRange(String prefix) {
+        int from = Arrays.binarySearch(terms, prefix);
+        if (from < 0) {
+            from = -from - 1;
+        }
+        int to = from;
+        while (to < terms.length && terms[to].startsWith(prefix)) {
+            to++;
+        }
+        return new int[]{from, to};
+    }
+
+    public String termAt(int idx) {
+        return terms[idx];
+    }
+
+    public int getTermCount() {
+        return terms.length;
+    }
+
+    public int getDocCount() {
+        return docCount;
+    }
+
+    public long getMinId() {
+        return minId;
+    }
+
+    public long getMaxId() {
+        return maxId;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public long getSizeInBytes() throws IOException {
+        return channel.size();
+    }
+
+    public long[] read(int idx) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(lengths[idx]);
+        long position = blobStart + offsets[idx];
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, position + buffer.position());
+            if (n < 0) {
+                throw new IOException("索引段已截断: " + path);
+            }
+        }
+        buffer.flip();
+        return PostingCodec.decode(buffer, counts[idx]);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
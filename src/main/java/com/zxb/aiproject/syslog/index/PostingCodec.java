@@ -0,0 +1,124 @@
+package com.zxb.aiproject.syslog.index;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * 倒排表编码：升序ID取差值后按 varint 写入（每字节7位，最高位表示后续还有字节）
+ * 同一天的日志ID基本连续，差值多为1~2字节。
+ */
+public final class PostingCodec {
+
+    private static final long[] EMPTY = new long[0];
+
+    private PostingCodec() {
+    }
+
+    public static byte[] encode(long[] sortedIds, int count) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(count * 2 + 8);
+        long previous = 0;
+        for (int i = 0; i < count; i++) {
+            long delta = sortedIds[i] - previous;
+            previous = sortedIds[i];
+            while ((delta & ~0x7FL) != 0) {
+                out.write((int) ((delta & 0x7F) | 0x80));
+                delta >>>= 7;
+            }
+            out.write((int) delta);
+        }
+        return out.toByteArray();
+    }
+
+    public static long[] decode(ByteBuffer buffer, int count) {
+        long[] ids = new long[count];
+        long previous = 0;
+        for (int i = 0; i < count; i++) {
+            long delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = buffer.get();
+                delta |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            previous += delta;
+            ids[i] = previous;
+        }
+        return ids;
+    }
+
+    /**
+     * 原地排序去重
+     * @return 去重后的有效长度
+     */
+    public static int sortUnique(long[] ids, int count) {
+        if (count == 0) {
+            return 0;
+        }
+        Arrays.sort(ids, 0, count);
+        int n = 1;
+        for (int i = 1; i < count; i++) {
+            if (ids[i] != ids[n - 1]) {
+                ids[n++] = ids[i];
+            }
+        }
+        return n;
+    }
+
+    /**
+     * 有序集合并集
+     */
+    public static long[] union(long[] a, long[] b) {
+        if (a == null || a.length == 0) {
+            return b == null ? EMPTY : b;
+        }
+        if (b == null || b.length == 0) {
+            return a;
+        }
+        long[] result = new long[a.length + b.length];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < a.length || j < b.length) {
+            long v;
+            if (j >= b.length || (i < a.length && a[i] < b[j])) {
+                v = a[i++];
+            } else if (i >= a.length || b[j] < a[i]) {
+                v = b[j++];
+            } else {
+                v = a[i++];
+                j++;
+            }
+            if (n == 0 || result[n - 1] != v) {
+                result[n++] = v;
+            }
+        }
+        return n == result.length ? result : Arrays.copyOf(result, n);
+    }
+
+    /**
+     * 有序集合交集
+     */
+    public static long[] intersect(long[] a, long[] b) {
+        if (a == null || b == null || a.length == 0 || b.length == 0) {
+            return EMPTY;
+        }
+        long[] result = new long[Math.min(a.length, b.length)];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, n);
+    }
+}
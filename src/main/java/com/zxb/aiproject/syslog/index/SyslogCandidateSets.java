@@ -0,0 +1,97 @@
+package com.zxb.aiproject.syslog.index;
+
+import com.zxb.aiproject.dto.LogQueryDTO;
+import com.zxb.aiproject.mapper.SyslogCandidateMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 关键字查询候选ID暂存
+ * 候选ID超过 inlineLimit 时分批写入暂存表，查询条件改为按候选集ID关联；查询结束后释放。
+ * 暂存表是普通表而不是会话临时表：分页查询、计数与导出的流式读取可能使用连接池中不同的连接。
+ */
+@Slf4j
+@Component
+public class SyslogCandidateSets {
+
+    private static final int INSERT_CHUNK = 1000;
+
+    /**
+     * 超过该时长仍未释放的候选集视为遗留数据
+     */
+    private static final long STALE_MINUTES = 60;
+
+    @Autowired
+    private SyslogCandidateMapper syslogCandidateMapper;
+
+    private volatile boolean available;
+
+    @PostConstruct
+    public void init() {
+        try {
+            syslogCandidateMapper.createTableIfNotExists();
+            available = true;
+        } catch (Exception e) {
+            log.warn("创建候选ID暂存表失败, 候选ID将直接写入查询条件: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 候选ID较多时写入暂存表并设置到查询条件上（清空内联的候选ID）
+     * @param inlineLimit 不超过该数量时仍内联在SQL中
+     */
+    public void attach(LogQueryDTO query, int inlineLimit) {
+        List<Long> ids = query.getCandidateIds();
+        if (!available || ids == null || ids.size() <= inlineLimit) {
+            return;
+        }
+        long setId = ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE);
+        try {
+            for (int from = 0; from < ids.size(); from += INSERT_CHUNK) {
+                syslogCandidateMapper.insertBatch(setId, ids.subList(from, Math.min(ids.size(), from + INSERT_CHUNK)));
+            }
+        } catch (RuntimeException e) {
+            syslogCandidateMapper.deleteSet(setId);
+            throw e;
+        }
+        query.setCandidateSetId(setId);
+        query.setCandidateIds(null);
+    }
+
+    /**
+     * 释放查询使用的候选集
+     */
+    public void release(LogQueryDTO query) {
+        Long setId = query == null ? null : query.getCandidateSetId();
+        if (setId == null) {
+            return;
+        }
+        try {
+            syslogCandidateMapper.deleteSet(setId);
+        } catch (Exception e) {
+            log.warn("释放候选ID暂存失败, 将由定时任务清理: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelay = 600000)
+    public void purgeStale() {
+        if (!available) {
+            return;
+        }
+        try {
+            LocalDateTime before = LocalDateTime.now().minusMinutes(STALE_MINUTES);
+            while (syslogCandidateMapper.deleteCreatedBefore(before, 10000) >= 10000) {
+                // 分批删除，避免长事务
+            }
+        } catch (Exception e) {
+            log.warn("清理候选ID暂存失败: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,462 @@
+package com.zxb.aiproject.syslog.index;
+
+import com.zxb.aiproject.config.SyslogProperties;
+import com.zxb.aiproject.entity.SyslogEntry;
+import com.zxb.aiproject.mapper.SyslogEntryMapper;
+import com.zxb.aiproject.syslog.SyslogPersistListener;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Syslog关键字倒排索引
+ * 入库后按 received_at 所在日期写入对应的天分区；消息按词、来源IP/主机名按三元组建索引，倒排表差值+varint压缩存盘。
+ * 关键字查询先通过索引得到候选ID，再由SQL在候选ID上执行原有的LIKE条件做精确校验。
+ * 索引建立之前入库的历史日志（ID小于 indexedFromId）不在索引中，查询时仍走LIKE；
+ * 索引保留天数可短于日志保留天数，已删除分区覆盖的日志（接收时间早于 droppedBefore）查询时同样走LIKE。
+ */
+@Slf4j
+@Component
+public class SyslogInvertedIndex implements SyslogPersistListener {
+
+    private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private static final String META_FILE = "index.meta";
+
+    /**
+     * 前缀、后缀或包含展开的词项数上限，超过则视为无法用索引判定
+     */
+    private static final int MAX_PREFIX_TERMS = 1000;
+
+    /**
+     * 启动补建时重放的ID余量：崩溃前入库线程可能有已写库但尚未进入索引的批次
+     */
+    private static final long REPLAY_MARGIN = 20000;
+
+    private static final int REPLAY_CHUNK = 5000;
+
+    @Autowired
+    private SyslogProperties syslogProperties;
+
+    @Autowired
+    private SyslogEntryMapper syslogEntryMapper;
+
+    private final ConcurrentSkipListMap<LocalDate, DayPartition> partitions = new ConcurrentSkipListMap<>();
+
+    private final AtomicLong maxSeenId = new AtomicLong();
+
+    private Path rootDir;
+
+    /**
+     * 索引覆盖的起始ID（含）
+     */
+    private volatile long indexedFromId;
+
+    /**
+     * 早于该日期的分区已过期删除（含该日期之后的分区完整），null 表示没有删除过分区
+     */
+    private volatile LocalDate droppedBefore;
+
+    /**
+     * 已刷盘的最大ID，重启时从这里补建
+     */
+    private volatile long indexedUpToId;
+
+    /**
+     * 启动补建完成前不对外提供查询
+     */
+    private volatile boolean ready;
+
+    /**
+     * 索引查询结果
+     */
+    public static final class SearchResult {
+        private final List<Long> candidateIds;
+        private final long indexedFromId;
+        private final LocalDateTime indexedFromTime;
+
+        SearchResult(List<Long> candidateIds, long indexedFromId, LocalDateTime indexedFromTime) {
+            this.candidateIds = candidateIds;
+            this.indexedFromId = indexedFromId;
+            this.indexedFromTime = indexedFromTime;
+        }
+
+        /** 候选ID（升序） */
+        public List<Long> getCandidateIds() {
+            return candidateIds;
+        }
+
+        /** 小于该ID的日志未建索引，需要按原条件扫描 */
+        public long getIndexedFromId() {
+            return indexedFromId;
+        }
+
+        /** 接收时间早于该时间的日志所在分区已过期删除，需要按原条件扫描；null 表示没有删除过分区 */
+        public LocalDateTime getIndexedFromTime() {
+            return indexedFromTime;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!isEnabled()) {
+            return;
+        }
+        try {
+            rootDir = Paths.get(syslogProperties.getIndex().getDir()).toAbsolutePath();
+            Files.createDirectories(rootDir);
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(rootDir, Files::isDirectory)) {
+                for (Path dir : stream) {
+                    LocalDate day = parseDay(dir.getFileName().toString());
+                    if (day != null) {
+                        DayPartition partition = new DayPartition(day, dir);
+                        partition.load();
+                        partitions.put(day, partition);
+                    }
+                }
+            }
+            loadMeta();
+        } catch (Exception e) {
+            log.error("加载Syslog倒排索引失败, 关键字查询将回退为LIKE: {}", e.getMessage());
+            return;
+        }
+        Thread replay = new Thread(this::replay, "syslog-index-replay");
+        replay.setDaemon(true);
+        replay.start();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (rootDir == null) {
+            return;
+        }
+        flush();
+        for (DayPartition partition : partitions.values()) {
+            partition.close();
+        }
+    }
+
+    @Override
+    public void onPersisted(List<SyslogEntry> entries) {
+        if (rootDir == null) {
+            return;
+        }
+        long batchMax = 0;
+        for (SyslogEntry entry : entries) {
+            if (entry.getId() == null) {
+                continue;
+            }
+            partitionOf(entry).add(entry);
+            batchMax = Math.max(batchMax, entry.getId());
+        }
+        maxSeenId.accumulateAndGet(batchMax, Math::max);
+        if (getBufferedDocs() >= syslogProperties.getIndex().getMaxBufferedDocs()) {
+            flush();
+        }
+    }
+
+    /**
+     * 关键字解析为候选ID
+     * @return 无法用索引判定（未就绪、查询词太短、候选过多等）时返回 null，调用方回退为LIKE
+     */
+    public SearchResult search(String keyword, LocalDateTime startTime, LocalDateTime endTime) {
+        if (!ready || keyword == null || keyword.trim().isEmpty()) {
+            return null;
+        }
+        String trimmed = keyword.trim();
+        List<SyslogTokenizer.QueryTerm> terms = SyslogTokenizer.queryMessageTerms(trimmed);
+        List<String> grams = SyslogTokenizer.queryGrams(trimmed.toLowerCase());
+        if (terms.isEmpty() || grams == null) {
+            return null;
+        }
+        int maxCandidates = syslogProperties.getIndex().getMaxCandidates();
+
+        LocalDate dropped = droppedBefore;
+        LocalDate fromDay = startTime == null ? null : startTime.toLocalDate();
+        LocalDate toDay = endTime == null ? null : endTime.toLocalDate();
+        if (dropped != null && toDay != null && toDay.isBefore(dropped)) {
+            // 查询范围全部落在已删除的分区中
+            return null;
+        }
+        long[] candidates = new long[0];
+        try {
+            for (DayPartition partition : partitions.values()) {
+                if ((fromDay != null && partition.getDay().isBefore(fromDay))
+                        || (toDay != null && partition.getDay().isAfter(toDay))) {
+                    continue;
+                }
+                long[] messageIds = null;
+                for (SyslogTokenizer.QueryTerm term : terms) {
+                    long[] ids = partition.lookup(term, MAX_PREFIX_TERMS);
+                    if (ids == null) {
+                        return null;
+                    }
+                    messageIds = messageIds == null ? ids : PostingCodec.intersect(messageIds, ids);
+                    if (messageIds.length == 0) {
+                        break;
+                    }
+                }
+                long[] gramIds = null;
+                for (String gram : grams) {
+                    long[] ids = partition.lookup(gram);
+                    gramIds = gramIds == null ? ids : PostingCodec.intersect(gramIds, ids);
+                    if (gramIds.length == 0) {
+                        break;
+                    }
+                }
+                candidates = PostingCodec.union(candidates, PostingCodec.union(messageIds, gramIds));
+                if (candidates.length > maxCandidates) {
+                    return null;
+                }
+            }
+        } catch (IOException e) {
+            log.warn("倒排索引查询失败, 回退为LIKE: {}", e.getMessage());
+            return null;
+        }
+        List<Long> ids = new ArrayList<>(candidates.length);
+        for (long id : candidates) {
+            ids.add(id);
+        }
+        // 查询范围早于已删除分区时，这部分日志按原条件扫描
+        LocalDateTime indexedFromTime = dropped == null || (fromDay != null && !fromDay.isBefore(dropped))
+                ? null : dropped.atStartOfDay();
+        return new SearchResult(ids, indexedFromId, indexedFromTime);
+    }
+
+    /**
+     * 内存缓冲刷盘，并合并段数过多的分区
+     */
+    @Scheduled(fixedDelayString = "${syslog.index.flush-interval-ms:10000}")
+    public synchronized void flush() {
+        if (rootDir == null) {
+            return;
+        }
+        // 先取水位再刷盘：水位之前已回调的日志都在本次刷出的段中
+        long upTo = maxSeenId.get();
+        boolean ok = true;
+        int maxSegments = Math.max(2, syslogProperties.getIndex().getMaxSegmentsPerDay());
+        for (DayPartition partition : partitions.values()) {
+            try {
+                partition.flush();
+                if (partition.getSegmentCount() > maxSegments) {
+                    partition.compact();
+                }
+            } catch (Exception e) {
+                ok = false;
+                log.error("索引分区 {} 刷盘失败: {}", partition.getDay(), e.getMessage());
+            }
+        }
+        if (ok && ready && upTo > indexedUpToId) {
+            indexedUpToId = upTo;
+            saveMeta();
+        }
+    }
+
+    /**
+     * 删除超过保留天数的分区，并记录删除边界：之后对更早日志的关键字查询按LIKE扫描
+     */
+    @Scheduled(cron = "0 30 2 * * ?")
+    public synchronized void dropExpiredPartitions() {
+        if (rootDir == null) {
+            return;
+        }
+        LocalDate cutoff = LocalDate.now().minusDays(syslogProperties.getIndex().getRetentionDays());
+        List<DayPartition> expired = new ArrayList<>(partitions.headMap(cutoff).values());
+        if (expired.isEmpty()) {
+            return;
+        }
+        // 先推进边界再删除，查询不会在删除过程中漏掉已删除分区中的日志
+        if (droppedBefore == null || droppedBefore.isBefore(cutoff)) {
+            droppedBefore = cutoff;
+            saveMeta();
+        }
+        for (DayPartition partition : expired) {
+            partitions.remove(partition.getDay());
+            partition.close();
+            deleteDirectory(partition.getDir());
+            log.info("已删除过期索引分区: {}", partition.getDay());
+        }
+    }
+
+    /**
+     * 索引状态，供监控接口展示
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("indexEnabled", rootDir != null);
+        data.put("indexReady", ready);
+        data.put("indexPartitions", partitions.size());
+        int segments = 0;
+        long bytes = 0;
+        for (DayPartition partition : partitions.values()) {
+            segments += partition.getSegmentCount();
+            bytes += partition.getSizeInBytes();
+        }
+        data.put("indexSegments", segments);
+        data.put("indexSizeBytes", bytes);
+        data.put("indexBufferedDocs", getBufferedDocs());
+        data.put("indexedFromId", indexedFromId);
+        data.put("indexDroppedBefore", droppedBefore);
+        data.put("indexedUpToId", indexedUpToId);
+        return data;
+    }
+
+    /**
+     * 从上次刷盘位置补建索引（覆盖进程异常退出时内存缓冲中丢失的部分）
+     */
+    private void replay() {
+        try {
+            // 只补建保留期内的日志，查询只落在这些分区；更早的日志按删除边界回退为LIKE
+            LocalDate cutoff = LocalDate.now().minusDays(syslogProperties.getIndex().getRetentionDays());
+            synchronized (this) {
+                if (droppedBefore == null || droppedBefore.isBefore(cutoff)) {
+                    droppedBefore = cutoff;
+                    saveMeta();
+                }
+            }
+            long maxId = syslogEntryMapper.selectMaxId();
+            // 不超过 maxId 的日志都已入库，接收时间不晚于当前（入库时秒级舍入，上界放宽一秒）
+            LocalDateTime since = cutoff.atStartOfDay();
+            LocalDateTime until = LocalDateTime.now().plusSeconds(1);
+            long from = Math.max(indexedFromId - 1, indexedUpToId - REPLAY_MARGIN);
+            long replayed = 0;
+            while (from < maxId) {
+                long to = Math.min(maxId, from + REPLAY_CHUNK);
+                List<SyslogEntry> rows = syslogEntryMapper.selectMatchRange(from, to, since, until);
+                if (!rows.isEmpty()) {
+                    onPersisted(rows);
+                    replayed += rows.size();
+                }
+                from = to;
+            }
+            ready = true;
+            flush();
+            log.info("Syslog倒排索引已就绪: 分区数={}, 补建 {} 条, 覆盖起始ID={}", partitions.size(), replayed, indexedFromId);
+        } catch (Exception e) {
+            log.error("Syslog倒排索引补建失败, 关键字查询将回退为LIKE: {}", e.getMessage());
+        }
+    }
+
+    private DayPartition partitionOf(SyslogEntry entry) {
+        LocalDate day = entry.getReceivedAt() == null ? LocalDate.now() : entry.getReceivedAt().toLocalDate();
+        DayPartition partition = partitions.get(day);
+        if (partition != null) {
+            return partition;
+        }
+        return partitions.computeIfAbsent(day, d -> {
+            DayPartition created = new DayPartition(d, rootDir.resolve(d.format(DAY_FORMAT)));
+            try {
+                created.load();
+            } catch (IOException e) {
+                throw new IllegalStateException("创建索引分区失败: " + e.getMessage(), e);
+            }
+            return created;
+        });
+    }
+
+    private int getBufferedDocs() {
+        int total = 0;
+        for (DayPartition partition : partitions.values()) {
+            total += partition.getBufferedDocs();
+        }
+        return total;
+    }
+
+    /**
+     * 读取元数据；首次建索引时从当前最大ID之后开始覆盖，历史日志不补建
+     */
+    private void loadMeta() throws IOException {
+        Path meta = rootDir.resolve(META_FILE);
+        if (Files.exists(meta)) {
+            Properties props = new Properties();
+            try (InputStream in = Files.newInputStream(meta)) {
+                props.load(in);
+            }
+            indexedFromId = Long.parseLong(props.getProperty("indexedFromId", "1"));
+            indexedUpToId = Long.parseLong(props.getProperty("indexedUpToId", "0"));
+            String dropped = props.getProperty("droppedBefore");
+            if (dropped != null) {
+                droppedBefore = LocalDate.parse(dropped);
+            } else if (!partitions.isEmpty()) {
+                // 早期版本未记录删除边界：以现存最早分区为界，更早的日志按LIKE扫描
+                droppedBefore = partitions.firstKey();
+            }
+        } else {
+            long maxId = syslogEntryMapper.selectMaxId();
+            indexedFromId = maxId + 1;
+            indexedUpToId = maxId;
+            saveMeta();
+        }
+        maxSeenId.set(indexedUpToId);
+    }
+
+    private void saveMeta() {
+        Path meta = rootDir.resolve(META_FILE);
+        Path tmp = rootDir.resolve(META_FILE + ".tmp");
+        Properties props = new Properties();
+        props.setProperty("indexedFromId", String.valueOf(indexedFromId));
+        props.setProperty("indexedUpToId", String.valueOf(indexedUpToId));
+        if (droppedBefore != null) {
+            props.setProperty("droppedBefore", droppedBefore.toString());
+        }
+        try {
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                props.store(out, "syslog inverted index");
+            }
+            Files.move(tmp, meta, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("保存索引元数据失败: {}", e.getMessage());
+        }
+    }
+
+    private boolean isEnabled() {
+        return Boolean.TRUE.equals(syslogProperties.getIndex().getEnabled());
+    }
+
+    private static LocalDate parseDay(String name) {
+        try {
+            return LocalDate.parse(name, DAY_FORMAT);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static void deleteDirectory(Path dir) {
+        try (Stream<Path> walk = Files.walk(dir)) {
+            walk.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.delete(path);
+                } catch (IOException e) {
+                    log.warn("删除索引文件失败: {}", path);
+                }
+            });
+        } catch (IOException e) {
+            log.warn("删除索引目录失败: {}", dir);
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.zxb.aiproject.syslog.index;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 日志分词
+ * 消息按非字母数字字符切词并转小写，中文连续片段输出单字与二元组；
+ * 来源IP、主机名输出三元组（加前缀与消息词区分），以支持子串查询。
+ * 查询词首尾的词可能只是日志中某个词的一部分（LIKE 按子串匹配），按后缀、前缀或包含在词典中展开。
+ */
+public final class SyslogTokenizer {
+
+    /**
+     * IP/主机名 n-gram 词项前缀
+     */
+    public static final char GRAM_PREFIX = '\u0001';
+
+    public static final int GRAM_SIZE = 3;
+
+    /**
+     * 超长词（哈希、Base64等）不建索引
+     */
+    public static final int MAX_TOKEN_LENGTH = 64;
+
+    /**
+     * 含有超长词的日志额外记入该词项：子串查询无法从词典中找到超长词，需把这些日志也作为候选
+     */
+    public static final String LONG_TOKEN_TERM = "\u0002long";
+
+    /**
+     * 查询词项在词典中的匹配方式
+     */
+    public enum TermMatch {
+        /** 完整的词 */
+        EXACT,
+        /** 词的开头（查询词以该词结尾且未遇到分隔符） */
+        PREFIX,
+        /** 词的结尾（查询词以该词开头） */
+        SUFFIX,
+        /** 词的任意部分（查询词只有这一个词且首尾都未遇到分隔符） */
+        INFIX;
+
+        public boolean matches(String term, String token) {
+            switch (this) {
+                case PREFIX:
+                    return term.startsWith(token);
+                case SUFFIX:
+                    return term.endsWith(token);
+                case INFIX:
+                    return term.contains(token);
+                default:
+                    return term.equals(token);
+            }
+        }
+    }
+
+    /**
+     * 查询词项
+     */
+    public static final class QueryTerm {
+        private final String token;
+        private final TermMatch match;
+
+        QueryTerm(String token, TermMatch match) {
+            this.token = token;
+            this.match = match;
+        }
+
+        public String getToken() {
+            return token;
+        }
+
+        public TermMatch getMatch() {
+            return match;
+        }
+    }
+
+    private SyslogTokenizer() {
+    }
+
+    /**
+     * 消息分词
+     */
+    public static void tokenizeMessage(String message, Consumer<String> sink) {
+        if (message == null) {
+            return;
+        }
+        int length = message.length();
+        int i = 0;
+        while (i < length) {
+            char c = message.charAt(i);
+            if (isCjk(c)) {
+                int start = i;
+                while (i < length && isCjk(message.charAt(i))) {
+                    i++;
+                }
+                emitCjk(message, start, i, sink);
+            } else if (Character.isLetterOrDigit(c)) {
+                int start = i;
+                while (i < length && Character.isLetterOrDigit(message.charAt(i)) && !isCjk(message.charAt(i))) {
+                    i++;
+                }
+                if (i - start <= MAX_TOKEN_LENGTH) {
+                    sink.accept(message.substring(start, i).toLowerCase());
+                } else {
+                    sink.accept(LONG_TOKEN_TERM);
+                }
+            } else {
+                i++;
+            }
+        }
+    }
+
+    /**
+     * IP/主机名三元组，不足三个字符的整体作为一个词项
+     */
+    public static void tokenizeGrams(String value, Consumer<String> sink) {
+        if (value == null || value.isEmpty()) {
+            return;
+        }
+        String lower = value.toLowerCase();
+        if (lower.length() < GRAM_SIZE) {
+            sink.accept(GRAM_PREFIX + lower);
+            return;
+        }
+        for (int i = 0; i + GRAM_SIZE <= lower.length(); i++) {
+            sink.accept(GRAM_PREFIX + lower.substring(i, i + GRAM_SIZE));
+        }
+    }
+
+    /**
+     * 查询词的消息词项及匹配方式：紧贴查询词开头的字母数字词按后缀匹配，紧贴结尾的按前缀匹配，两端都紧贴的按包含匹配；
+     * 中文单字与二元组不受位置影响，按完整词项匹配；超长词不参与过滤
+     * @return 词项列表，无法分出词项时返回空列表
+     */
+    public static List<QueryTerm> queryMessageTerms(String keyword) {
+        List<QueryTerm> terms = new ArrayList<>();
+        if (keyword == null) {
+            return terms;
+        }
+        int length = keyword.length();
+        int i = 0;
+        while (i < length) {
+            char c = keyword.charAt(i);
+            if (isCjk(c)) {
+                int start = i;
+                while (i < length && isCjk(keyword.charAt(i))) {
+                    i++;
+                }
+                emitCjk(keyword, start, i, token -> addTerm(terms, token, TermMatch.EXACT));
+            } else if (Character.isLetterOrDigit(c)) {
+                int start = i;
+                while (i < length && Character.isLetterOrDigit(keyword.charAt(i)) && !isCjk(keyword.charAt(i))) {
+                    i++;
+                }
+                if (i - start <= MAX_TOKEN_LENGTH) {
+                    boolean partialStart = start == 0;
+                    boolean partialEnd = i == length;
+                    TermMatch match = partialStart && partialEnd ? TermMatch.INFIX
+                            : partialStart ? TermMatch.SUFFIX
+                            : partialEnd ? TermMatch.PREFIX : TermMatch.EXACT;
+                    addTerm(terms, keyword.substring(start, i).toLowerCase(), match);
+                }
+            } else {
+                i++;
+            }
+        }
+        return terms;
+    }
+
+    private static void addTerm(List<QueryTerm> terms, String token, TermMatch match) {
+        for (QueryTerm term : terms) {
+            if (term.token.equals(token) && term.match == match) {
+                return;
+            }
+        }
+        terms.add(new QueryTerm(token, match));
+    }
+
+    /**
+     * 查询词的IP/主机名三元组
+     * @return 三元组列表，查询词不足三个字符时返回 null（无法用三元组判定子串）
+     */
+    public static List<String> queryGrams(String keyword) {
+        if (keyword == null || keyword.length() < GRAM_SIZE) {
+            return null;
+        }
+        List<String> grams = new ArrayList<>();
+        tokenizeGrams(keyword, gram -> {
+            if (!grams.contains(gram)) {
+                grams.add(gram);
+            }
+        });
+        return grams;
+    }
+
+    private static void emitCjk(String text, int start, int end, Consumer<String> sink) {
+        for (int i = start; i < end; i++) {
+            sink.accept(String.valueOf(text.charAt(i)));
+            if (i + 1 < end) {
+                sink.accept(text.substring(i, i + 2));
+            }
+        }
+    }
+
+    private static boolean isCjk(char c) {
+        return Character.UnicodeScript.of(c) == Character.UnicodeScript.HAN;
+    }
+}
@@ -0,0 +1,123 @@
+package com.zxb.aiproject.syslog.sketch;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * HyperLogLog 基数估计
+ * 2^precision 个寄存器，每个记录落入该桶的哈希值前导零个数的最大值；相对标准误差约 1.04 / sqrt(2^precision)。
+ * 估计值较小时改用线性计数，小基数下误差明显低于标准误差。多个同精度的实例可按寄存器取最大值合并，
+ * 合并结果与把所有元素加入同一个实例完全一致，因此按小时持久化后可以合并出任意时间窗口。
+ * 非线程安全。
+ */
+public final class HyperLogLog {
+
+    private final int precision;
+
+    private final byte[] registers;
+
+    public HyperLogLog(int precision) {
+        if (precision < 4 || precision > 16) {
+            throw new IllegalArgumentException("HyperLogLog精度须在4~16之间: " + precision);
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    private HyperLogLog(int precision, byte[] registers) {
+        this.precision = precision;
+        this.registers = registers;
+    }
+
+    public void add(String value) {
+        addHash(hash64(value));
+    }
+
+    void addHash(long hash) {
+        int index = (int) (hash >>> (64 - precision));
+        // 补一个哨兵位，保证前导零个数有上限
+        long rest = (hash << precision) | (1L << (precision - 1));
+        byte rank = (byte) (Long.numberOfLeadingZeros(rest) + 1);
+        if (rank > registers[index]) {
+            registers[index] = rank;
+        }
+    }
+
+    /**
+     * 合并另一个同精度的实例
+     */
+    public void merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("HyperLogLog精度不一致: " + precision + " / " + other.precision);
+        }
+        for (int i = 0; i < registers.length; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    public long estimate() {
+        int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double alpha = m >= 128 ? 0.7213 / (1 + 1.079 / m) : (m == 64 ? 0.709 : (m == 32 ? 0.697 : 0.673));
+        double raw = alpha * m * m / sum;
+        if (raw <= 2.5 * m && zeros > 0) {
+            return Math.round(m * Math.log((double) m / zeros));
+        }
+        return Math.round(raw);
+    }
+
+    /**
+     * 相对标准误差
+     */
+    public double relativeError() {
+        return 1.04 / Math.sqrt(registers.length);
+    }
+
+    public int getPrecision() {
+        return precision;
+    }
+
+    /**
+     * 序列化：[精度 1字节][寄存器...]
+     */
+    public byte[] toBytes() {
+        byte[] bytes = new byte[registers.length + 1];
+        bytes[0] = (byte) precision;
+        System.arraycopy(registers, 0, bytes, 1, registers.length);
+        return bytes;
+    }
+
+    public static HyperLogLog fromBytes(byte[] bytes) {
+        int precision = bytes[0];
+        if (precision < 4 || precision > 16 || bytes.length != (1 << precision) + 1) {
+            throw new IllegalArgumentException("HyperLogLog数据损坏");
+        }
+        byte[] registers = new byte[1 << precision];
+        System.arraycopy(bytes, 1, registers, 0, registers.length);
+        return new HyperLogLog(precision, registers);
+    }
+
+    /**
+     * 64位哈希：FNV-1a 后再做一次 murmur3 的末尾混合，使各位分布足够均匀
+     */
+    static long hash64(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash = (hash ^ (b & 0xFF)) * 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
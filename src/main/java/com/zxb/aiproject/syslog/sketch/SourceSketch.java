@@ -0,0 +1,110 @@
+package com.zxb.aiproject.syslog.sketch;
+
+import com.zxb.aiproject.entity.SyslogHourlySketch;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 一段时间内的来源概要：来源IP基数（HyperLogLog）与来源IP热点（Space-Saving）
+ * 来源IP为空的日志以空串计入热点，不计入基数。方法都已同步，可被入库线程与刷写线程并发访问。
+ */
+public final class SourceSketch {
+
+    private final HyperLogLog sources;
+
+    private final SpaceSaving topSources;
+
+    private long logCount;
+
+    public SourceSketch(int precision, int capacity) {
+        this(new HyperLogLog(precision), new SpaceSaving(capacity), 0);
+    }
+
+    private SourceSketch(HyperLogLog sources, SpaceSaving topSources, long logCount) {
+        this.sources = sources;
+        this.topSources = topSources;
+        this.logCount = logCount;
+    }
+
+    public synchronized void add(String sourceIp, long weight) {
+        String key = sourceIp == null ? "" : sourceIp;
+        if (!key.isEmpty()) {
+            sources.add(key);
+        }
+        topSources.offer(key, weight);
+        logCount += weight;
+    }
+
+    /**
+     * 只计入基数（重复加入不影响结果），用于补齐无法区分是否已计数的日志
+     */
+    public synchronized void addSource(String sourceIp) {
+        if (sourceIp != null && !sourceIp.isEmpty()) {
+            sources.add(sourceIp);
+        }
+    }
+
+    public void merge(SourceSketch other) {
+        synchronized (this) {
+            synchronized (other) {
+                sources.merge(other.sources);
+                topSources.merge(other.topSources);
+                logCount += other.logCount;
+            }
+        }
+    }
+
+    /**
+     * 精度与容量一致才能合并
+     */
+    public boolean isCompatible(SourceSketch other) {
+        return sources.getPrecision() == other.sources.getPrecision()
+                && topSources.getCapacity() == other.topSources.getCapacity();
+    }
+
+    public synchronized long estimateDistinctSources() {
+        return sources.estimate();
+    }
+
+    public double getDistinctRelativeError() {
+        return sources.relativeError();
+    }
+
+    /**
+     * 计数最大的 n 个来源（来源为空的以空串表示）
+     */
+    public synchronized List<SpaceSaving.Counter> topSources(int n) {
+        return topSources.top(n);
+    }
+
+    /**
+     * 未列出的来源的计数上限
+     */
+    public synchronized long getTopFloor() {
+        return topSources.floor();
+    }
+
+    public int getTopCapacity() {
+        return topSources.getCapacity();
+    }
+
+    public synchronized long getLogCount() {
+        return logCount;
+    }
+
+    public synchronized SyslogHourlySketch toEntity(LocalDateTime statHour) {
+        SyslogHourlySketch entity = new SyslogHourlySketch();
+        entity.setStatHour(statHour);
+        entity.setLogCount(logCount);
+        entity.setSourceHll(sources.toBytes());
+        entity.setTopSources(topSources.toBytes());
+        return entity;
+    }
+
+    public static SourceSketch fromEntity(SyslogHourlySketch entity) {
+        return new SourceSketch(HyperLogLog.fromBytes(entity.getSourceHll()),
+                SpaceSaving.fromBytes(entity.getTopSources()),
+                entity.getLogCount() == null ? 0 : entity.getLogCount());
+    }
+}
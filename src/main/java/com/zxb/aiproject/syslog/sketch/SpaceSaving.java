@@ -0,0 +1,178 @@
+package com.zxb.aiproject.syslog.sketch;
+
+import lombok.Getter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Space-Saving 热点统计（Top N）
+ * 最多跟踪 capacity 个键；表满后新键替换计数最小的键，继承其计数并把它记为误差。
+ * 每个键的计数只会高估，高估量不超过该键的 error；不在表中的键真实计数不超过 floor()。
+ * 真实计数超过 总数/capacity 的键一定在表中。
+ * 同容量的实例可以合并（Agarwal 等的可合并摘要）：不在某一方表中的键按该方的 floor 补齐计数和误差，
+ * 合并后保留计数最大的 capacity 个。
+ * 非线程安全。
+ */
+public final class SpaceSaving {
+
+    private final int capacity;
+
+    private final Map<String, Counter> counters;
+
+    private long total;
+
+    /**
+     * 一个键的计数
+     */
+    @Getter
+    public static final class Counter {
+        private final String key;
+        private long count;
+        private long error;
+
+        Counter(String key, long count, long error) {
+            this.key = key;
+            this.count = count;
+            this.error = error;
+        }
+    }
+
+    public SpaceSaving(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("容量须大于0: " + capacity);
+        }
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 2);
+    }
+
+    public void offer(String key, long weight) {
+        if (weight <= 0) {
+            return;
+        }
+        total += weight;
+        Counter counter = counters.get(key);
+        if (counter != null) {
+            counter.count += weight;
+            return;
+        }
+        if (counters.size() < capacity) {
+            counters.put(key, new Counter(key, weight, 0));
+            return;
+        }
+        // 表满后才需要找最小值；来源数通常远小于容量，这里很少走到
+        Counter min = minCounter();
+        counters.remove(min.key);
+        counters.put(key, new Counter(key, min.count + weight, min.count));
+    }
+
+    /**
+     * 合并另一个同容量的实例
+     */
+    public void merge(SpaceSaving other) {
+        if (other.capacity != capacity) {
+            throw new IllegalArgumentException("Space-Saving容量不一致: " + capacity + " / " + other.capacity);
+        }
+        long floor = floor();
+        long otherFloor = other.floor();
+        Set<String> keys = new HashSet<>(counters.keySet());
+        keys.addAll(other.counters.keySet());
+        List<Counter> merged = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            Counter mine = counters.get(key);
+            Counter theirs = other.counters.get(key);
+            long count = (mine != null ? mine.count : floor) + (theirs != null ? theirs.count : otherFloor);
+            long error = (mine != null ? mine.error : floor) + (theirs != null ? theirs.error : otherFloor);
+            merged.add(new Counter(key, count, error));
+        }
+        if (merged.size() > capacity) {
+            merged.sort(Comparator.comparingLong((Counter c) -> c.count).reversed());
+            merged = merged.subList(0, capacity);
+        }
+        counters.clear();
+        for (Counter counter : merged) {
+            counters.put(counter.key, counter);
+        }
+        total += other.total;
+    }
+
+    /**
+     * 计数最大的 n 个键，按计数降序
+     */
+    public List<Counter> top(int n) {
+        List<Counter> list = new ArrayList<>(counters.values());
+        list.sort(Comparator.comparingLong((Counter c) -> c.count).reversed()
+                .thenComparing(c -> c.key));
+        return new ArrayList<>(list.subList(0, Math.min(list.size(), Math.max(0, n))));
+    }
+
+    /**
+     * 不在表中的键的真实计数上限：表未满时为0，否则为表中最小计数
+     */
+    public long floor() {
+        return counters.size() < capacity ? 0 : minCounter().count;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * 序列化：[容量 int][总数 long][键数 int]，每个键 [键 UTF][计数 long][误差 long]
+     */
+    public byte[] toBytes() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(16 + counters.size() * 32);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(capacity);
+            out.writeLong(total);
+            out.writeInt(counters.size());
+            for (Counter counter : counters.values()) {
+                out.writeUTF(counter.key);
+                out.writeLong(counter.count);
+                out.writeLong(counter.error);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static SpaceSaving fromBytes(byte[] bytes) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            SpaceSaving sketch = new SpaceSaving(in.readInt());
+            sketch.total = in.readLong();
+            int size = in.readInt();
+            for (int i = 0; i < size; i++) {
+                String key = in.readUTF();
+                sketch.counters.put(key, new Counter(key, in.readLong(), in.readLong()));
+            }
+            return sketch;
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Space-Saving数据损坏", e);
+        }
+    }
+
+    private Counter minCounter() {
+        Counter min = null;
+        for (Counter counter : counters.values()) {
+            if (min == null || counter.count < min.count) {
+                min = counter;
+            }
+        }
+        return min;
+    }
+}
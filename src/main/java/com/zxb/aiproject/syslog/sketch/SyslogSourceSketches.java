@@ -0,0 +1,387 @@
+package com.zxb.aiproject.syslog.sketch;
+
+import com.zxb.aiproject.config.SyslogProperties;
+import com.zxb.aiproject.entity.SyslogBackfillProgress;
+import com.zxb.aiproject.entity.SyslogEntry;
+import com.zxb.aiproject.entity.SyslogHourlySketch;
+import com.zxb.aiproject.mapper.SyslogBackfillMapper;
+import com.zxb.aiproject.mapper.SyslogHourlyRollupMapper;
+import com.zxb.aiproject.mapper.SyslogHourlySketchMapper;
+import com.zxb.aiproject.syslog.SyslogHourlyRollup;
+import com.zxb.aiproject.syslog.SyslogPersistListener;
+import com.zxb.aiproject.syslog.SyslogRollupKey;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Syslog来源概要
+ * 入库时按小时维护来源IP的 HyperLogLog 与 Space-Saving，定期与表中已有的小时概要合并后写回 t_log_syslog_hourly_sketch。
+ * 来源数与来源 Top N 按时间窗口合并各小时概要得到，读取量只与小时数有关，与来源数、日志量无关。
+ * 与小时汇总一样，查询在读锁下同时读取概要表与未落库的内存概要，刷写持写锁。
+ * 概要表为空时（首次启用）从小时汇总表按天回填，回填完成前统计查询仍走精确汇总；
+ * 每天回填后记录进度（按小时整行覆盖，重做一天不会重复计数），失败后重试、重启后从中断处继续。
+ */
+@Slf4j
+@Component
+public class SyslogSourceSketches implements SyslogPersistListener {
+
+    private static final long BACKFILL_WAIT_MILLIS = 5000;
+
+    private static final long BACKFILL_RETRY_MILLIS = 60000;
+
+    /**
+     * 回填进度任务名：终点为回填边界小时，游标为下一个待回填日的起始小时（均为秒数），未开始时游标为 0
+     */
+    private static final String BACKFILL_TASK = "source_sketch";
+
+    @Autowired
+    private SyslogProperties syslogProperties;
+
+    @Autowired
+    private SyslogHourlySketchMapper syslogHourlySketchMapper;
+
+    @Autowired
+    private SyslogHourlyRollupMapper syslogHourlyRollupMapper;
+
+    @Autowired
+    private SyslogHourlyRollup syslogHourlyRollup;
+
+    @Autowired
+    private SyslogBackfillMapper syslogBackfillMapper;
+
+    /**
+     * 尚未写入概要表的小时概要
+     */
+    private final ConcurrentHashMap<LocalDateTime, SourceSketch> pending = new ConcurrentHashMap<>();
+
+    /**
+     * 入库线程与查询持读锁，刷写持写锁
+     */
+    private final ReentrantReadWriteLock flushLock = new ReentrantReadWriteLock();
+
+    private final AtomicLong flushedHours = new AtomicLong();
+
+    private final AtomicLong flushFailures = new AtomicLong();
+
+    private volatile boolean ready;
+
+    private volatile boolean backfilled;
+
+    @PostConstruct
+    public void init() {
+        if (!isEnabled()) {
+            return;
+        }
+        LocalDateTime bootHour;
+        LocalDateTime resumeFrom = null;
+        try {
+            syslogHourlySketchMapper.createTableIfNotExists();
+            syslogBackfillMapper.createTableIfNotExists();
+            SyslogBackfillProgress progress = syslogBackfillMapper.selectByTask(BACKFILL_TASK);
+            if (progress != null) {
+                // 上次回填未完成时沿用当时的边界，从中断的那天继续
+                if (progress.getCursorValue() > progress.getTargetValue()) {
+                    bootHour = null;
+                } else {
+                    bootHour = fromSeconds(progress.getTargetValue());
+                    resumeFrom = progress.getCursorValue() == 0 ? null : fromSeconds(progress.getCursorValue());
+                }
+            } else if (syslogHourlySketchMapper.countAny() == 0) {
+                // 在入库管道启动前确定回填边界：此前的小时全部从汇总表回填，当前小时入库后由 onPersisted 计入
+                bootHour = SyslogRollupKey.truncateToHour(LocalDateTime.now());
+                syslogBackfillMapper.save(BACKFILL_TASK, toSeconds(bootHour), 0);
+            } else {
+                bootHour = null;
+            }
+        } catch (Exception e) {
+            log.error("初始化Syslog来源概要失败: {}", e.getMessage());
+            return;
+        }
+        ready = true;
+        if (bootHour == null) {
+            backfilled = true;
+            return;
+        }
+        LocalDateTime from = resumeFrom;
+        Thread backfill = new Thread(() -> backfill(bootHour, from), "syslog-sketch-backfill");
+        backfill.setDaemon(true);
+        backfill.start();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    @Override
+    public void onPersisted(List<SyslogEntry> entries) {
+        if (!ready) {
+            return;
+        }
+        // 先在批内按小时、来源聚合，每个小时概要只加锁一次
+        Map<LocalDateTime, Map<String, Long>> local = new HashMap<>();
+        for (SyslogEntry entry : entries) {
+            if (entry.getReceivedAt() == null) {
+                continue;
+            }
+            local.computeIfAbsent(SyslogRollupKey.truncateToHour(entry.getReceivedAt()), hour -> new HashMap<>())
+                    .merge(entry.getSourceIp() == null ? "" : entry.getSourceIp(),
+                            (long) SyslogHourlyRollup.weight(entry), Long::sum);
+        }
+        flushLock.readLock().lock();
+        try {
+            for (Map.Entry<LocalDateTime, Map<String, Long>> hour : local.entrySet()) {
+                SourceSketch sketch = pendingSketch(hour.getKey());
+                for (Map.Entry<String, Long> source : hour.getValue().entrySet()) {
+                    sketch.add(source.getKey(), source.getValue());
+                }
+            }
+        } finally {
+            flushLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 去重折叠的重复条数写回后，计入首条日志所在小时的来源热点
+     */
+    public void onRepeats(SyslogEntry first, long count) {
+        if (!ready || count <= 0 || first.getReceivedAt() == null) {
+            return;
+        }
+        flushLock.readLock().lock();
+        try {
+            pendingSketch(SyslogRollupKey.truncateToHour(first.getReceivedAt())).add(first.getSourceIp(), count);
+        } finally {
+            flushLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 概要可用于统计查询（已启用且回填完成）
+     */
+    public boolean isAvailable() {
+        return ready && backfilled && isEnabled();
+    }
+
+    /**
+     * 合并时间窗口内各小时的概要：时间范围按整点对齐，两端所在的小时都计入
+     * @return 合并结果；存在精度或容量与当前配置不一致的小时概要时返回 null，由调用方改用精确统计
+     */
+    public SourceSketch read(LocalDateTime startTime, LocalDateTime endTime) {
+        LocalDateTime fromHour = SyslogRollupKey.truncateToHour(startTime);
+        LocalDateTime toHour = SyslogRollupKey.truncateToHour(endTime);
+        SourceSketch merged = newSketch();
+        flushLock.readLock().lock();
+        try {
+            for (SyslogHourlySketch row : syslogHourlySketchMapper.selectRange(fromHour, toHour)) {
+                SourceSketch stored = SourceSketch.fromEntity(row);
+                if (!merged.isCompatible(stored)) {
+                    return null;
+                }
+                merged.merge(stored);
+            }
+            for (Map.Entry<LocalDateTime, SourceSketch> item : pending.entrySet()) {
+                LocalDateTime hour = item.getKey();
+                if (!hour.isBefore(fromHour) && !hour.isAfter(toHour)) {
+                    merged.merge(item.getValue());
+                }
+            }
+        } finally {
+            flushLock.readLock().unlock();
+        }
+        return merged;
+    }
+
+    /**
+     * 把内存概要与表中已有的小时概要合并后写回
+     */
+    @Scheduled(fixedDelayString = "${syslog.sketch.flush-interval-ms:60000}", initialDelay = 60000)
+    public void flush() {
+        if (!ready || pending.isEmpty()) {
+            return;
+        }
+        flushLock.writeLock().lock();
+        try {
+            List<LocalDateTime> hours = new ArrayList<>(pending.keySet());
+            for (LocalDateTime hour : hours) {
+                SourceSketch sketch = pending.get(hour);
+                try {
+                    SyslogHourlySketch row = syslogHourlySketchMapper.selectByHour(hour);
+                    SourceSketch merged = newSketch();
+                    if (row != null) {
+                        SourceSketch stored = SourceSketch.fromEntity(row);
+                        if (merged.isCompatible(stored)) {
+                            merged.merge(stored);
+                        } else {
+                            log.warn("小时 {} 的来源概要精度或容量已变更, 旧概要被覆盖", hour);
+                        }
+                    }
+                    merged.merge(sketch);
+                    syslogHourlySketchMapper.upsert(merged.toEntity(hour));
+                    pending.remove(hour);
+                    flushedHours.incrementAndGet();
+                } catch (Exception e) {
+                    // 未写入的小时留在内存中，下次重试
+                    flushFailures.incrementAndGet();
+                    log.warn("写入Syslog来源概要失败, {} 个小时留待下次重试: {}", pending.size(), e.getMessage());
+                    break;
+                }
+            }
+        } finally {
+            flushLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 清理过期概要，保留期与小时汇总一致
+     */
+    @Scheduled(cron = "0 45 2 * * ?")
+    public void dropExpired() {
+        if (!ready) {
+            return;
+        }
+        try {
+            LocalDateTime before = SyslogRollupKey.truncateToHour(LocalDateTime.now())
+                    .minusDays(Math.max(1, syslogProperties.getRollup().getRetentionDays()));
+            int deleted = syslogHourlySketchMapper.deleteBefore(before);
+            if (deleted > 0) {
+                log.info("清理 {} 之前的Syslog来源概要 {} 行", before, deleted);
+            }
+        } catch (Exception e) {
+            log.warn("清理Syslog来源概要失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 概要状态，供监控接口展示
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("sketchEnabled", ready);
+        data.put("sketchBackfilled", backfilled);
+        data.put("sketchPendingHours", pending.size());
+        data.put("sketchFlushedHours", flushedHours.get());
+        data.put("sketchFlushFailures", flushFailures.get());
+        return data;
+    }
+
+    /**
+     * 从小时汇总表按天回填 bootHour 之前的概要；bootHour 当小时入库前的部分无法与之后的区分，只补入来源基数
+     * @param resumeFrom 上次中断的那天的起始小时，为空时从汇总表最早的小时开始
+     */
+    private void backfill(LocalDateTime bootHour, LocalDateTime resumeFrom) {
+        long start = System.currentTimeMillis();
+        LocalDateTime from = resumeFrom;
+        int hours = 0;
+        try {
+            while (syslogHourlyRollup.isBackfilling()) {
+                Thread.sleep(BACKFILL_WAIT_MILLIS);
+            }
+            while (true) {
+                try {
+                    if (from == null) {
+                        LocalDateTime minHour = syslogHourlyRollupMapper.selectMinHour();
+                        from = minHour == null ? bootHour.plusHours(1) : minHour;
+                    }
+                    if (from.isAfter(bootHour)) {
+                        break;
+                    }
+                    hours += backfillDay(from, bootHour);
+                    from = from.plusDays(1);
+                    syslogBackfillMapper.save(BACKFILL_TASK, toSeconds(bootHour), toSeconds(from));
+                } catch (Exception e) {
+                    log.error("Syslog来源概要回填中断于 {}, {}秒后重试, 来源统计暂用精确汇总: {}",
+                            from, BACKFILL_RETRY_MILLIS / 1000, e.getMessage());
+                    Thread.sleep(BACKFILL_RETRY_MILLIS);
+                }
+            }
+            backfilled = true;
+            syslogBackfillMapper.save(BACKFILL_TASK, toSeconds(bootHour), toSeconds(from));
+            log.info("Syslog来源概要回填完成: {} 个小时, 耗时={}ms", hours, System.currentTimeMillis() - start);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.warn("保存Syslog来源概要回填进度失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 回填从 from 开始的一天（不超过 bootHour），返回写入的小时数
+     */
+    private int backfillDay(LocalDateTime from, LocalDateTime bootHour) {
+        LocalDateTime to = from.plusDays(1).minusHours(1);
+        if (to.isAfter(bootHour)) {
+            to = bootHour;
+        }
+        Map<LocalDateTime, SourceSketch> sketches = new HashMap<>();
+        for (Map<String, Object> row : syslogHourlyRollupMapper.sumByHourAndSource(from, to)) {
+            LocalDateTime hour = toLocalDateTime(row.get("stat_hour"));
+            String sourceIp = (String) row.get("source_ip");
+            long count = row.get("log_count") instanceof Number ? ((Number) row.get("log_count")).longValue() : 0;
+            if (hour == null || count <= 0) {
+                continue;
+            }
+            if (hour.equals(bootHour)) {
+                flushLock.readLock().lock();
+                try {
+                    pendingSketch(hour).addSource(sourceIp);
+                } finally {
+                    flushLock.readLock().unlock();
+                }
+            } else {
+                sketches.computeIfAbsent(hour, h -> newSketch()).add(sourceIp, count);
+            }
+        }
+        for (Map.Entry<LocalDateTime, SourceSketch> item : sketches.entrySet()) {
+            syslogHourlySketchMapper.upsert(item.getValue().toEntity(item.getKey()));
+        }
+        return sketches.size();
+    }
+
+    private SourceSketch pendingSketch(LocalDateTime hour) {
+        return pending.computeIfAbsent(hour, h -> newSketch());
+    }
+
+    private SourceSketch newSketch() {
+        SyslogProperties.Sketch config = syslogProperties.getSketch();
+        return new SourceSketch(config.getHllPrecision(), config.getTopCapacity());
+    }
+
+    private boolean isEnabled() {
+        return Boolean.TRUE.equals(syslogProperties.getSketch().getEnabled());
+    }
+
+    private static long toSeconds(LocalDateTime hour) {
+        return hour.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static LocalDateTime fromSeconds(long seconds) {
+        return LocalDateTime.ofEpochSecond(seconds, 0, ZoneOffset.UTC);
+    }
+
+    private static LocalDateTime toLocalDateTime(Object value) {
+        if (value instanceof LocalDateTime) {
+            return (LocalDateTime) value;
+        }
+        if (value instanceof Timestamp) {
+            return ((Timestamp) value).toLocalDateTime();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,73 @@
+package com.zxb.aiproject.syslog.storm;
+
+/**
+ * 单个来源的令牌桶与自适应采样（非线程安全，由所在分段锁保护）
+ * 令牌耗尽即视为风暴：按上一秒的超出量计算采样间隔，使每秒保留的低级别日志大约为 sampledPerSecond 条，
+ * 风暴越大采样越稀。
+ */
+final class SourceTokenBucket {
+
+    private double tokens;
+
+    private long lastRefillMillis;
+
+    private long windowStartMillis;
+
+    private long excessThisWindow;
+
+    private long excessLastWindow;
+
+    private long keptThisWindow;
+
+    SourceTokenBucket(int burst, long nowMillis) {
+        this.tokens = burst;
+        this.lastRefillMillis = nowMillis;
+        this.windowStartMillis = nowMillis;
+    }
+
+    /**
+     * 取一个令牌
+     */
+    boolean tryAcquire(long nowMillis, int ratePerSecond, int burst) {
+        long elapsed = nowMillis - lastRefillMillis;
+        if (elapsed > 0) {
+            tokens = Math.min(burst, tokens + elapsed * ratePerSecond / 1000.0);
+            lastRefillMillis = nowMillis;
+        }
+        if (tokens >= 1) {
+            tokens -= 1;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 令牌耗尽后是否保留这一条
+     * 按上一秒的超出量均匀间隔采样，每秒保留数不超过 sampledPerSecond；风暴第一秒没有参考量时保留前 sampledPerSecond 条
+     */
+    boolean sample(long nowMillis, int sampledPerSecond) {
+        long elapsed = nowMillis - windowStartMillis;
+        if (elapsed >= 1000) {
+            // 中间空了一整秒以上说明风暴已中断，不再沿用上一秒的量
+            excessLastWindow = elapsed >= 2000 ? 0 : excessThisWindow;
+            excessThisWindow = 0;
+            keptThisWindow = 0;
+            windowStartMillis = nowMillis;
+        }
+        int budget = Math.max(1, sampledPerSecond);
+        long every = Math.max(1, excessLastWindow / budget);
+        boolean keep = excessThisWindow % every == 0 && keptThisWindow < budget;
+        excessThisWindow++;
+        if (keep) {
+            keptThisWindow++;
+        }
+        return keep;
+    }
+
+    /**
+     * 长时间没有新日志且令牌已回满，可以回收
+     */
+    boolean isIdle(long nowMillis, long idleMillis) {
+        return nowMillis - lastRefillMillis >= idleMillis;
+    }
+}
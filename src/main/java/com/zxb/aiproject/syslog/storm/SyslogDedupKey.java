@@ -0,0 +1,105 @@
+package com.zxb.aiproject.syslog.storm;
+
+import com.zxb.aiproject.entity.SyslogEntry;
+
+import java.util.Objects;
+
+/**
+ * 去重键：来源IP + Facility + 严重级别 + 归一化消息的64位哈希
+ * 归一化时连续空白视为一个空格，只由数字和 : . - , 组成的词（序号、时间戳、计数）视为同一个占位符，
+ * 其余内容（如接口名 Gi0/1）原样参与哈希，避免把不同对象的日志折叠在一起。
+ */
+final class SyslogDedupKey {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final String sourceIp;
+
+    private final int facility;
+
+    private final int severity;
+
+    private final long messageHash;
+
+    private SyslogDedupKey(String sourceIp, int facility, int severity, long messageHash) {
+        this.sourceIp = sourceIp;
+        this.facility = facility;
+        this.severity = severity;
+        this.messageHash = messageHash;
+    }
+
+    static SyslogDedupKey of(SyslogEntry entry) {
+        return new SyslogDedupKey(entry.getSourceIp(),
+                entry.getFacility() == null ? -1 : entry.getFacility(),
+                entry.getSeverity() == null ? -1 : entry.getSeverity(),
+                normalizedHash(entry.getMessage()));
+    }
+
+    /**
+     * 归一化消息的 FNV-1a 哈希，逐字符计算不生成中间字符串
+     */
+    static long normalizedHash(String message) {
+        long hash = FNV_OFFSET;
+        if (message == null) {
+            return hash;
+        }
+        int len = message.length();
+        int i = 0;
+        boolean first = true;
+        while (i < len) {
+            while (i < len && Character.isWhitespace(message.charAt(i))) {
+                i++;
+            }
+            if (i >= len) {
+                break;
+            }
+            int start = i;
+            boolean numeric = true;
+            boolean hasDigit = false;
+            while (i < len && !Character.isWhitespace(message.charAt(i))) {
+                char c = message.charAt(i);
+                if (c >= '0' && c <= '9') {
+                    hasDigit = true;
+                } else if (c != ':' && c != '.' && c != '-' && c != ',') {
+                    numeric = false;
+                }
+                i++;
+            }
+            if (!first) {
+                hash = (hash ^ ' ') * FNV_PRIME;
+            }
+            first = false;
+            if (numeric && hasDigit) {
+                hash = (hash ^ '#') * FNV_PRIME;
+            } else {
+                for (int k = start; k < i; k++) {
+                    hash = (hash ^ message.charAt(k)) * FNV_PRIME;
+                }
+            }
+        }
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SyslogDedupKey)) {
+            return false;
+        }
+        SyslogDedupKey other = (SyslogDedupKey) o;
+        return facility == other.facility && severity == other.severity && messageHash == other.messageHash
+                && Objects.equals(sourceIp, other.sourceIp);
+    }
+
+    @Override
+    public int hashCode() {
+        int h = Long.hashCode(messageHash);
+        h = 31 * h + (sourceIp == null ? 0 : sourceIp.hashCode());
+        h = 31 * h + facility;
+        return 31 * h + severity;
+    }
+}
@@ -0,0 +1,425 @@
+package com.zxb.aiproject.syslog.storm;
+
+import com.zxb.aiproject.config.SyslogProperties;
+import com.zxb.aiproject.entity.SyslogEntry;
+import com.zxb.aiproject.mapper.SyslogEntryMapper;
+import com.zxb.aiproject.syslog.SyslogHourlyRollup;
+import com.zxb.aiproject.syslog.SyslogIngestMetrics;
+import com.zxb.aiproject.syslog.SyslogPersistListener;
+import com.zxb.aiproject.syslog.SyslogRollupKey;
+import com.zxb.aiproject.syslog.alert.SyslogAlertCorrelator;
+import com.zxb.aiproject.syslog.sketch.SyslogSourceSketches;
+import com.zxb.aiproject.syslog.template.SyslogTemplateMiner;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Syslog风暴抑制
+ * 日志进入入库队列前依次经过两级：
+ * 1. 去重：相同 (来源IP, Facility, 严重级别, 归一化消息) 距上次出现不足 dedupWindowMs 时只累加重复次数（滑动窗口，
+ *    持续刷屏期间一直折叠；首条所在小时结束后另起一条，使重复次数计入正确的小时汇总），
+ *    首条照常入库，重复次数与最后出现时间定时写回该行的 repeat_count / last_seen_at；
+ * 2. 限流：每个来源一个令牌桶，令牌耗尽时错误及以上级别照常放行，低级别日志按风暴强度自适应采样。
+ * 去重表与令牌桶都按键哈希分段加锁，多个接收线程并发调用时只在同一分段上竞争。
+ */
+@Slf4j
+@Component
+public class SyslogStormGuard implements SyslogPersistListener {
+
+    /**
+     * 来源空闲多久后回收令牌桶
+     */
+    private static final long BUCKET_IDLE_MILLIS = 5 * 60 * 1000L;
+
+    @Autowired
+    private SyslogProperties syslogProperties;
+
+    @Autowired
+    private SyslogEntryMapper syslogEntryMapper;
+
+    @Autowired
+    private SyslogHourlyRollup syslogHourlyRollup;
+
+    @Autowired
+    private SyslogSourceSketches syslogSourceSketches;
+
+    @Autowired
+    private SyslogTemplateMiner syslogTemplateMiner;
+
+    @Autowired
+    private SyslogAlertCorrelator syslogAlertCorrelator;
+
+    @Autowired
+    private SyslogIngestMetrics metrics;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Stripe[] stripes;
+
+    private int stripeMask;
+
+    private int maxKeysPerStripe;
+
+    private volatile boolean ready;
+
+    private final AtomicLong repeatsFlushed = new AtomicLong();
+
+    private final AtomicLong repeatsLost = new AtomicLong();
+
+    private final AtomicLong flushFailures = new AtomicLong();
+
+    /**
+     * 一个去重键在当前窗口内的状态
+     */
+    static final class DedupRecord {
+        final SyslogDedupKey key;
+        /**
+         * 首条日志；入库后换成入库线程写库的对象（经预写缓冲时是解码出的副本，带有写库前处理的结果）
+         */
+        SyslogEntry first;
+        final long firstSeenMillis;
+        final LocalDateTime hourEnd;
+        /**
+         * 首条入库后由入库线程在回填ID之后写入，定时写回线程读到非空值时首条的ID对其可见
+         */
+        volatile Long firstId;
+        long lastSeenMillis;
+        long pendingRepeats;
+        LocalDateTime lastSeenAt;
+
+        DedupRecord(SyslogDedupKey key, SyslogEntry first, long firstSeenMillis) {
+            this.key = key;
+            this.first = first;
+            this.firstSeenMillis = firstSeenMillis;
+            this.lastSeenMillis = firstSeenMillis;
+            this.hourEnd = first.getReceivedAt() == null ? null
+                    : SyslogRollupKey.truncateToHour(first.getReceivedAt()).plusHours(1);
+        }
+
+        /**
+         * 该日志能否折叠到本记录：距上次出现不足一个窗口，且与首条在同一小时内
+         */
+        boolean covers(SyslogEntry entry, long nowMillis, long window) {
+            return nowMillis - lastSeenMillis < window
+                    && (hourEnd == null || entry.getReceivedAt() == null || entry.getReceivedAt().isBefore(hourEnd));
+        }
+
+        /**
+         * 入库的日志是否就是本记录的首条：同一对象，或键与接收时间都相同的副本
+         */
+        boolean isFirst(SyslogEntry persisted) {
+            return firstId == null
+                    && (first == persisted || Objects.equals(first.getReceivedAt(), persisted.getReceivedAt()));
+        }
+    }
+
+    /**
+     * 分段：去重表、窗口已过但还有未写回重复次数的记录、令牌桶
+     */
+    static final class Stripe {
+        final Map<SyslogDedupKey, DedupRecord> records = new HashMap<>();
+        final Map<SyslogDedupKey, List<DedupRecord>> retired = new HashMap<>();
+        final Map<String, SourceTokenBucket> buckets = new HashMap<>();
+    }
+
+    /**
+     * 待写回的重复次数
+     */
+    static final class RepeatUpdate {
+        final Stripe stripe;
+        final DedupRecord record;
+        final SyslogEntry first;
+        final long firstId;
+        final long count;
+        final LocalDateTime lastSeenAt;
+
+        RepeatUpdate(Stripe stripe, DedupRecord record, SyslogEntry first, long firstId, long count,
+                     LocalDateTime lastSeenAt) {
+            this.stripe = stripe;
+            this.record = record;
+            this.first = first;
+            this.firstId = firstId;
+            this.count = count;
+            this.lastSeenAt = lastSeenAt;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        SyslogProperties.Storm config = syslogProperties.getStorm();
+        int stripeCount = Integer.highestOneBit(Math.max(1, config.getLockStripes()));
+        stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe();
+        }
+        stripeMask = stripeCount - 1;
+        maxKeysPerStripe = Math.max(1, config.getMaxDedupKeys() / stripeCount);
+        if (!Boolean.TRUE.equals(config.getEnabled())) {
+            return;
+        }
+        try {
+            if (!hasRepeatColumns()) {
+                log.error("t_log_syslog 缺少 repeat_count / last_seen_at 字段, 风暴抑制不生效; 请在维护窗口按 aiops_db.sql 补齐字段");
+                return;
+            }
+            ready = true;
+        } catch (Exception e) {
+            log.error("Syslog去重所需字段检查失败, 风暴抑制不生效: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 入队前调用
+     * @return 是否需要入库；false 表示已折叠为重复次数或被采样丢弃
+     */
+    public boolean admit(SyslogEntry entry) {
+        if (!ready) {
+            return true;
+        }
+        return admit(entry, System.currentTimeMillis());
+    }
+
+    boolean admit(SyslogEntry entry, long nowMillis) {
+        SyslogProperties.Storm config = syslogProperties.getStorm();
+        SyslogDedupKey key = SyslogDedupKey.of(entry);
+        Stripe stripe = stripeFor(key.hashCode());
+        synchronized (stripe) {
+            DedupRecord record = stripe.records.get(key);
+            if (record != null && record.covers(entry, nowMillis, config.getDedupWindowMs())) {
+                record.pendingRepeats++;
+                record.lastSeenMillis = nowMillis;
+                record.lastSeenAt = entry.getReceivedAt();
+                metrics.getDedupCollapsed().increment();
+                return false;
+            }
+        }
+        if (!acquire(entry, nowMillis, config)) {
+            return false;
+        }
+        // 只有确定入库的日志才作为首条，被采样丢弃的日志不能承载重复次数
+        synchronized (stripe) {
+            DedupRecord record = stripe.records.get(key);
+            if (record != null && record.covers(entry, nowMillis, config.getDedupWindowMs())) {
+                // 并发下另一条相同日志已先成为首条，本条照常入库
+                return true;
+            }
+            if (record != null) {
+                stripe.records.remove(key);
+                if (record.pendingRepeats > 0) {
+                    retire(stripe, record);
+                }
+            }
+            if (stripe.records.size() < maxKeysPerStripe) {
+                stripe.records.put(key, new DedupRecord(key, entry, nowMillis));
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 首条日志入库后登记其ID，之后才能写回重复次数
+     */
+    @Override
+    public void onPersisted(List<SyslogEntry> entries) {
+        if (!ready) {
+            return;
+        }
+        for (SyslogEntry entry : entries) {
+            SyslogDedupKey key = SyslogDedupKey.of(entry);
+            Stripe stripe = stripeFor(key.hashCode());
+            synchronized (stripe) {
+                DedupRecord record = stripe.records.get(key);
+                if (record == null || !record.isFirst(entry)) {
+                    record = null;
+                    List<DedupRecord> retired = stripe.retired.get(key);
+                    if (retired != null) {
+                        for (DedupRecord candidate : retired) {
+                            if (candidate.isFirst(entry)) {
+                                record = candidate;
+                                break;
+                            }
+                        }
+                    }
+                }
+                if (record != null) {
+                    record.first = entry;
+                    record.firstId = entry.getId();
+                }
+            }
+        }
+    }
+
+    /**
+     * 定时把重复次数写回首条日志，并清理过期的去重记录与空闲令牌桶
+     */
+    @Scheduled(fixedDelayString = "${syslog.storm.flush-interval-ms:5000}", initialDelay = 5000)
+    public void flush() {
+        if (!ready) {
+            return;
+        }
+        List<RepeatUpdate> updates = collect(System.currentTimeMillis());
+        for (RepeatUpdate update : updates) {
+            SyslogEntry first = update.first;
+            try {
+                syslogEntryMapper.addRepeats(update.firstId, first.getReceivedAt(), update.count, update.lastSeenAt);
+                syslogHourlyRollup.onRepeats(first, update.count);
+                syslogSourceSketches.onRepeats(first, update.count);
+                syslogTemplateMiner.onRepeats(first, update.count);
+                syslogAlertCorrelator.onRepeats(first, update.count, update.lastSeenAt);
+                repeatsFlushed.addAndGet(update.count);
+            } catch (Exception e) {
+                flushFailures.incrementAndGet();
+                log.warn("写回Syslog重复次数失败, 下次重试: {}", e.getMessage());
+                synchronized (update.stripe) {
+                    update.record.pendingRepeats += update.count;
+                    if (update.stripe.records.get(update.record.key) != update.record) {
+                        retire(update.stripe, update.record);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 监控数据
+     */
+    public Map<String, Object> getStats() {
+        int keys = 0;
+        int buckets = 0;
+        if (stripes != null) {
+            for (Stripe stripe : stripes) {
+                synchronized (stripe) {
+                    keys += stripe.records.size();
+                    buckets += stripe.buckets.size();
+                }
+            }
+        }
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("stormGuardEnabled", ready);
+        data.put("dedupKeys", keys);
+        data.put("stormSources", buckets);
+        data.put("dedupRepeatsFlushed", repeatsFlushed.get());
+        data.put("dedupRepeatsLost", repeatsLost.get());
+        data.put("dedupFlushFailures", flushFailures.get());
+        return data;
+    }
+
+    /**
+     * 取出已入库（ID已回填）的首条日志上累计的重复次数；窗口已过的记录移出去重表
+     */
+    List<RepeatUpdate> collect(long nowMillis) {
+        SyslogProperties.Storm config = syslogProperties.getStorm();
+        long window = config.getDedupWindowMs();
+        List<RepeatUpdate> updates = new ArrayList<>();
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                Iterator<List<DedupRecord>> retiredKeys = stripe.retired.values().iterator();
+                while (retiredKeys.hasNext()) {
+                    List<DedupRecord> retired = retiredKeys.next();
+                    retired.removeIf(record -> takePending(stripe, record, nowMillis, window, updates));
+                    if (retired.isEmpty()) {
+                        retiredKeys.remove();
+                    }
+                }
+                Iterator<DedupRecord> active = stripe.records.values().iterator();
+                while (active.hasNext()) {
+                    DedupRecord record = active.next();
+                    // 首条一直没有入库的记录也移出，后续日志重新作为首条
+                    boolean expired = nowMillis - record.lastSeenMillis >= window
+                            || (record.firstId == null && nowMillis - record.firstSeenMillis >= window * 2);
+                    if (takePending(stripe, record, nowMillis, window, updates) && expired) {
+                        active.remove();
+                    }
+                }
+                stripe.buckets.values().removeIf(bucket -> bucket.isIdle(nowMillis, BUCKET_IDLE_MILLIS));
+            }
+        }
+        return updates;
+    }
+
+    /**
+     * @return 该记录已没有待写回的重复次数
+     */
+    private boolean takePending(Stripe stripe, DedupRecord record, long nowMillis, long window,
+                                List<RepeatUpdate> updates) {
+        if (record.pendingRepeats == 0) {
+            return true;
+        }
+        // ID 由入库线程在写库后登记，读到空值说明还没写库，下次再取
+        Long firstId = record.firstId;
+        if (firstId != null) {
+            updates.add(new RepeatUpdate(stripe, record, record.first, firstId, record.pendingRepeats,
+                    record.lastSeenAt));
+            record.pendingRepeats = 0;
+            return true;
+        }
+        // 首条写库失败（整批丢弃）时重复次数无处可写
+        if (nowMillis - record.firstSeenMillis >= window * 2) {
+            repeatsLost.addAndGet(record.pendingRepeats);
+            record.pendingRepeats = 0;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 移出去重表但还有重复次数待写回的记录，按键存放，入库回调按键查找
+     */
+    private static void retire(Stripe stripe, DedupRecord record) {
+        stripe.retired.computeIfAbsent(record.key, k -> new ArrayList<>(1)).add(record);
+    }
+
+    private boolean acquire(SyslogEntry entry, long nowMillis, SyslogProperties.Storm config) {
+        String sourceIp = entry.getSourceIp() == null ? "" : entry.getSourceIp();
+        Stripe stripe = stripeFor(sourceIp.hashCode());
+        boolean keep;
+        synchronized (stripe) {
+            SourceTokenBucket bucket = stripe.buckets.get(sourceIp);
+            if (bucket == null) {
+                bucket = new SourceTokenBucket(config.getSourceBurst(), nowMillis);
+                stripe.buckets.put(sourceIp, bucket);
+            }
+            if (bucket.tryAcquire(nowMillis, config.getSourceRatePerSecond(), config.getSourceBurst())) {
+                return true;
+            }
+            if (entry.getSeverity() != null && entry.getSeverity() <= config.getProtectSeverity()) {
+                return true;
+            }
+            keep = bucket.sample(nowMillis, config.getSampledPerSecond());
+        }
+        if (!keep) {
+            metrics.getStormSampled().increment();
+        }
+        return keep;
+    }
+
+    private Stripe stripeFor(int hash) {
+        return stripes[(hash ^ (hash >>> 16)) & stripeMask];
+    }
+
+    /**
+     * 旧表是否已有 repeat_count / last_seen_at 字段；日志表不在运行时改表（复制整表期间写入阻塞）
+     */
+    private boolean hasRepeatColumns() {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.COLUMNS WHERE TABLE_SCHEMA = DATABASE() "
+                        + "AND TABLE_NAME = 't_log_syslog' AND COLUMN_NAME IN ('repeat_count', 'last_seen_at')",
+                Integer.class);
+        return count != null && count == 2;
+    }
+}
@@ -0,0 +1,264 @@
+package com.zxb.aiproject.syslog.stream;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zxb.aiproject.entity.LogSavedFilter;
+import com.zxb.aiproject.entity.SyslogEntry;
+import com.zxb.aiproject.syslog.AhoCorasickMatcher;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 实时推送过滤条件（预编译）
+ * 来源IP支持单个地址与 IPv4 网段，Facility/严重级别编译为位掩码，包含/排除关键字各编译为一个 AC 自动机，
+ * 在日志消息、主机名、来源IP中大小写不敏感匹配：命中任一包含关键字且不命中任何排除关键字。
+ * 各条件之间为“与”，未设置的条件不过滤。构建后只读，可在入库线程上并发使用。
+ */
+public final class SyslogStreamFilter {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final Set<String> exactIps;
+
+    private final int[] cidrNetworks;
+
+    private final int[] cidrMasks;
+
+    /**
+     * 0 表示不限
+     */
+    private final int facilityMask;
+
+    private final int severityMask;
+
+    private final Set<String> deviceTypes;
+
+    private final AhoCorasickMatcher includeMatcher;
+
+    private final AhoCorasickMatcher excludeMatcher;
+
+    private SyslogStreamFilter(List<String> sourceIps, List<Integer> facilities, List<Integer> severities,
+                               List<String> deviceTypes, List<String> includeKeywords, List<String> excludeKeywords) {
+        Set<String> ips = new HashSet<>();
+        List<int[]> cidrs = new ArrayList<>();
+        for (String ip : trimAll(sourceIps)) {
+            int slash = ip.indexOf('/');
+            if (slash < 0) {
+                ips.add(ip);
+                continue;
+            }
+            Integer address = parseIpv4(ip.substring(0, slash));
+            int prefix = Integer.parseInt(ip.substring(slash + 1).trim());
+            if (address == null || prefix < 0 || prefix > 32) {
+                throw new IllegalArgumentException("无效的IP网段: " + ip);
+            }
+            if (prefix == 32) {
+                ips.add(ip.substring(0, slash));
+            } else {
+                int mask = prefix == 0 ? 0 : -1 << (32 - prefix);
+                cidrs.add(new int[]{address & mask, mask});
+            }
+        }
+        this.exactIps = ips;
+        this.cidrNetworks = new int[cidrs.size()];
+        this.cidrMasks = new int[cidrs.size()];
+        for (int i = 0; i < cidrs.size(); i++) {
+            cidrNetworks[i] = cidrs.get(i)[0];
+            cidrMasks[i] = cidrs.get(i)[1];
+        }
+        this.facilityMask = toMask(facilities, 23);
+        this.severityMask = toMask(severities, 7);
+
+        Set<String> types = new HashSet<>();
+        for (String type : trimAll(deviceTypes)) {
+            types.add(toDbDeviceType(type));
+        }
+        this.deviceTypes = types;
+
+        List<String> include = trimAll(includeKeywords);
+        List<String> exclude = trimAll(excludeKeywords);
+        this.includeMatcher = include.isEmpty() ? null : AhoCorasickMatcher.build(include);
+        this.excludeMatcher = exclude.isEmpty() ? null : AhoCorasickMatcher.build(exclude);
+    }
+
+    /**
+     * 按临时条件构建
+     */
+    public static SyslogStreamFilter of(List<String> sourceIps, List<Integer> facilities, List<Integer> severities,
+                                        List<String> deviceTypes, List<String> includeKeywords,
+                                        List<String> excludeKeywords) {
+        return new SyslogStreamFilter(sourceIps, facilities, severities, deviceTypes, includeKeywords, excludeKeywords);
+    }
+
+    /**
+     * 按保存的过滤器构建，时间范围对实时推送无意义，忽略。
+     * facilities 字段中非数字的值是前端保存的设备类型（沿用旧字段）。
+     */
+    public static SyslogStreamFilter fromSavedFilter(LogSavedFilter filter) {
+        List<String> sourceIps = Collections.emptyList();
+        if (filter.getSourceIps() != null && !filter.getSourceIps().trim().isEmpty()) {
+            try {
+                sourceIps = OBJECT_MAPPER.readValue(filter.getSourceIps(), new TypeReference<List<String>>() {});
+            } catch (Exception e) {
+                throw new IllegalArgumentException("过滤器来源IP格式错误: " + filter.getSourceIps());
+            }
+        }
+        List<Integer> facilities = new ArrayList<>();
+        List<String> deviceTypes = new ArrayList<>();
+        for (String value : split(filter.getFacilities(), ",")) {
+            if (value.chars().allMatch(Character::isDigit)) {
+                facilities.add(Integer.parseInt(value));
+            } else {
+                deviceTypes.add(value);
+            }
+        }
+        List<Integer> severities = new ArrayList<>();
+        for (String value : split(filter.getSeverities(), ",")) {
+            severities.add(Integer.parseInt(value));
+        }
+        return new SyslogStreamFilter(sourceIps, facilities, severities, deviceTypes,
+                split(filter.getIncludeKeywords(), ";"), split(filter.getExcludeKeywords(), ";"));
+    }
+
+    public boolean test(SyslogEntry entry) {
+        if (facilityMask != 0 && !inMask(facilityMask, entry.getFacility())) {
+            return false;
+        }
+        if (severityMask != 0 && !inMask(severityMask, entry.getSeverity())) {
+            return false;
+        }
+        if (!deviceTypes.isEmpty() && (entry.getDeviceType() == null || !deviceTypes.contains(entry.getDeviceType()))) {
+            return false;
+        }
+        if ((!exactIps.isEmpty() || cidrNetworks.length > 0) && !matchesSource(entry.getSourceIp())) {
+            return false;
+        }
+        if (includeMatcher != null && !containsAny(includeMatcher, entry)) {
+            return false;
+        }
+        return excludeMatcher == null || !containsAny(excludeMatcher, entry);
+    }
+
+    private boolean matchesSource(String sourceIp) {
+        if (sourceIp == null) {
+            return false;
+        }
+        if (exactIps.contains(sourceIp)) {
+            return true;
+        }
+        if (cidrNetworks.length == 0) {
+            return false;
+        }
+        Integer address = parseIpv4(sourceIp);
+        if (address == null) {
+            return false;
+        }
+        for (int i = 0; i < cidrNetworks.length; i++) {
+            if ((address & cidrMasks[i]) == cidrNetworks[i]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean containsAny(AhoCorasickMatcher matcher, SyslogEntry entry) {
+        boolean[] hit = new boolean[1];
+        matcher.search(entry.getMessage(), k -> hit[0] = true);
+        if (!hit[0]) {
+            matcher.search(entry.getHostname(), k -> hit[0] = true);
+        }
+        if (!hit[0]) {
+            matcher.search(entry.getSourceIp(), k -> hit[0] = true);
+        }
+        return hit[0];
+    }
+
+    private static boolean inMask(int mask, Integer value) {
+        return value != null && value >= 0 && value < 32 && (mask & (1 << value)) != 0;
+    }
+
+    private static int toMask(List<Integer> values, int max) {
+        int mask = 0;
+        if (values != null) {
+            for (Integer value : values) {
+                if (value != null && value >= 0 && value <= max) {
+                    mask |= 1 << value;
+                }
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * 前端传中文或英文小写的设备类型，库中为大写英文
+     */
+    private static String toDbDeviceType(String deviceType) {
+        switch (deviceType.toLowerCase()) {
+            case "server":
+            case "服务器":
+                return "SERVER";
+            case "network":
+            case "网络设备":
+                return "NETWORK";
+            case "storage":
+            case "存储设备":
+                return "STORAGE";
+            case "video":
+            case "视频设备":
+                return "VIDEO";
+            default:
+                return deviceType.toUpperCase();
+        }
+    }
+
+    private static Integer parseIpv4(String ip) {
+        String[] parts = ip.trim().split("\\.");
+        if (parts.length != 4) {
+            return null;
+        }
+        int address = 0;
+        for (String part : parts) {
+            int octet;
+            try {
+                octet = Integer.parseInt(part);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+            if (octet < 0 || octet > 255) {
+                return null;
+            }
+            address = (address << 8) | octet;
+        }
+        return address;
+    }
+
+    private static List<String> split(String value, String separator) {
+        if (value == null || value.trim().isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> parts = new ArrayList<>();
+        for (String part : value.split(separator)) {
+            if (!part.trim().isEmpty()) {
+                parts.add(part.trim());
+            }
+        }
+        return parts;
+    }
+
+    private static List<String> trimAll(List<String> values) {
+        if (values == null) {
+            return Collections.emptyList();
+        }
+        List<String> result = new ArrayList<>(values.size());
+        for (String value : values) {
+            if (value != null && !value.trim().isEmpty()) {
+                result.add(value.trim());
+            }
+        }
+        return result;
+    }
+}
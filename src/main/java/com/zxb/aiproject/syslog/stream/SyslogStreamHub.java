@@ -0,0 +1,149 @@
+package com.zxb.aiproject.syslog.stream;
+
+import com.zxb.aiproject.config.SyslogProperties;
+import com.zxb.aiproject.entity.SyslogEntry;
+import com.zxb.aiproject.syslog.SyslogPersistListener;
+import com.zxb.aiproject.util.SseBroadcaster;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 实时日志推送（SSE）
+ * 入库线程在批量写库后对每个订阅执行预编译的过滤条件，命中的日志放入该订阅自己的有界缓冲（满时丢弃并计数），
+ * 由 {@link SseBroadcaster} 的推送线程分批发送。
+ */
+@Component
+public class SyslogStreamHub implements SyslogPersistListener {
+
+    @Autowired
+    private SyslogProperties syslogProperties;
+
+    private SseBroadcaster<Subscription> broadcaster;
+
+    /**
+     * 单个订阅
+     */
+    private static final class Subscription extends SseBroadcaster.Subscription<SyslogEntry> {
+        final SyslogStreamFilter filter;
+        final AtomicLong dropped = new AtomicLong();
+
+        Subscription(String id, SyslogStreamFilter filter, SseEmitter emitter, int capacity) {
+            super(id, emitter, capacity);
+            this.filter = filter;
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        broadcaster = new SseBroadcaster<>("实时日志", "syslog-stream",
+                syslogProperties.getStream().getSendThreads(), this::drain);
+    }
+
+    @PreDestroy
+    public void stop() {
+        broadcaster.shutdown();
+    }
+
+    /**
+     * 新建订阅
+     * @throws IllegalStateException 订阅数已达上限
+     */
+    public SseEmitter subscribe(SyslogStreamFilter filter) {
+        SyslogProperties.Stream config = syslogProperties.getStream();
+        if (broadcaster.size() >= config.getMaxSubscribers()) {
+            throw new IllegalStateException("实时日志订阅数已达上限: " + config.getMaxSubscribers());
+        }
+        // 不超时，断开的连接由心跳发现
+        SseEmitter emitter = new SseEmitter(0L);
+        Subscription subscription = new Subscription(UUID.randomUUID().toString(), filter, emitter,
+                config.getBufferCapacity());
+        broadcaster.register(subscription);
+        try {
+            emitter.send(SseEmitter.event().name("ready").data(subscription.getId()));
+        } catch (IOException e) {
+            broadcaster.close(subscription);
+        }
+        return emitter;
+    }
+
+    @Override
+    public void onPersisted(List<SyslogEntry> entries) {
+        if (broadcaster.isEmpty()) {
+            return;
+        }
+        for (Subscription subscription : broadcaster.getSubscriptions()) {
+            boolean added = false;
+            for (SyslogEntry entry : entries) {
+                if (!subscription.filter.test(entry)) {
+                    continue;
+                }
+                if (subscription.getBuffer().offer(entry)) {
+                    added = true;
+                } else {
+                    subscription.dropped.incrementAndGet();
+                }
+            }
+            if (added) {
+                broadcaster.scheduleSend(subscription);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${syslog.stream.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        broadcaster.heartbeat();
+    }
+
+    /**
+     * 订阅状态，供监控接口展示
+     */
+    public Map<String, Object> getStats() {
+        long buffered = 0;
+        long dropped = 0;
+        long sent = 0;
+        for (Subscription subscription : broadcaster.getSubscriptions()) {
+            buffered += subscription.getBuffer().size();
+            dropped += subscription.dropped.get();
+            sent += subscription.getSent().get();
+        }
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("streamSubscribers", broadcaster.size());
+        data.put("streamBuffered", buffered);
+        data.put("streamSent", sent);
+        data.put("streamDropped", dropped);
+        return data;
+    }
+
+    /**
+     * 取空该订阅的缓冲，每批一个 logs 事件；期间有丢弃时先发 dropped 事件告知客户端
+     */
+    private void drain(Subscription subscription) throws IOException {
+        int batchSize = Math.max(1, syslogProperties.getStream().getBatchSize());
+        List<SyslogEntry> batch = new ArrayList<>(batchSize);
+        while (!subscription.isClosed()) {
+            long dropped = subscription.dropped.getAndSet(0);
+            if (dropped > 0) {
+                subscription.getEmitter().send(SseEmitter.event().name("dropped").data(dropped));
+            }
+            subscription.getBuffer().drainTo(batch, batchSize);
+            if (batch.isEmpty()) {
+                break;
+            }
+            subscription.getEmitter().send(SseEmitter.event().name("logs").data(batch));
+            subscription.getSent().addAndGet(batch.size());
+            batch.clear();
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.zxb.aiproject.syslog.template;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 固定深度前缀树的在线日志模板提取（Drain）
+ * 日志按空白分词，含数字的词先替换为 &lt;*&gt;；第一层按词数分组，之后按前 depth-2 个词逐层下行，
+ * 每层子节点数达到 maxChildren 后新出现的词统一进入 &lt;*&gt; 子节点。叶子节点上的模板按相似度
+ * （相同位置相等的词占比）选出最接近的一个，达到阈值即归入并把不同的位置泛化为 &lt;*&gt;，否则新建模板。
+ * 每条日志只经过固定层数的查找和一个叶子上的比较，耗时与已有模板总数基本无关。
+ * 同一词数分组内串行，不同词数分组之间可并发。
+ */
+public final class DrainTemplateTree {
+
+    private final int prefixDepth;
+
+    private final double similarityThreshold;
+
+    private final int maxChildren;
+
+    private final int maxTemplates;
+
+    /**
+     * 第一层：词数 -> 分组根节点，分组根节点同时作为该组的锁
+     */
+    private final ConcurrentHashMap<Integer, Node> lengthNodes = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<Integer, LogTemplate> templates = new ConcurrentHashMap<>();
+
+    private final AtomicInteger nextId = new AtomicInteger(1);
+
+    /**
+     * 树节点，叶子节点上挂模板列表
+     */
+    private static final class Node {
+        final Map<String, Node> children = new HashMap<>();
+        List<LogTemplate> templates;
+    }
+
+    /**
+     * @param depth               树深度（含词数层与叶子层），不小于3
+     * @param similarityThreshold 归入已有模板的最低相似度
+     * @param maxChildren         每个节点的最多子节点数
+     * @param maxTemplates        模板总数上限，达到后不再新建模板
+     */
+    public DrainTemplateTree(int depth, double similarityThreshold, int maxChildren, int maxTemplates) {
+        if (depth < 3) {
+            throw new IllegalArgumentException("模板树深度不能小于3: " + depth);
+        }
+        this.prefixDepth = depth - 2;
+        this.similarityThreshold = similarityThreshold;
+        this.maxChildren = Math.max(2, maxChildren);
+        this.maxTemplates = Math.max(1, maxTemplates);
+    }
+
+    /**
+     * 为一条日志找到或新建模板
+     * @param now 新建模板的首次出现时间
+     * @return 所属模板；模板数已达上限且没有可归入的模板时返回 null
+     */
+    public LogTemplate add(String message, LocalDateTime now) {
+        String[] words = tokenize(message);
+        Node group = lengthNodes.computeIfAbsent(words.length, length -> new Node());
+        synchronized (group) {
+            Node leaf = descend(group, words);
+            LogTemplate best = bestMatch(leaf, words);
+            if (best != null) {
+                if (best.generalize(words)) {
+                    best.setDirty(true);
+                }
+                return best;
+            }
+            if (templates.size() >= maxTemplates) {
+                return null;
+            }
+            LogTemplate created = new LogTemplate(nextId.getAndIncrement(), words, now);
+            created.setDirty(true);
+            leaf.templates.add(created);
+            templates.put(created.getId(), created);
+            return created;
+        }
+    }
+
+    /**
+     * 恢复已持久化的模板（启动时按ID顺序调用）
+     */
+    public void load(int id, String text, LocalDateTime firstSeenAt) {
+        String[] words = text == null || text.isEmpty() ? new String[0] : text.split(" ");
+        Node group = lengthNodes.computeIfAbsent(words.length, length -> new Node());
+        synchronized (group) {
+            LogTemplate template = new LogTemplate(id, words, firstSeenAt);
+            descend(group, words).templates.add(template);
+            templates.put(id, template);
+        }
+        nextId.accumulateAndGet(id + 1, Math::max);
+    }
+
+    public LogTemplate get(int id) {
+        return templates.get(id);
+    }
+
+    public Collection<LogTemplate> getTemplates() {
+        return Collections.unmodifiableCollection(templates.values());
+    }
+
+    public int size() {
+        return templates.size();
+    }
+
+    /**
+     * 按空白分词，含数字的词（IP、端口、编号、时间等）替换为通配
+     */
+    static String[] tokenize(String message) {
+        if (message == null) {
+            return new String[0];
+        }
+        List<String> words = new ArrayList<>();
+        int length = message.length();
+        int i = 0;
+        while (i < length) {
+            while (i < length && Character.isWhitespace(message.charAt(i))) {
+                i++;
+            }
+            int start = i;
+            boolean digit = false;
+            while (i < length && !Character.isWhitespace(message.charAt(i))) {
+                digit |= Character.isDigit(message.charAt(i));
+                i++;
+            }
+            if (i > start) {
+                words.add(digit ? LogTemplate.WILDCARD : message.substring(start, i));
+            }
+        }
+        return words.toArray(new String[0]);
+    }
+
+    /**
+     * 按前缀词下行到叶子节点，缺少的节点随之创建
+     */
+    private Node descend(Node group, String[] words) {
+        Node node = group;
+        int depth = Math.min(prefixDepth, words.length);
+        for (int i = 0; i < depth; i++) {
+            String word = words[i];
+            Node child = node.children.get(word);
+            if (child == null) {
+                // 预留一个位置给通配子节点
+                if (!LogTemplate.WILDCARD.equals(word) && node.children.size() + 1 >= maxChildren) {
+                    word = LogTemplate.WILDCARD;
+                    child = node.children.get(word);
+                }
+                if (child == null) {
+                    child = new Node();
+                    node.children.put(word, child);
+                }
+            }
+            node = child;
+        }
+        if (node.templates == null) {
+            node.templates = new ArrayList<>();
+        }
+        return node;
+    }
+
+    private LogTemplate bestMatch(Node leaf, String[] words) {
+        LogTemplate best = null;
+        double bestSimilarity = -1;
+        int bestWildcards = -1;
+        int[] wildcards = new int[1];
+        for (LogTemplate template : leaf.templates) {
+            double similarity = template.similarity(words, wildcards);
+            if (similarity > bestSimilarity || (similarity == bestSimilarity && wildcards[0] > bestWildcards)) {
+                best = template;
+                bestSimilarity = similarity;
+                bestWildcards = wildcards[0];
+            }
+        }
+        return best != null && bestSimilarity >= similarityThreshold ? best : null;
+    }
+}
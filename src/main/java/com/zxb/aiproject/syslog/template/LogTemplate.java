@@ -0,0 +1,103 @@
+package com.zxb.aiproject.syslog.template;
+
+import java.time.LocalDateTime;
+
+/**
+ * 日志模板：同一模板的日志词数相同，模板中变化的位置以 &lt;*&gt; 表示
+ * 模板ID创建后不变；新日志使模板泛化（更多位置变为 &lt;*&gt;）时只更新模板内容。
+ */
+public final class LogTemplate {
+
+    public static final String WILDCARD = "<*>";
+
+    private final int id;
+
+    /**
+     * 由所属词数分组的锁保护
+     */
+    private final String[] tokens;
+
+    private final LocalDateTime firstSeenAt;
+
+    private volatile String text;
+
+    /**
+     * 新建或模板内容变化后尚未写库
+     */
+    private volatile boolean dirty;
+
+    LogTemplate(int id, String[] tokens, LocalDateTime firstSeenAt) {
+        this.id = id;
+        this.tokens = tokens;
+        this.firstSeenAt = firstSeenAt;
+        this.text = String.join(" ", tokens);
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public int getTokenCount() {
+        return tokens.length;
+    }
+
+    public LocalDateTime getFirstSeenAt() {
+        return firstSeenAt;
+    }
+
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    public void setDirty(boolean dirty) {
+        this.dirty = dirty;
+    }
+
+    /**
+     * 与日志词序列的相似度：相同位置相等的词（不含通配位）占词数的比例
+     * @param wildcards 输出模板中的通配位个数，相似度相同时通配位多的模板更通用
+     */
+    double similarity(String[] words, int[] wildcards) {
+        if (tokens.length == 0) {
+            wildcards[0] = 0;
+            return 1.0;
+        }
+        int same = 0;
+        int params = 0;
+        for (int i = 0; i < tokens.length; i++) {
+            if (WILDCARD.equals(tokens[i])) {
+                params++;
+            } else if (tokens[i].equals(words[i])) {
+                same++;
+            }
+        }
+        wildcards[0] = params;
+        return (double) same / tokens.length;
+    }
+
+    /**
+     * 把与日志不同的位置改为通配
+     * @return 模板内容是否变化
+     */
+    boolean generalize(String[] words) {
+        boolean changed = false;
+        for (int i = 0; i < tokens.length; i++) {
+            if (!WILDCARD.equals(tokens[i]) && !tokens[i].equals(words[i])) {
+                tokens[i] = WILDCARD;
+                changed = true;
+            }
+        }
+        if (changed) {
+            text = String.join(" ", tokens);
+        }
+        return changed;
+    }
+
+    String[] tokens() {
+        return tokens;
+    }
+}
@@ -0,0 +1,385 @@
+package com.zxb.aiproject.syslog.template;
+
+import com.zxb.aiproject.config.SyslogProperties;
+import com.zxb.aiproject.entity.SyslogEntry;
+import com.zxb.aiproject.entity.SyslogTemplate;
+import com.zxb.aiproject.mapper.SyslogTemplateHourlyMapper;
+import com.zxb.aiproject.mapper.SyslogTemplateMapper;
+import com.zxb.aiproject.syslog.SyslogHourlyRollup;
+import com.zxb.aiproject.syslog.SyslogPersistListener;
+import com.zxb.aiproject.syslog.SyslogRollupKey;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Syslog日志模板提取
+ * 入库线程在写库前为每条日志分配模板ID（随INSERT写入 template_id），本批新建或泛化的模板先写入
+ * t_log_syslog_template，保证重启后模板ID不会被重复分配；写库成功后按小时、模板累加计数，
+ * 与小时汇总一样定期累加进 t_log_syslog_template_hourly，查询在读锁下合并未落库的增量。
+ * 启动时从模板表恢复模板树。启用前入库的历史日志没有模板ID。
+ */
+@Slf4j
+@Component
+public class SyslogTemplateMiner implements SyslogPersistListener {
+
+    private static final int UPSERT_BATCH_SIZE = 500;
+
+    @Autowired
+    private SyslogProperties syslogProperties;
+
+    @Autowired
+    private SyslogTemplateMapper syslogTemplateMapper;
+
+    @Autowired
+    private SyslogTemplateHourlyMapper syslogTemplateHourlyMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private volatile DrainTemplateTree tree;
+
+    /**
+     * 尚未写入小时计数表的增量
+     */
+    private final ConcurrentHashMap<HourKey, Long> pending = new ConcurrentHashMap<>();
+
+    private final ReentrantReadWriteLock flushLock = new ReentrantReadWriteLock();
+
+    private final LongAdder unassigned = new LongAdder();
+
+    private final LongAdder assignNanos = new LongAdder();
+
+    private final AtomicLong flushFailures = new AtomicLong();
+
+    private volatile boolean ready;
+
+    /**
+     * 一行小时计数增量
+     */
+    @Getter
+    public static final class Delta {
+        private final LocalDateTime statHour;
+        private final int templateId;
+        private final long count;
+
+        Delta(LocalDateTime statHour, int templateId, long count) {
+            this.statHour = statHour;
+            this.templateId = templateId;
+            this.count = count;
+        }
+    }
+
+    private static final class HourKey {
+        final LocalDateTime hour;
+        final int templateId;
+
+        HourKey(LocalDateTime hour, int templateId) {
+            this.hour = hour;
+            this.templateId = templateId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof HourKey)) {
+                return false;
+            }
+            HourKey other = (HourKey) o;
+            return templateId == other.templateId && hour.equals(other.hour);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(hour, templateId);
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        // 批量写入总是带 template_id 列，缺少字段时日志无法入库，直接拒绝启动；不在运行时改表
+        boolean hasColumn;
+        try {
+            hasColumn = hasTemplateColumn();
+        } catch (Exception e) {
+            log.error("Syslog模板字段检查失败: {}", e.getMessage());
+            return;
+        }
+        if (!hasColumn) {
+            throw new IllegalStateException("t_log_syslog 缺少 template_id 字段, 日志无法入库; 请在维护窗口按 aiops_db.sql 补齐字段后再启动");
+        }
+        SyslogProperties.Template config = syslogProperties.getTemplate();
+        if (!Boolean.TRUE.equals(config.getEnabled())) {
+            return;
+        }
+        try {
+            syslogTemplateMapper.createTableIfNotExists();
+            syslogTemplateHourlyMapper.createTableIfNotExists();
+            DrainTemplateTree loaded = new DrainTemplateTree(config.getDepth(), config.getSimilarityThreshold(),
+                    config.getMaxChildren(), config.getMaxTemplates());
+            for (SyslogTemplate template : syslogTemplateMapper.selectAll()) {
+                loaded.load(template.getId(), template.getTemplate(), template.getFirstSeenAt());
+            }
+            tree = loaded;
+            log.info("Syslog模板提取已启动: 已有模板 {} 个", loaded.size());
+        } catch (Exception e) {
+            log.error("初始化Syslog模板提取失败: {}", e.getMessage());
+            return;
+        }
+        ready = true;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    /**
+     * 写库前为本批日志分配模板ID，并写入本批新建或泛化的模板
+     */
+    public void assign(List<SyslogEntry> batch) {
+        if (!ready) {
+            return;
+        }
+        long start = System.nanoTime();
+        LocalDateTime now = LocalDateTime.now();
+        Map<LogTemplate, Boolean> changed = new IdentityHashMap<>();
+        for (SyslogEntry entry : batch) {
+            LogTemplate template = tree.add(entry.getMessage(), entry.getReceivedAt() == null ? now : entry.getReceivedAt());
+            if (template == null) {
+                unassigned.increment();
+                continue;
+            }
+            entry.setTemplateId(template.getId());
+            if (template.isDirty()) {
+                changed.put(template, Boolean.TRUE);
+            }
+        }
+        assignNanos.add(System.nanoTime() - start);
+        if (!changed.isEmpty()) {
+            try {
+                persistTemplates(changed.keySet());
+            } catch (Exception e) {
+                // 留待定时刷写重试
+                flushFailures.incrementAndGet();
+                log.warn("写入Syslog模板失败: {}", e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void onPersisted(List<SyslogEntry> entries) {
+        if (!ready) {
+            return;
+        }
+        Map<HourKey, Long> local = new HashMap<>();
+        for (SyslogEntry entry : entries) {
+            if (entry.getTemplateId() != null && entry.getReceivedAt() != null) {
+                local.merge(new HourKey(SyslogRollupKey.truncateToHour(entry.getReceivedAt()), entry.getTemplateId()),
+                        (long) SyslogHourlyRollup.weight(entry), Long::sum);
+            }
+        }
+        for (Map.Entry<HourKey, Long> item : local.entrySet()) {
+            pending.merge(item.getKey(), item.getValue(), Long::sum);
+        }
+    }
+
+    /**
+     * 去重折叠的重复条数写回后，计入首条日志所在小时的模板
+     */
+    public void onRepeats(SyslogEntry first, long count) {
+        if (!ready || count <= 0 || first.getTemplateId() == null || first.getReceivedAt() == null) {
+            return;
+        }
+        pending.merge(new HourKey(SyslogRollupKey.truncateToHour(first.getReceivedAt()), first.getTemplateId()),
+                count, Long::sum);
+    }
+
+    public boolean isAvailable() {
+        return ready;
+    }
+
+    public LogTemplate getTemplate(int id) {
+        return ready ? tree.get(id) : null;
+    }
+
+    /**
+     * 全部模板（只读视图），未启用时为空
+     */
+    public Collection<LogTemplate> getTemplates() {
+        return ready ? tree.getTemplates() : Collections.<LogTemplate>emptyList();
+    }
+
+    /**
+     * 时间窗口内各模板的日志数：时间范围按整点对齐，两端所在的小时都计入
+     */
+    public Map<Integer, Long> countByTemplate(LocalDateTime startTime, LocalDateTime endTime) {
+        Map<Integer, Long> counts = new HashMap<>();
+        if (!ready) {
+            return counts;
+        }
+        LocalDateTime fromHour = SyslogRollupKey.truncateToHour(startTime);
+        LocalDateTime toHour = SyslogRollupKey.truncateToHour(endTime);
+        flushLock.readLock().lock();
+        try {
+            for (Map<String, Object> row : syslogTemplateHourlyMapper.sumByTemplate(fromHour, toHour)) {
+                if (row.get("template_id") instanceof Number && row.get("log_count") instanceof Number) {
+                    counts.merge(((Number) row.get("template_id")).intValue(),
+                            ((Number) row.get("log_count")).longValue(), Long::sum);
+                }
+            }
+            for (Map.Entry<HourKey, Long> item : pending.entrySet()) {
+                LocalDateTime hour = item.getKey().hour;
+                if (!hour.isBefore(fromHour) && !hour.isAfter(toHour)) {
+                    counts.merge(item.getKey().templateId, item.getValue(), Long::sum);
+                }
+            }
+        } finally {
+            flushLock.readLock().unlock();
+        }
+        return counts;
+    }
+
+    /**
+     * 写入未保存的模板与小时计数增量
+     */
+    @Scheduled(fixedDelayString = "${syslog.template.flush-interval-ms:10000}", initialDelay = 10000)
+    public void flush() {
+        if (!ready) {
+            return;
+        }
+        List<LogTemplate> dirty = new ArrayList<>();
+        for (LogTemplate template : tree.getTemplates()) {
+            if (template.isDirty()) {
+                dirty.add(template);
+            }
+        }
+        if (!dirty.isEmpty()) {
+            try {
+                persistTemplates(dirty);
+            } catch (Exception e) {
+                flushFailures.incrementAndGet();
+                log.warn("写入Syslog模板失败, {} 个模板留待下次重试: {}", dirty.size(), e.getMessage());
+            }
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+        flushLock.writeLock().lock();
+        try {
+            List<Delta> deltas = new ArrayList<>(pending.size());
+            for (HourKey key : pending.keySet()) {
+                Long count = pending.remove(key);
+                if (count != null && count != 0) {
+                    deltas.add(new Delta(key.hour, key.templateId, count));
+                }
+            }
+            int written = 0;
+            try {
+                for (; written < deltas.size(); written += UPSERT_BATCH_SIZE) {
+                    syslogTemplateHourlyMapper.upsertCounts(
+                            deltas.subList(written, Math.min(deltas.size(), written + UPSERT_BATCH_SIZE)));
+                }
+            } catch (Exception e) {
+                for (Delta delta : deltas.subList(written, deltas.size())) {
+                    pending.merge(new HourKey(delta.getStatHour(), delta.getTemplateId()), delta.getCount(), Long::sum);
+                }
+                flushFailures.incrementAndGet();
+                log.warn("写入Syslog模板小时计数失败, {} 行增量留待下次重试: {}", deltas.size() - written, e.getMessage());
+            }
+        } finally {
+            flushLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 清理过期的小时计数，保留期与小时汇总一致；模板本身保留，仍被历史日志引用
+     */
+    @Scheduled(cron = "0 50 2 * * ?")
+    public void dropExpired() {
+        if (!ready) {
+            return;
+        }
+        try {
+            LocalDateTime before = SyslogRollupKey.truncateToHour(LocalDateTime.now())
+                    .minusDays(Math.max(1, syslogProperties.getRollup().getRetentionDays()));
+            int deleted = syslogTemplateHourlyMapper.deleteBefore(before);
+            if (deleted > 0) {
+                log.info("清理 {} 之前的Syslog模板小时计数 {} 行", before, deleted);
+            }
+        } catch (Exception e) {
+            log.warn("清理Syslog模板小时计数失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 模板提取状态，供监控接口展示
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("templateEnabled", ready);
+        data.put("templateCount", ready ? tree.size() : 0);
+        data.put("templateUnassigned", unassigned.sum());
+        data.put("templateAssignMillis", assignNanos.sum() / 1_000_000);
+        data.put("templatePendingKeys", pending.size());
+        data.put("templateFlushFailures", flushFailures.get());
+        return data;
+    }
+
+    /**
+     * 先清除标记再读取内容，写库期间再次泛化的模板会重新标记，下次写入
+     */
+    private void persistTemplates(Collection<LogTemplate> templates) {
+        List<LogTemplate> list = new ArrayList<>(templates);
+        List<SyslogTemplate> rows = new ArrayList<>(list.size());
+        for (LogTemplate template : list) {
+            template.setDirty(false);
+            SyslogTemplate row = new SyslogTemplate();
+            row.setId(template.getId());
+            row.setTemplate(template.getText());
+            row.setTokenCount(template.getTokenCount());
+            row.setFirstSeenAt(template.getFirstSeenAt());
+            rows.add(row);
+        }
+        int written = 0;
+        try {
+            for (; written < rows.size(); written += UPSERT_BATCH_SIZE) {
+                syslogTemplateMapper.upsertTemplates(rows.subList(written, Math.min(rows.size(), written + UPSERT_BATCH_SIZE)));
+            }
+        } catch (RuntimeException e) {
+            for (LogTemplate template : list.subList(written, list.size())) {
+                template.setDirty(true);
+            }
+            throw e;
+        }
+    }
+
+    private boolean hasTemplateColumn() {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.COLUMNS WHERE TABLE_SCHEMA = DATABASE() "
+                        + "AND TABLE_NAME = 't_log_syslog' AND COLUMN_NAME = 'template_id'", Integer.class);
+        return count != null && count > 0;
+    }
+}
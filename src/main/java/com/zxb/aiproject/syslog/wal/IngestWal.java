@@ -0,0 +1,424 @@
+package com.zxb.aiproject.syslog.wal;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * 基于内存映射分段文件的预写缓冲
+ * <pre>
+ * 分段文件 wal-序号.log，创建时按 segmentBytes 预分配：[MAGIC int][VERSION int] [记录]...
+ * 记录：[内容长度 int][CRC32 int][追加时间 long][内容]，CRC 覆盖追加时间与内容，长度为 0 表示分段结束
+ * 读取位置：checkpoint 文件 [分段序号 long][偏移 long][CRC32 int]
+ * </pre>
+ * 记录直接写入映射区，不占用堆内存；进程崩溃后映射区中的数据由操作系统写回，{@link #sync()} 强制落盘以防断电。
+ * 读取分两步：{@link #peek(int)} 读出而不消费，调用方处理成功后 {@link #commit()} 推进读取位置并删除读完的分段，
+ * 处理失败时下次重新读到同一批记录。启动时逐条校验 CRC，末尾残缺的记录（写入中途崩溃）视为分段结束。
+ * 提交后、写 checkpoint 前崩溃时，重启会重读最后一批记录。
+ * 所有方法同步执行，由接收线程（追加）与写库线程（读取、提交）共用。
+ */
+public final class IngestWal {
+
+    private static final int MAGIC = 0x534C5731;
+
+    private static final int VERSION = 1;
+
+    private static final int SEGMENT_HEADER_BYTES = 8;
+
+    private static final int RECORD_HEADER_BYTES = 4 + 4 + 8;
+
+    private static final int CHECKPOINT_BYTES = 8 + 8 + 4;
+
+    private final Path dir;
+
+    private final int segmentBytes;
+
+    private final long maxBytes;
+
+    private final Deque<Segment> segments = new ArrayDeque<>();
+
+    private long nextSeq;
+
+    /**
+     * 读取位置：segments 的第一个分段内的偏移
+     */
+    private int readOffset = SEGMENT_HEADER_BYTES;
+
+    /**
+     * 上次 peek 结束的位置，commit 时生效
+     */
+    private Segment peekSegment;
+
+    private int peekOffset;
+
+    private int peekRecords;
+
+    private long pendingRecords;
+
+    private long pendingBytes;
+
+    private MappedByteBuffer checkpoint;
+
+    /**
+     * 一条记录
+     */
+    public static final class Record {
+        private final long appendedAt;
+        private final byte[] data;
+
+        Record(long appendedAt, byte[] data) {
+            this.appendedAt = appendedAt;
+            this.data = data;
+        }
+
+        /**
+         * 追加时间（毫秒时间戳）
+         */
+        public long getAppendedAt() {
+            return appendedAt;
+        }
+
+        public byte[] getData() {
+            return data;
+        }
+    }
+
+    private static final class Segment {
+        final long seq;
+        final Path path;
+        /**
+         * 已写入数据的结束位置
+         */
+        int end;
+        /**
+         * 只在作为写入或读取分段时映射
+         */
+        MappedByteBuffer buffer;
+
+        Segment(long seq, Path path) {
+            this.seq = seq;
+            this.path = path;
+        }
+    }
+
+    public IngestWal(Path dir, int segmentBytes, long maxBytes) {
+        if (segmentBytes < 64 * 1024) {
+            throw new IllegalArgumentException("WAL分段不能小于64KB: " + segmentBytes);
+        }
+        this.dir = dir;
+        this.segmentBytes = segmentBytes;
+        this.maxBytes = Math.max(maxBytes, segmentBytes);
+    }
+
+    /**
+     * 加载上次未回放完的分段，恢复读取位置
+     */
+    public synchronized void open() throws IOException {
+        Files.createDirectories(dir);
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "wal-*.log")) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        }
+        Collections.sort(files);
+        long checkpointSeq = -1;
+        int checkpointOffset = SEGMENT_HEADER_BYTES;
+        checkpoint = map(dir.resolve("checkpoint"), CHECKPOINT_BYTES);
+        CRC32 crc = new CRC32();
+        crc.update(slice(checkpoint, 0, 16));
+        if ((int) crc.getValue() == checkpoint.getInt(16) && checkpoint.getLong(0) > 0) {
+            checkpointSeq = checkpoint.getLong(0);
+            checkpointOffset = (int) checkpoint.getLong(8);
+        }
+        for (Path file : files) {
+            long seq = parseSeq(file);
+            nextSeq = Math.max(nextSeq, seq + 1);
+            if (seq < checkpointSeq || Files.size(file) < SEGMENT_HEADER_BYTES) {
+                // 已回放完
+                Files.deleteIfExists(file);
+                continue;
+            }
+            Segment segment = new Segment(seq, file);
+            segment.buffer = map(file, (int) Files.size(file));
+            if (segment.buffer.getInt(0) != MAGIC) {
+                Files.deleteIfExists(file);
+                continue;
+            }
+            int start = seq == checkpointSeq ? checkpointOffset : SEGMENT_HEADER_BYTES;
+            scan(segment, start);
+            if (segments.isEmpty()) {
+                readOffset = Math.min(Math.max(start, SEGMENT_HEADER_BYTES), segment.end);
+            }
+            segments.addLast(segment);
+        }
+        // 只保留读取分段与最后一个分段的映射
+        int index = 0;
+        for (Segment segment : segments) {
+            if (index > 0 && index < segments.size() - 1) {
+                segment.buffer = null;
+            }
+            index++;
+        }
+        nextSeq = Math.max(nextSeq, 1);
+    }
+
+    /**
+     * 追加一条记录
+     * @return 超过容量上限时返回 false
+     */
+    public synchronized boolean append(byte[] data) throws IOException {
+        int size = RECORD_HEADER_BYTES + data.length;
+        if (SEGMENT_HEADER_BYTES + size + 4 > segmentBytes) {
+            throw new IllegalArgumentException("WAL记录过大: " + data.length);
+        }
+        Segment segment = segments.peekLast();
+        if (segment == null || segment.end + size + 4 > segment.buffer.capacity()) {
+            if ((long) (segments.size() + 1) * segmentBytes > maxBytes) {
+                return false;
+            }
+            segment = roll();
+        }
+        long now = System.currentTimeMillis();
+        MappedByteBuffer buffer = segment.buffer;
+        int position = segment.end;
+        buffer.putLong(position + 8, now);
+        ByteBuffer body = slice(buffer, position + 16, data.length);
+        body.put(data);
+        CRC32 crc = new CRC32();
+        crc.update(slice(buffer, position + 8, 8 + data.length));
+        // 先写结束标记与内容，最后写长度，读到长度即说明记录完整
+        buffer.putInt(position + size, 0);
+        buffer.putInt(position + 4, (int) crc.getValue());
+        buffer.putInt(position, data.length);
+        segment.end = position + size;
+        pendingRecords++;
+        pendingBytes += size;
+        return true;
+    }
+
+    /**
+     * 强制把写入分段与读取位置落盘
+     */
+    public synchronized void sync() {
+        Segment last = segments.peekLast();
+        if (last != null && last.buffer != null) {
+            last.buffer.force();
+        }
+        if (checkpoint != null) {
+            checkpoint.force();
+        }
+    }
+
+    /**
+     * 从读取位置起读出最多 max 条记录，不推进读取位置
+     */
+    public synchronized List<Record> peek(int max) throws IOException {
+        List<Record> records = new ArrayList<>();
+        peekSegment = null;
+        int index = 0;
+        for (Segment segment : segments) {
+            if (records.size() >= max) {
+                break;
+            }
+            if (segment.buffer == null) {
+                segment.buffer = map(segment.path, (int) Files.size(segment.path));
+            }
+            int offset = index == 0 ? readOffset : SEGMENT_HEADER_BYTES;
+            while (records.size() < max && offset < segment.end) {
+                int length = segment.buffer.getInt(offset);
+                byte[] data = new byte[length];
+                slice(segment.buffer, offset + RECORD_HEADER_BYTES, length).get(data);
+                records.add(new Record(segment.buffer.getLong(offset + 8), data));
+                offset += RECORD_HEADER_BYTES + length;
+            }
+            peekSegment = segment;
+            peekOffset = offset;
+            index++;
+        }
+        peekRecords = records.size();
+        return records;
+    }
+
+    /**
+     * 确认上次 peek 读出的记录已处理，推进读取位置，删除读完的分段
+     */
+    public synchronized void commit() throws IOException {
+        if (peekSegment == null || peekRecords == 0) {
+            return;
+        }
+        while (!segments.isEmpty() && segments.peekFirst() != peekSegment) {
+            Segment done = segments.removeFirst();
+            pendingBytes -= done.end - readOffset;
+            done.buffer = null;
+            Files.deleteIfExists(done.path);
+            readOffset = SEGMENT_HEADER_BYTES;
+        }
+        pendingBytes -= peekOffset - readOffset;
+        pendingRecords -= peekRecords;
+        readOffset = peekOffset;
+        Segment first = segments.peekFirst();
+        if (first != null && segments.size() > 1 && readOffset >= first.end) {
+            // 已读完且不再写入
+            segments.removeFirst();
+            first.buffer = null;
+            Files.deleteIfExists(first.path);
+            readOffset = SEGMENT_HEADER_BYTES;
+        }
+        peekSegment = null;
+        peekRecords = 0;
+        writeCheckpoint();
+    }
+
+    public synchronized boolean isEmpty() {
+        return pendingRecords == 0;
+    }
+
+    /**
+     * 未回放的记录数
+     */
+    public synchronized long getPendingRecords() {
+        return pendingRecords;
+    }
+
+    /**
+     * 未回放记录的字节数
+     */
+    public synchronized long getPendingBytes() {
+        return pendingBytes;
+    }
+
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * 最早一条未回放记录的追加时间，没有时返回 0
+     */
+    public synchronized long getOldestAppendedAt() {
+        if (pendingRecords == 0) {
+            return 0;
+        }
+        int offset = readOffset;
+        for (Segment segment : segments) {
+            if (offset < segment.end) {
+                try {
+                    if (segment.buffer == null) {
+                        segment.buffer = map(segment.path, (int) Files.size(segment.path));
+                    }
+                } catch (IOException e) {
+                    return 0;
+                }
+                return segment.buffer.getLong(offset + 8);
+            }
+            offset = SEGMENT_HEADER_BYTES;
+        }
+        return 0;
+    }
+
+    /**
+     * 落盘并释放映射引用；映射区随缓冲区对象被回收时释放
+     */
+    public synchronized void close() {
+        sync();
+        for (Segment segment : segments) {
+            segment.buffer = null;
+        }
+        checkpoint = null;
+    }
+
+    /**
+     * 校验分段内的记录，确定数据结束位置
+     */
+    private void scan(Segment segment, int start) {
+        MappedByteBuffer buffer = segment.buffer;
+        int capacity = buffer.capacity();
+        int position = SEGMENT_HEADER_BYTES;
+        CRC32 crc = new CRC32();
+        while (position + RECORD_HEADER_BYTES <= capacity) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || position + RECORD_HEADER_BYTES + length > capacity) {
+                break;
+            }
+            crc.reset();
+            crc.update(slice(buffer, position + 8, 8 + length));
+            if ((int) crc.getValue() != buffer.getInt(position + 4)) {
+                break;
+            }
+            int size = RECORD_HEADER_BYTES + length;
+            if (position >= start) {
+                pendingRecords++;
+                pendingBytes += size;
+            }
+            position += size;
+        }
+        segment.end = position;
+    }
+
+    private Segment roll() throws IOException {
+        Segment last = segments.peekLast();
+        if (last != null) {
+            last.buffer.force();
+            if (segments.size() > 1) {
+                // 不是读取分段的不再保留映射
+                last.buffer = null;
+            }
+        }
+        long seq = nextSeq++;
+        Segment segment = new Segment(seq, dir.resolve(String.format("wal-%016d.log", seq)));
+        segment.buffer = map(segment.path, segmentBytes);
+        segment.buffer.putInt(0, MAGIC);
+        segment.buffer.putInt(4, VERSION);
+        segment.buffer.putInt(SEGMENT_HEADER_BYTES, 0);
+        segment.end = SEGMENT_HEADER_BYTES;
+        if (segments.isEmpty()) {
+            readOffset = SEGMENT_HEADER_BYTES;
+        }
+        segments.addLast(segment);
+        return segment;
+    }
+
+    private void writeCheckpoint() {
+        Segment first = segments.peekFirst();
+        checkpoint.putLong(0, first == null ? nextSeq : first.seq);
+        checkpoint.putLong(8, first == null ? SEGMENT_HEADER_BYTES : readOffset);
+        CRC32 crc = new CRC32();
+        crc.update(slice(checkpoint, 0, 16));
+        checkpoint.putInt(16, (int) crc.getValue());
+    }
+
+    private static MappedByteBuffer map(Path file, int size) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw");
+             FileChannel channel = raf.getChannel()) {
+            // 映射建立后与通道关闭无关
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(size, raf.length()));
+        }
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int offset, int length) {
+        ByteBuffer duplicate = buffer.duplicate();
+        duplicate.position(offset);
+        duplicate.limit(offset + length);
+        return duplicate.slice();
+    }
+
+    private static long parseSeq(Path file) {
+        String name = file.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(4, name.length() - 4));
+        } catch (RuntimeException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.zxb.aiproject.syslog.wal;
+
+import com.zxb.aiproject.entity.SyslogEntry;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * 预写缓冲中的日志编码
+ * [类型 byte][各字段]...，可空字段前加一个存在标记字节；时间按 UTC 换算为秒与纳秒，不涉及时区。
+ * 类型区分两种记录：接收线程追加的原始日志，写库前要补做资产关联、规则匹配、模板提取与转发；
+ * 已完成这些处理的日志（旧版本写库失败时落盘），读出后只需写库。
+ */
+public final class SyslogWalCodec {
+
+    /**
+     * 未经处理的原始日志
+     */
+    public static final byte KIND_RAW = 1;
+
+    /**
+     * 已完成写库前处理的日志
+     */
+    public static final byte KIND_PROCESSED = 2;
+
+    private SyslogWalCodec() {
+    }
+
+    public static byte[] encode(SyslogEntry entry, byte kind) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(kind);
+            writeTime(out, entry.getReceivedAt());
+            writeTime(out, entry.getEventTime());
+            writeString(out, entry.getSourceIp());
+            writeString(out, entry.getDeviceType());
+            writeInt(out, entry.getFacility());
+            writeInt(out, entry.getSeverity());
+            writeString(out, entry.getHostname());
+            writeString(out, entry.getMessage());
+            writeInt(out, entry.getMatchedRuleId());
+            writeInt(out, entry.getMatchedEventId());
+            out.writeBoolean(Boolean.TRUE.equals(entry.getIsAlert()));
+            writeInt(out, entry.getRepeatCount());
+            writeTime(out, entry.getLastSeenAt());
+            writeInt(out, entry.getTemplateId());
+            out.writeBoolean(entry.getAssetId() != null);
+            if (entry.getAssetId() != null) {
+                out.writeLong(entry.getAssetId());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static byte kindOf(byte[] data) {
+        return data[0];
+    }
+
+    /**
+     * @throws IllegalArgumentException 内容损坏
+     */
+    public static SyslogEntry decode(byte[] data) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            in.readByte();
+            SyslogEntry entry = new SyslogEntry();
+            entry.setReceivedAt(readTime(in));
+            entry.setEventTime(readTime(in));
+            entry.setSourceIp(readString(in));
+            entry.setDeviceType(readString(in));
+            entry.setFacility(readInt(in));
+            entry.setSeverity(readInt(in));
+            entry.setHostname(readString(in));
+            entry.setMessage(readString(in));
+            entry.setMatchedRuleId(readInt(in));
+            entry.setMatchedEventId(readInt(in));
+            entry.setIsAlert(in.readBoolean());
+            entry.setRepeatCount(readInt(in));
+            entry.setLastSeenAt(readTime(in));
+            entry.setTemplateId(readInt(in));
+            entry.setAssetId(in.readBoolean() ? in.readLong() : null);
+            return entry;
+        } catch (IOException e) {
+            throw new IllegalArgumentException("WAL记录损坏: " + e.getMessage(), e);
+        }
+    }
+
+    private static void writeTime(DataOutputStream out, LocalDateTime time) throws IOException {
+        out.writeBoolean(time != null);
+        if (time != null) {
+            out.writeLong(time.toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(time.getNano());
+        }
+    }
+
+    private static LocalDateTime readTime(DataInputStream in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        long seconds = in.readLong();
+        return LocalDateTime.ofEpochSecond(seconds, in.readInt(), ZoneOffset.UTC);
+    }
+
+    private static void writeInt(DataOutputStream out, Integer value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeInt(value);
+        }
+    }
+
+    private static Integer readInt(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readInt() : null;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,98 @@
+package com.zxb.aiproject.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * 短时结果缓存
+ * 同一个键在有效期内只计算一次，并发请求等待同一次计算的结果；计算失败不缓存，下次请求重新计算。
+ * 条目数达到上限时先清理过期条目，仍然满时新键直接计算、不缓存。
+ */
+public final class ExpiringCache<K, V> {
+
+    private final long ttlMillis;
+
+    private final int maxEntries;
+
+    private final LongSupplier clock;
+
+    private final ConcurrentHashMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+
+    private static final class Entry<V> {
+        private final FutureTask<V> task;
+        /**
+         * 计算完成前为 Long.MAX_VALUE，计算中的条目不会被当作过期
+         */
+        private volatile long expiresAt = Long.MAX_VALUE;
+
+        Entry(Supplier<V> loader) {
+            this.task = new FutureTask<>(loader::get);
+        }
+
+        boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+    }
+
+    public ExpiringCache(long ttlMillis, int maxEntries) {
+        this(ttlMillis, maxEntries, System::currentTimeMillis);
+    }
+
+    ExpiringCache(long ttlMillis, int maxEntries, LongSupplier clock) {
+        this.ttlMillis = ttlMillis;
+        this.maxEntries = maxEntries;
+        this.clock = clock;
+    }
+
+    /**
+     * 取缓存结果，没有或已过期时由当前线程调用 loader 计算
+     */
+    public V get(K key, Supplier<V> loader) {
+        if (ttlMillis <= 0) {
+            return loader.get();
+        }
+        long now = clock.getAsLong();
+        Entry<V> entry = entries.get(key);
+        if (entry == null || entry.isExpired(now)) {
+            if (entry == null && entries.size() >= maxEntries) {
+                entries.values().removeIf(item -> item.isExpired(now));
+                if (entries.size() >= maxEntries) {
+                    return loader.get();
+                }
+            }
+            Entry<V> created = new Entry<>(loader);
+            entry = entries.compute(key, (k, old) -> old == null || old.isExpired(now) ? created : old);
+            if (entry == created) {
+                created.task.run();
+                created.expiresAt = clock.getAsLong() + ttlMillis;
+            }
+        }
+        try {
+            return entry.task.get();
+        } catch (ExecutionException e) {
+            entries.remove(key, entry);
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("等待缓存计算时被中断", e);
+        }
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+}
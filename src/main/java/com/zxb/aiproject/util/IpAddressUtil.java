@@ -0,0 +1,90 @@
+package com.zxb.aiproject.util;
+
+/**
+ * IPv4 地址工具类
+ * 统一地址与无符号整数之间的转换，供规则匹配、资产索引等按区间查找的场景使用
+ */
+public class IpAddressUtil {
+
+    /**
+     * IPv4 地址空间上界（不含）
+     */
+    public static final long IPV4_SPACE = 1L << 32;
+
+    /**
+     * 将点分十进制IPv4地址转换为无符号整数
+     * @param ip IPv4 地址
+     * @return 0 ~ 2^32-1，非法地址返回 -1
+     */
+    public static long toLong(String ip) {
+        if (ip == null) {
+            return -1;
+        }
+        int length = ip.length();
+        if (length < 7 || length > 15) {
+            return -1;
+        }
+        long result = 0;
+        int octet = 0;
+        int digits = 0;
+        int dots = 0;
+        for (int i = 0; i < length; i++) {
+            char c = ip.charAt(i);
+            if (c >= '0' && c <= '9') {
+                octet = octet * 10 + (c - '0');
+                if (++digits > 3 || octet > 255) {
+                    return -1;
+                }
+            } else if (c == '.') {
+                if (digits == 0 || ++dots > 3) {
+                    return -1;
+                }
+                result = (result << 8) | octet;
+                octet = 0;
+                digits = 0;
+            } else {
+                return -1;
+            }
+        }
+        if (dots != 3 || digits == 0) {
+            return -1;
+        }
+        return (result << 8) | octet;
+    }
+
+    /**
+     * 将无符号整数转换为点分十进制IPv4地址
+     */
+    public static String toIp(long value) {
+        return ((value >> 24) & 0xFF) + "." + ((value >> 16) & 0xFF) + "." + ((value >> 8) & 0xFF) + "." + (value & 0xFF);
+    }
+
+    /**
+     * 解析 CIDR（如 10.0.0.0/24）或单个IP
+     * @return [起始, 结束]（闭区间），非法返回 null
+     */
+    public static long[] parseCidr(String cidr) {
+        if (cidr == null) {
+            return null;
+        }
+        String value = cidr.trim();
+        int slash = value.indexOf('/');
+        if (slash < 0) {
+            long ip = toLong(value);
+            return ip < 0 ? null : new long[]{ip, ip};
+        }
+        long ip = toLong(value.substring(0, slash));
+        int prefix;
+        try {
+            prefix = Integer.parseInt(value.substring(slash + 1).trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (ip < 0 || prefix < 0 || prefix > 32) {
+            return null;
+        }
+        long mask = prefix == 0 ? 0 : (0xFFFFFFFFL << (32 - prefix)) & 0xFFFFFFFFL;
+        long start = ip & mask;
+        return new long[]{start, start | (~mask & 0xFFFFFFFFL)};
+    }
+}
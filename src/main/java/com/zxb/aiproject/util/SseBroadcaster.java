@@ -0,0 +1,207 @@
+package com.zxb.aiproject.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SSE 多订阅推送
+ * 生产方只把内容放入各订阅自己的有界缓冲并调用 {@link #scheduleSend}，不做网络IO；推送线程池按订阅发送，
+ * 同一订阅同一时刻只有一个推送任务（发送在订阅对象上加锁），慢客户端只拖住自己。
+ * 缓冲内容如何发送由使用方的 {@link Drainer} 决定，连接断开由发送失败或定时心跳发现。
+ */
+@Slf4j
+public final class SseBroadcaster<S extends SseBroadcaster.Subscription<?>> {
+
+    /**
+     * 单个订阅，使用方按需扩展自己的状态
+     */
+    public static class Subscription<T> {
+        private final String id;
+        private final SseEmitter emitter;
+        private final BlockingQueue<T> buffer;
+        final AtomicBoolean sending = new AtomicBoolean();
+        private final AtomicLong sent = new AtomicLong();
+        volatile boolean closed;
+
+        public Subscription(String id, SseEmitter emitter, int capacity) {
+            this.id = id;
+            this.emitter = emitter;
+            this.buffer = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public SseEmitter getEmitter() {
+            return emitter;
+        }
+
+        public BlockingQueue<T> getBuffer() {
+            return buffer;
+        }
+
+        public AtomicLong getSent() {
+            return sent;
+        }
+
+        public boolean isClosed() {
+            return closed;
+        }
+
+        /**
+         * 推送任务结束后是否还有待发送的内容，有则重新安排推送
+         */
+        protected boolean hasPending() {
+            return !buffer.isEmpty();
+        }
+    }
+
+    /**
+     * 发送订阅缓冲中的内容，在推送线程上、持有订阅锁时调用；抛出异常时关闭订阅
+     */
+    public interface Drainer<S> {
+        void drain(S subscription) throws Exception;
+    }
+
+    private final String name;
+
+    private final Drainer<S> drainer;
+
+    private final Map<String, S> subscriptions = new ConcurrentHashMap<>();
+
+    private final ExecutorService sendExecutor;
+
+    private final AtomicInteger threadSeq = new AtomicInteger();
+
+    /**
+     * @param name         日志中的名称，如“实时日志”
+     * @param threadPrefix 推送线程名前缀
+     * @param threads      推送线程数
+     */
+    public SseBroadcaster(String name, String threadPrefix, int threads, Drainer<S> drainer) {
+        this.name = name;
+        this.drainer = drainer;
+        this.sendExecutor = Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+            Thread t = new Thread(r, threadPrefix + "-" + threadSeq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * 登记订阅：连接完成、超时或出错时自动移除
+     */
+    public void register(S subscription) {
+        SseEmitter emitter = subscription.getEmitter();
+        emitter.onCompletion(() -> remove(subscription));
+        emitter.onTimeout(() -> remove(subscription));
+        emitter.onError(e -> remove(subscription));
+        subscriptions.put(subscription.getId(), subscription);
+        log.info("{}订阅建立: {}, 当前订阅数: {}", name, subscription.getId(), subscriptions.size());
+    }
+
+    public Collection<S> getSubscriptions() {
+        return subscriptions.values();
+    }
+
+    public int size() {
+        return subscriptions.size();
+    }
+
+    public boolean isEmpty() {
+        return subscriptions.isEmpty();
+    }
+
+    /**
+     * 安排一次推送；该订阅已有推送任务时由其在结束前补发
+     */
+    public void scheduleSend(S subscription) {
+        if (!subscription.closed && subscription.sending.compareAndSet(false, true)) {
+            try {
+                sendExecutor.execute(() -> drain(subscription));
+            } catch (RuntimeException e) {
+                subscription.sending.set(false);
+            }
+        }
+    }
+
+    /**
+     * 心跳：SSE 注释行，写失败说明连接已断开
+     */
+    public void heartbeat() {
+        for (S subscription : subscriptions.values()) {
+            if (subscription.sending.get()) {
+                // 正在推送的订阅由推送任务自行发现断开
+                continue;
+            }
+            sendExecutor.execute(() -> {
+                synchronized (subscription) {
+                    try {
+                        subscription.getEmitter().send(SseEmitter.event().comment("heartbeat"));
+                    } catch (Exception e) {
+                        close(subscription);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * 结束订阅并关闭连接
+     */
+    public void close(S subscription) {
+        remove(subscription);
+        try {
+            subscription.getEmitter().complete();
+        } catch (Exception ignored) {
+            // 连接已断开
+        }
+    }
+
+    /**
+     * 关闭全部订阅并停止推送线程
+     */
+    public void shutdown() {
+        for (S subscription : subscriptions.values()) {
+            close(subscription);
+        }
+        sendExecutor.shutdownNow();
+    }
+
+    private void drain(S subscription) {
+        try {
+            synchronized (subscription) {
+                drainer.drain(subscription);
+            }
+        } catch (Exception e) {
+            log.debug("{}发送失败, 关闭订阅 {}: {}", name, subscription.getId(), e.getMessage());
+            close(subscription);
+        } finally {
+            subscription.sending.set(false);
+        }
+        // 释放标记后又有新内容进入时补发
+        if (subscription.hasPending()) {
+            scheduleSend(subscription);
+        }
+    }
+
+    private void remove(S subscription) {
+        subscription.closed = true;
+        if (subscriptions.remove(subscription.getId()) != null) {
+            subscription.getBuffer().clear();
+            log.info("{}订阅结束: {}, 当前订阅数: {}", name, subscription.getId(), subscriptions.size());
+        }
+    }
+}
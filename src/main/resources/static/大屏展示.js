@@ -10,8 +10,9 @@ document.addEventListener('DOMContentLoaded', function() {
     initResponsive();
     initDeviceSearch(); // 初始化设备搜索功能
 
-    // 定时刷新数据
-    setInterval(loadData, 30000); // 30秒刷新一次
+    // 定时刷新数据：核心统计与告警监控由服务端推送，设备列表仍30秒刷新一次
+    startPanelStream();
+    setInterval(updateDeviceTable, 30000);
     setInterval(updateTime, 1000); // 每秒更新时间
 });
 
@@ -5602,6 +5603,95 @@ async function loadCoreStats() {
     }
 }
 
+// 大屏推送：连接后先收到完整数据，之后只收到变化面板的 JSON Patch；连接不可用时回退为定时轮询
+const PANEL_STREAM_HANDLERS = {
+    'core-stats': data => updateCoreStats(data),
+    'alert-monitor/severity-stats': data => currentView === '告警监控' && updateAlertStatsPieChart(data),
+    'alert-monitor/monthly-trend': data => currentView === '告警监控' && updateAlertMonthTrendChart(data),
+    'alert-monitor/handle-stats': data => currentView === '告警监控' && updateAlertHandleChart(data),
+    'alert-monitor/30day-trend': data => currentView === '告警监控' && current30DayTrendType === 'all'
+        && updateAlert30DayTrendChart(data, 'all'),
+    'alert-monitor/radial-stats': data => currentView === '告警监控' && updateAlertRadialChart(data),
+    'alert-monitor/list': data => currentView === '告警监控' && updateAlertTable(data)
+};
+const panelState = {};
+let panelStream = null;
+let panelPollTimer = null;
+
+function startPanelStream() {
+    if (!window.EventSource) {
+        startPanelPolling();
+        return;
+    }
+    const contextPath = window.contextPath || '/api';
+    panelStream = new EventSource(`${contextPath}/bigscreen/stream?panels=core-stats,alert-monitor`);
+    panelStream.addEventListener('snapshot', e => {
+        stopPanelPolling();
+        const snapshot = JSON.parse(e.data);
+        Object.keys(snapshot.panels).forEach(name => {
+            panelState[name] = snapshot.panels[name].data;
+            notifyPanel(name);
+        });
+    });
+    panelStream.addEventListener('patch', e => {
+        const patch = JSON.parse(e.data);
+        panelState[patch.panel] = applyJsonPatch(panelState[patch.panel], patch.ops);
+        notifyPanel(patch.panel);
+    });
+    panelStream.addEventListener('error', e => {
+        // 断线期间轮询，EventSource 自动重连后会重新收到完整数据；服务端拒绝订阅时不再重连
+        startPanelPolling();
+        if (e.data || panelStream.readyState === EventSource.CLOSED) {
+            panelStream.close();
+            panelStream = null;
+        }
+    });
+}
+
+function startPanelPolling() {
+    if (!panelPollTimer) {
+        panelPollTimer = setInterval(loadCoreStats, 30000);
+    }
+}
+
+function stopPanelPolling() {
+    if (panelPollTimer) {
+        clearInterval(panelPollTimer);
+        panelPollTimer = null;
+    }
+}
+
+function notifyPanel(name) {
+    const handler = PANEL_STREAM_HANDLERS[name];
+    if (handler && panelState[name] != null) {
+        handler(panelState[name]);
+    }
+}
+
+// 应用 JSON Patch（服务端只生成 add、remove、replace）
+function applyJsonPatch(doc, ops) {
+    for (const op of ops) {
+        if (op.path === '') {
+            doc = op.value;
+            continue;
+        }
+        const keys = op.path.substring(1).split('/').map(k => k.replace(/~1/g, '/').replace(/~0/g, '~'));
+        const last = keys.pop();
+        let target = doc;
+        keys.forEach(k => { target = target[k]; });
+        if (op.op === 'remove') {
+            if (Array.isArray(target)) {
+                target.splice(Number(last), 1);
+            } else {
+                delete target[last];
+            }
+        } else {
+            target[last] = op.value;
+        }
+    }
+    return doc;
+}
+
 // 获取默认核心统计数据
 function getDefaultCoreStats() {
     return {
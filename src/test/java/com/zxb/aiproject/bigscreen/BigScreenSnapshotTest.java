@@ -0,0 +1,44 @@
+package com.zxb.aiproject.bigscreen;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 大屏快照测试
+ */
+public class BigScreenSnapshotTest {
+
+    private static BigScreenSnapshot.Panel panel(String name, String etag) {
+        return new BigScreenSnapshot.Panel(name, etag, "\"" + etag + "\"", LocalDateTime.now(), System.currentTimeMillis());
+    }
+
+    @Test
+    public void testVersionChangesOnlyWithContent() {
+        BigScreenSnapshot first = BigScreenSnapshot.EMPTY.with(panel("core-stats", "a"));
+        assertEquals(1, first.getVersion());
+        assertNull(BigScreenSnapshot.EMPTY.getPanel("core-stats"));
+
+        // 内容不变的重算：版本与 ETag 不变，生成时间更新
+        BigScreenSnapshot same = first.with(panel("core-stats", "a"));
+        assertEquals(1, same.getVersion());
+        assertEquals(first.getEtag(), same.getEtag());
+        assertNotSame(first.getPanel("core-stats"), same.getPanel("core-stats"));
+
+        BigScreenSnapshot changed = same.with(panel("core-stats", "b"));
+        assertEquals(2, changed.getVersion());
+        assertNotEquals(same.getEtag(), changed.getEtag());
+        assertEquals("b", changed.getPanel("core-stats").getData());
+    }
+
+    @Test
+    public void testPanelsSortedAndImmutable() {
+        BigScreenSnapshot snapshot = BigScreenSnapshot.EMPTY
+                .with(panel("netops/kpi", "x"))
+                .with(panel("alert-monitor/list", "y"));
+        assertEquals("[alert-monitor/list, netops/kpi]", snapshot.getPanels().keySet().toString());
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.getPanels().remove("netops/kpi"));
+    }
+}
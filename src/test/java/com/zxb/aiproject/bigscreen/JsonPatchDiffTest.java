@@ -0,0 +1,51 @@
+package com.zxb.aiproject.bigscreen;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JSON Patch 生成测试
+ */
+public class JsonPatchDiffTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private JsonNode json(String text) throws Exception {
+        return mapper.readTree(text.replace('\'', '"'));
+    }
+
+    private String diff(String from, String to) throws Exception {
+        List<Map<String, Object>> ops = JsonPatchDiff.diff(json(from), json(to));
+        return mapper.writeValueAsString(ops).replace('"', '\'');
+    }
+
+    @Test
+    public void testObjectFields() throws Exception {
+        assertEquals("[]", diff("{'a':1,'b':{'c':2}}", "{'b':{'c':2},'a':1}"));
+        assertEquals("[{'op':'remove','path':'/x'},{'op':'replace','path':'/a','value':2},"
+                        + "{'op':'add','path':'/b/d','value':[1]}]",
+                diff("{'a':1,'x':0,'b':{'c':2}}", "{'a':2,'b':{'c':2,'d':[1]}}"));
+    }
+
+    @Test
+    public void testArrays() throws Exception {
+        // 长度不变按下标比较
+        assertEquals("[{'op':'replace','path':'/list/1/v','value':9}]",
+                diff("{'list':[{'v':1},{'v':2}]}", "{'list':[{'v':1},{'v':9}]}"));
+        // 长度变化整体替换
+        assertEquals("[{'op':'replace','path':'/list','value':[1,2,3]}]",
+                diff("{'list':[1,2]}", "{'list':[1,2,3]}"));
+        assertEquals("[{'op':'replace','path':'','value':[1]}]", diff("{'a':1}", "[1]"));
+    }
+
+    @Test
+    public void testPointerEscape() throws Exception {
+        assertEquals("[{'op':'add','path':'/a~1b~0c','value':1}]", diff("{}", "{'a/b~c':1}"));
+    }
+}
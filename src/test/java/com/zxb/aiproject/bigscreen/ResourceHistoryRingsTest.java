@@ -0,0 +1,68 @@
+package com.zxb.aiproject.bigscreen;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResourceHistoryRingsTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 6, 2);
+
+    private static double[] row(double cpu, double predict) {
+        return new double[]{cpu, 50, 20, Double.NaN, predict, Double.NaN, Double.NaN, Double.NaN};
+    }
+
+    @Test
+    void deviceAndFleetAverage() {
+        ResourceHistoryRings rings = new ResourceHistoryRings();
+        rings.add("asset:1", TODAY, 9, row(40, 45));
+        rings.add("cloud_host:1", TODAY, 9, row(60, Double.NaN));
+
+        Double[][] device = rings.day("asset:1", TODAY);
+        assertEquals(40.0, device[0][9]);
+        assertEquals(45.0, device[4][9]);
+        // 实际值为空按 0，预测值为空为 null，没有记录的小时为 null
+        assertEquals(0.0, device[3][9]);
+        assertNull(device[5][9]);
+        assertNull(device[0][10]);
+
+        Double[][] fleet = rings.day(null, TODAY);
+        assertEquals(50.0, fleet[0][9]);
+        assertEquals(45.0, fleet[4][9]);
+        assertEquals(0.0, fleet[3][9]);
+        assertNull(fleet[5][9]);
+
+        assertNull(rings.day("cloud_vm:1", TODAY));
+        assertEquals(50.0, rings.dailyCpuAverage(TODAY));
+    }
+
+    @Test
+    void slotsFromAnotherDayAreIgnored() {
+        ResourceHistoryRings rings = new ResourceHistoryRings();
+        rings.add("asset:1", TODAY.minusDays(1), 9, row(80, 85));
+        assertNull(rings.day("asset:1", TODAY));
+        assertNull(rings.day(null, TODAY));
+
+        rings.add("asset:1", TODAY, 9, row(30, 35));
+        assertEquals(30.0, rings.day(null, TODAY)[0][9]);
+        // 晚到的前一天数据不覆盖今天的槽
+        rings.add("asset:1", TODAY.minusDays(1), 9, row(90, 95));
+        assertEquals(30.0, rings.day("asset:1", TODAY)[0][9]);
+        assertEquals(30.0, rings.day(null, TODAY)[0][9]);
+        assertEquals(85.0, rings.dailyCpuAverage(TODAY.minusDays(1)));
+
+        rings.prune(TODAY);
+        assertNull(rings.dailyCpuAverage(TODAY.minusDays(1)));
+    }
+
+    @Test
+    void parseDeviceKey() {
+        assertEquals("cloud_host:3", ResourceHistoryStore.parseDeviceKey("host_3"));
+        assertEquals("cloud_vm:4", ResourceHistoryStore.parseDeviceKey("vm_4"));
+        assertEquals("asset:5", ResourceHistoryStore.parseDeviceKey("asset_5"));
+        assertEquals("asset:6", ResourceHistoryStore.parseDeviceKey("6"));
+        assertThrows(IllegalArgumentException.class, () -> ResourceHistoryStore.parseDeviceKey("host_x"));
+    }
+}
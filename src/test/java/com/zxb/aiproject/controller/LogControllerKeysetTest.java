@@ -0,0 +1,171 @@
+package com.zxb.aiproject.controller;
+
+import com.zxb.aiproject.common.result.Result;
+import com.zxb.aiproject.config.SyslogProperties;
+import com.zxb.aiproject.dto.LogQueryDTO;
+import com.zxb.aiproject.entity.SyslogEntry;
+import com.zxb.aiproject.mapper.SyslogEntryMapper;
+import com.zxb.aiproject.service.SyslogStatisticsService;
+import com.zxb.aiproject.syslog.SyslogPageCursor;
+import com.zxb.aiproject.syslog.archive.SyslogArchiveStore;
+import com.zxb.aiproject.syslog.index.SyslogCandidateSets;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Syslog列表游标分页测试
+ * 模拟 selectSyslogKeyset 的 (received_at DESC, id DESC) 排序与游标条件，检查翻页边界
+ */
+public class LogControllerKeysetTest {
+
+    private static final LocalDateTime T1 = LocalDateTime.of(2025, 11, 29, 16, 0, 0);
+
+    private static final LocalDateTime T2 = T1.plusMinutes(5);
+
+    private final List<SyslogEntry> table = new ArrayList<>();
+
+    private Long estimate;
+
+    private LogController controller;
+
+    @BeforeEach
+    public void setUp() {
+        // 同一时间戳下的ID与插入顺序不一致，且每页的边界都落在相同时间戳的日志中间
+        table.add(entry(1, T1));
+        table.add(entry(7, T2));
+        table.add(entry(3, T2));
+        table.add(entry(5, T2));
+        table.add(entry(4, T1));
+        table.add(entry(9, T2));
+        table.add(entry(2, T1));
+
+        SyslogArchiveStore archiveStore = new SyslogArchiveStore();
+        ReflectionTestUtils.setField(archiveStore, "syslogProperties", new SyslogProperties());
+        controller = new LogController();
+        ReflectionTestUtils.setField(controller, "syslogEntryMapper", syslogEntryMapper());
+        ReflectionTestUtils.setField(controller, "syslogArchiveStore", archiveStore);
+        ReflectionTestUtils.setField(controller, "syslogCandidateSets", new SyslogCandidateSets());
+        ReflectionTestUtils.setField(controller, "syslogStatisticsService", statisticsService());
+    }
+
+    @Test
+    public void testPagesFollowOrderWithEqualTimestamps() {
+        List<Long> ids = new ArrayList<>();
+        String cursor = "";
+        int pages = 0;
+        while (cursor != null) {
+            Map<String, Object> data = page(cursor, 3, "none");
+            for (Object record : (List<?>) data.get("records")) {
+                ids.add(((SyslogEntry) record).getId());
+            }
+            cursor = (String) data.get("nextCursor");
+            assertEquals(cursor != null, data.get("hasMore"));
+            pages++;
+        }
+
+        assertEquals(Arrays.asList(9L, 7L, 5L, 3L, 4L, 2L, 1L), ids);
+        assertEquals(3, pages);
+    }
+
+    @Test
+    public void testSecondPageStartsAfterFirstPageCursor() {
+        Map<String, Object> first = page("", 2, "capped");
+        List<?> firstRecords = (List<?>) first.get("records");
+        SyslogEntry last = (SyslogEntry) firstRecords.get(firstRecords.size() - 1);
+        SyslogPageCursor cursor = SyslogPageCursor.decode((String) first.get("nextCursor"));
+        assertEquals(T2, cursor.getReceivedAt());
+        assertEquals(last.getId().longValue(), cursor.getId());
+        assertEquals(7L, first.get("total"));
+        assertEquals(true, first.get("totalExact"));
+
+        Map<String, Object> second = page((String) first.get("nextCursor"), 2, "capped");
+        List<?> secondRecords = (List<?>) second.get("records");
+        assertEquals(5L, ((SyslogEntry) secondRecords.get(0)).getId());
+        assertEquals(3L, ((SyslogEntry) secondRecords.get(1)).getId());
+        // 总数只在首页计算
+        assertFalse(second.containsKey("total"));
+    }
+
+    @Test
+    public void testEstimatedTotalFallsBackToCapped() {
+        estimate = 42L;
+        Map<String, Object> estimated = page("", 2, "estimated");
+        assertEquals(42L, estimated.get("total"));
+        assertEquals(false, estimated.get("totalExact"));
+        assertEquals(true, estimated.get("totalEstimated"));
+
+        estimate = null;
+        Map<String, Object> capped = page("", 2, "estimated");
+        assertEquals(7L, capped.get("total"));
+        assertEquals(true, capped.get("totalExact"));
+        assertFalse(capped.containsKey("totalEstimated"));
+    }
+
+    @Test
+    public void testInvalidCursorRejected() {
+        Result<Map<String, Object>> result = controller.getSyslogPage(1, 2, null, null, null, null, null, null,
+                null, null, null, null, null, null, null, "not-a-cursor", "none");
+        assertNull(result.getData());
+        assertTrue(result.getMessage().startsWith("游标无效"));
+    }
+
+    private Map<String, Object> page(String cursor, int pageSize, String totalMode) {
+        Result<Map<String, Object>> result = controller.getSyslogPage(1, pageSize, null, null, null, null, null, null,
+                null, null, null, null, null, null, null, cursor, totalMode);
+        assertNotNull(result.getData(), result.getMessage());
+        return result.getData();
+    }
+
+    private SyslogEntryMapper syslogEntryMapper() {
+        return (SyslogEntryMapper) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{SyslogEntryMapper.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "selectSyslogKeyset":
+                            LogQueryDTO query = (LogQueryDTO) args[0];
+                            return table.stream()
+                                    .filter(e -> query.getCursorTime() == null
+                                            || e.getReceivedAt().isBefore(query.getCursorTime())
+                                            || (e.getReceivedAt().equals(query.getCursorTime()) && e.getId() < query.getCursorId()))
+                                    .sorted(Comparator.comparing(SyslogEntry::getReceivedAt)
+                                            .thenComparing(SyslogEntry::getId).reversed())
+                                    .limit((Integer) args[1])
+                                    .collect(Collectors.toList());
+                        case "countSyslogCapped":
+                            return (long) Math.min(table.size(), (Integer) args[1]);
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    private SyslogStatisticsService statisticsService() {
+        return (SyslogStatisticsService) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{SyslogStatisticsService.class}, (proxy, method, args) -> {
+                    if ("estimateLogCount".equals(method.getName())) {
+                        return estimate;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private static SyslogEntry entry(long id, LocalDateTime receivedAt) {
+        SyslogEntry entry = new SyslogEntry();
+        entry.setId(id);
+        entry.setReceivedAt(receivedAt);
+        entry.setSeverity(5);
+        entry.setMessage("log " + id);
+        return entry;
+    }
+}
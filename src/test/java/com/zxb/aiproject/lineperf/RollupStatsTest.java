@@ -0,0 +1,85 @@
+package com.zxb.aiproject.lineperf;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RollupStatsTest {
+
+    private static final long MINUTE = TimeUnit.MINUTES.toMillis(1);
+
+    private static double[] latency(double value) {
+        double[] values = new double[LineMetric.values().length];
+        Arrays.fill(values, Double.NaN);
+        values[LineMetric.LATENCY.ordinal()] = value;
+        return values;
+    }
+
+    @Test
+    void sketchQuantileWithinRelativeAccuracy() {
+        QuantileSketch sketch = new QuantileSketch(0.01);
+        for (int i = 1; i <= 1000; i++) {
+            sketch.add(i);
+        }
+        assertEquals(1000, sketch.getCount());
+        assertEquals(950, sketch.quantile(0.95), 950 * 0.01);
+        assertEquals(500, sketch.quantile(0.5), 500 * 0.01);
+        assertTrue(Double.isNaN(new QuantileSketch(0.01).quantile(0.95)));
+    }
+
+    @Test
+    void mergedBucketsMatchSingleStats() {
+        RollupStats whole = new RollupStats(0.01, true);
+        List<RollupStats> parts = new ArrayList<>();
+        for (int p = 0; p < 5; p++) {
+            RollupStats part = new RollupStats(0.01, true);
+            for (int i = 0; i < 200; i++) {
+                double value = (p * 200 + i) % 97 + 0.5;
+                part.add(latency(value));
+                whole.add(latency(value));
+            }
+            parts.add(part);
+        }
+        RollupStats merged = new RollupStats(0.01, true);
+        parts.forEach(merged::merge);
+
+        assertEquals(whole.getCount(LineMetric.LATENCY), merged.getCount(LineMetric.LATENCY));
+        assertEquals(whole.getAvg(LineMetric.LATENCY), merged.getAvg(LineMetric.LATENCY), 1e-9);
+        assertEquals(whole.getMax(LineMetric.LATENCY), merged.getMax(LineMetric.LATENCY));
+        assertEquals(whole.getP95(LineMetric.LATENCY), merged.getP95(LineMetric.LATENCY));
+        // 没有数据的指标为 null
+        assertNull(merged.getAvg(LineMetric.JITTER));
+        assertNull(merged.getP95(LineMetric.JITTER));
+
+        // 相减只保留个数与和
+        RollupStats rest = merged.minus(parts.get(0));
+        assertEquals(800, rest.getCount(LineMetric.LATENCY));
+        assertNull(rest.getP95(LineMetric.LATENCY));
+    }
+
+    @Test
+    void tierKeepsOnlyRetainedBuckets() {
+        RollupTier tier = new RollupTier(MINUTE, 10 * MINUTE, 0.01);
+        long base = 1_000 * MINUTE;
+        for (int m = 0; m < 20; m++) {
+            tier.add(base + m * MINUTE + 30_000, latency(m));
+        }
+        // 槽位已被覆盖的旧数据不再写入
+        tier.add(base, latency(1000));
+
+        RollupStats window = new RollupStats(0.01, true);
+        tier.forEach(base + 15 * MINUTE, (start, bucket) -> window.merge(bucket));
+        assertEquals(5, window.getCount(LineMetric.LATENCY));
+        assertEquals(19.0, window.getMax(LineMetric.LATENCY));
+
+        RollupStats all = new RollupStats(0.01, true);
+        tier.forEach(0, (start, bucket) -> all.merge(bucket));
+        assertEquals(12, all.getCount(LineMetric.LATENCY));
+        assertEquals(8.0, all.getQuantile(LineMetric.LATENCY, 0), 8.0 * 0.01);
+    }
+}
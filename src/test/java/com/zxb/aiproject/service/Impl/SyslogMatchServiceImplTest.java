@@ -0,0 +1,227 @@
+package com.zxb.aiproject.service.Impl;
+
+import com.zxb.aiproject.config.SyslogProperties;
+import com.zxb.aiproject.entity.LogRule;
+import com.zxb.aiproject.entity.SyslogEntry;
+import com.zxb.aiproject.mapper.LogRuleMapper;
+import com.zxb.aiproject.mapper.SyslogEntryMapper;
+import com.zxb.aiproject.syslog.SyslogHourlyRollup;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 规则重建与未匹配日志补偿扫描测试
+ */
+public class SyslogMatchServiceImplTest {
+
+    private final List<SyslogEntry> table = new ArrayList<>();
+
+    private String keywords = "link down";
+
+    private int batchUpdates;
+
+    private SyslogMatchServiceImpl service;
+
+    @BeforeEach
+    public void setUp() {
+        service = new SyslogMatchServiceImpl();
+        ReflectionTestUtils.setField(service, "logRuleMapper", logRuleMapper());
+        ReflectionTestUtils.setField(service, "syslogEntryMapper", syslogEntryMapper());
+        ReflectionTestUtils.setField(service, "syslogProperties", new SyslogProperties());
+        ReflectionTestUtils.setField(service, "syslogHourlyRollup", new SyslogHourlyRollup());
+        for (int i = 0; i < 3; i++) {
+            insert(entry("hello world"));
+        }
+        service.reloadRules();
+    }
+
+    @Test
+    public void testReloadWithUnchangedRulesKeepsSweepProgress() {
+        service.catchUpSweep();
+        assertEquals(3L, service.getSweepStatus().get("sweepCursor"));
+
+        service.reloadRules();
+
+        Map<String, Object> status = service.getSweepStatus();
+        assertEquals(1L, status.get("ruleGeneration"));
+        assertEquals(3L, status.get("sweepCursor"));
+        assertEquals(0L, status.get("sweepLag"));
+    }
+
+    @Test
+    public void testChangedRulesRescanUnmatchedLogs() {
+        service.catchUpSweep();
+
+        keywords = "hello";
+        service.reloadRules();
+
+        Map<String, Object> status = service.getSweepStatus();
+        assertEquals(2L, status.get("ruleGeneration"));
+        assertEquals(0L, status.get("sweepCursor"));
+        assertEquals(3L, status.get("sweepTarget"));
+
+        service.catchUpSweep();
+        assertTrue(table.stream().allMatch(e -> Integer.valueOf(1).equals(e.getMatchedRuleId())));
+        assertEquals(1, batchUpdates);
+    }
+
+    @Test
+    public void testRuleChangeSkipsLogsOutsideSweepWindow() {
+        SyslogEntry old = entry("hello from last month");
+        old.setReceivedAt(LocalDateTime.now().minusDays(30));
+        insert(old);
+        service.catchUpSweep();
+
+        keywords = "hello";
+        service.reloadRules();
+        service.catchUpSweep();
+
+        assertEquals(4L, service.getSweepStatus().get("sweepCursor"));
+        assertEquals(1, table.get(0).getMatchedRuleId());
+        assertNull(table.get(3).getMatchedRuleId());
+    }
+
+    @Test
+    public void testLogsPersistedWithoutInlineMatchAdvanceTarget() {
+        service.catchUpSweep();
+
+        // 入库匹配关闭：日志未经匹配直接落库
+        List<SyslogEntry> batch = new ArrayList<>();
+        batch.add(insert(entry("interface link down")));
+        batch.add(insert(entry("noise")));
+        service.onPersisted(batch);
+        assertEquals(5L, service.getSweepStatus().get("sweepTarget"));
+
+        service.catchUpSweep();
+        assertEquals(5L, service.getSweepStatus().get("sweepCursor"));
+        assertEquals(1, table.get(3).getMatchedRuleId());
+        assertNull(table.get(4).getMatchedRuleId());
+    }
+
+    @Test
+    public void testLogsMatchedByCurrentRulesDoNotAdvanceTarget() {
+        service.catchUpSweep();
+
+        SyslogEntry entry = entry("noise");
+        service.applyMatch(entry);
+        service.onPersisted(Collections.singletonList(insert(entry)));
+
+        assertEquals(3L, service.getSweepStatus().get("sweepTarget"));
+    }
+
+    @Test
+    public void testOldRuleBatchPersistedAfterReloadIsRechecked() {
+        service.catchUpSweep();
+
+        // 入库线程按旧规则匹配完成，规则变更后才落库
+        SyslogEntry late = entry("hello again");
+        service.applyMatch(late);
+        assertNull(late.getMatchedRuleId());
+
+        keywords = "hello";
+        service.reloadRules();
+        service.catchUpSweep();
+        assertEquals(3L, service.getSweepStatus().get("sweepCursor"));
+
+        service.onPersisted(Collections.singletonList(insert(late)));
+        assertEquals(4L, service.getSweepStatus().get("sweepTarget"));
+
+        service.catchUpSweep();
+        assertEquals(1, table.get(3).getMatchedRuleId());
+    }
+
+    private SyslogEntry insert(SyslogEntry entry) {
+        entry.setId((long) table.size() + 1);
+        table.add(entry);
+        return entry;
+    }
+
+    private LogRuleMapper logRuleMapper() {
+        return (LogRuleMapper) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{LogRuleMapper.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "selectList":
+                            return Collections.singletonList(rule(1, keywords));
+                        case "selectRuleEventMappings":
+                            return Collections.emptyList();
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    private SyslogEntryMapper syslogEntryMapper() {
+        return (SyslogEntryMapper) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{SyslogEntryMapper.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "selectMaxId":
+                            return table.isEmpty() ? null : table.get(table.size() - 1).getId();
+                        case "selectUnmatchedAfter":
+                            long afterId = (Long) args[0];
+                            long maxId = (Long) args[1];
+                            LocalDateTime since = (LocalDateTime) args[2];
+                            return table.stream()
+                                    .filter(e -> e.getId() > afterId && e.getId() <= maxId && e.getMatchedRuleId() == null)
+                                    .filter(e -> !e.getReceivedAt().isBefore(since))
+                                    .sorted(Comparator.comparing(SyslogEntry::getId))
+                                    .limit((Integer) args[3])
+                                    .map(SyslogMatchServiceImplTest::copy)
+                                    .collect(Collectors.toList());
+                        case "batchUpdateMatchResult":
+                            @SuppressWarnings("unchecked")
+                            List<SyslogEntry> updates = (List<SyslogEntry>) args[0];
+                            batchUpdates++;
+                            for (SyslogEntry update : updates) {
+                                SyslogEntry row = table.get(update.getId().intValue() - 1);
+                                row.setMatchedRuleId(update.getMatchedRuleId());
+                                row.setMatchedEventId(update.getMatchedEventId());
+                                row.setIsAlert(update.getIsAlert());
+                            }
+                            return updates.size();
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    private static LogRule rule(int id, String keywords) {
+        LogRule rule = new LogRule();
+        rule.setId(id);
+        rule.setLogType("Syslog");
+        rule.setSourceType("any");
+        rule.setFilterType("include");
+        rule.setFilterKeywords(keywords);
+        rule.setEffectiveTimeType("always");
+        rule.setIsEnabled(true);
+        return rule;
+    }
+
+    private static SyslogEntry entry(String message) {
+        SyslogEntry entry = new SyslogEntry();
+        entry.setSourceIp("10.0.0.1");
+        entry.setFacility(1);
+        entry.setSeverity(5);
+        entry.setMessage(message);
+        entry.setReceivedAt(LocalDateTime.now().withNano(0));
+        return entry;
+    }
+
+    private static SyslogEntry copy(SyslogEntry source) {
+        SyslogEntry entry = entry(source.getMessage());
+        entry.setId(source.getId());
+        entry.setReceivedAt(source.getReceivedAt());
+        return entry;
+    }
+}
@@ -0,0 +1,80 @@
+package com.zxb.aiproject.service.Impl;
+
+import com.zxb.aiproject.config.SyslogProperties;
+import com.zxb.aiproject.mapper.SyslogHourlyRollupMapper;
+import com.zxb.aiproject.syslog.SyslogHourlyRollup;
+import com.zxb.aiproject.syslog.sketch.SyslogSourceSketches;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 汇总指标缓存测试
+ */
+public class SyslogStatisticsServiceImplTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 11, 29, 16, 45, 12);
+
+    private final AtomicInteger summaryQueries = new AtomicInteger();
+
+    private SyslogStatisticsServiceImpl service;
+
+    @BeforeEach
+    public void setUp() {
+        SyslogProperties properties = new SyslogProperties();
+        properties.getStatistics().setSummaryCacheMs(60000L);
+        service = new SyslogStatisticsServiceImpl();
+        ReflectionTestUtils.setField(service, "syslogProperties", properties);
+        ReflectionTestUtils.setField(service, "syslogHourlyRollup", new SyslogHourlyRollup());
+        ReflectionTestUtils.setField(service, "syslogHourlyRollupMapper", rollupMapper());
+        ReflectionTestUtils.setField(service, "syslogSourceSketches", new SyslogSourceSketches());
+        service.init();
+    }
+
+    @Test
+    public void testRequestsSecondsApartShareReceivedAtEntry() {
+        Map<String, Object> first = service.getSummary(NOW.minusHours(24), NOW, "received_at", false);
+        Map<String, Object> second = service.getSummary(NOW.minusHours(24).plusSeconds(7), NOW.plusSeconds(7),
+                "received_at", false);
+
+        assertEquals(1, summaryQueries.get());
+        assertEquals(first, second);
+        assertEquals(100L, second.get("totalLogs"));
+    }
+
+    @Test
+    public void testDifferentHoursOrExactnessMiss() {
+        service.getSummary(NOW.minusHours(24), NOW, "received_at", false);
+        service.getSummary(NOW.minusHours(24), NOW.plusMinutes(15), "received_at", false);
+        service.getSummary(NOW.minusHours(24), NOW, "received_at", true);
+
+        assertEquals(3, summaryQueries.get());
+    }
+
+    private SyslogHourlyRollupMapper rollupMapper() {
+        return (SyslogHourlyRollupMapper) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{SyslogHourlyRollupMapper.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "sumSummary":
+                            summaryQueries.incrementAndGet();
+                            Map<String, Object> totals = new HashMap<>();
+                            totals.put("total_logs", 100L);
+                            totals.put("alert_count", 3L);
+                            totals.put("error_count", 8L);
+                            return totals;
+                        case "countDistinctSources":
+                            return 5L;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+}
@@ -0,0 +1,113 @@
+package com.zxb.aiproject.stats;
+
+import com.zxb.aiproject.config.BigScreenProperties;
+import com.zxb.aiproject.entity.Alert;
+import com.zxb.aiproject.entity.Asset;
+import com.zxb.aiproject.interceptor.EntityWriteInterceptor;
+import com.zxb.aiproject.mapper.AlertMapper;
+import com.zxb.aiproject.mapper.AssetMapper;
+import com.zxb.aiproject.mapper.CoreStatsMapper;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.session.Configuration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CoreStatsCountersTest {
+
+    private final Map<String, Object> row = new HashMap<>();
+
+    private final AtomicInteger queries = new AtomicInteger();
+
+    private CoreStatsCounters counters;
+
+    @BeforeEach
+    void setUp() {
+        row.put(CoreStatsCounters.ALERT_TOTAL, 10L);
+        row.put(CoreStatsCounters.ALERT_CRITICAL, new BigDecimal(3));
+        row.put(CoreStatsCounters.ASSET_ONLINE, new BigDecimal(5));
+        row.put("alert_current_month", new BigDecimal(4));
+        CoreStatsMapper mapper = (lastMonthStart, currentMonthStart, nextMonthStart) -> {
+            queries.incrementAndGet();
+            return new HashMap<>(row);
+        };
+        counters = new CoreStatsCounters();
+        ReflectionTestUtils.setField(counters, "bigScreenProperties", new BigScreenProperties());
+        ReflectionTestUtils.setField(counters, "coreStatsMapper", mapper);
+        ReflectionTestUtils.setField(counters, "entityWriteInterceptor", new EntityWriteInterceptor());
+        counters.init();
+    }
+
+    @Test
+    void insertsAreCountedWithoutQuerying() {
+        Map<String, Long> counts = counters.read();
+        assertEquals(10L, counts.get(CoreStatsCounters.ALERT_TOTAL));
+        assertEquals(0L, counts.get(CoreStatsCounters.ALERT_WARNING));
+        assertEquals(0L, counts.get(CoreStatsCounters.monthKey(YearMonth.now().minusMonths(1))));
+
+        Alert alert = new Alert();
+        alert.setSeverity("critical");
+        alert.setStatus("active");
+        alert.setOccurredTime(LocalDateTime.now());
+        counters.afterWrite(statement(AlertMapper.class, "insert", SqlCommandType.INSERT), alert, 1);
+
+        Asset asset = new Asset();
+        asset.setCategoryId(6L);
+        asset.setAssetStatus("running");
+        counters.afterWrite(statement(AssetMapper.class, "insert", SqlCommandType.INSERT), asset, 1);
+
+        counts = counters.read();
+        assertEquals(1, queries.get());
+        assertEquals(11L, counts.get(CoreStatsCounters.ALERT_TOTAL));
+        assertEquals(4L, counts.get(CoreStatsCounters.ALERT_CRITICAL));
+        assertEquals(1L, counts.get(CoreStatsCounters.ALERT_ACTIVE));
+        assertEquals(5L, counts.get(CoreStatsCounters.monthKey(YearMonth.now())));
+        assertEquals(6L, counts.get(CoreStatsCounters.ASSET_ONLINE));
+        assertEquals(1L, counts.get(CoreStatsCounters.SERVER_TOTAL));
+        // running 只算大屏在线，不算设备管理页在线
+        assertEquals(0L, counts.get(CoreStatsCounters.SERVER_ONLINE));
+    }
+
+    @Test
+    void updatesAreReconciled() {
+        counters.read();
+        counters.scheduledReconcile();
+        assertEquals(1, queries.get());
+
+        counters.afterWrite(statement(AlertMapper.class, "updateById", SqlCommandType.UPDATE), new Alert(), 1);
+        row.put(CoreStatsCounters.ALERT_TOTAL, 9L);
+        counters.scheduledReconcile();
+
+        assertEquals(2, queries.get());
+        assertEquals(9L, counters.read().get(CoreStatsCounters.ALERT_TOTAL));
+    }
+
+    @Test
+    void insertWithDatabaseDefaultsIsReconciled() {
+        counters.read();
+        Alert alert = new Alert();
+        alert.setSeverity("warning");
+        alert.setOccurredTime(LocalDateTime.now());
+        counters.afterWrite(statement(AlertMapper.class, "insert", SqlCommandType.INSERT), alert, 1);
+        assertEquals(10L, counters.read().get(CoreStatsCounters.ALERT_TOTAL));
+
+        row.put(CoreStatsCounters.ALERT_TOTAL, 11L);
+        counters.scheduledReconcile();
+        assertEquals(11L, counters.read().get(CoreStatsCounters.ALERT_TOTAL));
+    }
+
+    private static MappedStatement statement(Class<?> mapper, String method, SqlCommandType type) {
+        return new MappedStatement.Builder(new Configuration(), mapper.getName() + "." + method,
+                parameter -> null, type).build();
+    }
+}
@@ -0,0 +1,99 @@
+package com.zxb.aiproject.syslog;
+
+import com.zxb.aiproject.entity.LogRule;
+import com.zxb.aiproject.entity.SyslogEntry;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 日志规则编译匹配测试
+ */
+public class CompiledLogRuleSetTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 11, 29, 16, 45, 0);
+
+    private final CompiledLogRuleSet ruleSet;
+
+    public CompiledLogRuleSetTest() {
+        List<LogRule> rules = Arrays.asList(
+                rule(1, "any", null, null, "include", "", "", "link down;LINK flap"),
+                rule(2, "ip_range", "10.0.0.1", "10.0.0.50", "include", "4,10", "0,1,2,3", ""),
+                rule(3, "single_ip", "10.0.0.0/24", "", "exclude", "", "", "heartbeat"),
+                rule(4, "any", null, null, "include", "", "", "err(or)?\\s+\\d+"));
+        Map<Integer, List<Integer>> ruleEvents = new HashMap<>();
+        ruleEvents.put(1, Collections.singletonList(7));
+        ruleEvents.put(3, Collections.singletonList(9));
+        ruleSet = CompiledLogRuleSet.compile(rules, ruleEvents);
+    }
+
+    @Test
+    public void testKeywordIgnoreCase() {
+        LogMatchResult result = ruleSet.match(entry("1.2.3.4", 1, 5, "Interface Link Down now"));
+
+        assertArrayEquals(new int[]{1}, result.getRuleIds());
+        assertEquals(7, result.getPrimaryEventId());
+    }
+
+    @Test
+    public void testSourceRangeAndFacilitySeverity() {
+        assertArrayEquals(new int[]{2}, ruleSet.match(entry("10.0.0.5", 4, 2, "heartbeat ok")).getRuleIds());
+        assertFalse(ruleSet.match(entry("10.0.0.5", 4, 5, "heartbeat")).isMatched());
+    }
+
+    @Test
+    public void testExcludeKeyword() {
+        LogMatchResult result = ruleSet.match(entry("10.0.0.99", 1, 5, "something"));
+
+        assertArrayEquals(new int[]{3}, result.getRuleIds());
+        assertEquals(9, result.getPrimaryEventId());
+    }
+
+    @Test
+    public void testMultipleRulesAndRegex() {
+        LogMatchResult result = ruleSet.match(entry("10.0.1.5", 1, 5, "ERROR 42 link flap"));
+
+        assertArrayEquals(new int[]{1, 4}, result.getRuleIds());
+        assertEquals(1, result.getPrimaryRuleId());
+    }
+
+    @Test
+    public void testRegexCostTrackedPerRule() {
+        ruleSet.match(entry("10.0.1.5", 1, 5, "error 7 on port"));
+        assertEquals(Collections.singleton(4), ruleSet.getRegexNanos().keySet());
+        assertTrue(ruleSet.getRegexNanos().get(4) > 0);
+    }
+
+    private static LogRule rule(int id, String sourceType, String ipStart, String ipEnd, String filterType,
+                                String facility, String severity, String keywords) {
+        LogRule rule = new LogRule();
+        rule.setId(id);
+        rule.setSourceType(sourceType);
+        rule.setSourceIpStart(ipStart);
+        rule.setSourceIpEnd(ipEnd);
+        rule.setFilterType(filterType);
+        rule.setFilterFacility(facility);
+        rule.setFilterSeverity(severity);
+        rule.setFilterKeywords(keywords);
+        rule.setEffectiveTimeType("always");
+        rule.setIsEnabled(true);
+        return rule;
+    }
+
+    private static SyslogEntry entry(String sourceIp, int facility, int severity, String message) {
+        SyslogEntry entry = new SyslogEntry();
+        entry.setSourceIp(sourceIp);
+        entry.setFacility(facility);
+        entry.setSeverity(severity);
+        entry.setMessage(message);
+        entry.setReceivedAt(NOW);
+        return entry;
+    }
+}
@@ -0,0 +1,151 @@
+package com.zxb.aiproject.syslog;
+
+import com.zxb.aiproject.config.SyslogProperties;
+import com.zxb.aiproject.entity.SyslogEntry;
+import com.zxb.aiproject.mapper.SyslogEntryMapper;
+import com.zxb.aiproject.service.SyslogMatchService;
+import com.zxb.aiproject.syslog.asset.SyslogAssetIndex;
+import com.zxb.aiproject.syslog.forward.SyslogForwarder;
+import com.zxb.aiproject.syslog.storm.SyslogStormGuard;
+import com.zxb.aiproject.syslog.template.SyslogTemplateMiner;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Syslog入库管道测试：所有日志经预写缓冲写库
+ */
+public class SyslogIngestPipelineTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 11, 29, 16, 45, 0);
+
+    private final List<String> inserted = Collections.synchronizedList(new ArrayList<>());
+
+    private final CountDownLatch stalled = new CountDownLatch(1);
+
+    private final CountDownLatch resume = new CountDownLatch(1);
+
+    private volatile boolean stall;
+
+    private volatile boolean down;
+
+    @Test
+    public void testStalledInsertKeepsLogsOnDisk(@TempDir Path dir) throws Exception {
+        stall = true;
+        SyslogIngestPipeline pipeline = pipeline(dir);
+        for (int i = 0; i < 100; i++) {
+            assertTrue(pipeline.submit(entry(i)));
+        }
+        // 写库阻塞期间日志都在预写缓冲中，不进内存队列
+        assertTrue(stalled.await(5, TimeUnit.SECONDS));
+        assertEquals(0, pipeline.getQueueDepth());
+        assertEquals(100, pipeline.getWalPendingRecords());
+
+        resume.countDown();
+        awaitInserted(100);
+        assertEquals(expected(100), new ArrayList<>(inserted));
+        for (int i = 0; i < 50 && pipeline.getWalPendingRecords() > 0; i++) {
+            Thread.sleep(20);
+        }
+        assertEquals(0, pipeline.getWalPendingRecords());
+        pipeline.stop();
+    }
+
+    @Test
+    public void testRestartContinuesFromReadPosition(@TempDir Path dir) throws Exception {
+        down = true;
+        SyslogIngestPipeline first = pipeline(dir);
+        for (int i = 0; i < 30; i++) {
+            assertTrue(first.submit(entry(i)));
+        }
+        first.stop();
+        assertTrue(inserted.isEmpty());
+
+        down = false;
+        SyslogIngestPipeline second = pipeline(dir);
+        assertEquals(30, second.getWalPendingRecords());
+        awaitInserted(30);
+        assertEquals(expected(30), new ArrayList<>(inserted));
+        second.stop();
+    }
+
+    private void awaitInserted(int count) throws InterruptedException {
+        for (int i = 0; i < 250 && inserted.size() < count; i++) {
+            Thread.sleep(20);
+        }
+        assertEquals(count, inserted.size());
+    }
+
+    private static List<String> expected(int count) {
+        List<String> messages = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            messages.add("message-" + i);
+        }
+        return messages;
+    }
+
+    private SyslogIngestPipeline pipeline(Path dir) {
+        SyslogProperties properties = new SyslogProperties();
+        properties.setBatchSize(10);
+        properties.setFlushIntervalMs(50L);
+        properties.getWal().setDir(dir.toString());
+        properties.getWal().setSegmentBytes(64 * 1024);
+        properties.getWal().setRetryIntervalMs(100L);
+        SyslogIngestPipeline pipeline = new SyslogIngestPipeline();
+        ReflectionTestUtils.setField(pipeline, "syslogProperties", properties);
+        ReflectionTestUtils.setField(pipeline, "syslogEntryMapper", syslogEntryMapper());
+        ReflectionTestUtils.setField(pipeline, "syslogMatchService", Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{SyslogMatchService.class}, (proxy, method, args) -> false));
+        ReflectionTestUtils.setField(pipeline, "metrics", new SyslogIngestMetrics());
+        ReflectionTestUtils.setField(pipeline, "syslogForwarder", new SyslogForwarder());
+        ReflectionTestUtils.setField(pipeline, "syslogStormGuard", new SyslogStormGuard());
+        ReflectionTestUtils.setField(pipeline, "syslogTemplateMiner", new SyslogTemplateMiner());
+        ReflectionTestUtils.setField(pipeline, "syslogAssetIndex", new SyslogAssetIndex());
+        pipeline.start();
+        return pipeline;
+    }
+
+    private SyslogEntryMapper syslogEntryMapper() {
+        return (SyslogEntryMapper) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{SyslogEntryMapper.class},
+                (proxy, method, args) -> {
+                    if (!"batchInsert".equals(method.getName())) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    if (down) {
+                        throw new IllegalStateException("Communications link failure");
+                    }
+                    if (stall) {
+                        stalled.countDown();
+                        resume.await(5, TimeUnit.SECONDS);
+                    }
+                    List<?> batch = (List<?>) args[0];
+                    for (Object item : batch) {
+                        SyslogEntry entry = (SyslogEntry) item;
+                        entry.setId((long) inserted.size() + 1);
+                        inserted.add(entry.getMessage());
+                    }
+                    return batch.size();
+                });
+    }
+
+    private static SyslogEntry entry(int i) {
+        SyslogEntry entry = new SyslogEntry();
+        entry.setReceivedAt(NOW);
+        entry.setSourceIp("10.0.0.1");
+        entry.setFacility(23);
+        entry.setSeverity(6);
+        entry.setMessage("message-" + i);
+        return entry;
+    }
+}
@@ -0,0 +1,80 @@
+package com.zxb.aiproject.syslog;
+
+import com.zxb.aiproject.entity.SyslogEntry;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Syslog报文解析测试
+ */
+public class SyslogMessageParserTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 11, 29, 16, 45, 0);
+
+    @Test
+    public void testParseRfc3164() {
+        SyslogEntry entry = SyslogMessageParser.parse(
+                "<34>Oct 11 22:14:15 mymachine su: 'su root' failed for lonvick", "192.168.1.1", NOW);
+
+        assertNotNull(entry);
+        assertEquals(4, entry.getFacility());
+        assertEquals(2, entry.getSeverity());
+        assertEquals(LocalDateTime.of(2025, 10, 11, 22, 14, 15), entry.getEventTime());
+        assertEquals("mymachine", entry.getHostname());
+        assertEquals("su: 'su root' failed for lonvick", entry.getMessage());
+        assertEquals("192.168.1.1", entry.getSourceIp());
+        assertEquals(NOW, entry.getReceivedAt());
+    }
+
+    @Test
+    public void testParseRfc3164WithoutHostname() {
+        SyslogEntry entry = SyslogMessageParser.parse("<189>Nov 29 16:42:11 sshd[22]: Failed password", "10.0.0.1", NOW);
+
+        assertNotNull(entry);
+        assertEquals(23, entry.getFacility());
+        assertEquals(5, entry.getSeverity());
+        assertNull(entry.getHostname());
+        assertEquals("sshd[22]: Failed password", entry.getMessage());
+    }
+
+    @Test
+    public void testParseRfc3164YearRollover() {
+        LocalDateTime newYear = LocalDateTime.of(2026, 1, 1, 0, 0, 5);
+        SyslogEntry entry = SyslogMessageParser.parse("<13>Dec 31 23:59:58 host app: tick", "10.0.0.1", newYear);
+
+        assertEquals(LocalDateTime.of(2025, 12, 31, 23, 59, 58), entry.getEventTime());
+    }
+
+    @Test
+    public void testParseRfc5424() {
+        SyslogEntry entry = SyslogMessageParser.parse(
+                "<165>1 2003-10-11T22:14:15.003Z mymachine.example.com evntslog - ID47 "
+                        + "[exampleSDID@32473 iut=\"3\" eventSource=\"App\\]\"] \uFEFFAn application event",
+                "192.0.2.1", NOW);
+
+        assertNotNull(entry);
+        assertEquals(20, entry.getFacility());
+        assertEquals(5, entry.getSeverity());
+        assertEquals("mymachine.example.com", entry.getHostname());
+        assertEquals("evntslog: An application event", entry.getMessage());
+        assertNotNull(entry.getEventTime());
+    }
+
+    @Test
+    public void testParseWithoutPri() {
+        SyslogEntry entry = SyslogMessageParser.parse("plain text message", "10.0.0.1", NOW);
+
+        assertEquals(1, entry.getFacility());
+        assertEquals(5, entry.getSeverity());
+        assertEquals("plain text message", entry.getMessage());
+        assertEquals(NOW, entry.getEventTime());
+    }
+
+    @Test
+    public void testParseBlank() {
+        assertNull(SyslogMessageParser.parse("  \r\n", "10.0.0.1", NOW));
+    }
+}
@@ -0,0 +1,168 @@
+package com.zxb.aiproject.syslog;
+
+import com.zxb.aiproject.config.SyslogProperties;
+import com.zxb.aiproject.entity.LogRematchJob;
+import com.zxb.aiproject.entity.SyslogEntry;
+import com.zxb.aiproject.mapper.LogRematchJobMapper;
+import com.zxb.aiproject.mapper.SyslogEntryMapper;
+import com.zxb.aiproject.service.SyslogMatchService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 重新匹配任务检查点测试
+ * 表中ID为 1..10，分片跨度 2，两个工作线程；默认全部在今天接收
+ */
+public class SyslogRematchJobTest {
+
+    private static final long MAX_ID = 10;
+
+    private final CountDownLatch laterChunkStarted = new CountDownLatch(1);
+
+    private static final LocalDateTime TODAY = LocalDate.now().atStartOfDay();
+
+    private static final LocalDateTime YESTERDAY = TODAY.minusDays(1);
+
+    private volatile boolean failChunk;
+
+    /**
+     * 为 true 时 1..6 昨天接收、5..10 今天接收（预写缓冲积压使两天的ID交叠）
+     */
+    private boolean twoDays;
+
+    private final Map<Long, LocalDateTime[]> rangeBounds = new ConcurrentHashMap<>();
+
+    private LogRematchJob saved;
+
+    private SyslogRematchJob job;
+
+    @BeforeEach
+    public void setUp() {
+        SyslogProperties properties = new SyslogProperties();
+        properties.setRematchThreads(2);
+        properties.setRematchChunkSize(2);
+        job = new SyslogRematchJob();
+        ReflectionTestUtils.setField(job, "syslogProperties", properties);
+        ReflectionTestUtils.setField(job, "syslogEntryMapper", syslogEntryMapper());
+        ReflectionTestUtils.setField(job, "logRematchJobMapper", logRematchJobMapper());
+        ReflectionTestUtils.setField(job, "syslogMatchService", syslogMatchService());
+        ReflectionTestUtils.setField(job, "syslogHourlyRollup", new SyslogHourlyRollup());
+    }
+
+    @Test
+    public void testChunksPastCheckpointAreNotCountedTwice() throws Exception {
+        // 分片 (4, 6] 等后一个分片开始后失败，检查点停在 4，之后已完成的分片续跑时重做
+        failChunk = true;
+        job.start(false);
+        awaitFinished();
+        assertEquals(SyslogRematchJob.STATUS_FAILED, saved.getStatus());
+        assertEquals(4L, saved.getLastId());
+        assertEquals(4L, saved.getScannedCount());
+        assertEquals(4L, saved.getMatchedCount());
+
+        failChunk = false;
+        job.start(true);
+        awaitFinished();
+        assertEquals(SyslogRematchJob.STATUS_COMPLETED, saved.getStatus());
+        assertEquals(MAX_ID, saved.getLastId());
+        assertEquals(MAX_ID, saved.getScannedCount());
+        assertEquals(MAX_ID, saved.getMatchedCount());
+    }
+
+    @Test
+    public void testChunksCarryReceivedAtOfTheirDays() throws Exception {
+        twoDays = true;
+        job.start(false);
+        awaitFinished();
+        assertEquals(SyslogRematchJob.STATUS_COMPLETED, saved.getStatus());
+        assertEquals(0L, saved.getStartId());
+        assertArrayEquals(new LocalDateTime[]{YESTERDAY, TODAY}, rangeBounds.get(0L));
+        assertArrayEquals(new LocalDateTime[]{YESTERDAY, TODAY.plusDays(1)}, rangeBounds.get(4L));
+        assertArrayEquals(new LocalDateTime[]{TODAY, TODAY.plusDays(1)}, rangeBounds.get(6L));
+    }
+
+    private void awaitFinished() throws InterruptedException {
+        for (int i = 0; i < 250 && job.isRunning(); i++) {
+            Thread.sleep(20);
+        }
+        assertFalse(job.isRunning());
+    }
+
+    private SyslogEntryMapper syslogEntryMapper() {
+        return (SyslogEntryMapper) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{SyslogEntryMapper.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "selectMinReceivedAt":
+                            return twoDays ? YESTERDAY : TODAY;
+                        case "selectFirstIdBetween":
+                            return twoDays && TODAY.equals(args[0]) ? 5L : 1L;
+                        case "selectLastIdBetween":
+                            return twoDays && YESTERDAY.equals(args[0]) ? 6L : MAX_ID;
+                        case "selectMaxId":
+                            return MAX_ID;
+                        case "selectMatchRange":
+                            long lo = (Long) args[0];
+                            long hi = (Long) args[1];
+                            rangeBounds.put(lo, new LocalDateTime[]{(LocalDateTime) args[2], (LocalDateTime) args[3]});
+                            if (lo == 6) {
+                                laterChunkStarted.countDown();
+                            }
+                            if (lo == 4 && failChunk) {
+                                laterChunkStarted.await(5, TimeUnit.SECONDS);
+                                throw new IllegalStateException("connection reset");
+                            }
+                            List<SyslogEntry> rows = new ArrayList<>();
+                            for (long id = lo + 1; id <= hi; id++) {
+                                SyslogEntry entry = new SyslogEntry();
+                                entry.setId(id);
+                                rows.add(entry);
+                            }
+                            return rows;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    private LogRematchJobMapper logRematchJobMapper() {
+        return (LogRematchJobMapper) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{LogRematchJobMapper.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "selectLatest":
+                            return saved;
+                        case "insert":
+                            saved = (LogRematchJob) args[0];
+                            saved.setId(1L);
+                            return 1;
+                        case "updateById":
+                            saved = (LogRematchJob) args[0];
+                            return 1;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    private SyslogMatchService syslogMatchService() {
+        return (SyslogMatchService) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{SyslogMatchService.class},
+                (proxy, method, args) -> {
+                    if ("applyMatch".equals(method.getName())) {
+                        return true;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
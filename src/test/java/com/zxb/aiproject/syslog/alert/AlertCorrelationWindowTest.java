@@ -0,0 +1,113 @@
+package com.zxb.aiproject.syslog.alert;
+
+import com.zxb.aiproject.entity.SyslogEntry;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 告警日志关联窗口测试
+ */
+public class AlertCorrelationWindowTest {
+
+    private static final long WINDOW = 60_000L;
+
+    private static final LocalDateTime AT = LocalDateTime.of(2025, 12, 1, 10, 0, 0);
+
+    private static SyslogEntry entry(Long assetId, String sourceIp, Integer eventId, Integer ruleId, int severity) {
+        SyslogEntry entry = new SyslogEntry();
+        entry.setAssetId(assetId);
+        entry.setSourceIp(sourceIp);
+        entry.setMatchedEventId(eventId);
+        entry.setMatchedRuleId(ruleId);
+        entry.setSeverity(severity);
+        entry.setIsAlert(true);
+        return entry;
+    }
+
+    @Test
+    public void testKeyPrefersAssetAndEvent() {
+        assertEquals("a5|e7", AlertCorrelationWindow.keyOf(entry(5L, "10.0.0.1", 7, 3, 2)));
+        assertEquals("ip10.0.0.1|r3", AlertCorrelationWindow.keyOf(entry(null, "10.0.0.1", null, 3, 2)));
+    }
+
+    @Test
+    public void testOccurrencesWithinWindowAccumulate() {
+        AlertCorrelationWindow window = new AlertCorrelationWindow(WINDOW, 100);
+        window.record(entry(5L, "10.0.0.1", 7, 3, 3), 1, 0, AT);
+        window.record(entry(5L, "10.0.0.2", 7, 3, 1), 4, 30_000, AT.plusSeconds(30));
+        window.record(entry(5L, "10.0.0.1", 7, 3, 3), 1, 80_000, AT.plusSeconds(80));
+        window.record(entry(6L, "10.0.0.9", 7, 3, 3), 1, 80_000, AT.plusSeconds(80));
+
+        List<AlertCorrelationWindow.Pending> pending = window.drain();
+        assertEquals(2, pending.size());
+        AlertCorrelationWindow.Pending first = pending.stream()
+                .filter(p -> p.getGroup().getKey().equals("a5|e7")).findFirst().get();
+        assertEquals(6, first.getCount());
+        assertEquals(AT, first.getFirstOccurred());
+        assertEquals(AT.plusSeconds(80), first.getLastOccurred());
+        assertEquals(1, first.getSeverity());
+        assertEquals("10.0.0.1", first.getGroup().getSample().getSourceIp());
+
+        // 增量取出后只剩已写库的告警ID，后续出现继续计入同一组
+        first.getGroup().setAlertId(100L);
+        assertTrue(window.drain().isEmpty());
+        window.record(entry(5L, "10.0.0.1", 7, 3, 3), 1, 90_000, AT.plusSeconds(90));
+        AlertCorrelationWindow.Pending next = window.drain().get(0);
+        assertEquals(Long.valueOf(100L), next.getGroup().getAlertId());
+        assertEquals(1, next.getCount());
+    }
+
+    @Test
+    public void testGapLongerThanWindowStartsNewAlert() {
+        AlertCorrelationWindow window = new AlertCorrelationWindow(WINDOW, 100);
+        AlertCorrelationWindow.Group old = window.record(entry(5L, "10.0.0.1", 7, null, 2), 1, 0, AT);
+        old.setAlertId(100L);
+        AlertCorrelationWindow.Group fresh = window.record(entry(5L, "10.0.0.1", 7, null, 2), 1, WINDOW + 1,
+                AT.plusSeconds(61));
+        assertNotSame(old, fresh);
+        assertNull(fresh.getAlertId());
+
+        // 旧组未写库的增量仍归旧告警
+        List<AlertCorrelationWindow.Pending> pending = window.drain();
+        assertEquals(2, pending.size());
+        assertSame(old, pending.get(0).getGroup());
+        assertSame(fresh, pending.get(1).getGroup());
+    }
+
+    @Test
+    public void testGiveBackAndEvict() {
+        AlertCorrelationWindow window = new AlertCorrelationWindow(WINDOW, 100);
+        window.record(entry(5L, "10.0.0.1", 7, null, 2), 3, 0, AT);
+        AlertCorrelationWindow.Pending failed = window.drain().get(0);
+        window.giveBack(failed);
+        // 还有未写库的增量时不回收
+        assertEquals(0, window.evict(WINDOW * 10));
+        AlertCorrelationWindow.Pending retry = window.drain().get(0);
+        assertEquals(3, retry.getCount());
+        assertEquals(0, window.evict(WINDOW));
+        assertEquals(1, window.evict(WINDOW + 1));
+        assertEquals(0, window.size());
+    }
+
+    @Test
+    public void testRestoreAndCapacity() {
+        AlertCorrelationWindow window = new AlertCorrelationWindow(WINDOW, 1);
+        window.restore("a5|e7", 42L, 0);
+        AlertCorrelationWindow.Group group = window.record(entry(5L, "10.0.0.1", 7, null, 2), 1, 1000, AT);
+        assertEquals(Long.valueOf(42L), group.getAlertId());
+        assertNull(window.record(entry(6L, "10.0.0.2", 7, null, 2), 1, 1000, AT));
+        assertEquals(1, window.size());
+    }
+
+    @Test
+    public void testSeverityNames() {
+        assertEquals("critical", SyslogAlertCorrelator.severityName(0));
+        assertEquals("critical", SyslogAlertCorrelator.severityName(2));
+        assertEquals("warning", SyslogAlertCorrelator.severityName(3));
+        assertEquals("info", SyslogAlertCorrelator.severityName(Integer.MAX_VALUE));
+    }
+}
@@ -0,0 +1,151 @@
+package com.zxb.aiproject.syslog.archive;
+
+import com.zxb.aiproject.dto.LogQueryDTO;
+import com.zxb.aiproject.entity.SyslogEntry;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Syslog归档文件读写与过滤测试
+ */
+public class SyslogArchiveFileTest {
+
+    private static final LocalDateTime DAY = LocalDateTime.of(2025, 11, 1, 0, 0, 0);
+
+    private static SyslogEntry entry(long id, int second) {
+        SyslogEntry entry = new SyslogEntry();
+        entry.setId(id);
+        entry.setReceivedAt(DAY.plusSeconds(second));
+        entry.setSourceIp("10.0.0." + (id % 3));
+        entry.setDeviceType(id % 2 == 0 ? "NETWORK" : "SERVER");
+        entry.setFacility((int) (id % 24));
+        entry.setSeverity(id % 10 == 0 ? null : (int) (id % 7));
+        entry.setHostname(id % 5 == 0 ? null : "host-" + (id % 4));
+        entry.setMessage("Interface Gi0/" + id + " changed state to " + (id % 2 == 0 ? "down" : "up"));
+        entry.setMatchedRuleId(id % 4 == 0 ? (int) (id % 9) : null);
+        entry.setIsAlert(id % 4 == 0);
+        entry.setRepeatCount(1 + (int) (id % 3));
+        entry.setTemplateId(id % 6 == 0 ? null : 1 + (int) (id % 5));
+        entry.setAssetId(id % 7 == 0 ? null : id % 11);
+        return entry;
+    }
+
+    private static List<SyslogEntry> write(Path file, int rows, int blockRows) throws Exception {
+        List<SyslogEntry> entries = new ArrayList<>();
+        try (SyslogArchiveWriter writer = new SyslogArchiveWriter(file, blockRows, 6)) {
+            for (int i = 0; i < rows; i++) {
+                SyslogEntry entry = entry(1000 + i, i / 3);
+                if (i == 1) {
+                    entry.setEventTime(entry.getReceivedAt().minusHours(8));
+                    entry.setLastSeenAt(entry.getReceivedAt().plusSeconds(59));
+                }
+                writer.add(entry);
+                entries.add(entry);
+            }
+            assertEquals(rows, writer.finish());
+        }
+        return entries;
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        Path file = Files.createTempFile("syslog-archive", ".sla");
+        try {
+            List<SyslogEntry> written = write(file, 1000, 128);
+            SyslogArchiveReader reader = new SyslogArchiveReader(file);
+            assertEquals(8, reader.getBlocks().size());
+            assertEquals(1000, reader.getRowCount());
+            List<SyslogEntry> read = new ArrayList<>();
+            for (SyslogArchiveBlock block : reader.getBlocks()) {
+                read.addAll(reader.readBlock(block));
+            }
+            assertEquals(written, read);
+            assertEquals(DAY.minusHours(8), read.get(1).getEventTime());
+            assertNull(read.get(0).getLastSeenAt());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testRejectsTruncatedFile() throws Exception {
+        Path file = Files.createTempFile("syslog-archive", ".sla");
+        try {
+            write(file, 10, 4);
+            byte[] data = Files.readAllBytes(file);
+            Files.write(file, Arrays.copyOf(data, data.length - 3));
+            assertThrows(IOException.class, () -> new SyslogArchiveReader(file));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testBlockPruning() throws Exception {
+        Path file = Files.createTempFile("syslog-archive", ".sla");
+        try {
+            write(file, 1000, 100);
+            SyslogArchiveReader reader = new SyslogArchiveReader(file);
+
+            LogQueryDTO query = new LogQueryDTO();
+            query.setStartTime(DAY.plusSeconds(100));
+            query.setEndTime(DAY.plusSeconds(120));
+            SyslogArchivePredicate predicate = SyslogArchivePredicate.of(query);
+            int candidates = 0;
+            for (SyslogArchiveBlock block : reader.getBlocks()) {
+                if (predicate.mayMatch(block)) {
+                    candidates++;
+                }
+            }
+            // 每块约 33 秒的日志，100~120 秒只落在第 4 块
+            assertEquals(1, candidates);
+
+            query = new LogQueryDTO();
+            query.setSourceIps(Collections.singletonList("172.16.0.1"));
+            predicate = SyslogArchivePredicate.of(query);
+            candidates = 0;
+            for (SyslogArchiveBlock block : reader.getBlocks()) {
+                if (predicate.mayMatch(block)) {
+                    candidates++;
+                }
+            }
+            assertTrue(candidates <= 1);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testRowFilterMatchesSqlSemantics() {
+        LogQueryDTO query = new LogQueryDTO();
+        query.setKeyword("GI0/12 CHANGED");
+        query.setSeverities(Arrays.asList(5, 6));
+        SyslogArchivePredicate predicate = SyslogArchivePredicate.of(query);
+        assertTrue(predicate.matches(entry(12, 0)));
+        assertFalse(predicate.matches(entry(13, 0)));
+
+        query = new LogQueryDTO();
+        query.setHostname("HOST-1");
+        query.setAlertOnly(true);
+        predicate = SyslogArchivePredicate.of(query);
+        assertFalse(predicate.matches(entry(1, 0)));
+        assertFalse(predicate.matches(entry(5, 0)));
+
+        query = new LogQueryDTO();
+        query.setDeviceTypes(Collections.singletonList("NETWORK"));
+        query.setRuleIds(Collections.singletonList(8));
+        predicate = SyslogArchivePredicate.of(query);
+        assertTrue(predicate.matches(entry(8, 0)));
+        assertFalse(predicate.matches(entry(4, 0)));
+    }
+}
@@ -0,0 +1,83 @@
+package com.zxb.aiproject.syslog.asset;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * IP最长前缀匹配索引测试
+ */
+public class IpPrefixTrieTest {
+
+    @Test
+    public void testLongestPrefixWins() {
+        IpPrefixTrie<String> trie = IpPrefixTrie.<String>empty()
+                .put("10.0.0.0/8", "corp")
+                .put("10.1.0.0/16", "dc1")
+                .put("10.1.2.3", "switch")
+                .put("0.0.0.0/0", "default");
+        assertEquals(4, trie.size());
+        assertEquals("switch", trie.lookup("10.1.2.3"));
+        assertEquals("dc1", trie.lookup("10.1.2.4"));
+        assertEquals("corp", trie.lookup("10.200.0.1"));
+        assertEquals("default", trie.lookup("192.168.1.1"));
+        assertNull(trie.lookup("not-an-ip"));
+        assertNull(trie.lookup("10.1.2.256"));
+        assertNull(trie.lookup(null));
+    }
+
+    @Test
+    public void testUpdatesDoNotAffectOlderSnapshots() {
+        IpPrefixTrie<String> first = IpPrefixTrie.<String>empty()
+                .put("192.168.1.10", "web")
+                .put("192.168.1.11", "db");
+        IpPrefixTrie<String> second = first.put("192.168.1.10", "web-new").remove("192.168.1.11");
+        assertEquals("web", first.lookup("192.168.1.10"));
+        assertEquals("db", first.lookup("192.168.1.11"));
+        assertEquals("web-new", second.lookup("192.168.1.10"));
+        assertNull(second.lookup("192.168.1.11"));
+        assertEquals(2, first.size());
+        assertEquals(1, second.size());
+        assertSame(second, second.remove("192.168.9.9"));
+        assertSame(second, second.remove("192.168.0.0/16"));
+    }
+
+    @Test
+    public void testRemovingInnerPrefixKeepsChildren() {
+        IpPrefixTrie<String> trie = IpPrefixTrie.<String>empty()
+                .put("172.16.0.0/12", "lab")
+                .put("172.16.5.1", "host-a")
+                .put("172.17.5.1", "host-b")
+                .remove("172.16.0.0/12");
+        assertEquals(2, trie.size());
+        assertEquals("host-a", trie.lookup("172.16.5.1"));
+        assertEquals("host-b", trie.lookup("172.17.5.1"));
+        assertNull(trie.lookup("172.16.5.2"));
+        trie = trie.remove("172.16.5.1").remove("172.17.5.1");
+        assertEquals(0, trie.size());
+        assertNull(trie.lookup("172.17.5.1"));
+    }
+
+    @Test
+    public void testIpv6AndMappedAddresses() {
+        IpPrefixTrie<String> trie = IpPrefixTrie.<String>empty()
+                .put("2001:db8::/32", "v6-net")
+                .put("2001:db8::1", "v6-host")
+                .put("10.0.0.1", "v4-host");
+        assertEquals("v6-host", trie.lookup("2001:db8:0:0:0:0:0:1"));
+        assertEquals("v6-net", trie.lookup("2001:db8::abcd"));
+        assertNull(trie.lookup("2001:db9::1"));
+        assertEquals("v4-host", trie.lookup("::ffff:10.0.0.1"));
+    }
+
+    @Test
+    public void testCanonical() {
+        assertEquals("10.0.0.0/8", IpPrefixTrie.canonical(" 10.1.2.3/8 "));
+        assertEquals("192.168.1.10", IpPrefixTrie.canonical("192.168.1.10/32"));
+        assertEquals("192.168.1.10", IpPrefixTrie.canonical("192.168.1.10"));
+        assertNull(IpPrefixTrie.canonical("192.168.1.10/33"));
+        assertNull(IpPrefixTrie.canonical("server-01"));
+        assertNull(IpPrefixTrie.canonical(""));
+        assertThrows(IllegalArgumentException.class, () -> IpPrefixTrie.<String>empty().put("1.2.3", "x"));
+    }
+}
@@ -0,0 +1,85 @@
+package com.zxb.aiproject.syslog.export;
+
+import com.zxb.aiproject.entity.SyslogEntry;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Syslog导出写出器测试
+ */
+public class SyslogExportWriterTest {
+
+    private static SyslogEntry entry(long id, String message) {
+        SyslogEntry entry = new SyslogEntry();
+        entry.setId(id);
+        entry.setReceivedAt(LocalDateTime.of(2025, 11, 29, 16, 45, 0));
+        entry.setSourceIp("192.168.1.1");
+        entry.setHostname("core-switch-01");
+        entry.setFacility(4);
+        entry.setSeverity(2);
+        entry.setMessage(message);
+        entry.setIsAlert(true);
+        return entry;
+    }
+
+    @Test
+    public void testCsvEscaping() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (SyslogExportWriter writer = SyslogExportWriter.create("CSV", out)) {
+            writer.write(entry(1, "plain"));
+            writer.write(entry(2, "a,\"b\"\nc"));
+            writer.finish();
+        }
+        String text = new String(out.toByteArray(), StandardCharsets.UTF_8);
+        assertTrue(text.startsWith("\uFEFFID,接收时间,"));
+        String[] lines = text.split("\r\n");
+        assertEquals("1,2025-11-29 16:45:00,,192.168.1.1,core-switch-01,,4,严重,plain,,,是,1,", lines[1]);
+        assertTrue(lines[2].endsWith(",\"a,\"\"b\"\"\nc\",,,是,1,"));
+    }
+
+    @Test
+    public void testNdjsonOneObjectPerLine() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (SyslogExportWriter writer = SyslogExportWriter.create("ndjson", out)) {
+            writer.write(entry(1, "first"));
+            writer.write(entry(2, "line\nbreak"));
+            writer.finish();
+        }
+        String[] lines = new String(out.toByteArray(), StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("{\"id\":1,\"receivedAt\":\"2025-11-29 16:45:00\",\"eventTime\":null"));
+        assertTrue(lines[1].contains("\"message\":\"line\\nbreak\""));
+        assertTrue(lines[1].endsWith("\"isAlert\":true,\"repeatCount\":1,\"lastSeenAt\":null}"));
+    }
+
+    @Test
+    public void testXlsxRows() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (SyslogExportWriter writer = SyslogExportWriter.create("xlsx", out)) {
+            for (int i = 1; i <= 250; i++) {
+                writer.write(entry(i, "message-" + i));
+            }
+            writer.finish();
+        }
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            Sheet sheet = workbook.getSheetAt(0);
+            assertEquals(250, sheet.getLastRowNum());
+            assertEquals("ID", sheet.getRow(0).getCell(0).getStringCellValue());
+            assertEquals("message-250", sheet.getRow(250).getCell(8).getStringCellValue());
+        }
+    }
+
+    @Test
+    public void testUnsupportedFormat() {
+        assertThrows(IllegalArgumentException.class,
+                () -> SyslogExportWriter.create("pdf", new ByteArrayOutputStream()));
+    }
+}
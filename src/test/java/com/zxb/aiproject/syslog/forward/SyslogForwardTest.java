@@ -0,0 +1,185 @@
+package com.zxb.aiproject.syslog.forward;
+
+import com.zxb.aiproject.config.SyslogProperties;
+import com.zxb.aiproject.entity.LogSettings;
+import com.zxb.aiproject.entity.SyslogEntry;
+import com.zxb.aiproject.mapper.LogSettingsMapper;
+import com.zxb.aiproject.syslog.SyslogIngestMetrics;
+import com.zxb.aiproject.syslog.SyslogMessageParser;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.DataInputStream;
+import java.lang.reflect.Proxy;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Syslog转发测试（本地监听端口接收）
+ */
+public class SyslogForwardTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 11, 29, 16, 45, 0);
+
+    private static SyslogEntry entry(String message) {
+        SyslogEntry entry = new SyslogEntry();
+        entry.setReceivedAt(NOW);
+        entry.setEventTime(NOW);
+        entry.setSourceIp("192.168.1.1");
+        entry.setHostname("core-switch-01");
+        entry.setFacility(4);
+        entry.setSeverity(2);
+        entry.setMessage(message);
+        return entry;
+    }
+
+    @Test
+    public void testEncodeRoundTrip() {
+        byte[] encoded = Rfc5424Encoder.encode(entry("Interface Gi0/1 down"));
+        String text = new String(encoded, StandardCharsets.UTF_8);
+        assertTrue(text.startsWith("<34>1 2025-11-29T16:45:00.000"));
+        assertTrue(text.contains(" core-switch-01 - - - [origin ip=\"192.168.1.1\"] "));
+
+        SyslogEntry parsed = SyslogMessageParser.parse(text, "10.0.0.1", NOW);
+        assertEquals(4, parsed.getFacility());
+        assertEquals(2, parsed.getSeverity());
+        assertEquals("core-switch-01", parsed.getHostname());
+        assertEquals("Interface Gi0/1 down", parsed.getMessage());
+    }
+
+    @Test
+    public void testSendTcpOctetCounting() throws Exception {
+        try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            ForwardTransport transport = new ForwardTransport("tcp", "127.0.0.1", server.getLocalPort(), 1000);
+            List<byte[]> messages = Arrays.asList(Rfc5424Encoder.encode(entry("first")),
+                    Rfc5424Encoder.encode(entry("第二条 second")));
+            transport.send(messages);
+            try (Socket socket = server.accept()) {
+                DataInputStream in = new DataInputStream(socket.getInputStream());
+                for (byte[] expected : messages) {
+                    StringBuilder length = new StringBuilder();
+                    int c;
+                    while ((c = in.read()) != ' ') {
+                        length.append((char) c);
+                    }
+                    byte[] actual = new byte[Integer.parseInt(length.toString())];
+                    in.readFully(actual);
+                    assertArrayEquals(expected, actual);
+                }
+            } finally {
+                transport.close();
+            }
+        }
+    }
+
+    @Test
+    public void testSendUdp() throws Exception {
+        try (DatagramSocket receiver = new DatagramSocket(0, InetAddress.getLoopbackAddress())) {
+            receiver.setSoTimeout(2000);
+            ForwardTransport transport = new ForwardTransport("udp", "127.0.0.1", receiver.getLocalPort(), 1000);
+            byte[] message = Rfc5424Encoder.encode(entry("udp message"));
+            transport.send(Arrays.asList(message));
+            transport.close();
+
+            DatagramPacket packet = new DatagramPacket(new byte[65536], 65536);
+            receiver.receive(packet);
+            assertArrayEquals(message, Arrays.copyOf(packet.getData(), packet.getLength()));
+        }
+    }
+
+    @Test
+    public void testSpillQueueFifoAcrossSegmentsAndReopen(@TempDir Path dir) throws Exception {
+        ForwardSpillQueue queue = new ForwardSpillQueue(dir, 1024 * 1024, 64);
+        queue.open();
+        for (int i = 0; i < 20; i++) {
+            assertTrue(queue.append(("message-" + i).getBytes(StandardCharsets.UTF_8)));
+        }
+        queue.flush();
+        assertTrue(queue.getSegmentCount() > 1);
+
+        List<byte[]> first = queue.poll(5);
+        assertEquals(5, first.size());
+        assertEquals("message-0", new String(first.get(0), StandardCharsets.UTF_8));
+        queue.close();
+
+        // 重启后未删除的分段从头重读，已删除的分段不再出现
+        ForwardSpillQueue reopened = new ForwardSpillQueue(dir, 1024 * 1024, 64);
+        reopened.open();
+        List<byte[]> rest = reopened.poll(100);
+        assertEquals("message-19", new String(rest.get(rest.size() - 1), StandardCharsets.UTF_8));
+        assertTrue(rest.size() >= 15);
+        assertTrue(reopened.isEmpty());
+        assertEquals(0, reopened.getBytes());
+    }
+
+    @Test
+    public void testSpillQueueCapacity(@TempDir Path dir) throws Exception {
+        ForwardSpillQueue queue = new ForwardSpillQueue(dir, 30, 1024);
+        queue.open();
+        assertTrue(queue.append(new byte[10]));
+        assertTrue(queue.append(new byte[10]));
+        assertFalse(queue.append(new byte[10]));
+        queue.close();
+    }
+
+    @Test
+    public void testOverflowKeepsOrderThroughSenderSpill(@TempDir Path dir) throws Exception {
+        try (DatagramSocket receiver = new DatagramSocket(0, InetAddress.getLoopbackAddress())) {
+            receiver.setSoTimeout(5000);
+            SyslogProperties properties = new SyslogProperties();
+            properties.getForward().setBufferCapacity(4);
+            properties.getForward().setBatchSize(4);
+            properties.getForward().setSpillDir(dir.toString());
+            LogSettings settings = new LogSettings();
+            settings.setIsForwardEnabled(true);
+            settings.setForwardServerIp("127.0.0.1");
+            settings.setForwardServerPort(receiver.getLocalPort());
+
+            SyslogForwarder forwarder = new SyslogForwarder();
+            ReflectionTestUtils.setField(forwarder, "syslogProperties", properties);
+            ReflectionTestUtils.setField(forwarder, "metrics", new SyslogIngestMetrics());
+            ReflectionTestUtils.setField(forwarder, "logSettingsMapper", Proxy.newProxyInstance(
+                    getClass().getClassLoader(), new Class<?>[]{LogSettingsMapper.class},
+                    (proxy, method, args) -> "selectById".equals(method.getName()) ? settings : null));
+            forwarder.start();
+            try {
+                // 缓冲只有 4 条，发送线程来不及取走时后续报文经交接队列由发送线程溢写，发出顺序不变
+                for (int b = 0; b < 8; b++) {
+                    List<SyslogEntry> batch = new ArrayList<>();
+                    for (int i = 0; i < 4; i++) {
+                        batch.add(entry("message-" + (b * 4 + i)));
+                    }
+                    forwarder.enqueue(batch);
+                    for (int wait = 0; wait < 100 && overflowDepth(forwarder) > 0; wait++) {
+                        Thread.sleep(20);
+                    }
+                }
+
+                for (int i = 0; i < 32; i++) {
+                    DatagramPacket packet = new DatagramPacket(new byte[65536], 65536);
+                    receiver.receive(packet);
+                    String text = new String(packet.getData(), 0, packet.getLength(), StandardCharsets.UTF_8);
+                    assertTrue(text.endsWith(" message-" + i), text);
+                }
+            } finally {
+                forwarder.stop();
+            }
+        }
+    }
+
+    private static int overflowDepth(SyslogForwarder forwarder) {
+        return (Integer) forwarder.getStats().get("forwardOverflowDepth");
+    }
+}
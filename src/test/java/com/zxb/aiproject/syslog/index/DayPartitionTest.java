@@ -0,0 +1,63 @@
+package com.zxb.aiproject.syslog.index;
+
+import com.zxb.aiproject.entity.SyslogEntry;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 单日索引分区查询测试：关键字可能只是日志中某个词的一部分，候选ID须覆盖LIKE能匹配到的所有日志
+ */
+public class DayPartitionTest {
+
+    private static SyslogEntry entry(long id, String message) {
+        SyslogEntry entry = new SyslogEntry();
+        entry.setId(id);
+        entry.setMessage(message);
+        entry.setSourceIp("10.0.0." + id);
+        return entry;
+    }
+
+    private static long[] search(DayPartition partition, String keyword) throws IOException {
+        long[] result = null;
+        for (SyslogTokenizer.QueryTerm term : SyslogTokenizer.queryMessageTerms(keyword)) {
+            long[] ids = partition.lookup(term, 1000);
+            result = result == null ? ids : PostingCodec.intersect(result, ids);
+        }
+        return result;
+    }
+
+    @Test
+    public void testSubstringLookupInBufferAndSegments() throws IOException {
+        Path dir = Files.createTempDirectory("index-test");
+        DayPartition partition = new DayPartition(LocalDate.of(2024, 6, 1), dir);
+        partition.load();
+        partition.add(entry(1, "Interface link down"));
+        partition.add(entry(2, "disk error on sda"));
+        partition.add(entry(3, "kernel: IOError detected"));
+        char[] hash = new char[SyslogTokenizer.MAX_TOKEN_LENGTH + 10];
+        Arrays.fill(hash, 'x');
+        partition.add(entry(4, "token=" + new String(hash) + "rror"));
+
+        for (int round = 0; round < 2; round++) {
+            // 词中间的子串：error、IOError 都包含，超长词无法判断也作为候选
+            assertArrayEquals(new long[]{2, 3, 4}, search(partition, "rror"));
+            // 首词按后缀、末词按前缀
+            assertArrayEquals(new long[]{1}, search(partition, "face link do"));
+            assertArrayEquals(new long[]{2}, search(partition, "k error on"));
+            // 两端是分隔符时按完整词
+            assertArrayEquals(new long[]{2}, search(partition, " error "));
+            assertArrayEquals(new long[0], search(partition, " rror "));
+            // 第二轮查询段文件
+            partition.flush();
+            assertEquals(0, partition.getBufferedDocs());
+        }
+        partition.close();
+    }
+}
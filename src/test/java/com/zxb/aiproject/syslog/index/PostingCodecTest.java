@@ -0,0 +1,67 @@
+package com.zxb.aiproject.syslog.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 倒排表编码与集合运算测试
+ */
+public class PostingCodecTest {
+
+    @Test
+    public void testEncodeDecodeRoundTrip() {
+        long[] ids = {1, 2, 3, 127, 128, 300, 16383, 16384, 1L << 35, Long.MAX_VALUE / 2};
+        byte[] encoded = PostingCodec.encode(ids, ids.length);
+        assertArrayEquals(ids, PostingCodec.decode(ByteBuffer.wrap(encoded), ids.length));
+    }
+
+    @Test
+    public void testConsecutiveIdsUseOneBytePerId() {
+        long[] ids = new long[1000];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = 5_000_000 + i;
+        }
+        byte[] encoded = PostingCodec.encode(ids, ids.length);
+        // 首个ID占4字节，其余差值均为1
+        assertEquals(4 + 999, encoded.length);
+        assertArrayEquals(ids, PostingCodec.decode(ByteBuffer.wrap(encoded), ids.length));
+    }
+
+    @Test
+    public void testDecodeOnlyRequestedCount() {
+        long[] ids = {10, 20, 30};
+        ByteBuffer buffer = ByteBuffer.wrap(PostingCodec.encode(ids, 2));
+        assertArrayEquals(new long[]{10, 20}, PostingCodec.decode(buffer, 2));
+        assertFalse(buffer.hasRemaining());
+    }
+
+    @Test
+    public void testSortUnique() {
+        long[] ids = {5, 3, 5, 1, 3, 9, 0, 0};
+        int n = PostingCodec.sortUnique(ids, 6);
+        assertEquals(4, n);
+        assertArrayEquals(new long[]{1, 3, 5, 9}, Arrays.copyOf(ids, n));
+        assertEquals(0, PostingCodec.sortUnique(new long[0], 0));
+    }
+
+    @Test
+    public void testUnion() {
+        assertArrayEquals(new long[]{1, 2, 3, 5, 8}, PostingCodec.union(new long[]{1, 3, 5}, new long[]{2, 3, 8}));
+        assertArrayEquals(new long[]{1, 2}, PostingCodec.union(null, new long[]{1, 2}));
+        assertArrayEquals(new long[]{1, 2}, PostingCodec.union(new long[]{1, 2}, null));
+        assertArrayEquals(new long[0], PostingCodec.union(null, null));
+        assertArrayEquals(new long[]{4, 7}, PostingCodec.union(new long[]{4, 7}, new long[]{4, 7}));
+    }
+
+    @Test
+    public void testIntersect() {
+        assertArrayEquals(new long[]{3, 8}, PostingCodec.intersect(new long[]{1, 3, 5, 8}, new long[]{2, 3, 8, 9}));
+        assertArrayEquals(new long[0], PostingCodec.intersect(new long[]{1, 2}, new long[]{3, 4}));
+        assertArrayEquals(new long[0], PostingCodec.intersect(null, new long[]{1}));
+        assertArrayEquals(new long[0], PostingCodec.intersect(new long[]{1}, new long[0]));
+    }
+}
@@ -0,0 +1,80 @@
+package com.zxb.aiproject.syslog.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 日志分词测试
+ */
+public class SyslogTokenizerTest {
+
+    private static List<String> message(String text) {
+        List<String> tokens = new ArrayList<>();
+        SyslogTokenizer.tokenizeMessage(text, tokens::add);
+        return tokens;
+    }
+
+    private static String describe(List<SyslogTokenizer.QueryTerm> terms) {
+        StringBuilder text = new StringBuilder();
+        for (SyslogTokenizer.QueryTerm term : terms) {
+            if (text.length() > 0) {
+                text.append(' ');
+            }
+            text.append(term.getMatch()).append(':').append(term.getToken());
+        }
+        return text.toString();
+    }
+
+    @Test
+    public void testMessageTokens() {
+        assertEquals(Arrays.asList("link", "down", "on", "ge0", "1"), message("Link DOWN on ge0/1"));
+        assertEquals(Arrays.asList("登", "登录", "录", "录失", "失", "失败", "败", "admin"), message("登录失败:admin"));
+    }
+
+    @Test
+    public void testLongTokenMarker() {
+        char[] hash = new char[SyslogTokenizer.MAX_TOKEN_LENGTH + 1];
+        Arrays.fill(hash, 'a');
+        assertEquals(Arrays.asList("sha", SyslogTokenizer.LONG_TOKEN_TERM), message("sha=" + new String(hash)));
+    }
+
+    @Test
+    public void testGrams() {
+        List<String> grams = new ArrayList<>();
+        SyslogTokenizer.tokenizeGrams("10.0.1", grams::add);
+        String p = String.valueOf(SyslogTokenizer.GRAM_PREFIX);
+        assertEquals(Arrays.asList(p + "10.", p + "0.0", p + ".0.", p + "0.1"), grams);
+        assertNull(SyslogTokenizer.queryGrams("ab"));
+    }
+
+    @Test
+    public void testQueryTermMatchByPosition() {
+        // 只有一个词且首尾都未遇到分隔符：可能在词的中间
+        assertEquals("INFIX:rror", describe(SyslogTokenizer.queryMessageTerms("rror")));
+        // 首词按后缀、末词按前缀、中间按完整词
+        assertEquals("SUFFIX:ink EXACT:down PREFIX:o",
+                describe(SyslogTokenizer.queryMessageTerms("ink down o")));
+        // 分隔符在两端时都是完整词
+        assertEquals("EXACT:error", describe(SyslogTokenizer.queryMessageTerms("[error]")));
+        assertEquals("PREFIX:err", describe(SyslogTokenizer.queryMessageTerms(" err")));
+        // 中文单字与二元组不受位置影响
+        assertEquals("EXACT:失 EXACT:失败 EXACT:败",
+                describe(SyslogTokenizer.queryMessageTerms("失败")));
+        assertEquals("SUFFIX:admin EXACT:登", describe(SyslogTokenizer.queryMessageTerms("admin登")));
+        assertTrue(SyslogTokenizer.queryMessageTerms("--").isEmpty());
+    }
+
+    @Test
+    public void testTermMatch() {
+        assertTrue(SyslogTokenizer.TermMatch.INFIX.matches("error", "rro"));
+        assertTrue(SyslogTokenizer.TermMatch.SUFFIX.matches("error", "ror"));
+        assertFalse(SyslogTokenizer.TermMatch.SUFFIX.matches("error", "err"));
+        assertTrue(SyslogTokenizer.TermMatch.PREFIX.matches("error", "err"));
+        assertFalse(SyslogTokenizer.TermMatch.EXACT.matches("error", "err"));
+    }
+}
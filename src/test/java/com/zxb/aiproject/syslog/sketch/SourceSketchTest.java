@@ -0,0 +1,75 @@
+package com.zxb.aiproject.syslog.sketch;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 来源概要（HyperLogLog / Space-Saving）测试
+ */
+public class SourceSketchTest {
+
+    @Test
+    public void testHyperLogLogSmallCardinalityIsNearExact() {
+        HyperLogLog hll = new HyperLogLog(12);
+        for (int i = 0; i < 300; i++) {
+            hll.add("10.0." + (i / 256) + "." + (i % 256));
+            hll.add("10.0." + (i / 256) + "." + (i % 256));
+        }
+        // 线性计数区间，误差约1%
+        assertTrue(Math.abs(hll.estimate() - 300) <= 9, "estimate=" + hll.estimate());
+    }
+
+    @Test
+    public void testHyperLogLogMergeWithinErrorBound() {
+        HyperLogLog first = new HyperLogLog(12);
+        HyperLogLog second = new HyperLogLog(12);
+        for (int i = 0; i < 60000; i++) {
+            first.add("src-" + i);
+            second.add("src-" + (i + 40000));
+        }
+        first.merge(HyperLogLog.fromBytes(second.toBytes()));
+        double error = Math.abs(first.estimate() - 100000) / 100000.0;
+        // 4 倍标准误差
+        assertTrue(error < 4 * first.relativeError(), "relative error=" + error);
+        assertThrows(IllegalArgumentException.class, () -> first.merge(new HyperLogLog(10)));
+    }
+
+    @Test
+    public void testSpaceSavingExactWhenNotFull() {
+        SpaceSaving sketch = new SpaceSaving(8);
+        sketch.offer("a", 5);
+        sketch.offer("b", 3);
+        sketch.offer("a", 2);
+        List<SpaceSaving.Counter> top = sketch.top(5);
+        assertEquals(2, top.size());
+        assertEquals("a", top.get(0).getKey());
+        assertEquals(7, top.get(0).getCount());
+        assertEquals(0, top.get(0).getError());
+        assertEquals(0, sketch.floor());
+    }
+
+    @Test
+    public void testSpaceSavingFindsHeavyHittersWithBoundedError() {
+        SpaceSaving first = new SpaceSaving(16);
+        SpaceSaving second = new SpaceSaving(16);
+        for (int i = 0; i < 5000; i++) {
+            // 两个热点来源，其余为长尾
+            first.offer("hot-1", 1);
+            second.offer(i % 2 == 0 ? "hot-2" : "tail-" + i, 1);
+            first.offer("tail-" + (i * 7), 1);
+        }
+        first.merge(SpaceSaving.fromBytes(second.toBytes()));
+        assertEquals(15000, first.getTotal());
+        List<SpaceSaving.Counter> top = first.top(2);
+        assertEquals("hot-1", top.get(0).getKey());
+        assertEquals("hot-2", top.get(1).getKey());
+        for (SpaceSaving.Counter counter : top) {
+            long trueCount = "hot-1".equals(counter.getKey()) ? 5000 : 2500;
+            assertTrue(counter.getCount() >= trueCount);
+            assertTrue(counter.getCount() - counter.getError() <= trueCount);
+        }
+    }
+}
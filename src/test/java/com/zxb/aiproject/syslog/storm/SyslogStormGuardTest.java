@@ -0,0 +1,121 @@
+package com.zxb.aiproject.syslog.storm;
+
+import com.zxb.aiproject.config.SyslogProperties;
+import com.zxb.aiproject.entity.SyslogEntry;
+import com.zxb.aiproject.syslog.SyslogIngestMetrics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 风暴抑制：滑动窗口去重与首条ID登记测试
+ */
+public class SyslogStormGuardTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2025, 11, 29, 16, 10, 0);
+
+    private SyslogStormGuard guard;
+
+    @BeforeEach
+    public void setUp() {
+        SyslogProperties properties = new SyslogProperties();
+        properties.getStorm().setEnabled(false);
+        properties.getStorm().setDedupWindowMs(60000L);
+        guard = new SyslogStormGuard();
+        ReflectionTestUtils.setField(guard, "syslogProperties", properties);
+        ReflectionTestUtils.setField(guard, "metrics", new SyslogIngestMetrics());
+        guard.init();
+        ReflectionTestUtils.setField(guard, "ready", true);
+    }
+
+    @Test
+    public void testWindowSlidesWithLastOccurrence() {
+        SyslogEntry first = entry(T0);
+        assertTrue(guard.admit(first, 0));
+        // 每次间隔 50 秒，均在上次出现后的窗口内，远超首条之后的 60 秒仍然折叠
+        for (int i = 1; i <= 4; i++) {
+            assertFalse(guard.admit(entry(T0.plusSeconds(50L * i)), 50000L * i));
+        }
+        // 停顿超过一个窗口后另起一条
+        assertTrue(guard.admit(entry(T0.plusSeconds(261)), 261000));
+    }
+
+    @Test
+    public void testNewHourStartsNewFirst() {
+        SyslogEntry first = entry(T0.withMinute(59).withSecond(50));
+        assertTrue(guard.admit(first, 0));
+        assertFalse(guard.admit(entry(T0.withMinute(59).withSecond(55)), 5000));
+        assertTrue(guard.admit(entry(T0.plusHours(1).withMinute(0).withSecond(5)), 15000));
+    }
+
+    @Test
+    public void testRepeatsWaitForPersistedId() {
+        SyslogEntry first = entry(T0);
+        assertTrue(guard.admit(first, 0));
+        assertFalse(guard.admit(entry(T0.plusSeconds(1)), 1000));
+        assertFalse(guard.admit(entry(T0.plusSeconds(2)), 2000));
+
+        // 入库线程回填了ID但还没有登记，不能读取
+        first.setId(42L);
+        assertTrue(guard.collect(3000).isEmpty());
+
+        guard.onPersisted(Collections.singletonList(first));
+        List<SyslogStormGuard.RepeatUpdate> updates = guard.collect(4000);
+        assertEquals(1, updates.size());
+        assertEquals(42L, updates.get(0).firstId);
+        assertEquals(2L, updates.get(0).count);
+        assertEquals(T0.plusSeconds(2), updates.get(0).lastSeenAt);
+    }
+
+    @Test
+    public void testPersistedCopyPublishesFirst() {
+        assertTrue(guard.admit(entry(T0), 0));
+        assertFalse(guard.admit(entry(T0.plusSeconds(1)), 1000));
+
+        // 经预写缓冲写库的是解码出的副本，带有写库前处理的结果
+        SyslogEntry persisted = entry(T0);
+        persisted.setId(7L);
+        persisted.setMatchedRuleId(3);
+        guard.onPersisted(Collections.singletonList(persisted));
+
+        List<SyslogStormGuard.RepeatUpdate> updates = guard.collect(2000);
+        assertEquals(1, updates.size());
+        assertEquals(7L, updates.get(0).firstId);
+        assertSame(persisted, updates.get(0).first);
+    }
+
+    @Test
+    public void testRetiredFirstFoundByKey() {
+        SyslogEntry first = entry(T0);
+        assertTrue(guard.admit(first, 0));
+        assertFalse(guard.admit(entry(T0.plusSeconds(1)), 1000));
+        // 窗口过后另起首条，旧记录带着未写回的重复次数移出去重表
+        SyslogEntry second = entry(T0.plusSeconds(120));
+        assertTrue(guard.admit(second, 121000));
+
+        first.setId(1L);
+        second.setId(2L);
+        guard.onPersisted(Arrays.asList(first, second));
+        List<SyslogStormGuard.RepeatUpdate> updates = guard.collect(122000);
+        assertEquals(1, updates.size());
+        assertEquals(1L, updates.get(0).firstId);
+        assertEquals(1L, updates.get(0).count);
+    }
+
+    private static SyslogEntry entry(LocalDateTime receivedAt) {
+        SyslogEntry entry = new SyslogEntry();
+        entry.setReceivedAt(receivedAt);
+        entry.setSourceIp("10.0.0.1");
+        entry.setFacility(23);
+        entry.setSeverity(3);
+        entry.setMessage("%LINK-3-UPDOWN: Interface Gi0/1, changed state to down");
+        return entry;
+    }
+}
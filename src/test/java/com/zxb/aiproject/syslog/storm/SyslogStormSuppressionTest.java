@@ -0,0 +1,57 @@
+package com.zxb.aiproject.syslog.storm;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 风暴抑制：消息归一化与令牌桶采样测试
+ */
+public class SyslogStormSuppressionTest {
+
+    @Test
+    public void testNormalizedHashIgnoresCountersAndTimestamps() {
+        long a = SyslogDedupKey.normalizedHash("000123: Nov 29 16:45:00.123: %LINK-3-UPDOWN: Interface Gi0/1, changed state to down");
+        long b = SyslogDedupKey.normalizedHash("000124:  Nov 29 16:45:01.456: %LINK-3-UPDOWN: Interface Gi0/1, changed state to down");
+        long c = SyslogDedupKey.normalizedHash("000125: Nov 29 16:45:02.789: %LINK-3-UPDOWN: Interface Gi0/2, changed state to down");
+        assertEquals(a, b);
+        assertNotEquals(a, c);
+        assertNotEquals(SyslogDedupKey.normalizedHash("a b"), SyslogDedupKey.normalizedHash("ab"));
+    }
+
+    @Test
+    public void testTokenBucketBurstAndRefill() {
+        SourceTokenBucket bucket = new SourceTokenBucket(5, 0);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(bucket.tryAcquire(0, 10, 5));
+        }
+        assertFalse(bucket.tryAcquire(0, 10, 5));
+        // 10条/秒，100毫秒补一个令牌
+        assertTrue(bucket.tryAcquire(100, 10, 5));
+        assertFalse(bucket.tryAcquire(100, 10, 5));
+    }
+
+    @Test
+    public void testSamplingAdaptsToStormSize() {
+        SourceTokenBucket bucket = new SourceTokenBucket(0, 0);
+        int kept = 0;
+        // 风暴第一秒没有参考量，保留前 10 条
+        for (int i = 0; i < 10000; i++) {
+            if (bucket.sample(500, 10)) {
+                kept++;
+            }
+        }
+        assertEquals(10, kept);
+        // 上一秒超出 10000 条，本秒每 1000 条保留 1 条
+        kept = 0;
+        int lastKept = -1;
+        for (int i = 0; i < 10000; i++) {
+            if (bucket.sample(1500, 10)) {
+                kept++;
+                lastKept = i;
+            }
+        }
+        assertEquals(10, kept);
+        assertEquals(9000, lastKept);
+    }
+}
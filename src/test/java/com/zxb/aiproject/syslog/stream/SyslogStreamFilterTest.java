@@ -0,0 +1,71 @@
+package com.zxb.aiproject.syslog.stream;
+
+import com.zxb.aiproject.entity.LogSavedFilter;
+import com.zxb.aiproject.entity.SyslogEntry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 实时推送过滤条件测试
+ */
+public class SyslogStreamFilterTest {
+
+    private static SyslogEntry entry(String sourceIp, int facility, int severity, String deviceType, String message) {
+        SyslogEntry entry = new SyslogEntry();
+        entry.setSourceIp(sourceIp);
+        entry.setFacility(facility);
+        entry.setSeverity(severity);
+        entry.setDeviceType(deviceType);
+        entry.setHostname("core-switch-01");
+        entry.setMessage(message);
+        return entry;
+    }
+
+    @Test
+    public void testEmptyFilterMatchesAll() {
+        SyslogStreamFilter filter = SyslogStreamFilter.of(null, null, null, null, null, null);
+        assertTrue(filter.test(entry("10.0.0.1", 4, 6, null, "anything")));
+    }
+
+    @Test
+    public void testAdHocCriteria() {
+        SyslogStreamFilter filter = SyslogStreamFilter.of(Arrays.asList("192.168.1.0/24", "10.0.0.5"),
+                Collections.singletonList(4), Arrays.asList(0, 1, 2, 3), Collections.singletonList("网络设备"),
+                Arrays.asList("LINK", "down"), Collections.singletonList("Gi0/48"));
+        assertTrue(filter.test(entry("192.168.1.20", 4, 2, "NETWORK", "Interface Gi0/1 link DOWN")));
+        assertTrue(filter.test(entry("10.0.0.5", 4, 3, "NETWORK", "port down")));
+        // 网段外
+        assertFalse(filter.test(entry("192.168.2.20", 4, 2, "NETWORK", "link down")));
+        // 严重级别不在范围
+        assertFalse(filter.test(entry("10.0.0.5", 4, 6, "NETWORK", "link down")));
+        // 设备类型不符
+        assertFalse(filter.test(entry("10.0.0.5", 4, 2, "SERVER", "link down")));
+        // 未命中包含关键字
+        assertFalse(filter.test(entry("10.0.0.5", 4, 2, "NETWORK", "cpu high")));
+        // 命中排除关键字
+        assertFalse(filter.test(entry("10.0.0.5", 4, 2, "NETWORK", "Interface gi0/48 down")));
+    }
+
+    @Test
+    public void testSavedFilter() {
+        LogSavedFilter saved = new LogSavedFilter();
+        saved.setSourceIps("[\"172.16.0.1/32\"]");
+        saved.setFacilities("server");
+        saved.setSeverities("0,1,2");
+        saved.setIncludeKeywords("error; fail");
+        SyslogStreamFilter filter = SyslogStreamFilter.fromSavedFilter(saved);
+        assertTrue(filter.test(entry("172.16.0.1", 1, 1, "SERVER", "disk FAILURE")));
+        assertFalse(filter.test(entry("172.16.0.2", 1, 1, "SERVER", "disk failure")));
+        assertFalse(filter.test(entry("172.16.0.1", 1, 1, "STORAGE", "disk failure")));
+    }
+
+    @Test
+    public void testInvalidCidr() {
+        assertThrows(IllegalArgumentException.class, () -> SyslogStreamFilter.of(
+                Collections.singletonList("10.0.0.0/33"), null, null, null, null, null));
+    }
+}
@@ -0,0 +1,75 @@
+package com.zxb.aiproject.syslog.template;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 日志模板树测试
+ */
+public class DrainTemplateTreeTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 11, 29, 16, 0);
+
+    @Test
+    public void testNumericTokensShareTemplate() {
+        DrainTemplateTree tree = new DrainTemplateTree(4, 0.5, 100, 1000);
+        LogTemplate first = tree.add("Failed password for admin from 192.168.10.200 port 22 ssh2", NOW);
+        LogTemplate second = tree.add("Failed password for admin from 10.0.0.7 port 51022 ssh2", NOW.plusMinutes(1));
+        assertSame(first, second);
+        assertEquals("Failed password for admin from <*> port <*> <*>", first.getText());
+        assertEquals(NOW, first.getFirstSeenAt());
+        assertEquals(1, tree.size());
+    }
+
+    @Test
+    public void testSimilarMessagesGeneralize() {
+        DrainTemplateTree tree = new DrainTemplateTree(4, 0.5, 100, 1000);
+        LogTemplate first = tree.add("Interface GigabitEthernet0/1 down, link failure detected", NOW);
+        first.setDirty(false);
+        LogTemplate second = tree.add("Interface GigabitEthernet0/1 up, link failure detected", NOW);
+        assertSame(first, second);
+        assertEquals("Interface <*> <*> link failure detected", first.getText());
+        assertTrue(first.isDirty());
+    }
+
+    @Test
+    public void testDissimilarMessagesSplit() {
+        DrainTemplateTree tree = new DrainTemplateTree(4, 0.5, 100, 1000);
+        LogTemplate saved = tree.add("Configuration saved to startup-config", NOW);
+        LogTemplate converged = tree.add("Spanning tree topology converged", NOW);
+        LogTemplate restored = tree.add("Interface Gi0/1 up, link restored", NOW);
+        assertNotEquals(saved.getId(), converged.getId());
+        assertNotEquals(saved.getId(), restored.getId());
+        assertEquals(3, tree.size());
+    }
+
+    @Test
+    public void testLoadRestoresTemplatesAndIds() {
+        DrainTemplateTree tree = new DrainTemplateTree(4, 0.5, 100, 1000);
+        tree.load(7, "User admin logged in successfully from <*>", NOW);
+        LogTemplate matched = tree.add("User admin logged in successfully from 192.168.10.100", NOW.plusHours(1));
+        assertEquals(7, matched.getId());
+        assertEquals(NOW, matched.getFirstSeenAt());
+        assertFalse(matched.isDirty());
+        LogTemplate created = tree.add("Apache service restarted successfully", NOW);
+        assertEquals(8, created.getId());
+    }
+
+    @Test
+    public void testWildcardChildAndTemplateLimit() {
+        DrainTemplateTree tree = new DrainTemplateTree(4, 0.5, 3, 4);
+        tree.add("alpha one two three", NOW);
+        tree.add("beta one two three", NOW);
+        // 子节点已满，新的首词进入通配节点
+        LogTemplate gamma = tree.add("gamma x y z", NOW);
+        LogTemplate delta = tree.add("delta x y z", NOW);
+        assertSame(gamma, delta);
+        assertEquals("<*> x y z", delta.getText());
+        tree.add("unrelated message here", NOW);
+        assertEquals(4, tree.size());
+        assertNull(tree.add("completely different words", NOW));
+    }
+}
@@ -0,0 +1,91 @@
+package com.zxb.aiproject.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 短时结果缓存测试
+ */
+public class ExpiringCacheTest {
+
+    @Test
+    public void testCachedUntilExpired() {
+        AtomicLong now = new AtomicLong(1000);
+        ExpiringCache<String, Integer> cache = new ExpiringCache<>(5000, 16, now::get);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals(1, (int) cache.get("a", loads::incrementAndGet));
+        now.addAndGet(4999);
+        assertEquals(1, (int) cache.get("a", loads::incrementAndGet));
+        assertEquals(2, (int) cache.get("b", loads::incrementAndGet));
+        now.addAndGet(1);
+        assertEquals(3, (int) cache.get("a", loads::incrementAndGet));
+    }
+
+    @Test
+    public void testFailureNotCached() {
+        ExpiringCache<String, Integer> cache = new ExpiringCache<>(5000, 16);
+        assertThrows(IllegalStateException.class, () -> cache.get("a", () -> {
+            throw new IllegalStateException("db down");
+        }));
+        assertEquals(0, cache.size());
+        assertEquals(7, (int) cache.get("a", () -> 7));
+    }
+
+    @Test
+    public void testFullCacheLoadsWithoutCaching() {
+        AtomicLong now = new AtomicLong(0);
+        ExpiringCache<Integer, Integer> cache = new ExpiringCache<>(100, 2, now::get);
+        cache.get(1, () -> 1);
+        cache.get(2, () -> 2);
+        assertEquals(3, (int) cache.get(3, () -> 3));
+        assertEquals(2, cache.size());
+        // 过期条目腾出位置
+        now.set(100);
+        cache.get(3, () -> 3);
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testConcurrentRequestsShareOneLoad() throws Exception {
+        ExpiringCache<String, Integer> cache = new ExpiringCache<>(60000, 16);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<Integer> first = executor.submit(() -> cache.get("k", () -> {
+                started.countDown();
+                await(release);
+                return loads.incrementAndGet();
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            Future<Integer> second = executor.submit(() -> cache.get("k", loads::incrementAndGet));
+            Future<Integer> third = executor.submit(() -> cache.get("k", loads::incrementAndGet));
+            release.countDown();
+            assertEquals(1, (int) first.get(5, TimeUnit.SECONDS));
+            assertEquals(1, (int) second.get(5, TimeUnit.SECONDS));
+            assertEquals(1, (int) third.get(5, TimeUnit.SECONDS));
+            assertEquals(1, loads.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.zxb.aiproject.util;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SSE 多订阅推送测试
+ */
+public class SseBroadcasterTest {
+
+    private static SseBroadcaster.Subscription<String> subscription(String id) {
+        return new SseBroadcaster.Subscription<>(id, new SseEmitter(0L), 4);
+    }
+
+    @Test
+    public void testDrainsBufferOnSendThread() throws Exception {
+        List<String> drained = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(3);
+        SseBroadcaster<SseBroadcaster.Subscription<String>> broadcaster = new SseBroadcaster<>("测试", "test-sse", 1,
+                s -> {
+                    for (String item; (item = s.getBuffer().poll()) != null; ) {
+                        drained.add(Thread.currentThread().getName() + ":" + item);
+                        done.countDown();
+                    }
+                });
+        SseBroadcaster.Subscription<String> subscription = subscription("a");
+        broadcaster.register(subscription);
+        subscription.getBuffer().offer("1");
+        subscription.getBuffer().offer("2");
+        broadcaster.scheduleSend(subscription);
+        subscription.getBuffer().offer("3");
+        broadcaster.scheduleSend(subscription);
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(3, drained.size());
+        assertTrue(drained.get(0).startsWith("test-sse-"));
+        broadcaster.shutdown();
+        assertTrue(subscription.isClosed());
+        assertTrue(broadcaster.isEmpty());
+    }
+
+    @Test
+    public void testFailedSendClosesSubscription() throws Exception {
+        CountDownLatch attempted = new CountDownLatch(1);
+        SseBroadcaster<SseBroadcaster.Subscription<String>> broadcaster = new SseBroadcaster<>("测试", "test-sse", 1,
+                s -> {
+                    attempted.countDown();
+                    throw new IOException("broken pipe");
+                });
+        SseBroadcaster.Subscription<String> broken = subscription("broken");
+        SseBroadcaster.Subscription<String> healthy = subscription("healthy");
+        broadcaster.register(broken);
+        broadcaster.register(healthy);
+        broken.getBuffer().offer("x");
+        broadcaster.scheduleSend(broken);
+
+        assertTrue(attempted.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 50 && !broken.isClosed(); i++) {
+            Thread.sleep(20);
+        }
+        assertTrue(broken.isClosed());
+        assertTrue(broken.getBuffer().isEmpty());
+        assertEquals(1, broadcaster.size());
+        assertFalse(healthy.isClosed());
+        broadcaster.shutdown();
+    }
+}